@@ -235,6 +235,9 @@ tasks.register<Test>("benchmark") {
 
 kotlin {
     explicitApi()
+
+    // JMH benchmarks drive internal client render-build code (GeckoModelBaker, BucketMergeTask, buffer pools).
+    target.compilations.getByName("jmh").associateWith(target.compilations.getByName("main"))
 }
 
 // Adds Access Transformer files to tasks
@@ -0,0 +1,155 @@
+package github.kasuminova.prototypemachinery.modernbackend.bench;
+
+import github.kasuminova.prototypemachinery.modernbackend.accel.BatchedVertexPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of re-encoding a packed bucket into the compact GL layout (CompactPackedVertices in the mod):
+ * 28-byte POSITION_TEX_COLOR_NORMAL vertices -> GL_SHORT positions relative to the bounds center,
+ * GL_SHORT UVs, color + normal copied (20 bytes/vertex).
+ *
+ * The position quantization is an affine transform through {@link BatchedVertexPipeline} (scalar vs selected
+ * backend); raw_copy is the plain 28-byte copy the non-compact path does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class CompactPackedEncodeBench {
+
+    private static final int RAW_STRIDE = 28;
+    private static final int STRIDE = 20;
+    private static final int CHUNK = 4096;
+    private static final float UV_UNITS = 32767.0f;
+
+    @Param({"256", "4096", "65536"})
+    public int vertices;
+
+    private ByteBuffer raw;
+    private ByteBuffer rawOut;
+    private ByteBuffer compactOut;
+
+    private float[] xs;
+    private float[] ys;
+    private float[] zs;
+
+    private float inv;
+    private float tx, ty, tz;
+
+    private BatchedVertexPipeline pipelineSelected;
+    private BatchedVertexPipeline pipelineScalar;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        raw = ByteBuffer.allocateDirect(vertices * RAW_STRIDE).order(ByteOrder.nativeOrder());
+        rawOut = ByteBuffer.allocateDirect(vertices * RAW_STRIDE).order(ByteOrder.nativeOrder());
+        compactOut = ByteBuffer.allocateDirect(vertices * STRIDE).order(ByteOrder.nativeOrder());
+
+        final int chunk = Math.min(vertices, CHUNK);
+        xs = new float[chunk];
+        ys = new float[chunk];
+        zs = new float[chunk];
+
+        // Typical machine model: a few blocks wide, placed somewhere in the world.
+        final float extent = 3.0f;
+        final float ox = 1024.5f, oy = 64.0f, oz = -2048.5f;
+        final Random r = new Random(12345L);
+        for (int i = 0; i < vertices; i++) {
+            final int o = i * RAW_STRIDE;
+            raw.putFloat(o, ox + r.nextFloat() * extent);
+            raw.putFloat(o + 4, oy + r.nextFloat() * extent);
+            raw.putFloat(o + 8, oz + r.nextFloat() * extent);
+            raw.putFloat(o + 12, r.nextFloat());
+            raw.putFloat(o + 16, r.nextFloat());
+            raw.putInt(o + 20, (i & 1) == 0 ? -1 : 0x80FF00FF);
+            raw.putInt(o + 24, 0x00007F00);
+        }
+
+        final float scale = (extent * 0.5f) / 32767.0f;
+        inv = 1.0f / scale;
+        tx = -(ox + extent * 0.5f) * inv;
+        ty = -(oy + extent * 0.5f) * inv;
+        tz = -(oz + extent * 0.5f) * inv;
+
+        pipelineSelected = BatchedVertexPipeline.selected();
+        pipelineScalar = BatchedVertexPipeline.scalar();
+        System.out.println("[JMH] Compact encode backend: " + pipelineSelected.backendName()
+                + ", vectorized=" + pipelineSelected.isVectorized()
+                + ", rawBytes=" + (long) vertices * RAW_STRIDE
+                + ", compactBytes=" + (long) vertices * STRIDE);
+    }
+
+    @Benchmark
+    public void raw_copy(Blackhole bh) {
+        final ByteBuffer src = raw.duplicate();
+        src.clear();
+        rawOut.clear();
+        rawOut.put(src);
+
+        // DCE guard
+        bh.consume(rawOut.getInt(20));
+    }
+
+    @Benchmark
+    public void scalar_encode(Blackhole bh) {
+        encode(pipelineScalar, bh);
+    }
+
+    @Benchmark
+    public void selected_encode(Blackhole bh) {
+        encode(pipelineSelected, bh);
+    }
+
+    private void encode(BatchedVertexPipeline pipeline, Blackhole bh) {
+        final ByteBuffer src = raw;
+        final ByteBuffer out = compactOut;
+        int start = 0;
+        while (start < vertices) {
+            final int n = Math.min(CHUNK, vertices - start);
+            for (int i = 0; i < n; i++) {
+                final int o = (start + i) * RAW_STRIDE;
+                xs[i] = src.getFloat(o);
+                ys[i] = src.getFloat(o + 4);
+                zs[i] = src.getFloat(o + 8);
+            }
+
+            pipeline.transformAffine3x4InPlace(
+                    xs, ys, zs,
+                    0, n,
+                    inv, 0.0f, 0.0f, tx,
+                    0.0f, inv, 0.0f, ty,
+                    0.0f, 0.0f, inv, tz
+            );
+
+            for (int i = 0; i < n; i++) {
+                final int o = (start + i) * RAW_STRIDE;
+                final int d = (start + i) * STRIDE;
+                out.putShort(d, quantize(xs[i]));
+                out.putShort(d + 2, quantize(ys[i]));
+                out.putShort(d + 4, quantize(zs[i]));
+                out.putShort(d + 6, (short) 0);
+                out.putShort(d + 8, quantize(src.getFloat(o + 12) * UV_UNITS));
+                out.putShort(d + 10, quantize(src.getFloat(o + 16) * UV_UNITS));
+                out.putInt(d + 12, src.getInt(o + 20));
+                out.putInt(d + 16, src.getInt(o + 24));
+            }
+            start += n;
+        }
+
+        // DCE guard
+        bh.consume(out.getShort(0));
+        bh.consume(out.getInt((vertices - 1) * STRIDE + 16));
+    }
+
+    private static short quantize(float value) {
+        return (short) Math.max(-32767, Math.min(32767, Math.round(value)));
+    }
+}
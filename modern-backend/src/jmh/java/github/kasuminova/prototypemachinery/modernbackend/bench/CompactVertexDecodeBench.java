@@ -0,0 +1,160 @@
+package github.kasuminova.prototypemachinery.modernbackend.bench;
+
+import github.kasuminova.prototypemachinery.modernbackend.accel.BatchedVertexPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replay cost of cached Gecko frames: raw 28-byte AoS copy vs decoding the compact encoding
+ * (u16 positions relative to the bounds, unorm16 UV, byte palette indices for color/normal; ~12 bytes/vertex).
+ *
+ * Decode = widen to SoA floats + palette lookup, then the affine de-quantization and AoS packing run through
+ * {@link BatchedVertexPipeline} (scalar vs selected backend), mirroring CompactVertices.decode in the mod.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class CompactVertexDecodeBench {
+
+    private static final int INTS_PER_VERTEX = 7;
+    private static final float INV_UNORM16 = 1.0f / 65535.0f;
+
+    @Param({"256", "4096", "65536"})
+    public int count;
+
+    // Raw layout (what the frame cache stores without compaction).
+    private int[] raw;
+
+    // Compact layout.
+    private short[] positions;
+    private short[] uvs;
+    private int[] normalPalette;
+    private byte[] normalIndices;
+    private int color;
+
+    private float originX, originY, originZ;
+    private float scaleX, scaleY, scaleZ;
+
+    // Decode scratch (SoA) + output.
+    private float[] xs;
+    private float[] ys;
+    private float[] zs;
+    private float[] us;
+    private float[] vs;
+    private int[] colors;
+    private int[] normals;
+    private int[] out;
+
+    private BatchedVertexPipeline pipelineSelected;
+    private BatchedVertexPipeline pipelineScalar;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        raw = new int[count * INTS_PER_VERTEX];
+        positions = new short[count * 3];
+        uvs = new short[count * 2];
+        normalIndices = new byte[count];
+
+        xs = new float[count];
+        ys = new float[count];
+        zs = new float[count];
+        us = new float[count];
+        vs = new float[count];
+        colors = new int[count];
+        normals = new int[count];
+        out = new int[count * INTS_PER_VERTEX];
+
+        // Typical machine model: a few blocks wide, one tint, six face normals.
+        originX = -1.5f; originY = 0.0f; originZ = -1.5f;
+        final float extent = 3.0f;
+        scaleX = scaleY = scaleZ = extent / 65535.0f;
+        color = 0xFFFFFFFF;
+        normalPalette = new int[]{0x00007F00, 0x00008100, 0x007F0000, 0x00810000, 0x0000007F, 0x00000081};
+
+        final Random r = new Random(12345L);
+        for (int i = 0; i < count; i++) {
+            final int qx = r.nextInt(65536);
+            final int qy = r.nextInt(65536);
+            final int qz = r.nextInt(65536);
+            final int qu = r.nextInt(65536);
+            final int qv = r.nextInt(65536);
+            // Quads share their normal over 4 vertices.
+            final int normalIndex = (i >> 2) % normalPalette.length;
+
+            positions[i * 3] = (short) qx;
+            positions[i * 3 + 1] = (short) qy;
+            positions[i * 3 + 2] = (short) qz;
+            uvs[i * 2] = (short) qu;
+            uvs[i * 2 + 1] = (short) qv;
+            normalIndices[i] = (byte) normalIndex;
+
+            final int o = i * INTS_PER_VERTEX;
+            raw[o] = Float.floatToRawIntBits(scaleX * qx + originX);
+            raw[o + 1] = Float.floatToRawIntBits(scaleY * qy + originY);
+            raw[o + 2] = Float.floatToRawIntBits(scaleZ * qz + originZ);
+            raw[o + 3] = Float.floatToRawIntBits(qu * INV_UNORM16);
+            raw[o + 4] = Float.floatToRawIntBits(qv * INV_UNORM16);
+            raw[o + 5] = color;
+            raw[o + 6] = normalPalette[normalIndex];
+        }
+
+        pipelineSelected = BatchedVertexPipeline.selected();
+        pipelineScalar = BatchedVertexPipeline.scalar();
+        System.out.println("[JMH] Compact decode backend: " + pipelineSelected.backendName()
+                + ", vectorized=" + pipelineSelected.isVectorized()
+                + ", rawBytes=" + raw.length * 4L
+                + ", compactBytes=" + (positions.length * 2L + uvs.length * 2L + normalIndices.length + normalPalette.length * 4L + 4L));
+    }
+
+    @Benchmark
+    public void raw_copy(Blackhole bh) {
+        System.arraycopy(raw, 0, out, 0, raw.length);
+
+        // DCE guard
+        bh.consume(out[5]);
+        bh.consume(out[(count - 1) * 7 + 6]);
+    }
+
+    @Benchmark
+    public void scalar_decode(Blackhole bh) {
+        decode(pipelineScalar, bh);
+    }
+
+    @Benchmark
+    public void selected_decode(Blackhole bh) {
+        decode(pipelineSelected, bh);
+    }
+
+    private void decode(BatchedVertexPipeline pipeline, Blackhole bh) {
+        final int n = count;
+        for (int i = 0; i < n; i++) {
+            final int p = i * 3;
+            xs[i] = positions[p] & 0xFFFF;
+            ys[i] = positions[p + 1] & 0xFFFF;
+            zs[i] = positions[p + 2] & 0xFFFF;
+            us[i] = (uvs[i * 2] & 0xFFFF) * INV_UNORM16;
+            vs[i] = (uvs[i * 2 + 1] & 0xFFFF) * INV_UNORM16;
+            normals[i] = normalPalette[normalIndices[i] & 0xFF];
+        }
+        java.util.Arrays.fill(colors, 0, n, color);
+
+        pipeline.transformThenPackIntArray(
+                xs, ys, zs,
+                us, vs,
+                colors, normals,
+                0, n,
+                scaleX, 0.0f, 0.0f, originX,
+                0.0f, scaleY, 0.0f, originY,
+                0.0f, 0.0f, scaleZ, originZ,
+                out,
+                0
+        );
+
+        // DCE guard
+        bh.consume(out[5]);
+        bh.consume(out[(n - 1) * 7 + 6]);
+    }
+}
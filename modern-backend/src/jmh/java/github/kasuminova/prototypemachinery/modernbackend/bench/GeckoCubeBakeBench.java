@@ -0,0 +1,205 @@
+package github.kasuminova.prototypemachinery.modernbackend.bench;
+
+import github.kasuminova.prototypemachinery.modernbackend.accel.BatchedVertexPipeline;
+import github.kasuminova.prototypemachinery.modernbackend.accel.ScalarPositionTransformBackend;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-cube Gecko bake: 6 quads per cube, one bone matrix + normal matrix per cube.
+ *
+ * Compares the mod's per-quad scalar loop (GeckoModelBaker.renderQuadPacked) with
+ * {@link BatchedVertexPipeline#bakeQuadsIntArray} (scalar vs selected backend), which transforms positions,
+ * transforms/packs normals and interleaves POSITION_TEX_COLOR_NORMAL for the whole cube in one call.
+ *
+ * Setup checks that all three produce bit-identical output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class GeckoCubeBakeBench {
+
+    private static final int INTS_PER_VERTEX = 7;
+    private static final int QUADS_PER_CUBE = 6;
+    private static final int VERTS_PER_CUBE = QUADS_PER_CUBE * 4;
+
+    @Param({"16", "256", "2048"})
+    public int cubes;
+
+    // Per-cube SoA (same layout as GeckoCubeQuadVertexCache.CubeData).
+    private float[] xs;
+    private float[] ys;
+    private float[] zs;
+    private float[] us;
+    private float[] vs;
+    private float[] normalXs;
+    private float[] normalYs;
+    private float[] normalZs;
+
+    // Per-cube matrices: 12 affine + 9 normal floats.
+    private float[] mats;
+    private int[] flatFlags;
+    private int color;
+
+    private int[] out;
+
+    private BatchedVertexPipeline pipelineSelected;
+    private BatchedVertexPipeline pipelineScalar;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        final int vertices = cubes * VERTS_PER_CUBE;
+        final int quads = cubes * QUADS_PER_CUBE;
+        xs = new float[vertices];
+        ys = new float[vertices];
+        zs = new float[vertices];
+        us = new float[vertices];
+        vs = new float[vertices];
+        normalXs = new float[quads];
+        normalYs = new float[quads];
+        normalZs = new float[quads];
+        mats = new float[cubes * 21];
+        flatFlags = new int[cubes];
+        color = 0xFFFFFFFF;
+        out = new int[vertices * INTS_PER_VERTEX];
+
+        final float[][] faceNormals = {{0, 0, -1}, {0, 0, 1}, {-1, 0, 0}, {1, 0, 0}, {0, 1, 0}, {0, -1, 0}};
+        final Random r = new Random(12345L);
+        for (int i = 0; i < vertices; i++) {
+            xs[i] = r.nextFloat() * 2.0f - 1.0f;
+            ys[i] = r.nextFloat() * 2.0f;
+            zs[i] = r.nextFloat() * 2.0f - 1.0f;
+            us[i] = r.nextFloat();
+            vs[i] = r.nextFloat();
+        }
+        for (int q = 0; q < quads; q++) {
+            final float[] n = faceNormals[q % QUADS_PER_CUBE];
+            normalXs[q] = n[0];
+            normalYs[q] = n[1];
+            normalZs[q] = n[2];
+        }
+        for (int c = 0; c < cubes; c++) {
+            // Rotation about Y + translation; normal matrix = rotation (scaled slightly to exercise the clamp).
+            final float a = r.nextFloat() * 6.2831855f;
+            final float cos = (float) Math.cos(a);
+            final float sin = (float) Math.sin(a);
+            final int m = c * 21;
+            mats[m] = cos; mats[m + 1] = 0.0f; mats[m + 2] = sin; mats[m + 3] = r.nextFloat() * 4.0f;
+            mats[m + 4] = 0.0f; mats[m + 5] = 1.0f; mats[m + 6] = 0.0f; mats[m + 7] = r.nextFloat() * 4.0f;
+            mats[m + 8] = -sin; mats[m + 9] = 0.0f; mats[m + 10] = cos; mats[m + 11] = r.nextFloat() * 4.0f;
+            final float s = 1.0f + r.nextFloat() * 0.05f;
+            mats[m + 12] = cos * s; mats[m + 13] = 0.0f; mats[m + 14] = sin * s;
+            mats[m + 15] = 0.0f; mats[m + 16] = s; mats[m + 17] = 0.0f;
+            mats[m + 18] = -sin * s; mats[m + 19] = 0.0f; mats[m + 20] = cos * s;
+            flatFlags[c] = r.nextInt(8);
+        }
+
+        pipelineSelected = BatchedVertexPipeline.selected();
+        pipelineScalar = BatchedVertexPipeline.scalar();
+        System.out.println("[JMH] Gecko cube bake backend: " + pipelineSelected.backendName()
+                + ", vectorized=" + pipelineSelected.isVectorized());
+
+        // Bit-identity self-check.
+        perQuad();
+        final int[] expected = out.clone();
+        bake(pipelineScalar);
+        if (!Arrays.equals(expected, out)) {
+            throw new IllegalStateException("Scalar cube bake output differs from the per-quad path");
+        }
+        bake(pipelineSelected);
+        if (!Arrays.equals(expected, out)) {
+            throw new IllegalStateException("Selected cube bake output differs from the per-quad path ("
+                    + pipelineSelected.backendName() + ")");
+        }
+    }
+
+    @Benchmark
+    public void per_quad_scalar(Blackhole bh) {
+        perQuad();
+
+        // DCE guard
+        bh.consume(out[6]);
+        bh.consume(out[out.length - 1]);
+    }
+
+    @Benchmark
+    public void scalar_cube(Blackhole bh) {
+        bake(pipelineScalar);
+
+        // DCE guard
+        bh.consume(out[6]);
+        bh.consume(out[out.length - 1]);
+    }
+
+    @Benchmark
+    public void selected_cube(Blackhole bh) {
+        bake(pipelineSelected);
+
+        // DCE guard
+        bh.consume(out[6]);
+        bh.consume(out[out.length - 1]);
+    }
+
+    private void bake(BatchedVertexPipeline pipeline) {
+        final float[] m = mats;
+        for (int c = 0; c < cubes; c++) {
+            final int b = c * 21;
+            pipeline.bakeQuadsIntArray(
+                    xs, ys, zs, us, vs, c * VERTS_PER_CUBE,
+                    normalXs, normalYs, normalZs, c * QUADS_PER_CUBE, QUADS_PER_CUBE,
+                    flatFlags[c],
+                    color,
+                    m[b], m[b + 1], m[b + 2], m[b + 3],
+                    m[b + 4], m[b + 5], m[b + 6], m[b + 7],
+                    m[b + 8], m[b + 9], m[b + 10], m[b + 11],
+                    m[b + 12], m[b + 13], m[b + 14],
+                    m[b + 15], m[b + 16], m[b + 17],
+                    m[b + 18], m[b + 19], m[b + 20],
+                    out,
+                    c * VERTS_PER_CUBE * INTS_PER_VERTEX
+            );
+        }
+    }
+
+    /** Mirrors GeckoModelBaker.renderQuadPacked (one normal + 4 vertices per quad). */
+    private void perQuad() {
+        final float[] m = mats;
+        int o = 0;
+        for (int c = 0; c < cubes; c++) {
+            final int b = c * 21;
+            final int flags = flatFlags[c];
+            for (int q = c * QUADS_PER_CUBE, qe = q + QUADS_PER_CUBE; q < qe; q++) {
+                final float qnx = normalXs[q];
+                final float qny = normalYs[q];
+                final float qnz = normalZs[q];
+                float nx = m[b + 12] * qnx + m[b + 13] * qny + m[b + 14] * qnz;
+                float ny = m[b + 15] * qnx + m[b + 16] * qny + m[b + 17] * qnz;
+                float nz = m[b + 18] * qnx + m[b + 19] * qny + m[b + 20] * qnz;
+                if ((flags & 1) != 0 && nx < 0) nx = -nx;
+                if ((flags & 2) != 0 && ny < 0) ny = -ny;
+                if ((flags & 4) != 0 && nz < 0) nz = -nz;
+                final int packedNormal = (ScalarPositionTransformBackend.normalByte(nx) & 0xFF)
+                        | ((ScalarPositionTransformBackend.normalByte(ny) & 0xFF) << 8)
+                        | ((ScalarPositionTransformBackend.normalByte(nz) & 0xFF) << 16);
+
+                for (int v = q * 4, ve = v + 4; v < ve; v++) {
+                    final float x = xs[v];
+                    final float y = ys[v];
+                    final float z = zs[v];
+                    out[o] = Float.floatToRawIntBits(m[b] * x + m[b + 1] * y + m[b + 2] * z + m[b + 3]);
+                    out[o + 1] = Float.floatToRawIntBits(m[b + 4] * x + m[b + 5] * y + m[b + 6] * z + m[b + 7]);
+                    out[o + 2] = Float.floatToRawIntBits(m[b + 8] * x + m[b + 9] * y + m[b + 10] * z + m[b + 11]);
+                    out[o + 3] = Float.floatToRawIntBits(us[v]);
+                    out[o + 4] = Float.floatToRawIntBits(vs[v]);
+                    out[o + 5] = color;
+                    out[o + 6] = packedNormal;
+                    o += INTS_PER_VERTEX;
+                }
+            }
+        }
+    }
+}
@@ -238,6 +238,111 @@ public final class BatchedVertexPipeline {
         );
     }
 
+    /**
+     * Bakes a batch of quads (4 vertices per quad, e.g. one whole Gecko cube) into AoS int[] output:
+     * <ol>
+     *   <li>positions: affine 3x4 model matrix ({@link PositionTransformBackend#transformAffine3x4SoA}, out-of-place)</li>
+     *   <li>per-quad normals: 3x3 normal matrix, flat-cube fix and byte packing
+     *       ({@link PositionTransformBackend#transformPackNormals3x3SoA})</li>
+     *   <li>pack with the constant {@code color}: xBits, yBits, zBits, uBits, vBits, color, normal</li>
+     * </ol>
+     *
+     * <p>Source arrays are not modified. Vertex {@code v} of quad {@code q} is read at
+     * {@code vertexOffset + q*4 + v}; quad normals at {@code quadOffset + q}. Results do not depend on the backend.
+     */
+    public void bakeQuadsIntArray(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            float[] us,
+            float[] vs,
+            int vertexOffset,
+            float[] normalXs,
+            float[] normalYs,
+            float[] normalZs,
+            int quadOffset,
+            int quadCount,
+            int flatFlags,
+            int color,
+            float m00, float m01, float m02, float m03,
+            float m10, float m11, float m12, float m13,
+            float m20, float m21, float m22, float m23,
+            float n00, float n01, float n02,
+            float n10, float n11, float n12,
+            float n20, float n21, float n22,
+            int[] out,
+            int outIntOffset
+    ) {
+        if (quadCount <= 0) {
+            return;
+        }
+
+        final int count = quadCount * 4;
+        final BakeScratch s = BakeScratch.get(count, quadCount);
+
+        backend.transformAffine3x4SoA(
+                xs, ys, zs,
+                vertexOffset, count,
+                m00, m01, m02, m03,
+                m10, m11, m12, m13,
+                m20, m21, m22, m23,
+                s.xs, s.ys, s.zs,
+                0
+        );
+        backend.transformPackNormals3x3SoA(
+                normalXs, normalYs, normalZs,
+                quadOffset, quadCount,
+                n00, n01, n02,
+                n10, n11, n12,
+                n20, n21, n22,
+                flatFlags,
+                s.normals,
+                0
+        );
+
+        final float[] txs = s.xs;
+        final float[] tys = s.ys;
+        final float[] tzs = s.zs;
+        final int[] normals = s.normals;
+        int o = outIntOffset;
+        for (int i = 0; i < count; i++) {
+            final int src = vertexOffset + i;
+            out[o] = Float.floatToRawIntBits(txs[i]);
+            out[o + 1] = Float.floatToRawIntBits(tys[i]);
+            out[o + 2] = Float.floatToRawIntBits(tzs[i]);
+            out[o + 3] = Float.floatToRawIntBits(us[src]);
+            out[o + 4] = Float.floatToRawIntBits(vs[src]);
+            out[o + 5] = color;
+            out[o + 6] = normals[i >> 2];
+            o += INTS_PER_VERTEX;
+        }
+    }
+
+    /** Per-thread SoA scratch for {@link #bakeQuadsIntArray}; grows on demand, never shrinks. */
+    private static final class BakeScratch {
+
+        private static final ThreadLocal<BakeScratch> LOCAL = ThreadLocal.withInitial(BakeScratch::new);
+
+        float[] xs = new float[0];
+        float[] ys = new float[0];
+        float[] zs = new float[0];
+        int[] normals = new int[0];
+
+        static BakeScratch get(int vertices, int quads) {
+            final BakeScratch s = LOCAL.get();
+            if (s.xs.length < vertices) {
+                final int cap = Math.max(vertices, s.xs.length * 2);
+                s.xs = new float[cap];
+                s.ys = new float[cap];
+                s.zs = new float[cap];
+            }
+            if (s.normals.length < quads) {
+                s.normals = new int[Math.max(quads, s.normals.length * 2)];
+            }
+            return s;
+        }
+    }
+
     /**
      * Fused single-pass transform+pack to AoS int[] output.
      *
@@ -44,4 +44,53 @@ public interface PositionTransformBackend {
             float m10, float m11, float m12, float m13,
             float m20, float m21, float m22, float m23
     );
+
+    /**
+     * Out-of-place variant of {@link #transformAffine3x4SoA}: reads {@code [srcOffset, srcOffset+count)} of
+     * {@code xs/ys/zs} and writes {@code [dstOffset, dstOffset+count)} of {@code outXs/outYs/outZs}.
+     *
+     * <p>The inputs are left untouched, so they may be shared caches (e.g. baked cube vertices).
+     */
+    void transformAffine3x4SoA(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            int srcOffset,
+            int count,
+            float m00, float m01, float m02, float m03,
+            float m10, float m11, float m12, float m13,
+            float m20, float m21, float m22, float m23,
+            float[] outXs,
+            float[] outYs,
+            float[] outZs,
+            int dstOffset
+    );
+
+    /**
+     * Transforms normals stored in SoA arrays by a 3x3 matrix and packs them like {@code BufferBuilder.normal}.
+     *
+     * <p>For each {@code i in [offset, offset+count)}:
+     *
+     * <pre>
+     * x' = n00*x + n01*y + n02*z        (y', z' likewise)
+     * if ((flatFlags &amp; 1) != 0 &amp;&amp; x' &lt; 0) x' = -x'   (2 for y', 4 for z': flat-cube shading fix)
+     * b  = round-half-away-from-zero(clamp(v, -1, 1) * 127)   per component
+     * out[outOffset + i - offset] = (bx &amp; 0xFF) | (by &amp; 0xFF) &lt;&lt; 8 | (bz &amp; 0xFF) &lt;&lt; 16
+     * </pre>
+     *
+     * <p>Implementations must be bit-identical to {@link ScalarPositionTransformBackend}.
+     */
+    void transformPackNormals3x3SoA(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            int offset,
+            int count,
+            float n00, float n01, float n02,
+            float n10, float n11, float n12,
+            float n20, float n21, float n22,
+            int flatFlags,
+            int[] out,
+            int outOffset
+    );
 }
@@ -41,4 +41,71 @@ public final class ScalarPositionTransformBackend implements PositionTransformBa
             zs[i] = (m20 * x) + (m21 * y) + (m22 * z) + m23;
         }
     }
+
+    @Override
+    public void transformAffine3x4SoA(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            int srcOffset,
+            int count,
+            float m00, float m01, float m02, float m03,
+            float m10, float m11, float m12, float m13,
+            float m20, float m21, float m22, float m23,
+            float[] outXs,
+            float[] outYs,
+            float[] outZs,
+            int dstOffset
+    ) {
+        for (int i = 0; i < count; i++) {
+            final int s = srcOffset + i;
+            final int d = dstOffset + i;
+            final float x = xs[s];
+            final float y = ys[s];
+            final float z = zs[s];
+
+            outXs[d] = (m00 * x) + (m01 * y) + (m02 * z) + m03;
+            outYs[d] = (m10 * x) + (m11 * y) + (m12 * z) + m13;
+            outZs[d] = (m20 * x) + (m21 * y) + (m22 * z) + m23;
+        }
+    }
+
+    @Override
+    public void transformPackNormals3x3SoA(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            int offset,
+            int count,
+            float n00, float n01, float n02,
+            float n10, float n11, float n12,
+            float n20, float n21, float n22,
+            int flatFlags,
+            int[] out,
+            int outOffset
+    ) {
+        for (int i = 0; i < count; i++) {
+            final int s = offset + i;
+            final float x = xs[s];
+            final float y = ys[s];
+            final float z = zs[s];
+
+            float nx = (n00 * x) + (n01 * y) + (n02 * z);
+            float ny = (n10 * x) + (n11 * y) + (n12 * z);
+            float nz = (n20 * x) + (n21 * y) + (n22 * z);
+
+            if ((flatFlags & 1) != 0 && nx < 0.0f) nx = -nx;
+            if ((flatFlags & 2) != 0 && ny < 0.0f) ny = -ny;
+            if ((flatFlags & 4) != 0 && nz < 0.0f) nz = -nz;
+
+            out[outOffset + i] = (normalByte(nx) & 0xFF) | ((normalByte(ny) & 0xFF) << 8) | ((normalByte(nz) & 0xFF) << 16);
+        }
+    }
+
+    /** Signed normal byte as written by {@code BufferBuilder.normal}: clamp to [-1, 1], scale by 127, round half away from zero. */
+    public static int normalByte(float v) {
+        final float clamped = v <= -1.0f ? -1.0f : (v >= 1.0f ? 1.0f : v);
+        final float scaled = clamped * 127.0f;
+        return scaled >= 0.0f ? (int) (scaled + 0.5f) : (int) (scaled - 0.5f);
+    }
 }
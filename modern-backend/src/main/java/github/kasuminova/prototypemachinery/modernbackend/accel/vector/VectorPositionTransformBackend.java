@@ -1,7 +1,11 @@
 package github.kasuminova.prototypemachinery.modernbackend.accel.vector;
 
 import github.kasuminova.prototypemachinery.modernbackend.accel.PositionTransformBackend;
+import github.kasuminova.prototypemachinery.modernbackend.accel.ScalarPositionTransformBackend;
 import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
 import jdk.incubator.vector.VectorSpecies;
 
 /**
@@ -83,4 +87,144 @@ public final class VectorPositionTransformBackend implements PositionTransformBa
             zs[idx] = (m20 * x) + (m21 * y) + (m22 * z) + m23;
         }
     }
+
+    @Override
+    public void transformAffine3x4SoA(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            int srcOffset,
+            int count,
+            float m00, float m01, float m02, float m03,
+            float m10, float m11, float m12, float m13,
+            float m20, float m21, float m22, float m23,
+            float[] outXs,
+            float[] outYs,
+            float[] outZs,
+            int dstOffset
+    ) {
+        final VectorSpecies<Float> sp = SPECIES;
+        final int step = sp.length();
+        final int bound = (count / step) * step;
+
+        int i = 0;
+        if (bound > 0) {
+            final FloatVector vm00 = FloatVector.broadcast(sp, m00);
+            final FloatVector vm01 = FloatVector.broadcast(sp, m01);
+            final FloatVector vm02 = FloatVector.broadcast(sp, m02);
+            final FloatVector vm03 = FloatVector.broadcast(sp, m03);
+
+            final FloatVector vm10 = FloatVector.broadcast(sp, m10);
+            final FloatVector vm11 = FloatVector.broadcast(sp, m11);
+            final FloatVector vm12 = FloatVector.broadcast(sp, m12);
+            final FloatVector vm13 = FloatVector.broadcast(sp, m13);
+
+            final FloatVector vm20 = FloatVector.broadcast(sp, m20);
+            final FloatVector vm21 = FloatVector.broadcast(sp, m21);
+            final FloatVector vm22 = FloatVector.broadcast(sp, m22);
+            final FloatVector vm23 = FloatVector.broadcast(sp, m23);
+
+            for (; i < bound; i += step) {
+                final FloatVector vx = FloatVector.fromArray(sp, xs, srcOffset + i);
+                final FloatVector vy = FloatVector.fromArray(sp, ys, srcOffset + i);
+                final FloatVector vz = FloatVector.fromArray(sp, zs, srcOffset + i);
+
+                // Same operation order as the scalar path (no FMA) => bit-identical results.
+                vx.mul(vm00).add(vy.mul(vm01)).add(vz.mul(vm02)).add(vm03).intoArray(outXs, dstOffset + i);
+                vx.mul(vm10).add(vy.mul(vm11)).add(vz.mul(vm12)).add(vm13).intoArray(outYs, dstOffset + i);
+                vx.mul(vm20).add(vy.mul(vm21)).add(vz.mul(vm22)).add(vm23).intoArray(outZs, dstOffset + i);
+            }
+        }
+
+        // Tail
+        if (i < count) {
+            ScalarPositionTransformBackend.INSTANCE.transformAffine3x4SoA(
+                    xs, ys, zs,
+                    srcOffset + i, count - i,
+                    m00, m01, m02, m03,
+                    m10, m11, m12, m13,
+                    m20, m21, m22, m23,
+                    outXs, outYs, outZs,
+                    dstOffset + i
+            );
+        }
+    }
+
+    @Override
+    public void transformPackNormals3x3SoA(
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            int offset,
+            int count,
+            float n00, float n01, float n02,
+            float n10, float n11, float n12,
+            float n20, float n21, float n22,
+            int flatFlags,
+            int[] out,
+            int outOffset
+    ) {
+        final VectorSpecies<Float> sp = SPECIES;
+        final int step = sp.length();
+        final int bound = (count / step) * step;
+
+        int i = 0;
+        if (bound > 0) {
+            final FloatVector vn00 = FloatVector.broadcast(sp, n00);
+            final FloatVector vn01 = FloatVector.broadcast(sp, n01);
+            final FloatVector vn02 = FloatVector.broadcast(sp, n02);
+            final FloatVector vn10 = FloatVector.broadcast(sp, n10);
+            final FloatVector vn11 = FloatVector.broadcast(sp, n11);
+            final FloatVector vn12 = FloatVector.broadcast(sp, n12);
+            final FloatVector vn20 = FloatVector.broadcast(sp, n20);
+            final FloatVector vn21 = FloatVector.broadcast(sp, n21);
+            final FloatVector vn22 = FloatVector.broadcast(sp, n22);
+
+            for (; i < bound; i += step) {
+                final FloatVector vx = FloatVector.fromArray(sp, xs, offset + i);
+                final FloatVector vy = FloatVector.fromArray(sp, ys, offset + i);
+                final FloatVector vz = FloatVector.fromArray(sp, zs, offset + i);
+
+                FloatVector nx = vx.mul(vn00).add(vy.mul(vn01)).add(vz.mul(vn02));
+                FloatVector ny = vx.mul(vn10).add(vy.mul(vn11)).add(vz.mul(vn12));
+                FloatVector nz = vx.mul(vn20).add(vy.mul(vn21)).add(vz.mul(vn22));
+
+                if ((flatFlags & 1) != 0) nx = nx.blend(nx.neg(), nx.compare(VectorOperators.LT, 0.0f));
+                if ((flatFlags & 2) != 0) ny = ny.blend(ny.neg(), ny.compare(VectorOperators.LT, 0.0f));
+                if ((flatFlags & 4) != 0) nz = nz.blend(nz.neg(), nz.compare(VectorOperators.LT, 0.0f));
+
+                normalBytes(nx)
+                        .or(normalBytes(ny).lanewise(VectorOperators.LSHL, 8))
+                        .or(normalBytes(nz).lanewise(VectorOperators.LSHL, 16))
+                        .intoArray(out, outOffset + i);
+            }
+        }
+
+        // Tail
+        if (i < count) {
+            ScalarPositionTransformBackend.INSTANCE.transformPackNormals3x3SoA(
+                    xs, ys, zs,
+                    offset + i, count - i,
+                    n00, n01, n02,
+                    n10, n11, n12,
+                    n20, n21, n22,
+                    flatFlags,
+                    out,
+                    outOffset + i
+            );
+        }
+    }
+
+    /** Lane-wise {@link ScalarPositionTransformBackend#normalByte(float)}, masked to the low byte. */
+    private static IntVector normalBytes(FloatVector v) {
+        // Compare-based clamp keeps NaN lanes as NaN, like the scalar ternaries (min/max would differ).
+        FloatVector c = v.blend(-1.0f, v.compare(VectorOperators.LE, -1.0f));
+        c = c.blend(1.0f, c.compare(VectorOperators.GE, 1.0f));
+        final FloatVector scaled = c.mul(127.0f);
+        // scaled >= 0 ? +0.5 : -0.5 (NaN takes -0.5, as in the scalar path); F2I truncates like a Java cast.
+        final VectorMask<Float> nonNegative = scaled.compare(VectorOperators.GE, 0.0f);
+        final FloatVector half = FloatVector.broadcast(SPECIES, -0.5f).blend(0.5f, nonNegative);
+        final IntVector bytes = (IntVector) scaled.add(half).convert(VectorOperators.F2I, 0);
+        return bytes.and(0xFF);
+    }
 }
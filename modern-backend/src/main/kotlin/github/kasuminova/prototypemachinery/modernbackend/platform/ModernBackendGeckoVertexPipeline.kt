@@ -139,4 +139,66 @@ internal class ModernBackendGeckoVertexPipeline : PMGeckoVertexPipeline {
             false
         }
     }
+
+    override fun bakeQuadsIntArray(
+        forceScalar: Boolean,
+        xs: FloatArray,
+        ys: FloatArray,
+        zs: FloatArray,
+        us: FloatArray,
+        vs: FloatArray,
+        vertexOffset: Int,
+        normalXs: FloatArray,
+        normalYs: FloatArray,
+        normalZs: FloatArray,
+        quadOffset: Int,
+        quadCount: Int,
+        flatFlags: Int,
+        color: Int,
+        m00: Float,
+        m01: Float,
+        m02: Float,
+        m03: Float,
+        m10: Float,
+        m11: Float,
+        m12: Float,
+        m13: Float,
+        m20: Float,
+        m21: Float,
+        m22: Float,
+        m23: Float,
+        n00: Float,
+        n01: Float,
+        n02: Float,
+        n10: Float,
+        n11: Float,
+        n12: Float,
+        n20: Float,
+        n21: Float,
+        n22: Float,
+        out: IntArray,
+        outIntOffset: Int
+    ): Boolean {
+        return try {
+            val p = if (forceScalar) scalar else selected
+            p.bakeQuadsIntArray(
+                xs, ys, zs,
+                us, vs,
+                vertexOffset,
+                normalXs, normalYs, normalZs,
+                quadOffset, quadCount,
+                flatFlags, color,
+                m00, m01, m02, m03,
+                m10, m11, m12, m13,
+                m20, m21, m22, m23,
+                n00, n01, n02,
+                n10, n11, n12,
+                n20, n21, n22,
+                out, outIntOffset
+            )
+            true
+        } catch (_: Throwable) {
+            false
+        }
+    }
 }
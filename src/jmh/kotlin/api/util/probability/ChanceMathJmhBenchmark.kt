@@ -24,6 +24,7 @@ import kotlin.math.floor
  * - current implementation: [ChanceMath.sampleTimes]
  * - exact Bernoulli baseline for small parallels (old behavior for the fractional part)
  * - [BinomialSampler] alone across common parameter regimes
+ * - [ExactBinomialSampler] (BTPE / inversion) with and without the setup cache lookup
  */
 @BenchmarkMode(Mode.AverageTime)
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
@@ -119,6 +120,41 @@ open class ChanceMathJmhBenchmark {
         bh.consume(BinomialSampler.sample(state.random, state.n, state.p))
     }
 
+    @State(Scope.Thread)
+    open class ExactBinomialState {
+        @Param("64", "1000", "4096", "1000000")
+        var n: Int = 1000
+
+        @Param("0.01", "0.3", "0.8")
+        var p: Double = 0.3
+
+        private val seed: Long = 12345L
+        lateinit var random: RandomSource
+        lateinit var setup: ExactBinomialSampler.Setup
+
+        @Setup(Level.Iteration)
+        fun setupIteration() {
+            random = RandomSource.of(Random(seed))
+            setup = ExactBinomialSampler.setup(n, p)
+        }
+    }
+
+    /**
+     * Exact BTPE / inversion sampler with cached setup (the [ProbabilityTuning.enableExactBinomial] path).
+     */
+    @Benchmark
+    fun exactBinomialSampler_sample_cachedSetup(state: ExactBinomialState, bh: Blackhole) {
+        bh.consume(ExactBinomialSampler.sample(state.random, state.setup))
+    }
+
+    /**
+     * Same as above, including the setup cache lookup per call.
+     */
+    @Benchmark
+    fun exactBinomialSampler_sample_lookup(state: ExactBinomialState, bh: Blackhole) {
+        bh.consume(ExactBinomialSampler.sample(state.random, state.n, state.p))
+    }
+
     @State(Scope.Thread)
     open class RandomCostState {
         private val seed: Long = 12345L
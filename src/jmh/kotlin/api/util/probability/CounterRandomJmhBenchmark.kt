@@ -0,0 +1,80 @@
+package github.kasuminova.prototypemachinery.api.util.probability
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * Per-call RNG cost for recipe requirement sampling.
+ *
+ * We compare:
+ * - legacy: `Random(seed xor "item:${id}:start".hashCode())` per call (string build + Random allocation)
+ * - counter-based: precomputed salt id + thread-local [CounterRandomStream]
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+open class CounterRandomJmhBenchmark {
+
+    @State(Scope.Thread)
+    open class SampleState {
+        @Param("16", "4096")
+        var parallels: Int = 16
+
+        @Param("30.0", "250.0")
+        var chancePercent: Double = 30.0
+
+        val seed: Long = 12345L
+        val componentId: String = "input_0"
+        val saltDomain: Long = CounterRandom.salt("item:start")
+
+        var tick: Long = 0L
+
+        @Setup(Level.Iteration)
+        fun setupIteration() {
+            tick = 0L
+        }
+    }
+
+    @Benchmark
+    fun sampleTimes_legacyRandomPerCall(state: SampleState, bh: Blackhole) {
+        val random = Random(state.seed xor "item:${state.componentId}:start:${state.tick++}".hashCode().toLong())
+        bh.consume(ChanceMath.sampleTimes(random, state.parallels, state.chancePercent))
+    }
+
+    @Benchmark
+    fun sampleTimes_counterStream(state: SampleState, bh: Blackhole) {
+        val stream = CounterRandom.stream(state.seed, CounterRandom.salt(state.saltDomain, state.componentId), state.tick++)
+        bh.consume(ChanceMath.sampleTimes(stream, state.parallels, state.chancePercent))
+    }
+
+    @State(Scope.Thread)
+    open class DrawState {
+        val random: Random = Random(12345L)
+        val stream: CounterRandomStream = CounterRandomStream(12345L, 1L, 0L)
+    }
+
+    @Benchmark
+    fun nextDouble_javaRandom(state: DrawState, bh: Blackhole) {
+        bh.consume(state.random.nextDouble())
+    }
+
+    @Benchmark
+    fun nextDouble_counterStream(state: DrawState, bh: Blackhole) {
+        bh.consume(state.stream.nextDouble())
+    }
+}
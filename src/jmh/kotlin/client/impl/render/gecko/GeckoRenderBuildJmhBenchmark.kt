@@ -0,0 +1,342 @@
+package github.kasuminova.prototypemachinery.client.impl.render.gecko
+
+import github.kasuminova.prototypemachinery.client.api.render.AssetResolver
+import github.kasuminova.prototypemachinery.client.impl.render.assets.ResolverBackedResourceManager
+import github.kasuminova.prototypemachinery.client.impl.render.task.BucketMergeTask
+import github.kasuminova.prototypemachinery.client.util.BufferBuilderPool
+import github.kasuminova.prototypemachinery.client.util.DirectByteBufferPool
+import github.kasuminova.prototypemachinery.client.util.MatrixStack
+import github.kasuminova.prototypemachinery.client.util.NativeBufferStats
+import it.unimi.dsi.fastutil.ints.IntArrayList
+import net.minecraft.client.renderer.BufferBuilder
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats
+import net.minecraft.util.ResourceLocation
+import org.lwjgl.opengl.GL11
+import org.openjdk.jmh.annotations.AuxCounters
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import software.bernie.geckolib3.file.GeoModelLoader
+import software.bernie.geckolib3.geo.render.built.GeoBone
+import software.bernie.geckolib3.geo.render.built.GeoModel
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Headless end-to-end benchmark of the client render-build CPU path (no GL context, no game):
+ * GeckoLib model load -> [GeckoModelBaker] bake -> [BucketMergeTask] packing.
+ *
+ * 无 GL 上下文（不启动游戏）的客户端渲染构建 CPU 路径端到端基准：
+ * 加载 GeckoLib 模型 -> [GeckoModelBaker] 烘焙 -> [BucketMergeTask] 合并打包。
+ *
+ * Models / 模型：
+ * - `synthetic-N`: generated geo.json with N bones (chains of 4, 4 cubes per bone, some `emissive` / `transparent`
+ *   bones so routing produces several passes).
+ * - `sample`: the bundled `prototypemachinery:geo/test_mid.geo.json`.
+ *
+ * Every second bone (traversal order) is treated as potentially animated and every fourth as active, so each
+ * [GeckoModelBaker.BakeMode] bakes a non-trivial subset.
+ *
+ * Metrics / 指标：
+ * - primary score: builds per second; `vertices`: vertices per second.
+ * - `directAllocs` / `directBytes` / `builderNews`: direct-buffer churn (pool misses) summed over the measurement;
+ *   should stay near 0 once the pools are warm.
+ * - heap bytes per build: run with the gc profiler (`gc.alloc.rate.norm`).
+ *
+ * Usage / 用法：
+ *   ./gradlew jmh -PjmhInclude=GeckoRenderBuildJmhBenchmark -PjmhProfilers=gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Suppress("UNUSED_PARAMETER") // Aux counter states are injected for JMH only.
+open class GeckoRenderBuildJmhBenchmark {
+
+    @State(Scope.Thread)
+    open class S {
+        @Param("synthetic-16", "synthetic-128", "synthetic-1024", "sample")
+        var model: String = "synthetic-16"
+
+        @Param("ALL", "PERMANENT_STATIC_ONLY", "TEMP_STATIC_ONLY", "ANIMATED_ONLY")
+        var mode: String = "ALL"
+
+        internal lateinit var geo: GeoModel
+        internal lateinit var bakeMode: GeckoModelBaker.BakeMode
+        internal lateinit var potential: Set<String>
+        internal lateinit var active: Set<String>
+
+        /** Per routed pass (default / bloom / transparent / bloom+transparent). */
+        internal val packedSinks = Array(4) { IntArrayList() }
+
+        internal val generation = AtomicInteger()
+
+        @Setup(Level.Trial)
+        fun setup() {
+            bakeMode = GeckoModelBaker.BakeMode.valueOf(mode)
+            geo = loadModel(model)
+
+            val names = ArrayList<String>()
+            for (bone in geo.topLevelBones) collectBoneNames(bone, names)
+            potential = names.filterIndexed { i, _ -> i % 2 == 0 }.toHashSet()
+            active = names.filterIndexed { i, _ -> i % 4 == 0 }.toHashSet()
+
+            val pipeline = GeckoModelBaker.vertexPipeline
+            println("[JMH] Gecko render build: model=$model bones=${names.size} mode=$mode pipeline=${pipeline?.backendName(false) ?: "per-quad"}")
+        }
+    }
+
+    /** Vertices produced, normalized to a rate by JMH. / 产出顶点数（JMH 归一化为速率）。 */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    open class VertexCounter {
+        @JvmField
+        var vertices: Long = 0L
+
+        @Setup(Level.Iteration)
+        fun reset() {
+            vertices = 0L
+        }
+    }
+
+    /** Native allocations that missed the pools. / 未命中池的原生缓冲区分配。 */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    open class DirectBufferChurn {
+        @JvmField
+        var directAllocs: Long = 0L
+
+        @JvmField
+        var directBytes: Long = 0L
+
+        @JvmField
+        var builderNews: Long = 0L
+
+        private var base: NativeBufferStats.Snapshot? = null
+
+        @Setup(Level.Iteration)
+        fun begin() {
+            directAllocs = 0L
+            directBytes = 0L
+            builderNews = 0L
+            base = NativeBufferStats.snapshot()
+        }
+
+        @TearDown(Level.Iteration)
+        fun end() {
+            val b = base ?: return
+            val now = NativeBufferStats.snapshot()
+            directAllocs = now.directAllocations - b.directAllocations
+            directBytes = now.directAllocatedBytes - b.directAllocatedBytes
+            builderNews = now.bufferBuilderNew - b.bufferBuilderNew
+        }
+    }
+
+    /** BufferBuilder path, as used by non-animated layers. / BufferBuilder 路径（非动画层）。 */
+    @Benchmark
+    fun bake_builder(s: S, v: VertexCounter, churn: DirectBufferChurn, bh: Blackhole) {
+        val counts = GeckoModelBaker.estimateRoutedFilteredVertexCounts(s.geo, s.active, s.bakeMode, s.potential)
+        val builders = arrayOfNulls<BufferBuilder>(4)
+
+        val ms = MatrixStack()
+        ms.push()
+        ms.translate(0.5f, 0.0f, 0.5f)
+        GeckoModelBaker.bakeRoutedFiltered(
+            model = s.geo,
+            matrixStack = ms,
+            bufferSelector = { bloom, transparent ->
+                val pass = passIndex(bloom, transparent)
+                builders[pass] ?: borrowBuilder(bytesForVertices(counts[pass])).also { builders[pass] = it }
+            },
+            activeAnimatedBones = s.active,
+            mode = s.bakeMode,
+            potentialAnimatedBones = s.potential,
+        )
+        ms.pop()
+
+        var vertices = 0L
+        for (b in builders) {
+            if (b == null) continue
+            b.finishDrawing()
+            vertices += b.vertexCount
+            bh.consume(b.byteBuffer)
+            BufferBuilderPool.recycle(b)
+        }
+        v.vertices += vertices
+    }
+
+    /** Packed int sink path, as used by animated layers. / 打包 int 输出路径（动画层）。 */
+    @Benchmark
+    fun bake_packed(s: S, v: VertexCounter, churn: DirectBufferChurn, bh: Blackhole) {
+        val sinks = s.packedSinks
+        val writers = Array(4) { pass ->
+            val sink = sinks[pass]
+            sink.clear()
+            GeckoModelBaker.PackedVertexDataWriter { src, offsetInts, lengthInts ->
+                sink.addElements(sink.size, src, offsetInts, lengthInts)
+            }
+        }
+
+        val ms = MatrixStack()
+        ms.push()
+        ms.translate(0.5f, 0.0f, 0.5f)
+        GeckoModelBaker.bakeRoutedFilteredPacked(
+            model = s.geo,
+            matrixStack = ms,
+            writerSelector = { bloom, transparent -> writers[passIndex(bloom, transparent)] },
+            activeAnimatedBones = s.active,
+            mode = s.bakeMode,
+            potentialAnimatedBones = s.potential,
+        )
+        ms.pop()
+
+        var ints = 0L
+        for (sink in sinks) {
+            ints += sink.size
+            bh.consume(sink.elements())
+        }
+        v.vertices += ints / INTS_PER_VERTEX
+    }
+
+    /**
+     * Bakes [MERGE_INSTANCES] placed copies into separate builders, then packs them into one direct buffer batch.
+     *
+     * 将 [MERGE_INSTANCES] 个摆放位置不同的副本烘焙到各自的 builder，再打包为一个直接缓冲区批次。
+     */
+    @Benchmark
+    fun bake_merge(s: S, v: VertexCounter, churn: DirectBufferChurn, bh: Blackhole) {
+        val counts = GeckoModelBaker.estimateRoutedFilteredVertexCounts(s.geo, s.active, s.bakeMode, s.potential)
+        val bytes = bytesForVertices(counts[0] + counts[1] + counts[2] + counts[3])
+
+        val builders = ArrayList<BufferBuilder>(MERGE_INSTANCES)
+        for (i in 0 until MERGE_INSTANCES) {
+            val b = borrowBuilder(bytes)
+            val ms = MatrixStack()
+            ms.push()
+            ms.translate(i * 2.0f + 0.5f, 0.0f, 0.5f)
+            GeckoModelBaker.bakeRoutedFiltered(
+                model = s.geo,
+                matrixStack = ms,
+                bufferSelector = { _, _ -> b },
+                activeAnimatedBones = s.active,
+                mode = s.bakeMode,
+                potentialAnimatedBones = s.potential,
+            )
+            ms.pop()
+            b.finishDrawing()
+            // Same contract as the in-game merge: sources are pinned, the task unpins them.
+            BufferBuilderPool.pin(b)
+            builders.add(b)
+        }
+
+        val task = BucketMergeTask(builders, TAG, s.generation, s.generation.get())
+        task.invoke()
+        task.error?.let { throw it }
+
+        val batch = task.result
+        if (batch != null) {
+            v.vertices += batch.totalVertexCount
+            for (part in batch.parts) {
+                bh.consume(part.data)
+                DirectByteBufferPool.recycle(part.data)
+            }
+        }
+        for (b in builders) {
+            BufferBuilderPool.recycle(b)
+        }
+    }
+
+    private class InMemoryAssetResolver(private val files: Map<ResourceLocation, ByteArray>) : AssetResolver {
+        override fun open(location: ResourceLocation): InputStream = ByteArrayInputStream(files.getValue(location))
+
+        override fun exists(location: ResourceLocation): Boolean = files.containsKey(location)
+
+        override fun versionStamp(): Long = 0L
+    }
+
+    private companion object {
+        const val TAG: String = "GeckoRenderBuildJmhBenchmark"
+        const val INTS_PER_VERTEX: Int = 7
+        const val MERGE_INSTANCES: Int = 8
+        const val BONES_PER_CHAIN: Int = 4
+        const val CUBES_PER_BONE: Int = 4
+
+        val GEO_LOCATION = ResourceLocation("prototypemachinery", "geo/bench.geo.json")
+
+        fun passIndex(bloom: Boolean, transparent: Boolean): Int = (if (bloom) 1 else 0) or (if (transparent) 2 else 0)
+
+        /** Same sizing as GeckoModelRenderBuildTask: 28 bytes per vertex plus headroom. */
+        fun bytesForVertices(vertices: Int): Int = vertices * 28 + 16 * 1024
+
+        fun borrowBuilder(bytes: Int): BufferBuilder =
+            BufferBuilderPool.borrow(bytes, tag = TAG).also {
+                it.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR_NORMAL)
+            }
+
+        fun collectBoneNames(bone: GeoBone, out: MutableList<String>) {
+            out.add(bone.name)
+            for (child in bone.childBones) collectBoneNames(child, out)
+        }
+
+        fun loadModel(model: String): GeoModel {
+            val json = if (model == "sample") {
+                val stream = GeckoRenderBuildJmhBenchmark::class.java
+                    .getResourceAsStream("/assets/prototypemachinery/geo/test_mid.geo.json")
+                    ?: error("Bundled sample model not found on classpath")
+                stream.use { it.readBytes() }
+            } else {
+                syntheticGeoJson(model.removePrefix("synthetic-").toInt()).toByteArray(Charsets.UTF_8)
+            }
+
+            val resolver = InMemoryAssetResolver(mapOf(GEO_LOCATION to json))
+            val manager = ResolverBackedResourceManager(resolver, domains = setOf(GEO_LOCATION.namespace))
+            return GeoModelLoader().loadModel(manager, GEO_LOCATION)
+        }
+
+        fun syntheticGeoJson(bones: Int): String {
+            val sb = StringBuilder(bones * 512)
+            sb.append("""{"format_version":"1.12.0","minecraft:geometry":[{""")
+            sb.append(""""description":{"identifier":"geometry.pm_bench","texture_width":64,"texture_height":64},""")
+            sb.append(""""bones":[{"name":"root","pivot":[0,0,0]}""")
+            for (i in 0 until bones) {
+                val name = boneName(i)
+                val parent = if (i % BONES_PER_CHAIN == 0) "root" else boneName(i - 1)
+                val x = (i % 16) * 4 - 32
+                val y = (i / 16) % 16 * 2
+                sb.append(""",{"name":"$name","parent":"$parent","pivot":[$x,$y,0],"rotation":[0,${(i % 8) * 5},0],"cubes":[""")
+                for (c in 0 until CUBES_PER_BONE) {
+                    if (c > 0) sb.append(',')
+                    sb.append("""{"origin":[$x,${y + c},${c * 2 - 4}],"size":[2,1,2],"uv":[${c * 8},0]""")
+                    // Rotated cubes exercise the per-cube local matrix.
+                    if (c % 2 == 1) sb.append(""","pivot":[${x + 1},${y + c},0],"rotation":[0,0,22.5]""")
+                    sb.append('}')
+                }
+                sb.append("]}")
+            }
+            sb.append("]}]}")
+            return sb.toString()
+        }
+
+        // MMCE naming conventions route these into the bloom / transparent passes.
+        fun boneName(i: Int): String = when {
+            i % 16 == 15 -> "emissive_transparent_$i"
+            i % 8 == 7 -> "emissive_$i"
+            i % 8 == 3 -> "transparent_$i"
+            else -> "bone_$i"
+        }
+    }
+}
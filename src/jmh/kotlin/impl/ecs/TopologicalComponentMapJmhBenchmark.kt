@@ -7,10 +7,12 @@ import org.openjdk.jmh.annotations.Level
 import org.openjdk.jmh.annotations.Measurement
 import org.openjdk.jmh.annotations.Mode
 import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
 import org.openjdk.jmh.annotations.Scope
 import org.openjdk.jmh.annotations.Setup
 import org.openjdk.jmh.annotations.State
 import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
 import java.util.Random
 import java.util.concurrent.TimeUnit
 
@@ -74,4 +76,73 @@ open class TopologicalComponentMapJmhBenchmark {
         val order = localMap.orderedComponents
         if (order.size != count) throw IllegalStateException("Wrong size")
     }
+
+    /**
+     * Per-tick iteration over a process-sized map (a handful of components), comparing:
+     * - `orderedComponents.forEach { }` (the old FactoryRecipeProcessorSystem path)
+     * - [TopologicalComponentMapImpl.forEachOrdered] (inlined over the frozen snapshot)
+     * - raw indexed access on [TopologicalComponentSnapshot]
+     *
+     * 对进程规模（少量组件）的映射做每 tick 遍历，对比旧的 List forEach 路径与快照遍历。
+     */
+    @State(Scope.Thread)
+    open class IterationState {
+        @Param("4", "8", "16")
+        var componentCount: Int = 8
+
+        lateinit var map: TopologicalComponentMapImpl<Int, String>
+
+        @Setup(Level.Trial)
+        fun setup() {
+            map = TopologicalComponentMapImpl()
+            for (i in 0 until componentCount) {
+                map.addTail(i, "Comp$i")
+            }
+            // Warm both caches once.
+            map.orderedComponents
+            map.snapshot()
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun iterateOrderedListForEach(state: IterationState, bh: Blackhole) {
+        // Three passes, mirroring PRE / TICK / POST.
+        repeat(3) {
+            state.map.orderedComponents.forEach { node -> bh.consume(node.component) }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun iterateSnapshotForEachOrdered(state: IterationState, bh: Blackhole) {
+        repeat(3) {
+            state.map.forEachOrdered { _, component -> bh.consume(component) }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun iterateSnapshotIndexed(state: IterationState, bh: Blackhole) {
+        repeat(3) {
+            val snapshot = state.map.snapshot()
+            for (i in 0 until snapshot.size) {
+                bh.consume(snapshot.componentAt(i))
+            }
+        }
+    }
+
+    @Benchmark
+    fun benchmarkAddDependencyChurn() {
+        val localMap = TopologicalComponentMapImpl<Int, String>()
+        val count = 512
+        for (i in 0 until count) {
+            localMap.add(i, "Comp$i", emptySet())
+        }
+        for (i in 1 until count) {
+            localMap.addDependency(i, i - 1)
+        }
+        val order = localMap.orderedComponents
+        if (order.size != count) throw IllegalStateException("Wrong size")
+    }
 }
@@ -96,4 +96,44 @@ public interface PMGeckoVertexPipeline {
     ) {
         return false;
     }
+
+    /**
+     * Optional: bake a batch of quads (4 vertices per quad, typically one whole Gecko cube) into AoS int[] layout
+     * xBits, yBits, zBits, uBits, vBits, color, normal.
+     *
+     * <p>Positions are transformed by the affine 3x4 model matrix; per-quad normals by the 3x3 normal matrix,
+     * with the Gecko flat-cube fix ({@code flatFlags} bit 1/2/4: negative x/y/z flipped) and packed like
+     * {@code BufferBuilder.normal}. {@code color} is the packed vertex color. Source arrays must not be modified.
+     * Vertex {@code v} of quad {@code q} is at {@code vertexOffset + q*4 + v}, its normal at {@code quadOffset + q}.
+     *
+     * <p>Results must be bit-identical to the scalar baker.
+     *
+     * @return true if supported and executed; false if not supported.
+     */
+    default boolean bakeQuadsIntArray(
+            boolean forceScalar,
+            float[] xs,
+            float[] ys,
+            float[] zs,
+            float[] us,
+            float[] vs,
+            int vertexOffset,
+            float[] normalXs,
+            float[] normalYs,
+            float[] normalZs,
+            int quadOffset,
+            int quadCount,
+            int flatFlags,
+            int color,
+            float m00, float m01, float m02, float m03,
+            float m10, float m11, float m12, float m13,
+            float m20, float m21, float m22, float m23,
+            float n00, float n01, float n02,
+            float n10, float n11, float n12,
+            float n20, float n21, float n22,
+            int[] out,
+            int outIntOffset
+    ) {
+        return false;
+    }
 }
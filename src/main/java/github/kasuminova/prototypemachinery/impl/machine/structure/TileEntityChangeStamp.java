@@ -0,0 +1,12 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure;
+
+/**
+ * Change counter mixed into every {@link net.minecraft.tileentity.TileEntity}.
+ *
+ * The stamp is bumped whenever the tile entity calls {@code markDirty()} or reads NBT, which is how
+ * structure NBT predicates detect that a cached result is stale without re-serializing the tile entity.
+ */
+public interface TileEntityChangeStamp {
+
+    long prototypemachinery$getChangeStamp();
+}
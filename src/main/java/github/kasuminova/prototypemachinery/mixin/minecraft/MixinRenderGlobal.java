@@ -1,9 +1,13 @@
 package github.kasuminova.prototypemachinery.mixin.minecraft;
 
+import github.kasuminova.prototypemachinery.client.impl.render.MachineRenderCulling;
 import github.kasuminova.prototypemachinery.client.impl.render.MachineRenderDispatcher;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.renderer.RenderGlobal;
 import net.minecraft.client.renderer.culling.ICamera;
 import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 import net.minecraftforge.client.MinecraftForgeClient;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -75,4 +79,32 @@ public class MixinRenderGlobal {
             MachineRenderDispatcher.INSTANCE.flush();
         }
     }
+
+    /**
+     * Block changes invalidate the cached occluder cells of their chunk section (see MachineRenderCulling).
+     */
+    @Inject(method = "notifyBlockUpdate", at = @At("HEAD"))
+    private void hookNotifyBlockUpdate(
+        final World world,
+        final BlockPos pos,
+        final IBlockState oldState,
+        final IBlockState newState,
+        final int flags,
+        final CallbackInfo ci
+    ) {
+        MachineRenderCulling.INSTANCE.onBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Inject(method = "markBlockRangeForRenderUpdate", at = @At("HEAD"))
+    private void hookMarkBlockRangeForRenderUpdate(
+        final int x1,
+        final int y1,
+        final int z1,
+        final int x2,
+        final int y2,
+        final int z2,
+        final CallbackInfo ci
+    ) {
+        MachineRenderCulling.INSTANCE.onRangeChanged(x1, y1, z1, x2, y2, z2);
+    }
 }
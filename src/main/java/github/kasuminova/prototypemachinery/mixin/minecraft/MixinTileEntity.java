@@ -0,0 +1,38 @@
+package github.kasuminova.prototypemachinery.mixin.minecraft;
+
+import github.kasuminova.prototypemachinery.impl.machine.structure.TileEntityChangeStamp;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Adds a change counter to tile entities, used to invalidate cached structure NBT checks.
+ *
+ * Tile entities that change persistent state call markDirty() so the chunk gets saved; client/sync
+ * updates go through readFromNBT(). Both bump the counter.
+ */
+@Mixin(TileEntity.class)
+public abstract class MixinTileEntity implements TileEntityChangeStamp {
+
+    @Unique
+    private long prototypemachinery$changeStamp;
+
+    @Inject(method = "markDirty", at = @At("HEAD"))
+    private void hookMarkDirty(final CallbackInfo ci) {
+        prototypemachinery$changeStamp++;
+    }
+
+    @Inject(method = "readFromNBT", at = @At("HEAD"))
+    private void hookReadFromNBT(final NBTTagCompound compound, final CallbackInfo ci) {
+        prototypemachinery$changeStamp++;
+    }
+
+    @Override
+    public long prototypemachinery$getChangeStamp() {
+        return prototypemachinery$changeStamp;
+    }
+}
@@ -14,6 +14,7 @@ import github.kasuminova.prototypemachinery.common.network.NetworkHandler
 import github.kasuminova.prototypemachinery.common.registry.MachineTypeRegisterer
 import github.kasuminova.prototypemachinery.common.structure.loader.StructureLoader
 import github.kasuminova.prototypemachinery.common.structure.validator.BuiltinStructureValidators
+import github.kasuminova.prototypemachinery.impl.machine.MachineControllerScheduler
 import github.kasuminova.prototypemachinery.impl.platform.PMPlatformManager
 import github.kasuminova.prototypemachinery.impl.recipe.index.RecipeIndexRegistry
 import github.kasuminova.prototypemachinery.impl.recipe.scanning.DefaultRecipeParallelismConstraints
@@ -88,6 +89,10 @@ public object PrototypeMachinery {
         // 注册调度器到事件总线
         MinecraftForge.EVENT_BUS.register(TaskSchedulerImpl)
 
+        // Controller structure checks / client syncs (replaces per-controller ticking)
+        // 控制器结构检查与客户端同步（替代逐控制器 tick）
+        MinecraftForge.EVENT_BUS.register(MachineControllerScheduler)
+
         // Build Instrument task executor (server-side)
         MinecraftForge.EVENT_BUS.register(BuildInstrumentTaskManager)
 
@@ -139,6 +144,9 @@ public object PrototypeMachinery {
                 }
             }
         )
+        // Keep indices in sync with recipes registered / replaced after this point (e.g. script reloads).
+        // 让索引与此后注册 / 替换的配方保持同步（例如脚本重载）。
+        PrototypeMachineryAPI.recipeManager.addListener(RecipeIndexRegistry)
 
         proxy.postInit()
     }
@@ -163,6 +171,7 @@ public object PrototypeMachinery {
         // Shutdown scheduler and cleanup resources
         // 关闭调度器并清理资源
         TaskSchedulerImpl.shutdown()
+        MachineControllerScheduler.clear()
         
         // Let platform implementation release resources (e.g. ModernBackend virtual-thread executor)
         // 让平台实现释放资源（例如 ModernBackend 的虚拟线程执行器）
@@ -13,6 +13,7 @@ import net.minecraft.util.ResourceLocation
  *
  * ## Related Classes / 相关类
  * - [MachineRecipe] - Recipe definitions stored in this manager
+ * - [RecipeManagerListener] - Add / remove events for derived indices
  * - [github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess] - Executes recipes
  * - [github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent] - Requirement payloads grouped by type inside recipes
  */
@@ -27,6 +28,26 @@ public interface RecipeManager {
     /** Register a new recipe / 注册新配方 */
     public fun register(recipe: MachineRecipe)
 
+    /**
+     * Remove a recipe by ID.
+     *
+     * 通过 ID 移除配方。
+     *
+     * Default implementation does not support removal and returns null.
+     *
+     * @return The removed recipe, or null if absent / 被移除的配方，不存在时返回 null
+     */
+    public fun remove(id: String): MachineRecipe? = null
+
+    /**
+     * Subscribe to add / remove events.
+     *
+     * 订阅新增 / 移除事件。
+     *
+     * Default implementation emits no events.
+     */
+    public fun addListener(listener: RecipeManagerListener) {}
+
     /**
      * Get recipes by a recipe group.
      *
@@ -0,0 +1,27 @@
+package github.kasuminova.prototypemachinery.api.recipe
+
+/**
+ * # RecipeManagerListener - Recipe registration events
+ * # RecipeManagerListener - 配方注册事件
+ *
+ * Receives add / remove notifications from a [RecipeManager], e.g. to keep derived
+ * indices in sync with recipes registered after init or replaced by a script reload.
+ *
+ * 接收来自 [RecipeManager] 的新增 / 移除通知，例如让派生索引与初始化之后注册、
+ * 或被脚本重载替换的配方保持同步。
+ *
+ * Callbacks run on the registering thread, after the manager's own state has been updated.
+ * A replaced recipe (same id) is reported as [onRecipeRemoved] for the old instance followed by
+ * [onRecipeAdded] for the new one.
+ *
+ * 回调在注册线程上执行，且发生在管理器自身状态更新之后。
+ * 被替换的配方（相同 id）会先以 [onRecipeRemoved] 报告旧实例，再以 [onRecipeAdded] 报告新实例。
+ */
+public interface RecipeManagerListener {
+
+    /** A recipe became visible through the manager. / 配方已可通过管理器访问。 */
+    public fun onRecipeAdded(recipe: MachineRecipe)
+
+    /** A recipe is no longer visible through the manager. / 配方已无法通过管理器访问。 */
+    public fun onRecipeRemoved(recipe: MachineRecipe)
+}
@@ -0,0 +1,36 @@
+package github.kasuminova.prototypemachinery.api.recipe.index
+
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+
+/**
+ * # Incremental Requirement Index
+ * # 增量需求索引
+ *
+ * A [RequirementIndex] that can derive an updated copy of itself when a single recipe is added or removed.
+ * Instances are treated as immutable: the registry publishes the returned copy atomically, so scanning
+ * threads always see either the old or the new index, never a partially updated one.
+ *
+ * 可在新增或移除单个配方时派生自身更新副本的 [RequirementIndex]。
+ * 实例被视为不可变：注册表会原子地发布返回的副本，扫描线程只会看到旧索引或新索引，
+ * 永远不会看到更新到一半的索引。
+ *
+ * The result must match what the owning [RequirementIndexFactory.create] would build for the updated recipe list.
+ * Indices that do not implement this interface are rebuilt through their factory instead.
+ *
+ * 结果必须与所属 [RequirementIndexFactory.create] 对更新后配方列表构建出的索引一致。
+ * 未实现此接口的索引会改为通过其工厂重建。
+ */
+public interface IncrementalRequirementIndex : RequirementIndex {
+
+    /**
+     * @return A copy including [recipe], or null if the index would be empty (the factory would return null).
+     * 返回包含 [recipe] 的副本；若索引将为空（工厂会返回 null）则返回 null。
+     */
+    public fun withRecipe(recipe: MachineRecipe): RequirementIndex?
+
+    /**
+     * @return A copy without [recipe], or null if the index would be empty (the factory would return null).
+     * 返回不含 [recipe] 的副本；若索引将为空（工厂会返回 null）则返回 null。
+     */
+    public fun withoutRecipe(recipe: MachineRecipe): RequirementIndex?
+}
@@ -6,6 +6,8 @@ import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttribu
 import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
 import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponent
 import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponentType
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandom
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandomStream
 import net.minecraft.nbt.NBTTagCompound
 import java.util.Random
 
@@ -101,6 +103,21 @@ public interface RecipeProcess {
      */
     public fun getRandom(salt: String): Random = Random(seed xor salt.hashCode().toLong())
 
+    /**
+     * Get an allocation-free, counter-based random stream for a specific context.
+     * 获取特定上下文的无分配、基于计数器的随机流。
+     *
+     * Values depend only on ([seed], [saltId], [tick]) and the draw index, so they are reproducible
+     * across save / load. Precompute [saltId] once via [CounterRandom.salt] instead of building strings per call.
+     *
+     * 结果只依赖 ([seed], [saltId], [tick]) 与抽取序号，因此在保存 / 读取后可复现。
+     * 请通过 [CounterRandom.salt] 预先计算 [saltId]，而不是每次调用都拼接字符串。
+     *
+     * The returned stream is thread-local and reused by the next call on the same thread.
+     * 返回的流为线程本地对象，会被同一线程的下一次调用复用。
+     */
+    public fun randomStream(saltId: Long, tick: Long = 0L): CounterRandomStream = CounterRandom.stream(seed, saltId, tick)
+
     /**
      * Serialize process state to NBT for persistence.
      * 将进程状态序列化到 NBT 以进行持久化。
@@ -17,6 +17,25 @@ public interface RecipeProcessComponent {
 
     public fun deserializeNBT(nbt: NBTTagCompound)
 
+    /**
+     * Interface for process components that track changes to their persisted state.
+     * 追踪自身持久化状态变化的进程组件接口。
+     *
+     * While [nbtVersion] is unchanged the owner may reuse the tag returned by the previous [serializeNBT]
+     * instead of serializing again. Components that are not [Versioned] are serialized on every save.
+     *
+     * 只要 [nbtVersion] 未变化，所属进程即可复用上一次 [serializeNBT] 返回的标签而无需重新序列化。
+     * 未实现 [Versioned] 的组件每次保存都会重新序列化。
+     */
+    public interface Versioned : RecipeProcessComponent {
+
+        /**
+         * Must change whenever the output of [serializeNBT] may change.
+         * [serializeNBT] 的输出可能变化时必须随之变化。
+         */
+        public val nbtVersion: Long
+    }
+
     /**
      * Interface for process components that support client synchronization.
      * 支持客户端同步的进程组件接口。
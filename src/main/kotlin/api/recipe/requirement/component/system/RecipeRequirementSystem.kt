@@ -94,6 +94,20 @@ public interface RecipeRequirementSystem<C : RecipeRequirementComponent> {
          */
         public fun acquireTickTransaction(process: RecipeProcess, component: C): RequirementTransaction
 
+        /**
+         * Whether [acquireTickTransaction] is known to be a side-effect free success for [component]
+         * on every remaining tick of [process]. Returning true allows the processor to skip ticking
+         * the process entirely and fast-forward its progress.
+         *
+         * Only return true when this holds regardless of machine state and progress.
+         *
+         * [acquireTickTransaction] 对 [process] 剩余的每个 tick 是否都必定是无副作用的成功。
+         * 返回 true 时处理器可以完全跳过该进程的 tick 并直接快进进度。
+         *
+         * 仅在与机器状态和进度无关时都成立的情况下返回 true。
+         */
+        public fun isTickNoOp(process: RecipeProcess, component: C): Boolean = false
+
     }
 
 }
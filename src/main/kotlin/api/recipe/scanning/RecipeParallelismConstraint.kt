@@ -12,7 +12,8 @@ import net.minecraft.util.ResourceLocation
  * 用于“配方扫描阶段”计算最大可并行数 k 的可插拔约束。
  *
  * ### Design notes
- * - The scanning system will binary-search k in [1..limit].
+ * - Constraints implementing [maxParallels] are answered in closed form (one call per scan).
+ * - For the remaining constraints, the scanning system binary-searches k in [1..limit].
  * - Each constraint decides whether the machine state can satisfy the requirement(s) at that k, typically via
  *   TransactionMode.SIMULATE.
  * - If a requirement type has no registered constraint, the scanner will conservatively clamp k to 1.
@@ -36,6 +37,26 @@ public interface RecipeParallelismConstraint {
         currentLimit: Int
     ): Int = currentLimit
 
+    /**
+     * Optional exact answer: the largest k in [0..limit] for which [canSatisfy] would return true,
+     * or null if this constraint can only be probed through [canSatisfy].
+     *
+     * Implementations are expected to compute this arithmetically (available / needed per parallel,
+     * output capacity / produced per parallel) instead of simulating each candidate k.
+     * [canSatisfy] must be monotone (true at k implies true at every smaller k) for the result to be meaningful.
+     *
+     * 可选的精确解：返回使 [canSatisfy] 成立的最大 k（范围 [0..limit]），不支持时返回 null。
+     *
+     * 实现应通过算术计算（可用量 / 每并行需求量、输出容量 / 每并行产出量）得到，
+     * 而不是对每个候选 k 做模拟。[canSatisfy] 需对 k 单调（k 可行则更小的 k 也可行）。
+     */
+    public fun maxParallels(
+        machine: MachineInstance,
+        recipe: MachineRecipe,
+        components: List<RecipeRequirementComponent>,
+        limit: Int
+    ): Int? = null
+
     /**
      * Whether the machine can satisfy the given requirement components at the specified parallel amount.
      *
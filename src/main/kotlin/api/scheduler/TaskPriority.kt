@@ -0,0 +1,35 @@
+package github.kasuminova.prototypemachinery.api.scheduler
+
+/**
+ * Priority class of a main-thread task submitted through [TaskScheduler.submitTask].
+ * 通过 [TaskScheduler.submitTask] 提交的主线程任务的优先级。
+ *
+ * [CRITICAL] and [NORMAL] tasks always run on the next tick, before the machine ticks. [DEFERRABLE] tasks run after
+ * the machine ticks, within a per-tick budget of custom-task time; work that does not fit is deferred to a later
+ * tick (in submission order) instead of stretching the current one.
+ *
+ * [CRITICAL] 与 [NORMAL] 任务总在下一 tick、机器 tick 之前执行。[DEFERRABLE] 任务在机器 tick 之后、
+ * 在每 tick 的自定义任务时间预算内执行；放不下的工作会按提交顺序顺延到之后的 tick，而不是拉长当前 tick。
+ *
+ * Concurrent tasks ignore the priority.
+ * 并发任务忽略优先级。
+ */
+public enum class TaskPriority {
+    /**
+     * Always runs on the next tick, first.
+     * 总在下一 tick 最先执行。
+     */
+    CRITICAL,
+
+    /**
+     * Always runs on the next tick, after [CRITICAL] work; the default. Its time counts against the budget.
+     * 总在下一 tick、[CRITICAL] 工作之后执行（默认）。其耗时计入预算。
+     */
+    NORMAL,
+
+    /**
+     * Runs only with budget left over after all [CRITICAL] and [NORMAL] work.
+     * 仅使用所有 [CRITICAL] 与 [NORMAL] 工作完成后剩余的预算执行。
+     */
+    DEFERRABLE
+}
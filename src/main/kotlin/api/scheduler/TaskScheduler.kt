@@ -41,6 +41,19 @@ public interface TaskScheduler {
      */
     public fun submitTask(task: Runnable, executionMode: ExecutionMode)
 
+    /**
+     * Submit a custom task with a main-thread [priority].
+     * 以指定主线程 [priority] 提交自定义任务。
+     *
+     * Main-thread tasks that do not fit the per-tick budget are deferred; a task deferred for too long
+     * is promoted and runs regardless of the budget. [priority] has no effect on concurrent tasks.
+     *
+     * 放不下每 tick 预算的主线程任务会被顺延；顺延过久的任务会被提升并无视预算执行。[priority] 对并发任务无效。
+     */
+    public fun submitTask(task: Runnable, executionMode: ExecutionMode, priority: TaskPriority) {
+        submitTask(task, executionMode)
+    }
+
     /**
      * Get the number of registered schedulable tasks.
      * 获取已注册可调度任务的数量。
@@ -0,0 +1,64 @@
+package github.kasuminova.prototypemachinery.api.tuning
+
+/**
+ * Runtime tuning switches for machine / recipe process ticking.
+ *
+ * These values live in API to avoid hard dependency on Forge config classes.
+ * They are updated by [github.kasuminova.prototypemachinery.common.config.PrototypeMachineryCommonConfig].
+ */
+public object MachineTuning {
+
+    /**
+     * If true, started processes whose tick stage is a no-op (no per-tick requirements, no process component systems)
+     * are parked on a timer wheel and only touched again when they complete or the machine's PROCESS_SPEED changes.
+     *
+     * Default: true.
+     */
+    @Volatile
+    public var enableProgressFastForward: Boolean = true
+
+    /**
+     * If true, a process started on the same processor tick as an identical, not-yet-started process of the same recipe
+     * (same resolved locks, no extra process components or local modifiers) is merged into it by summing PROCESS_PARALLELISM.
+     * Chance rolls are still sampled per original process, and the merged process splits back if its start is blocked.
+     *
+     * Default: false.
+     */
+    @Volatile
+    public var enableProcessCoalescing: Boolean = false
+
+    /**
+     * Interval (ticks) between structure checks of a formed machine.
+     *
+     * Default: 20.
+     */
+    @Volatile
+    public var formedStructureCheckInterval: Int = 20
+
+    /**
+     * Interval (ticks) between structure checks of an unformed machine. Unformed machines are also served first
+     * when the per-tick budget is exhausted.
+     *
+     * Default: 5.
+     */
+    @Volatile
+    public var unformedStructureCheckInterval: Int = 5
+
+    /**
+     * Maximum number of structure checks started per server tick. Checks over budget are deferred to the next tick.
+     *
+     * Default: 64.
+     */
+    @Volatile
+    public var structureCheckBudgetPerTick: Int = 64
+
+    /**
+     * How long (ticks) a cached NBT structure-predicate result stays valid for an unchanged TileEntity.
+     * A TileEntity counts as changed when it calls `markDirty()` or reads NBT; this age cap covers TEs that mutate
+     * without marking themselves dirty. 0 disables the cache (every check re-serializes the TE).
+     *
+     * Default: 200.
+     */
+    @Volatile
+    public var nbtPredicateCacheTicks: Int = 200
+}
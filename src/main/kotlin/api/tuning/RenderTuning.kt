@@ -51,6 +51,72 @@ public object RenderTuning {
     @Volatile
     public var renderBuildUseCoroutines: Boolean = false
 
+    /**
+     * If true, machines whose render parts have identical content (model, orientation, animation selection and
+     * animation time) share one build baked at the origin, translated per machine at draw time.
+     *
+     * Build work and buffer memory then scale with distinct visuals instead of machine count. Machines sharing an
+     * animated part also share its animation runtime, so their animations play in lockstep.
+     */
+    @Volatile
+    public var shareIdenticalBuilds: Boolean = true
+
+    /**
+     * Global byte budget shared by the client render caches (built task buffers, pooled BufferBuilders, cached and
+     * mapped VBOs, baked cubes, model instances, animated frames). When their combined estimate exceeds it, idle
+     * entries are evicted across all caches, cheapest-to-rebuild and least recently used first. 0 = unlimited
+     * (each cache keeps only its own local limits).
+     */
+    @Volatile
+    public var renderCacheBudgetBytes: Long = 1024L * 1024L * 1024L
+
+    // --- Level of detail (machine TESRs) ---
+
+    /**
+     * Enable distance / visibility based LOD for machine renders. Distances are measured from the camera to the
+     * controller block; a band is disabled by setting its distance to 0.
+     */
+    @Volatile
+    public var lodEnabled: Boolean = true
+
+    /** Beyond this distance (blocks), animation is sampled every [lodReducedAnimationIntervalTicks] ticks. */
+    @Volatile
+    public var lodReducedDistance: Double = 32.0
+
+    /** Animation sampling interval (ticks) in the reduced band. */
+    @Volatile
+    public var lodReducedAnimationIntervalTicks: Int = 4
+
+    /** Beyond this distance (blocks), animated parts keep their last built pose and are not rebuilt. */
+    @Volatile
+    public var lodFrozenDistance: Double = 64.0
+
+    /** Beyond this distance (blocks), only the static parts of a model are drawn (animated bones are skipped). */
+    @Volatile
+    public var lodStaticDistance: Double = 0.0
+
+    /** If true, machines outside the view frustum keep their last built buffers instead of submitting rebuilds. */
+    @Volatile
+    public var lodOffscreenHold: Boolean = true
+
+    // --- Culling (machine TESRs) ---
+
+    /** If true, machines whose bounds are outside the view frustum or occluded skip render submission entirely. */
+    @Volatile
+    public var cullingEnabled: Boolean = true
+
+    /** If true, a coarse CPU depth buffer of nearby opaque terrain is used to cull hidden machines. */
+    @Volatile
+    public var cullingOcclusionEnabled: Boolean = true
+
+    /** Radius (blocks) around the camera whose opaque terrain is rasterized as occluders. */
+    @Volatile
+    public var cullingOcclusionDistance: Double = 48.0
+
+    /** Margin (blocks) added around a machine's structure bounds before culling tests. */
+    @Volatile
+    public var cullingBoundsMargin: Double = 2.0
+
     // --- Merge / batching ---
 
     /** Minimum buffers in a merge bucket before memcpy+merge is attempted. */
@@ -199,6 +265,15 @@ public object RenderTuning {
     @Volatile
     public var directByteBufferPoolMaxBytes: Long = 256L * 1024L * 1024L
 
+    /**
+     * Keep retained packed buckets (Gecko builds, merged batches) in a compact GL layout: GL_SHORT positions relative
+     * to each part's bounds and GL_SHORT UVs, de-quantized by the modelview / texture matrices at draw time, plus a
+     * shared color when all vertices agree. 16-20 instead of 28 bytes of direct memory per vertex.
+     * Compact batches are drawn part by part instead of being concatenated into one draw.
+     */
+    @Volatile
+    public var packedVertexCompact: Boolean = false
+
     // --- Async bucket packing (hide merge cost off-thread) ---
 
     /**
@@ -293,12 +368,51 @@ public object RenderTuning {
     @Volatile
     public var geckoDirectMappedVboMinBytes: Int = 512 * 1024
 
+    /**
+     * Reuse baked vertex data of animated Gecko frames whose bone pose was seen before (LRU, see
+     * [geckoFrameCacheMaxBytes]). After one loop of a looping animation, builds only copy cached frames.
+     */
+    @Volatile
+    public var geckoFrameCacheEnabled: Boolean = true
+
+    /** Memory budget of the animated frame cache in bytes (heap). 0 disables the cache. */
+    @Volatile
+    public var geckoFrameCacheMaxBytes: Long = 64L * 1024L * 1024L
+
+    /**
+     * Animation time quantization (in ticks) while the frame cache is enabled: 1.0 = 20 fps, 0.5 = 40 fps.
+     * Coarser steps mean fewer distinct frames per loop. 0 = no extra quantization.
+     */
+    @Volatile
+    public var geckoFrameCacheStepTicks: Double = 1.0
+
+    /**
+     * Store cached frames in a compact vertex encoding (16-bit positions relative to the frame bounds, unorm16 UVs,
+     * palette-indexed colors/normals): about 12 instead of 28 bytes per vertex, decoded on replay.
+     * Positions and UVs are quantized (lossy, well below a texel / 1/256 block for typical machines).
+     */
+    @Volatile
+    public var geckoFrameCacheCompact: Boolean = false
+
+    /**
+     * Bake whole Gecko cubes through the platform vertex pipeline (positions, normals and packing in one batch,
+     * vectorized on modern-backend). Output is bit-identical to the per-quad path; false forces the per-quad path.
+     */
+    @Volatile
+    public var geckoCubePipelineEnabled: Boolean = true
+
     internal fun sanitize() {
         if (!animStepTicks.isFinite() || animStepTicks <= 0.0) {
             animStepTicks = 0.5
         }
         if (animMaxQueued < 0L) animMaxQueued = 0L
         if (animMaxStressMultiplier < 1) animMaxStressMultiplier = 1
+        if (!lodReducedDistance.isFinite() || lodReducedDistance < 0.0) lodReducedDistance = 0.0
+        if (!lodFrozenDistance.isFinite() || lodFrozenDistance < 0.0) lodFrozenDistance = 0.0
+        if (!lodStaticDistance.isFinite() || lodStaticDistance < 0.0) lodStaticDistance = 0.0
+        if (!cullingOcclusionDistance.isFinite() || cullingOcclusionDistance < 0.0) cullingOcclusionDistance = 0.0
+        if (!cullingBoundsMargin.isFinite() || cullingBoundsMargin < 0.0) cullingBoundsMargin = 0.0
+        if (lodReducedAnimationIntervalTicks < 1) lodReducedAnimationIntervalTicks = 1
         if (mergeMinBuffers < 1) mergeMinBuffers = 1
         if (mergeMinBytes < 0) mergeMinBytes = 0
 
@@ -355,5 +469,9 @@ public object RenderTuning {
 
         if (geckoDirectMappedVboMinBytes < 0) geckoDirectMappedVboMinBytes = 0
         if (geckoDirectMappedVboMinBytes > 512 * 1024 * 1024) geckoDirectMappedVboMinBytes = 512 * 1024 * 1024
+
+        if (geckoFrameCacheMaxBytes < 0L) geckoFrameCacheMaxBytes = 0L
+        if (renderCacheBudgetBytes < 0L) renderCacheBudgetBytes = 0L
+        if (!geckoFrameCacheStepTicks.isFinite() || geckoFrameCacheStepTicks < 0.0) geckoFrameCacheStepTicks = 1.0
     }
 }
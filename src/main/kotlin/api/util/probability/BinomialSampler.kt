@@ -10,7 +10,7 @@ import kotlin.math.sqrt
  *
  * Goal:
  * - expected runtime close to O(1) for large n
- * - deterministic given the same [Random]
+ * - deterministic given the same [Random] / [RandomSource]
  *
  * Notes:
  * - For small n, we use direct Bernoulli trials (exact).
@@ -19,7 +19,8 @@ import kotlin.math.sqrt
  * - Otherwise we use a normal approximation via [Random.nextGaussian] (fast, expected O(1)).
  *
  * This is intended for gameplay/procedural randomness where large parallelism values may occur.
- * If you require an exact binomial sampler for all ranges, we can add a more complex rejection sampler later.
+ * If you require an exact binomial sampler for all ranges, enable [ProbabilityTuning.enableExactBinomial]
+ * to route through [ExactBinomialSampler] instead.
  */
 public object BinomialSampler {
 
@@ -39,12 +40,22 @@ public object BinomialSampler {
     /**
      * Sample X ~ Binomial(n, p).
      */
-    public fun sample(random: Random, n: Int, p: Double): Long {
+    public fun sample(random: Random, n: Int, p: Double): Long = sample(RandomSource.of(random), n, p)
+
+    /**
+     * Sample X ~ Binomial(n, p) from a primitive [RandomSource] (e.g. [CounterRandomStream]).
+     */
+    public fun sample(random: RandomSource, n: Int, p: Double): Long {
         if (n <= 0) return 0L
         if (!p.isFinite()) return 0L
         if (p <= 0.0) return 0L
         if (p >= 1.0) return n.toLong()
 
+        // Exact backend: BTPE / inversion with cached per-(n, p) setup, expected O(1) for all ranges.
+        if (ProbabilityTuning.enableExactBinomial) {
+            return ExactBinomialSampler.sample(random, ExactBinomialSampler.setup(n, p))
+        }
+
         // Use symmetry to keep p <= 0.5
         if (p > 0.5) {
             val x = sample(random, n, 1.0 - p)
@@ -68,7 +79,7 @@ public object BinomialSampler {
         return sampleNormalTableInternal(random, n, p, mean)
     }
 
-    private fun sampleNormalTableInternal(random: Random, n: Int, p: Double, mean: Double): Long {
+    private fun sampleNormalTableInternal(random: RandomSource, n: Int, p: Double, mean: Double): Long {
         // Normal approximation for the general case, avoiding Random.nextGaussian.
         val variance = mean * (1.0 - p)
         if (variance <= 0.0) {
@@ -83,7 +94,7 @@ public object BinomialSampler {
         return x.coerceIn(0L, n.toLong())
     }
 
-    private fun sampleExactBernoulli(random: Random, n: Int, p: Double): Long {
+    private fun sampleExactBernoulli(random: RandomSource, n: Int, p: Double): Long {
         var c = 0L
         for (i in 0 until n) {
             if (random.nextDouble() < p) c++
@@ -91,7 +102,7 @@ public object BinomialSampler {
         return c
     }
 
-    private fun samplePoissonKnuth(random: Random, lambda: Double): Long {
+    private fun samplePoissonKnuth(random: RandomSource, lambda: Double): Long {
         if (!lambda.isFinite() || lambda <= 0.0) return 0L
 
         // Knuth's algorithm: expected O(lambda).
@@ -9,7 +9,7 @@ import kotlin.math.floor
  * Utilities for converting a chance percentage to an execution count under parallelism.
  *
  * This is designed to be:
- * - deterministic given the same [Random]
+ * - deterministic given the same [Random] / [RandomSource]
  * - compatible with chance > 100% ("may happen multiple times")
  * - stable under parallelism (avoids all-or-nothing extremes)
  */
@@ -27,7 +27,14 @@ public object ChanceMath {
      *
      * times = g*k + Binomial(k, p)
      */
-    public fun sampleTimes(random: Random, parallels: Int, chancePercent: Double): Long {
+    public fun sampleTimes(random: Random, parallels: Int, chancePercent: Double): Long =
+        sampleTimes(RandomSource.of(random), parallels, chancePercent)
+
+    /**
+     * [sampleTimes] over a primitive [RandomSource], e.g. a [CounterRandomStream] obtained from
+     * [github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess.randomStream].
+     */
+    public fun sampleTimes(random: RandomSource, parallels: Int, chancePercent: Double): Long {
         if (parallels <= 0) return 0L
         if (!chancePercent.isFinite()) return 0L
         if (chancePercent <= 0.0) return 0L
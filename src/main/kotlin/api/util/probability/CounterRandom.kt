@@ -0,0 +1,136 @@
+package github.kasuminova.prototypemachinery.api.util.probability
+
+/**
+ * # CounterRandom - Stateless counter-based random numbers
+ * # CounterRandom - 无状态的基于计数器的随机数
+ *
+ * SplitMix64-style generator: the n-th value of a stream is `mix64(key + (n + 1) * GOLDEN)`,
+ * where the key is derived from `(seed, saltId, tick)`. Values depend only on those inputs and
+ * the draw index, so they are reproducible across save / load and independent of call order
+ * between different salts.
+ *
+ * SplitMix64 风格的生成器：流中第 n 个值为 `mix64(key + (n + 1) * GOLDEN)`，
+ * 其中 key 由 `(seed, saltId, tick)` 派生。结果只依赖这些输入与抽取序号，
+ * 因此在保存 / 读取后可复现，且不同盐值之间互不受调用顺序影响。
+ *
+ * Salt ids are plain longs meant to be computed once (e.g. in a companion object)
+ * via [salt] instead of building strings on every call.
+ *
+ * 盐值 id 是普通 long，应通过 [salt] 预先计算一次（例如放在 companion object 中），
+ * 而不是每次调用都拼接字符串。
+ */
+public object CounterRandom {
+
+    private const val GOLDEN: Long = -0x61c8864680b583ebL // 0x9E3779B97F4A7C15
+
+    // ========== Salt ids / 盐值 id ==========
+
+    /**
+     * Stable 64-bit salt id for a constant domain name (FNV-1a 64, then mixed).
+     * 常量域名的稳定 64 位盐值 id（FNV-1a 64 后再混合）。
+     */
+    @JvmStatic
+    public fun salt(domain: String): Long {
+        var h = -0x340d631b7bdddcdbL // FNV offset basis 0xCBF29CE484222325
+        for (ch in domain) {
+            h = (h xor ch.code.toLong()) * 0x100000001b3L
+        }
+        return mix64(h)
+    }
+
+    /**
+     * Derive a salt id from a precomputed domain salt and an id string.
+     * Uses [String.hashCode], which the JVM caches per string, so this does not allocate.
+     *
+     * 由预计算的域盐值和 id 字符串派生盐值 id。
+     * 使用 JVM 按字符串缓存的 [String.hashCode]，因此不会分配。
+     */
+    @JvmStatic
+    public fun salt(domain: Long, id: String): Long = mix64(domain + id.hashCode().toLong() * GOLDEN)
+
+    /**
+     * Derive a salt id for the [index]-th sub-stream of [base] (e.g. one per execution).
+     * 派生 [base] 的第 [index] 个子流盐值 id（例如每次执行一个）。
+     */
+    @JvmStatic
+    public fun salt(base: Long, index: Long): Long = mix64(base xor mix64(index + GOLDEN))
+
+    // ========== Stateless draws / 无状态抽取 ==========
+
+    /**
+     * Stream key for `(seed, saltId, tick)`.
+     * `(seed, saltId, tick)` 对应的流 key。
+     */
+    @JvmStatic
+    public fun key(seed: Long, saltId: Long, tick: Long): Long = mix64(mix64(seed xor saltId) + tick * GOLDEN)
+
+    /** The [counter]-th 64-bit value of the stream [key]. / 流 [key] 中第 [counter] 个 64 位值。 */
+    @JvmStatic
+    public fun long(key: Long, counter: Long): Long = mix64(key + (counter + 1L) * GOLDEN)
+
+    /** The [counter]-th value in [0, 1) of the stream [key]. / 流 [key] 中第 [counter] 个 [0, 1) 值。 */
+    @JvmStatic
+    public fun double(key: Long, counter: Long): Double = (long(key, counter) ushr 11).toDouble() * DOUBLE_UNIT
+
+    // ========== Reusable streams / 可复用的流 ==========
+
+    private val STREAMS: ThreadLocal<CounterRandomStream> = ThreadLocal.withInitial { CounterRandomStream() }
+
+    /**
+     * Thread-local stream positioned at draw 0 of `(seed, saltId, tick)`.
+     *
+     * The returned instance is reused by the next [stream] call on the same thread, so consume it
+     * before requesting another one. Use [CounterRandomStream] directly if you need to keep it.
+     *
+     * 返回定位在 `(seed, saltId, tick)` 第 0 次抽取处的线程本地流。
+     *
+     * 同一线程的下一次 [stream] 调用会复用该实例，请在请求下一个之前用完它。
+     * 如需长期持有，请直接创建 [CounterRandomStream]。
+     */
+    @JvmStatic
+    public fun stream(seed: Long, saltId: Long, tick: Long): CounterRandomStream =
+        STREAMS.get().reset(seed, saltId, tick)
+
+    /** SplitMix64 finalizer. / SplitMix64 终结混合函数。 */
+    @JvmStatic
+    public fun mix64(value: Long): Long {
+        var z = value
+        z = (z xor (z ushr 30)) * -0x40a7b892e31b1a47L // 0xBF58476D1CE4E5B9
+        z = (z xor (z ushr 27)) * -0x6b2fb644ecceee15L // 0x94D049BB133111EB
+        return z xor (z ushr 31)
+    }
+
+    private const val DOUBLE_UNIT: Double = 1.0 / (1L shl 53)
+}
+
+/**
+ * Mutable cursor over a [CounterRandom] stream.
+ * [CounterRandom] 流上的可变游标。
+ *
+ * Only holds the key and the draw counter; [reset] repositions it without allocating.
+ * 只保存 key 与抽取计数；[reset] 无需分配即可重新定位。
+ */
+public class CounterRandomStream public constructor() : RandomSource {
+
+    /** Current stream key. / 当前流 key。 */
+    public var key: Long = 0L
+        private set
+
+    /** Number of values drawn since the last reset. / 自上次重置以来的抽取次数。 */
+    public var counter: Long = 0L
+        private set
+
+    public constructor(seed: Long, saltId: Long, tick: Long) : this() {
+        reset(seed, saltId, tick)
+    }
+
+    public fun reset(seed: Long, saltId: Long, tick: Long): CounterRandomStream = resetKey(CounterRandom.key(seed, saltId, tick))
+
+    public fun resetKey(key: Long): CounterRandomStream {
+        this.key = key
+        this.counter = 0L
+        return this
+    }
+
+    override fun nextLong(): Long = CounterRandom.long(key, counter++)
+}
@@ -0,0 +1,221 @@
+package github.kasuminova.prototypemachinery.api.util.probability
+
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.floor
+import kotlin.math.ln
+import kotlin.math.min
+import kotlin.math.sqrt
+
+/**
+ * Exact Binomial(n, p) sampler with expected O(1) cost for all (n, p).
+ *
+ * - n * min(p, 1 - p) < 30: inversion (BINV), expected iterations bounded by the mean (< 30)
+ * - otherwise: BTPE (Kachitvichyanukul & Schmeiser, 1988), a triangle / parallelogram /
+ *   exponential-tail rejection sampler with a constant expected number of trials
+ *
+ * All constants that depend only on (n, p) live in a [Setup]. Setups are cached in a small
+ * direct-mapped table, so a recipe's fixed chance at a fixed parallelism pays the setup once.
+ *
+ * Enabled for [BinomialSampler] via [ProbabilityTuning.enableExactBinomial]; can also be used directly.
+ */
+public object ExactBinomialSampler {
+
+    private const val INVERSION_MEAN_LIMIT: Double = 30.0
+
+    private const val CACHE_SIZE: Int = 256
+    private const val CACHE_MASK: Int = CACHE_SIZE - 1
+
+    // Direct-mapped, racy-but-safe cache: entries are immutable, a lost write only costs a recomputation.
+    private val CACHE: Array<Setup?> = arrayOfNulls(CACHE_SIZE)
+
+    /**
+     * Precomputed constants for one (n, p) pair.
+     */
+    public class Setup internal constructor(
+        public val n: Int,
+        public val p: Double,
+    ) {
+        // Sample with r = min(p, 1 - p) and mirror the result when p > 0.5.
+        internal val flipped: Boolean = p > 0.5
+        internal val r: Double = if (flipped) 1.0 - p else p
+        internal val q: Double = 1.0 - r
+        internal val useInversion: Boolean = n * r < INVERSION_MEAN_LIMIT
+
+        // Inversion
+        internal val qn: Double
+        internal val bound: Double
+
+        // BTPE
+        internal val m: Int
+        internal val nrq: Double
+        internal val p1: Double
+        internal val xm: Double
+        internal val xl: Double
+        internal val xr: Double
+        internal val c: Double
+        internal val laml: Double
+        internal val lamr: Double
+        internal val p2: Double
+        internal val p3: Double
+        internal val p4: Double
+
+        init {
+            val np = n * r
+            if (useInversion) {
+                qn = exp(n * ln(q))
+                bound = min(n.toDouble(), np + 10.0 * sqrt(np * q + 1.0))
+                m = 0; nrq = 0.0; p1 = 0.0; xm = 0.0; xl = 0.0; xr = 0.0
+                c = 0.0; laml = 0.0; lamr = 0.0; p2 = 0.0; p3 = 0.0; p4 = 0.0
+            } else {
+                qn = 0.0
+                bound = 0.0
+                val fm = np + r
+                m = floor(fm).toInt()
+                nrq = np * q
+                p1 = floor(2.195 * sqrt(nrq) - 4.6 * q) + 0.5
+                xm = m + 0.5
+                xl = xm - p1
+                xr = xm + p1
+                c = 0.134 + 20.5 / (15.3 + m)
+                var a = (fm - xl) / (fm - xl * r)
+                laml = a * (1.0 + a / 2.0)
+                a = (xr - fm) / (xr * q)
+                lamr = a * (1.0 + a / 2.0)
+                p2 = p1 * (1.0 + 2.0 * c)
+                p3 = p2 + c / laml
+                p4 = p3 + c / lamr
+            }
+        }
+    }
+
+    /**
+     * Get (or build) the cached setup for (n, p). Requires n > 0 and 0 < p < 1.
+     */
+    public fun setup(n: Int, p: Double): Setup {
+        require(n > 0) { "n must be positive: $n" }
+        require(p > 0.0 && p < 1.0) { "p must be in (0, 1): $p" }
+
+        val bits = p.toRawBits()
+        var h = bits xor (bits ushr 32) xor (n.toLong() * -0x61c8864680b583ebL)
+        h = h xor (h ushr 29)
+        val idx = h.toInt() and CACHE_MASK
+
+        val cached = CACHE[idx]
+        if (cached != null && cached.n == n && cached.p == p) return cached
+
+        val created = Setup(n, p)
+        CACHE[idx] = created
+        return created
+    }
+
+    /**
+     * Sample X ~ Binomial(n, p) exactly.
+     */
+    public fun sample(random: RandomSource, n: Int, p: Double): Long {
+        if (n <= 0) return 0L
+        if (!p.isFinite()) return 0L
+        if (p <= 0.0) return 0L
+        if (p >= 1.0) return n.toLong()
+        return sample(random, setup(n, p))
+    }
+
+    /**
+     * Sample X ~ Binomial(setup.n, setup.p) exactly, using a precomputed [Setup].
+     */
+    public fun sample(random: RandomSource, setup: Setup): Long {
+        val y = if (setup.useInversion) sampleInversion(random, setup) else sampleBtpe(random, setup)
+        return if (setup.flipped) setup.n.toLong() - y else y
+    }
+
+    private fun sampleInversion(random: RandomSource, s: Setup): Long {
+        var x = 0
+        var px = s.qn
+        var u = random.nextDouble()
+        while (u > px) {
+            x++
+            if (x > s.bound) {
+                x = 0
+                px = s.qn
+                u = random.nextDouble()
+            } else {
+                u -= px
+                px = ((s.n - x + 1) * s.r * px) / (x * s.q)
+            }
+        }
+        return x.toLong()
+    }
+
+    private fun sampleBtpe(random: RandomSource, s: Setup): Long {
+        val n = s.n
+        val m = s.m
+        val r = s.r
+        val q = s.q
+
+        while (true) {
+            val u = random.nextDouble() * s.p4
+            var v = random.nextDouble()
+            val y: Int
+
+            if (u <= s.p1) {
+                // Triangular region: always accepted.
+                return floor(s.xm - s.p1 * v + u).toLong()
+            } else if (u <= s.p2) {
+                // Parallelogram region.
+                val x = s.xl + (u - s.p1) / s.c
+                v = v * s.c + 1.0 - abs(m - x + 0.5) / s.p1
+                if (v > 1.0) continue
+                y = floor(x).toInt()
+            } else if (u <= s.p3) {
+                // Left exponential tail.
+                y = floor(s.xl + ln(v) / s.laml).toInt()
+                if (y < 0 || v == 0.0) continue
+                v *= (u - s.p2) * s.laml
+            } else {
+                // Right exponential tail.
+                y = floor(s.xr - ln(v) / s.lamr).toInt()
+                if (y > n || v == 0.0) continue
+                v *= (u - s.p3) * s.lamr
+            }
+
+            val k = abs(y - m)
+            if (k <= 20 || k >= s.nrq / 2.0 - 1.0) {
+                // Explicit evaluation of f(y) / f(m) by recursion.
+                val ratio = r / q
+                val a = ratio * (n + 1)
+                var f = 1.0
+                if (m < y) {
+                    for (i in m + 1..y) f *= (a / i - ratio)
+                } else if (m > y) {
+                    for (i in y + 1..m) f /= (a / i - ratio)
+                }
+                if (v <= f) return y.toLong()
+                continue
+            }
+
+            // Squeeze using upper and lower bounds on log(f(y)).
+            val kd = k.toDouble()
+            val rho = (kd / s.nrq) * ((kd * (kd / 3.0 + 0.625) + 0.1666666666666) / s.nrq + 0.5)
+            val t = -kd * kd / (2.0 * s.nrq)
+            val logV = ln(v)
+            if (logV < t - rho) return y.toLong()
+            if (logV > t + rho) continue
+
+            // Final acceptance / rejection via Stirling's formula.
+            val x1 = y + 1.0
+            val f1 = m + 1.0
+            val z = n + 1.0 - m
+            val w = n - y + 1.0
+            val bound = s.xm * ln(f1 / x1) +
+                (n - m + 0.5) * ln(z / w) +
+                (y - m) * ln(w * r / (x1 * q)) +
+                stirlingCorrection(f1) + stirlingCorrection(z) + stirlingCorrection(x1) + stirlingCorrection(w)
+            if (logV <= bound) return y.toLong()
+        }
+    }
+
+    private fun stirlingCorrection(x: Double): Double {
+        val x2 = x * x
+        return (13680.0 - (462.0 - (132.0 - (99.0 - 140.0 / x2) / x2) / x2) / x2) / x / 166320.0
+    }
+}
@@ -19,6 +19,17 @@ public object ProbabilityTuning {
     @Volatile
     public var enableExactSmallBinomial: Boolean = false
 
+    /**
+     * If true, [BinomialSampler] delegates to [ExactBinomialSampler] (BTPE / inversion) for all n.
+     *
+     * Exact for every (n, p) with expected O(1) cost; slightly more expensive per call than the
+     * table-based approximation. Takes precedence over [enableExactSmallBinomial].
+     *
+     * Default: false.
+     */
+    @Volatile
+    public var enableExactBinomial: Boolean = false
+
     /**
      * The cutoff for the "small n" exact branch.
      */
@@ -0,0 +1,46 @@
+package github.kasuminova.prototypemachinery.api.util.probability
+
+import java.util.Random
+
+/**
+ * Minimal primitive random source used by the probability helpers.
+ * 概率工具使用的最小化基础随机源。
+ *
+ * Implementations return primitives only, so samplers can run without boxing or
+ * per-call allocation. [java.util.Random] is adapted via [of]; the counter-based
+ * generator is [CounterRandomStream].
+ *
+ * 实现只返回基础类型，采样器因此可以在无装箱、无逐次分配的情况下运行。
+ * [java.util.Random] 通过 [of] 适配；基于计数器的生成器为 [CounterRandomStream]。
+ */
+public interface RandomSource {
+
+    /** Uniform 64-bit value. / 均匀分布的 64 位值。 */
+    public fun nextLong(): Long
+
+    /** Uniform 32-bit value. / 均匀分布的 32 位值。 */
+    public fun nextInt(): Int = (nextLong() ushr 32).toInt()
+
+    /** Uniform value in [0, 1). / [0, 1) 内的均匀值。 */
+    public fun nextDouble(): Double = (nextLong() ushr 11).toDouble() * DOUBLE_UNIT
+
+    public companion object {
+        private const val DOUBLE_UNIT: Double = 1.0 / (1L shl 53)
+
+        /**
+         * Adapt a [java.util.Random]. Each method delegates to the same-named [Random] method,
+         * so sample sequences are identical to calling the legacy overloads.
+         *
+         * 适配 [java.util.Random]。每个方法都委托给 [Random] 的同名方法，
+         * 因此采样序列与调用旧重载完全一致。
+         */
+        @JvmStatic
+        public fun of(random: Random): RandomSource = JavaRandomSource(random)
+    }
+}
+
+private class JavaRandomSource(private val random: Random) : RandomSource {
+    override fun nextLong(): Long = random.nextLong()
+    override fun nextInt(): Int = random.nextInt()
+    override fun nextDouble(): Double = random.nextDouble()
+}
@@ -25,6 +25,15 @@ public object WeightedSampling {
         random: Random,
         candidates: List<Weighted<T>>,
         count: Int,
+    ): List<T> = sampleWithoutReplacement(RandomSource.of(random), candidates, count)
+
+    /**
+     * [sampleWithoutReplacement] over a primitive [RandomSource].
+     */
+    public fun <T> sampleWithoutReplacement(
+        random: RandomSource,
+        candidates: List<Weighted<T>>,
+        count: Int,
     ): List<T> {
         if (count <= 0) return emptyList()
 
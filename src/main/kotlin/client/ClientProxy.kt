@@ -5,6 +5,7 @@ import com.cleanroommc.modularui.widgets.layout.Flow
 import github.kasuminova.prototypemachinery.client.atlas.PmGuiAtlas
 import github.kasuminova.prototypemachinery.client.buildinstrument.BuildInstrumentClientUi
 import github.kasuminova.prototypemachinery.client.impl.render.ClientRenderCacheLifecycle
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
 import github.kasuminova.prototypemachinery.client.impl.render.RenderDebugHud
 import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
 import github.kasuminova.prototypemachinery.client.impl.render.ScannerSelectionRenderHandler
@@ -46,6 +47,7 @@ internal class ClientProxy : CommonProxy() {
         MinecraftForge.EVENT_BUS.register(BlockModelHideManager)
         MinecraftForge.EVENT_BUS.register(WorldRenderFlushHandler)
         MinecraftForge.EVENT_BUS.register(RenderFrameClock)
+        MinecraftForge.EVENT_BUS.register(RenderCacheBudget)
         MinecraftForge.EVENT_BUS.register(RenderDebugHud)
         MinecraftForge.EVENT_BUS.register(ClientRenderCacheLifecycle)
         MinecraftForge.EVENT_BUS.register(ScannerSelectionRenderHandler)
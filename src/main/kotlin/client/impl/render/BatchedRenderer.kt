@@ -13,8 +13,9 @@ import github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskCa
  */
 internal object BatchedRenderer {
 
-    internal fun render(renderable: Renderable, taskFactory: () -> RenderBuildTask) {
-        val task = RenderTaskCache.getOrSubmit(renderable, taskFactory)
+    /** [hold]: keep previously built buffers instead of rebuilding for a new key (see [RenderTaskCache.getOrSubmit]). */
+    internal fun render(renderable: Renderable, hold: Boolean = false, taskFactory: () -> RenderBuildTask) {
+        val task = RenderTaskCache.getOrSubmit(renderable, hold, taskFactory)
         val built = task.takeBuilt() ?: return
         if (built.isEmpty()) return
 
@@ -5,9 +5,11 @@ package github.kasuminova.prototypemachinery.client.impl.render
 import github.kasuminova.prototypemachinery.PrototypeMachinery
 import github.kasuminova.prototypemachinery.client.impl.render.assets.ExternalDiskTextureBinder
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoAnimatedBoneIndex
+import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoAnimationFrameCache
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoAnimationDriver
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoGeoModelInstanceCache
 import github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskCache
+import github.kasuminova.prototypemachinery.client.preview.ui.widget.StructurePreviewMeshCache
 import github.kasuminova.prototypemachinery.client.util.BufferBuilderVboCache
 import net.minecraft.client.Minecraft
 import net.minecraft.client.resources.IReloadableResourceManager
@@ -81,6 +83,7 @@ internal object ClientRenderCacheLifecycle : IResourceManagerReloadListener {
             GeckoGeoModelInstanceCache.clearAll()
             GeckoAnimationDriver.clearAll()
             GeckoAnimatedBoneIndex.invalidateAll()
+            GeckoAnimationFrameCache.clearAll()
 
             // Render queues + reusable VBOs
             MachineRenderDispatcher.clearAll()
@@ -91,6 +94,12 @@ internal object ClientRenderCacheLifecycle : IResourceManagerReloadListener {
 
             // External disk texture cache (DynamicTexture -> GL texture)
             ExternalDiskTextureBinder.clearAll()
+
+            // Structure preview UI meshes (VBOs bake atlas UVs)
+            StructurePreviewMeshCache.clearAll()
+
+            // Occlusion culling section masks (block states of the old world)
+            MachineRenderCulling.clearAll()
         }
     }
 }
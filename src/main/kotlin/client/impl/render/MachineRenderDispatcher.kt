@@ -7,6 +7,7 @@ import github.kasuminova.prototypemachinery.client.impl.render.task.BuiltBuffers
 import github.kasuminova.prototypemachinery.client.impl.render.task.GpuBucketDraw
 import github.kasuminova.prototypemachinery.client.impl.render.task.MappedVboWriteCache
 import github.kasuminova.prototypemachinery.client.impl.render.task.PackedBucketBatch
+import github.kasuminova.prototypemachinery.client.impl.render.task.drawPackedParts
 import github.kasuminova.prototypemachinery.client.util.ReusableVboUploader
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
@@ -18,6 +19,7 @@ import net.minecraft.client.renderer.OpenGlHelper
 import net.minecraft.client.renderer.texture.TextureMap
 import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher
 import net.minecraft.util.ResourceLocation
+import net.minecraft.util.math.BlockPos
 import org.lwjgl.opengl.GL11
 
 /**
@@ -45,11 +47,16 @@ internal object MachineRenderDispatcher {
 
     /**
      * Data class holding render information for a single machine/sub-structure.
+     *
+     * [origin] is null for buffers baked in absolute world coordinates. Shared builds (see
+     * [github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskCache.getOrSubmitShared]) are baked at
+     * the origin instead and are translated to [origin] at draw time; they cannot be merged with other buffers.
      */
     data class PendingRenderData(
         val texture: ResourceLocation,
         val combinedLight: Int,
         val built: BuiltBuffers,
+        val origin: BlockPos? = null,
     )
 
     /**
@@ -96,6 +103,10 @@ internal object MachineRenderDispatcher {
         val dataList = pendingRenders.toList()
         pendingRenders.clear()
 
+        // Origin-relative (shared) buffers need their own translation, so they skip the merged paths.
+        val absoluteList = dataList.filter { it.origin == null }
+        val relativeList = dataList.filter { it.origin != null }
+
         RenderStats.noteDispatcherPending(dataList.size)
 
         val deferBloomToPost = GregTechBloomBridge.isEnabled
@@ -115,7 +126,8 @@ internal object MachineRenderDispatcher {
         try {
             withLightmapEnabled {
                 // Phase 1: Render all DEFAULT (opaque) passes
-                renderPassBatched(dataList, RenderPass.DEFAULT, applyLightmap = true)
+                renderPassBatched(absoluteList, RenderPass.DEFAULT, applyLightmap = true)
+                renderPassTranslated(relativeList, RenderPass.DEFAULT, applyLightmap = true)
 
                 // Phase 2: Render all TRANSPARENT passes
                 RenderTypeState.pre(RenderPass.TRANSPARENT)
@@ -125,7 +137,11 @@ internal object MachineRenderDispatcher {
                 // Phase 3: Handle BLOOM passes
                 if (deferBloomToPost) {
                     // Defer to RenderManager for GT bloom callback
-                    for (data in dataList) {
+                    for (data in relativeList) {
+                        RenderManager.addTranslated(RenderPass.BLOOM, data.texture, data.built, data.origin!!)
+                        RenderManager.addTranslated(RenderPass.BLOOM_TRANSPARENT, data.texture, data.built, data.origin)
+                    }
+                    for (data in absoluteList) {
                         data.built.byPass[RenderPass.BLOOM]?.let { buffer ->
                             RenderManager.addBuffer(RenderPass.BLOOM, data.texture, -1, buffer)
                         }
@@ -150,11 +166,13 @@ internal object MachineRenderDispatcher {
                 } else {
                     // No GT bloom: render directly
                     RenderTypeState.pre(RenderPass.BLOOM)
-                    renderPassBatched(dataList, RenderPass.BLOOM, applyLightmap = false)
+                    renderPassBatched(absoluteList, RenderPass.BLOOM, applyLightmap = false)
+                    renderPassTranslated(relativeList, RenderPass.BLOOM, applyLightmap = false)
                     RenderTypeState.post(RenderPass.BLOOM)
 
                     RenderTypeState.pre(RenderPass.BLOOM_TRANSPARENT)
-                    renderPassBatched(dataList, RenderPass.BLOOM_TRANSPARENT, applyLightmap = false)
+                    renderPassBatched(absoluteList, RenderPass.BLOOM_TRANSPARENT, applyLightmap = false)
+                    renderPassTranslated(relativeList, RenderPass.BLOOM_TRANSPARENT, applyLightmap = false)
                     RenderTypeState.post(RenderPass.BLOOM_TRANSPARENT)
                 }
             }
@@ -244,12 +262,10 @@ internal object MachineRenderDispatcher {
                 val segmentsTmp: MutableList<ReusableVboUploader.ByteBufferSegment> = ArrayList(batchList.size)
 
                 for (b in batchList) {
-                    if (b.format != format || b.drawMode != drawMode) {
-                        // Fallback: draw individually
+                    if (b.format != format || b.drawMode != drawMode || b.compact) {
+                        // Fallback: draw individually (compact parts carry their own transform)
                         for (bb in batchList) {
-                            for (p in bb.parts) {
-                                uploader.drawMergedByteBuffer(bb.format, bb.drawMode, p.vertexCount, p.totalBytes, p.data)
-                            }
+                            uploader.drawPackedParts(bb)
                         }
                         return@forEach
                     }
@@ -299,6 +315,18 @@ internal object MachineRenderDispatcher {
 
     private fun renderPassWithoutState(dataList: List<PendingRenderData>, pass: RenderPass) {
         for (data in dataList) {
+            val origin = data.origin
+            if (origin != null) {
+                if (!hasPass(data.built, pass)) continue
+                RenderStats.addTextureBind()
+                ExternalDiskTextureBinder.bind(data.texture)
+                if (pass != RenderPass.BLOOM && pass != RenderPass.BLOOM_TRANSPARENT) {
+                    setLightmapCoords(data.combinedLight)
+                }
+                drawTranslated(uploader, data.built, pass, origin)
+                continue
+            }
+
             data.built.byPass[pass]?.let { buffer ->
                 RenderStats.addTextureBind()
                 ExternalDiskTextureBinder.bind(data.texture)
@@ -324,13 +352,56 @@ internal object MachineRenderDispatcher {
                 if (pass != RenderPass.BLOOM && pass != RenderPass.BLOOM_TRANSPARENT) {
                     setLightmapCoords(data.combinedLight)
                 }
-                for (p in batch.parts) {
-                    uploader.drawMergedByteBuffer(batch.format, batch.drawMode, p.vertexCount, p.totalBytes, p.data)
+                uploader.drawPackedParts(batch)
+            }
+        }
+    }
+
+    /**
+     * Draw origin-relative buffers one by one, grouped by texture to keep binds down.
+     *
+     * Identical machines usually share the same [BuiltBuffers], so the cached-VBO paths upload it once and then only
+     * pay a matrix push and a draw call per machine.
+     */
+    private fun renderPassTranslated(dataList: List<PendingRenderData>, pass: RenderPass, applyLightmap: Boolean) {
+        if (dataList.isEmpty()) return
+
+        val byTexture: MutableMap<ResourceLocation, MutableList<PendingRenderData>> = Object2ObjectOpenHashMap()
+        for (data in dataList) {
+            if (!hasPass(data.built, pass)) continue
+            byTexture.computeIfAbsent(data.texture) { ObjectArrayList() }.add(data)
+        }
+
+        byTexture.forEach { (texture, list) ->
+            RenderStats.addTextureBind()
+            ExternalDiskTextureBinder.bind(texture)
+            for (data in list) {
+                if (applyLightmap) {
+                    setLightmapCoords(data.combinedLight)
                 }
+                drawTranslated(uploader, data.built, pass, data.origin!!)
             }
         }
     }
 
+    internal fun hasPass(built: BuiltBuffers, pass: RenderPass): Boolean =
+        built.byPass.containsKey(pass) || built.packedByPass.containsKey(pass) || built.gpuByPass.containsKey(pass)
+
+    /** Draw one pass of [built] translated to [origin] (the caller has set texture and lightmap). */
+    internal fun drawTranslated(uploader: ReusableVboUploader, built: BuiltBuffers, pass: RenderPass, origin: BlockPos) {
+        GlStateManager.pushMatrix()
+        GlStateManager.translate(origin.x.toDouble(), origin.y.toDouble(), origin.z.toDouble())
+        try {
+            built.byPass[pass]?.let { buffer -> uploader.draw(buffer) }
+            built.gpuByPass[pass]?.let { draw ->
+                if (draw.vertexCount > 0) uploader.drawVbo(draw.vbo, draw.format, draw.drawMode, draw.vertexCount)
+            }
+            built.packedByPass[pass]?.let { batch -> uploader.drawPackedParts(batch) }
+        } finally {
+            GlStateManager.popMatrix()
+        }
+    }
+
     private fun setLightmapCoords(combinedLight: Int) {
         if (combinedLight != -1) {
             val lx = combinedLight % 65536
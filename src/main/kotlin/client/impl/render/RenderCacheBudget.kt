@@ -0,0 +1,187 @@
+package github.kasuminova.prototypemachinery.client.impl.render
+
+import github.kasuminova.prototypemachinery.PrototypeMachinery
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent
+import net.minecraftforge.fml.common.gameevent.TickEvent
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * One client render cache participating in [RenderCacheBudget].
+ *
+ * Implementations report their retained bytes and their idle entries; the budget decides which entries go.
+ * All calls are made on the render thread.
+ */
+internal interface BudgetedRenderCache {
+
+    /** Short name for logs and the HUD. */
+    val budgetName: String
+
+    /**
+     * Relative cost of recreating one evicted byte (1.0 = re-running a CPU build). At equal idle time and size,
+     * entries of cheaper caches are evicted first.
+     */
+    val rebuildCost: Double
+
+    /** Estimated bytes currently retained (heap, direct or GPU). */
+    fun budgetBytes(): Long
+
+    /** Report every entry last used before frame [idleBefore] to [out]. */
+    fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates)
+
+    /** Drop the entry reported as [handle]; returns the bytes released (0 if it is gone or became busy). */
+    fun evict(handle: Any): Long
+
+    /** Called once after a pass that evicted at least one entry of this cache, for per-pass bookkeeping. */
+    fun afterEvictions() {}
+}
+
+/**
+ * Global byte budget over all client render caches ([RenderTuning.renderCacheBudgetBytes]).
+ *
+ * Every cache keeps its own local limits; this only steps in when their combined estimate exceeds the global
+ * budget (e.g. many large machines built, pooled and uploaded at once). Then idle entries of all caches are ranked
+ * together by `idle frames * bytes / rebuild cost` and evicted until the total fits: cold, large, cheap-to-rebuild
+ * entries go first. Entries used within the last [MIN_IDLE_FRAMES] frames are never evicted, so nothing queued for
+ * drawing is released.
+ *
+ * The check runs at render tick start, every [CHECK_INTERVAL_FRAMES] frames.
+ */
+internal object RenderCacheBudget {
+
+    private const val MIN_IDLE_FRAMES = 30
+    private const val CHECK_INTERVAL_FRAMES = 10
+    private const val MAX_EVICTIONS_PER_PASS = 1024
+
+    internal class Candidate(val cache: BudgetedRenderCache, val handle: Any, val bytes: Long, val score: Double)
+
+    /** Sink for [BudgetedRenderCache.collectEvictionCandidates]. */
+    internal class Candidates internal constructor(private val now: Int) {
+        internal var cache: BudgetedRenderCache? = null
+        private val list = ArrayList<Candidate>()
+
+        fun add(handle: Any, lastUsedFrame: Int, bytes: Long) {
+            if (bytes <= 0L) return
+            val owner = cache ?: return
+            val idle = (now - lastUsedFrame).coerceAtLeast(1)
+            val cost = if (owner.rebuildCost > 0.0) owner.rebuildCost else 1.0
+            list.add(Candidate(owner, handle, bytes, idle.toDouble() * bytes.toDouble() / cost))
+        }
+
+        internal fun sortedByScore(): List<Candidate> = list.sortedByDescending { it.score }
+    }
+
+    internal data class PassResult(
+        val bytesBefore: Long,
+        val bytesAfter: Long,
+        val evictions: Int,
+        val evictedBytes: Long,
+        val evictionsByCache: Map<String, Int>,
+    )
+
+    internal data class StatsSnapshot(
+        val budgetBytes: Long,
+        val usedBytes: Long,
+        val bytesByCache: Map<String, Long>,
+        val evictions: Long,
+        val evictedBytes: Long,
+        val evictionsByCache: Map<String, Long>,
+    )
+
+    private val caches = CopyOnWriteArrayList<BudgetedRenderCache>()
+
+    private val evictions = AtomicLong(0)
+    private val evictedBytes = AtomicLong(0)
+    private val evictionsByCache = LinkedHashMap<String, Long>()
+
+    @Volatile
+    private var lastUsedBytes: Long = 0L
+
+    @Volatile
+    private var lastBytesByCache: Map<String, Long> = emptyMap()
+
+    private var framesSinceCheck: Int = 0
+
+    /** Called once by each cache (typically from its initializer). */
+    fun register(cache: BudgetedRenderCache) {
+        caches.addIfAbsent(cache)
+    }
+
+    @SubscribeEvent
+    fun onRenderTick(event: TickEvent.RenderTickEvent) {
+        if (event.phase != TickEvent.Phase.START) return
+        if (++framesSinceCheck < CHECK_INTERVAL_FRAMES) return
+        framesSinceCheck = 0
+
+        val result = enforce(caches, RenderFrameClock.getFrameId(), RenderTuning.renderCacheBudgetBytes)
+        lastUsedBytes = result.bytesAfter
+        if (result.evictions <= 0) return
+
+        evictions.addAndGet(result.evictions.toLong())
+        evictedBytes.addAndGet(result.evictedBytes)
+        synchronized(evictionsByCache) {
+            for ((name, count) in result.evictionsByCache) {
+                evictionsByCache[name] = (evictionsByCache[name] ?: 0L) + count
+            }
+        }
+        PrototypeMachinery.logger.debug(
+            "[RenderCaches] budget: evicted {} entries ({} bytes), {} -> {} bytes (budget {}) {}",
+            result.evictions, result.evictedBytes, result.bytesBefore, result.bytesAfter,
+            RenderTuning.renderCacheBudgetBytes, result.evictionsByCache,
+        )
+    }
+
+    /**
+     * One enforcement pass over [caches] at frame [now]. With [budget] <= 0 only the totals are measured.
+     */
+    internal fun enforce(caches: List<BudgetedRenderCache>, now: Int, budget: Long): PassResult {
+        val bytesByCache = LinkedHashMap<String, Long>()
+        var total = 0L
+        for (cache in caches) {
+            val bytes = cache.budgetBytes().coerceAtLeast(0L)
+            bytesByCache[cache.budgetName] = bytes
+            total += bytes
+        }
+        lastBytesByCache = bytesByCache
+
+        if (budget <= 0L || total <= budget) {
+            return PassResult(total, total, 0, 0L, emptyMap())
+        }
+
+        val candidates = Candidates(now)
+        val idleBefore = now - MIN_IDLE_FRAMES
+        for (cache in caches) {
+            candidates.cache = cache
+            cache.collectEvictionCandidates(idleBefore, candidates)
+        }
+        candidates.cache = null
+
+        var remaining = total
+        var count = 0
+        var freed = 0L
+        val byCache = LinkedHashMap<String, Int>()
+        for (c in candidates.sortedByScore()) {
+            if (remaining <= budget || count >= MAX_EVICTIONS_PER_PASS) break
+            val released = c.cache.evict(c.handle)
+            if (released <= 0L) continue
+            remaining -= released
+            freed += released
+            count++
+            byCache[c.cache.budgetName] = (byCache[c.cache.budgetName] ?: 0) + 1
+        }
+        for (cache in caches) {
+            if (cache.budgetName in byCache) cache.afterEvictions()
+        }
+        return PassResult(total, remaining, count, freed, byCache)
+    }
+
+    internal fun statsSnapshot(): StatsSnapshot = StatsSnapshot(
+        budgetBytes = RenderTuning.renderCacheBudgetBytes,
+        usedBytes = lastUsedBytes,
+        bytesByCache = lastBytesByCache,
+        evictions = evictions.get(),
+        evictedBytes = evictedBytes.get(),
+        evictionsByCache = synchronized(evictionsByCache) { LinkedHashMap(evictionsByCache) },
+    )
+}
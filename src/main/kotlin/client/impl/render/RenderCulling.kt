@@ -0,0 +1,386 @@
+package github.kasuminova.prototypemachinery.client.impl.render
+
+import github.kasuminova.prototypemachinery.api.machine.component.type.StructureRenderDataComponent
+import github.kasuminova.prototypemachinery.api.machine.component.type.StructureRenderDataComponentType
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import github.kasuminova.prototypemachinery.common.block.entity.MachineBlockEntity
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap
+import net.minecraft.client.Minecraft
+import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher
+import net.minecraft.util.math.AxisAlignedBB
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Low-resolution CPU depth buffer used for conservative occlusion tests.
+ *
+ * Occluders are written with their *farthest* depth and only into pixels they cover completely; tested boxes use
+ * their *nearest* depth and every pixel they touch. A box is therefore only reported occluded when it is hidden
+ * at any resolution. Depth is the clip-space `w` (view distance along the camera axis), which is linear in position.
+ *
+ * All coordinates are camera-relative; [begin] takes the matching column-major clip matrix (`P * MV`).
+ */
+internal class SoftwareDepthBuffer(val width: Int = 128, val height: Int = 72) {
+
+    private val depth = FloatArray(width * height)
+    private val clip = FloatArray(16)
+    private val sx = FloatArray(4)
+    private val sy = FloatArray(4)
+
+    /** Occluder quads written since [begin]. */
+    var quads: Int = 0
+        private set
+
+    fun begin(clipMatrix: FloatArray) {
+        System.arraycopy(clipMatrix, 0, clip, 0, 16)
+        depth.fill(Float.POSITIVE_INFINITY)
+        quads = 0
+    }
+
+    /**
+     * Writes one planar convex quad ([v] holds 4 vertices as x, y, z triples, in order around the quad).
+     *
+     * @return false if the quad crosses the near plane and was skipped
+     */
+    fun drawQuad(v: FloatArray): Boolean {
+        val m = clip
+        var far = 0.0f
+        for (i in 0 until 4) {
+            val x = v[i * 3]
+            val y = v[i * 3 + 1]
+            val z = v[i * 3 + 2]
+            val w = m[3] * x + m[7] * y + m[11] * z + m[15]
+            if (w < NEAR_W) return false
+            sx[i] = ((m[0] * x + m[4] * y + m[8] * z + m[12]) / w * 0.5f + 0.5f) * width
+            sy[i] = (0.5f - (m[1] * x + m[5] * y + m[9] * z + m[13]) / w * 0.5f) * height
+            if (w > far) far = w
+        }
+
+        // Signed area picks the winding so that "inside" is positive for every edge.
+        var area = 0.0f
+        for (i in 0 until 4) {
+            val j = (i + 1) and 3
+            area += sx[i] * sy[j] - sx[j] * sy[i]
+        }
+        if (area == 0.0f) return true
+        val sign = if (area > 0.0f) 1.0f else -1.0f
+
+        val x0 = max(0, floor(min(min(sx[0], sx[1]), min(sx[2], sx[3]))).toInt())
+        val x1 = min(width - 1, floor(max(max(sx[0], sx[1]), max(sx[2], sx[3]))).toInt())
+        val y0 = max(0, floor(min(min(sy[0], sy[1]), min(sy[2], sy[3]))).toInt())
+        val y1 = min(height - 1, floor(max(max(sy[0], sy[1]), max(sy[2], sy[3]))).toInt())
+        if (x0 > x1 || y0 > y1) return true
+
+        quads++
+        for (py in y0..y1) {
+            val cy = py + 0.5f
+            for (px in x0..x1) {
+                val cx = px + 0.5f
+                if (coversPixel(cx, cy, sign)) {
+                    val idx = py * width + px
+                    if (far < depth[idx]) depth[idx] = far
+                }
+            }
+        }
+        return true
+    }
+
+    // Inner-conservative: the whole pixel must be inside every edge, not just its center.
+    private fun coversPixel(cx: Float, cy: Float, sign: Float): Boolean {
+        for (i in 0 until 4) {
+            val j = (i + 1) and 3
+            val a = (sy[i] - sy[j]) * sign
+            val b = (sx[j] - sx[i]) * sign
+            val e = a * (cx - sx[i]) + b * (cy - sy[i])
+            if (e < 0.5f * (Math.abs(a) + Math.abs(b))) return false
+        }
+        return true
+    }
+
+    /** Whether the camera-relative box is fully hidden behind occluders written since [begin]. */
+    fun isOccluded(minX: Float, minY: Float, minZ: Float, maxX: Float, maxY: Float, maxZ: Float): Boolean {
+        if (quads == 0) return false
+        val m = clip
+        var near = Float.POSITIVE_INFINITY
+        var rx0 = Float.POSITIVE_INFINITY
+        var rx1 = Float.NEGATIVE_INFINITY
+        var ry0 = Float.POSITIVE_INFINITY
+        var ry1 = Float.NEGATIVE_INFINITY
+        for (i in 0 until 8) {
+            val x = if ((i and 1) == 0) minX else maxX
+            val y = if ((i and 2) == 0) minY else maxY
+            val z = if ((i and 4) == 0) minZ else maxZ
+            val w = m[3] * x + m[7] * y + m[11] * z + m[15]
+            if (w < NEAR_W) return false
+            val px = ((m[0] * x + m[4] * y + m[8] * z + m[12]) / w * 0.5f + 0.5f) * width
+            val py = (0.5f - (m[1] * x + m[5] * y + m[9] * z + m[13]) / w * 0.5f) * height
+            if (w < near) near = w
+            if (px < rx0) rx0 = px
+            if (px > rx1) rx1 = px
+            if (py < ry0) ry0 = py
+            if (py > ry1) ry1 = py
+        }
+
+        val x0 = max(0, floor(rx0).toInt())
+        val x1 = min(width - 1, floor(rx1).toInt())
+        val y0 = max(0, floor(ry0).toInt())
+        val y1 = min(height - 1, floor(ry1).toInt())
+        if (x0 > x1 || y0 > y1) return false
+
+        for (py in y0..y1) {
+            val row = py * width
+            for (px in x0..x1) {
+                if (depth[row + px] >= near) return false
+            }
+        }
+        return true
+    }
+
+    private companion object {
+        private const val NEAR_W = 0.05f
+    }
+}
+
+/**
+ * Per-frame visibility test for machine render submissions.
+ *
+ * A machine is culled when its structure bounds are outside the view frustum, or (with
+ * [RenderTuning.cullingOcclusionEnabled]) hidden behind nearby opaque terrain. Culled machines are skipped before
+ * [github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskCache] is consulted, so they neither
+ * rebuild nor reach [MachineRenderDispatcher].
+ *
+ * Occluders are 4x4x4-block cells of loaded chunk sections whose blocks are all opaque cubes. Per-section cell masks
+ * are cached and invalidated from block updates; the depth buffer itself is rebuilt lazily once per render frame.
+ * Render thread only.
+ */
+internal object MachineRenderCulling {
+
+    private const val CELL = 4
+    private const val MAX_MASK_BUILDS_PER_FRAME = 32
+    private const val MAX_OCCLUDER_FACES = 4096
+    private const val MAX_CACHED_SECTIONS = 16384
+
+    private val depthBuffer = SoftwareDepthBuffer()
+    private val quad = FloatArray(12)
+
+    // Section key -> opaque cell mask (bit = cx | cz << 2 | cy << 4). Missing keys read as 0.
+    private val sectionMasks = Long2LongOpenHashMap()
+
+    private var frameId: Int = Int.MIN_VALUE
+    private var occlusionReady: Boolean = false
+
+    /** Whether [te] should be submitted this frame. */
+    fun isVisible(te: MachineBlockEntity): Boolean {
+        if (!RenderTuning.cullingEnabled) return true
+        RenderStats.addCullTested()
+
+        val box = bounds(te)
+        if (!RenderLodFrustum.contains(box)) {
+            RenderStats.addCullFrustum()
+            return false
+        }
+
+        if (!RenderTuning.cullingOcclusionEnabled) return true
+        prepareFrame()
+        if (!occlusionReady) return true
+
+        val camX = TileEntityRendererDispatcher.staticPlayerX
+        val camY = TileEntityRendererDispatcher.staticPlayerY
+        val camZ = TileEntityRendererDispatcher.staticPlayerZ
+        val occluded = depthBuffer.isOccluded(
+            (box.minX - camX).toFloat(), (box.minY - camY).toFloat(), (box.minZ - camZ).toFloat(),
+            (box.maxX - camX).toFloat(), (box.maxY - camY).toFloat(), (box.maxZ - camZ).toFloat(),
+        )
+        if (occluded) RenderStats.addCullOccluded()
+        return !occluded
+    }
+
+    /** Structure bounds (falling back to the render bounding box), grown by [RenderTuning.cullingBoundsMargin]. */
+    fun bounds(te: MachineBlockEntity): AxisAlignedBB {
+        var box = te.renderBoundingBox
+        val data = te.machine.componentMap.get(StructureRenderDataComponentType) as? StructureRenderDataComponent
+        val min = data?.structureMin
+        val max = data?.structureMax
+        if (min != null && max != null) {
+            box = box.union(
+                AxisAlignedBB(
+                    min.x.toDouble(), min.y.toDouble(), min.z.toDouble(),
+                    max.x + 1.0, max.y + 1.0, max.z + 1.0,
+                )
+            )
+        }
+        val margin = RenderTuning.cullingBoundsMargin
+        return if (margin > 0.0) box.grow(margin) else box
+    }
+
+    fun onBlockChanged(x: Int, y: Int, z: Int) {
+        if (sectionMasks.isEmpty()) return
+        sectionMasks.remove(sectionKey(x shr 4, y shr 4, z shr 4))
+    }
+
+    fun onRangeChanged(x1: Int, y1: Int, z1: Int, x2: Int, y2: Int, z2: Int) {
+        if (sectionMasks.isEmpty()) return
+        for (sx in (min(x1, x2) shr 4)..(max(x1, x2) shr 4)) {
+            for (sy in (min(y1, y2) shr 4)..(max(y1, y2) shr 4)) {
+                for (sz in (min(z1, z2) shr 4)..(max(z1, z2) shr 4)) {
+                    sectionMasks.remove(sectionKey(sx, sy, sz))
+                }
+            }
+        }
+    }
+
+    fun clearAll() {
+        sectionMasks.clear()
+        sectionMasks.trim()
+        frameId = Int.MIN_VALUE
+        occlusionReady = false
+    }
+
+    private fun prepareFrame() {
+        val frame = RenderFrameClock.getFrameId()
+        if (frame == frameId) return
+        frameId = frame
+        occlusionReady = false
+
+        val distance = RenderTuning.cullingOcclusionDistance
+        if (distance <= 0.0) return
+        val world = Minecraft.getMinecraft().world ?: return
+
+        val start = System.nanoTime()
+        if (sectionMasks.size > MAX_CACHED_SECTIONS) sectionMasks.clear()
+        depthBuffer.begin(RenderLodFrustum.clippingMatrix())
+
+        val camX = TileEntityRendererDispatcher.staticPlayerX
+        val camY = TileEntityRendererDispatcher.staticPlayerY
+        val camZ = TileEntityRendererDispatcher.staticPlayerZ
+        val csx = floor(camX).toInt() shr 4
+        val csy = floor(camY).toInt() shr 4
+        val csz = floor(camZ).toInt() shr 4
+        val radius = (distance / 16.0).toInt() + 1
+        var builds = 0
+        var faces = 0
+
+        // Chebyshev rings around the camera section: near occluders first, so the face cap drops the far ones.
+        rings@ for (r in 0..radius) {
+            for (dx in -r..r) {
+                for (dy in -r..r) {
+                    val sy = csy + dy
+                    if (sy < 0 || sy > 15) continue
+                    val edge = r == 0 || dx == -r || dx == r || dy == -r || dy == r
+                    var dz = -r
+                    while (dz <= r) {
+                        val sx = csx + dx
+                        val sz = csz + dz
+                        dz += if (edge) 1 else 2 * r
+
+                        val key = sectionKey(sx, sy, sz)
+                        var mask = sectionMasks.get(key)
+                        if (mask == 0L && !sectionMasks.containsKey(key)) {
+                            if (builds >= MAX_MASK_BUILDS_PER_FRAME) continue
+                            val chunk = world.chunkProvider.getLoadedChunk(sx, sz) ?: continue
+                            builds++
+                            mask = buildMask(chunk.blockStorageArray[sy])
+                            sectionMasks.put(key, mask)
+                        }
+                        if (mask == 0L) continue
+
+                        val bx = sx shl 4
+                        val by = sy shl 4
+                        val bz = sz shl 4
+                        if (!RenderLodFrustum.contains(AxisAlignedBB(bx.toDouble(), by.toDouble(), bz.toDouble(), bx + 16.0, by + 16.0, bz + 16.0))) continue
+
+                        faces += drawSection(
+                            mask,
+                            (bx - camX).toFloat(), (by - camY).toFloat(), (bz - camZ).toFloat(),
+                            MAX_OCCLUDER_FACES - faces,
+                        )
+                        if (faces >= MAX_OCCLUDER_FACES) break@rings
+                    }
+                }
+            }
+        }
+
+        occlusionReady = depthBuffer.quads > 0
+        RenderStats.addOcclusionPass(faces, System.nanoTime() - start)
+    }
+
+    private fun buildMask(storage: ExtendedBlockStorage?): Long {
+        if (storage == null || storage.isEmpty) return 0L
+        var mask = 0L
+        for (cy in 0 until 4) {
+            for (cz in 0 until 4) {
+                for (cx in 0 until 4) {
+                    if (isCellOpaque(storage, cx * CELL, cy * CELL, cz * CELL)) {
+                        mask = mask or (1L shl cellIndex(cx, cy, cz))
+                    }
+                }
+            }
+        }
+        return mask
+    }
+
+    private fun isCellOpaque(storage: ExtendedBlockStorage, x0: Int, y0: Int, z0: Int): Boolean {
+        for (y in y0 until y0 + CELL) {
+            for (z in z0 until z0 + CELL) {
+                for (x in x0 until x0 + CELL) {
+                    if (!storage.get(x, y, z).isOpaqueCube) return false
+                }
+            }
+        }
+        return true
+    }
+
+    /** Rasterizes the exposed, camera-facing faces of the section's opaque cells; returns the faces written. */
+    private fun drawSection(mask: Long, ox: Float, oy: Float, oz: Float, budget: Int): Int {
+        var faces = 0
+        for (cy in 0 until 4) {
+            for (cz in 0 until 4) {
+                for (cx in 0 until 4) {
+                    if ((mask and (1L shl cellIndex(cx, cy, cz))) == 0L) continue
+                    if (faces >= budget) return faces
+                    val x0 = ox + cx * CELL
+                    val y0 = oy + cy * CELL
+                    val z0 = oz + cz * CELL
+                    val x1 = x0 + CELL
+                    val y1 = y0 + CELL
+                    val z1 = z0 + CELL
+                    // A face is only visible when the camera (origin) is on its outer side.
+                    if (x0 > 0f && !opaque(mask, cx - 1, cy, cz)) faces += face(x0, y0, z0, x0, y1, z0, x0, y1, z1, x0, y0, z1)
+                    if (x1 < 0f && !opaque(mask, cx + 1, cy, cz)) faces += face(x1, y0, z0, x1, y0, z1, x1, y1, z1, x1, y1, z0)
+                    if (y0 > 0f && !opaque(mask, cx, cy - 1, cz)) faces += face(x0, y0, z0, x0, y0, z1, x1, y0, z1, x1, y0, z0)
+                    if (y1 < 0f && !opaque(mask, cx, cy + 1, cz)) faces += face(x0, y1, z0, x1, y1, z0, x1, y1, z1, x0, y1, z1)
+                    if (z0 > 0f && !opaque(mask, cx, cy, cz - 1)) faces += face(x0, y0, z0, x1, y0, z0, x1, y1, z0, x0, y1, z0)
+                    if (z1 < 0f && !opaque(mask, cx, cy, cz + 1)) faces += face(x0, y0, z1, x0, y1, z1, x1, y1, z1, x1, y0, z1)
+                }
+            }
+        }
+        return faces
+    }
+
+    private fun face(
+        ax: Float, ay: Float, az: Float,
+        bx: Float, by: Float, bz: Float,
+        cx: Float, cy: Float, cz: Float,
+        dx: Float, dy: Float, dz: Float,
+    ): Int {
+        val q = quad
+        q[0] = ax; q[1] = ay; q[2] = az
+        q[3] = bx; q[4] = by; q[5] = bz
+        q[6] = cx; q[7] = cy; q[8] = cz
+        q[9] = dx; q[10] = dy; q[11] = dz
+        return if (depthBuffer.drawQuad(q)) 1 else 0
+    }
+
+    // Cells outside the section count as not opaque (their faces are emitted; extra faces are harmless).
+    private fun opaque(mask: Long, cx: Int, cy: Int, cz: Int): Boolean {
+        if (cx < 0 || cx > 3 || cy < 0 || cy > 3 || cz < 0 || cz > 3) return false
+        return (mask and (1L shl cellIndex(cx, cy, cz))) != 0L
+    }
+
+    private fun cellIndex(cx: Int, cy: Int, cz: Int): Int = cx or (cz shl 2) or (cy shl 4)
+
+    private fun sectionKey(sx: Int, sy: Int, sz: Int): Long =
+        ((sx.toLong() and 0x3FFFFFL) shl 26) or ((sz.toLong() and 0x3FFFFFL) shl 4) or (sy.toLong() and 0xFL)
+}
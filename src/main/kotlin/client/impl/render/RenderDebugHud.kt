@@ -35,6 +35,7 @@ internal object RenderDebugHud {
     // For per-second deltas (cumulative counters -> window rates).
     private var lastNativeTotals: NativeBufferStats.Snapshot? = null
     private var lastTaskCacheTotals: RenderTaskCache.StatsSnapshot? = null
+    private var lastFrameCacheTotals: GeckoAnimationFrameCache.StatsSnapshot? = null
     private var lastDirectPoolTotals: DirectByteBufferPool.StatsSnapshot? = null
     private var lastRenderBuildTotals: Triple<Long, Long, Long>? = null // (tasks, errors, nanos)
 
@@ -86,6 +87,13 @@ internal object RenderDebugHud {
         var quadBulkPackNanosSum: Long = 0
         var quadBulkSubmitNanosSum: Long = 0
 
+        // Machine culling window sums
+        var cullTestedSum: Long = 0
+        var cullFrustumSum: Long = 0
+        var cullOccludedSum: Long = 0
+        var occluderFacesSum: Long = 0
+        var occlusionNanosSum: Long = 0
+
         fun reset() {
             frames = 0
             drawCallsSum = 0
@@ -124,6 +132,12 @@ internal object RenderDebugHud {
             quadBulkNormalNanosSum = 0
             quadBulkPackNanosSum = 0
             quadBulkSubmitNanosSum = 0
+
+            cullTestedSum = 0
+            cullFrustumSum = 0
+            cullOccludedSum = 0
+            occluderFacesSum = 0
+            occlusionNanosSum = 0
         }
 
         fun addFrame(s: RenderStats.Snapshot) {
@@ -173,6 +187,12 @@ internal object RenderDebugHud {
                 quadLegacyNanosSum += s.geckoQuadLegacyNanos
                 quadLegacyVerticesSum += s.geckoQuadLegacyVerticesTimed
             }
+
+            cullTestedSum += s.cullTested
+            cullFrustumSum += s.cullFrustum
+            cullOccludedSum += s.cullOccluded
+            occluderFacesSum += s.occluderFaces
+            occlusionNanosSum += s.occlusionNanos
         }
     }
 
@@ -292,6 +312,7 @@ internal object RenderDebugHud {
                         Window1s.reset()
                         lastNativeTotals = null
                         lastTaskCacheTotals = null
+                        lastFrameCacheTotals = null
                         lastDirectPoolTotals = null
                         lastRenderBuildTotals = null
                         lastBbReqByTag.clear()
@@ -386,6 +407,16 @@ internal object RenderDebugHud {
         val taskHitBuildPerSec = if (taskPrev != null) perSec(taskCache.hitCurrentBuilding - taskPrev.hitCurrentBuilding) else 0L
         val taskSubCurPerSec = if (taskPrev != null) perSec(taskCache.submittedCurrent - taskPrev.submittedCurrent) else 0L
         val taskSubNextPerSec = if (taskPrev != null) perSec(taskCache.submittedNext - taskPrev.submittedNext) else 0L
+        val taskHeldPerSec = if (taskPrev != null) perSec(taskCache.heldStale - taskPrev.heldStale) else 0L
+        val sharedCallsPerSec = if (taskPrev != null) perSec(taskCache.sharedCalls - taskPrev.sharedCalls) else 0L
+        val sharedFrameHitsPerSec = if (taskPrev != null) perSec(taskCache.sharedFrameHits - taskPrev.sharedFrameHits) else 0L
+        val taskSizes = RenderTaskCache.sizeSnapshot()
+        val frameCache = GeckoAnimationFrameCache.statsSnapshot()
+        val framePrev = lastFrameCacheTotals
+        lastFrameCacheTotals = frameCache
+        val frameHitsDelta = if (framePrev != null) frameCache.hits - framePrev.hits else 0L
+        val frameMissesDelta = if (framePrev != null) frameCache.misses - framePrev.misses else 0L
+        val frameHitRate = if (frameHitsDelta + frameMissesDelta > 0L) frameHitsDelta * 100.0 / (frameHitsDelta + frameMissesDelta) else Double.NaN
 
         val directBorrowCallsPerSec = if (directPrev != null) perSec(directPool.borrowCalls - directPrev.borrowCalls) else 0L
         val directBorrowHitsPerSec = if (directPrev != null) perSec(directPool.borrowHits - directPrev.borrowHits) else 0L
@@ -444,8 +475,22 @@ internal object RenderDebugHud {
 
         // Task/build verification lines: if static model is stable, submittedNext/s and bbNew/s should trend to ~0.
         cachedLeftLines.add(
-            "  tasks/s: get~=$taskGetPerSec hitR~=$taskHitReadyPerSec hitB~=$taskHitBuildPerSec subC~=$taskSubCurPerSec subN~=$taskSubNextPerSec"
+            "  tasks/s: get~=$taskGetPerSec hitR~=$taskHitReadyPerSec hitB~=$taskHitBuildPerSec subC~=$taskSubCurPerSec subN~=$taskSubNextPerSec lodHeld~=$taskHeldPerSec"
+        )
+        cachedLeftLines.add(
+            "  shared: entries=${taskSizes.sharedEntries} owners=${taskSizes.sharedOwners} get/s~=$sharedCallsPerSec frameHit/s~=$sharedFrameHitsPerSec"
+        )
+        cachedLeftLines.add(
+            "  geckoFrames: hit~=${if (frameHitRate.isNaN()) "-" else String.format("%.1f", frameHitRate)}% entries=${frameCache.entries} " +
+                "mem=${frameCache.bytes / 1024L}KiB evict=${frameCache.evictions}"
         )
+        if (Window1s.cullTestedSum > 0) {
+            val occlMs = if (frames > 0) (Window1s.occlusionNanosSum.toDouble() * invFrames / 1_000_000.0) else 0.0
+            cachedLeftLines.add(
+                "  cull: tested~=${avgPerFrame(Window1s.cullTestedSum)} frustum~=${avgPerFrame(Window1s.cullFrustumSum)} " +
+                    "occl~=${avgPerFrame(Window1s.cullOccludedSum)} faces~=${avgPerFrame(Window1s.occluderFacesSum)} depth~=${String.format("%.3f", occlMs)}ms"
+            )
+        }
         cachedLeftLines.add(
             "  renderbuild/s: done~=${String.format("%.1f", rbDonePerSec)} err~=${String.format("%.2f", rbErrPerSec)} avg~=${if (rbAvgMsPerTask.isNaN()) "-" else String.format("%.2f", rbAvgMsPerTask)}ms  recStep>=${if (recStepTicksFromBuild.isNaN()) "-" else String.format("%.2f", recStepTicksFromBuild)}t (anim~${String.format("%.2f", animHz)}Hz)"
         )
@@ -612,6 +657,18 @@ internal object RenderDebugHud {
         cachedLeftLines.add(
             "  mem: bbPool=${formatBytes(BufferBuilderPool.estimatedBytesHeld())} bbPooled=${formatBytes(BufferBuilderPool.pooledBytesHeld())} bbBig=${formatBytes(BufferBuilderPool.oversizeBytesHeld())}(${BufferBuilderPool.oversizeCount()} d=${BufferBuilderPool.oversizeDroppedCount()}/${formatBytes(BufferBuilderPool.oversizeDroppedBytes())}) vboCache=${formatBytes(BufferBuilderVboCache.bytesHeld())} direct=${formatBytes(native.directAllocatedBytes)}"
         )
+
+        run {
+            val budget = RenderCacheBudget.statsSnapshot()
+            val limit = if (budget.budgetBytes > 0L) formatBytes(budget.budgetBytes) else "off"
+            val parts = budget.bytesByCache.entries.joinToString(" ") { (name, bytes) ->
+                val ev = budget.evictionsByCache[name] ?: 0L
+                if (ev > 0L) "$name=${formatBytes(bytes)}(-$ev)" else "$name=${formatBytes(bytes)}"
+            }
+            cachedLeftLines.add(
+                "  budget: used=${formatBytes(budget.usedBytes)}/$limit evict=${budget.evictions}/${formatBytes(budget.evictedBytes)} $parts"
+            )
+        }
     }
 
     private fun formatBytes(bytes: Long): String {
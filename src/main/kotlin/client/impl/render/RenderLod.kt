@@ -0,0 +1,123 @@
+package github.kasuminova.prototypemachinery.client.impl.render
+
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import net.minecraft.client.renderer.culling.ClippingHelperImpl
+import net.minecraft.client.renderer.culling.Frustum
+import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher
+import net.minecraft.util.math.AxisAlignedBB
+
+/**
+ * Level of detail of one machine render, selected by [RenderLodPolicy].
+ */
+internal enum class RenderLod {
+    /** Full detail: animation follows the render clock. */
+    FULL,
+
+    /** Animation is sampled every [RenderTuning.lodReducedAnimationIntervalTicks] ticks. */
+    REDUCED,
+
+    /** Animated parts keep their last built pose. */
+    FROZEN,
+
+    /** Only static parts are drawn. */
+    STATIC,
+
+    /** Outside the view frustum: every part keeps its last build and nothing is resubmitted. */
+    OFFSCREEN;
+
+    /** Whether animated parts are drawn at all. */
+    val drawsAnimated: Boolean
+        get() = this != STATIC
+
+    /** Whether animated parts keep their last build instead of following the animation time. */
+    val holdsAnimated: Boolean
+        get() = this == FROZEN || this == OFFSCREEN
+
+    /** Whether static parts keep their last build even when their key changes. */
+    val holdsStatic: Boolean
+        get() = this == OFFSCREEN
+}
+
+/**
+ * CPU-side LOD selection for machine renders, driven by [RenderTuning].
+ *
+ * Pure math on the camera distance and a visibility flag, so it can be evaluated (and tested) without GL state.
+ * Animation sampling helpers keep keys stable inside a band, which lets [github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskCache]
+ * and the Gecko frame cache hit instead of rebuilding.
+ */
+internal object RenderLodPolicy {
+
+    fun select(distanceSq: Double, inFrustum: Boolean): RenderLod {
+        if (!RenderTuning.lodEnabled) return RenderLod.FULL
+        if (!inFrustum && RenderTuning.lodOffscreenHold) return RenderLod.OFFSCREEN
+        if (beyond(distanceSq, RenderTuning.lodStaticDistance)) return RenderLod.STATIC
+        if (beyond(distanceSq, RenderTuning.lodFrozenDistance)) return RenderLod.FROZEN
+        if (beyond(distanceSq, RenderTuning.lodReducedDistance)) return RenderLod.REDUCED
+        return RenderLod.FULL
+    }
+
+    /** Tick-rate animation sample for [lod]: the reduced band floors [worldTick] to its interval. */
+    fun animationTick(lod: RenderLod, worldTick: Int): Int {
+        if (lod != RenderLod.REDUCED) return worldTick
+        val interval = RenderTuning.lodReducedAnimationIntervalTicks.coerceAtLeast(1)
+        return worldTick - Math.floorMod(worldTick, interval)
+    }
+
+    /** Render-synced animation time key for [lod]; below full detail only tick-rate sampling is used (0). */
+    fun animationTimeKey(lod: RenderLod, timeKey: Int): Int = if (lod == RenderLod.FULL) timeKey else 0
+
+    private fun beyond(distanceSq: Double, distance: Double): Boolean =
+        distance > 0.0 && distanceSq > distance * distance
+}
+
+/**
+ * Camera frustum for [RenderLodPolicy], refreshed once per render frame from the current GL matrices
+ * (the first caller of a frame must run with the camera transform applied, as TESRs do).
+ *
+ * Vanilla already frustum-culls regular TESRs by their render bounding box; this matters for global renderers
+ * (and the world-bound submitter), which are invoked regardless of visibility. The matching clip matrix is
+ * exposed for [MachineRenderCulling]'s occlusion pass.
+ */
+internal object RenderLodFrustum {
+
+    private var frustum: Frustum? = null
+    private val clipping = FloatArray(16)
+    private var frameId: Int = Int.MIN_VALUE
+
+    fun contains(box: AxisAlignedBB): Boolean = current().isBoundingBoxInFrustum(box)
+
+    /**
+     * Camera-relative clip matrix (column-major `P * MV`) captured together with this frame's frustum.
+     * The returned array is reused; copy it if it must outlive the frame.
+     */
+    fun clippingMatrix(): FloatArray {
+        current()
+        return clipping
+    }
+
+    private fun current(): Frustum {
+        val frame = RenderFrameClock.getFrameId()
+        var current = frustum
+        if (current == null || frame != frameId) {
+            frameId = frame
+            val helper = ClippingHelperImpl.getInstance()
+            System.arraycopy(helper.clippingMatrix, 0, clipping, 0, 16)
+            current = Frustum(helper)
+            current.setPosition(
+                TileEntityRendererDispatcher.staticPlayerX,
+                TileEntityRendererDispatcher.staticPlayerY,
+                TileEntityRendererDispatcher.staticPlayerZ,
+            )
+            frustum = current
+        }
+        return current
+    }
+
+    /** Squared distance from the camera to the center of the block at ([x], [y], [z]). */
+    fun distanceSq(x: Int, y: Int, z: Int): Double {
+        val dx = x + 0.5 - TileEntityRendererDispatcher.staticPlayerX
+        val dy = y + 0.5 - TileEntityRendererDispatcher.staticPlayerY
+        val dz = z + 0.5 - TileEntityRendererDispatcher.staticPlayerZ
+        return dx * dx + dy * dy + dz * dz
+    }
+}
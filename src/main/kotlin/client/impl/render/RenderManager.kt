@@ -3,8 +3,10 @@ package github.kasuminova.prototypemachinery.client.impl.render
 import github.kasuminova.prototypemachinery.client.api.render.RenderPass
 import github.kasuminova.prototypemachinery.client.impl.render.assets.ExternalDiskTextureBinder
 import github.kasuminova.prototypemachinery.client.impl.render.bloom.GregTechBloomBridge
+import github.kasuminova.prototypemachinery.client.impl.render.task.BuiltBuffers
 import github.kasuminova.prototypemachinery.client.impl.render.task.GpuBucketDraw
 import github.kasuminova.prototypemachinery.client.impl.render.task.PackedBucketBatch
+import github.kasuminova.prototypemachinery.client.impl.render.task.drawPackedParts
 import github.kasuminova.prototypemachinery.client.util.ReusableVboUploader
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
@@ -16,6 +18,7 @@ import net.minecraft.client.renderer.OpenGlHelper
 import net.minecraft.client.renderer.texture.TextureMap
 import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher
 import net.minecraft.util.ResourceLocation
+import net.minecraft.util.math.BlockPos
 import java.util.EnumMap
 
 /**
@@ -41,6 +44,12 @@ internal object RenderManager {
     private val gpuBuckets: MutableMap<RenderPass, MutableMap<ResourceLocation, Int2ObjectOpenHashMap<MutableList<GpuBucketDraw>>>> =
         EnumMap(RenderPass::class.java)
 
+    /** A shared build baked at the origin, drawn translated to [origin]. */
+    private class TranslatedDraw(val texture: ResourceLocation, val built: BuiltBuffers, val origin: BlockPos)
+
+    // RenderPass -> origin-relative draws (no lightmap; used for deferred bloom passes)
+    private val translated: MutableMap<RenderPass, MutableList<TranslatedDraw>> = EnumMap(RenderPass::class.java)
+
     fun addBuffer(pass: RenderPass, texture: ResourceLocation, combinedLight: Int, buffer: BufferBuilder) {
         buckets
             .computeIfAbsent(pass) { Object2ObjectOpenHashMap() }
@@ -65,6 +74,14 @@ internal object RenderManager {
             .add(draw)
     }
 
+    /** Queue [pass] of an origin-relative [built] (see [MachineRenderDispatcher.PendingRenderData.origin]). */
+    fun addTranslated(pass: RenderPass, texture: ResourceLocation, built: BuiltBuffers, origin: BlockPos) {
+        if (!MachineRenderDispatcher.hasPass(built, pass)) return
+        translated
+            .computeIfAbsent(pass) { ObjectArrayList() }
+            .add(TranslatedDraw(texture, built, origin))
+    }
+
     /**
      * Clear all queued buffers and release reusable GL resources.
      *
@@ -74,6 +91,7 @@ internal object RenderManager {
         buckets.clear()
         packedBuckets.clear()
         gpuBuckets.clear()
+        translated.clear()
         uploader.dispose()
     }
 
@@ -83,7 +101,7 @@ internal object RenderManager {
      * 当 GT/Lumenized bloom 可用时：BLOOM passes 会留给 bloom callback；否则当作普通 pass 直接画掉。
      */
     fun drawAll() {
-        if (buckets.isEmpty() && packedBuckets.isEmpty() && gpuBuckets.isEmpty()) return
+        if (buckets.isEmpty() && packedBuckets.isEmpty() && gpuBuckets.isEmpty() && translated.isEmpty()) return
 
         RenderStats.noteRenderManagerBuckets(
             buckets.size + packedBuckets.size + gpuBuckets.size
@@ -113,8 +131,9 @@ internal object RenderManager {
     }
 
     internal fun hasPendingBloomWork(): Boolean {
-        if (buckets.isEmpty() && packedBuckets.isEmpty() && gpuBuckets.isEmpty()) return false
-        return buckets.keys.any(::isBloomPass) || packedBuckets.keys.any(::isBloomPass) || gpuBuckets.keys.any(::isBloomPass)
+        if (buckets.isEmpty() && packedBuckets.isEmpty() && gpuBuckets.isEmpty() && translated.isEmpty()) return false
+        return buckets.keys.any(::isBloomPass) || packedBuckets.keys.any(::isBloomPass) || gpuBuckets.keys.any(::isBloomPass) ||
+            translated.keys.any(::isBloomPass)
     }
 
     /**
@@ -149,6 +168,7 @@ internal object RenderManager {
         set.addAll(buckets.keys)
         set.addAll(packedBuckets.keys)
         set.addAll(gpuBuckets.keys)
+        set.addAll(translated.keys)
         return set.sortedBy { it.ordinal }
     }
 
@@ -164,16 +184,19 @@ internal object RenderManager {
         val textures = buckets[pass]
         val packedTextures = packedBuckets[pass]
         val gpuTextures = gpuBuckets[pass]
+        val translatedDraws = translated[pass]
 
         val empty = (textures == null || textures.isEmpty()) &&
             (packedTextures == null || packedTextures.isEmpty()) &&
-            (gpuTextures == null || gpuTextures.isEmpty())
+            (gpuTextures == null || gpuTextures.isEmpty()) &&
+            (translatedDraws == null || translatedDraws.isEmpty())
 
         if (empty) {
             if (clearAfterDraw) {
                 buckets.remove(pass)
                 packedBuckets.remove(pass)
                 gpuBuckets.remove(pass)
+                translated.remove(pass)
             }
             return
         }
@@ -216,6 +239,17 @@ internal object RenderManager {
                     }
                 }
             }
+
+            // Origin-relative shared builds
+            var boundTexture: ResourceLocation? = null
+            translatedDraws?.forEach { d ->
+                if (d.texture != boundTexture) {
+                    RenderStats.addTextureBind()
+                    ExternalDiskTextureBinder.bind(d.texture)
+                    boundTexture = d.texture
+                }
+                MachineRenderDispatcher.drawTranslated(uploader, d.built, pass, d.origin)
+            }
         } finally {
             RenderTypeState.post(pass)
         }
@@ -224,6 +258,7 @@ internal object RenderManager {
             buckets.remove(pass)
             packedBuckets.remove(pass)
             gpuBuckets.remove(pass)
+            translated.remove(pass)
         }
     }
 
@@ -241,14 +276,11 @@ internal object RenderManager {
         val format = first.format
         val drawMode = first.drawMode
 
-        // If the list contains mixed formats/modes, fall back to per-part draws to preserve correctness.
+        // If the list contains mixed formats/modes or compact parts, fall back to per-part draws to preserve correctness.
         for (b in batchList) {
-            if (b.format != format || b.drawMode != drawMode) {
+            if (b.format != format || b.drawMode != drawMode || b.compact) {
                 for (bb in batchList) {
-                    for (p in bb.parts) {
-                        if (p.vertexCount <= 0 || p.totalBytes <= 0) continue
-                        uploader.drawMergedByteBuffer(bb.format, bb.drawMode, p.vertexCount, p.totalBytes, p.data)
-                    }
+                    uploader.drawPackedParts(bb)
                 }
                 return
             }
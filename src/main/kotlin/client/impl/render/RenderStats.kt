@@ -98,6 +98,13 @@ internal object RenderStats {
         val dispatcherPending: Long = 0,
         val renderManagerBuckets: Long = 0,
 
+        // Machine culling (per frame).
+        val cullTested: Long = 0,
+        val cullFrustum: Long = 0,
+        val cullOccluded: Long = 0,
+        val occluderFaces: Long = 0,
+        val occlusionNanos: Long = 0,
+
         // Render-build task stats (cumulative totals while HUD is enabled).
         val renderBuildTasksTotal: Long = 0,
         val renderBuildTaskErrorsTotal: Long = 0,
@@ -189,6 +196,12 @@ internal object RenderStats {
     private val dispatcherPending = AtomicLong(0)
     private val renderManagerBuckets = AtomicLong(0)
 
+    private val cullTested = AtomicLong(0)
+    private val cullFrustum = AtomicLong(0)
+    private val cullOccluded = AtomicLong(0)
+    private val occluderFaces = AtomicLong(0)
+    private val occlusionNanos = AtomicLong(0)
+
     // Render-build task totals (bake/off-thread). Only updated when [enabled] is true.
     private val renderBuildTasksTotal = AtomicLong(0)
     private val renderBuildTaskErrorsTotal = AtomicLong(0)
@@ -242,6 +255,12 @@ internal object RenderStats {
         textureBinds.set(0)
         dispatcherPending.set(0)
         renderManagerBuckets.set(0)
+
+        cullTested.set(0)
+        cullFrustum.set(0)
+        cullOccluded.set(0)
+        occluderFaces.set(0)
+        occlusionNanos.set(0)
     }
 
     internal fun snapshotFrame(): Snapshot {
@@ -324,6 +343,12 @@ internal object RenderStats {
             dispatcherPending = dispatcherPending.get(),
             renderManagerBuckets = renderManagerBuckets.get(),
 
+            cullTested = cullTested.get(),
+            cullFrustum = cullFrustum.get(),
+            cullOccluded = cullOccluded.get(),
+            occluderFaces = occluderFaces.get(),
+            occlusionNanos = occlusionNanos.get(),
+
             renderBuildTasksTotal = renderBuildTasksTotal.get(),
             renderBuildTaskErrorsTotal = renderBuildTaskErrorsTotal.get(),
             renderBuildTaskNanosTotal = renderBuildTaskNanosTotal.get(),
@@ -545,4 +570,25 @@ internal object RenderStats {
         if (!enabled) return
         renderManagerBuckets.set(bucketCount.toLong())
     }
+
+    internal fun addCullTested() {
+        if (!enabled) return
+        cullTested.incrementAndGet()
+    }
+
+    internal fun addCullFrustum() {
+        if (!enabled) return
+        cullFrustum.incrementAndGet()
+    }
+
+    internal fun addCullOccluded() {
+        if (!enabled) return
+        cullOccluded.incrementAndGet()
+    }
+
+    internal fun addOcclusionPass(faces: Int, nanos: Long) {
+        if (!enabled) return
+        if (faces > 0) occluderFaces.addAndGet(faces.toLong())
+        if (nanos > 0) occlusionNanos.addAndGet(nanos)
+    }
 }
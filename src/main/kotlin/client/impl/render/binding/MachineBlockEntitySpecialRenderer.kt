@@ -5,13 +5,18 @@ import github.kasuminova.prototypemachinery.api.machine.component.type.GeckoMode
 import github.kasuminova.prototypemachinery.api.machine.component.type.StructureRenderDataComponentType
 import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataComponent
 import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataComponentType
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
 import github.kasuminova.prototypemachinery.client.api.render.RenderKey
 import github.kasuminova.prototypemachinery.client.api.render.Renderable
 import github.kasuminova.prototypemachinery.client.api.render.binding.GeckoModelBinding
 import github.kasuminova.prototypemachinery.client.api.render.binding.GeckoStructureBinding
 import github.kasuminova.prototypemachinery.client.api.render.binding.SliceRenderMode
+import github.kasuminova.prototypemachinery.client.impl.render.MachineRenderCulling
 import github.kasuminova.prototypemachinery.client.impl.render.MachineRenderDispatcher
 import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
+import github.kasuminova.prototypemachinery.client.impl.render.RenderLod
+import github.kasuminova.prototypemachinery.client.impl.render.RenderLodFrustum
+import github.kasuminova.prototypemachinery.client.impl.render.RenderLodPolicy
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelBaker
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelRenderBuildTask
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoRenderSnapshot
@@ -25,6 +30,7 @@ import net.minecraft.client.Minecraft
 import net.minecraft.client.renderer.tileentity.TileEntitySpecialRenderer
 import net.minecraft.util.EnumFacing
 import net.minecraft.util.ResourceLocation
+import net.minecraft.util.math.BlockPos
 
 /**
  * TESR for MachineBlockEntity.
@@ -90,9 +96,13 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             return
         }
 
+        // Culled machines never reach RenderTaskCache: no rebuilds, no dispatcher submissions.
+        if (!MachineRenderCulling.isVisible(te)) return
+
         val mc = Minecraft.getMinecraft()
         val world = mc.world ?: return
         val resourcesRoot = mc.gameDir.toPath().resolve("resources")
+        val lod = selectLod(te)
 
         // Chunk coordinates for spatial bucketing (controller position).
         val chunkX = te.pos.x shr 4
@@ -131,7 +141,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
 
                 for (anchor in anchors) {
                     val binding = structureBindings[anchor.structure.id] ?: continue
-                    val list = collectStructureBound(te, binding, anchor, resourcesRoot)
+                    val list = collectStructureBound(te, binding, anchor, resourcesRoot, lod)
                     if (list.isNotEmpty()) {
                         MachineRenderDispatcher.submitAll(list.map { it.toPendingRenderData() })
                     }
@@ -157,7 +167,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
         // 1) machine-type binding
         val machineBinding = ClientRenderBindingRegistryImpl.getMachineBinding(te.machine.type.id)
         if (machineBinding != null) {
-            val list = collectLegacy(te, machineBinding, resourcesRoot, bindingKey = te.machine.type.id)
+            val list = collectLegacy(te, machineBinding, resourcesRoot, bindingKey = te.machine.type.id, lod = lod)
             if (list.isNotEmpty()) {
                 MachineRenderDispatcher.submitAll(list.map { it.toPendingRenderData() })
             }
@@ -167,7 +177,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
         if (componentBindings.isNotEmpty()) {
             for ((componentTypeId, binding) in componentBindings) {
                 if (!te.machine.componentMap.containsComponentTypeId(componentTypeId)) continue
-                val list = collectLegacy(te, binding, resourcesRoot, bindingKey = componentTypeId)
+                val list = collectLegacy(te, binding, resourcesRoot, bindingKey = componentTypeId, lod = lod)
                 if (list.isNotEmpty()) {
                     MachineRenderDispatcher.submitAll(list.map { it.toPendingRenderData() })
                 }
@@ -181,22 +191,74 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
     private data class CollectedRenderData(
         val texture: ResourceLocation,
         val combinedLight: Int,
-        val built: BuiltBuffers
+        val built: BuiltBuffers,
+        val origin: BlockPos? = null,
     ) {
         fun toPendingRenderData(): MachineRenderDispatcher.PendingRenderData {
             return MachineRenderDispatcher.PendingRenderData(
                 texture = texture,
                 combinedLight = combinedLight,
                 built = built,
+                origin = origin,
             )
         }
     }
 
+    /**
+     * Pick the render LOD of [te] from its camera distance and, for LOD bands that care, frustum visibility.
+     */
+    private fun selectLod(te: MachineBlockEntity): RenderLod {
+        if (!RenderTuning.lodEnabled) return RenderLod.FULL
+        val inFrustum = !RenderTuning.lodOffscreenHold || RenderLodFrustum.contains(te.renderBoundingBox)
+        return RenderLodPolicy.select(RenderLodFrustum.distanceSq(te.pos.x, te.pos.y, te.pos.z), inFrustum)
+    }
+
+    /**
+     * Resolve the built buffers of one render part, or null while it is still building / empty.
+     *
+     * With [RenderTuning.shareIdenticalBuilds], machines whose part has identical content (model, texture,
+     * orientation and animation selection) share one build baked at the origin; the result then carries the
+     * machine's position so [MachineRenderDispatcher] translates it at draw time. Animation time is not part of
+     * the shared key: the shared task is rebuilt for whichever [RenderKey] resolves it first in a frame.
+     * Animated parts pass their [band] so LOD bands with different animation sampling do not share one entry.
+     *
+     * With [hold] (from the render LOD), a part that was built before keeps its buffers instead of rebuilding.
+     */
+    private fun resolvePart(
+        te: MachineBlockEntity,
+        renderable: Renderable,
+        snapshot: GeckoRenderSnapshot,
+        hold: Boolean,
+        band: RenderLod? = null,
+    ): CollectedRenderData? {
+        val built: BuiltBuffers
+        val origin: BlockPos?
+        if (RenderTuning.shareIdenticalBuilds) {
+            val task = RenderTaskCache.getOrSubmitShared(renderable.ownerKey, snapshot.sharedKey(band?.ordinal ?: 0), renderable.renderKey, hold) { sharedOwner ->
+                GeckoModelRenderBuildTask(snapshot.atOrigin(sharedOwner))
+            }
+            built = task.takeBuilt() ?: return null
+            origin = te.pos
+        } else {
+            val task = RenderTaskCache.getOrSubmit(renderable, hold) { GeckoModelRenderBuildTask(snapshot) }
+            built = task.takeBuilt() ?: return null
+            origin = null
+        }
+        if (built.isEmpty()) return null
+        return CollectedRenderData(
+            texture = renderable.renderKey.textureId,
+            combinedLight = renderable.combinedLight,
+            built = built,
+            origin = origin,
+        )
+    }
+
     private fun collectLegacy(
         te: MachineBlockEntity,
         binding: GeckoModelBinding,
         resourcesRoot: java.nio.file.Path,
         bindingKey: ResourceLocation,
+        lod: RenderLod,
     ): List<CollectedRenderData> {
         val state = te.world.getBlockState(te.pos)
         val front = runCatching { state.getValue(MachineBlock.FACING) }.getOrDefault(EnumFacing.NORTH)
@@ -207,12 +269,12 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
 
         val animTick = binding.animation?.let {
             // Use tick-rate sampling for caching (avoid per-frame churn).
-            (te.world.totalWorldTime % Int.MAX_VALUE).toInt()
+            RenderLodPolicy.animationTick(lod, (te.world.totalWorldTime % Int.MAX_VALUE).toInt())
         } ?: 0
 
         // Optional render-synced time key for smoother animation.
         // Uses a per-frame snapshot to avoid pass-to-pass time skew.
-        val animTimeKey = if (binding.animation != null) RenderFrameClock.currentAnimationTimeKey() else 0
+        val animTimeKey = if (binding.animation != null) RenderLodPolicy.animationTimeKey(lod, RenderFrameClock.currentAnimationTimeKey()) else 0
 
         val variantBase = run {
             var v = bindingKey.hashCode()
@@ -281,21 +343,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.ALL)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt()
-            if (built == null) {
-                // Task still building, skip this frame but don't abort.
-                return emptyList()
-            }
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsStatic)?.let(out::add)
             return out
         }
 
@@ -306,17 +354,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.PERMANENT_STATIC_ONLY)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return@run
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsStatic)?.let(out::add)
         }
 
         // Temporary static task: cache until animation selection changes.
@@ -326,37 +364,17 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.TEMP_STATIC_ONLY)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return@run
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsStatic)?.let(out::add)
         }
 
-        // Dynamic task: rebuild at tick-rate.
-        run {
+        // Dynamic task: rebuild at tick-rate (skipped entirely in the static-only LOD band).
+        if (lod.drawsAnimated) {
             val ownerKey = RenderTaskOwnerKeys.legacyOwnerKey(te, bindingKey, RenderPart.DYNAMIC.ordinal, RenderPart.values().size)
             val rk = baseKey(animationStateHash = animTick, animationTimeKey = animTimeKey, variant = variantForAnim)
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.ANIMATED_ONLY)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return@run
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsAnimated, band = lod)?.let(out::add)
         }
 
         return out
@@ -367,6 +385,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
         binding: GeckoStructureBinding,
         anchor: ClientStructureRenderAnchors.Anchor,
         resourcesRoot: java.nio.file.Path,
+        lod: RenderLod,
     ): List<CollectedRenderData> {
         val model = binding.model
 
@@ -386,10 +405,10 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
         val animationNames = resolveAnimationNames(te, model, geckoState)
 
         val animTick = model.animation?.let {
-            (te.world.totalWorldTime % Int.MAX_VALUE).toInt()
+            RenderLodPolicy.animationTick(lod, (te.world.totalWorldTime % Int.MAX_VALUE).toInt())
         } ?: 0
 
-        val animTimeKey = if (model.animation != null) RenderFrameClock.currentAnimationTimeKey() else 0
+        val animTimeKey = if (model.animation != null) RenderLodPolicy.animationTimeKey(lod, RenderFrameClock.currentAnimationTimeKey()) else 0
 
         val variantBase = run {
             var v = bindingVariantSeed
@@ -500,17 +519,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.ALL)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return emptyList()
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsStatic)?.let(out::add)
             return out
         }
 
@@ -527,17 +536,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.PERMANENT_STATIC_ONLY)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return@run
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsStatic)?.let(out::add)
         }
 
         run {
@@ -553,20 +552,10 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.TEMP_STATIC_ONLY)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return@run
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsStatic)?.let(out::add)
         }
 
-        run {
+        if (lod.drawsAnimated) {
             val ownerKey = RenderTaskOwnerKeys.structureOwnerKey(
                 te = te,
                 machineTypeId = te.machine.type.id,
@@ -579,17 +568,7 @@ internal class MachineBlockEntitySpecialRenderer : TileEntitySpecialRenderer<Mac
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.ANIMATED_ONLY)
 
-            val task = RenderTaskCache.getOrSubmit(renderable) { GeckoModelRenderBuildTask(snapshot) }
-            val built = task.takeBuilt() ?: return@run
-            if (!built.isEmpty()) {
-                out.add(
-                    CollectedRenderData(
-                        texture = rk.textureId,
-                        combinedLight = renderable.combinedLight,
-                        built = built,
-                    )
-                )
-            }
+            resolvePart(te, renderable, snapshot, hold = lod.holdsAnimated, band = lod)?.let(out::add)
         }
 
         return out
@@ -6,7 +6,12 @@ import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataCom
 import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataComponentType
 import github.kasuminova.prototypemachinery.client.api.render.RenderKey
 import github.kasuminova.prototypemachinery.client.api.render.Renderable
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
 import github.kasuminova.prototypemachinery.client.impl.render.BatchedRenderer
+import github.kasuminova.prototypemachinery.client.impl.render.MachineRenderCulling
+import github.kasuminova.prototypemachinery.client.impl.render.RenderLod
+import github.kasuminova.prototypemachinery.client.impl.render.RenderLodFrustum
+import github.kasuminova.prototypemachinery.client.impl.render.RenderLodPolicy
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelBaker
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelRenderBuildTask
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoRenderSnapshot
@@ -21,7 +26,7 @@ import net.minecraft.util.ResourceLocation
  * Per-frame submitter that scans nearby MachineBlockEntities and enqueues bound renders.
  *
  * MVP implementation: iterate loaded TEs and filter by distance. This is intentionally simple
- * and will be optimized (chunk tracking, frustum culling, etc.) later.
+ * and will be optimized (chunk tracking, etc.) later. Detail follows [RenderLodPolicy], like the TESR path.
  */
 internal object WorldBoundMachineRenderSubmitter {
 
@@ -49,11 +54,16 @@ internal object WorldBoundMachineRenderSubmitter {
             val dz = machineTe.pos.z + 0.5 - player.posZ
             val distSq = dx * dx + dy * dy + dz * dz
             if (distSq > maxDistSq) continue
+            if (!MachineRenderCulling.isVisible(machineTe)) continue
+
+            val inFrustum = !RenderTuning.lodEnabled || !RenderTuning.lodOffscreenHold ||
+                RenderLodFrustum.contains(machineTe.renderBoundingBox)
+            val lod = RenderLodPolicy.select(distSq, inFrustum)
 
             // 1) machine-type binding
             val machineBinding = ClientRenderBindingRegistryImpl.getMachineBinding(machineTe.machine.type.id)
             if (machineBinding != null) {
-                submitted += submitOne(machineTe, machineBinding, resourcesRoot, bindingKey = machineTe.machine.type.id)
+                submitted += submitOne(machineTe, machineBinding, resourcesRoot, bindingKey = machineTe.machine.type.id, lod = lod)
                 if (submitted >= MAX_PER_FRAME) break
             }
 
@@ -63,7 +73,7 @@ internal object WorldBoundMachineRenderSubmitter {
                     if (submitted >= MAX_PER_FRAME) break
                     if (!machineTe.machine.componentMap.containsComponentTypeId(componentTypeId)) continue
 
-                    submitted += submitOne(machineTe, binding, resourcesRoot, bindingKey = componentTypeId)
+                    submitted += submitOne(machineTe, binding, resourcesRoot, bindingKey = componentTypeId, lod = lod)
                 }
             }
         }
@@ -74,6 +84,7 @@ internal object WorldBoundMachineRenderSubmitter {
         binding: github.kasuminova.prototypemachinery.client.api.render.binding.GeckoModelBinding,
         resourcesRoot: java.nio.file.Path,
         bindingKey: ResourceLocation,
+        lod: RenderLod,
     ): Int {
         val state = te.world.getBlockState(te.pos)
         val front = runCatching { state.getValue(MachineBlock.FACING) }.getOrDefault(EnumFacing.NORTH)
@@ -83,7 +94,7 @@ internal object WorldBoundMachineRenderSubmitter {
         val animationNames = resolveAnimationNames(te, binding, geckoState)
 
         val animTick = binding.animation?.let {
-            (te.world.totalWorldTime % Int.MAX_VALUE).toInt()
+            RenderLodPolicy.animationTick(lod, (te.world.totalWorldTime % Int.MAX_VALUE).toInt())
         } ?: 0
 
         val variantBase = run {
@@ -145,7 +156,7 @@ internal object WorldBoundMachineRenderSubmitter {
             val rk = baseKey(animationStateHash = animTick, variant = variantBase)
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.ALL)
-            BatchedRenderer.render(renderable) { GeckoModelRenderBuildTask(snapshot) }
+            BatchedRenderer.render(renderable, hold = lod.holdsStatic) { GeckoModelRenderBuildTask(snapshot) }
             return 1
         }
 
@@ -154,7 +165,7 @@ internal object WorldBoundMachineRenderSubmitter {
             val rk = baseKey(animationStateHash = 0, variant = variantBase)
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.PERMANENT_STATIC_ONLY)
-            BatchedRenderer.render(renderable) { GeckoModelRenderBuildTask(snapshot) }
+            BatchedRenderer.render(renderable, hold = lod.holdsStatic) { GeckoModelRenderBuildTask(snapshot) }
         }
 
         run {
@@ -162,15 +173,15 @@ internal object WorldBoundMachineRenderSubmitter {
             val rk = baseKey(animationStateHash = 0, variant = variantForAnim)
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.TEMP_STATIC_ONLY)
-            BatchedRenderer.render(renderable) { GeckoModelRenderBuildTask(snapshot) }
+            BatchedRenderer.render(renderable, hold = lod.holdsStatic) { GeckoModelRenderBuildTask(snapshot) }
         }
 
-        run {
+        if (lod.drawsAnimated) {
             val ownerKey = RenderTaskOwnerKeys.legacyOwnerKey(te, bindingKey, RenderPart.DYNAMIC.ordinal, RenderPart.values().size)
             val rk = baseKey(animationStateHash = animTick, variant = variantForAnim)
             val renderable = baseRenderable(ownerKey, rk)
             val snapshot = baseSnapshot(ownerKey, rk, GeckoModelBaker.BakeMode.ANIMATED_ONLY)
-            BatchedRenderer.render(renderable) { GeckoModelRenderBuildTask(snapshot) }
+            BatchedRenderer.render(renderable, hold = lod.holdsAnimated) { GeckoModelRenderBuildTask(snapshot) }
         }
 
         return 1
@@ -1,5 +1,8 @@
 package github.kasuminova.prototypemachinery.client.impl.render.gecko
 
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
+import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
 import github.kasuminova.prototypemachinery.client.impl.render.RenderStats
 import software.bernie.geckolib3.geo.render.built.GeoCube
 import java.util.WeakHashMap
@@ -12,9 +15,10 @@ import java.util.concurrent.atomic.AtomicLong
  * enabling efficient bone-level batching regardless of individual cube rotations.
  *
  * The cache uses [WeakHashMap] so entries are automatically evicted when the
- * [GeoCube] instance is no longer referenced (e.g., model reload).
+ * [GeoCube] instance is no longer referenced (e.g., model reload). Under [RenderCacheBudget], cubes not baked
+ * for a while are dropped as well.
  */
-internal object BakedCubeCache {
+internal object BakedCubeCache : BudgetedRenderCache {
 
     /**
      * Pre-baked vertex data for a single cube.
@@ -49,7 +53,14 @@ internal object BakedCubeCache {
          * Length = quadCount.
          */
         val flatFlags: ByteArray,
-    )
+    ) {
+        /** Approximate heap size of the arrays. */
+        val bytes: Long = 64L + (positions.size + normals.size + uvs.size) * 4L + flatFlags.size
+
+        /** Frame of the last lookup (best-effort, written from bake threads). */
+        @Volatile
+        var lastUsedFrame: Int = 0
+    }
 
     // Use WeakHashMap so cache entries are GC'd when GeoCube instances are released.
     // WeakHashMap is NOT thread-safe; baking can run on multiple threads in some pipelines,
@@ -57,10 +68,23 @@ internal object BakedCubeCache {
     private val lock = Any()
     private val cache = WeakHashMap<GeoCube, BakedCube>()
 
+    private class LocalCache(var generation: Int) {
+        val map = WeakHashMap<GeoCube, BakedCube>(256)
+    }
+
+    // Bumped on clear and once per budget pass that evicted (see afterEvictions); thread-local front caches from an
+    // older generation drop their entries on next use.
+    @Volatile
+    private var generation: Int = 0
+
     // Per-thread front cache to avoid global lock contention in multi-threaded bake pipelines.
     // WeakHashMap keys are weak, so this will not pin GeoCube instances indefinitely.
-    private val threadLocalCache: ThreadLocal<WeakHashMap<GeoCube, BakedCube>> =
-        ThreadLocal.withInitial { WeakHashMap<GeoCube, BakedCube>(256) }
+    private val threadLocalCache: ThreadLocal<LocalCache> =
+        ThreadLocal.withInitial { LocalCache(generation) }
+
+    init {
+        RenderCacheBudget.register(this)
+    }
 
     // Statistics
     private val cacheHitsCounter = AtomicLong(0)
@@ -83,16 +107,25 @@ internal object BakedCubeCache {
      */
     internal fun getOrBake(cube: GeoCube): BakedCube? {
         // Fastest path: per-thread cache hit (no locking).
-        val local = threadLocalCache.get()
+        val frame = RenderFrameClock.getFrameId()
+        val localCache = threadLocalCache.get()
+        val gen = generation
+        if (localCache.generation != gen) {
+            localCache.map.clear()
+            localCache.generation = gen
+        }
+        val local = localCache.map
         val localHit = local[cube]
         if (localHit != null) {
             if (RenderStats.enabled) cacheHitsCounter.incrementAndGet()
+            localHit.lastUsedFrame = frame
             return localHit
         }
 
         // Next: global cache lookup (locked), then seed thread-local cache.
         val globalHit = synchronized(lock) { cache[cube] }
         if (globalHit != null) {
+            globalHit.lastUsedFrame = frame
             local[cube] = globalHit
             if (RenderStats.enabled) cacheHitsCounter.incrementAndGet()
             return globalHit
@@ -102,6 +135,7 @@ internal object BakedCubeCache {
         if (RenderStats.enabled) cacheMissesCounter.incrementAndGet()
 
         val baked = bake(cube) ?: return null
+        baked.lastUsedFrame = frame
 
         // Publish / de-duplicate.
         val published = synchronized(lock) {
@@ -299,10 +333,8 @@ internal object BakedCubeCache {
         synchronized(lock) {
             cache.clear()
             cacheSize = 0
+            generation++
         }
-
-        // Also clear thread-local caches (best effort: current thread only).
-        threadLocalCache.get().clear()
     }
 
     /**
@@ -320,4 +352,38 @@ internal object BakedCubeCache {
         // cacheSize is volatile; hits/misses are atomic.
         return Triple(cacheHitsCounter.get(), cacheMissesCounter.get(), cacheSize)
     }
+
+    override val budgetName: String get() = "cubes"
+
+    override val rebuildCost: Double get() = 1.0
+
+    override fun budgetBytes(): Long = synchronized(lock) {
+        var sum = 0L
+        for (b in cache.values) sum += b.bytes
+        sum
+    }
+
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        synchronized(lock) {
+            for ((cube, baked) in cache) {
+                if (baked.lastUsedFrame < idleBefore) out.add(cube, baked.lastUsedFrame, baked.bytes)
+            }
+        }
+    }
+
+    override fun evict(handle: Any): Long {
+        if (handle !is GeoCube) return 0L
+        return synchronized(lock) {
+            val removed = cache.remove(handle) ?: return 0L
+            cacheSize = cache.size
+            removed.bytes
+        }
+    }
+
+    // Invalidate the front caches once per pass rather than once per evicted cube.
+    override fun afterEvictions() {
+        synchronized(lock) {
+            generation++
+        }
+    }
 }
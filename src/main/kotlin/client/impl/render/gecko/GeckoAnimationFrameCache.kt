@@ -0,0 +1,223 @@
+package github.kasuminova.prototypemachinery.client.impl.render.gecko
+
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import github.kasuminova.prototypemachinery.client.api.render.RenderPass
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
+import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
+import github.kasuminova.prototypemachinery.client.impl.render.task.CompactVertexCodec
+import github.kasuminova.prototypemachinery.client.impl.render.task.CompactVertices
+import software.bernie.geckolib3.geo.render.built.GeoBone
+import software.bernie.geckolib3.geo.render.built.GeoModel
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.math.floor
+import kotlin.math.roundToInt
+
+/**
+ * Baked vertex data of animated (ANIMATED_ONLY) Gecko frames, reused instead of re-baking.
+ *
+ * Why:
+ * - Every animation time step used to run a full CPU bake, even though looping animations revisit the same
+ *   poses every few seconds. The bake (matrix math + vertex packing) dominates animated build time.
+ *
+ * Design:
+ * - A frame is keyed by the build content (model, animation set, orientation, offsets; see
+ *   [GeckoRenderSnapshot.frameContent]) plus a hash of the evaluated bone pose. Keying by pose instead of by time
+ *   keeps it correct for per-owner controller offsets, transitions and hold-on-last-frame animations.
+ * - Seek times are snapped to [RenderTuning.geckoFrameCacheStepTicks] while the cache is enabled, so a loop only
+ *   produces a bounded set of poses; after one loop every build is a cache hit.
+ * - Entries are LRU-ordered and bounded by [RenderTuning.geckoFrameCacheMaxBytes], and take part in
+ *   [RenderCacheBudget].
+ *
+ * A hit still evaluates the animation (to find the pose) but skips vertex estimation and baking; the cached ints
+ * are copied straight into the task's output buffers.
+ */
+internal object GeckoAnimationFrameCache : BudgetedRenderCache {
+
+    /** [stamp] is the asset resolver version, so edited mounted assets never replay stale frames. */
+    internal data class Key(val content: Any, val stamp: Long, val pose: Long)
+
+    /**
+     * Baked vertex data (POSITION_TEX_COLOR_NORMAL) per routed pass.
+     *
+     * With [RenderTuning.geckoFrameCacheCompact], passes are kept as [CompactVertices] (about 12 instead of
+     * 28 bytes per vertex, so more frames fit the budget) and decoded on replay.
+     */
+    internal class Frame(intsByPass: Map<RenderPass, IntArray>) {
+
+        // Each value is either IntArray (raw) or CompactVertices.
+        private val dataByPass: Map<RenderPass, Any> = if (RenderTuning.geckoFrameCacheCompact) {
+            intsByPass.mapValues { (_, ints) -> CompactVertexCodec.encode(ints) ?: ints }
+        } else {
+            intsByPass
+        }
+
+        internal val bytes: Long = dataByPass.values.fold(ENTRY_OVERHEAD_BYTES) { acc, data ->
+            acc + if (data is CompactVertices) data.bytes else (data as IntArray).size * 4L
+        }
+
+        @Volatile
+        internal var lastUsedFrame: Int = RenderFrameClock.getFrameId()
+
+        /** Int count per pass once decoded. */
+        internal fun intCountByPass(): Map<RenderPass, Int> = dataByPass.mapValues { (_, data) ->
+            if (data is CompactVertices) data.intCount else (data as IntArray).size
+        }
+
+        /** Visit every non-empty pass with its raw ints (decoded into a reusable array when compact). */
+        internal fun forEachPass(action: (pass: RenderPass, ints: IntArray, length: Int) -> Unit) {
+            for ((pass, data) in dataByPass) {
+                if (data is CompactVertices) {
+                    val length = data.intCount
+                    if (length <= 0) continue
+                    val ints = decodeBuffer(length)
+                    data.decode(ints)
+                    action(pass, ints, length)
+                } else {
+                    val ints = data as IntArray
+                    if (ints.isEmpty()) continue
+                    action(pass, ints, ints.size)
+                }
+            }
+        }
+    }
+
+    internal data class StatsSnapshot(
+        val hits: Long,
+        val misses: Long,
+        val evictions: Long,
+        val entries: Int,
+        val bytes: Long,
+    )
+
+    private const val ENTRY_OVERHEAD_BYTES = 128L
+
+    private val decodeBuffers = ThreadLocal<IntArray>()
+
+    internal fun decodeBuffer(length: Int): IntArray {
+        val current = decodeBuffers.get()
+        if (current != null && current.size >= length) return current
+        return IntArray(length).also(decodeBuffers::set)
+    }
+
+    // Access-ordered: iteration starts at the least recently used frame.
+    private val frames = LinkedHashMap<Key, Frame>(64, 0.75f, true)
+    private var bytes = 0L
+
+    private val hits = AtomicLong(0)
+    private val misses = AtomicLong(0)
+    private val evictions = AtomicLong(0)
+
+    init {
+        RenderCacheBudget.register(this)
+    }
+
+    internal fun enabled(): Boolean = RenderTuning.geckoFrameCacheEnabled && RenderTuning.geckoFrameCacheMaxBytes > 0L
+
+    /** Snap [seekTimeTicks] to the cache step so that loops revisit identical poses. */
+    internal fun quantizeSeekTime(seekTimeTicks: Double): Double {
+        val step = RenderTuning.geckoFrameCacheStepTicks
+        if (step <= 0.0) return seekTimeTicks
+        return floor(seekTimeTicks / step) * step
+    }
+
+    internal fun get(key: Key): Frame? {
+        val frame = synchronized(frames) { frames[key] }
+        if (frame != null) {
+            hits.incrementAndGet()
+            frame.lastUsedFrame = RenderFrameClock.getFrameId()
+        } else {
+            misses.incrementAndGet()
+        }
+        return frame
+    }
+
+    internal fun put(key: Key, frame: Frame) {
+        val budget = RenderTuning.geckoFrameCacheMaxBytes
+        if (frame.bytes > budget) return
+        synchronized(frames) {
+            frames.put(key, frame)?.let { bytes -= it.bytes }
+            bytes += frame.bytes
+
+            val it = frames.values.iterator()
+            while (bytes > budget && it.hasNext()) {
+                bytes -= it.next().bytes
+                it.remove()
+                evictions.incrementAndGet()
+            }
+        }
+    }
+
+    internal fun clearAll() {
+        synchronized(frames) {
+            frames.clear()
+            bytes = 0L
+        }
+    }
+
+    override val budgetName: String get() = "geckoFrames"
+
+    override val rebuildCost: Double get() = 1.0
+
+    override fun budgetBytes(): Long = synchronized(frames) { bytes }
+
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        synchronized(frames) {
+            for ((key, frame) in frames) {
+                if (frame.lastUsedFrame < idleBefore) out.add(key, frame.lastUsedFrame, frame.bytes)
+            }
+        }
+    }
+
+    override fun evict(handle: Any): Long = synchronized(frames) {
+        val frame = frames.remove(handle as? Key ?: return 0L) ?: return 0L
+        bytes -= frame.bytes
+        evictions.incrementAndGet()
+        frame.bytes
+    }
+
+    internal fun statsSnapshot(): StatsSnapshot {
+        val (entries, totalBytes) = synchronized(frames) { frames.size to bytes }
+        return StatsSnapshot(
+            hits = hits.get(),
+            misses = misses.get(),
+            evictions = evictions.get(),
+            entries = entries,
+            bytes = totalBytes,
+        )
+    }
+
+    /**
+     * Hash of the current bone pose (rotation, position, scale, visibility) of the whole model.
+     *
+     * Values are rounded to 1/4096 so floating point noise between two evaluations of the same pose does not
+     * split entries.
+     */
+    internal fun poseHash(model: GeoModel): Long {
+        var h = -0x340d631b7bdddcdbL // FNV-1a offset basis
+        for (bone in model.topLevelBones) {
+            h = hashBone(bone, h)
+        }
+        return h
+    }
+
+    private fun hashBone(bone: GeoBone, seed: Long): Long {
+        var h = seed
+        h = mix(h, q(bone.rotationX))
+        h = mix(h, q(bone.rotationY))
+        h = mix(h, q(bone.rotationZ))
+        h = mix(h, q(bone.positionX))
+        h = mix(h, q(bone.positionY))
+        h = mix(h, q(bone.positionZ))
+        h = mix(h, q(bone.scaleX))
+        h = mix(h, q(bone.scaleY))
+        h = mix(h, q(bone.scaleZ))
+        h = mix(h, if (bone.isHidden) 1 else 0)
+        bone.childBones?.forEach { h = hashBone(it, h) }
+        return h
+    }
+
+    private fun q(v: Float): Int = (v * 4096.0f).roundToInt()
+
+    private fun mix(h: Long, v: Int): Long = (h xor v.toLong()) * 0x100000001b3L
+}
@@ -12,6 +12,9 @@ import java.util.concurrent.ConcurrentMap
  * Layout: for each *non-null* quad, for each of 4 vertices: [x, y, z, u, v] (floats).
  * Total length = quadCount * 4 * 5.
  *
+ * The same data is also kept as SoA arrays (plus one normal per quad) for the batched platform vertex pipeline,
+ * which transforms a whole cube per call.
+ *
  * Uses weak keys so entries can be GC'd on model reload.
  * Backed by a concurrent map to avoid global locking in hot paths.
  */
@@ -21,7 +24,19 @@ internal object GeckoCubeQuadVertexCache {
         val quadCount: Int,
         /** xyzuv per vertex, sequential by non-null quad order */
         val xyzuv: FloatArray,
-    )
+    ) {
+        // SoA views (quadCount * 4 vertices).
+        val xs = FloatArray(quadCount * 4) { xyzuv[it * 5] }
+        val ys = FloatArray(quadCount * 4) { xyzuv[it * 5 + 1] }
+        val zs = FloatArray(quadCount * 4) { xyzuv[it * 5 + 2] }
+        val us = FloatArray(quadCount * 4) { xyzuv[it * 5 + 3] }
+        val vs = FloatArray(quadCount * 4) { xyzuv[it * 5 + 4] }
+
+        // Quad normals (quadCount), filled by bake().
+        val normalXs = FloatArray(quadCount)
+        val normalYs = FloatArray(quadCount)
+        val normalZs = FloatArray(quadCount)
+    }
 
     // GeoCubes are owned by Gecko model instances; use weak keys to avoid pinning models forever.
     private val cache: ConcurrentMap<GeoCube, CubeData> =
@@ -64,7 +79,16 @@ internal object GeckoCubeQuadVertexCache {
             bakeQuad(q, out, o)
             o += 4 * 5
         }
-        return CubeData(quadCount = quadCount, xyzuv = out)
+        val data = CubeData(quadCount = quadCount, xyzuv = out)
+        var qi = 0
+        for (q in quads) {
+            if (q == null) continue
+            data.normalXs[qi] = q.normal.x.toFloat()
+            data.normalYs[qi] = q.normal.y.toFloat()
+            data.normalZs[qi] = q.normal.z.toFloat()
+            qi++
+        }
+        return data
     }
 
     private fun bakeQuad(quad: GeoQuad, out: FloatArray, base: Int) {
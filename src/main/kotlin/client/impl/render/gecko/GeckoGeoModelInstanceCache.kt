@@ -1,8 +1,12 @@
 package github.kasuminova.prototypemachinery.client.impl.render.gecko
 
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
+import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
 import net.minecraft.client.resources.IResourceManager
 import net.minecraft.util.ResourceLocation
 import software.bernie.geckolib3.file.GeoModelLoader
+import software.bernie.geckolib3.geo.render.built.GeoBone
 import software.bernie.geckolib3.geo.render.built.GeoModel
 import java.util.Collections
 import java.util.WeakHashMap
@@ -20,22 +24,37 @@ import java.util.WeakHashMap
  *   so each machine instance gets its own GeoModel object (bones are mutable!).
  * - Entries are invalidated when [stamp] changes (typically mounted directory mtime or session key).
  * - Keys are weak to avoid memory leaks when TEs unload.
+ * - Under [RenderCacheBudget], models of owners that have not built for a while are dropped (reloaded on demand).
  */
-internal object GeckoGeoModelInstanceCache {
+internal object GeckoGeoModelInstanceCache : BudgetedRenderCache {
+
+    // Rough heap cost of one parsed bone / cube (6 quads of 4 vertices plus normals and bookkeeping).
+    private const val BONE_BYTES = 256L
+    private const val CUBE_BYTES = 1024L
 
     private data class Entry(
         val geoLocation: ResourceLocation,
         val stamp: Long,
         val model: GeoModel,
-    )
+    ) {
+        val bytes: Long = model.topLevelBones.sumOf { estimateBytes(it) }
+
+        @Volatile
+        var lastUsedFrame: Int = RenderFrameClock.getFrameId()
+    }
 
     private val cache: MutableMap<Any, Entry> = Collections.synchronizedMap(WeakHashMap())
 
+    init {
+        RenderCacheBudget.register(this)
+    }
+
     fun size(): Int = cache.size
 
     fun getOrLoad(ownerKey: Any, geoLocation: ResourceLocation, stamp: Long, resourceManager: IResourceManager): GeoModel {
         val existing = cache[ownerKey]
         if (existing != null && existing.geoLocation == geoLocation && existing.stamp == stamp) {
+            existing.lastUsedFrame = RenderFrameClock.getFrameId()
             return existing.model
         }
 
@@ -51,4 +70,27 @@ internal object GeckoGeoModelInstanceCache {
     fun clearAll() {
         cache.clear()
     }
+
+    override val budgetName: String get() = "geoModels"
+
+    // Reloading means I/O and JSON parsing.
+    override val rebuildCost: Double get() = 4.0
+
+    override fun budgetBytes(): Long = synchronized(cache) { cache.values.sumOf { it.bytes } }
+
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        synchronized(cache) {
+            for ((owner, e) in cache) {
+                if (e.lastUsedFrame < idleBefore) out.add(owner, e.lastUsedFrame, e.bytes)
+            }
+        }
+    }
+
+    override fun evict(handle: Any): Long = cache.remove(handle)?.bytes ?: 0L
+
+    private fun estimateBytes(bone: GeoBone): Long {
+        var sum = BONE_BYTES + bone.childCubes.size * CUBE_BYTES
+        bone.childBones?.forEach { sum += estimateBytes(it) }
+        return sum
+    }
 }
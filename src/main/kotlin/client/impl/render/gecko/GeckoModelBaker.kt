@@ -1,8 +1,11 @@
 package github.kasuminova.prototypemachinery.client.impl.render.gecko
 
+import github.kasuminova.prototypemachinery.api.platform.PMGeckoVertexPipeline
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
 import github.kasuminova.prototypemachinery.client.impl.render.RenderStats
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelBaker.bakeRoutedFiltered
 import github.kasuminova.prototypemachinery.client.util.MatrixStack
+import github.kasuminova.prototypemachinery.impl.platform.PMPlatformManager
 import net.minecraft.client.renderer.BufferBuilder
 import software.bernie.geckolib3.geo.render.built.GeoBone
 import software.bernie.geckolib3.geo.render.built.GeoCube
@@ -381,8 +384,9 @@ internal object GeckoModelBaker {
      * Packed variant of [bakeRoutedFiltered]: instead of emitting into [BufferBuilder], it writes packed
      * POSITION_TEX_COLOR_NORMAL int data into an external sink.
      *
-     * NOTE: This intentionally uses a conservative/compatible path (per-quad packing) to keep the prototype small.
-     * It does NOT use cube pre-bake / modern-backend pipeline.
+     * Each cube is baked in one batch through the platform [PMGeckoVertexPipeline] when available
+     * (see [RenderTuning.geckoCubePipelineEnabled]); otherwise it falls back to per-quad packing.
+     * Both paths produce bit-identical output.
      */
     internal fun bakeRoutedFilteredPacked(
         model: GeoModel,
@@ -547,7 +551,15 @@ internal object GeckoModelBaker {
         val cubeFlatFlags = GeckoBakerMath.flatFlagsForCube(cube)
 
         // Cache vertex attributes per-cube (cheaper than per-quad cache lookups).
-        val baked = GeckoCubeQuadVertexCache.getOrBake(cube).xyzuv
+        val cubeData = GeckoCubeQuadVertexCache.getOrBake(cube)
+        val intCount = cubeData.quadCount * 4 * 7
+        if (intCount > scratch.cubeVertexData.size) scratch.cubeVertexData = IntArray(intCount)
+        if (bakeCubePipelined(cubeData, tint, mats, cubeFlatFlags, scratch.cubeVertexData)) {
+            writer.write(scratch.cubeVertexData, 0, intCount)
+            return
+        }
+
+        val baked = cubeData.xyzuv
         var bakedBase = 0
 
         var qi = 0
@@ -571,6 +583,54 @@ internal object GeckoModelBaker {
         }
     }
 
+    /**
+     * Whole-cube path: positions, normals and packing for all quads of one cube in a single platform pipeline call
+     * (vectorized on modern-backend). Writes `quadCount * 28` ints into [out].
+     * Returns false when the pipeline is unavailable or disabled; callers then use the per-quad path.
+     */
+    private fun bakeCubePipelined(
+        d: GeckoCubeQuadVertexCache.CubeData,
+        tint: BakeTint,
+        mats: GeckoAffineMatrices,
+        flatFlags: Int,
+        out: IntArray,
+    ): Boolean {
+        val quadCount = d.quadCount
+        if (quadCount <= 0 || !RenderTuning.geckoCubePipelineEnabled) return false
+        val pipeline = vertexPipeline ?: return false
+
+        val timing = RenderStats.enabled
+        val t0 = if (timing) System.nanoTime() else 0L
+
+        val ok = pipeline.bakeQuadsIntArray(
+            false,
+            d.xs, d.ys, d.zs, d.us, d.vs, 0,
+            d.normalXs, d.normalYs, d.normalZs, 0, quadCount,
+            flatFlags,
+            tint.packedColor,
+            mats.m00, mats.m01, mats.m02, mats.m03,
+            mats.m10, mats.m11, mats.m12, mats.m13,
+            mats.m20, mats.m21, mats.m22, mats.m23,
+            mats.n00, mats.n01, mats.n02,
+            mats.n10, mats.n11, mats.n12,
+            mats.n20, mats.n21, mats.n22,
+            out, 0,
+        )
+        if (!ok) return false
+
+        if (timing) {
+            RenderStats.addGeckoPipelineNanos(System.nanoTime() - t0)
+            RenderStats.addGeckoPipelineBatch(quadCount, quadCount * 4)
+            RenderStats.noteGeckoModernPipelineBackend(pipeline.backendName(false), pipeline.isVectorized(false))
+        }
+        return true
+    }
+
+    /** Platform vertex pipeline (modern-backend), or null on legacy runtimes. */
+    internal val vertexPipeline: PMGeckoVertexPipeline? by lazy {
+        runCatching { PMPlatformManager.get().geckoVertexPipeline() }.getOrNull()
+    }
+
     private fun renderQuadPacked(
         writer: PackedVertexDataWriter,
         quad: GeoQuad,
@@ -726,6 +786,9 @@ internal object GeckoModelBaker {
         val boneMatrices: GeckoAffineMatrices = GeckoAffineMatrices(),
         val quadVertexData: IntArray = IntArray(4 * 7),
     ) {
+        // Whole-cube output for the packed pipeline path (6 quads for a regular cube).
+        var cubeVertexData: IntArray = IntArray(6 * 4 * 7)
+
         var packed: IntArray = IntArray(0)
 
         fun ensurePackedExactIntCount(intCount: Int) {
@@ -1117,7 +1180,15 @@ internal object GeckoModelBaker {
         val cubeFlatFlags = GeckoBakerMath.flatFlagsForCube(cube)
 
         // Cache vertex attributes per-cube (cheaper than per-quad cache lookups).
-        val baked = GeckoCubeQuadVertexCache.getOrBake(cube).xyzuv
+        val cubeData = GeckoCubeQuadVertexCache.getOrBake(cube)
+        // BufferBuilder.addVertexData takes the whole array, so the pipeline output needs an exact-size buffer.
+        scratch.ensurePackedExactIntCount(cubeData.quadCount * 4 * 7)
+        if (bakeCubePipelined(cubeData, tint, mats, cubeFlatFlags, scratch.packed)) {
+            builder.addVertexData(scratch.packed)
+            return
+        }
+
+        val baked = cubeData.xyzuv
         var bakedBase = 0
 
         var qi = 0
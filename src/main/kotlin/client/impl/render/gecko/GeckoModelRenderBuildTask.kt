@@ -10,15 +10,19 @@ import github.kasuminova.prototypemachinery.client.impl.render.assets.MinecraftA
 import github.kasuminova.prototypemachinery.client.impl.render.assets.MountedDirectoryAssetResolver
 import github.kasuminova.prototypemachinery.client.impl.render.assets.ResolverBackedResourceManager
 import github.kasuminova.prototypemachinery.client.impl.render.task.BuiltBuffers
+import github.kasuminova.prototypemachinery.client.impl.render.task.CompactPackedVertices
 import github.kasuminova.prototypemachinery.client.impl.render.task.GpuBucketDraw
 import github.kasuminova.prototypemachinery.client.impl.render.task.MappedVboWriteCache
+import github.kasuminova.prototypemachinery.client.impl.render.task.PackedBucket
 import github.kasuminova.prototypemachinery.client.impl.render.task.PackedBucketBatch
 import github.kasuminova.prototypemachinery.client.impl.render.task.PooledDirectVertexWriteTarget
 import github.kasuminova.prototypemachinery.client.impl.render.task.RenderBuildTask
+import github.kasuminova.prototypemachinery.client.impl.render.task.SharedBuildKey
 import github.kasuminova.prototypemachinery.client.util.BufferBuilderPool
 import github.kasuminova.prototypemachinery.client.util.ClientMainThread
 import github.kasuminova.prototypemachinery.client.util.MatrixStack
 import github.kasuminova.prototypemachinery.common.util.OrientationMath
+import it.unimi.dsi.fastutil.ints.IntArrayList
 import net.minecraft.client.renderer.BufferBuilder
 import net.minecraft.client.renderer.OpenGlHelper
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats
@@ -66,7 +70,25 @@ internal data class GeckoRenderSnapshot(
 
     internal val resourcesRoot: Path,
     internal val yOffset: Double,
-)
+) {
+
+    /**
+     * Content key for sharing this build between identical machines: everything except owner and world position.
+     *
+     * The baked result of [atOrigin] equals this snapshot's result shifted by (x, y, z).
+     * [band] keeps owners that sample animation time at different rates apart (see [SharedBuildKey.band]).
+     */
+    internal fun sharedKey(band: Int = 0): SharedBuildKey {
+        val base = SharedBuildKey.of(renderKey, Unit, band)
+        return base.copy(content = copy(ownerKey = Unit, renderKey = base.renderKey, x = 0.0, y = 0.0, z = 0.0))
+    }
+
+    /** Build content without owner and animation time, used to key [GeckoAnimationFrameCache] entries. */
+    internal fun frameContent(): GeckoRenderSnapshot = copy(ownerKey = Unit, renderKey = SharedBuildKey.of(renderKey, Unit).renderKey)
+
+    /** The same build at the world origin, owned by [sharedOwner]. */
+    internal fun atOrigin(sharedOwner: Any): GeckoRenderSnapshot = copy(ownerKey = sharedOwner, x = 0.0, y = 0.0, z = 0.0)
+}
 
 /**
  * Background task that bakes a GeckoLib geo model into a BufferBuilder.
@@ -101,24 +123,31 @@ internal class GeckoModelRenderBuildTask(
             GeoModelLoader().loadModel(manager, snapshot.geoLocation)
         }
 
+        // Animated frames can be replayed from the frame cache instead of re-baked (see GeckoAnimationFrameCache).
+        val useFrameCache = snapshot.bakeMode == GeckoModelBaker.BakeMode.ANIMATED_ONLY && GeckoAnimationFrameCache.enabled()
+
         // Tick-rate animation evaluation (do NOT do per-frame to avoid cache churn).
         val animationLocation = snapshot.animationLocation
         val animationKey = if (key.animationTimeKey != 0) key.animationTimeKey else key.animationStateHash
         if (animationLocation != null && animationKey != 0 && snapshot.bakeMode == GeckoModelBaker.BakeMode.ANIMATED_ONLY) {
+            val seekTimeTicks = if (key.animationTimeKey != 0) {
+                RenderFrameClock.seekTimeTicksFromKey(key.animationTimeKey)
+            } else {
+                key.animationStateHash.toDouble()
+            }
             GeckoAnimationDriver.apply(
                 ownerKey = snapshot.ownerKey,
                 geoModel = model,
                 animationLocation = animationLocation,
                 animationNames = snapshot.animationNames,
                 resourceManager = manager,
-                seekTimeTicks = if (key.animationTimeKey != 0) {
-                    RenderFrameClock.seekTimeTicksFromKey(key.animationTimeKey)
-                } else {
-                    key.animationStateHash.toDouble()
-                },
+                seekTimeTicks = if (useFrameCache) GeckoAnimationFrameCache.quantizeSeekTime(seekTimeTicks) else seekTimeTicks,
             )
         }
 
+        val frameKey = if (useFrameCache) GeckoAnimationFrameCache.Key(snapshot.frameContent(), stamp, GeckoAnimationFrameCache.poseHash(model)) else null
+        val cachedFrame = frameKey?.let(GeckoAnimationFrameCache::get)
+
         // If caller forces a pass, bake everything into that single pass.
         // Otherwise, route by bone name (MMCE-style): bloom/emissive/transparent prefixes.
         val forcedPass = snapshot.pass.takeIf { it != RenderPass.DEFAULT }
@@ -279,7 +308,10 @@ internal class GeckoModelRenderBuildTask(
         // Estimate vertex counts per routed pass and pre-size BufferBuilders.
         // This avoids BufferBuilder.growBuffer() repeatedly reallocating direct memory (which can spike and OOM
         // under low MaxDirectMemorySize and high build parallelism).
-        run {
+        // A cached frame already knows its exact sizes.
+        if (cachedFrame != null) {
+            estimatedBytesByPass = cachedFrame.intCountByPass().mapValues { (_, intCount) -> intCount * 4 }
+        } else run {
             fun bytesForVertices(vertices: Int): Int {
                 if (vertices <= 0) return 0
                 // POSITION_TEX_COLOR_NORMAL: 7 ints per vertex => 28 bytes.
@@ -318,7 +350,31 @@ internal class GeckoModelRenderBuildTask(
             snapshot.bakeMode == GeckoModelBaker.BakeMode.ANIMATED_ONLY &&
                 (RenderTuning.geckoDirectPackedBuffersMinBytes <= 0 || totalEstimatedBytes >= RenderTuning.geckoDirectPackedBuffersMinBytes)
 
-        if (usePacked) {
+        // Frame cache miss: record what the bake writes so the next visit of this pose can replay it.
+        val captureByPass: MutableMap<RenderPass, IntArrayList>? = if (frameKey != null && cachedFrame == null) linkedMapOf() else null
+        val capturingWriters = HashMap<RenderPass, GeckoModelBaker.PackedVertexDataWriter>()
+
+        fun packedWriter(pass: RenderPass): GeckoModelBaker.PackedVertexDataWriter {
+            val writer = getOrCreateSink(pass).writer
+            val capture = captureByPass ?: return writer
+            return capturingWriters.getOrPut(pass) {
+                val ints = capture.getOrPut(pass) { IntArrayList() }
+                GeckoModelBaker.PackedVertexDataWriter { src, offsetInts, lengthInts ->
+                    writer.write(src, offsetInts, lengthInts)
+                    ints.addElements(ints.size, src, offsetInts, lengthInts)
+                }
+            }
+        }
+
+        if (cachedFrame != null) {
+            cachedFrame.forEachPass { pass, ints, length ->
+                if (usePacked) {
+                    getOrCreateSink(pass).writer.write(ints, 0, length)
+                } else {
+                    getOrCreate(pass).addVertexData(if (ints.size == length) ints else ints.copyOf(length))
+                }
+            }
+        } else if (usePacked) {
             GeckoModelBaker.bakeRoutedFilteredPacked(
                 model = model,
                 matrixStack = ms,
@@ -332,7 +388,7 @@ internal class GeckoModelRenderBuildTask(
                         transparent -> RenderPass.TRANSPARENT
                         else -> RenderPass.DEFAULT
                     }
-                    getOrCreateSink(pass).writer
+                    packedWriter(pass)
                 },
             )
         } else {
@@ -368,6 +424,38 @@ internal class GeckoModelRenderBuildTask(
         } else {
             // Finalize all buffers we touched.
             buildersByPass.values.forEach { it.finishDrawing() }
+
+            if (captureByPass != null) {
+                for ((pass, builder) in buildersByPass) {
+                    val ints = IntArray(builder.vertexCount * builder.vertexFormat.integerSize)
+                    builder.byteBuffer.asIntBuffer().get(ints)
+                    captureByPass[pass] = IntArrayList.wrap(ints)
+                }
+            }
+
+            // Retained builders hold a full 28-byte-per-vertex direct buffer. Without the per-builder VBO cache
+            // (which re-uploads from the builder) they can be swapped for compact packed buckets.
+            if (RenderTuning.packedVertexCompact && !RenderTuning.vboCacheEnabled) {
+                val entries = buildersByPass.entries.iterator()
+                while (entries.hasNext()) {
+                    val (pass, builder) = entries.next()
+                    val vertexCount = builder.vertexCount
+                    if (vertexCount <= 0) continue
+                    val bytes = vertexCount * builder.vertexFormat.size
+                    val raw = PackedBucket(builder.vertexFormat, builder.drawMode, vertexCount, bytes, builder.byteBuffer)
+                    val compact = CompactPackedVertices.encode(
+                        PackedBucketBatch(raw.format, raw.drawMode, listOf(raw), vertexCount, bytes),
+                        tag = "GeckoModelRenderBuildTask.compact.$pass",
+                    ) ?: continue
+                    packedByPass[pass] = compact
+                    entries.remove()
+                    BufferBuilderPool.recycle(builder)
+                }
+            }
+        }
+
+        if (frameKey != null && captureByPass != null) {
+            GeckoAnimationFrameCache.put(frameKey, GeckoAnimationFrameCache.Frame(captureByPass.mapValues { (_, ints) -> ints.toIntArray() }))
         }
 
         return BuiltBuffers(byPass = buildersByPass, packedByPass = packedByPass, gpuByPass = gpuByPass)
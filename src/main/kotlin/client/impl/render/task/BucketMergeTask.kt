@@ -9,12 +9,19 @@ import java.nio.ByteBuffer
 import java.util.concurrent.RecursiveAction
 import java.util.concurrent.atomic.AtomicInteger
 
+/**
+ * One contiguous run of packed vertices in [format].
+ *
+ * [compact] is set when [data] uses the [CompactPackedVertices] layout; such parts must be drawn under its
+ * transform (see [drawPackedParts]).
+ */
 internal data class PackedBucket(
     val format: VertexFormat,
     val drawMode: Int,
     val vertexCount: Int,
     val totalBytes: Int,
     val data: ByteBuffer,
+    val compact: CompactPackedTransform? = null,
 )
 
 /**
@@ -28,7 +35,11 @@ internal data class PackedBucketBatch(
     val parts: List<PackedBucket>,
     val totalVertexCount: Int,
     val totalBytes: Int,
-)
+) {
+    /** Compact parts carry their own transform, so they cannot be concatenated with other batches. */
+    val compact: Boolean
+        get() = parts.any { it.compact != null }
+}
 
 /**
  * Background task that packs a list of compatible [BufferBuilder]s into a single contiguous direct [ByteBuffer].
@@ -259,13 +270,26 @@ internal class BucketMergeTask(
                 return
             }
 
-            result = PackedBucketBatch(
+            var batch = PackedBucketBatch(
                 format = format,
                 drawMode = drawMode,
                 parts = packedParts,
                 totalVertexCount = totalVertexCount,
                 totalBytes = totalBytes,
             )
+
+            // Merged batches may be retained for several frames; keep them in the compact layout if enabled.
+            if (RenderTuning.packedVertexCompact) {
+                val compact = CompactPackedVertices.encode(batch, tag)
+                if (compact != null) {
+                    for (b in packedParts) {
+                        DirectByteBufferPool.recycle(b.data)
+                    }
+                    batch = compact
+                }
+            }
+
+            result = batch
             outs.clear()
         } catch (t: Throwable) {
             error = t
@@ -17,6 +17,23 @@ internal data class BuiltBuffers(
 ) {
     internal fun isEmpty(): Boolean = byPass.isEmpty() && packedByPass.isEmpty() && gpuByPass.isEmpty()
 
+    /** Bytes retained by the contained buffers (builder capacity, packed parts and GPU draws). */
+    internal fun estimatedBytes(): Long {
+        var sum = 0L
+        for (b in byPass.values) {
+            sum += runCatching { b.byteBuffer.capacity().toLong() }.getOrDefault(0L)
+        }
+        for (batch in packedByPass.values) {
+            for (p in batch.parts) {
+                sum += p.data.capacity().toLong()
+            }
+        }
+        for (d in gpuByPass.values) {
+            sum += d.totalBytes.toLong()
+        }
+        return sum
+    }
+
     /**
      * Recycle all contained [BufferBuilder] instances back to the global pool.
      *
@@ -0,0 +1,322 @@
+package github.kasuminova.prototypemachinery.client.impl.render.task
+
+import github.kasuminova.prototypemachinery.client.util.DirectByteBufferPool
+import github.kasuminova.prototypemachinery.client.util.ReusableVboUploader
+import net.minecraft.client.renderer.GlStateManager
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats
+import net.minecraft.client.renderer.vertex.VertexFormat
+import net.minecraft.client.renderer.vertex.VertexFormatElement
+import org.lwjgl.opengl.GL11
+import org.lwjgl.opengl.GL12
+import java.nio.ByteBuffer
+
+/**
+ * De-quantization of one compact [PackedBucket]: `position = origin + q * positionScale`, `uv = q / UV_UNITS`.
+ *
+ * [sharedColor] is the RGBA color (red in the high byte) of every vertex in the batch, or null when colors are
+ * stored per vertex.
+ */
+internal class CompactPackedTransform(
+    internal val originX: Float,
+    internal val originY: Float,
+    internal val originZ: Float,
+    internal val positionScale: Float,
+    internal val sharedColor: Int?,
+)
+
+/**
+ * Compact GL layout for retained POSITION_TEX_COLOR_NORMAL packed buckets (28 bytes per vertex).
+ *
+ * Layout per vertex, read directly by the fixed-function pipeline:
+ * - position: 3 x GL_SHORT relative to the part's bounding-box center + 2 padding bytes (8 bytes)
+ * - uv: 2 x GL_SHORT in units of 1/[UV_UNITS] (4 bytes)
+ * - color: 4 x GL_UNSIGNED_BYTE, dropped when the whole batch shares one color (4 bytes)
+ * - normal: 3 x GL_BYTE + padding, unchanged (4 bytes)
+ *
+ * So 20 (or 16) bytes per vertex instead of 28. The de-quantization goes into the modelview / texture matrices
+ * ([withTransform]), so drawing needs no decode pass. Positions use one scale for all axes so normals only need
+ * GL_RESCALE_NORMAL. Quantization steps: under 0.004 blocks for the largest accepted extent, 1/32767 for UVs.
+ *
+ * Encoding runs the position quantization through the platform Gecko vertex pipeline's affine transform when
+ * present (vectorized via PositionTransformBackend on modern-backend), otherwise through a scalar loop.
+ */
+internal object CompactPackedVertices {
+
+    internal const val RAW_STRIDE = 28
+    internal const val STRIDE = 20
+    internal const val STRIDE_SHARED_COLOR = 16
+
+    internal const val UV_UNITS = 32767.0f
+    private const val POSITION_UNITS = 32767.0f
+
+    private const val RAW_U = 12
+    private const val RAW_V = 16
+    private const val RAW_COLOR = 20
+    private const val RAW_NORMAL = 24
+
+    // Vertices quantized per transform call; bounds the scratch arrays.
+    private const val CHUNK = 4096
+
+    internal fun strideOf(transform: CompactPackedTransform): Int =
+        if (transform.sharedColor != null) STRIDE_SHARED_COLOR else STRIDE
+
+    /** RGBA color shared by the first [vertexCount] raw vertices of [src], or null when they differ. */
+    internal fun sharedColor(src: ByteBuffer, vertexCount: Int): Int? {
+        if (vertexCount <= 0) return null
+        val first = src.getInt(RAW_COLOR)
+        for (i in 1 until vertexCount) {
+            if (src.getInt(i * RAW_STRIDE + RAW_COLOR) != first) return null
+        }
+        return ((src.get(RAW_COLOR).toInt() and 0xFF) shl 24) or
+            ((src.get(RAW_COLOR + 1).toInt() and 0xFF) shl 16) or
+            ((src.get(RAW_COLOR + 2).toInt() and 0xFF) shl 8) or
+            (src.get(RAW_COLOR + 3).toInt() and 0xFF)
+    }
+
+    /**
+     * Transform for the first [vertexCount] raw vertices of [src].
+     *
+     * Returns null when the part cannot be encoded (UVs outside [0, 1] or extent above [CompactVertexCodec.MAX_EXTENT]).
+     */
+    internal fun transformOf(src: ByteBuffer, vertexCount: Int, sharedColor: Int?): CompactPackedTransform? {
+        if (vertexCount <= 0) return null
+
+        var minX = Float.POSITIVE_INFINITY
+        var minY = Float.POSITIVE_INFINITY
+        var minZ = Float.POSITIVE_INFINITY
+        var maxX = Float.NEGATIVE_INFINITY
+        var maxY = Float.NEGATIVE_INFINITY
+        var maxZ = Float.NEGATIVE_INFINITY
+        for (i in 0 until vertexCount) {
+            val o = i * RAW_STRIDE
+            val u = src.getFloat(o + RAW_U)
+            val v = src.getFloat(o + RAW_V)
+            if (u !in 0.0f..1.0f || v !in 0.0f..1.0f) return null
+            val x = src.getFloat(o)
+            val y = src.getFloat(o + 4)
+            val z = src.getFloat(o + 8)
+            if (x < minX) minX = x
+            if (y < minY) minY = y
+            if (z < minZ) minZ = z
+            if (x > maxX) maxX = x
+            if (y > maxY) maxY = y
+            if (z > maxZ) maxZ = z
+        }
+
+        val extent = maxOf(maxX - minX, maxY - minY, maxZ - minZ)
+        if (!(extent <= CompactVertexCodec.MAX_EXTENT)) return null
+
+        val halfExtent = extent * 0.5f
+        return CompactPackedTransform(
+            originX = (minX + maxX) * 0.5f,
+            originY = (minY + maxY) * 0.5f,
+            originZ = (minZ + maxZ) * 0.5f,
+            positionScale = if (halfExtent > 0.0f) halfExtent / POSITION_UNITS else 1.0f,
+            sharedColor = sharedColor,
+        )
+    }
+
+    /** Encode the first [vertexCount] raw vertices of [src] into [out] (absolute writes from 0); returns bytes written. */
+    internal fun encodePart(src: ByteBuffer, vertexCount: Int, transform: CompactPackedTransform, out: ByteBuffer): Int {
+        val stride = strideOf(transform)
+        val perVertexColor = transform.sharedColor == null
+        val inv = 1.0f / transform.positionScale
+        val tx = -transform.originX * inv
+        val ty = -transform.originY * inv
+        val tz = -transform.originZ * inv
+
+        val s = CompactVertexCodec.scratch(minOf(vertexCount, CHUNK))
+        val xs = s.xs
+        val ys = s.ys
+        val zs = s.zs
+        val pipeline = CompactVertexCodec.pipeline
+
+        var start = 0
+        while (start < vertexCount) {
+            val n = minOf(CHUNK, vertexCount - start)
+            for (i in 0 until n) {
+                val o = (start + i) * RAW_STRIDE
+                xs[i] = src.getFloat(o)
+                ys[i] = src.getFloat(o + 4)
+                zs[i] = src.getFloat(o + 8)
+            }
+
+            val transformed = pipeline != null && pipeline.transformAffine3x4InPlace(
+                false,
+                xs, ys, zs,
+                0, n,
+                inv, 0f, 0f, tx,
+                0f, inv, 0f, ty,
+                0f, 0f, inv, tz,
+            )
+            if (!transformed) {
+                for (i in 0 until n) {
+                    xs[i] = xs[i] * inv + tx
+                    ys[i] = ys[i] * inv + ty
+                    zs[i] = zs[i] * inv + tz
+                }
+            }
+
+            for (i in 0 until n) {
+                val o = (start + i) * RAW_STRIDE
+                val d = (start + i) * stride
+                out.putShort(d, quantize(xs[i]))
+                out.putShort(d + 2, quantize(ys[i]))
+                out.putShort(d + 4, quantize(zs[i]))
+                out.putShort(d + 6, 0.toShort())
+                out.putShort(d + 8, quantize(src.getFloat(o + RAW_U) * UV_UNITS))
+                out.putShort(d + 10, quantize(src.getFloat(o + RAW_V) * UV_UNITS))
+                if (perVertexColor) {
+                    out.putInt(d + 12, src.getInt(o + RAW_COLOR))
+                    out.putInt(d + 16, src.getInt(o + RAW_NORMAL))
+                } else {
+                    out.putInt(d + 12, src.getInt(o + RAW_NORMAL))
+                }
+            }
+            start += n
+        }
+        return vertexCount * stride
+    }
+
+    /**
+     * Re-encode [batch] into freshly borrowed compact buffers.
+     *
+     * Returns null when the batch is not POSITION_TEX_COLOR_NORMAL or a part cannot be encoded. The source buffers
+     * are left untouched either way; on success the caller releases them.
+     */
+    internal fun encode(batch: PackedBucketBatch, tag: String): PackedBucketBatch? {
+        if (batch.format != DefaultVertexFormats.POSITION_TEX_COLOR_NORMAL || batch.parts.isEmpty()) return null
+
+        var shared: Int? = null
+        for ((i, p) in batch.parts.withIndex()) {
+            val c = sharedColor(p.data, p.vertexCount)
+            if (c == null || (i > 0 && c != shared)) {
+                shared = null
+                break
+            }
+            shared = c
+        }
+
+        val transforms = ArrayList<CompactPackedTransform>(batch.parts.size)
+        for (p in batch.parts) {
+            transforms += transformOf(p.data, p.vertexCount, shared) ?: return null
+        }
+
+        val format = if (shared != null) CompactPackedFormats.POSITION_TEX_NORMAL else CompactPackedFormats.POSITION_TEX_COLOR_NORMAL
+        val parts = ArrayList<PackedBucket>(batch.parts.size)
+        var totalBytes = 0
+        try {
+            for ((i, p) in batch.parts.withIndex()) {
+                val t = transforms[i]
+                val bytes = p.vertexCount * strideOf(t)
+                val out = DirectByteBufferPool.borrow(bytes, tag = tag, maxCapacityBytes = bytes + (bytes ushr 3))
+                out.clear()
+                encodePart(p.data, p.vertexCount, t, out)
+                out.limit(bytes)
+                parts += PackedBucket(
+                    format = format,
+                    drawMode = batch.drawMode,
+                    vertexCount = p.vertexCount,
+                    totalBytes = bytes,
+                    data = out,
+                    compact = t,
+                )
+                totalBytes += bytes
+            }
+        } catch (t: Throwable) {
+            for (p in parts) {
+                DirectByteBufferPool.recycle(p.data)
+            }
+            throw t
+        }
+
+        return PackedBucketBatch(
+            format = format,
+            drawMode = batch.drawMode,
+            parts = parts,
+            totalVertexCount = batch.totalVertexCount,
+            totalBytes = totalBytes,
+        )
+    }
+
+    /** Run [draw] with [transform]'s de-quantization applied (render thread only). */
+    internal inline fun withTransform(transform: CompactPackedTransform, draw: () -> Unit) {
+        GlStateManager.pushMatrix()
+        GlStateManager.translate(transform.originX, transform.originY, transform.originZ)
+        GlStateManager.scale(transform.positionScale, transform.positionScale, transform.positionScale)
+
+        GlStateManager.matrixMode(GL11.GL_TEXTURE)
+        GlStateManager.pushMatrix()
+        GlStateManager.scale(1.0f / UV_UNITS, 1.0f / UV_UNITS, 1.0f)
+        GlStateManager.matrixMode(GL11.GL_MODELVIEW)
+
+        val rescaleWasEnabled = GL11.glIsEnabled(GL12.GL_RESCALE_NORMAL)
+        if (!rescaleWasEnabled) GlStateManager.enableRescaleNormal()
+
+        val color = transform.sharedColor
+        if (color != null) {
+            GlStateManager.color(
+                ((color ushr 24) and 0xFF) / 255.0f,
+                ((color ushr 16) and 0xFF) / 255.0f,
+                ((color ushr 8) and 0xFF) / 255.0f,
+                (color and 0xFF) / 255.0f,
+            )
+        }
+
+        try {
+            draw()
+        } finally {
+            if (color != null) GlStateManager.color(1.0f, 1.0f, 1.0f, 1.0f)
+            if (!rescaleWasEnabled) GlStateManager.disableRescaleNormal()
+
+            GlStateManager.matrixMode(GL11.GL_TEXTURE)
+            GlStateManager.popMatrix()
+            GlStateManager.matrixMode(GL11.GL_MODELVIEW)
+            GlStateManager.popMatrix()
+        }
+    }
+
+    private fun quantize(value: Float): Short = Math.round(value).coerceIn(-32767, 32767).toShort()
+}
+
+/** Vertex formats of compact packed buckets; kept apart so the per-part helpers work without vertex format setup. */
+internal object CompactPackedFormats {
+
+    private val POSITION_3S = VertexFormatElement(0, VertexFormatElement.EnumType.SHORT, VertexFormatElement.EnumUsage.POSITION, 3)
+    private val PADDING_2B = VertexFormatElement(0, VertexFormatElement.EnumType.BYTE, VertexFormatElement.EnumUsage.PADDING, 2)
+    private val TEX_2S = VertexFormatElement(0, VertexFormatElement.EnumType.SHORT, VertexFormatElement.EnumUsage.UV, 2)
+
+    internal val POSITION_TEX_COLOR_NORMAL: VertexFormat = VertexFormat()
+        .addElement(POSITION_3S)
+        .addElement(PADDING_2B)
+        .addElement(TEX_2S)
+        .addElement(DefaultVertexFormats.COLOR_4UB)
+        .addElement(DefaultVertexFormats.NORMAL_3B)
+        .addElement(DefaultVertexFormats.PADDING_1B)
+
+    internal val POSITION_TEX_NORMAL: VertexFormat = VertexFormat()
+        .addElement(POSITION_3S)
+        .addElement(PADDING_2B)
+        .addElement(TEX_2S)
+        .addElement(DefaultVertexFormats.NORMAL_3B)
+        .addElement(DefaultVertexFormats.PADDING_1B)
+}
+
+/**
+ * Draw every part of [batch]; compact parts are drawn under their de-quantization transform.
+ *
+ * The caller has bound texture and lightmap.
+ */
+internal fun ReusableVboUploader.drawPackedParts(batch: PackedBucketBatch) {
+    for (p in batch.parts) {
+        if (p.vertexCount <= 0 || p.totalBytes <= 0) continue
+        val transform = p.compact
+        if (transform == null) {
+            drawMergedByteBuffer(batch.format, batch.drawMode, p.vertexCount, p.totalBytes, p.data)
+        } else {
+            CompactPackedVertices.withTransform(transform) {
+                drawMergedByteBuffer(p.format, p.drawMode, p.vertexCount, p.totalBytes, p.data)
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package github.kasuminova.prototypemachinery.client.impl.render.task
+
+import github.kasuminova.prototypemachinery.api.platform.PMGeckoVertexPipeline
+import github.kasuminova.prototypemachinery.impl.platform.PMPlatformManager
+import kotlin.math.roundToInt
+
+/**
+ * Compact, heap-resident encoding of POSITION_TEX_COLOR_NORMAL vertex data (7 ints / 28 bytes per vertex).
+ *
+ * Layout per vertex:
+ * - position: 3 x unsigned 16-bit fixed point relative to the block's bounding-box origin (6 bytes)
+ * - uv: 2 x unorm16 (4 bytes)
+ * - color / normal: one byte palette index each, or nothing when every vertex shares the value
+ *   (Gecko bakes use one color per model and a handful of face normals)
+ *
+ * So typically 12 bytes per vertex instead of 28. Colors and normals are lossless. Positions are quantized
+ * to 1/65535 of the block extent (under 0.004 blocks for the largest accepted extent), and UVs to 1/65535.
+ *
+ * Decoding expands to SoA arrays and packs through the platform [PMGeckoVertexPipeline] when present
+ * (vectorized via PositionTransformBackend on modern-backend), otherwise through a scalar loop.
+ */
+internal class CompactVertices internal constructor(
+    internal val vertexCount: Int,
+    private val originX: Float,
+    private val originY: Float,
+    private val originZ: Float,
+    private val scaleX: Float,
+    private val scaleY: Float,
+    private val scaleZ: Float,
+    private val positions: ShortArray,
+    private val uvs: ShortArray,
+    private val colors: PaletteAttribute,
+    private val normals: PaletteAttribute,
+) {
+
+    /** Number of ints [decode] writes. */
+    internal val intCount: Int
+        get() = vertexCount * CompactVertexCodec.INTS_PER_VERTEX
+
+    internal val bytes: Long = positions.size * 2L + uvs.size * 2L + colors.bytes + normals.bytes + OBJECT_OVERHEAD_BYTES
+
+    /** Write the vertices back in POSITION_TEX_COLOR_NORMAL int layout into [out] starting at [outOffset]. */
+    internal fun decode(out: IntArray, outOffset: Int = 0) {
+        val n = vertexCount
+        if (n <= 0) return
+        val s = CompactVertexCodec.scratch(n)
+        val xs = s.xs
+        val ys = s.ys
+        val zs = s.zs
+        val us = s.us
+        val vs = s.vs
+        for (i in 0 until n) {
+            val p = i * 3
+            xs[i] = (positions[p].toInt() and 0xFFFF).toFloat()
+            ys[i] = (positions[p + 1].toInt() and 0xFFFF).toFloat()
+            zs[i] = (positions[p + 2].toInt() and 0xFFFF).toFloat()
+            us[i] = (uvs[i * 2].toInt() and 0xFFFF) * INV_UNORM16
+            vs[i] = (uvs[i * 2 + 1].toInt() and 0xFFFF) * INV_UNORM16
+        }
+        colors.expand(s.colors, n)
+        normals.expand(s.normals, n)
+
+        val pipeline = CompactVertexCodec.pipeline
+        val packed = pipeline != null && pipeline.transformThenPackIntArray(
+            false,
+            xs, ys, zs, us, vs, s.colors, s.normals,
+            0, n,
+            scaleX, 0f, 0f, originX,
+            0f, scaleY, 0f, originY,
+            0f, 0f, scaleZ, originZ,
+            out, outOffset,
+        )
+        if (packed) return
+
+        var o = outOffset
+        for (i in 0 until n) {
+            out[o] = java.lang.Float.floatToRawIntBits(scaleX * xs[i] + originX)
+            out[o + 1] = java.lang.Float.floatToRawIntBits(scaleY * ys[i] + originY)
+            out[o + 2] = java.lang.Float.floatToRawIntBits(scaleZ * zs[i] + originZ)
+            out[o + 3] = java.lang.Float.floatToRawIntBits(us[i])
+            out[o + 4] = java.lang.Float.floatToRawIntBits(vs[i])
+            out[o + 5] = s.colors[i]
+            out[o + 6] = s.normals[i]
+            o += CompactVertexCodec.INTS_PER_VERTEX
+        }
+    }
+
+    private companion object {
+        private const val OBJECT_OVERHEAD_BYTES = 96L
+        private const val INV_UNORM16 = 1.0f / 65535.0f
+    }
+}
+
+/** A per-vertex int attribute stored as a palette plus byte indices (indices omitted for a single value). */
+internal class PaletteAttribute(private val palette: IntArray, private val indices: ByteArray?) {
+
+    internal val bytes: Long = palette.size * 4L + (indices?.size ?: 0)
+
+    internal fun expand(out: IntArray, count: Int) {
+        if (indices == null) {
+            java.util.Arrays.fill(out, 0, count, palette[0])
+            return
+        }
+        for (i in 0 until count) {
+            out[i] = palette[indices[i].toInt() and 0xFF]
+        }
+    }
+}
+
+internal object CompactVertexCodec {
+
+    internal const val INTS_PER_VERTEX = 7
+
+    /** Largest bounding-box extent (blocks) that is still encoded; larger blocks would lose too much precision. */
+    internal const val MAX_EXTENT = 256.0f
+
+    internal class Scratch(capacity: Int) {
+        val xs = FloatArray(capacity)
+        val ys = FloatArray(capacity)
+        val zs = FloatArray(capacity)
+        val us = FloatArray(capacity)
+        val vs = FloatArray(capacity)
+        val colors = IntArray(capacity)
+        val normals = IntArray(capacity)
+    }
+
+    private val scratch = ThreadLocal<Scratch>()
+
+    internal val pipeline: PMGeckoVertexPipeline? by lazy {
+        runCatching { PMPlatformManager.get().geckoVertexPipeline() }.getOrNull()
+    }
+
+    internal fun scratch(vertices: Int): Scratch {
+        val current = scratch.get()
+        if (current != null && current.xs.size >= vertices) return current
+        return Scratch(Integer.highestOneBit(maxOf(vertices, 64) - 1) shl 1).also(scratch::set)
+    }
+
+    /**
+     * Encode [lengthInts] ints of POSITION_TEX_COLOR_NORMAL data starting at [offsetInts].
+     *
+     * Returns null when the data cannot be represented compactly (UVs outside [0, 1], extent above [MAX_EXTENT],
+     * more than 256 distinct colors or normals); callers keep the raw ints then.
+     */
+    internal fun encode(src: IntArray, offsetInts: Int = 0, lengthInts: Int = src.size - offsetInts): CompactVertices? {
+        if (lengthInts <= 0 || lengthInts % INTS_PER_VERTEX != 0) return null
+        val n = lengthInts / INTS_PER_VERTEX
+
+        var minX = Float.POSITIVE_INFINITY
+        var minY = Float.POSITIVE_INFINITY
+        var minZ = Float.POSITIVE_INFINITY
+        var maxX = Float.NEGATIVE_INFINITY
+        var maxY = Float.NEGATIVE_INFINITY
+        var maxZ = Float.NEGATIVE_INFINITY
+        var o = offsetInts
+        for (i in 0 until n) {
+            val x = java.lang.Float.intBitsToFloat(src[o])
+            val y = java.lang.Float.intBitsToFloat(src[o + 1])
+            val z = java.lang.Float.intBitsToFloat(src[o + 2])
+            val u = java.lang.Float.intBitsToFloat(src[o + 3])
+            val v = java.lang.Float.intBitsToFloat(src[o + 4])
+            if (u !in 0.0f..1.0f || v !in 0.0f..1.0f) return null
+            if (x < minX) minX = x
+            if (y < minY) minY = y
+            if (z < minZ) minZ = z
+            if (x > maxX) maxX = x
+            if (y > maxY) maxY = y
+            if (z > maxZ) maxZ = z
+            o += INTS_PER_VERTEX
+        }
+        val extentX = maxX - minX
+        val extentY = maxY - minY
+        val extentZ = maxZ - minZ
+        if (!(extentX <= MAX_EXTENT && extentY <= MAX_EXTENT && extentZ <= MAX_EXTENT)) return null
+
+        val colors = paletteOf(src, offsetInts + 5, n) ?: return null
+        val normals = paletteOf(src, offsetInts + 6, n) ?: return null
+
+        val scaleX = extentX / 65535.0f
+        val scaleY = extentY / 65535.0f
+        val scaleZ = extentZ / 65535.0f
+        val positions = ShortArray(n * 3)
+        val uvs = ShortArray(n * 2)
+        o = offsetInts
+        for (i in 0 until n) {
+            positions[i * 3] = quantize(java.lang.Float.intBitsToFloat(src[o]), minX, scaleX)
+            positions[i * 3 + 1] = quantize(java.lang.Float.intBitsToFloat(src[o + 1]), minY, scaleY)
+            positions[i * 3 + 2] = quantize(java.lang.Float.intBitsToFloat(src[o + 2]), minZ, scaleZ)
+            uvs[i * 2] = (java.lang.Float.intBitsToFloat(src[o + 3]) * 65535.0f).roundToInt().toShort()
+            uvs[i * 2 + 1] = (java.lang.Float.intBitsToFloat(src[o + 4]) * 65535.0f).roundToInt().toShort()
+            o += INTS_PER_VERTEX
+        }
+
+        return CompactVertices(
+            vertexCount = n,
+            originX = minX,
+            originY = minY,
+            originZ = minZ,
+            scaleX = scaleX,
+            scaleY = scaleY,
+            scaleZ = scaleZ,
+            positions = positions,
+            uvs = uvs,
+            colors = colors,
+            normals = normals,
+        )
+    }
+
+    private fun quantize(value: Float, origin: Float, scale: Float): Short {
+        if (scale == 0.0f) return 0
+        return ((value - origin) / scale).roundToInt().coerceIn(0, 0xFFFF).toShort()
+    }
+
+    private fun paletteOf(src: IntArray, firstInt: Int, count: Int): PaletteAttribute? {
+        val first = src[firstInt]
+        var uniform = true
+        for (i in 1 until count) {
+            if (src[firstInt + i * INTS_PER_VERTEX] != first) {
+                uniform = false
+                break
+            }
+        }
+        if (uniform) return PaletteAttribute(intArrayOf(first), null)
+
+        val palette = IntArray(256)
+        var size = 0
+        val indices = ByteArray(count)
+        var last = 0
+        for (i in 0 until count) {
+            val value = src[firstInt + i * INTS_PER_VERTEX]
+            // Quads repeat their normal / color for 4 vertices in a row.
+            var index = if (size > 0 && palette[last] == value) last else -1
+            if (index < 0) for (p in 0 until size) {
+                if (palette[p] == value) {
+                    index = p
+                    break
+                }
+            }
+            if (index < 0) {
+                if (size == palette.size) return null
+                index = size
+                palette[size++] = value
+            }
+            indices[i] = index.toByte()
+            last = index
+        }
+        return PaletteAttribute(palette.copyOf(size), indices)
+    }
+}
@@ -1,6 +1,8 @@
 package github.kasuminova.prototypemachinery.client.impl.render.task
 
 import github.kasuminova.prototypemachinery.client.api.render.RenderPass
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
 import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
 import net.minecraft.client.renderer.OpenGlHelper
 import net.minecraft.client.renderer.vertex.VertexBuffer
@@ -18,8 +20,10 @@ import java.nio.ByteBuffer
  * IMPORTANT:
  * - All functions must be called on the Minecraft main thread (GL context owner).
  * - This is intentionally generic so future pipelines (e.g. OBJ) can reuse it.
+ * - Under [RenderCacheBudget], entries whose owner no longer has a render task (unloaded or evicted) and that
+ *   have not been written for a while are deleted.
  */
-internal object MappedVboWriteCache {
+internal object MappedVboWriteCache : BudgetedRenderCache {
 
     internal data class Key(
         val ownerKey: Any,
@@ -34,7 +38,11 @@ internal object MappedVboWriteCache {
         val format: VertexFormat,
         val drawMode: Int,
         var lastUsedFrameId: Int,
-    )
+    ) {
+        // Bytes reserved by the last glBufferData of each buffer.
+        var frontBytes: Int = 0
+        var backBytes: Int = 0
+    }
 
     internal data class Ticket(
         val key: Key,
@@ -47,6 +55,10 @@ internal object MappedVboWriteCache {
 
     private val map: MutableMap<Key, Entry> = HashMap()
 
+    init {
+        RenderCacheBudget.register(this)
+    }
+
     private fun glCaps(): ContextCapabilities = GLContext.getCapabilities()
 
     internal fun tryMapForWrite(key: Key, bytesWanted: Int): Ticket? {
@@ -91,6 +103,7 @@ internal object MappedVboWriteCache {
             // orphan + reserve
             val usage = GL15.GL_STREAM_DRAW
             GL15.glBufferData(OpenGlHelper.GL_ARRAY_BUFFER, bytesWanted.toLong(), usage)
+            entry.backBytes = bytesWanted
 
             val access = GL30.GL_MAP_WRITE_BIT or GL30.GL_MAP_INVALIDATE_BUFFER_BIT or GL30.GL_MAP_UNSYNCHRONIZED_BIT
             val mapped: ByteBuffer? = if (caps.OpenGL30) {
@@ -144,6 +157,9 @@ internal object MappedVboWriteCache {
         val tmp = entry.front
         entry.front = entry.back
         entry.back = tmp
+        val tmpBytes = entry.frontBytes
+        entry.frontBytes = entry.backBytes
+        entry.backBytes = tmpBytes
 
         return GpuBucketDraw(
             format = ticket.key.format,
@@ -164,4 +180,29 @@ internal object MappedVboWriteCache {
             runCatching { e.back.deleteGlBuffers() }
         }
     }
+
+    override val budgetName: String get() = "mappedVbo"
+
+    override val rebuildCost: Double get() = 0.5
+
+    override fun budgetBytes(): Long {
+        var sum = 0L
+        for (e in map.values) sum += e.frontBytes.toLong() + e.backBytes.toLong()
+        return sum
+    }
+
+    // A draw built from an entry stays in its owner's task, so only entries of task-less owners are evictable.
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        for ((key, e) in map) {
+            if (e.lastUsedFrameId >= idleBefore || RenderTaskCache.hasTask(key.ownerKey)) continue
+            out.add(key, e.lastUsedFrameId, e.frontBytes.toLong() + e.backBytes.toLong())
+        }
+    }
+
+    override fun evict(handle: Any): Long {
+        val e = map.remove(handle as? Key ?: return 0L) ?: return 0L
+        runCatching { e.front.deleteGlBuffers() }
+        runCatching { e.back.deleteGlBuffers() }
+        return e.frontBytes.toLong() + e.backBytes.toLong()
+    }
 }
@@ -2,7 +2,11 @@ package github.kasuminova.prototypemachinery.client.impl.render.task
 
 import github.kasuminova.prototypemachinery.client.api.render.RenderKey
 import github.kasuminova.prototypemachinery.client.api.render.Renderable
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
+import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
 import github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskCache.remove
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
 import java.util.concurrent.atomic.AtomicLong
 
 /**
@@ -11,8 +15,11 @@ import java.util.concurrent.atomic.AtomicLong
  * NOTE: We use a regular HashMap instead of WeakHashMap because our ownerKey is a data class
  * created on every frame. WeakHashMap would lose entries when the temporary key instance is GC'd,
  * even though equals() matches. Instead, we rely on explicit cleanup via [remove] when TEs unload.
+ *
+ * Under [RenderCacheBudget], owners not resolved for a while give up their built buffers (they rebuild on the
+ * next lookup).
  */
-internal object RenderTaskCache {
+internal object RenderTaskCache : BudgetedRenderCache {
 
     internal data class StatsSnapshot(
         val getOrSubmitCalls: Long,
@@ -24,6 +31,9 @@ internal object RenderTaskCache {
         val promotedNextCompatible: Long,
         val keptCurrentWhileNextBuilding: Long,
         val droppedNextDoneNotReady: Long,
+        val sharedCalls: Long,
+        val sharedFrameHits: Long,
+        val heldStale: Long,
     )
 
     private val getOrSubmitCalls = AtomicLong(0)
@@ -35,6 +45,9 @@ internal object RenderTaskCache {
     private val promotedNextCompatible = AtomicLong(0)
     private val keptCurrentWhileNextBuilding = AtomicLong(0)
     private val droppedNextDoneNotReady = AtomicLong(0)
+    private val sharedCalls = AtomicLong(0)
+    private val sharedFrameHits = AtomicLong(0)
+    private val heldStale = AtomicLong(0)
 
     internal fun statsSnapshot(): StatsSnapshot = StatsSnapshot(
         getOrSubmitCalls = getOrSubmitCalls.get(),
@@ -46,6 +59,9 @@ internal object RenderTaskCache {
         promotedNextCompatible = promotedNextCompatible.get(),
         keptCurrentWhileNextBuilding = keptCurrentWhileNextBuilding.get(),
         droppedNextDoneNotReady = droppedNextDoneNotReady.get(),
+        sharedCalls = sharedCalls.get(),
+        sharedFrameHits = sharedFrameHits.get(),
+        heldStale = heldStale.get(),
     )
 
     /**
@@ -64,14 +80,42 @@ internal object RenderTaskCache {
      */
     private val nextTasks: MutableMap<Any, RenderBuildTask> = HashMap()
 
+    /**
+     * One shared build: the canonical key instance (used as the task owner) plus its current users.
+     *
+     * [frameTask] memoizes the task resolved in [frameId], so every owner drawn in one frame gets the same buffers
+     * and a promotion cannot dispose buffers another owner has already queued for this frame.
+     */
+    private class SharedEntry(val key: SharedBuildKey) {
+        var users: Int = 0
+        var frameId: Int = 0
+        var frameTask: RenderBuildTask? = null
+    }
+
+    private val sharedEntries: MutableMap<SharedBuildKey, SharedEntry> = HashMap()
+
+    /** Shared entry currently used by each owner. */
+    private val sharedByOwner: MutableMap<Any, SharedEntry> = HashMap()
+
+    /** Frame in which each task owner (per-instance or shared) was last resolved; drives budget eviction. */
+    private val lastUsedFrame = Object2IntOpenHashMap<Any>()
+
+    init {
+        RenderCacheBudget.register(this)
+    }
+
     internal data class SizeSnapshot(
         val tasks: Int,
         val nextTasks: Int,
+        val sharedEntries: Int,
+        val sharedOwners: Int,
     )
 
     internal fun sizeSnapshot(): SizeSnapshot = SizeSnapshot(
         tasks = tasks.size,
         nextTasks = nextTasks.size,
+        sharedEntries = sharedEntries.size,
+        sharedOwners = sharedByOwner.size,
     )
 
     internal fun get(ownerKey: Any): RenderBuildTask? = tasks[ownerKey]
@@ -81,10 +125,12 @@ internal object RenderTaskCache {
     }
 
     internal fun remove(ownerKey: Any): RenderBuildTask? {
+        sharedByOwner.remove(ownerKey)?.let(::releaseShared)
         val n = nextTasks.remove(ownerKey)
         n?.clearBuilt()
         val t = tasks.remove(ownerKey)
         t?.clearBuilt()
+        lastUsedFrame.removeInt(ownerKey)
         return t
     }
 
@@ -98,8 +144,10 @@ internal object RenderTaskCache {
         val interned = RenderTaskOwnerKeys.removeByTe(te)
         if (interned.isNotEmpty()) {
             for (k in interned) {
+                sharedByOwner.remove(k)?.let(::releaseShared)
                 tasks.remove(k)?.clearBuilt()
                 nextTasks.remove(k)?.clearBuilt()
+                lastUsedFrame.removeInt(k)
             }
         }
 
@@ -122,8 +170,10 @@ internal object RenderTaskCache {
             }
         }
         keysToRemove.forEach { key ->
+            sharedByOwner.remove(key)?.let(::releaseShared)
             tasks.remove(key)?.clearBuilt()
             nextTasks.remove(key)?.clearBuilt()
+            lastUsedFrame.removeInt(key)
         }
     }
 
@@ -137,18 +187,143 @@ internal object RenderTaskCache {
         }
         tasks.clear()
         nextTasks.clear()
+        sharedEntries.clear()
+        sharedByOwner.clear()
+        lastUsedFrame.clear()
+    }
+
+    /** Whether [ownerKey] still has a current or next task (its side caches may still be in use). */
+    internal fun hasTask(ownerKey: Any): Boolean = tasks.containsKey(ownerKey) || nextTasks.containsKey(ownerKey)
+
+    override val budgetName: String get() = "tasks"
+
+    override val rebuildCost: Double get() = 1.0
+
+    override fun budgetBytes(): Long {
+        var sum = 0L
+        for (t in tasks.values) sum += t.takeBuilt()?.estimatedBytes() ?: 0L
+        for (t in nextTasks.values) sum += t.takeBuilt()?.estimatedBytes() ?: 0L
+        return sum
+    }
+
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        for ((owner, task) in tasks) {
+            val used = lastUsedFrame.getInt(owner)
+            if (used >= idleBefore || !isSettled(owner, task)) continue
+            out.add(owner, used, builtBytes(owner, task))
+        }
+    }
+
+    override fun evict(handle: Any): Long {
+        val task = tasks[handle] ?: return 0L
+        if (!isSettled(handle, task)) return 0L
+        val bytes = builtBytes(handle, task)
+        tasks.remove(handle)
+        task.clearBuilt()
+        nextTasks.remove(handle)?.clearBuilt()
+        lastUsedFrame.removeInt(handle)
+        if (handle is SharedBuildKey) {
+            val entry = sharedEntries[handle]
+            entry?.frameTask = null
+            // An entry warmed up for a band switch that never happened has no users to release it.
+            if (entry != null && entry.users == 0) sharedEntries.remove(handle)
+        }
+        return bytes
     }
 
+    // A task still building would publish its buffers after eviction and leak them.
+    private fun isSettled(owner: Any, task: RenderBuildTask): Boolean =
+        task.isDone && nextTasks[owner]?.isDone != false
+
+    private fun builtBytes(owner: Any, task: RenderBuildTask): Long =
+        (task.takeBuilt()?.estimatedBytes() ?: 0L) + (nextTasks[owner]?.takeBuilt()?.estimatedBytes() ?: 0L)
+
     /**
      * Get or create a task for this renderable.
      *
      * If an existing task is not ready for the current [Renderable.renderKey], a new task is created
      * because snapshot data (e.g., orientation) is baked into the task at creation time.
+     *
+     * With [hold] (render LOD), an owner that already has built buffers keeps them even if they are stale for
+     * [Renderable.renderKey]; a task is only submitted when nothing has been built yet.
+     */
+    internal fun getOrSubmit(renderable: Renderable, hold: Boolean = false, factory: () -> RenderBuildTask): RenderBuildTask =
+        getOrSubmit(renderable.ownerKey, renderable.renderKey, hold, factory)
+
+    /**
+     * Get or create the task shared by every owner with the same [sharedKey].
+     *
+     * [owner] is the per-instance key (as in [getOrSubmit]); it only holds a reference on the shared entry.
+     * [factory] receives the canonical shared owner, which the build task must use as its own owner key
+     * (so per-owner side caches such as model instances and animation runtimes are shared too).
+     * The built buffers must not contain world position; callers translate them at draw time.
+     *
+     * An owner crossing into another [SharedBuildKey.band] keeps drawing its old entry (held) until the new band's
+     * entry has built buffers, so the part does not blink out while the new band's first build runs.
      */
-    internal fun getOrSubmit(renderable: Renderable, factory: () -> RenderBuildTask): RenderBuildTask {
+    internal fun getOrSubmitShared(
+        owner: Any,
+        sharedKey: SharedBuildKey,
+        renderKey: RenderKey,
+        hold: Boolean = false,
+        factory: (sharedOwner: Any) -> RenderBuildTask,
+    ): RenderBuildTask {
+        sharedCalls.incrementAndGet()
+
+        val entry = sharedByOwner[owner]
+        if (entry != null && entry.key == sharedKey) return resolveShared(entry, renderKey, hold, factory)
+
+        if (entry != null && entry.key.sameContent(sharedKey)) {
+            if (hold) return resolveShared(entry, renderKey, true, factory)
+            val target = sharedEntries.getOrPut(sharedKey) { SharedEntry(sharedKey) }
+            if (resolveShared(target, renderKey, false, factory).takeBuilt() == null) {
+                return resolveShared(entry, renderKey, true, factory)
+            }
+        }
+
+        entry?.let(::releaseShared)
+        val target = sharedEntries.getOrPut(sharedKey) { SharedEntry(sharedKey) }
+        target.users++
+        sharedByOwner[owner] = target
+        return resolveShared(target, renderKey, hold, factory)
+    }
+
+    private fun resolveShared(
+        entry: SharedEntry,
+        renderKey: RenderKey,
+        hold: Boolean,
+        factory: (sharedOwner: Any) -> RenderBuildTask,
+    ): RenderBuildTask {
+        val frame = RenderFrameClock.getFrameId()
+        val memo = entry.frameTask
+        if (memo != null && entry.frameId == frame) {
+            sharedFrameHits.incrementAndGet()
+            return memo
+        }
+
+        val sharedOwner = entry.key
+        val task = getOrSubmit(sharedOwner, renderKey, hold) { factory(sharedOwner) }
+        // A held lookup must not become the frame's answer, or a nearby owner resolved later would never rebuild.
+        if (!hold) {
+            entry.frameId = frame
+            entry.frameTask = task
+        }
+        return task
+    }
+
+    private fun releaseShared(entry: SharedEntry) {
+        entry.users--
+        if (entry.users > 0) return
+        sharedEntries.remove(entry.key)
+        entry.frameTask = null
+        tasks.remove(entry.key)?.clearBuilt()
+        nextTasks.remove(entry.key)?.clearBuilt()
+        lastUsedFrame.removeInt(entry.key)
+    }
+
+    private fun getOrSubmit(owner: Any, key: RenderKey, hold: Boolean, factory: () -> RenderBuildTask): RenderBuildTask {
         getOrSubmitCalls.incrementAndGet()
-        val owner = renderable.ownerKey
-        val key: RenderKey = renderable.renderKey
+        lastUsedFrame.put(owner, RenderFrameClock.getFrameId())
 
         val current = tasks[owner]
 
@@ -172,6 +347,12 @@ internal object RenderTaskCache {
             return current
         }
 
+        // Held by LOD: keep the stale result instead of rebuilding for the new key.
+        if (hold && current.takeBuilt() != null) {
+            heldStale.incrementAndGet()
+            return current
+        }
+
         // Current task is done but stale.
         // If we have a next task building/ready, prefer switching when ready.
         val next = nextTasks[owner]
@@ -0,0 +1,36 @@
+package github.kasuminova.prototypemachinery.client.impl.render.task
+
+import github.kasuminova.prototypemachinery.client.api.render.RenderKey
+
+/**
+ * Content key for a render build that several owners may share.
+ *
+ * Two owners share a build only if everything that reaches the baked vertices is equal, so [content] must carry
+ * every build input except world position and implement structural equality (e.g. a position-free snapshot).
+ *
+ * Build it with [of], which clears the animation time fields of [renderKey]: the time selects *which frame* the shared
+ * entry currently holds (see [RenderBuildTask.isReadyFor]) and must not split the entry, otherwise every animation step
+ * would start a new entry and lose "render old while building new".
+ *
+ * [band] separates owners that sample the animation time at different rates (render LOD bands): they can never agree
+ * on one frame, so sharing an entry would hand whichever band resolves first to every other owner.
+ */
+internal data class SharedBuildKey(
+    internal val renderKey: RenderKey,
+    internal val content: Any,
+    internal val band: Int = 0,
+) {
+    /** Whether [other] bakes the same content and only differs in [band]. */
+    internal fun sameContent(other: SharedBuildKey): Boolean = renderKey == other.renderKey && content == other.content
+
+    internal companion object {
+        internal fun of(renderKey: RenderKey, content: Any, band: Int = 0): SharedBuildKey {
+            val base = if (renderKey.animationStateHash == 0 && renderKey.animationTimeKey == 0) {
+                renderKey
+            } else {
+                renderKey.copy(animationStateHash = 0, animationTimeKey = 0)
+            }
+            return SharedBuildKey(base, content, band)
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package github.kasuminova.prototypemachinery.client.impl.render.task
 
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
 import github.kasuminova.prototypemachinery.client.util.DirectByteBufferPool
 import net.minecraft.client.renderer.vertex.VertexFormat
 import java.nio.ByteBuffer
@@ -33,6 +34,7 @@ internal interface VertexWriteTarget : AutoCloseable {
 internal class PooledDirectVertexWriteTarget private constructor(
     override val byteBuffer: ByteBuffer,
     override val intBuffer: IntBuffer,
+    private val tag: String,
 ) : VertexWriteTarget {
 
     override fun sealToPackedBucketBatch(format: VertexFormat, drawMode: Int): PackedBucketBatch? {
@@ -62,14 +64,25 @@ internal class PooledDirectVertexWriteTarget private constructor(
             data = byteBuffer,
         )
 
-        // Ownership of byteBuffer transfers to PackedBucketBatch; it will be recycled via disposeToPool().
-        return PackedBucketBatch(
+        val batch = PackedBucketBatch(
             format = format,
             drawMode = drawMode,
             parts = listOf(part),
             totalVertexCount = vertexCount,
             totalBytes = bytes,
         )
+
+        // The borrowed buffer is sized from an estimate; a compact copy is both denser and tightly sized.
+        if (RenderTuning.packedVertexCompact) {
+            val compact = CompactPackedVertices.encode(batch, tag)
+            if (compact != null) {
+                close()
+                return compact
+            }
+        }
+
+        // Ownership of byteBuffer transfers to PackedBucketBatch; it will be recycled via disposeToPool().
+        return batch
     }
 
     override fun close() {
@@ -81,7 +94,7 @@ internal class PooledDirectVertexWriteTarget private constructor(
             val buf = DirectByteBufferPool.borrow(minBytes, tag = tag)
             buf.clear()
             val ints = buf.asIntBuffer()
-            return PooledDirectVertexWriteTarget(buf, ints)
+            return PooledDirectVertexWriteTarget(buf, ints, tag)
         }
     }
 }
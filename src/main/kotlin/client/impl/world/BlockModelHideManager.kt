@@ -6,6 +6,7 @@ import github.kasuminova.prototypemachinery.client.impl.render.binding.ClientRen
 import github.kasuminova.prototypemachinery.common.block.MachineBlock
 import github.kasuminova.prototypemachinery.common.block.entity.MachineBlockEntity
 import github.kasuminova.prototypemachinery.impl.machine.structure.StructureBlockPositions
+import github.kasuminova.prototypemachinery.impl.machine.structure.StructurePositionSet
 import github.kasuminova.prototypemachinery.impl.machine.structure.StructureRegistryImpl
 import github.kasuminova.prototypemachinery.impl.machine.structure.match.StructureMatchContextImpl
 import net.minecraft.client.Minecraft
@@ -45,6 +46,7 @@ internal object BlockModelHideManager {
         val orientationFront: EnumFacing,
         val orientationTop: EnumFacing,
         val lastRefreshAt: Long,
+        val positions: StructurePositionSet,
     )
 
     private val hiddenControllers: MutableMap<BlockPos, HiddenEntry> = HashMap()
@@ -116,9 +118,21 @@ internal object BlockModelHideManager {
                 continue
             }
 
-            val positions = StructureBlockPositions.collect(rootStructure, rootInstance, controllerPos).toMutableList()
+            val compact = StructureBlockPositions.collect(rootStructure, rootInstance, controllerPos)
+
+            // Unchanged since the last refresh: keep the registered list instead of re-registering it.
+            if (existing != null &&
+                existing.orientationFront == decision.front &&
+                existing.orientationTop == decision.top &&
+                existing.positions.contentEquals(compact)
+            ) {
+                hiddenControllers[controllerPos] = existing.copy(lastRefreshAt = now)
+                continue
+            }
+
+            val positions = compact.toBlockPosList()
             // Add controller position to the hide list - this is required for the hider to work properly.
-            if (!positions.contains(controllerPos)) {
+            if (controllerPos !in compact) {
                 positions.add(0, controllerPos)
             }
 
@@ -130,7 +144,7 @@ internal object BlockModelHideManager {
             }
 
             if (ComponentModelHiderBridge.addDisableModel(controllerPos, positions)) {
-                hiddenControllers[controllerPos] = HiddenEntry(decision.front, decision.top, now)
+                hiddenControllers[controllerPos] = HiddenEntry(decision.front, decision.top, now, compact)
             }
         }
 
@@ -0,0 +1,241 @@
+package github.kasuminova.prototypemachinery.client.preview
+
+import github.kasuminova.prototypemachinery.PrototypeMachinery
+import github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskExecutor
+import net.minecraft.util.math.BlockPos
+import java.lang.Math.floorDiv
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinTask
+
+/** A 16x16x16 group of preview blocks in relative structure space. / 相对结构空间中的 16³ 分块。 */
+internal data class ProjectionChunkKey(val cx: Int, val cy: Int, val cz: Int) {
+    internal companion object {
+        fun of(rel: BlockPos): ProjectionChunkKey = ProjectionChunkKey(
+            floorDiv(rel.x, ProjectionConfig.CHUNK_SIZE),
+            floorDiv(rel.y, ProjectionConfig.CHUNK_SIZE),
+            floorDiv(rel.z, ProjectionConfig.CHUNK_SIZE),
+        )
+    }
+}
+
+/**
+ * One chunk of a [ProjectionChunkMeshCache]: static bounds plus the currently uploaded mesh.
+ *
+ * 缓存中的一个分块：静态包围信息 + 当前已上传的网格。
+ */
+internal class ProjectionChunk<M : Any>(
+    val key: ProjectionChunkKey,
+    /** Indices into the session's entry list. / 会话条目列表中的下标。 */
+    val entryIndices: IntArray,
+    val centerX: Double,
+    val centerY: Double,
+    val centerZ: Double,
+    val radiusSq: Double,
+) {
+    /** Last uploaded mesh; stays drawable while a rebuild is in flight. / 最近上传的网格；重建期间继续绘制。 */
+    var mesh: M? = null
+        internal set
+
+    internal var built: Boolean = false
+    internal var dirty: Boolean = true
+    internal var pending: ProjectionChunkBuild<*>? = null
+}
+
+/**
+ * One background chunk build. An abandoned build hands its pooled buffers to [discarder] itself: right away if it
+ * already finished, otherwise when the worker completes it.
+ * 单个后台分块构建。被放弃的构建自行通过 [discarder] 归还池化缓冲：已完成则立即归还，否则在工作线程完成时归还。
+ */
+internal class ProjectionChunkBuild<B : Any>(
+    private val build: () -> B?,
+    private val discarder: (B) -> Unit,
+) : Callable<B?> {
+    val task: ForkJoinTask<B?> = ForkJoinTask.adapt(this)
+
+    private var abandoned = false
+    private var result: B? = null
+
+    override fun call(): B? {
+        val built = build()
+        synchronized(this) {
+            if (!abandoned) {
+                result = built
+                return built
+            }
+        }
+        built?.let(discarder)
+        return null
+    }
+
+    /** Render thread: take the finished result; the caller now owns its buffers. */
+    fun take(): B? = synchronized(this) { result.also { result = null } }
+
+    /** Render thread: drop this build and return its buffers to the pool. */
+    fun abandon() {
+        task.cancel(false)
+        val built = synchronized(this) {
+            abandoned = true
+            result.also { result = null }
+        }
+        built?.let(discarder)
+    }
+}
+
+/**
+ * Per-chunk mesh cache for one projected structure variant (structure / orientation / slice / render mode).
+ *
+ * 单个投影结构变体（结构 / 朝向 / 切片 / 渲染模式）的分块网格缓存。
+ *
+ * - Block statuses flip one at a time while the player builds; [markDirty] only schedules the affected chunk.
+ * - Geometry is built on [RenderTaskExecutor] from a status snapshot ([builder], worker thread) and uploaded on
+ *   the render thread ([uploader]), both throttled per frame by [update].
+ * - The previous mesh of a chunk keeps being drawn until its replacement is uploaded.
+ * - Resetting every status (anchor move, entries re-created) bumps the session's status epoch; a cache seeing a new
+ *   epoch rebuilds all chunks, since the per-entry flips it was built from no longer apply.
+ *
+ * - 玩家建造时方块状态逐个变化；[markDirty] 只安排受影响分块重建。
+ * - 网格由 [builder] 基于状态快照在 [RenderTaskExecutor] 上构建，再由 [uploader] 在渲染线程上传，二者均由 [update] 按帧限流。
+ * - 分块替换网格上传前继续绘制旧网格。
+ * - 所有状态被重置（锚点移动、条目重建）时会话状态纪元递增；缓存发现纪元变化后重建全部分块，因为之前的逐条翻转已不再适用。
+ *
+ * All methods except [builder] run on the render thread. / 除 [builder] 外均在渲染线程调用。
+ */
+internal class ProjectionChunkMeshCache<B : Any, M : Any>(
+    private val entries: List<WorldProjectionManager.Entry>,
+    private val builder: (entries: List<WorldProjectionManager.Entry>, indices: IntArray, statuses: Array<WorldProjectionManager.Status>) -> B?,
+    private val uploader: (B) -> M?,
+    private val releaser: (M) -> Unit,
+    /** Returns the pooled buffers of a build that will never be uploaded. / 归还不会再上传的构建所持有的池化缓冲。 */
+    private val discarder: (B) -> Unit,
+) {
+
+    val chunks: List<ProjectionChunk<M>>
+
+    private val byKey: Map<ProjectionChunkKey, ProjectionChunk<M>>
+
+    private var unbuilt: Int
+    private var inFlight: Int = 0
+    private var statusEpoch: Int = Int.MIN_VALUE
+
+    /** True once every chunk was built at least once. / 所有分块均至少构建过一次。 */
+    val ready: Boolean
+        get() = unbuilt == 0
+
+    init {
+        val groups = LinkedHashMap<ProjectionChunkKey, MutableList<Int>>()
+        for ((i, e) in entries.withIndex()) {
+            groups.computeIfAbsent(ProjectionChunkKey.of(e.rel)) { ArrayList() }.add(i)
+        }
+
+        val list = ArrayList<ProjectionChunk<M>>(groups.size)
+        for ((ck, indices) in groups) {
+            // Compute bounds in relative space.
+            var minX = Int.MAX_VALUE
+            var minY = Int.MAX_VALUE
+            var minZ = Int.MAX_VALUE
+            var maxX = Int.MIN_VALUE
+            var maxY = Int.MIN_VALUE
+            var maxZ = Int.MIN_VALUE
+            for (i in indices) {
+                val p = entries[i].rel
+                if (p.x < minX) minX = p.x
+                if (p.y < minY) minY = p.y
+                if (p.z < minZ) minZ = p.z
+                if (p.x > maxX) maxX = p.x
+                if (p.y > maxY) maxY = p.y
+                if (p.z > maxZ) maxZ = p.z
+            }
+
+            // Radius squared to approximate sphere for distance culling.
+            val rx = (maxX + 1 - minX) * 0.5
+            val ry = (maxY + 1 - minY) * 0.5
+            val rz = (maxZ + 1 - minZ) * 0.5
+            list.add(
+                ProjectionChunk(
+                    key = ck,
+                    entryIndices = indices.toIntArray(),
+                    centerX = (minX.toDouble() + (maxX + 1).toDouble()) * 0.5,
+                    centerY = (minY.toDouble() + (maxY + 1).toDouble()) * 0.5,
+                    centerZ = (minZ.toDouble() + (maxZ + 1).toDouble()) * 0.5,
+                    radiusSq = rx * rx + ry * ry + rz * rz,
+                )
+            )
+        }
+        // Stable order: keep insertion order for cursor-based rendering.
+        chunks = list
+        byKey = list.associateBy { it.key }
+        unbuilt = list.size
+    }
+
+    fun markDirty(key: ProjectionChunkKey) {
+        byKey[key]?.dirty = true
+    }
+
+    fun markAllDirty() {
+        for (c in chunks) c.dirty = true
+    }
+
+    /**
+     * Upload finished builds and submit dirty chunks, within the per-frame budgets.
+     * [statusEpoch] changes whenever [statuses] were reset as a whole; every chunk is then rebuilt.
+     *
+     * 在每帧预算内上传已完成的构建并提交脏分块。[statuses] 被整体重置时 [statusEpoch] 会变化，此时重建全部分块。
+     */
+    fun update(statuses: Array<WorldProjectionManager.Status>, statusEpoch: Int, maxUploads: Int, maxInFlight: Int) {
+        if (statusEpoch != this.statusEpoch) {
+            this.statusEpoch = statusEpoch
+            markAllDirty()
+        }
+
+        var uploads = 0
+        for (c in chunks) {
+            @Suppress("UNCHECKED_CAST")
+            val build = c.pending as ProjectionChunkBuild<B>? ?: continue
+            val task = build.task
+            if (!task.isDone || uploads >= maxUploads) continue
+            c.pending = null
+            inFlight--
+            uploads++
+            val result = if (task.isCompletedNormally) build.take() else {
+                PrototypeMachinery.logger.warn("World projection chunk build failed: ${c.key}", task.exception)
+                null
+            }
+            val next = result?.let(uploader)
+            c.mesh?.let(releaser)
+            c.mesh = next
+            if (!c.built) {
+                c.built = true
+                unbuilt--
+            }
+        }
+
+        if (inFlight >= maxInFlight) return
+        for (c in chunks) {
+            if (!c.dirty || c.pending != null) continue
+            if (inFlight >= maxInFlight) break
+            c.dirty = false
+            val snapshot = Array(c.entryIndices.size) { i ->
+                statuses.getOrElse(c.entryIndices[i]) { WorldProjectionManager.Status.UNKNOWN }
+            }
+            val indices = c.entryIndices
+            val build = ProjectionChunkBuild({ builder(entries, indices, snapshot) }, discarder)
+            RenderTaskExecutor.submit(build.task)
+            c.pending = build
+            inFlight++
+        }
+    }
+
+    /**
+     * Release uploaded meshes and abandon in-flight builds, returning their buffers to the pool.
+     * 释放已上传网格并放弃进行中的构建，归还其池化缓冲。
+     */
+    fun release() {
+        for (c in chunks) {
+            c.pending?.abandon()
+            c.pending = null
+            c.mesh?.let { runCatching { releaser(it) } }
+            c.mesh = null
+        }
+        inFlight = 0
+    }
+}
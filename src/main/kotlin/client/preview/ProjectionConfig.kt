@@ -18,6 +18,12 @@ internal object ProjectionConfig {
     /** Maximum chunks rendered per frame in VBO mode. / VBO 模式下每帧最多渲染多少分块。 */
     const val MAX_CHUNKS_RENDER_PER_FRAME: Int = 96
 
+    /** Maximum chunk meshes uploaded per frame after async rebuilds. / 每帧最多上传多少个异步重建完成的分块网格。 */
+    const val MAX_CHUNK_UPLOADS_PER_FRAME: Int = 16
+
+    /** Maximum chunk mesh rebuilds in flight on the render build executor. / 渲染构建线程池上同时进行的分块重建上限。 */
+    const val MAX_CHUNK_BUILDS_IN_FLIGHT: Int = 8
+
     /** Default render distance (blocks). / 默认渲染距离（格）。 */
     const val DEFAULT_MAX_RENDER_DISTANCE: Double = 64.0
 
@@ -60,6 +66,9 @@ internal object ProjectionConfig {
     /** LRU capacity for block model render cache (slower to build). / 方块模型渲染缓存的 LRU 容量。 */
     const val BLOCK_MODEL_CACHE_SIZE: Int = 8
 
+    /** Byte budget of uploaded preview UI meshes kept across UI openings. / 跨 UI 打开保留的预览网格字节预算。 */
+    const val PREVIEW_MESH_CACHE_MAX_BYTES: Long = 96L * 1024L * 1024L
+
     // ====== Chunk Size ======
 
     /** Chunk dimensions (both in relative structure space). / 分块尺寸（在相对结构空间中）。 */
@@ -55,6 +55,14 @@ internal data class StructureProjectionSession(
     var entries: List<WorldProjectionManager.Entry> = emptyList()
     var statuses: Array<WorldProjectionManager.Status> = emptyArray()
     var statusCursor: Int = 0
+
+    /**
+     * Changes whenever [statuses] are reset as a whole, so chunk mesh caches built from earlier statuses rebuild.
+     * Values are unique across sessions, since render caches outlive the session that created them.
+     * 每当 [statuses] 被整体重置时改变，使基于旧状态构建的分块网格缓存重建。
+     * 取值在会话之间也唯一，因为渲染缓存的生命周期长于创建它的会话。
+     */
+    var statusEpoch: Int = nextStatusEpoch()
     var renderCursor: Int = 0
     var chunkRenderCursor: Int = 0
 
@@ -69,6 +77,7 @@ internal data class StructureProjectionSession(
         entries = emptyList()
         statuses = emptyArray()
         statusCursor = 0
+        statusEpoch = nextStatusEpoch()
         renderCursor = 0
         chunkRenderCursor = 0
     }
@@ -76,6 +85,7 @@ internal data class StructureProjectionSession(
     fun invalidateStatuses() {
         statuses = Array(entries.size) { WorldProjectionManager.Status.UNKNOWN }
         statusCursor = 0
+        statusEpoch = nextStatusEpoch()
     }
 
     fun ensureEntries(model: StructurePreviewModel) {
@@ -85,7 +95,15 @@ internal data class StructureProjectionSession(
         }
         statuses = Array(entries.size) { WorldProjectionManager.Status.UNKNOWN }
         statusCursor = 0
+        statusEpoch = nextStatusEpoch()
         renderCursor = 0
         chunkRenderCursor = 0
     }
+
+    private companion object {
+        // Client thread only. / 仅在客户端主线程访问。
+        private var epochCounter: Int = 0
+
+        fun nextStatusEpoch(): Int = ++epochCounter
+    }
 }
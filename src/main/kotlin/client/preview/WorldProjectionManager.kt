@@ -34,7 +34,6 @@ import net.minecraftforge.fml.common.gameevent.InputEvent
 import net.minecraftforge.fml.common.gameevent.TickEvent
 import org.lwjgl.input.Keyboard
 import org.lwjgl.opengl.GL11
-import java.lang.Math.floorDiv
 import java.nio.ByteOrder
 import java.util.EnumMap
 
@@ -52,43 +51,40 @@ internal object WorldProjectionManager {
     private data class CacheKey(
         val structureId: String,
         val orientation: StructureOrientation,
-        val sliceCount: Int
+        val sliceCount: Int,
+        val renderMode: ProjectionRenderMode
     )
 
-    private data class ChunkKey(val cx: Int, val cy: Int, val cz: Int)
-
-    private data class ChunkMesh(
-        val key: ChunkKey,
-        val centerX: Double,
-        val centerY: Double,
-        val centerZ: Double,
-        val radiusSq: Double,
-        val vbo: VertexBuffer,
-        val approxBlockCount: Int
-    )
-
-    private data class BlockModelChunkMesh(
-        val key: ChunkKey,
-        val centerX: Double,
-        val centerY: Double,
-        val centerZ: Double,
-        val radiusSq: Double,
+    private class BlockModelMesh(
         val solid: VertexBuffer?,
         val cutoutMipped: VertexBuffer?,
         val cutout: VertexBuffer?,
-        val translucent: VertexBuffer?,
-        val approxBlockCount: Int
-    )
+        val translucent: VertexBuffer?
+    ) {
+        fun delete() {
+            runCatching { solid?.deleteGlBuffers() }
+            runCatching { cutoutMipped?.deleteGlBuffers() }
+            runCatching { cutout?.deleteGlBuffers() }
+            runCatching { translucent?.deleteGlBuffers() }
+        }
+    }
 
-    private data class RenderCache(
+    /** Chunk meshes are rebuilt per chunk from block statuses; [model] guards against entry index drift. */
+    private class RenderCache(
         val key: CacheKey,
-        val meshes: List<ChunkMesh>
-    )
+        val model: StructurePreviewModel,
+        val chunks: ProjectionChunkMeshCache<BufferBuilder, VertexBuffer>
+    ) {
+        var released = false
+    }
 
-    private data class BlockModelRenderCache(
+    private class BlockModelRenderCache(
         val key: CacheKey,
-        val meshes: List<BlockModelChunkMesh>
-    )
+        val model: StructurePreviewModel,
+        val chunks: ProjectionChunkMeshCache<EnumMap<BlockRenderLayer, BufferBuilder>, BlockModelMesh>
+    ) {
+        var released = false
+    }
 
     internal data class Entry(
         val rel: BlockPos,
@@ -101,14 +97,22 @@ internal object WorldProjectionManager {
     private val renderCache = LinkedHashMap<CacheKey, RenderCache>(16, 0.75f, true)
     private val blockModelRenderCache = LinkedHashMap<CacheKey, BlockModelRenderCache>(8, 0.75f, true)
 
+    // Last drawn caches: kept on screen while the cache of a new orientation is still building.
+    private var lastGhostCache: RenderCache? = null
+    private var lastBlockModelCache: BlockModelRenderCache? = null
+
     private var session: StructureProjectionSession? = null
 
     fun start(newSession: StructureProjectionSession) {
         session = newSession.copy()
+        lastGhostCache = null
+        lastBlockModelCache = null
     }
 
     fun stop() {
         session = null
+        lastGhostCache = null
+        lastBlockModelCache = null
     }
 
     /**
@@ -117,23 +121,14 @@ internal object WorldProjectionManager {
      */
     fun onStructuresReloaded() {
         // Release GL resources held by caches.
-        for (c in renderCache.values) {
-            for (m in c.meshes) {
-                runCatching { m.vbo.deleteGlBuffers() }
-            }
-        }
-        for (c in blockModelRenderCache.values) {
-            for (m in c.meshes) {
-                runCatching { m.solid?.deleteGlBuffers() }
-                runCatching { m.cutoutMipped?.deleteGlBuffers() }
-                runCatching { m.cutout?.deleteGlBuffers() }
-                runCatching { m.translucent?.deleteGlBuffers() }
-            }
-        }
+        renderCache.values.forEach(::release)
+        blockModelRenderCache.values.forEach(::release)
 
         modelCache.clear()
         renderCache.clear()
         blockModelRenderCache.clear()
+        lastGhostCache = null
+        lastBlockModelCache = null
 
         session?.let {
             it.modelDirty = true
@@ -262,13 +257,42 @@ internal object WorldProjectionManager {
                 }
             }
 
-            s.statuses[idx] = status
+            val old = s.statuses[idx]
+            if (old != status) {
+                s.statuses[idx] = status
+                onStatusChanged(s, entry, old, status)
+            }
 
             s.statusCursor++
             checks++
         }
     }
 
+    /**
+     * Mark the chunk of [entry] dirty in the active mesh caches when the status change is visible there.
+     *
+     * 状态变化会影响网格时，将 [entry] 所在分块在当前网格缓存中标脏。
+     */
+    private fun onStatusChanged(s: StructureProjectionSession, entry: Entry, old: Status, new: Status) {
+        val matchFlip = (old == Status.MATCH) != (new == Status.MATCH)
+        val unloadedFlip = (old == Status.UNLOADED) != (new == Status.UNLOADED)
+        val mismatchOnly = s.renderMode == ProjectionRenderMode.MISMATCH_ONLY
+        val ghostDirty = unloadedFlip || (mismatchOnly && matchFlip)
+        val blockModelDirty = mismatchOnly && matchFlip
+        if (!ghostDirty && !blockModelDirty) return
+
+        val key = cacheKeyOf(s)
+        val ck = ProjectionChunkKey.of(entry.rel)
+        if (ghostDirty) renderCache[key]?.let { if (it.model === s.cachedModel) it.chunks.markDirty(ck) }
+        if (blockModelDirty) blockModelRenderCache[key]?.let { if (it.model === s.cachedModel) it.chunks.markDirty(ck) }
+    }
+
+    private fun cacheKeyOf(s: StructureProjectionSession): CacheKey {
+        val orientation = s.currentOrientation ?: s.lockedOrientation ?: StructureOrientation(EnumFacing.NORTH, EnumFacing.UP)
+        val slice = s.sliceCountOverride ?: s.defaultSliceCount
+        return CacheKey(s.structureId, orientation, slice, s.renderMode)
+    }
+
     @SubscribeEvent
     fun onRenderWorldLast(event: RenderWorldLastEvent) {
         val s = session ?: return
@@ -290,14 +314,15 @@ internal object WorldProjectionManager {
 
         // Special path: textured block models.
         if (s.visualMode == ProjectionVisualMode.BLOCK_MODEL) {
-            // VBO cached path only for ALL (static requirement geometry). For MISMATCH_ONLY we need per-block filtering.
-            if (s.renderMode == ProjectionRenderMode.ALL && OpenGlHelper.useVbo()) {
-                val orientation = s.currentOrientation ?: s.lockedOrientation ?: StructureOrientation(EnumFacing.NORTH, EnumFacing.UP)
-                val slice = s.sliceCountOverride ?: s.defaultSliceCount
-                val key = CacheKey(s.structureId, orientation, slice)
-                val cache = ensureBlockModelRenderCacheLoaded(key, model)
+            // VBO cached path: per-chunk meshes built from statuses (MISMATCH_ONLY filters per block), rebuilt per dirty chunk.
+            if (OpenGlHelper.useVbo()) {
+                val cache = ensureBlockModelRenderCacheLoaded(cacheKeyOf(s), model, s)
                 if (cache != null) {
-                    renderBlockModelVboChunks(s, cache, camX, camY, camZ, maxDistSq)
+                    // Keep drawing the previous variant (e.g. old orientation) until the new one is fully built.
+                    val last = lastBlockModelCache
+                    val draw = if (!cache.chunks.ready && last != null && !last.released && last.key.structureId == cache.key.structureId) last else cache
+                    if (draw === cache) lastBlockModelCache = cache
+                    renderBlockModelVboChunks(s, draw, camX, camY, camZ, maxDistSq)
                     return
                 }
             }
@@ -308,14 +333,15 @@ internal object WorldProjectionManager {
         }
 
         // Fast path: VBO cached ghost rendering.
-        // Only enabled for renderMode=ALL because VBO is built from requirements (static), not dynamic statuses.
-        if (s.renderMode == ProjectionRenderMode.ALL && s.visualMode != ProjectionVisualMode.OUTLINE && OpenGlHelper.useVbo()) {
-            val orientation = s.currentOrientation ?: s.lockedOrientation ?: StructureOrientation(EnumFacing.NORTH, EnumFacing.UP)
-            val slice = s.sliceCountOverride ?: s.defaultSliceCount
-            val key = CacheKey(s.structureId, orientation, slice)
-            val cache = ensureRenderCacheLoaded(key, model)
+        // Chunk meshes follow block statuses (MISMATCH_ONLY filtering, unloaded tint); only dirty chunks are rebuilt.
+        if (s.visualMode != ProjectionVisualMode.OUTLINE && OpenGlHelper.useVbo()) {
+            val cache = ensureRenderCacheLoaded(cacheKeyOf(s), model, s)
             if (cache != null) {
-                renderGhostVboChunks(s, cache, camX, camY, camZ, maxDistSq)
+                // Keep drawing the previous variant (e.g. old orientation) until the new one is fully built.
+                val last = lastGhostCache
+                val draw = if (!cache.chunks.ready && last != null && !last.released && last.key.structureId == cache.key.structureId) last else cache
+                if (draw === cache) lastGhostCache = cache
+                renderGhostVboChunks(s, draw, camX, camY, camZ, maxDistSq)
 
                 // If BOTH, we still draw outlines in immediate mode (debug helper) after VBO pass.
                 if (s.visualMode != ProjectionVisualMode.BOTH) {
@@ -572,157 +598,132 @@ internal object WorldProjectionManager {
         GlStateManager.popMatrix()
     }
 
-    private fun ensureBlockModelRenderCacheLoaded(key: CacheKey, model: StructurePreviewModel): BlockModelRenderCache? {
-        blockModelRenderCache[key]?.let { return it }
-        if (!OpenGlHelper.useVbo()) return null
-
-        val built = buildBlockModelRenderCache(key, model)
-        blockModelRenderCache[key] = built
-
-        // LRU cap (separate from ghost cache)
-        if (blockModelRenderCache.size > 8) {
-            val it = blockModelRenderCache.entries.iterator()
-            if (it.hasNext()) {
-                val evicted = it.next().value
-                it.remove()
-                evicted.meshes.forEach { mesh ->
-                    listOf(mesh.solid, mesh.cutoutMipped, mesh.cutout, mesh.translucent).forEach { vbo ->
-                        if (vbo != null) {
-                            try {
-                                vbo.deleteGlBuffers()
-                            } catch (_: Throwable) {
-                                // ignore
-                            }
-                        }
-                    }
+    private fun ensureBlockModelRenderCacheLoaded(key: CacheKey, model: StructurePreviewModel, s: StructureProjectionSession): BlockModelRenderCache? {
+        var cache = blockModelRenderCache[key]
+        if (cache != null && cache.model !== model) {
+            blockModelRenderCache.remove(key)
+            release(cache)
+            cache = null
+        }
+        if (cache == null) {
+            if (!OpenGlHelper.useVbo()) return null
+
+            val renderMode = key.renderMode
+            cache = BlockModelRenderCache(
+                key,
+                model,
+                ProjectionChunkMeshCache(
+                    entries = s.entries,
+                    builder = { entries, indices, statuses -> buildBlockModelChunk(renderMode, entries, indices, statuses) },
+                    uploader = ::uploadBlockModelChunk,
+                    releaser = BlockModelMesh::delete,
+                    discarder = { layerBuffers -> layerBuffers.values.forEach(BufferBuilderPool::recycle) }
+                )
+            )
+            blockModelRenderCache[key] = cache
+
+            // LRU cap (separate from ghost cache)
+            if (blockModelRenderCache.size > ProjectionConfig.BLOCK_MODEL_CACHE_SIZE) {
+                val it = blockModelRenderCache.entries.iterator()
+                if (it.hasNext()) {
+                    val evicted = it.next().value
+                    it.remove()
+                    release(evicted)
                 }
             }
         }
 
-        return built
+        cache.chunks.update(s.statuses, s.statusEpoch, ProjectionConfig.MAX_CHUNK_UPLOADS_PER_FRAME, ProjectionConfig.MAX_CHUNK_BUILDS_IN_FLIGHT)
+        return cache
     }
 
-    private fun buildBlockModelRenderCache(key: CacheKey, model: StructurePreviewModel): BlockModelRenderCache {
+    private fun release(cache: BlockModelRenderCache) {
+        cache.released = true
+        cache.chunks.release()
+    }
+
+    /** Worker thread: bake one chunk into per-layer buffers (finished, alpha applied). Null when empty. */
+    private fun buildBlockModelChunk(
+        renderMode: ProjectionRenderMode,
+        entries: List<Entry>,
+        indices: IntArray,
+        statuses: Array<Status>
+    ): EnumMap<BlockRenderLayer, BufferBuilder>? {
         val mc = Minecraft.getMinecraft()
         val shapes = mc.blockRendererDispatcher.blockModelShapes
         val blockColors = mc.blockColors
 
-        // Group by 16x16x16 relative chunks.
-        val groups = LinkedHashMap<ChunkKey, MutableList<Entry>>()
-        for ((rel, req) in model.blocks) {
-            val ck = ChunkKey(floorDiv(rel.x, 16), floorDiv(rel.y, 16), floorDiv(rel.z, 16))
-            groups.computeIfAbsent(ck) { mutableListOf() }.add(Entry(rel, req))
-        }
-
         val overlayAlphaMul = ProjectionConfig.BLOCK_MODEL_OVERLAY_ALPHA
         val fullBright = ProjectionConfig.FULLBRIGHT_LIGHTMAP_UV
-        val layers = arrayOf(
-            BlockRenderLayer.SOLID,
-            BlockRenderLayer.CUTOUT_MIPPED,
-            BlockRenderLayer.CUTOUT,
-            BlockRenderLayer.TRANSLUCENT
-        )
 
-        val meshes = ArrayList<BlockModelChunkMesh>(groups.size)
-        for ((ck, entries) in groups) {
-            // Compute bounds in relative space.
-            var minX = Int.MAX_VALUE
-            var minY = Int.MAX_VALUE
-            var minZ = Int.MAX_VALUE
-            var maxX = Int.MIN_VALUE
-            var maxY = Int.MIN_VALUE
-            var maxZ = Int.MIN_VALUE
-            for (e in entries) {
-                val p = e.rel
-                if (p.x < minX) minX = p.x
-                if (p.y < minY) minY = p.y
-                if (p.z < minZ) minZ = p.z
-                if (p.x > maxX) maxX = p.x
-                if (p.y > maxY) maxY = p.y
-                if (p.z > maxZ) maxZ = p.z
-            }
-
-            val centerX = (minX.toDouble() + (maxX + 1).toDouble()) * 0.5
-            val centerY = (minY.toDouble() + (maxY + 1).toDouble()) * 0.5
-            val centerZ = (minZ.toDouble() + (maxZ + 1).toDouble()) * 0.5
-
-            val rx = (maxX + 1 - minX) * 0.5
-            val ry = (maxY + 1 - minY) * 0.5
-            val rz = (maxZ + 1 - minZ) * 0.5
-            val radiusSq = rx * rx + ry * ry + rz * rz
-
-            // Build one VBO per render layer. Many models (e.g. MultiLayerModel) will filter quads by layer.
-            val layerBuffers = EnumMap<BlockRenderLayer, BufferBuilder>(BlockRenderLayer::class.java)
-            fun bufferFor(layer: BlockRenderLayer): BufferBuilder {
-                return layerBuffers.getOrPut(layer) {
-                    BufferBuilderPool.borrow(1 shl 19, tag = "WorldProjection.blockModel.$layer").also {
-                        it.begin(GL11.GL_QUADS, DefaultVertexFormats.BLOCK)
-                    }
+        // Build one buffer per render layer. Many models (e.g. MultiLayerModel) will filter quads by layer.
+        val layerBuffers = EnumMap<BlockRenderLayer, BufferBuilder>(BlockRenderLayer::class.java)
+        fun bufferFor(layer: BlockRenderLayer): BufferBuilder {
+            return layerBuffers.getOrPut(layer) {
+                BufferBuilderPool.borrow(1 shl 19, tag = "WorldProjection.blockModel.$layer").also {
+                    it.begin(GL11.GL_QUADS, DefaultVertexFormats.BLOCK)
                 }
             }
+        }
 
-            try {
-                for (e in entries) {
-                    val state = stateFromRequirement(e.requirement) ?: continue
-                    val baked = shapes.getModelForState(state)
-                    val block = state.block
-
-                    // Deterministic seed based on relative position (anchor-independent).
-                    val seedPos = BlockPos(e.rel.x, e.rel.y, e.rel.z)
-                    val baseSeed = MathHelper.getPositionRandom(seedPos)
-
-                    for (layer in layers) {
-                        if (!block.canRenderInLayer(state, layer)) continue
-                        ForgeHooksClient.setRenderLayer(layer)
-                        val buf = bufferFor(layer)
-
-                        emitBakedQuads(buf, baked.getQuads(state, null, baseSeed), state, blockColors, fullBright, e.rel)
-                        for (face in EnumFacing.values()) {
-                            val seed = baseSeed + face.index.toLong() * 1315423911L
-                            emitBakedQuads(buf, baked.getQuads(state, face, seed), state, blockColors, fullBright, e.rel)
-                        }
+        try {
+            for (i in indices.indices) {
+                if (renderMode == ProjectionRenderMode.MISMATCH_ONLY && statuses[i] == Status.MATCH) continue
+                val e = entries[indices[i]]
+                val state = stateFromRequirement(e.requirement) ?: continue
+                val baked = shapes.getModelForState(state)
+                val block = state.block
+
+                // Deterministic seed based on relative position (anchor-independent).
+                val seedPos = BlockPos(e.rel.x, e.rel.y, e.rel.z)
+                val baseSeed = MathHelper.getPositionRandom(seedPos)
+
+                for (layer in BLOCK_LAYERS) {
+                    if (!block.canRenderInLayer(state, layer)) continue
+                    ForgeHooksClient.setRenderLayer(layer)
+                    val buf = bufferFor(layer)
+
+                    emitBakedQuads(buf, baked.getQuads(state, null, baseSeed), state, blockColors, fullBright, e.rel)
+                    for (face in EnumFacing.values()) {
+                        val seed = baseSeed + face.index.toLong() * 1315423911L
+                        emitBakedQuads(buf, baked.getQuads(state, face, seed), state, blockColors, fullBright, e.rel)
                     }
                 }
-            } finally {
-                ForgeHooksClient.setRenderLayer(null)
             }
+        } finally {
+            ForgeHooksClient.setRenderLayer(null)
+        }
 
-            fun uploadLayer(layer: BlockRenderLayer): VertexBuffer? {
-                val buf = layerBuffers[layer] ?: return null
-                if (buf.vertexCount <= 0) {
-                    BufferBuilderPool.recycle(buf)
-                    return null
-                }
-                buf.finishDrawing()
-                multiplyVertexAlpha(buf, overlayAlphaMul)
-                val vbo = VertexBuffer(DefaultVertexFormats.BLOCK)
-                vbo.bufferData(buf.byteBuffer)
+        val it = layerBuffers.values.iterator()
+        while (it.hasNext()) {
+            val buf = it.next()
+            if (buf.vertexCount <= 0) {
                 BufferBuilderPool.recycle(buf)
-                return vbo
+                it.remove()
+                continue
             }
+            buf.finishDrawing()
+            multiplyVertexAlpha(buf, overlayAlphaMul)
+        }
+        return layerBuffers.takeIf { it.isNotEmpty() }
+    }
 
-            val solid = uploadLayer(BlockRenderLayer.SOLID)
-            val cutoutMipped = uploadLayer(BlockRenderLayer.CUTOUT_MIPPED)
-            val cutout = uploadLayer(BlockRenderLayer.CUTOUT)
-            val translucent = uploadLayer(BlockRenderLayer.TRANSLUCENT)
-
-            meshes.add(
-                BlockModelChunkMesh(
-                    key = ck,
-                    centerX = centerX,
-                    centerY = centerY,
-                    centerZ = centerZ,
-                    radiusSq = radiusSq,
-                    solid = solid,
-                    cutoutMipped = cutoutMipped,
-                    cutout = cutout,
-                    translucent = translucent,
-                    approxBlockCount = entries.size
-                )
-            )
+    /** Render thread: upload baked layer buffers and return them to the pool. */
+    private fun uploadBlockModelChunk(layerBuffers: EnumMap<BlockRenderLayer, BufferBuilder>): BlockModelMesh {
+        fun uploadLayer(layer: BlockRenderLayer): VertexBuffer? {
+            val buf = layerBuffers[layer] ?: return null
+            val vbo = VertexBuffer(DefaultVertexFormats.BLOCK)
+            vbo.bufferData(buf.byteBuffer)
+            BufferBuilderPool.recycle(buf)
+            return vbo
         }
 
-        return BlockModelRenderCache(key, meshes)
+        return BlockModelMesh(
+            solid = uploadLayer(BlockRenderLayer.SOLID),
+            cutoutMipped = uploadLayer(BlockRenderLayer.CUTOUT_MIPPED),
+            cutout = uploadLayer(BlockRenderLayer.CUTOUT),
+            translucent = uploadLayer(BlockRenderLayer.TRANSLUCENT)
+        )
     }
 
     private fun emitBakedQuads(
@@ -772,7 +773,8 @@ internal object WorldProjectionManager {
         camZ: Double,
         maxDistSq: Double
     ) {
-        if (cache.meshes.isEmpty()) return
+        val meshes = cache.chunks.chunks
+        if (meshes.isEmpty()) return
 
         val mc = Minecraft.getMinecraft()
 
@@ -835,7 +837,7 @@ internal object WorldProjectionManager {
             vbo.unbindBuffer()
         }
 
-        fun meshDistSq(m: BlockModelChunkMesh): Double {
+        fun meshDistSq(m: ProjectionChunk<BlockModelMesh>): Double {
             val worldCenterX = s.anchor.x + m.centerX
             val worldCenterY = s.anchor.y + m.centerY
             val worldCenterZ = s.anchor.z + m.centerZ
@@ -845,23 +847,24 @@ internal object WorldProjectionManager {
             return dx * dx + dy * dy + dz * dz
         }
 
-        val meshes = cache.meshes
-        val start = s.chunkRenderCursor
+        val start = s.chunkRenderCursor % meshes.size
         val maxChunksThisFrame = if (meshes.size <= ProjectionConfig.RENDER_ALL_CHUNKS_IF_UNDER) Int.MAX_VALUE else ProjectionConfig.MAX_CHUNKS_RENDER_PER_FRAME
 
         // First pass: select visible chunks in a single scan (budgeted).
-        // We include a chunk if it has any non-translucent layer VBO or a translucent VBO.
-        val selected = ArrayList<BlockModelChunkMesh>(minOf(64, maxChunksThisFrame))
+        // We include a chunk if it has an uploaded mesh (chunks still building or fully filtered out have none).
+        val selected = ArrayList<BlockModelMesh>(minOf(64, maxChunksThisFrame))
+        val selectedDistSq = ArrayList<Double>(minOf(64, maxChunksThisFrame))
         var iter = 0
         while (selected.size < maxChunksThisFrame && iter < meshes.size) {
             val idx = (start + iter) % meshes.size
-            val m = meshes[idx]
+            val chunk = meshes[idx]
 
-            val hasAny = (m.solid != null) || (m.cutoutMipped != null) || (m.cutout != null) || (m.translucent != null)
-            if (hasAny) {
-                val distSq = meshDistSq(m)
-                if (distSq <= maxDistSq + m.radiusSq) {
+            val m = chunk.mesh
+            if (m != null) {
+                val distSq = meshDistSq(chunk)
+                if (distSq <= maxDistSq + chunk.radiusSq) {
                     selected.add(m)
+                    selectedDistSq.add(distSq)
                 }
             }
 
@@ -892,10 +895,10 @@ internal object WorldProjectionManager {
         }
 
         // TRANSLUCENT: back-to-front sorting (chunk granularity) within selected set.
-        val translucentMeshes = ArrayList<Pair<BlockModelChunkMesh, Double>>()
-        for (m in selected) {
+        val translucentMeshes = ArrayList<Pair<BlockModelMesh, Double>>()
+        for ((i, m) in selected.withIndex()) {
             if (m.translucent != null) {
-                translucentMeshes.add(m to meshDistSq(m))
+                translucentMeshes.add(m to selectedDistSq[i])
             }
         }
 
@@ -984,105 +987,85 @@ internal object WorldProjectionManager {
         return state
     }
 
-    private fun ensureRenderCacheLoaded(key: CacheKey, model: StructurePreviewModel): RenderCache? {
-        renderCache[key]?.let { return it }
-        if (!OpenGlHelper.useVbo()) return null
-
-        val built = buildRenderCache(key, model)
-        renderCache[key] = built
-
-        // LRU cap (separate from model cache)
-        if (renderCache.size > 16) {
-            val it = renderCache.entries.iterator()
-            if (it.hasNext()) {
-                val evicted = it.next().value
-                it.remove()
-                evicted.meshes.forEach { mesh ->
-                    try {
-                        mesh.vbo.deleteGlBuffers()
-                    } catch (_: Throwable) {
-                        // ignore
-                    }
+    private fun ensureRenderCacheLoaded(key: CacheKey, model: StructurePreviewModel, s: StructureProjectionSession): RenderCache? {
+        var cache = renderCache[key]
+        if (cache != null && cache.model !== model) {
+            renderCache.remove(key)
+            release(cache)
+            cache = null
+        }
+        if (cache == null) {
+            if (!OpenGlHelper.useVbo()) return null
+
+            val renderMode = key.renderMode
+            cache = RenderCache(
+                key,
+                model,
+                ProjectionChunkMeshCache(
+                    entries = s.entries,
+                    builder = { entries, indices, statuses -> buildGhostChunk(renderMode, entries, indices, statuses) },
+                    uploader = ::uploadGhostChunk,
+                    releaser = VertexBuffer::deleteGlBuffers,
+                    discarder = BufferBuilderPool::recycle
+                )
+            )
+            renderCache[key] = cache
+
+            // LRU cap (separate from model cache)
+            if (renderCache.size > ProjectionConfig.RENDER_CACHE_SIZE) {
+                val it = renderCache.entries.iterator()
+                if (it.hasNext()) {
+                    val evicted = it.next().value
+                    it.remove()
+                    release(evicted)
                 }
             }
         }
 
-        return built
+        cache.chunks.update(s.statuses, s.statusEpoch, ProjectionConfig.MAX_CHUNK_UPLOADS_PER_FRAME, ProjectionConfig.MAX_CHUNK_BUILDS_IN_FLIGHT)
+        return cache
     }
 
-    private fun buildRenderCache(key: CacheKey, model: StructurePreviewModel): RenderCache {
-        // Group by 16x16x16 relative chunks.
-        val groups = LinkedHashMap<ChunkKey, MutableList<Entry>>()
-        for ((rel, req) in model.blocks) {
-            val ck = ChunkKey(floorDiv(rel.x, 16), floorDiv(rel.y, 16), floorDiv(rel.z, 16))
-            groups.computeIfAbsent(ck) { mutableListOf() }.add(Entry(rel, req))
-        }
-
-        val meshes = ArrayList<ChunkMesh>(groups.size)
-        for ((ck, entries) in groups) {
-            // Compute bounds in relative space.
-            var minX = Int.MAX_VALUE
-            var minY = Int.MAX_VALUE
-            var minZ = Int.MAX_VALUE
-            var maxX = Int.MIN_VALUE
-            var maxY = Int.MIN_VALUE
-            var maxZ = Int.MIN_VALUE
-            for (e in entries) {
-                val p = e.rel
-                if (p.x < minX) minX = p.x
-                if (p.y < minY) minY = p.y
-                if (p.z < minZ) minZ = p.z
-                if (p.x > maxX) maxX = p.x
-                if (p.y > maxY) maxY = p.y
-                if (p.z > maxZ) maxZ = p.z
-            }
+    private fun release(cache: RenderCache) {
+        cache.released = true
+        cache.chunks.release()
+    }
 
-            // Center of the chunk mesh in relative coordinates.
-            val centerX = (minX.toDouble() + (maxX + 1).toDouble()) * 0.5
-            val centerY = (minY.toDouble() + (maxY + 1).toDouble()) * 0.5
-            val centerZ = (minZ.toDouble() + (maxZ + 1).toDouble()) * 0.5
-
-            // Radius squared to approximate sphere for distance culling.
-            val rx = (maxX + 1 - minX) * 0.5
-            val ry = (maxY + 1 - minY) * 0.5
-            val rz = (maxZ + 1 - minZ) * 0.5
-            val radiusSq = rx * rx + ry * ry + rz * rz
-
-            // Build VBO geometry.
-            val buf = BufferBuilderPool.borrow(1 shl 18, tag = "WorldProjection.ghostChunk")
-            buf.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR)
-            for (e in entries) {
-                val base = when (e.requirement) {
-                    is ExactBlockStateRequirement -> ProjectionColors.GHOST_EXACT
-                    else -> ProjectionColors.GHOST_DEFAULT
-                }
-                val bb = AxisAlignedBB(
-                    e.rel.x.toDouble(), e.rel.y.toDouble(), e.rel.z.toDouble(),
-                    (e.rel.x + 1).toDouble(), (e.rel.y + 1).toDouble(), (e.rel.z + 1).toDouble()
-                )
-                putGhostAabb(buf, bb, base.r, base.g, base.b, base.a)
+    /** Worker thread: ghost cubes of one chunk (POSITION_COLOR, finished). Null when every block is filtered out. */
+    private fun buildGhostChunk(
+        renderMode: ProjectionRenderMode,
+        entries: List<Entry>,
+        indices: IntArray,
+        statuses: Array<Status>
+    ): BufferBuilder? {
+        var buf: BufferBuilder? = null
+        for (i in indices.indices) {
+            val status = statuses[i]
+            if (renderMode == ProjectionRenderMode.MISMATCH_ONLY && status == Status.MATCH) continue
+
+            val e = entries[indices[i]]
+            val base = ProjectionColors.ghostColor(e.requirement)
+            val (r, g, b, a) = if (status == Status.UNLOADED) ProjectionColors.UNLOADED.copy(a = base.a) else base
+            val target = buf ?: BufferBuilderPool.borrow(1 shl 18, tag = "WorldProjection.ghostChunk").also {
+                it.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR)
+                buf = it
             }
-            buf.finishDrawing()
-
-            val vbo = VertexBuffer(DefaultVertexFormats.POSITION_COLOR)
-            vbo.bufferData(buf.byteBuffer)
-            BufferBuilderPool.recycle(buf)
-
-            meshes.add(
-                ChunkMesh(
-                    key = ck,
-                    centerX = centerX,
-                    centerY = centerY,
-                    centerZ = centerZ,
-                    radiusSq = radiusSq,
-                    vbo = vbo,
-                    approxBlockCount = entries.size
-                )
+            val bb = AxisAlignedBB(
+                e.rel.x.toDouble(), e.rel.y.toDouble(), e.rel.z.toDouble(),
+                (e.rel.x + 1).toDouble(), (e.rel.y + 1).toDouble(), (e.rel.z + 1).toDouble()
             )
+            putGhostAabb(target, bb, r, g, b, a)
         }
+        buf?.finishDrawing()
+        return buf
+    }
 
-        // Stable order: keep insertion order for cursor-based rendering.
-        return RenderCache(key, meshes)
+    /** Render thread: upload a built ghost chunk and return its buffer to the pool. */
+    private fun uploadGhostChunk(buf: BufferBuilder): VertexBuffer {
+        val vbo = VertexBuffer(DefaultVertexFormats.POSITION_COLOR)
+        vbo.bufferData(buf.byteBuffer)
+        BufferBuilderPool.recycle(buf)
+        return vbo
     }
 
     private fun renderGhostVboChunks(
@@ -1093,7 +1076,8 @@ internal object WorldProjectionManager {
         camZ: Double,
         maxDistSq: Double
     ) {
-        if (cache.meshes.isEmpty()) return
+        val meshes = cache.chunks.chunks
+        if (meshes.isEmpty()) return
 
         prepareRenderState()
         GlStateManager.translate(
@@ -1105,8 +1089,7 @@ internal object WorldProjectionManager {
         GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY)
         GL11.glEnableClientState(GL11.GL_COLOR_ARRAY)
 
-        val meshes = cache.meshes
-        val start = s.chunkRenderCursor
+        val start = s.chunkRenderCursor % meshes.size
         val maxChunksThisFrame = if (meshes.size <= ProjectionConfig.RENDER_ALL_CHUNKS_IF_UNDER) Int.MAX_VALUE else ProjectionConfig.MAX_CHUNKS_RENDER_PER_FRAME
 
         var rendered = 0
@@ -1116,6 +1099,11 @@ internal object WorldProjectionManager {
         while (rendered < maxChunksThisFrame && iter < maxIter) {
             val idx = (start + iter) % meshes.size
             val m = meshes[idx]
+            val vbo = m.mesh
+            if (vbo == null) {
+                iter++
+                continue
+            }
 
             // Chunk-level distance culling (sphere approx).
             // Camera in relative-space after translation => compare against -translation:
@@ -1130,12 +1118,12 @@ internal object WorldProjectionManager {
 
             // If center is too far plus radius, skip.
             if (distSq <= maxDistSq + m.radiusSq) {
-                m.vbo.bindBuffer()
+                vbo.bindBuffer()
                 // POSITION_COLOR = 3 floats (12 bytes) + 4 ubytes color (4 bytes) => stride 16.
                 GL11.glVertexPointer(3, GL11.GL_FLOAT, 16, 0L)
                 GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, 16, 12L)
-                m.vbo.drawArrays(GL11.GL_QUADS)
-                m.vbo.unbindBuffer()
+                vbo.drawArrays(GL11.GL_QUADS)
+                vbo.unbindBuffer()
                 rendered++
             }
 
@@ -1294,6 +1282,13 @@ internal object WorldProjectionManager {
         return ProjectionColors.Color(r, g, b, a)
     }
 
+    private val BLOCK_LAYERS = arrayOf(
+        BlockRenderLayer.SOLID,
+        BlockRenderLayer.CUTOUT_MIPPED,
+        BlockRenderLayer.CUTOUT,
+        BlockRenderLayer.TRANSLUCENT
+    )
+
     private fun restoreRenderState() {
         GlStateManager.depthMask(true)
         GlStateManager.enableCull()
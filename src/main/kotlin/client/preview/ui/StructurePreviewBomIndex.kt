@@ -0,0 +1,74 @@
+package github.kasuminova.prototypemachinery.client.preview.ui
+
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.BlockRequirement
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.StructurePreviewModel
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.ui.StructurePreviewEntryStatus
+import net.minecraft.util.math.BlockPos
+
+/**
+ * Model-derived BOM data for [StructurePreviewMaterialsSection], computed once per structure model.
+ *
+ * 材料面板使用的 BOM 数据，每个结构模型只计算一次。
+ *
+ * The materials panel refreshes every UI tick; the sorted BOM and the per-requirement position groups
+ * (for the remaining count) only depend on the model, so they are built once and reused across UI openings.
+ *
+ * 材料面板每个 UI tick 都会刷新；排序后的 BOM 与按需求分组的位置（用于剩余数量）只取决于模型，
+ * 因此只构建一次并在多次打开 UI 间复用。
+ */
+internal class StructurePreviewBomIndex private constructor(model: StructurePreviewModel) {
+
+    private class Group(val requirement: BlockRequirement, val positions: Array<BlockPos>)
+
+    /** Full BOM, most needed first. / 完整 BOM，按数量降序。 */
+    val required: List<Pair<BlockRequirement, Int>> = model.bom
+        .asSequence()
+        .map { it.requirement to it.count }
+        .sortedByDescending { it.second }
+        .toList()
+
+    // Grouped by stable key, in first-seen order.
+    private val groups: Array<Group> = run {
+        val byKey = LinkedHashMap<String, Pair<BlockRequirement, MutableList<BlockPos>>>()
+        for ((relPos, req) in model.blocks) {
+            byKey.getOrPut(req.stableKey()) { req to ArrayList() }.second.add(relPos)
+        }
+        byKey.values.map { (req, positions) -> Group(req, positions.toTypedArray()) }.toTypedArray()
+    }
+
+    /**
+     * Blocks still [StructurePreviewEntryStatus.MISSING] or [StructurePreviewEntryStatus.WRONG] per requirement,
+     * most needed first. / 每种需求仍缺失或错误的方块数量，按数量降序。
+     */
+    fun remaining(statuses: Map<BlockPos, StructurePreviewEntryStatus>): List<Pair<BlockRequirement, Int>> {
+        val out = ArrayList<Pair<BlockRequirement, Int>>()
+        for (g in groups) {
+            var count = 0
+            for (p in g.positions) {
+                val st = statuses[p] ?: continue
+                if (st == StructurePreviewEntryStatus.MISSING || st == StructurePreviewEntryStatus.WRONG) count++
+            }
+            if (count > 0) out.add(g.requirement to count)
+        }
+        out.sortByDescending { it.second }
+        return out
+    }
+
+    internal companion object {
+
+        private const val CACHE_SIZE = 8
+
+        // Keyed by model content: re-opening the preview builds an equal model.
+        private val cache = LinkedHashMap<StructurePreviewModel, StructurePreviewBomIndex>(CACHE_SIZE, 0.75f, true)
+
+        fun of(model: StructurePreviewModel): StructurePreviewBomIndex = synchronized(cache) {
+            cache.getOrPut(model) { StructurePreviewBomIndex(model) }.also {
+                if (cache.size > CACHE_SIZE) {
+                    val it = cache.entries.iterator()
+                    it.next()
+                    it.remove()
+                }
+            }
+        }
+    }
+}
@@ -107,6 +107,9 @@ internal object StructurePreviewMaterialsSection {
             }
         }
 
+        // Sorted BOM + per-requirement positions, computed once per structure (this UI refreshes every tick).
+        val bomIndex = StructurePreviewBomIndex.of(model)
+
         fun computeDisplayBom(): List<Pair<BlockRequirement, Int>> {
             // When a block is selected, show only that position's requirement.
             val selected = rt.clickedRequirement
@@ -115,26 +118,10 @@ internal object StructurePreviewMaterialsSection {
             }
 
             if (host.materialsMode == StructurePreviewUiHostConfig.MaterialsMode.REMAINING && rt.statusSnapshot.isNotEmpty()) {
-                data class Acc(var req: BlockRequirement, var count: Int)
-                val byKey = LinkedHashMap<String, Acc>()
-                for ((relPos, req) in model.blocks) {
-                    val st = rt.statusSnapshot[relPos] ?: continue
-                    if (st != StructurePreviewEntryStatus.MISSING && st != StructurePreviewEntryStatus.WRONG) continue
-                    val key = req.stableKey()
-                    val acc = byKey.getOrPut(key) { Acc(req, 0) }
-                    acc.count++
-                }
-                return byKey.values
-                    .filter { it.count > 0 }
-                    .sortedByDescending { it.count }
-                    .map { it.req to it.count }
+                return bomIndex.remaining(rt.statusSnapshot)
             }
 
-            return model.bom
-                .asSequence()
-                .map { it.requirement to it.count }
-                .sortedByDescending { it.second }
-                .toList()
+            return bomIndex.required
         }
 
         // --- Left: replace preview (collapsible like top/bottom menus) ---
@@ -19,18 +19,17 @@ import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelB
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoModelRenderBuildTask
 import github.kasuminova.prototypemachinery.client.impl.render.gecko.GeckoRenderSnapshot
 import github.kasuminova.prototypemachinery.client.impl.render.task.BuiltBuffers
+import github.kasuminova.prototypemachinery.client.impl.render.task.drawPackedParts
 import github.kasuminova.prototypemachinery.client.preview.ProjectionConfig
-import github.kasuminova.prototypemachinery.client.util.BufferBuilderPool
+import github.kasuminova.prototypemachinery.client.preview.ui.widget.StructurePreviewMeshCache.ChunkMesh
 import github.kasuminova.prototypemachinery.client.util.ReusableVboUploader
 import github.kasuminova.prototypemachinery.common.util.TwistMath
 import net.minecraft.block.Block
-import net.minecraft.block.material.Material
 import net.minecraft.block.properties.IProperty
 import net.minecraft.block.state.IBlockState
 import net.minecraft.client.Minecraft
 import net.minecraft.client.gui.Gui
 import net.minecraft.client.gui.ScaledResolution
-import net.minecraft.client.renderer.BlockRendererDispatcher
 import net.minecraft.client.renderer.BufferBuilder
 import net.minecraft.client.renderer.GlStateManager
 import net.minecraft.client.renderer.OpenGlHelper
@@ -42,20 +41,13 @@ import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats
 import net.minecraft.client.renderer.vertex.VertexBuffer
 import net.minecraft.client.renderer.vertex.VertexFormat
-import net.minecraft.init.Biomes
 import net.minecraft.init.Blocks
 import net.minecraft.tileentity.TileEntity
-import net.minecraft.util.BlockRenderLayer
 import net.minecraft.util.EnumFacing
 import net.minecraft.util.math.BlockPos
-import net.minecraft.world.IBlockAccess
-import net.minecraft.world.WorldType
-import net.minecraft.world.biome.Biome
-import net.minecraftforge.client.ForgeHooksClient
 import org.lwjgl.opengl.GL11
 import org.lwjgl.util.glu.GLU
 import java.nio.ByteOrder
-import java.util.EnumMap
 import java.util.concurrent.ForkJoinPool
 import kotlin.math.abs
 import kotlin.math.cos
@@ -135,27 +127,12 @@ internal class StructurePreview3DWidget(
         val relPos: BlockPos get() = BlockPos(relX, relY, relZ)
     }
 
-    private data class ChunkKey(val cx: Int, val cy: Int, val cz: Int)
-
     private data class TesrEntry(
         val relPos: BlockPos,
         var state: IBlockState,
         var te: TileEntity? = null,
     )
 
-    private data class BlockModelChunkMesh(
-        val key: ChunkKey,
-        val centerX: Double,
-        val centerY: Double,
-        val centerZ: Double,
-        val radiusSq: Double,
-        val solid: VertexBuffer?,
-        val cutoutMipped: VertexBuffer?,
-        val cutout: VertexBuffer?,
-        val translucent: VertexBuffer?,
-        val approxBlockCount: Int
-    )
-
     private data class StructureDims(
         val sizeX: Int,
         val sizeY: Int,
@@ -167,26 +144,6 @@ internal class StructurePreview3DWidget(
         val centerZ: Double = sizeZ * 0.5
     }
 
-    private data class IntAabb(
-        val minX: Int,
-        val minY: Int,
-        val minZ: Int,
-        val maxX: Int,
-        val maxY: Int,
-        val maxZ: Int
-    ) {
-        val centerX: Double = (minX.toDouble() + (maxX + 1).toDouble()) * 0.5
-        val centerY: Double = (minY.toDouble() + (maxY + 1).toDouble()) * 0.5
-        val centerZ: Double = (minZ.toDouble() + (maxZ + 1).toDouble()) * 0.5
-
-        val radiusSq: Double = run {
-            val rx = (maxX + 1 - minX) * 0.5
-            val ry = (maxY + 1 - minY) * 0.5
-            val rz = (maxZ + 1 - minZ) * 0.5
-            rx * rx + ry * ry + rz * rz
-        }
-    }
-
     private data class ViewportRect(
         val x: Int,
         val y: Int,
@@ -199,8 +156,8 @@ internal class StructurePreview3DWidget(
     private val sizeY: Int
 
     // Per-frame scratch to reduce allocations.
-    private val tmpSelectedChunkMeshes: ArrayList<BlockModelChunkMesh> = ArrayList(64)
-    private val tmpTranslucentMeshes: ArrayList<BlockModelChunkMesh> = ArrayList(64)
+    private val tmpSelectedChunkMeshes: ArrayList<ChunkMesh> = ArrayList(64)
+    private val tmpTranslucentMeshes: ArrayList<ChunkMesh> = ArrayList(64)
     private var tmpTranslucentDistSq: DoubleArray = DoubleArray(64)
     private val tmpLookupPos: BlockPos.MutableBlockPos = BlockPos.MutableBlockPos()
 
@@ -231,15 +188,11 @@ internal class StructurePreview3DWidget(
 
     private val anyOfRequirementKeys: List<String>
     private var lastAnyOfSelectionHash: Int = 0
-    private var forceFullRebuildOnce: Boolean = false
 
-    /** Dummy access providing neighbor states + fullbright, for renderBlock face culling. */
-    private val blockAccess: IBlockAccess
+    // ===== Block model VBOs (meshed in the background, shared via StructurePreviewMeshCache) =====
 
-    // ===== Block model VBO cache (built incrementally) =====
-
-    private val blockModelGroupsAll: List<Pair<ChunkKey, List<BlockEntry>>>
-    private val blockModelGroupsControllerOnly: List<Pair<ChunkKey, List<BlockEntry>>>
+    private val blockModelPositionsAll: List<BlockPos>
+    private val blockModelPositionsControllerOnly: List<BlockPos>
 
     private enum class BlockModelMode {
         ALL,
@@ -249,12 +202,17 @@ internal class StructurePreview3DWidget(
     private var blockModelMode: BlockModelMode = BlockModelMode.ALL
     private var lastFormedPreview: Boolean = false
     private val controllerRelPos: BlockPos?
-    private val builtBlockModelMeshes: MutableList<BlockModelChunkMesh> = ArrayList()
-    private var blockModelBuildCursor: Int = 0
     private var blockModelRenderCursor: Int = 0
 
-    /** Whether we have attempted to build block model meshes (success or not). */
-    private var blockModelBuildStarted: Boolean = false
+    /** Mesh set drawn this frame; pinned in [StructurePreviewMeshCache] until the view changes or the UI closes. */
+    private var meshSet: StructurePreviewMeshCache.MeshSet? = null
+
+    /** Content hashes for [StructurePreviewMeshCache.Key], computed once so re-opened previews find their meshes. */
+    private val modelHash: Int = model.hashCode()
+    private val controllerHash: Int = controllerRequirement?.stableKey()?.hashCode() ?: 0
+
+    /** All block positions per relative Y, for layer (slice) meshes. */
+    private val positionsByLayer: Map<Int, List<BlockPos>> by lazy { allBlockStates.keys.groupBy { it.y } }
 
     /** VBO availability snapshot; if false, we skip the VBO path entirely. */
     private val vboAvailable: Boolean = OpenGlHelper.useVbo()
@@ -347,10 +305,10 @@ internal class StructurePreview3DWidget(
         blockEntries = entriesMut
         requirementByShiftedPos = blockEntries.associate { it.relPos to it.requirement }
 
-        blockModelGroupsAll = groupByChunk(blockEntries)
-        blockModelGroupsControllerOnly = if (controllerRequirement != null && controllerRelPos != null) {
+        blockModelPositionsAll = blockEntries.map { it.relPos }
+        blockModelPositionsControllerOnly = if (controllerRequirement != null && controllerRelPos != null) {
             val e = blockEntries.firstOrNull { it.relPos == controllerRelPos }
-            if (e != null) groupByChunk(listOf(e)) else emptyList()
+            if (e != null) listOf(e.relPos) else emptyList()
         } else {
             emptyList()
         }
@@ -380,7 +338,6 @@ internal class StructurePreview3DWidget(
             statesMut[rel] = st
         }
         allBlockStates = statesMut
-        blockAccess = StructureBlockAccess(allBlockStates, ProjectionConfig.FULLBRIGHT_LIGHTMAP_UV)
 
         tesrEntries = buildTesrEntries()
 
@@ -404,7 +361,7 @@ internal class StructurePreview3DWidget(
     }
 
     private fun resolveBlockModelMode(formedPreview: Boolean): BlockModelMode {
-        return if (hideWorldBlocks && formedPreview && blockModelGroupsControllerOnly.isNotEmpty()) {
+        return if (hideWorldBlocks && formedPreview && blockModelPositionsControllerOnly.isNotEmpty()) {
             BlockModelMode.CONTROLLER_ONLY
         } else {
             BlockModelMode.ALL
@@ -433,7 +390,7 @@ internal class StructurePreview3DWidget(
         if (formedNow == lastFormedPreview) return
         lastFormedPreview = formedNow
 
-        // Update controller state (formed property) and rebuild VBOs.
+        // Update controller state (formed property); the formed flag is part of the mesh cache key.
         if (controllerRequirement != null && controllerRelPos != null) {
             val base = stateFromRequirementCached(controllerRequirement) ?: Blocks.AIR.defaultState
             val st = applyFormedPropertyIfPresent(base, formedNow)
@@ -445,9 +402,6 @@ internal class StructurePreview3DWidget(
         if (newMode != blockModelMode) {
             blockModelMode = newMode
         }
-
-        invalidateBlockModelMeshes()
-        forceFullRebuildOnce = true
     }
 
     private fun applyFormedPropertyIfPresent(state: IBlockState, formed: Boolean): IBlockState {
@@ -530,30 +484,9 @@ internal class StructurePreview3DWidget(
     }
 
     override fun dispose() {
-        // Release VBOs to avoid leaking GPU memory when UI closes.
-        for (m in builtBlockModelMeshes) {
-            try {
-                m.solid?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-            try {
-                m.cutoutMipped?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-            try {
-                m.cutout?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-            try {
-                m.translucent?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-        }
-        builtBlockModelMeshes.clear()
+        // Block model VBOs stay in StructurePreviewMeshCache for the next opening; just unpin them.
+        meshSet?.let(StructurePreviewMeshCache::unpin)
+        meshSet = null
 
         // If background builds are still running when UI closes, ensure their buffers are recycled.
         for (e in geckoCache.values) {
@@ -590,37 +523,6 @@ internal class StructurePreview3DWidget(
         super.dispose()
     }
 
-    private fun invalidateBlockModelMeshes() {
-        // Release existing VBOs to avoid leaking GPU memory on rebuild.
-        for (m in builtBlockModelMeshes) {
-            try {
-                m.solid?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-            try {
-                m.cutoutMipped?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-            try {
-                m.cutout?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-            try {
-                m.translucent?.deleteGlBuffers()
-            } catch (_: Throwable) {
-                // ignore
-            }
-        }
-
-        builtBlockModelMeshes.clear()
-        blockModelBuildCursor = 0
-        blockModelRenderCursor = 0
-        blockModelBuildStarted = false
-    }
-
     override fun afterInit() {
         super.afterInit()
 
@@ -825,8 +727,9 @@ internal class StructurePreview3DWidget(
         handlePendingClick(mc, vp)
 
         val sliceMode = sliceModeProvider?.invoke() == true
-        // Textured block models (performance path: VBO, built incrementally).
-        drawBlockModels(context, sliceMode)
+        val sliceYNow = (sliceYProvider?.invoke() ?: 0).coerceIn(0, (sizeY - 1).coerceAtLeast(0))
+        // Textured block models (performance path: VBO, meshed in the background).
+        drawBlockModels(context, sliceMode, sliceYNow)
 
         // Formed machine model (Gecko bindings) and TESR blocks are only meaningful in 3D (non-slice) mode.
         if (!sliceMode) {
@@ -843,7 +746,6 @@ internal class StructurePreview3DWidget(
         val statusesNow = if (wireframeEnabled) (statusProvider?.invoke() ?: emptyMap()) else emptyMap()
 
         val issuesOnly = issuesOnlyProvider?.invoke() == true
-        val sliceYNow = (sliceYProvider?.invoke() ?: 0).coerceIn(0, (sizeY - 1).coerceAtLeast(0))
 
         drawWireframeOverlays(
             context = context,
@@ -1195,27 +1097,19 @@ internal class StructurePreview3DWidget(
         return bestCube
     }
 
-    private fun drawBlockModels(context: ModularGuiContext, sliceMode: Boolean) {
+    private fun drawBlockModels(context: ModularGuiContext, sliceMode: Boolean, sliceY: Int) {
         if (!vboAvailable) return
         if (blockEntries.isEmpty()) return
 
         // formed/unformed toggle can change controller state and hideWorldBlocks behavior.
         refreshFormedModeIfChanged()
 
-        // Slice mode is primarily for debugging layer-by-layer; keeping VBOs static avoids costly rebuilds.
-        // We therefore skip block models when slice mode is enabled and rely on wireframe overlays.
-        if (sliceMode) return
-
-        // AnyOf selection can change at runtime; refresh render states + VBOs on change.
+        // AnyOf selection can change at runtime; refresh render states on change (new mesh cache key).
         refreshAnyOfSelectionIfChanged()
 
-        // Start/continue incremental building.
-        if (!blockModelBuildStarted) {
-            blockModelBuildStarted = true
-        }
-        buildSomeBlockModelMeshesPerFrame()
-
-        if (builtBlockModelMeshes.isEmpty()) return
+        // Slice mode draws per-layer meshes; both views stay cached, so toggling does not remesh.
+        val set = acquireMeshSet(if (sliceMode) sliceY else StructurePreviewMeshCache.FULL_VIEW)
+        if (set.meshes.isEmpty()) return
 
         val mc = Minecraft.getMinecraft()
 
@@ -1242,7 +1136,7 @@ internal class StructurePreview3DWidget(
         // Approx camera position (in structure local coords) for translucent sorting.
         val (camX, camY, camZ) = approximateCameraPosition(dims)
 
-        val selected = selectChunkMeshesForThisFrame()
+        val selected = selectChunkMeshesForThisFrame(set.meshes)
 
         // Render order similar to vanilla chunk rendering.
         // SOLID / CUTOUT_MIPPED / CUTOUT: no sorting.
@@ -1339,9 +1233,7 @@ internal class StructurePreview3DWidget(
                                 geckoUploader.draw(buf)
                             }
                             built.packedByPass[pass]?.let { batch ->
-                                for (p in batch.parts) {
-                                    geckoUploader.drawMergedByteBuffer(batch.format, batch.drawMode, p.vertexCount, p.totalBytes, p.data)
-                                }
+                                geckoUploader.drawPackedParts(batch)
                             }
                         } finally {
                             RenderTypeState.post(pass)
@@ -1535,8 +1427,8 @@ internal class StructurePreview3DWidget(
     }
 
     private inline fun renderChunkLayer(
-        meshes: List<BlockModelChunkMesh>,
-        crossinline vboSelector: (BlockModelChunkMesh) -> VertexBuffer?
+        meshes: List<ChunkMesh>,
+        crossinline vboSelector: (ChunkMesh) -> VertexBuffer?
     ) {
         for (m in meshes) {
             val vbo = vboSelector(m) ?: continue
@@ -1545,7 +1437,7 @@ internal class StructurePreview3DWidget(
     }
 
     private fun renderTranslucentBackToFront(
-        meshes: List<BlockModelChunkMesh>,
+        meshes: List<ChunkMesh>,
         camX: Double,
         camY: Double,
         camZ: Double
@@ -1574,7 +1466,7 @@ internal class StructurePreview3DWidget(
         }
     }
 
-    private fun sortByDistDesc(meshes: ArrayList<BlockModelChunkMesh>, distSq: DoubleArray, size: Int) {
+    private fun sortByDistDesc(meshes: ArrayList<ChunkMesh>, distSq: DoubleArray, size: Int) {
         fun swap(i: Int, j: Int) {
             val td = distSq[i]
             distSq[i] = distSq[j]
@@ -1607,15 +1499,14 @@ internal class StructurePreview3DWidget(
         if (size > 1) quickSort(0, size - 1)
     }
 
-    private fun meshDistSq(m: BlockModelChunkMesh, camX: Double, camY: Double, camZ: Double): Double {
+    private fun meshDistSq(m: ChunkMesh, camX: Double, camY: Double, camZ: Double): Double {
         val dx = m.centerX - camX
         val dy = m.centerY - camY
         val dz = m.centerZ - camZ
         return dx * dx + dy * dy + dz * dz
     }
 
-    private fun selectChunkMeshesForThisFrame(): List<BlockModelChunkMesh> {
-        val meshes = builtBlockModelMeshes
+    private fun selectChunkMeshesForThisFrame(meshes: List<ChunkMesh>): List<ChunkMesh> {
         if (meshes.isEmpty()) {
             blockModelRenderCursor = 0
             return emptyList()
@@ -1668,148 +1559,49 @@ internal class StructurePreview3DWidget(
         GL11.glDisableClientState(GL11.GL_COLOR_ARRAY)
     }
 
-    @Suppress("DEPRECATION")
-    private fun buildSomeBlockModelMeshesPerFrame() {
-        if (!vboAvailable) return
-        val groups = when (blockModelMode) {
-            BlockModelMode.ALL -> blockModelGroupsAll
-            BlockModelMode.CONTROLLER_ONLY -> blockModelGroupsControllerOnly
-        }
-        if (blockModelBuildCursor >= groups.size) return
-
-        // Budget: build a small number of chunk meshes per frame to avoid UI hitching.
-        val maxBuildThisFrame = if (forceFullRebuildOnce || groups.size <= 12) Int.MAX_VALUE else 2
-        forceFullRebuildOnce = false
-
-        val mc = Minecraft.getMinecraft()
-        val brd: BlockRendererDispatcher = mc.blockRendererDispatcher
-
-        val layers = arrayOf(
-            BlockRenderLayer.SOLID,
-            BlockRenderLayer.CUTOUT_MIPPED,
-            BlockRenderLayer.CUTOUT,
-            BlockRenderLayer.TRANSLUCENT
+    /**
+     * Pin the cached mesh set for the current variant and [layer] and advance its background meshing.
+     * Sets of other variants / layers stay in [StructurePreviewMeshCache] for reuse.
+     */
+    private fun acquireMeshSet(layer: Int): StructurePreviewMeshCache.MeshSet {
+        val key = StructurePreviewMeshCache.Key(
+            modelHash = modelHash,
+            blockCount = model.blocks.size,
+            controllerHash = controllerHash,
+            controllerOnly = blockModelMode == BlockModelMode.CONTROLLER_ONLY,
+            formed = lastFormedPreview,
+            anyOfSelectionHash = lastAnyOfSelectionHash,
+            layer = layer
         )
 
-        var built = 0
-        while (built < maxBuildThisFrame && blockModelBuildCursor < groups.size) {
-            val (ck, entries) = groups[blockModelBuildCursor]
-            blockModelBuildCursor++
-
-            val bounds = computeAabb(entries)
-
-            // Build one VBO per render layer.
-            val layerBuffers = EnumMap<BlockRenderLayer, BufferBuilder>(BlockRenderLayer::class.java)
-            fun bufferFor(layer: BlockRenderLayer): BufferBuilder {
-                return layerBuffers.getOrPut(layer) {
-                    BufferBuilderPool.borrow(1 shl 19, tag = "StructurePreview3D.blockModel.$layer").also {
-                        it.begin(GL11.GL_QUADS, DefaultVertexFormats.BLOCK)
-                    }
-                }
-            }
-
-            try {
-                for (e in entries) {
-                    // Use the full state map so neighbor face-culling sees the complete structure.
-                    val rawState = allBlockStates[e.relPos] ?: continue
-                    var state = try {
-                        rawState.block.getActualState(rawState, blockAccess, e.relPos)
-                    } catch (_: Throwable) {
-                        rawState
-                    }
-                    // Some blocks (notably our controller) derive TE-backed properties (e.g. twist/formed)
-                    // in getActualState(). In preview we usually have no TE, so that logic would reset
-                    // explicitly configured state properties back to defaults.
-                    state = copyPropertyByName(rawState, state, "twist")
-                    state = copyPropertyByName(rawState, state, "formed")
-                    val block = state.block
-
-                    for (layer in layers) {
-                        if (!block.canRenderInLayer(state, layer)) continue
-                        ForgeHooksClient.setRenderLayer(layer)
-                        val buf = bufferFor(layer)
-
-                        // Vanilla path handles ambient-occlusion & neighbor face culling.
-                        brd.renderBlock(state, e.relPos, blockAccess, buf)
-                    }
-                }
-            } finally {
-                ForgeHooksClient.setRenderLayer(null)
-            }
-
-            val solid = uploadBuiltLayer(layerBuffers, BlockRenderLayer.SOLID)
-            val cutoutMipped = uploadBuiltLayer(layerBuffers, BlockRenderLayer.CUTOUT_MIPPED)
-            val cutout = uploadBuiltLayer(layerBuffers, BlockRenderLayer.CUTOUT)
-            val translucent = uploadBuiltLayer(layerBuffers, BlockRenderLayer.TRANSLUCENT)
-
-            builtBlockModelMeshes.add(
-                BlockModelChunkMesh(
-                    key = ck,
-                    centerX = bounds.centerX,
-                    centerY = bounds.centerY,
-                    centerZ = bounds.centerZ,
-                    radiusSq = bounds.radiusSq,
-                    solid = solid,
-                    cutoutMipped = cutoutMipped,
-                    cutout = cutout,
-                    translucent = translucent,
-                    approxBlockCount = entries.size
-                )
-            )
-
-            built++
+        var set = meshSet
+        if (set == null || set.released || set.key != key) {
+            val previous = set
+            set = StructurePreviewMeshCache.acquire(key) { createMeshSet(key) }
+            previous?.let(StructurePreviewMeshCache::unpin)
+            meshSet = set
+            blockModelRenderCursor = 0
         }
+        StructurePreviewMeshCache.update(set)
+        return set
     }
 
-    private fun copyPropertyByName(raw: IBlockState, actual: IBlockState, name: String): IBlockState {
-        val rawProp = raw.propertyKeys.firstOrNull { it.name == name } ?: return actual
-        val actualProp = actual.propertyKeys.firstOrNull { it.name == name } ?: return actual
-        // Only copy if both states expose a property with the same name.
-        @Suppress("UNCHECKED_CAST")
-        val rp = rawProp as IProperty<Comparable<Any>>
-        @Suppress("UNCHECKED_CAST")
-        val ap = actualProp as IProperty<Comparable<Any>>
-        return try {
-            @Suppress("UNCHECKED_CAST")
-            val v = raw.getValue(rp) as Comparable<Any>
-            actual.withProperty(ap, v)
-        } catch (_: Throwable) {
-            actual
-        }
-    }
+    private fun createMeshSet(key: StructurePreviewMeshCache.Key): StructurePreviewMeshCache.MeshSet {
+        val base = if (key.controllerOnly) blockModelPositionsControllerOnly else blockModelPositionsAll
 
-    private fun computeAabb(entries: List<BlockEntry>): IntAabb {
-        var minX = Int.MAX_VALUE
-        var minY = Int.MAX_VALUE
-        var minZ = Int.MAX_VALUE
-        var maxX = Int.MIN_VALUE
-        var maxY = Int.MIN_VALUE
-        var maxZ = Int.MIN_VALUE
-        for (e in entries) {
-            if (e.relX < minX) minX = e.relX
-            if (e.relY < minY) minY = e.relY
-            if (e.relZ < minZ) minZ = e.relZ
-            if (e.relX > maxX) maxX = e.relX
-            if (e.relY > maxY) maxY = e.relY
-            if (e.relZ > maxZ) maxZ = e.relZ
+        // Snapshot states: allBlockStates changes with formed / AnyOf selection while builds are in flight.
+        if (key.layer == StructurePreviewMeshCache.FULL_VIEW) {
+            return StructurePreviewMeshCache.MeshSet(key, base, HashMap(allBlockStates))
         }
-        return IntAabb(minX, minY, minZ, maxX, maxY, maxZ)
-    }
 
-    private fun uploadBuiltLayer(
-        layerBuffers: Map<BlockRenderLayer, BufferBuilder>,
-        layer: BlockRenderLayer
-    ): VertexBuffer? {
-        val buf = layerBuffers[layer] ?: return null
-        if (buf.vertexCount <= 0) {
-            BufferBuilderPool.recycle(buf)
-            return null
+        // Layer view: mesh every block of the layer (not just the structure surface), and keep other layers out
+        // of the snapshot so faces toward the hidden layers are not culled.
+        val layerPositions = if (key.controllerOnly) base.filter { it.y == key.layer } else positionsByLayer[key.layer].orEmpty()
+        val states = HashMap<BlockPos, IBlockState>(layerPositions.size * 2)
+        for (p in layerPositions) {
+            allBlockStates[p]?.let { states[p] = it }
         }
-        buf.finishDrawing()
-        val vbo = VertexBuffer(DefaultVertexFormats.BLOCK)
-        vbo.bufferData(buf.byteBuffer)
-        BufferBuilderPool.recycle(buf)
-        return vbo
+        return StructurePreviewMeshCache.MeshSet(key, layerPositions, states)
     }
 
     private fun emitBakedQuads(
@@ -1972,7 +1764,7 @@ internal class StructurePreview3DWidget(
 
         lastAnyOfSelectionHash = h
 
-        // Selection changed: rebuild render states + VBOs.
+        // Selection changed: rebuild render states (the selection hash is part of the mesh cache key).
         reqStateCache.clear()
         allBlockStates.clear()
         allBlockStates.putAll(buildAllBlockStates(model))
@@ -1986,10 +1778,6 @@ internal class StructurePreview3DWidget(
             allBlockStates[rel] = st
         }
 
-        invalidateBlockModelMeshes()
-        // Build everything in one go once, so the user sees the choice reflected immediately.
-        forceFullRebuildOnce = true
-
         // TESR cache depends on resolved states.
         tesrEntries = buildTesrEntries(clearExisting = true)
     }
@@ -2002,7 +1790,8 @@ internal class StructurePreview3DWidget(
             val rel = BlockPos(pos.x - min.x, pos.y - min.y, pos.z - min.z)
             val exact = resolveExactRequirementForRender(req)
             val state = if (exact != null) {
-                stateFromRequirement(exact) ?: Blocks.AIR.defaultState
+                // Large structures repeat a handful of requirements; reuse parsed states.
+                stateFromRequirementCached(exact) ?: Blocks.AIR.defaultState
             } else {
                 // Fallback for non-exact requirements: ensure neighbors exist so face culling works.
                 Blocks.STONE.defaultState
@@ -2040,35 +1829,6 @@ internal class StructurePreview3DWidget(
         return out
     }
 
-    private class StructureBlockAccess(
-        private val states: Map<BlockPos, IBlockState>,
-        private val fullBright: Int
-    ) : IBlockAccess {
-
-        override fun getBlockState(pos: BlockPos): IBlockState {
-            return states[pos] ?: Blocks.AIR.defaultState
-        }
-
-        override fun getTileEntity(pos: BlockPos): TileEntity? = null
-
-        override fun getCombinedLight(pos: BlockPos, lightValue: Int): Int = fullBright
-
-        override fun getBiome(pos: BlockPos): Biome = Biomes.PLAINS
-
-        override fun getStrongPower(pos: BlockPos, direction: EnumFacing): Int = 0
-
-        override fun getWorldType(): WorldType = WorldType.DEFAULT
-
-        override fun isAirBlock(pos: BlockPos): Boolean {
-            val s = getBlockState(pos)
-            return s.material == Material.AIR || s.block === Blocks.AIR
-        }
-
-        override fun isSideSolid(pos: BlockPos, side: EnumFacing, _default: Boolean): Boolean {
-            return getBlockState(pos).isSideSolid(this, pos, side)
-        }
-    }
-
     private fun drawAxes(x: Float, y: Float, z: Float) {
         val t = Tessellator.getInstance()
         val b = t.buffer
@@ -2245,18 +2005,6 @@ internal class StructurePreview3DWidget(
         return out
     }
 
-    private fun groupByChunk(entries: List<BlockEntry>): List<Pair<ChunkKey, List<BlockEntry>>> {
-        if (entries.isEmpty()) return emptyList()
-
-        val groups = LinkedHashMap<ChunkKey, MutableList<BlockEntry>>()
-        for (e in entries) {
-            // rel coords are non-negative within bounds.
-            val ck = ChunkKey(e.relX shr 4, e.relY shr 4, e.relZ shr 4)
-            groups.computeIfAbsent(ck) { mutableListOf() }.add(e)
-        }
-        return groups.entries.map { it.key to it.value }
-    }
-
     private fun isBoundary(pos: BlockPos, present: Set<BlockPos>): Boolean {
         // If any neighbor is absent, this cube contributes to the surface.
         for (f in EnumFacing.values()) {
@@ -0,0 +1,475 @@
+package github.kasuminova.prototypemachinery.client.preview.ui.widget
+
+import github.kasuminova.prototypemachinery.PrototypeMachinery
+import github.kasuminova.prototypemachinery.client.impl.render.task.RenderTaskExecutor
+import github.kasuminova.prototypemachinery.client.preview.ProjectionConfig
+import github.kasuminova.prototypemachinery.client.util.BufferBuilderPool
+import net.minecraft.block.material.Material
+import net.minecraft.block.properties.IProperty
+import net.minecraft.block.state.IBlockState
+import net.minecraft.client.Minecraft
+import net.minecraft.client.renderer.BufferBuilder
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats
+import net.minecraft.client.renderer.vertex.VertexBuffer
+import net.minecraft.init.Biomes
+import net.minecraft.init.Blocks
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.BlockRenderLayer
+import net.minecraft.util.EnumFacing
+import net.minecraft.util.math.BlockPos
+import net.minecraft.world.IBlockAccess
+import net.minecraft.world.WorldType
+import net.minecraft.world.biome.Biome
+import net.minecraftforge.client.ForgeHooksClient
+import org.lwjgl.opengl.GL11
+import java.util.EnumMap
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinTask
+
+/**
+ * Block-model meshes of [StructurePreview3DWidget], shared across widget instances.
+ *
+ * 结构预览 3D 组件的方块模型网格缓存，跨组件实例共享。
+ *
+ * - One [MeshSet] per structure variant (model content, controller, controller-only mode, formed flag,
+ *   AnyOf selection) and per view: the full 3D view ([FULL_VIEW]) or one layer of the slice view.
+ * - Chunks are meshed on [RenderTaskExecutor] from an immutable block-state snapshot and uploaded on the
+ *   render thread, a few per frame, so opening a large structure no longer stalls the client.
+ * - Sets outlive the preview UI: re-opening a structure or switching between the slice and full views reuses
+ *   the uploaded meshes. Sets not used by an open widget are evicted LRU once uploaded meshes exceed
+ *   [ProjectionConfig.PREVIEW_MESH_CACHE_MAX_BYTES].
+ *
+ * - 每个结构变体（模型内容、控制器、仅控制器模式、成型状态、AnyOf 选择）及视图（完整 3D 视图 [FULL_VIEW] 或切片视图的某一层）
+ *   对应一个 [MeshSet]。
+ * - 分块基于不可变的方块状态快照在 [RenderTaskExecutor] 上构建，再在渲染线程按帧少量上传，大型结构打开时不再卡住客户端。
+ * - 网格在预览 UI 关闭后保留：重新打开同一结构、在切片 / 完整视图间切换都直接复用；
+ *   超出 [ProjectionConfig.PREVIEW_MESH_CACHE_MAX_BYTES] 时按 LRU 淘汰未被打开组件使用的网格集。
+ *
+ * Render thread only, except the chunk builder. / 除分块构建外均在渲染线程调用。
+ */
+internal object StructurePreviewMeshCache {
+
+    /** [Key.layer] of the full 3D view. / 完整 3D 视图的 [Key.layer]。 */
+    internal const val FULL_VIEW: Int = -1
+
+    internal data class Key(
+        /** Content hash of the preview model. / 预览模型的内容哈希。 */
+        val modelHash: Int,
+        val blockCount: Int,
+        val controllerHash: Int,
+        val controllerOnly: Boolean,
+        val formed: Boolean,
+        val anyOfSelectionHash: Int,
+        /** Relative Y of the slice layer, or [FULL_VIEW]. */
+        val layer: Int,
+    )
+
+    /** Uploaded per-layer VBOs of one chunk. / 单个分块已上传的各渲染层 VBO。 */
+    internal class ChunkMesh(
+        val centerX: Double,
+        val centerY: Double,
+        val centerZ: Double,
+        val radiusSq: Double,
+        val solid: VertexBuffer?,
+        val cutoutMipped: VertexBuffer?,
+        val cutout: VertexBuffer?,
+        val translucent: VertexBuffer?,
+        val bytes: Long,
+    ) {
+        fun delete() {
+            for (vbo in arrayOf(solid, cutoutMipped, cutout, translucent)) {
+                try {
+                    vbo?.deleteGlBuffers()
+                } catch (_: Throwable) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private class Chunk(
+        val positions: Array<BlockPos>,
+        val centerX: Double,
+        val centerY: Double,
+        val centerZ: Double,
+        val radiusSq: Double,
+    ) {
+        var mesh: ChunkMesh? = null
+        var pending: ChunkBuild? = null
+        var built: Boolean = false
+    }
+
+    /**
+     * One background chunk build. An abandoned build hands its pooled buffers back itself: right away if it already
+     * finished, otherwise when the worker completes it.
+     * 单个后台分块构建。被放弃的构建自行归还池化缓冲：已完成则立即归还，否则在工作线程完成时归还。
+     */
+    private class ChunkBuild(
+        private val positions: Array<BlockPos>,
+        private val access: StructureBlockAccess,
+    ) : Callable<EnumMap<BlockRenderLayer, BufferBuilder>?> {
+        val task: ForkJoinTask<EnumMap<BlockRenderLayer, BufferBuilder>?> = ForkJoinTask.adapt(this)
+
+        private var abandoned = false
+        private var result: EnumMap<BlockRenderLayer, BufferBuilder>? = null
+
+        override fun call(): EnumMap<BlockRenderLayer, BufferBuilder>? {
+            val built = buildChunk(positions, access)
+            synchronized(this) {
+                if (!abandoned) {
+                    result = built
+                    return built
+                }
+            }
+            built?.let(::recycleAll)
+            return null
+        }
+
+        /** Render thread: drop this build and return its buffers to the pool. */
+        fun abandon() {
+            task.cancel(false)
+            val built = synchronized(this) {
+                abandoned = true
+                result.also { result = null }
+            }
+            built?.let(::recycleAll)
+        }
+    }
+
+    /**
+     * Meshes of one [Key]. Positions are relative preview coordinates.
+     * 单个 [Key] 的网格集，坐标为预览相对坐标。
+     */
+    internal class MeshSet internal constructor(
+        val key: Key,
+        positions: Collection<BlockPos>,
+        states: Map<BlockPos, IBlockState>,
+    ) {
+        private val access = StructureBlockAccess(states, ProjectionConfig.FULLBRIGHT_LIGHTMAP_UV)
+        private val chunks: List<Chunk> = groupByChunk(positions)
+
+        private val meshList = ArrayList<ChunkMesh>(chunks.size)
+        private var unbuilt: Int = chunks.size
+        private var inFlight: Int = 0
+
+        /** Open widgets currently drawing this set; pinned sets are never evicted. / 正在使用的组件数。 */
+        internal var users: Int = 0
+
+        internal var released: Boolean = false
+            private set
+
+        var bytes: Long = 0L
+            private set
+
+        /** Uploaded non-empty chunk meshes. / 已上传的非空分块网格。 */
+        val meshes: List<ChunkMesh>
+            get() = meshList
+
+        /** True once every chunk was built at least once. / 所有分块均至少构建过一次。 */
+        val ready: Boolean
+            get() = unbuilt == 0
+
+        /**
+         * Estimated pooled buffer bytes held by in-flight builds (each holds at least one layer buffer).
+         * 进行中构建占用的池化缓冲估计字节数（每个构建至少持有一个渲染层缓冲）。
+         */
+        val pendingBytes: Long
+            get() = inFlight.toLong() * CHUNK_BUFFER_BYTES
+
+        /** Upload finished builds and submit unbuilt chunks. Returns the number of uploads. */
+        internal fun update(maxUploads: Int, maxInFlight: Int): Int {
+            if (released || ready) return 0
+
+            var uploads = 0
+            for (c in chunks) {
+                val task = c.pending?.task ?: continue
+                if (!task.isDone || uploads >= maxUploads) continue
+                c.pending = null
+                inFlight--
+                uploads++
+                val result = if (task.isCompletedNormally) task.rawResult else {
+                    PrototypeMachinery.logger.warn("Structure preview chunk build failed", task.exception)
+                    null
+                }
+                c.mesh = result?.let { upload(c, it) }
+                c.mesh?.let {
+                    meshList.add(it)
+                    bytes += it.bytes
+                }
+                c.built = true
+                unbuilt--
+            }
+
+            for (c in chunks) {
+                if (inFlight >= maxInFlight) break
+                if (c.built || c.pending != null) continue
+                val build = ChunkBuild(c.positions, access)
+                RenderTaskExecutor.submit(build.task)
+                c.pending = build
+                inFlight++
+            }
+            return uploads
+        }
+
+        /**
+         * Abandon in-flight builds, returning their buffers to the pool; the chunks are rebuilt when the set is
+         * updated again. Called once no widget pins the set, since nothing would upload the results.
+         * 放弃进行中的构建并归还其缓冲；再次更新时重新构建这些分块。网格集不再被任何组件固定时调用，因为没有人会上传其结果。
+         */
+        internal fun suspendBuilds() {
+            for (c in chunks) {
+                c.pending?.abandon()
+                c.pending = null
+            }
+            inFlight = 0
+        }
+
+        /**
+         * Delete uploaded meshes and abandon in-flight builds.
+         * 删除已上传网格并放弃进行中的构建。
+         */
+        internal fun release() {
+            released = true
+            suspendBuilds()
+            for (c in chunks) {
+                c.mesh?.delete()
+                c.mesh = null
+            }
+            meshList.clear()
+            bytes = 0L
+        }
+    }
+
+    private val sets = LinkedHashMap<Key, MeshSet>(16, 0.75f, true)
+
+    /**
+     * Get (or create via [factory]) the set for [key] and pin it for the caller; pair with [unpin].
+     * 获取（或通过 [factory] 创建）[key] 对应的网格集并为调用方固定；需与 [unpin] 配对。
+     */
+    fun acquire(key: Key, factory: () -> MeshSet): MeshSet {
+        var set = sets[key]
+        if (set == null || set.released) {
+            set = factory()
+            sets[key] = set
+        }
+        set.users++
+        return set
+    }
+
+    fun unpin(set: MeshSet) {
+        if (set.users > 0) set.users--
+        // Only pinned sets are updated, so an unpinned set's finished builds would never be uploaded.
+        if (set.users == 0) set.suspendBuilds()
+        trim()
+    }
+
+    /** Per-frame progress for a pinned set. / 已固定网格集的每帧推进。 */
+    fun update(set: MeshSet) {
+        val uploads = set.update(ProjectionConfig.MAX_CHUNK_UPLOADS_PER_FRAME, ProjectionConfig.MAX_CHUNK_BUILDS_IN_FLIGHT)
+        if (uploads > 0) trim()
+    }
+
+    fun clearAll() {
+        for (s in sets.values) s.release()
+        sets.clear()
+    }
+
+    private fun trim() {
+        var total = 0L
+        for (s in sets.values) total += s.bytes + s.pendingBytes
+        if (total <= ProjectionConfig.PREVIEW_MESH_CACHE_MAX_BYTES) return
+
+        // Access order: least recently acquired first.
+        val it = sets.values.iterator()
+        while (it.hasNext() && total > ProjectionConfig.PREVIEW_MESH_CACHE_MAX_BYTES) {
+            val s = it.next()
+            if (s.users > 0) continue
+            total -= s.bytes + s.pendingBytes
+            it.remove()
+            s.release()
+        }
+    }
+
+    private fun groupByChunk(positions: Collection<BlockPos>): List<Chunk> {
+        val groups = LinkedHashMap<Long, MutableList<BlockPos>>()
+        for (p in positions) {
+            // Relative coords are non-negative within bounds.
+            val ck = BlockPos(p.x shr 4, p.y shr 4, p.z shr 4).toLong()
+            groups.computeIfAbsent(ck) { ArrayList() }.add(p)
+        }
+
+        val out = ArrayList<Chunk>(groups.size)
+        for (list in groups.values) {
+            var minX = Int.MAX_VALUE
+            var minY = Int.MAX_VALUE
+            var minZ = Int.MAX_VALUE
+            var maxX = Int.MIN_VALUE
+            var maxY = Int.MIN_VALUE
+            var maxZ = Int.MIN_VALUE
+            for (p in list) {
+                if (p.x < minX) minX = p.x
+                if (p.y < minY) minY = p.y
+                if (p.z < minZ) minZ = p.z
+                if (p.x > maxX) maxX = p.x
+                if (p.y > maxY) maxY = p.y
+                if (p.z > maxZ) maxZ = p.z
+            }
+            val rx = (maxX + 1 - minX) * 0.5
+            val ry = (maxY + 1 - minY) * 0.5
+            val rz = (maxZ + 1 - minZ) * 0.5
+            out.add(
+                Chunk(
+                    positions = list.toTypedArray(),
+                    centerX = (minX.toDouble() + (maxX + 1).toDouble()) * 0.5,
+                    centerY = (minY.toDouble() + (maxY + 1).toDouble()) * 0.5,
+                    centerZ = (minZ.toDouble() + (maxZ + 1).toDouble()) * 0.5,
+                    radiusSq = rx * rx + ry * ry + rz * rz,
+                )
+            )
+        }
+        return out
+    }
+
+    /** Initial capacity of a pooled layer buffer. / 池化渲染层缓冲的初始容量。 */
+    private const val CHUNK_BUFFER_BYTES: Int = 1 shl 19
+
+    private val LAYERS = arrayOf(
+        BlockRenderLayer.SOLID,
+        BlockRenderLayer.CUTOUT_MIPPED,
+        BlockRenderLayer.CUTOUT,
+        BlockRenderLayer.TRANSLUCENT
+    )
+
+    /** Worker thread: bake one chunk into finished per-layer buffers. Null when empty. */
+    @Suppress("DEPRECATION")
+    private fun buildChunk(positions: Array<BlockPos>, access: StructureBlockAccess): EnumMap<BlockRenderLayer, BufferBuilder>? {
+        val brd = Minecraft.getMinecraft().blockRendererDispatcher
+
+        val layerBuffers = EnumMap<BlockRenderLayer, BufferBuilder>(BlockRenderLayer::class.java)
+        fun bufferFor(layer: BlockRenderLayer): BufferBuilder {
+            return layerBuffers.getOrPut(layer) {
+                BufferBuilderPool.borrow(CHUNK_BUFFER_BYTES, tag = "StructurePreview3D.blockModel.$layer").also {
+                    it.begin(GL11.GL_QUADS, DefaultVertexFormats.BLOCK)
+                }
+            }
+        }
+
+        try {
+            for (pos in positions) {
+                // The snapshot holds the complete view so neighbor face-culling sees every visible block.
+                val rawState = access.stateOrNull(pos) ?: continue
+                var state = try {
+                    rawState.block.getActualState(rawState, access, pos)
+                } catch (_: Throwable) {
+                    rawState
+                }
+                // Some blocks (notably our controller) derive TE-backed properties (e.g. twist/formed)
+                // in getActualState(). In preview we usually have no TE, so that logic would reset
+                // explicitly configured state properties back to defaults.
+                state = copyPropertyByName(rawState, state, "twist")
+                state = copyPropertyByName(rawState, state, "formed")
+                val block = state.block
+
+                for (layer in LAYERS) {
+                    if (!block.canRenderInLayer(state, layer)) continue
+                    ForgeHooksClient.setRenderLayer(layer)
+
+                    // Vanilla path handles ambient-occlusion & neighbor face culling.
+                    brd.renderBlock(state, pos, access, bufferFor(layer))
+                }
+            }
+        } finally {
+            ForgeHooksClient.setRenderLayer(null)
+        }
+
+        val it = layerBuffers.values.iterator()
+        while (it.hasNext()) {
+            val buf = it.next()
+            if (buf.vertexCount <= 0) {
+                BufferBuilderPool.recycle(buf)
+                it.remove()
+                continue
+            }
+            buf.finishDrawing()
+        }
+        return layerBuffers.takeIf { it.isNotEmpty() }
+    }
+
+    private fun recycleAll(layerBuffers: EnumMap<BlockRenderLayer, BufferBuilder>) {
+        for (buf in layerBuffers.values) BufferBuilderPool.recycle(buf)
+    }
+
+    /** Render thread: upload baked layer buffers and return them to the pool. */
+    private fun upload(c: Chunk, layerBuffers: EnumMap<BlockRenderLayer, BufferBuilder>): ChunkMesh {
+        var bytes = 0L
+        fun uploadLayer(layer: BlockRenderLayer): VertexBuffer? {
+            val buf = layerBuffers[layer] ?: return null
+            val vbo = VertexBuffer(DefaultVertexFormats.BLOCK)
+            bytes += buf.byteBuffer.limit().toLong()
+            vbo.bufferData(buf.byteBuffer)
+            BufferBuilderPool.recycle(buf)
+            return vbo
+        }
+
+        return ChunkMesh(
+            centerX = c.centerX,
+            centerY = c.centerY,
+            centerZ = c.centerZ,
+            radiusSq = c.radiusSq,
+            solid = uploadLayer(BlockRenderLayer.SOLID),
+            cutoutMipped = uploadLayer(BlockRenderLayer.CUTOUT_MIPPED),
+            cutout = uploadLayer(BlockRenderLayer.CUTOUT),
+            translucent = uploadLayer(BlockRenderLayer.TRANSLUCENT),
+            bytes = bytes,
+        )
+    }
+
+    private fun copyPropertyByName(raw: IBlockState, actual: IBlockState, name: String): IBlockState {
+        val rawProp = raw.propertyKeys.firstOrNull { it.name == name } ?: return actual
+        val actualProp = actual.propertyKeys.firstOrNull { it.name == name } ?: return actual
+        // Only copy if both states expose a property with the same name.
+        @Suppress("UNCHECKED_CAST")
+        val rp = rawProp as IProperty<Comparable<Any>>
+        @Suppress("UNCHECKED_CAST")
+        val ap = actualProp as IProperty<Comparable<Any>>
+        return try {
+            @Suppress("UNCHECKED_CAST")
+            val v = raw.getValue(rp) as Comparable<Any>
+            actual.withProperty(ap, v)
+        } catch (_: Throwable) {
+            actual
+        }
+    }
+
+    /** Dummy access providing neighbor states + fullbright, for renderBlock face culling. */
+    private class StructureBlockAccess(
+        private val states: Map<BlockPos, IBlockState>,
+        private val fullBright: Int
+    ) : IBlockAccess {
+
+        fun stateOrNull(pos: BlockPos): IBlockState? = states[pos]
+
+        override fun getBlockState(pos: BlockPos): IBlockState {
+            return states[pos] ?: Blocks.AIR.defaultState
+        }
+
+        override fun getTileEntity(pos: BlockPos): TileEntity? = null
+
+        override fun getCombinedLight(pos: BlockPos, lightValue: Int): Int = fullBright
+
+        override fun getBiome(pos: BlockPos): Biome = Biomes.PLAINS
+
+        override fun getStrongPower(pos: BlockPos, direction: EnumFacing): Int = 0
+
+        override fun getWorldType(): WorldType = WorldType.DEFAULT
+
+        override fun isAirBlock(pos: BlockPos): Boolean {
+            val s = getBlockState(pos)
+            return s.material == Material.AIR || s.block === Blocks.AIR
+        }
+
+        override fun isSideSolid(pos: BlockPos, side: EnumFacing, _default: Boolean): Boolean {
+            return getBlockState(pos).isSideSolid(this, pos, side)
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package github.kasuminova.prototypemachinery.client.util
 
 import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
+import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap
 import it.unimi.dsi.fastutil.objects.ObjectArrayList
 import it.unimi.dsi.fastutil.objects.ObjectLists
 import net.minecraft.client.renderer.BufferBuilder
@@ -22,8 +26,10 @@ import java.util.concurrent.ConcurrentSkipListMap
  *   direct buffers are freed lazily (Cleaner/GC).
  *
  * This pool reuses BufferBuilder instances by their current byteBuffer capacity.
+ *
+ * Under [RenderCacheBudget], capacity buckets (and oversize builders) not touched for a while are dropped.
  */
-internal object BufferBuilderPool {
+internal object BufferBuilderPool : BudgetedRenderCache {
 
     private val created: MutableList<WeakReference<BufferBuilder>> = ObjectLists.synchronize(ObjectArrayList())
 
@@ -34,8 +40,12 @@ internal object BufferBuilderPool {
         val capBytes: Int,
         val builder: BufferBuilder,
         var lastRecycleNanos: Long,
+        val recycledFrame: Int,
     )
 
+    // capacity(bytes) -> frame the bucket was last borrowed from or recycled into (budget eviction).
+    private val bucketLastUsedFrame = Int2IntOpenHashMap()
+
     // Small LRU-like pool for very large builders (kept separate to avoid unbounded retention).
     // Size is intentionally tiny; lookup is linear.
     private val oversize: ArrayDeque<OversizeEntry> = ArrayDeque()
@@ -208,6 +218,7 @@ internal object BufferBuilderPool {
             }
             if (b != null) {
                 pooledBytes -= entry.key.toLong()
+                bucketLastUsedFrame.put(entry.key, RenderFrameClock.getFrameId())
                 // Ensure clean state
                 try {
                     b.byteBuffer.clear()
@@ -326,7 +337,9 @@ internal object BufferBuilderPool {
                         (maxCount <= 0 || oversize.size < maxCount) &&
                         (maxBytes <= 0L || (oversizeBytes + cap.toLong()) <= maxBytes)
                     ) {
-                        oversize.addLast(OversizeEntry(capBytes = cap, builder = builder, lastRecycleNanos = nowNanos))
+                        oversize.addLast(
+                            OversizeEntry(capBytes = cap, builder = builder, lastRecycleNanos = nowNanos, recycledFrame = RenderFrameClock.getFrameId())
+                        )
                         oversizeBytes += cap.toLong()
                         if (nowNanos != 0L) {
                             // Only force if we actually exceed the total budget.
@@ -346,6 +359,7 @@ internal object BufferBuilderPool {
         val q = pool.computeIfAbsent(cap) { ConcurrentLinkedQueue() }
         q.offer(builder)
         pooledBytes += cap.toLong()
+        bucketLastUsedFrame.put(cap, RenderFrameClock.getFrameId())
 
         if (doTrim && nowNanos != 0L) {
             // Only force maintenance if we exceed the configured total budget.
@@ -384,4 +398,43 @@ internal object BufferBuilderPool {
         }
         return sum
     }
+
+    override val budgetName: String get() = "bbPool"
+
+    // Pooled builders are idle; dropping one only costs a future allocation.
+    override val rebuildCost: Double get() = 0.25
+
+    override fun budgetBytes(): Long = synchronized(this) { totalPooledBytes() }
+
+    @Synchronized
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        for ((cap, q) in pool) {
+            val used = bucketLastUsedFrame.get(cap)
+            if (used < idleBefore) out.add(cap, used, cap.toLong() * q.size)
+        }
+        for (e in oversize) {
+            if (e.recycledFrame < idleBefore) out.add(e, e.recycledFrame, e.capBytes.toLong())
+        }
+    }
+
+    @Synchronized
+    override fun evict(handle: Any): Long {
+        return when (handle) {
+            is Int -> {
+                val q = pool.remove(handle) ?: return 0L
+                bucketLastUsedFrame.remove(handle)
+                val bytes = handle.toLong() * q.size
+                pooledBytes -= bytes
+                bytes
+            }
+
+            is OversizeEntry -> {
+                if (!oversize.remove(handle)) return 0L
+                oversizeBytes -= handle.capBytes.toLong()
+                handle.capBytes.toLong()
+            }
+
+            else -> 0L
+        }
+    }
 }
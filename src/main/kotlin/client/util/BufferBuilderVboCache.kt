@@ -1,6 +1,9 @@
 package github.kasuminova.prototypemachinery.client.util
 
 import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import github.kasuminova.prototypemachinery.client.impl.render.BudgetedRenderCache
+import github.kasuminova.prototypemachinery.client.impl.render.RenderCacheBudget
+import github.kasuminova.prototypemachinery.client.impl.render.RenderFrameClock
 import github.kasuminova.prototypemachinery.client.impl.render.RenderStats
 import net.minecraft.client.Minecraft
 import net.minecraft.client.renderer.BufferBuilder
@@ -24,8 +27,11 @@ import java.util.WeakHashMap
  * - When the builder is recycled back to [BufferBuilderPool], we delete its VBO to avoid stale draws.
  *
  * All GL operations are scheduled onto the Minecraft render thread when needed.
+ *
+ * Under [RenderCacheBudget], VBOs not drawn for a while are deleted (re-uploaded on the next draw), as are idle
+ * pooled VBO ids.
  */
-internal object BufferBuilderVboCache {
+internal object BufferBuilderVboCache : BudgetedRenderCache {
 
     internal data class Entry(
         val vboId: Int,
@@ -33,11 +39,15 @@ internal object BufferBuilderVboCache {
         val drawMode: Int,
         val vertexCount: Int,
         val bytesUsed: Int,
-    )
+    ) {
+        @Volatile
+        var lastUsedFrame: Int = 0
+    }
 
     private data class PooledVbo(
         val id: Int,
         val bytesEstimate: Int,
+        val releasedFrame: Int,
     )
 
     private val map: MutableMap<BufferBuilder, Entry> = WeakHashMap()
@@ -51,6 +61,10 @@ internal object BufferBuilderVboCache {
     @Volatile
     private var pooledBytesEstimate: Long = 0L
 
+    init {
+        RenderCacheBudget.register(this)
+    }
+
     internal fun enabled(): Boolean = RenderTuning.vboCacheEnabled
 
     internal fun size(): Int = synchronized(this) { map.size }
@@ -144,6 +158,7 @@ internal object BufferBuilderVboCache {
             // If the builder was reused without recycle (should not happen), refresh.
             if (existing.format == format && existing.drawMode == drawMode && existing.vertexCount == vertexCount) {
                 RenderStats.addVboCacheHit()
+                existing.lastUsedFrame = RenderFrameClock.getFrameId()
                 return existing
             }
             // Mismatch: drop and rebuild.
@@ -174,6 +189,7 @@ internal object BufferBuilderVboCache {
             vertexCount = vertexCount,
             bytesUsed = bytesUsed,
         )
+        entry.lastUsedFrame = RenderFrameClock.getFrameId()
 
         synchronized(this) {
             map[builder] = entry
@@ -243,7 +259,7 @@ internal object BufferBuilderVboCache {
             if (overEntries || overBytes) {
                 // fallthrough; delete outside synchronized
             } else {
-                pooled.addLast(PooledVbo(id = id, bytesEstimate = bytesEstimate.coerceAtLeast(0)))
+                pooled.addLast(PooledVbo(id = id, bytesEstimate = bytesEstimate.coerceAtLeast(0), releasedFrame = RenderFrameClock.getFrameId()))
                 pooledBytesEstimate += bytesEstimate.toLong().coerceAtLeast(0L)
                 return
             }
@@ -251,4 +267,49 @@ internal object BufferBuilderVboCache {
 
         runCatching { OpenGlHelper.glDeleteBuffers(id) }
     }
+
+    override val budgetName: String get() = "vbo"
+
+    // A deleted VBO only costs a re-upload on its next draw.
+    override val rebuildCost: Double get() = 0.5
+
+    override fun budgetBytes(): Long = bytesHeldEstimate + pooledBytesEstimate
+
+    override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+        synchronized(this) {
+            for ((builder, e) in map) {
+                if (e.lastUsedFrame < idleBefore) out.add(builder, e.lastUsedFrame, e.bytesUsed.toLong())
+            }
+            for (p in pooled) {
+                if (p.releasedFrame < idleBefore) out.add(p, p.releasedFrame, p.bytesEstimate.toLong())
+            }
+        }
+    }
+
+    /** Must be called on the render thread (deletes GL buffers directly). */
+    override fun evict(handle: Any): Long {
+        val id: Int
+        val bytes: Long
+        synchronized(this) {
+            when (handle) {
+                is BufferBuilder -> {
+                    val e = map.remove(handle) ?: return 0L
+                    bytesHeldEstimate = (bytesHeldEstimate - e.bytesUsed.toLong()).coerceAtLeast(0L)
+                    id = e.vboId
+                    bytes = e.bytesUsed.toLong()
+                }
+
+                is PooledVbo -> {
+                    if (!pooled.remove(handle)) return 0L
+                    pooledBytesEstimate = (pooledBytesEstimate - handle.bytesEstimate.toLong()).coerceAtLeast(0L)
+                    id = handle.id
+                    bytes = handle.bytesEstimate.toLong()
+                }
+
+                else -> return 0L
+            }
+        }
+        if (id != 0) runCatching { OpenGlHelper.glDeleteBuffers(id) }
+        return bytes
+    }
 }
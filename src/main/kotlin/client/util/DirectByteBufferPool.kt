@@ -61,8 +61,14 @@ internal object DirectByteBufferPool {
         )
     }
 
+    /**
+     * Borrow a buffer of at least [minCapacityBytes].
+     *
+     * Pooled buffers larger than [maxCapacityBytes] are not handed out, so callers that keep the buffer for a long
+     * time (e.g. compact packed buckets) do not end up holding an oversized one.
+     */
     @Synchronized
-    fun borrow(minCapacityBytes: Int, tag: String? = null): ByteBuffer {
+    fun borrow(minCapacityBytes: Int, tag: String? = null, maxCapacityBytes: Int = Int.MAX_VALUE): ByteBuffer {
         borrowCalls.incrementAndGet()
         val enabled = RenderTuning.directByteBufferPoolEnabled
         if (!enabled) {
@@ -72,7 +78,7 @@ internal object DirectByteBufferPool {
             return b
         }
 
-        val entry = pool.ceilingEntry(minCapacityBytes)
+        val entry = pool.ceilingEntry(minCapacityBytes)?.takeIf { it.key <= maxCapacityBytes }
         val q = entry?.value
         if (q != null) {
             val b = q.poll()
@@ -19,13 +19,13 @@ import github.kasuminova.prototypemachinery.client.gui.UIBuilderHelper
 import github.kasuminova.prototypemachinery.common.util.TwistMath
 import github.kasuminova.prototypemachinery.common.util.warnWithBlockEntity
 import github.kasuminova.prototypemachinery.impl.MachineInstanceImpl
+import github.kasuminova.prototypemachinery.impl.machine.MachineControllerScheduler
 import github.kasuminova.prototypemachinery.impl.scheduler.TaskSchedulerImpl
 import net.minecraft.block.state.IBlockState
 import net.minecraft.nbt.NBTTagCompound
 import net.minecraft.network.NetworkManager
 import net.minecraft.network.play.server.SPacketUpdateTileEntity
 import net.minecraft.util.EnumFacing
-import net.minecraft.util.ITickable
 import net.minecraft.util.ResourceLocation
 import net.minecraft.util.math.AxisAlignedBB
 import net.minecraft.util.math.BlockPos
@@ -39,8 +39,12 @@ import net.minecraft.world.World
  * - **twist** (stored here): Clockwise rotation steps around facing (0-3)
  *
  * Together, (facing, twist) uniquely identifies one of 24 cube orientations.
+ *
+ * ## Ticking
+ * Not an [net.minecraft.util.ITickable]: structure checks and client syncs are driven centrally by
+ * [MachineControllerScheduler], machine logic by the task scheduler.
  */
-public class MachineBlockEntity() : BlockEntity(), ITickable, IGuiHolder<PosGuiData> {
+public class MachineBlockEntity() : BlockEntity(), IGuiHolder<PosGuiData> {
 
     public companion object {
         private const val TESR_RENDER_BOUNDS_GROW_BLOCKS: Double = 4.0
@@ -49,11 +53,16 @@ public class MachineBlockEntity() : BlockEntity(), ITickable, IGuiHolder<PosGuiD
     public lateinit var machine: MachineInstanceImpl
         private set
 
-    public var tickElapsed: Long = 0
-        private set
+    /** World time when this TE was validated; -1 until then. */
+    private var validatedAt: Long = -1L
 
-    public var currentTotalTick: Long = 0
-        private set
+    /** Ticks since this TE was added to its world. */
+    public val tickElapsed: Long
+        get() {
+            val w = world ?: return 0L
+            if (validatedAt < 0L) return 0L
+            return (w.totalWorldTime - validatedAt).coerceAtLeast(0L)
+        }
 
     /**
      * Clockwise rotation steps around the FACING axis (0-3).
@@ -118,30 +127,28 @@ public class MachineBlockEntity() : BlockEntity(), ITickable, IGuiHolder<PosGuiD
      * Schedule a full data sync to client.
      */
     public fun sync() {
+        if (pendingSync) return
         pendingSync = true
+        val w = world
+        if (w != null && !w.isRemote) {
+            MachineControllerScheduler.requestSync(this)
+        }
     }
 
-    override fun getRenderBoundingBox(): AxisAlignedBB {
-        return AxisAlignedBB(pos).grow(TESR_RENDER_BOUNDS_GROW_BLOCKS)
+    /**
+     * Send the block update requested by [sync] (server thread, called by [MachineControllerScheduler]).
+     */
+    internal fun flushPendingSync() {
+        if (!pendingSync) return
+        pendingSync = false
+        val w = world ?: return
+        if (w.isRemote || isInvalid) return
+        val state = w.getBlockState(pos)
+        w.notifyBlockUpdate(pos, state, state, 3)
     }
 
-    override fun update() {
-        if (currentTotalTick == world.totalWorldTime) {
-            return
-        }
-        currentTotalTick = world.totalWorldTime
-
-        if (pendingSync && !world.isRemote) {
-            val state = world.getBlockState(pos)
-            world.notifyBlockUpdate(pos, state, state, 3)
-            pendingSync = false
-        }
-
-        if (!world.isRemote && ::machine.isInitialized) {
-            machine.onControllerTick()
-        }
-
-        tickElapsed++
+    override fun getRenderBoundingBox(): AxisAlignedBB {
+        return AxisAlignedBB(pos).grow(TESR_RENDER_BOUNDS_GROW_BLOCKS)
     }
 
     override fun readFromNBT(compound: NBTTagCompound) {
@@ -249,6 +256,7 @@ public class MachineBlockEntity() : BlockEntity(), ITickable, IGuiHolder<PosGuiD
         if (!world.isRemote) {
             if (::machine.isInitialized) {
                 TaskSchedulerImpl.unregister(machine)
+                MachineControllerScheduler.unregister(machine)
                 PrototypeMachinery.logger.debug("Unregistered machine instance from scheduler: {}", machine.type.id)
             } else {
                 PrototypeMachinery.logger.warnWithBlockEntity("MachineBlockEntity invalidated but machine instance is not initialized.", this)
@@ -259,11 +267,22 @@ public class MachineBlockEntity() : BlockEntity(), ITickable, IGuiHolder<PosGuiD
         }
     }
 
+    override fun onChunkUnload() {
+        super.onChunkUnload()
+        if (!world.isRemote && ::machine.isInitialized) {
+            MachineControllerScheduler.unregister(machine)
+        }
+    }
+
     override fun validate() {
         super.validate()
+        validatedAt = world.totalWorldTime
         if (!world.isRemote) {
             if (::machine.isInitialized) {
                 TaskSchedulerImpl.register(machine)
+                MachineControllerScheduler.register(machine)
+                // A sync requested before the TE had a world was never queued.
+                if (pendingSync) MachineControllerScheduler.requestSync(this)
                 PrototypeMachinery.logger.debug("Re-registered machine instance to scheduler: {}", machine.type.id)
             } else {
                 PrototypeMachinery.logger.warnWithBlockEntity("MachineBlockEntity validated but machine instance is not initialized.", this)
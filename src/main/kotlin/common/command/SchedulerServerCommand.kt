@@ -15,7 +15,7 @@ internal object SchedulerServerCommand : CommandBase() {
     override fun getName(): String = "pm_scheduler"
 
     override fun getUsage(sender: ICommandSender): String =
-        "/pm_scheduler status | report | reload | switch <JAVA|COROUTINES> | metrics <on|off>"
+        "/pm_scheduler status | report | reload | switch <JAVA|COROUTINES> | metrics <on|off> | budget <micros|off> | maxdefer <ticks>"
 
     override fun getRequiredPermissionLevel(): Int = 2
 
@@ -40,6 +40,13 @@ internal object SchedulerServerCommand : CommandBase() {
                             append(PmSchedulerConfig.scheduler.laneCount)
                             append(", metrics=")
                             append(if (PmSchedulerConfig.scheduler.metricsEnabled) "on" else "off")
+                            append(", mainBudget=")
+                            val budget = TaskSchedulerImpl.currentMainThreadBudgetMicros()
+                            append(if (budget <= 0) "off" else "${budget}us")
+                            append(", maxDefer=")
+                            append(TaskSchedulerImpl.currentMaxDeferTicks())
+                            append("t, deferred=")
+                            append(TaskSchedulerImpl.pendingMainThreadTasks())
                             append(", coroutines=")
                             append(if (TaskSchedulerImpl.isCoroutinesBackendAvailable()) "available" else "missing")
                         }
@@ -88,6 +95,39 @@ internal object SchedulerServerCommand : CommandBase() {
                 sender.sendMessage(TextComponentString("[PM] scheduler: metrics ${if (enabled) "enabled" else "disabled"} (applies next tick; also update config file to persist)"))
             }
 
+            "budget" -> {
+                val v = args.getOrNull(1)?.lowercase()
+                val micros = when (v) {
+                    "off", "0", "unlimited" -> 0
+                    else -> v?.toIntOrNull()?.takeIf { it > 0 }
+                }
+                if (micros == null) {
+                    sender.sendMessage(TextComponentString("[PM] budget usage: /pm_scheduler budget <micros|off>"))
+                    return
+                }
+                TaskSchedulerImpl.setMainThreadBudget(budgetMicros = micros, maxDeferTicks = null)
+                val applied = TaskSchedulerImpl.currentMainThreadBudgetMicros()
+                sender.sendMessage(
+                    TextComponentString(
+                        "[PM] scheduler: main thread budget ${if (applied <= 0) "disabled" else "set to ${applied}us"} (also update config file to persist)"
+                    )
+                )
+            }
+
+            "maxdefer" -> {
+                val ticks = args.getOrNull(1)?.toIntOrNull()?.takeIf { it >= 0 }
+                if (ticks == null) {
+                    sender.sendMessage(TextComponentString("[PM] maxdefer usage: /pm_scheduler maxdefer <ticks>"))
+                    return
+                }
+                TaskSchedulerImpl.setMainThreadBudget(budgetMicros = null, maxDeferTicks = ticks)
+                sender.sendMessage(
+                    TextComponentString(
+                        "[PM] scheduler: max defer set to ${TaskSchedulerImpl.currentMaxDeferTicks()} ticks (also update config file to persist)"
+                    )
+                )
+            }
+
             else -> sender.sendMessage(TextComponentString(getUsage(sender)))
         }
     }
@@ -101,7 +141,7 @@ internal object SchedulerServerCommand : CommandBase() {
         if (args.isEmpty()) return mutableListOf()
 
         if (args.size == 1) {
-            return getListOfStringsMatchingLastWord(args, listOf("status", "report", "reload", "switch", "metrics"))
+            return getListOfStringsMatchingLastWord(args, listOf("status", "report", "reload", "switch", "metrics", "budget", "maxdefer"))
         }
 
         if (args.size == 2 && args[0].equals("switch", ignoreCase = true)) {
@@ -112,6 +152,10 @@ internal object SchedulerServerCommand : CommandBase() {
             return getListOfStringsMatchingLastWord(args, listOf("on", "off"))
         }
 
+        if (args.size == 2 && args[0].equals("budget", ignoreCase = true)) {
+            return getListOfStringsMatchingLastWord(args, listOf("off", "2000", "5000", "10000"))
+        }
+
         return mutableListOf()
     }
 }
@@ -54,5 +54,22 @@ public object PmSchedulerConfig {
          */
         @JvmField
         public var metricsWindowTicks: Int = 400
+
+        /**
+         * Per-tick time budget (microseconds) of custom main-thread tasks; 0 = unlimited. Only custom-task time counts.
+         * Machine schedulables and critical / normal tasks always run; deferrable tasks that do not fit wait for the next tick.
+         *
+         * 自定义主线程任务的每 tick 时间预算（微秒）；0 表示不限制，仅统计自定义任务耗时。
+         * 机器 schedulable 与关键 / 普通任务总会执行，放不下的可顺延任务等待下一 tick。
+         */
+        @JvmField
+        public var mainThreadBudgetMicros: Int = 5000
+
+        /**
+         * Ticks a deferred main-thread task may wait before it runs regardless of the budget.
+         * 被顺延的主线程任务最多等待的 tick 数，超过后无视预算执行。
+         */
+        @JvmField
+        public var maxDeferTicks: Int = 20
     }
 }
@@ -1,6 +1,7 @@
 package github.kasuminova.prototypemachinery.common.config
 
 import github.kasuminova.prototypemachinery.PrototypeMachinery
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
 import github.kasuminova.prototypemachinery.api.tuning.OrientationToolTuning
 import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
 import github.kasuminova.prototypemachinery.api.util.probability.ProbabilityTuning
@@ -25,9 +26,11 @@ public object PrototypeMachineryCommonConfig {
 
     private const val CATEGORY_PROBABILITY = "probability"
     private const val CATEGORY_TOOLS = "tools"
+    private const val CATEGORY_MACHINE = "machine"
 
     private const val CATEGORY_RENDER_ANIM = "render_animation"
     private const val CATEGORY_RENDER_TASKS = "render_tasks"
+    private const val CATEGORY_RENDER_LOD = "render_lod"
 
     // Keep only a small set of high-impact render switches exposed to config.
     // Everything else stays as code defaults (or may be tuned via dev builds).
@@ -39,6 +42,7 @@ public object PrototypeMachineryCommonConfig {
     private val RENDER_CATEGORIES: Array<String> = arrayOf(
         CATEGORY_RENDER_ANIM,
         CATEGORY_RENDER_TASKS,
+        CATEGORY_RENDER_LOD,
         CATEGORY_RENDER_MERGE,
         CATEGORY_RENDER_ASYNC_PACK,
         CATEGORY_RENDER_VBO_CACHE,
@@ -86,6 +90,73 @@ public object PrototypeMachineryCommonConfig {
                 /* languageKey = */ "${PrototypeMachinery.MOD_ID}.config.$CATEGORY_PROBABILITY.enableExactSmallBinomial"
             )
 
+            ProbabilityTuning.enableExactBinomial = cfg.getBoolean(
+                /* name = */ "enableExactBinomial",
+                /* category = */ CATEGORY_PROBABILITY,
+                /* defaultValue = */ false,
+                /* comment = */ "If true, BinomialSampler uses an exact BTPE / inversion sampler for all parallelism values. " +
+                    "Expected O(1) cost per sample, with setup cached per (parallels, chance). " +
+                    "Takes precedence over enableExactSmallBinomial.",
+                /* languageKey = */ "${PrototypeMachinery.MOD_ID}.config.$CATEGORY_PROBABILITY.enableExactBinomial"
+            )
+
+            // Machine / process ticking
+            MachineTuning.enableProgressFastForward = cfg.getBoolean(
+                /* name = */ "enableProgressFastForward",
+                /* category = */ CATEGORY_MACHINE,
+                /* defaultValue = */ true,
+                /* comment = */ "If true, processes without per-tick requirements or process component systems are parked " +
+                    "until completion instead of being ticked every tick. Progress is computed from duration and PROCESS_SPEED.",
+                /* languageKey = */ "${PrototypeMachinery.MOD_ID}.config.$CATEGORY_MACHINE.enableProgressFastForward"
+            )
+
+            MachineTuning.enableProcessCoalescing = cfg.getBoolean(
+                /* name = */ "enableProcessCoalescing",
+                /* category = */ CATEGORY_MACHINE,
+                /* defaultValue = */ false,
+                /* comment = */ "If true, identical processes of the same recipe started on the same tick are merged into one " +
+                    "process with summed parallelism. Chance outputs are still rolled per original process.",
+                /* languageKey = */ "${PrototypeMachinery.MOD_ID}.config.$CATEGORY_MACHINE.enableProcessCoalescing"
+            )
+
+            MachineTuning.formedStructureCheckInterval = cfg.getInt(
+                /* name = */ "formedStructureCheckInterval",
+                /* category = */ CATEGORY_MACHINE,
+                /* defaultValue = */ 20,
+                /* minValue = */ 1,
+                /* maxValue = */ 1200,
+                /* comment = */ "Ticks between structure checks of a formed machine."
+            )
+
+            MachineTuning.unformedStructureCheckInterval = cfg.getInt(
+                /* name = */ "unformedStructureCheckInterval",
+                /* category = */ CATEGORY_MACHINE,
+                /* defaultValue = */ 5,
+                /* minValue = */ 1,
+                /* maxValue = */ 1200,
+                /* comment = */ "Ticks between structure checks of an unformed machine."
+            )
+
+            MachineTuning.structureCheckBudgetPerTick = cfg.getInt(
+                /* name = */ "structureCheckBudgetPerTick",
+                /* category = */ CATEGORY_MACHINE,
+                /* defaultValue = */ 64,
+                /* minValue = */ 1,
+                /* maxValue = */ 100000,
+                /* comment = */ "Maximum structure checks started per server tick. Unformed machines are served first; " +
+                    "the rest is deferred to the next tick."
+            )
+
+            MachineTuning.nbtPredicateCacheTicks = cfg.getInt(
+                /* name = */ "nbtPredicateCacheTicks",
+                /* category = */ CATEGORY_MACHINE,
+                /* defaultValue = */ 200,
+                /* minValue = */ 0,
+                /* maxValue = */ 72000,
+                /* comment = */ "Ticks a cached structure NBT check stays valid for a TileEntity that has not been marked dirty. " +
+                    "0 disables the cache."
+            )
+
             // Controller orientation tool (wrench)
             OrientationToolTuning.maxDurability = cfg.getInt(
                 /* name = */ "orientationToolMaxDurability",
@@ -235,6 +306,106 @@ public object PrototypeMachineryCommonConfig {
                     "This can be used as a fallback when certain executor implementations (e.g., virtual threads) exhibit severe scheduling issues."
             )
 
+            val keepShareIdenticalBuilds = cfg.getBoolean(
+                /* name = */ "shareIdenticalBuilds",
+                /* category = */ CATEGORY_RENDER_TASKS,
+                /* defaultValue = */ RenderTuning.shareIdenticalBuilds,
+                /* comment = */ "If true, identical machines (same model, orientation and animation state) share one render build and vertex buffer, " +
+                    "translated per machine at draw time. Shared animated machines play their animations in lockstep."
+            )
+
+            val keepRenderCacheBudgetMegabytes = cfg.getInt(
+                /* name = */ "renderCacheBudgetMegabytes",
+                /* category = */ CATEGORY_RENDER_TASKS,
+                /* defaultValue = */ (RenderTuning.renderCacheBudgetBytes / (1024L * 1024L)).toInt(),
+                /* minValue = */ 0,
+                /* maxValue = */ 65536,
+                /* comment = */ "Combined budget in MiB of all client render caches (built buffers, buffer pools, VBOs, baked models). " +
+                    "Above it, idle entries are evicted across caches, cheapest to rebuild and least recently used first. 0 = unlimited."
+            )
+
+            val keepLodEnabled = cfg.getBoolean(
+                /* name = */ "lodEnabled",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.lodEnabled,
+                /* comment = */ "If true, machine renders reduce animation detail with camera distance and stop rebuilding while outside the view frustum."
+            )
+
+            val keepLodReducedDistance = cfg.getFloat(
+                /* name = */ "lodReducedDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.lodReducedDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 1024.0f,
+                /* comment = */ "Beyond this distance (blocks) animations are sampled every lodReducedAnimationIntervalTicks ticks. 0 = disable this band."
+            ).toDouble()
+
+            val keepLodReducedAnimationIntervalTicks = cfg.getInt(
+                /* name = */ "lodReducedAnimationIntervalTicks",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.lodReducedAnimationIntervalTicks,
+                /* minValue = */ 1,
+                /* maxValue = */ 200,
+                /* comment = */ "Animation sampling interval (ticks) in the reduced band."
+            )
+
+            val keepLodFrozenDistance = cfg.getFloat(
+                /* name = */ "lodFrozenDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.lodFrozenDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 1024.0f,
+                /* comment = */ "Beyond this distance (blocks) animated parts keep their last built pose and are not rebuilt. 0 = disable this band."
+            ).toDouble()
+
+            val keepLodStaticDistance = cfg.getFloat(
+                /* name = */ "lodStaticDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.lodStaticDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 1024.0f,
+                /* comment = */ "Beyond this distance (blocks) only static model parts are drawn; animated bones disappear. 0 = disable this band."
+            ).toDouble()
+
+            val keepLodOffscreenHold = cfg.getBoolean(
+                /* name = */ "lodOffscreenHold",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.lodOffscreenHold,
+                /* comment = */ "If true, machines outside the view frustum keep their last built buffers instead of submitting rebuilds."
+            )
+
+            val keepCullingEnabled = cfg.getBoolean(
+                /* name = */ "cullingEnabled",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.cullingEnabled,
+                /* comment = */ "If true, machines outside the view frustum or hidden behind terrain skip render submission."
+            )
+
+            val keepCullingOcclusionEnabled = cfg.getBoolean(
+                /* name = */ "cullingOcclusionEnabled",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.cullingOcclusionEnabled,
+                /* comment = */ "If true, a coarse CPU depth buffer of nearby opaque terrain is used to cull hidden machines."
+            )
+
+            val keepCullingOcclusionDistance = cfg.getFloat(
+                /* name = */ "cullingOcclusionDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.cullingOcclusionDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 256.0f,
+                /* comment = */ "Radius (blocks) around the camera whose opaque terrain acts as occluders. 0 = no occluders."
+            ).toDouble()
+
+            val keepCullingBoundsMargin = cfg.getFloat(
+                /* name = */ "cullingBoundsMargin",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ RenderTuning.cullingBoundsMargin.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 64.0f,
+                /* comment = */ "Margin (blocks) added around a machine's structure bounds before frustum / occlusion tests. Larger values cull less eagerly."
+            ).toDouble()
+
             val keepMergeParallelCopyEnabled = cfg.getBoolean(
                 /* name = */ "mergeParallelCopyEnabled",
                 /* category = */ CATEGORY_RENDER_MERGE,
@@ -275,6 +446,57 @@ public object PrototypeMachineryCommonConfig {
                     "This aims to reduce CPU memcpy by removing the intermediate packed direct buffer + upload step."
             )
 
+            val keepGeckoFrameCacheEnabled = cfg.getBoolean(
+                /* name = */ "geckoFrameCacheEnabled",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ RenderTuning.geckoFrameCacheEnabled,
+                /* comment = */ "If true, baked vertex data of animated Gecko frames is cached by bone pose and replayed instead of re-baked. " +
+                    "Looping animations stop costing bake time after one loop."
+            )
+
+            val keepGeckoFrameCacheMaxMegabytes = cfg.getInt(
+                /* name = */ "geckoFrameCacheMaxMegabytes",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ (RenderTuning.geckoFrameCacheMaxBytes / (1024L * 1024L)).toInt(),
+                /* minValue = */ 0,
+                /* maxValue = */ 4096,
+                /* comment = */ "Heap budget of the animated frame cache in MiB (least recently used frames are evicted). 0 disables the cache."
+            )
+
+            val keepGeckoFrameCacheStepTicks = cfg.getFloat(
+                /* name = */ "geckoFrameCacheStepTicks",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ RenderTuning.geckoFrameCacheStepTicks.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 20.0f,
+                /* comment = */ "Animation time quantization in ticks while the frame cache is enabled. 1.0 => 20 fps, 0.5 => 40 fps. " +
+                    "Coarser steps mean fewer cached frames per loop. 0 = no extra quantization."
+            ).toDouble()
+
+            val keepGeckoFrameCacheCompact = cfg.getBoolean(
+                /* name = */ "geckoFrameCacheCompact",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ RenderTuning.geckoFrameCacheCompact,
+                /* comment = */ "If true, cached Gecko frames are stored in a compact vertex encoding (~12 instead of 28 bytes per vertex) " +
+                    "and decoded on replay. Positions/UVs are quantized to 16 bits; more frames fit into the same budget."
+            )
+
+            val keepPackedVertexCompact = cfg.getBoolean(
+                /* name = */ "packedVertexCompact",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ RenderTuning.packedVertexCompact,
+                /* comment = */ "If true, retained packed vertex buffers use a compact GL layout (16-bit positions/UVs, shared color; " +
+                    "16-20 instead of 28 bytes per vertex), de-quantized by the matrices at draw time. Lowers direct memory use."
+            )
+
+            val keepGeckoCubePipelineEnabled = cfg.getBoolean(
+                /* name = */ "geckoCubePipelineEnabled",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ RenderTuning.geckoCubePipelineEnabled,
+                /* comment = */ "If true, Gecko cubes are baked in one batch per cube through the platform vertex pipeline " +
+                    "(vectorized on modern-backend). Output is identical to the per-quad path; disable to force per-quad baking."
+            )
+
             // Apply kept values.
             RenderTuning.animSmooth = keepAnimSmooth
             RenderTuning.animStepTicks = keepAnimStepTicks
@@ -282,11 +504,29 @@ public object PrototypeMachineryCommonConfig {
             RenderTuning.animMaxQueued = keepAnimMaxQueued
             RenderTuning.animMaxStressMultiplier = keepAnimMaxStressMultiplier
             RenderTuning.renderBuildUseCoroutines = keepRenderBuildUseCoroutines
+            RenderTuning.shareIdenticalBuilds = keepShareIdenticalBuilds
+            RenderTuning.renderCacheBudgetBytes = keepRenderCacheBudgetMegabytes.toLong() * 1024L * 1024L
+            RenderTuning.lodEnabled = keepLodEnabled
+            RenderTuning.lodReducedDistance = keepLodReducedDistance
+            RenderTuning.lodReducedAnimationIntervalTicks = keepLodReducedAnimationIntervalTicks
+            RenderTuning.lodFrozenDistance = keepLodFrozenDistance
+            RenderTuning.lodStaticDistance = keepLodStaticDistance
+            RenderTuning.lodOffscreenHold = keepLodOffscreenHold
+            RenderTuning.cullingEnabled = keepCullingEnabled
+            RenderTuning.cullingOcclusionEnabled = keepCullingOcclusionEnabled
+            RenderTuning.cullingOcclusionDistance = keepCullingOcclusionDistance
+            RenderTuning.cullingBoundsMargin = keepCullingBoundsMargin
             RenderTuning.mergeParallelCopyEnabled = keepMergeParallelCopyEnabled
             RenderTuning.mergeDirectVboSliceUploadEnabled = keepMergeDirectVboSliceUploadEnabled
             RenderTuning.asyncUncachedBucketPackEnabled = keepAsyncUncachedBucketPackEnabled
             RenderTuning.vboCacheEnabled = keepVboCacheEnabled
             RenderTuning.geckoDirectMappedVboEnabled = keepGeckoDirectMappedVboEnabled
+            RenderTuning.geckoFrameCacheEnabled = keepGeckoFrameCacheEnabled
+            RenderTuning.geckoFrameCacheMaxBytes = keepGeckoFrameCacheMaxMegabytes.toLong() * 1024L * 1024L
+            RenderTuning.geckoFrameCacheStepTicks = keepGeckoFrameCacheStepTicks
+            RenderTuning.geckoFrameCacheCompact = keepGeckoFrameCacheCompact
+            RenderTuning.packedVertexCompact = keepPackedVertexCompact
+            RenderTuning.geckoCubePipelineEnabled = keepGeckoCubePipelineEnabled
 
             RenderTuning.sanitize()
 
@@ -345,6 +585,104 @@ public object PrototypeMachineryCommonConfig {
                     "This can be used as a fallback when certain executor implementations (e.g., virtual threads) exhibit severe scheduling issues."
             )
 
+            cfg.getBoolean(
+                /* name = */ "shareIdenticalBuilds",
+                /* category = */ CATEGORY_RENDER_TASKS,
+                /* defaultValue = */ keepShareIdenticalBuilds,
+                /* comment = */ "If true, identical machines share one render build and vertex buffer, translated per machine at draw time."
+            )
+
+            cfg.getInt(
+                /* name = */ "renderCacheBudgetMegabytes",
+                /* category = */ CATEGORY_RENDER_TASKS,
+                /* defaultValue = */ keepRenderCacheBudgetMegabytes,
+                /* minValue = */ 0,
+                /* maxValue = */ 65536,
+                /* comment = */ "Combined budget in MiB of all client render caches (LRU eviction across caches). 0 = unlimited."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "lodEnabled",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepLodEnabled,
+                /* comment = */ "If true, machine renders reduce animation detail with camera distance and stop rebuilding while outside the view frustum."
+            )
+
+            cfg.getFloat(
+                /* name = */ "lodReducedDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepLodReducedDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 1024.0f,
+                /* comment = */ "Beyond this distance (blocks) animations are sampled every lodReducedAnimationIntervalTicks ticks. 0 = disable this band."
+            )
+
+            cfg.getInt(
+                /* name = */ "lodReducedAnimationIntervalTicks",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepLodReducedAnimationIntervalTicks,
+                /* minValue = */ 1,
+                /* maxValue = */ 200,
+                /* comment = */ "Animation sampling interval (ticks) in the reduced band."
+            )
+
+            cfg.getFloat(
+                /* name = */ "lodFrozenDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepLodFrozenDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 1024.0f,
+                /* comment = */ "Beyond this distance (blocks) animated parts keep their last built pose and are not rebuilt. 0 = disable this band."
+            )
+
+            cfg.getFloat(
+                /* name = */ "lodStaticDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepLodStaticDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 1024.0f,
+                /* comment = */ "Beyond this distance (blocks) only static model parts are drawn; animated bones disappear. 0 = disable this band."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "lodOffscreenHold",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepLodOffscreenHold,
+                /* comment = */ "If true, machines outside the view frustum keep their last built buffers instead of submitting rebuilds."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "cullingEnabled",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepCullingEnabled,
+                /* comment = */ "If true, machines outside the view frustum or hidden behind terrain skip render submission."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "cullingOcclusionEnabled",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepCullingOcclusionEnabled,
+                /* comment = */ "If true, a coarse CPU depth buffer of nearby opaque terrain is used to cull hidden machines."
+            )
+
+            cfg.getFloat(
+                /* name = */ "cullingOcclusionDistance",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepCullingOcclusionDistance.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 256.0f,
+                /* comment = */ "Radius (blocks) around the camera whose opaque terrain acts as occluders. 0 = no occluders."
+            )
+
+            cfg.getFloat(
+                /* name = */ "cullingBoundsMargin",
+                /* category = */ CATEGORY_RENDER_LOD,
+                /* defaultValue = */ keepCullingBoundsMargin.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 64.0f,
+                /* comment = */ "Margin (blocks) added around a machine's structure bounds before frustum / occlusion tests. Larger values cull less eagerly."
+            )
+
             cfg.getBoolean(
                 /* name = */ "mergeParallelCopyEnabled",
                 /* category = */ CATEGORY_RENDER_MERGE,
@@ -379,6 +717,52 @@ public object PrototypeMachineryCommonConfig {
                 /* defaultValue = */ keepGeckoDirectMappedVboEnabled,
                 /* comment = */ "EXPERIMENTAL: For Gecko ANIMATED_ONLY builds, try to write packed vertices directly into a mapped VBO to reduce CPU memcpy."
             )
+
+            cfg.getBoolean(
+                /* name = */ "geckoFrameCacheEnabled",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ keepGeckoFrameCacheEnabled,
+                /* comment = */ "If true, baked vertex data of animated Gecko frames is cached by bone pose and replayed instead of re-baked."
+            )
+
+            cfg.getInt(
+                /* name = */ "geckoFrameCacheMaxMegabytes",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ keepGeckoFrameCacheMaxMegabytes,
+                /* minValue = */ 0,
+                /* maxValue = */ 4096,
+                /* comment = */ "Heap budget of the animated frame cache in MiB (LRU eviction). 0 disables the cache."
+            )
+
+            cfg.getFloat(
+                /* name = */ "geckoFrameCacheStepTicks",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ keepGeckoFrameCacheStepTicks.toFloat(),
+                /* minValue = */ 0.0f,
+                /* maxValue = */ 20.0f,
+                /* comment = */ "Animation time quantization in ticks while the frame cache is enabled (1.0 => 20 fps). 0 = no extra quantization."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "geckoFrameCacheCompact",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ keepGeckoFrameCacheCompact,
+                /* comment = */ "If true, cached Gecko frames use a compact 16-bit vertex encoding (~12 bytes per vertex), decoded on replay."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "packedVertexCompact",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ keepPackedVertexCompact,
+                /* comment = */ "If true, retained packed vertex buffers use a compact 16-bit GL layout (16-20 bytes per vertex) to lower direct memory use."
+            )
+
+            cfg.getBoolean(
+                /* name = */ "geckoCubePipelineEnabled",
+                /* category = */ CATEGORY_RENDER_GECKO,
+                /* defaultValue = */ keepGeckoCubePipelineEnabled,
+                /* comment = */ "If true, Gecko cubes are baked in one batch per cube through the platform vertex pipeline (vectorized on modern-backend)."
+            )
         } catch (t: Throwable) {
             // Don't fail startup on config issues.
             PrototypeMachinery.logger.warn("Failed to load config, using defaults.", t)
@@ -3,6 +3,7 @@ package github.kasuminova.prototypemachinery.common.handler
 import github.kasuminova.prototypemachinery.PrototypeMachinery
 import github.kasuminova.prototypemachinery.api.PrototypeMachineryAPI
 import github.kasuminova.prototypemachinery.client.api.render.binding.ClientRenderBindingApi
+import github.kasuminova.prototypemachinery.impl.recipe.index.RecipeIndexRegistry
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent
 import youyihj.zenutils.api.reload.ScriptReloadEvent
 
@@ -18,6 +19,10 @@ internal object CraftTweakerReloadHandler {
             // Client-side render bindings are declarative and safe to clear here.
             // This ensures reloadable scripts do not leave stale bindings behind.
             ClientRenderBindingApi.clearAll()
+
+            // Recipes re-registered by the reload are applied in one off-thread rebuild (see Post).
+            // 重载期间重新注册的配方会在一次后台重建中统一应用（见 Post）。
+            RecipeIndexRegistry.beginBulkUpdate()
         }.onFailure {
             PrototypeMachinery.logger.warn("Failed to clear registries on CraftTweaker reload (Pre).", it)
         }
@@ -25,6 +30,11 @@ internal object CraftTweakerReloadHandler {
 
     @SubscribeEvent
     fun onCraftTweakerReloadPost(event: ScriptReloadEvent.Post) {
+        runCatching {
+            RecipeIndexRegistry.rebuildAsync()
+        }.onFailure {
+            PrototypeMachinery.logger.warn("Failed to schedule recipe index rebuild on CraftTweaker reload (Post).", it)
+        }
     }
 
 }
\ No newline at end of file
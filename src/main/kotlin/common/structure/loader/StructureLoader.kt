@@ -16,6 +16,7 @@ import github.kasuminova.prototypemachinery.impl.machine.structure.SliceStructur
 import github.kasuminova.prototypemachinery.impl.machine.structure.StructureRegistryImpl
 import github.kasuminova.prototypemachinery.impl.machine.structure.TemplateStructure
 import github.kasuminova.prototypemachinery.impl.machine.structure.pattern.SimpleStructurePattern
+import github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate.AnyOfBlockNbtPredicate
 import github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate.AnyOfBlockPredicate
 import github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate.StatedBlockNbtPredicate
 import github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate.StatedBlockPredicate
@@ -562,20 +563,15 @@ public object StructureLoader {
                     states.add(altState)
                 }
 
-                // NOTE: For now, NBT constraints are supported only if there is exactly one option.
-                // If any option has NBT constraints, fall back to a simple predicate (first option) and warn.
+                // Any option with NBT constraints needs a per-option predicate; otherwise plain state matching is enough.
                 val hasAltNbt = element.nbt?.isNotEmpty() == true || element.alternatives.any { !it.nbt.isNullOrEmpty() }
                 if (hasAltNbt) {
-                    PrototypeMachinery.logger.warn(
-                        "Structure '$structureId' pattern element at ${pos.x},${pos.y},${pos.z} uses alternatives with NBT. " +
-                            "This is not supported yet; using the base option only."
-                    )
-                    val predicate = if (!element.nbt.isNullOrEmpty()) {
-                        StatedBlockNbtPredicate(baseState, element.nbt)
-                    } else {
-                        StatedBlockPredicate(baseState)
+                    val options = ArrayList<StatedBlockNbtPredicate>(states.size)
+                    options.add(StatedBlockNbtPredicate(baseState, element.nbt.orEmpty()))
+                    element.alternatives.forEachIndexed { i, alt ->
+                        options.add(StatedBlockNbtPredicate(states[i + 1], alt.nbt.orEmpty()))
                     }
-                    blocks[pos] = predicate
+                    blocks[pos] = AnyOfBlockNbtPredicate(options)
                 } else {
                     blocks[pos] = AnyOfBlockPredicate(states)
                 }
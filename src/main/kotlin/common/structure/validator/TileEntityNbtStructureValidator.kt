@@ -19,8 +19,8 @@ import net.minecraft.util.math.BlockPos
 /**
  * A best-effort TileEntity root-NBT validator.
  *
- * Designed mainly for migration of MM/MMCE `nbt` constraints, especially for positions that also have
- * multiple block alternatives (where predicate-side NBT matching is currently limited).
+ * Designed mainly for migration of MM/MMCE `nbt` constraints. Pattern elements can now carry NBT on
+ * alternatives directly (see `AnyOfBlockNbtPredicate`); this validator remains for existing structure JSON.
  *
  * JSON params schema (in `StructureData.validators`):
  *
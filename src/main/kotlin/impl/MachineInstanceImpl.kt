@@ -15,6 +15,7 @@ import github.kasuminova.prototypemachinery.api.machine.structure.StructureOrien
 import github.kasuminova.prototypemachinery.api.scheduler.ExecutionMode
 import github.kasuminova.prototypemachinery.api.scheduler.ISchedulable
 import github.kasuminova.prototypemachinery.api.scheduler.SchedulingAffinity
+import github.kasuminova.prototypemachinery.api.scheduler.TaskPriority
 import github.kasuminova.prototypemachinery.common.block.MachineBlock
 import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
 import github.kasuminova.prototypemachinery.common.block.entity.MachineBlockEntity
@@ -23,9 +24,11 @@ import github.kasuminova.prototypemachinery.common.network.PacketSyncMachine
 import github.kasuminova.prototypemachinery.common.util.warnWithBlockEntity
 import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
 import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeNbt
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeVersions
 import github.kasuminova.prototypemachinery.impl.machine.component.MachineComponentMapImpl
 import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
 import github.kasuminova.prototypemachinery.impl.machine.structure.StructureBlockPositions
+import github.kasuminova.prototypemachinery.impl.machine.structure.StructurePositionSet
 import github.kasuminova.prototypemachinery.impl.machine.structure.StructureRegistryImpl
 import github.kasuminova.prototypemachinery.impl.machine.structure.StructureSliceCounts
 import github.kasuminova.prototypemachinery.impl.machine.structure.match.StructureMatchContextImpl
@@ -54,11 +57,12 @@ public class MachineInstanceImpl(
     @Volatile
     private var lastKnownOrientation: StructureOrientation? = null
 
-    private var nextStructureCheckAt: Long = 0L
-
     @Volatile
     private var structureCheckInFlight: Boolean = false
 
+    /** Positions covered by the last applied structure match (main thread). */
+    private var structurePositions: StructurePositionSet = StructurePositionSet.EMPTY
+
     @Volatile
     private var cachedAffinityKeys: Set<Any> = emptySet()
 
@@ -139,10 +143,26 @@ public class MachineInstanceImpl(
         }
     }
 
+    // Last written attribute tag and the version it was written at; reused while the map is unchanged.
+    // 上次写出的属性标签及其版本；属性表未变化时直接复用。
+    private var attributesSnapshot: NBTTagCompound? = null
+    private var attributesSnapshotVersion: Long = MachineAttributeVersions.UNVERSIONED
+
     internal fun writeNBT(tag: NBTTagCompound) {
-        if (attributeMap is MachineAttributeMapImpl) {
+        val attributes = attributeMap
+        if (attributes is MachineAttributeMapImpl) {
             runCatching {
-                tag.setTag("Attributes", MachineAttributeNbt.writeMachineMap(attributeMap as MachineAttributeMapImpl))
+                val version = MachineAttributeNbt.machineMapVersion(attributes)
+                val cached = attributesSnapshot
+                val attributesTag = if (cached != null && version != MachineAttributeVersions.UNVERSIONED && version == attributesSnapshotVersion) {
+                    cached
+                } else {
+                    MachineAttributeNbt.writeMachineMap(attributes).also {
+                        attributesSnapshot = it
+                        attributesSnapshotVersion = version
+                    }
+                }
+                tag.setTag("Attributes", attributesTag)
             }.onFailure {
                 PrototypeMachinery.logger.warnWithBlockEntity("Error while writing machine attribute map.", blockEntity, it)
             }
@@ -261,20 +281,15 @@ public class MachineInstanceImpl(
     }
 
     /**
-     * Server-side controller tick (main thread).
+     * Server-side structure check (main thread), driven by
+     * [github.kasuminova.prototypemachinery.impl.machine.MachineControllerScheduler].
      *
      * This is the place to validate/refresh structure and rebuild [structureComponentMap].
      */
-    internal fun onControllerTick() {
+    internal fun runStructureCheck() {
         val world = blockEntity.world ?: return
         if (world.isRemote) return
 
-        val now = world.totalWorldTime
-        if (now < nextStructureCheckAt) return
-
-        // Cheap policy: check more aggressively when not formed.
-        nextStructureCheckAt = now + if (formed) 20L else 5L
-
         // Structure matching is read-only; run it in scheduler's concurrent pool.
         // Block updates / component rebuild (TileEntity access) are applied on main thread via scheduler.
         if (!structureCheckInFlight) {
@@ -314,10 +329,11 @@ public class MachineInstanceImpl(
 
                 val rootInstance = if (matched) context.getRootInstance() else null
 
-                val positions: Set<BlockPos> = if (rootInstance == null) {
-                    emptySet()
+                // Sorted set for comparisons and bounds; pattern order for building components.
+                val (positions, patternOrder) = if (rootInstance == null) {
+                    StructurePositionSet.EMPTY to LongArray(0)
                 } else {
-                    StructureBlockPositions.collect(structure, rootInstance, controllerPos)
+                    StructureBlockPositions.collectWithOrder(structure, rootInstance, controllerPos)
                 }
 
                 val sliceCounts: Map<String, Int> = if (rootInstance == null) {
@@ -328,35 +344,30 @@ public class MachineInstanceImpl(
 
                 // Compute bounds (include controller pos for render/hide systems).
                 val (minPos, maxPos) = if (matched) {
-                    var minX = controllerPos.x
-                    var minY = controllerPos.y
-                    var minZ = controllerPos.z
-                    var maxX = controllerPos.x
-                    var maxY = controllerPos.y
-                    var maxZ = controllerPos.z
-
-                    for (p in positions) {
-                        val x = p.x
-                        val y = p.y
-                        val z = p.z
-                        if (x < minX) minX = x
-                        if (y < minY) minY = y
-                        if (z < minZ) minZ = z
-                        if (x > maxX) maxX = x
-                        if (y > maxY) maxY = y
-                        if (z > maxZ) maxZ = z
+                    if (positions.isEmpty()) {
+                        controllerPos to controllerPos
+                    } else {
+                        BlockPos(
+                            minOf(positions.minX, controllerPos.x),
+                            minOf(positions.minY, controllerPos.y),
+                            minOf(positions.minZ, controllerPos.z),
+                        ) to BlockPos(
+                            maxOf(positions.maxX, controllerPos.x),
+                            maxOf(positions.maxY, controllerPos.y),
+                            maxOf(positions.maxZ, controllerPos.z),
+                        )
                     }
-
-                    BlockPos(minX, minY, minZ) to BlockPos(maxX, maxY, maxZ)
                 } else {
                     null to null
                 }
 
                 PrototypeMachineryAPI.taskScheduler.submitTask(
                     Runnable {
-                        applyStructureRefreshResult(orientation, matched, positions, sliceCounts, minPos, maxPos)
+                        applyStructureRefreshResult(orientation, matched, positions, patternOrder, sliceCounts, minPos, maxPos)
                     },
-                    ExecutionMode.MAIN_THREAD
+                    ExecutionMode.MAIN_THREAD,
+                    // Applying a refresh can rebuild many structure components; it may wait for spare budget.
+                    TaskPriority.DEFERRABLE
                 )
             },
             ExecutionMode.CONCURRENT
@@ -366,7 +377,8 @@ public class MachineInstanceImpl(
     private fun applyStructureRefreshResult(
         orientation: StructureOrientation,
         matched: Boolean,
-        positions: Set<BlockPos>,
+        positions: StructurePositionSet,
+        patternOrder: LongArray,
         sliceCounts: Map<String, Int>,
         minPos: BlockPos?,
         maxPos: BlockPos?
@@ -381,6 +393,7 @@ public class MachineInstanceImpl(
             if (formed) {
                 setFormed(false)
                 structureComponentMap.replaceAll(emptyList())
+                structurePositions = StructurePositionSet.EMPTY
 
                 // Clear any previously-synced structure render data via component incremental sync.
                 (componentMap.get(StructureRenderDataComponentType) as? StructureRenderDataComponent)?.let { c ->
@@ -396,12 +409,14 @@ public class MachineInstanceImpl(
             return
         }
 
-        // Only rebuild when needed.
-        val shouldRebuild = !formed || lastKnownOrientation != orientation
+        // Only rebuild when needed: a formed machine with the same orientation rebuilds only if its
+        // covered positions changed (e.g. variable-length slices), compared on the packed arrays.
+        val shouldRebuild = !formed || lastKnownOrientation != orientation || !structurePositions.contentEquals(positions)
         if (shouldRebuild) {
-            val components = buildStructureDerivedComponents(positions)
+            val components = buildStructureDerivedComponents(patternOrder)
             structureComponentMap.replaceAll(components)
         }
+        structurePositions = positions
 
         // Update and sync structure render data even if formed stays true (slice counts can change for variable-length structures).
         (componentMap.get(StructureRenderDataComponentType) as? StructureRenderDataComponent)?.let { c ->
@@ -418,13 +433,15 @@ public class MachineInstanceImpl(
         lastKnownOrientation = orientation
     }
 
-    private fun buildStructureDerivedComponents(positions: Set<BlockPos>): List<StructureComponent> {
+    /** Components of every provider in [patternOrder] (packed positions, structure pattern order). */
+    private fun buildStructureDerivedComponents(patternOrder: LongArray): List<StructureComponent> {
         val world = blockEntity.world ?: return emptyList()
         if (world.isRemote) return emptyList()
 
-        val components = ArrayList<StructureComponent>(positions.size)
-        for (pos in positions) {
-            val te = world.getTileEntity(pos) ?: continue
+        val components = ArrayList<StructureComponent>()
+        val pos = BlockPos.MutableBlockPos()
+        for (packed in patternOrder) {
+            val te = world.getTileEntity(StructurePositionSet.unpack(packed, pos)) ?: continue
 
             val provider = te as? StructureComponentProvider ?: continue
             runCatching {
@@ -2,6 +2,7 @@ package github.kasuminova.prototypemachinery.impl.ecs
 
 import github.kasuminova.prototypemachinery.api.ecs.TopologicalComponentMap
 import github.kasuminova.prototypemachinery.api.ecs.TopologicalComponentNode
+import java.util.Collections
 
 /**
  * # TopologicalComponentMapImpl - Topological Component Map Implementation
@@ -21,6 +22,17 @@ import github.kasuminova.prototypemachinery.api.ecs.TopologicalComponentNode
  * Time Complexity: O(V + E) where V = nodes, E = edges
  * 时间复杂度: O(V + E)，其中 V = 节点数，E = 边数
  *
+ * ## Hot iteration / 热路径遍历
+ *
+ * Each node owns a mutable dependency set exposed to readers as a read-only view, so edge edits
+ * never copy nodes. For per-tick loops, [snapshot] returns a frozen array-backed order
+ * ([TopologicalComponentSnapshot]) cached until the next structural change, and [forEachOrdered]
+ * iterates it without allocating.
+ *
+ * 每个节点持有一个可变依赖集合，对外以只读视图暴露，因此编辑依赖边时不会复制节点。
+ * 对于每 tick 的循环，[snapshot] 返回冻结的数组顺序快照（[TopologicalComponentSnapshot]），
+ * 在下一次结构变化前一直缓存；[forEachOrdered] 在其上无分配地遍历。
+ *
  * @param K Key type / 键类型
  * @param C Component type / 组件类型
  */
@@ -38,6 +50,10 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
 
     private val nodes: MutableMap<K, TopologicalComponentNode<K, C>> = LinkedHashMap()
 
+    // Backing (mutable) dependency sets; nodes expose them through read-only views.
+    // 依赖集合的可变底层存储；节点通过只读视图对外暴露。
+    private val nodeDependencies: MutableMap<K, MutableSet<K>> = HashMap()
+
     // Adjacency list: Key -> Set of keys that depend on it (Dependency -> Dependents)
     // 邻接表：键 -> 依赖于它的键集合 (依赖项 -> 依赖者)
     private val dependents: MutableMap<K, MutableSet<K>> = mutableMapOf()
@@ -60,6 +76,41 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
     private var cachedOrder: List<TopologicalComponentNode<K, C>> = emptyList()
     private var dirty: Boolean = false
 
+    @Volatile
+    private var cachedSnapshot: TopologicalComponentSnapshot<K, C> = TopologicalComponentSnapshot.empty()
+
+    /**
+     * Frozen array-backed view of [orderedComponents], rebuilt lazily after structural changes.
+     * [orderedComponents] 的冻结数组视图，在结构变化后惰性重建。
+     */
+    public fun snapshot(): TopologicalComponentSnapshot<K, C> {
+        val mod = modificationCount
+        val cached = cachedSnapshot
+        if (cached.modificationCount == mod) return cached
+
+        val order = orderedComponents
+        val keys = arrayOfNulls<Any>(order.size)
+        val components = arrayOfNulls<Any>(order.size)
+        for (i in order.indices) {
+            val node = order[i]
+            keys[i] = node.key
+            components[i] = node.component
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        val snapshot = TopologicalComponentSnapshot<K, C>(mod, keys as Array<Any>, components as Array<Any>)
+        cachedSnapshot = snapshot
+        return snapshot
+    }
+
+    /**
+     * Iterate components in topological order without allocating.
+     * 按拓扑顺序遍历组件，不产生分配。
+     */
+    public inline fun forEachOrdered(action: (key: K, component: C) -> Unit) {
+        snapshot().forEach(action)
+    }
+
     override val orderedComponents: List<TopologicalComponentNode<K, C>>
         get() {
             if (dirty) {
@@ -72,13 +123,10 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
     override operator fun get(key: K): C? = nodes[key]?.component
 
     override fun addDependency(dependentKey: K, dependencyKey: K) {
-        val dependentNode = nodes[dependentKey]
-        if (dependentNode != null) {
-            // Node exists, update it
-            if (dependencyKey !in dependentNode.dependencies) {
-                val newDependencies = dependentNode.dependencies + dependencyKey
-                nodes[dependentKey] = dependentNode.copy(dependencies = newDependencies)
-
+        val dependentDependencies = nodeDependencies[dependentKey]
+        if (dependentDependencies != null) {
+            // Node exists, update its dependency set in place (no node copy)
+            if (dependentDependencies.add(dependencyKey)) {
                 // Update graph
                 if (nodes.containsKey(dependencyKey)) {
                     dependents[dependencyKey]!!.add(dependentKey)
@@ -97,12 +145,9 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
     }
 
     override fun removeDependency(dependentKey: K, dependencyKey: K) {
-        val dependentNode = nodes[dependentKey]
-        if (dependentNode != null) {
-            if (dependencyKey in dependentNode.dependencies) {
-                val newDependencies = dependentNode.dependencies - dependencyKey
-                nodes[dependentKey] = dependentNode.copy(dependencies = newDependencies)
-
+        val dependentDependencies = nodeDependencies[dependentKey]
+        if (dependentDependencies != null) {
+            if (dependentDependencies.remove(dependencyKey)) {
                 // Update graph
                 if (nodes.containsKey(dependencyKey)) {
                     dependents[dependencyKey]?.remove(dependentKey)
@@ -126,14 +171,15 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
 
         // Check for pending reverse dependencies (dependencies that others requested this component to have)
         // 检查待定的反向依赖项（其他组件请求此组件拥有的依赖项）
-        val pendingDeps = pendingReverseDependencies.remove(key) ?: emptySet()
-        val finalDependencies = if (pendingDeps.isNotEmpty()) dependencies + pendingDeps else dependencies
+        val finalDependencies: MutableSet<K> = LinkedHashSet(dependencies)
+        pendingReverseDependencies.remove(key)?.let(finalDependencies::addAll)
 
         // Soft dependency check: we allow dependencies that don't exist yet.
         // They will be ignored during topological sort until they are added.
         // 软依赖检查：我们允许尚不存在的依赖项。
         // 在添加之前，它们将在拓扑排序期间被忽略。
-        nodes[key] = TopologicalComponentNode(key, component, finalDependencies)
+        nodeDependencies[key] = finalDependencies
+        nodes[key] = TopologicalComponentNode(key, component, Collections.unmodifiableSet(finalDependencies))
 
         // Update graph structures
         // 更新图结构
@@ -167,10 +213,9 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
         add(key, component, emptySet())
 
         // Modify target component to depend on the new component
-        val targetNode = nodes[targetKey]
-        if (targetNode != null) {
-            val newDependencies = targetNode.dependencies + key
-            nodes[targetKey] = targetNode.copy(dependencies = newDependencies)
+        val targetDependencies = nodeDependencies[targetKey]
+        if (targetDependencies != null) {
+            targetDependencies.add(key)
 
             // Update graph: target depends on key
             dependents[key]!!.add(targetKey)
@@ -199,8 +244,7 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
         // Make all roots depend on new component
         for (rootKey in roots) {
             if (rootKey == key) continue // Don't depend on self
-            val rootNode = nodes[rootKey]!!
-            nodes[rootKey] = rootNode.copy(dependencies = rootNode.dependencies + key)
+            nodeDependencies.getValue(rootKey).add(key)
 
             // Update graph: root depends on key
             dependents[key]!!.add(rootKey)
@@ -220,6 +264,7 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
 
     override fun remove(key: K) {
         val node = nodes.remove(key) ?: return
+        nodeDependencies.remove(key)
 
         // 1. Remove from dependents of its dependencies
         for (dep in node.dependencies) {
@@ -248,6 +293,7 @@ public open class TopologicalComponentMapImpl<K : Any, C : Any> : TopologicalCom
 
     override fun clear() {
         nodes.clear()
+        nodeDependencies.clear()
         dependents.clear()
         pendingDependents.clear()
         pendingReverseDependencies.clear()
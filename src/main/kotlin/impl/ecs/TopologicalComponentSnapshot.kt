@@ -0,0 +1,53 @@
+package github.kasuminova.prototypemachinery.impl.ecs
+
+/**
+ * # TopologicalComponentSnapshot - Frozen, array-backed topological order
+ * # TopologicalComponentSnapshot - 冻结的数组拓扑顺序快照
+ *
+ * Immutable view of a [TopologicalComponentMapImpl]'s order at a given [modificationCount].
+ * Keys and components are stored in parallel arrays so hot loops can iterate by index
+ * without iterators, node objects or lambda allocations.
+ *
+ * [TopologicalComponentMapImpl] 在某个 [modificationCount] 时的不可变顺序视图。
+ * 键与组件存放在并行数组中，热循环可以按下标遍历，无需迭代器、节点对象或 lambda 分配。
+ *
+ * A snapshot never changes after creation; callers compare [modificationCount] with
+ * [TopologicalComponentMapImpl.modificationCount] to detect staleness.
+ *
+ * 快照创建后不会改变；调用方通过比较 [modificationCount] 与
+ * [TopologicalComponentMapImpl.modificationCount] 判断是否过期。
+ */
+public class TopologicalComponentSnapshot<K : Any, C : Any> internal constructor(
+    /** Modification stamp of the source map when this snapshot was taken. / 快照生成时源映射的修改戳。 */
+    public val modificationCount: Int,
+    private val keys: Array<Any>,
+    private val components: Array<Any>,
+) {
+
+    public val size: Int
+        get() = keys.size
+
+    @Suppress("UNCHECKED_CAST")
+    public fun keyAt(index: Int): K = keys[index] as K
+
+    @Suppress("UNCHECKED_CAST")
+    public fun componentAt(index: Int): C = components[index] as C
+
+    /**
+     * Allocation-free ordered iteration (the lambda is inlined).
+     * 无分配的有序遍历（lambda 会被内联）。
+     */
+    public inline fun forEach(action: (key: K, component: C) -> Unit) {
+        for (i in 0 until size) {
+            action(keyAt(i), componentAt(i))
+        }
+    }
+
+    internal companion object {
+        private val EMPTY: TopologicalComponentSnapshot<Any, Any> = TopologicalComponentSnapshot(-1, emptyArray(), emptyArray())
+
+        @Suppress("UNCHECKED_CAST")
+        fun <K : Any, C : Any> empty(): TopologicalComponentSnapshot<K, C> = EMPTY as TopologicalComponentSnapshot<K, C>
+    }
+
+}
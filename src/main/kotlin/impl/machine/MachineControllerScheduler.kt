@@ -0,0 +1,170 @@
+package github.kasuminova.prototypemachinery.impl.machine
+
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
+import github.kasuminova.prototypemachinery.common.block.entity.MachineBlockEntity
+import github.kasuminova.prototypemachinery.impl.MachineInstanceImpl
+import github.kasuminova.prototypemachinery.impl.scheduler.HierarchicalTimerWheel
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent
+import net.minecraftforge.fml.common.gameevent.TickEvent
+import java.util.ArrayDeque
+import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+
+/**
+ * # MachineControllerScheduler - Central driver for controller housekeeping
+ * # MachineControllerScheduler - 控制器日常工作的集中驱动
+ *
+ * Machine controllers are not ticking tile entities. Their periodic work runs here once per server tick:
+ *
+ * 机器控制器不是 tick 型 TileEntity，其周期性工作统一在这里每服务器 tick 执行一次：
+ *
+ * - **Structure checks** are scheduled on a [HierarchicalTimerWheel]. The first check of each machine (and the
+ *   first one after its formed state changes) is jittered by position, so controllers loaded together (e.g. one
+ *   chunk) do not re-check on the same tick.
+ *   Due checks go to two lanes (unformed first, then formed) and at most
+ *   [MachineTuning.structureCheckBudgetPerTick] are started per tick; the rest wait for the next tick.
+ *   A share of each tick's budget is reserved for the formed lane, so a burst of unformed controllers cannot
+ *   keep broken structures from ever being noticed.
+ * - **Pending client syncs** requested through [MachineBlockEntity.sync] are flushed.
+ *
+ * - **结构检查**由 [HierarchicalTimerWheel] 调度。每台机器的首次检查（以及成型状态变化后的首次检查）按坐标抖动，
+ *   同时加载的控制器（例如同一区块）不会在同一 tick 重新检查。
+ *   到期的检查进入两条通道（未成型优先，其次已成型），每 tick 最多启动
+ *   [MachineTuning.structureCheckBudgetPerTick] 次，其余顺延到下一 tick。
+ *   每 tick 预算中有一部分保留给已成型通道，避免大量未成型控制器使损坏的结构永远得不到检查。
+ * - 刷新通过 [MachineBlockEntity.sync] 请求的客户端同步。
+ *
+ * Registration and ticking happen on the server thread; only [requestSync] may be called from any thread.
+ * 注册与 tick 均在服务器线程进行；仅 [requestSync] 可在任意线程调用。
+ */
+internal object MachineControllerScheduler {
+
+    private class Entry(val machine: MachineInstanceImpl) {
+        var cancelled: Boolean = false
+        var wasFormed: Boolean = false
+    }
+
+    private val entries = IdentityHashMap<MachineInstanceImpl, Entry>()
+    private val wheel = HierarchicalTimerWheel<Entry>()
+    private val due = ArrayList<Entry>()
+
+    private val unformedLane = ArrayDeque<Entry>()
+    private val formedLane = ArrayDeque<Entry>()
+
+    private val pendingSyncs = ConcurrentLinkedQueue<MachineBlockEntity>()
+
+    // Share of the per-tick budget reserved for the formed lane (1 / divisor, at least one check).
+    // 每 tick 预算中保留给已成型通道的份额（1 / 除数，至少一次检查）。
+    private const val FORMED_RESERVE_DIVISOR: Int = 4
+
+    /** Number of registered controllers. / 已注册的控制器数量。 */
+    val registeredCount: Int
+        get() = entries.size
+
+    fun register(machine: MachineInstanceImpl) {
+        if (entries.containsKey(machine)) return
+        val entry = Entry(machine)
+        entries[machine] = entry
+        wheel.schedule(entry, wheel.currentTick + 1L + jitter(machine, unformedInterval()))
+    }
+
+    fun unregister(machine: MachineInstanceImpl) {
+        entries.remove(machine)?.cancelled = true
+    }
+
+    /**
+     * Queue a block update for [blockEntity] at the start of the next server tick.
+     * 在下一服务器 tick 开始时为 [blockEntity] 排队一次方块更新。
+     */
+    fun requestSync(blockEntity: MachineBlockEntity) {
+        pendingSyncs.add(blockEntity)
+    }
+
+    @SubscribeEvent
+    internal fun onServerTick(event: TickEvent.ServerTickEvent) {
+        if (event.phase != TickEvent.Phase.START) return
+        flushSyncs()
+        tick()
+    }
+
+    internal fun tick() {
+        wheel.advance(due)
+        if (due.isNotEmpty()) {
+            for (entry in due) {
+                if (entry.cancelled) continue
+                if (entry.machine.isFormed()) formedLane.add(entry) else unformedLane.add(entry)
+            }
+            due.clear()
+        }
+
+        var budget = MachineTuning.structureCheckBudgetPerTick.coerceAtLeast(1)
+        // Unformed checks may use the budget except the formed lane's reserve; unused reserve goes back to them.
+        // 未成型检查可使用除已成型通道保留额度外的预算；未用完的保留额度再交还给它们。
+        var unformedBudget = if (formedLane.isEmpty()) budget else budget - formedReserve(budget)
+        while (budget > 0) {
+            val fromUnformed: Boolean
+            val entry = if (unformedBudget > 0 && unformedLane.isNotEmpty()) {
+                fromUnformed = true
+                unformedLane.poll()
+            } else if (formedLane.isNotEmpty()) {
+                fromUnformed = false
+                formedLane.poll()
+            } else {
+                fromUnformed = true
+                unformedLane.poll() ?: break
+            }
+            if (entry.cancelled) continue
+
+            val machine = entry.machine
+            if (!machine.isActive()) {
+                unregister(machine)
+                continue
+            }
+
+            machine.runStructureCheck()
+            budget--
+            if (fromUnformed) unformedBudget--
+
+            val formed = machine.isFormed()
+            var delay = if (formed) formedInterval() else unformedInterval()
+            // Re-spread phases whenever the cadence changes, so machines that formed together stay apart.
+            // 每当检查节奏变化时重新打散相位，使同时成型的机器不会聚在同一 tick。
+            if (formed != entry.wasFormed) delay += jitter(machine, delay)
+            entry.wasFormed = formed
+            wheel.schedule(entry, wheel.currentTick + delay)
+        }
+    }
+
+    /** Drop all state (server stopping). / 清空全部状态（服务器关闭时）。 */
+    fun clear() {
+        for (entry in entries.values) entry.cancelled = true
+        entries.clear()
+        wheel.clear()
+        due.clear()
+        unformedLane.clear()
+        formedLane.clear()
+        pendingSyncs.clear()
+    }
+
+    private fun flushSyncs() {
+        while (true) {
+            val blockEntity = pendingSyncs.poll() ?: break
+            blockEntity.flushPendingSync()
+        }
+    }
+
+    // Both lanes always get some budget; with a budget of one check, the lanes take turns.
+    // 两条通道总能分到预算；预算仅为一次检查时两条通道轮流使用。
+    private fun formedReserve(budget: Int): Int =
+        if (budget >= 2) (budget / FORMED_RESERVE_DIVISOR).coerceIn(1, budget - 1) else (wheel.currentTick and 1L).toInt()
+
+    private fun formedInterval(): Long = MachineTuning.formedStructureCheckInterval.coerceAtLeast(1).toLong()
+
+    private fun unformedInterval(): Long = MachineTuning.unformedStructureCheckInterval.coerceAtLeast(1).toLong()
+
+    private fun jitter(machine: MachineInstanceImpl, interval: Long): Long {
+        var h = machine.blockEntity.pos.toLong() * -0x61c8864680b583ebL
+        h = h xor (h ushr 31)
+        return Math.floorMod(h, interval)
+    }
+}
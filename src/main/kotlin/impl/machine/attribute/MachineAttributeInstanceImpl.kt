@@ -18,14 +18,19 @@ import java.util.concurrent.ConcurrentHashMap
  *
  * ## Caching / 缓存
  *
- * [value] is cached and invalidated when:
+ * [value] is cached against [version], a global stamp (see [MachineAttributeVersions]) refreshed when:
  * - [base] changes
  * - a modifier is added/removed
  *
- * [value] 有缓存，并在以下情况下失效：
+ * Modifiers are additionally kept pre-bucketed by [MachineAttributeModifier.Operation] in arrays
+ * (rebuilt on add/remove), so recomputation does not allocate.
+ *
+ * [value] 按 [version]（全局版本戳，见 [MachineAttributeVersions]）缓存，并在以下情况下刷新：
  * - [base] 发生变化
  * - 增删修改器
  *
+ * 修改器另外按 [MachineAttributeModifier.Operation] 预先分桶存入数组（增删时重建），重新计算时不分配内存。
+ *
  * ## Modifier order / 修改器顺序
  *
  * The canonical order is: ADDITION -> MULTIPLY_BASE -> MULTIPLY_TOTAL.
@@ -35,12 +40,24 @@ import java.util.concurrent.ConcurrentHashMap
 public class MachineAttributeInstanceImpl(
     override val attribute: MachineAttributeType,
     base: Double = 0.0
-) : MachineAttributeInstance {
+) : MachineAttributeInstance, VersionedAttributeInstance {
 
     private val modifiersMap: MutableMap<String, MachineAttributeModifier> = ConcurrentHashMap()
 
+    // Indexed by Operation.ordinal; replaced wholesale on add/remove.
+    // 以 Operation.ordinal 为索引；增删时整体替换。
+    @Volatile
+    private var buckets: Array<Array<MachineAttributeModifier>> =
+        Array(MachineAttributeVersions.OPERATIONS.size) { MachineAttributeVersions.EMPTY_MODIFIERS }
+
+    @Volatile
+    private var stamp: Long = MachineAttributeVersions.next()
+
+    override val version: Long
+        get() = stamp
+
     @Volatile
-    private var dirty: Boolean = true
+    private var cachedVersion: Long = MachineAttributeVersions.UNVERSIONED
 
     @Volatile
     private var cachedValue: Double = 0.0
@@ -60,23 +77,30 @@ public class MachineAttributeInstanceImpl(
 
     override val value: Double
         get() {
-            if (!dirty) return cachedValue
+            val v = stamp
+            if (cachedVersion == v) return cachedValue
 
             val computed = calculateValue()
             cachedValue = computed
-            dirty = false
+            cachedVersion = v
             return computed
         }
 
     override fun addModifier(modifier: MachineAttributeModifier): Boolean {
         val inserted = modifiersMap.putIfAbsent(modifier.id, modifier) == null
-        if (inserted) markDirty()
+        if (inserted) {
+            rebuildBuckets()
+            markDirty()
+        }
         return inserted
     }
 
     override fun removeModifier(id: String): MachineAttributeModifier? {
         val removed = modifiersMap.remove(id)
-        if (removed != null) markDirty()
+        if (removed != null) {
+            rebuildBuckets()
+            markDirty()
+        }
         return removed
     }
 
@@ -88,37 +112,39 @@ public class MachineAttributeInstanceImpl(
         return modifiersMap[id]
     }
 
+    /**
+     * Modifiers of the given operation, in application order. The returned array must not be modified.
+     * 指定运算类型的修改器（按应用顺序）。返回的数组不得修改。
+     */
+    internal fun bucket(operation: MachineAttributeModifier.Operation): Array<MachineAttributeModifier> {
+        return buckets[operation.ordinal]
+    }
+
+    internal fun hasModifiers(): Boolean = modifiersMap.isNotEmpty()
+
     private fun markDirty() {
-        dirty = true
+        stamp = MachineAttributeVersions.next()
     }
 
-    private fun calculateValue(): Double {
-        // Apply modifiers in order: ADDITION -> MULTIPLY_BASE -> MULTIPLY_TOTAL
-        val additions = ArrayList<MachineAttributeModifier>()
-        val multiplyBase = ArrayList<MachineAttributeModifier>()
-        val multiplyTotal = ArrayList<MachineAttributeModifier>()
-
-        for (modifier in modifiersMap.values) {
-            when (modifier.operation) {
-                MachineAttributeModifier.Operation.ADDITION -> additions.add(modifier)
-                MachineAttributeModifier.Operation.MULTIPLY_BASE -> multiplyBase.add(modifier)
-                MachineAttributeModifier.Operation.MULTIPLY_TOTAL -> multiplyTotal.add(modifier)
-            }
+    @Synchronized
+    private fun rebuildBuckets() {
+        val snapshot = modifiersMap.values.toList()
+        buckets = Array(MachineAttributeVersions.OPERATIONS.size) { ordinal ->
+            val matching = snapshot.filter { it.operation.ordinal == ordinal }
+            if (matching.isEmpty()) MachineAttributeVersions.EMPTY_MODIFIERS else matching.toTypedArray()
         }
+    }
 
+    private fun calculateValue(): Double {
+        // Apply modifiers in order: ADDITION -> MULTIPLY_BASE -> MULTIPLY_TOTAL
         val base = this.base
         var result = base
 
-        for (modifier in additions) {
-            result = modifier.apply(base, result)
-        }
-
-        for (modifier in multiplyBase) {
-            result = modifier.apply(base, result)
-        }
-
-        for (modifier in multiplyTotal) {
-            result = modifier.apply(base, result)
+        val buckets = this.buckets
+        for (bucket in buckets) {
+            for (modifier in bucket) {
+                result = modifier.apply(base, result)
+            }
         }
 
         return result
@@ -19,11 +19,22 @@ import java.util.concurrent.ConcurrentHashMap
  * This map is persisted in full (base + modifiers) via `MachineAttributeNbt.writeMachineMap`.
  *
  * 该 Map 会通过 `MachineAttributeNbt.writeMachineMap` 全量持久化（base + modifiers）。
+ *
+ * [structureVersion] changes whenever an attribute instance is added, replaced or removed,
+ * letting overlays cache their merged view.
+ *
+ * 当属性实例被添加、替换或移除时 [structureVersion] 会变化，供 overlay 缓存其合并视图。
  */
-public class MachineAttributeMapImpl : MachineAttributeMap {
+public class MachineAttributeMapImpl : MachineAttributeMap, VersionedAttributeMap {
 
     private val attributesMap: MutableMap<MachineAttributeType, MachineAttributeInstance> = ConcurrentHashMap()
 
+    @Volatile
+    private var stamp: Long = MachineAttributeVersions.next()
+
+    override val structureVersion: Long
+        get() = stamp
+
     override val attributes: Map<MachineAttributeType, MachineAttributeInstance>
         get() = attributesMap
 
@@ -32,15 +43,27 @@ public class MachineAttributeMapImpl : MachineAttributeMap {
     }
 
     public fun getOrCreateAttribute(type: MachineAttributeType, defaultBase: Double = 0.0): MachineAttributeInstance {
-        return attributesMap.computeIfAbsent(type) { MachineAttributeInstanceImpl(it, defaultBase) }
+        attributesMap[type]?.let { return it }
+        var created = false
+        val instance = attributesMap.computeIfAbsent(type) {
+            created = true
+            MachineAttributeInstanceImpl(it, defaultBase)
+        }
+        // Bump only once the new instance is visible, so a view taken under the new stamp always contains it.
+        if (created) stamp = MachineAttributeVersions.next()
+        return instance
     }
 
     public fun setAttribute(instance: MachineAttributeInstance): MachineAttributeInstance? {
-        return attributesMap.put(instance.attribute, instance)
+        val previous = attributesMap.put(instance.attribute, instance)
+        stamp = MachineAttributeVersions.next()
+        return previous
     }
 
     public fun removeAttribute(type: MachineAttributeType): MachineAttributeInstance? {
-        return attributesMap.remove(type)
+        val removed = attributesMap.remove(type)
+        if (removed != null) stamp = MachineAttributeVersions.next()
+        return removed
     }
 
     public fun hasAttribute(type: MachineAttributeType): Boolean {
@@ -49,6 +72,7 @@ public class MachineAttributeMapImpl : MachineAttributeMap {
 
     public fun clear() {
         attributesMap.clear()
+        stamp = MachineAttributeVersions.next()
     }
 
 }
@@ -47,6 +47,23 @@ public object MachineAttributeNbt {
         return out
     }
 
+    /**
+     * Version of everything [writeMachineMap] reads, or [MachineAttributeVersions.UNVERSIONED] if some instance
+     * is not versioned. An unchanged version means the previously written tag is still accurate.
+     *
+     * [writeMachineMap] 所读取内容的版本；若存在无版本的实例则返回 [MachineAttributeVersions.UNVERSIONED]。
+     * 版本不变即表示上一次写出的标签仍然准确。
+     */
+    internal fun machineMapVersion(map: MachineAttributeMapImpl): Long {
+        var version = map.structureVersion
+        for (instance in map.attributes.values) {
+            val v = (instance as? VersionedAttributeInstance)?.version ?: return MachineAttributeVersions.UNVERSIONED
+            if (v == MachineAttributeVersions.UNVERSIONED) return v
+            if (v > version) version = v
+        }
+        return version
+    }
+
     public fun readMachineMap(tag: NBTTagCompound, map: MachineAttributeMapImpl) {
         map.clear()
 
@@ -98,6 +115,20 @@ public object MachineAttributeNbt {
         return out
     }
 
+    /**
+     * Version of everything [writeOverlayLocal] reads (see [machineMapVersion]).
+     * [writeOverlayLocal] 所读取内容的版本（见 [machineMapVersion]）。
+     */
+    internal fun overlayLocalVersion(map: OverlayMachineAttributeMapImpl): Long {
+        var version = map.localVersion
+        for (instance in map.localInstances()) {
+            val v = instance.version
+            if (v == MachineAttributeVersions.UNVERSIONED) return v
+            if (v > version) version = v
+        }
+        return version
+    }
+
     public fun readOverlayLocal(tag: NBTTagCompound, map: OverlayMachineAttributeMapImpl) {
         map.clearLocal()
 
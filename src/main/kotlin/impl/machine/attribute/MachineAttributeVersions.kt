@@ -0,0 +1,50 @@
+package github.kasuminova.prototypemachinery.impl.machine.attribute
+
+import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeModifier
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Global, monotonically increasing version stamps for attribute instances and maps.
+ * 属性实例与属性 Map 使用的全局单调递增版本戳。
+ *
+ * Every mutation takes a fresh stamp from one shared counter, so a derived value (e.g. an overlay)
+ * can use `max(own stamps, parent stamp)` as its version: the max strictly grows whenever any input changes.
+ *
+ * 每次变更都从同一个共享计数器取新戳，因此派生值（如 overlay）可以用 `max(自身戳, 父戳)` 作为版本：
+ * 任何输入变化时该最大值都会严格增大。
+ */
+internal object MachineAttributeVersions {
+
+    /** Version reported by instances whose value cannot be cached. / 无法缓存的实例所报告的版本。 */
+    const val UNVERSIONED: Long = -1L
+
+    private val counter: AtomicLong = AtomicLong()
+
+    fun next(): Long = counter.incrementAndGet()
+
+    val EMPTY_MODIFIERS: Array<MachineAttributeModifier> = emptyArray()
+
+    val OPERATIONS: Array<MachineAttributeModifier.Operation> = MachineAttributeModifier.Operation.values()
+
+}
+
+/**
+ * Attribute instance that exposes a version stamp (see [MachineAttributeVersions]).
+ * 暴露版本戳的属性实例（见 [MachineAttributeVersions]）。
+ */
+public interface VersionedAttributeInstance {
+
+    /** Changes whenever [github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeInstance.value] may change. */
+    public val version: Long
+
+}
+
+/**
+ * Attribute map that exposes a structural version stamp (attributes added/removed/replaced).
+ * 暴露结构版本戳（属性增删/替换）的属性 Map。
+ */
+public interface VersionedAttributeMap {
+
+    public val structureVersion: Long
+
+}
@@ -23,12 +23,22 @@ import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
  * If a parent exists, setting [base] will store an override instead of mutating the parent.
  *
  * 如果存在 parent，设置 [base] 会记录 override，而不会修改 parent。
+ *
+ * ## Caching / 缓存
+ *
+ * [version] is the max of the overlay's own stamps and the parent's [VersionedAttributeInstance.version],
+ * so a change on the machine baseline invalidates every process overlay without any notification fan-out.
+ * [value] is cached against it; parents that are not versioned are recomputed on every read.
+ *
+ * [version] 取 overlay 自身版本戳与父实例 [VersionedAttributeInstance.version] 的最大值，
+ * 因此机器基线的变化会让所有进程 overlay 失效，而无需逐个通知。
+ * [value] 基于该版本缓存；未实现版本的父实例每次读取都会重新计算。
  */
 public class OverlayMachineAttributeInstanceImpl(
     override val attribute: MachineAttributeType,
     private val parent: MachineAttributeInstance?,
     baseWhenNoParent: Double,
-) : MachineAttributeInstance {
+) : MachineAttributeInstance, VersionedAttributeInstance {
 
     private val local: MachineAttributeInstanceImpl = MachineAttributeInstanceImpl(attribute, baseWhenNoParent)
 
@@ -38,12 +48,23 @@ public class OverlayMachineAttributeInstanceImpl(
      */
     private var baseOverride: Double? = null
 
+    @Volatile
+    private var overrideStamp: Long = MachineAttributeVersions.next()
+
+    @Volatile
+    private var cachedVersion: Long = MachineAttributeVersions.UNVERSIONED
+
+    @Volatile
+    private var cachedValue: Double = 0.0
+
     internal fun hasParent(): Boolean = parent != null
 
     internal fun getBaseOverrideOrNull(): Double? = baseOverride
 
     internal fun setBaseOverrideOrNull(value: Double?) {
+        if (baseOverride == value) return
         baseOverride = value
+        overrideStamp = MachineAttributeVersions.next()
     }
 
     internal fun localModifiers(): Map<String, MachineAttributeModifier> = local.modifiers
@@ -69,7 +90,7 @@ public class OverlayMachineAttributeInstanceImpl(
         get() = baseOverride ?: parent?.base ?: local.base
         set(value) {
             if (parent != null) {
-                baseOverride = value
+                setBaseOverrideOrNull(value)
             } else {
                 local.base = value
             }
@@ -83,8 +104,26 @@ public class OverlayMachineAttributeInstanceImpl(
             return merged
         }
 
+    override val version: Long
+        get() {
+            val parentVersion = when (parent) {
+                null -> 0L
+                is VersionedAttributeInstance -> parent.version
+                else -> return MachineAttributeVersions.UNVERSIONED
+            }
+            return maxOf(overrideStamp, local.version, parentVersion)
+        }
+
     override val value: Double
-        get() = calculateValue()
+        get() {
+            val v = version
+            if (v != MachineAttributeVersions.UNVERSIONED && cachedVersion == v) return cachedValue
+
+            val computed = calculateValue()
+            cachedValue = computed
+            cachedVersion = v
+            return computed
+        }
 
     override fun addModifier(modifier: MachineAttributeModifier): Boolean {
         return local.addModifier(modifier)
@@ -107,23 +146,26 @@ public class OverlayMachineAttributeInstanceImpl(
         val base = this.base
         var result = base
 
-        val merged = modifiers.values
-
-        // Apply in order: ADDITION -> MULTIPLY_BASE -> MULTIPLY_TOTAL
-        for (modifier in merged) {
-            if (modifier.operation == MachineAttributeModifier.Operation.ADDITION) {
-                result = modifier.apply(base, result)
-            }
-        }
-
-        for (modifier in merged) {
-            if (modifier.operation == MachineAttributeModifier.Operation.MULTIPLY_BASE) {
-                result = modifier.apply(base, result)
+        // Apply in order: ADDITION -> MULTIPLY_BASE -> MULTIPLY_TOTAL.
+        // Parent modifiers shadowed by a local modifier with the same id are skipped (local wins).
+        // 按顺序应用：加法 -> 基础乘法 -> 总乘法。与本地同 id 的父修改器会被跳过（本地优先）。
+        val parentImpl = parent as? MachineAttributeInstanceImpl
+        val hasLocal = local.hasModifiers()
+        for (operation in MachineAttributeVersions.OPERATIONS) {
+            if (parentImpl != null) {
+                for (modifier in parentImpl.bucket(operation)) {
+                    if (hasLocal && local.hasModifier(modifier.id)) continue
+                    result = modifier.apply(base, result)
+                }
+            } else if (parent != null) {
+                for (modifier in parent.modifiers.values) {
+                    if (modifier.operation != operation) continue
+                    if (hasLocal && local.hasModifier(modifier.id)) continue
+                    result = modifier.apply(base, result)
+                }
             }
-        }
 
-        for (modifier in merged) {
-            if (modifier.operation == MachineAttributeModifier.Operation.MULTIPLY_TOTAL) {
+            for (modifier in local.bucket(operation)) {
                 result = modifier.apply(base, result)
             }
         }
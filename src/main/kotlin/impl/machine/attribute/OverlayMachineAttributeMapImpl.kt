@@ -3,6 +3,7 @@ package github.kasuminova.prototypemachinery.impl.machine.attribute
 import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeInstance
 import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeMap
 import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeType
+import java.util.Collections
 import java.util.concurrent.ConcurrentHashMap
 
 /**
@@ -21,22 +22,58 @@ import java.util.concurrent.ConcurrentHashMap
  *
  * 只应持久化 *本地变化*（本地 modifiers + base override），
  * 否则会把机器基线重复写进每个进程存档。
+ *
+ * ## Caching / 缓存
+ *
+ * The merged [attributes] view is built once and reused until the parent's
+ * [VersionedAttributeMap.structureVersion] or the local attribute set changes, so hot
+ * `attributes[type]` reads are a plain map lookup plus the instance's cached value.
+ *
+ * 合并后的 [attributes] 视图只构建一次，直到父 Map 的 [VersionedAttributeMap.structureVersion]
+ * 或本地属性集合发生变化前都会复用，因此热路径上的 `attributes[type]` 读取只是一次普通 Map 查找加上实例的缓存值。
  */
 public class OverlayMachineAttributeMapImpl(
     private val parent: MachineAttributeMap,
     private val defaultBase: Double = 0.0,
 ) : MachineAttributeMap {
 
+    private class MergedView(
+        val parentVersion: Long,
+        val localVersion: Long,
+        val map: Map<MachineAttributeType, MachineAttributeInstance>,
+    )
+
     private val local: MutableMap<MachineAttributeType, OverlayMachineAttributeInstanceImpl> = ConcurrentHashMap()
 
+    @Volatile
+    private var localStamp: Long = MachineAttributeVersions.next()
+
+    @Volatile
+    private var mergedView: MergedView? = null
+
     internal fun localInstances(): Collection<OverlayMachineAttributeInstanceImpl> = local.values
 
+    /** Changes when local instances are created or cleared. / 本地实例被创建或清空时变化。 */
+    internal val localVersion: Long
+        get() = localStamp
+
     internal fun clearLocal() {
         local.clear()
+        localStamp = MachineAttributeVersions.next()
     }
 
     override val attributes: Map<MachineAttributeType, MachineAttributeInstance>
         get() {
+            val parentVersion = (parent as? VersionedAttributeMap)?.structureVersion ?: MachineAttributeVersions.UNVERSIONED
+            val cached = mergedView
+            if (cached != null &&
+                parentVersion != MachineAttributeVersions.UNVERSIONED &&
+                cached.parentVersion == parentVersion &&
+                cached.localVersion == localStamp
+            ) {
+                return cached.map
+            }
+
             // Merge view (local overrides parent by key).
             val merged = LinkedHashMap<MachineAttributeType, MachineAttributeInstance>()
 
@@ -52,7 +89,11 @@ public class OverlayMachineAttributeMapImpl(
                 }
             }
 
-            return merged
+            // Read localStamp after building: the merge itself may have created local instances.
+            // 在构建之后读取 localStamp：合并过程本身可能创建了本地实例。
+            val view = Collections.unmodifiableMap(merged)
+            mergedView = MergedView(parentVersion, localStamp, view)
+            return view
         }
 
     public fun getAttribute(type: MachineAttributeType): MachineAttributeInstance? {
@@ -62,16 +103,23 @@ public class OverlayMachineAttributeMapImpl(
     }
 
     public fun getOrCreateAttribute(type: MachineAttributeType, defaultBase: Double = this.defaultBase): MachineAttributeInstance {
-        return local.computeIfAbsent(type) {
+        local[type]?.let { return it }
+        var created = false
+        val instance = local.computeIfAbsent(type) {
             val parentInstance = findParentInstance(type)
             val baseWhenNoParent = parentInstance?.base ?: defaultBase
+            created = true
             OverlayMachineAttributeInstanceImpl(it, parentInstance, baseWhenNoParent)
         }
+        // Bump only once the new instance is visible, so a view taken under the new stamp always contains it.
+        if (created) localStamp = MachineAttributeVersions.next()
+        return instance
     }
 
     private fun findParentInstance(type: MachineAttributeType): MachineAttributeInstance? {
         // Fast path: same key instance.
-        parent.attributes[type]?.let { return it }
+        val direct = if (parent is MachineAttributeMapImpl) parent.getAttribute(type) else parent.attributes[type]
+        direct?.let { return it }
 
         // Fallback: match by id.
         return parent.attributes.entries.firstOrNull { (k, _) -> k.id == type.id }?.value
@@ -7,8 +7,12 @@ import github.kasuminova.prototypemachinery.api.machine.component.MachineCompone
 import github.kasuminova.prototypemachinery.api.machine.component.type.FactoryRecipeProcessorComponent
 import github.kasuminova.prototypemachinery.api.recipe.process.RecipeExecutor
 import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
 import github.kasuminova.prototypemachinery.impl.recipe.RecipeManagerImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.ProcessCoalescing
+import github.kasuminova.prototypemachinery.impl.recipe.process.ProcessFastForward
 import github.kasuminova.prototypemachinery.impl.recipe.process.RecipeProcessImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.CoalescedProcessComponentType
 import net.minecraft.nbt.NBTTagCompound
 import net.minecraft.nbt.NBTTagList
 import net.minecraftforge.common.util.Constants
@@ -26,13 +30,44 @@ public class FactoryRecipeProcessorComponentImpl(
 
     override val executors: MutableList<RecipeExecutor> = ArrayList()
 
+    /** Parked processes with a no-op tick stage (see [ProcessFastForward]). / tick 阶段为空操作的挂起进程。 */
+    internal val fastForward: ProcessFastForward = ProcessFastForward()
+
+    /**
+     * Processes started since the last processor pass; merge targets for [ProcessCoalescing].
+     * 自上次处理器遍历以来启动的进程；[ProcessCoalescing] 的合并目标。
+     */
+    internal val coalescingCandidates: MutableList<RecipeProcessImpl> = ArrayList()
+
+    /**
+     * Concurrency slots taken by [activeProcesses]: a coalesced process counts once per merged member, so merging
+     * never lets more original processes run than [maxConcurrentProcesses], and a split always fits.
+     *
+     * [activeProcesses] 占用的并发槽位：合并进程按成员数计，因此合并不会让运行的原始进程数超过
+     * [maxConcurrentProcesses]，拆分时也总能放下。
+     */
+    internal fun slotsInUse(): Int {
+        var slots = 0
+        for (process in activeProcesses) {
+            slots += (process[CoalescedProcessComponentType]?.size ?: 1).coerceAtLeast(1)
+        }
+        return slots
+    }
+
     override fun startProcess(process: RecipeProcess): Boolean {
-        if (activeProcesses.size >= maxConcurrentProcesses) return false
+        if (slotsInUse() >= maxConcurrentProcesses) return false
+
+        val coalescing = MachineTuning.enableProcessCoalescing
+        if (coalescing && ProcessCoalescing.tryMerge(coalescingCandidates, process)) return true
+
         activeProcesses.add(process)
+        if (coalescing && process is RecipeProcessImpl) coalescingCandidates.add(process)
         return true
     }
 
     override fun stopProcess(process: RecipeProcess) {
+        (process as? RecipeProcessImpl)?.let { fastForward.unpark(it) }
+        coalescingCandidates.remove(process)
         activeProcesses.remove(process)
     }
 
@@ -45,8 +80,9 @@ public class FactoryRecipeProcessorComponentImpl(
 
         val processList = NBTTagList()
         activeProcesses.forEach { process ->
-            val processTag = process.serializeNBT()
-            processTag.setString("RecipeID", process.recipe.id)
+            // Unchanged processes hand back their previous (immutable) snapshot instead of re-serializing.
+            val processTag = (process as? RecipeProcessImpl)?.saveSnapshot()
+                ?: process.serializeNBT().also { it.setString("RecipeID", process.recipe.id) }
             processList.appendTag(processTag)
         }
         nbt.setTag("Processes", processList)
@@ -57,6 +93,8 @@ public class FactoryRecipeProcessorComponentImpl(
     override fun readNBT(nbt: NBTTagCompound) {
         if (nbt.hasKey("Processes")) {
             val processList = nbt.getTagList("Processes", Constants.NBT.TAG_COMPOUND)
+            fastForward.clear()
+            coalescingCandidates.clear()
             activeProcesses.clear()
             for (i in 0 until processList.tagCount()) {
                 val processTag = processList.getCompoundTagAt(i)
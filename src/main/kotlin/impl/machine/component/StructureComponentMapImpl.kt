@@ -2,6 +2,7 @@ package github.kasuminova.prototypemachinery.impl.machine.component
 
 import github.kasuminova.prototypemachinery.api.machine.component.StructureComponent
 import github.kasuminova.prototypemachinery.api.machine.component.StructureComponentMap
+import github.kasuminova.prototypemachinery.impl.machine.component.container.AggregatedInputLedger
 import java.util.Collections
 import java.util.IdentityHashMap
 import java.util.concurrent.ConcurrentHashMap
@@ -11,6 +12,7 @@ import java.util.concurrent.ConcurrentHashMap
  *
  * - Maintains insertion order.
  * - Provides a small instanceOf cache.
+ * - Owns snapshot-scoped [AggregatedInputLedger]s (see [ledger]).
  */
 public class StructureComponentMapImpl : StructureComponentMap {
 
@@ -21,7 +23,8 @@ public class StructureComponentMapImpl : StructureComponentMap {
      */
     private data class Snapshot(
         val components: List<StructureComponent>,
-        val instanceOfCache: ConcurrentHashMap<Class<*>, Set<StructureComponent>>
+        val instanceOfCache: ConcurrentHashMap<Class<*>, Set<StructureComponent>>,
+        val ledgers: ConcurrentHashMap<Any, AggregatedInputLedger<*>> = ConcurrentHashMap()
     )
 
     @Volatile
@@ -44,9 +47,11 @@ public class StructureComponentMapImpl : StructureComponentMap {
         newList.addAll(current.components)
         newList.add(component)
 
-        snapshot = Snapshot(
-            components = Collections.unmodifiableList(newList),
-            instanceOfCache = ConcurrentHashMap()
+        swap(
+            Snapshot(
+                components = Collections.unmodifiableList(newList),
+                instanceOfCache = ConcurrentHashMap()
+            )
         )
     }
 
@@ -56,12 +61,47 @@ public class StructureComponentMapImpl : StructureComponentMap {
      * Intended for structure forming/refresh: build a new list, then swap.
      */
     internal fun replaceAll(components: Collection<StructureComponent>) {
-        snapshot = Snapshot(
-            components = Collections.unmodifiableList(ArrayList(components)),
-            instanceOfCache = ConcurrentHashMap()
+        swap(
+            Snapshot(
+                components = Collections.unmodifiableList(ArrayList(components)),
+                instanceOfCache = ConcurrentHashMap()
+            )
         )
     }
 
+    /**
+     * Get (or build) the snapshot-scoped ledger registered under [key].
+     * Ledgers live as long as the current component snapshot and are closed when it is replaced.
+     *
+     * 获取（或构建）以 [key] 注册的快照级账本。账本与当前组件快照同生命周期，快照被替换时关闭。
+     */
+    internal fun <T> ledger(key: Any, factory: (List<StructureComponent>) -> AggregatedInputLedger<T>): AggregatedInputLedger<T> {
+        val current = snapshot
+        current.ledgers[key]?.let {
+            @Suppress("UNCHECKED_CAST")
+            return it as AggregatedInputLedger<T>
+        }
+
+        val created = factory(current.components)
+        val existing = current.ledgers.putIfAbsent(key, created)
+        if (existing != null) {
+            created.close()
+            @Suppress("UNCHECKED_CAST")
+            return existing as AggregatedInputLedger<T>
+        }
+        // The snapshot may have been swapped while building; make sure we don't leak listeners.
+        if (snapshot !== current) created.close()
+        return created
+    }
+
+    private fun swap(next: Snapshot) {
+        val previous = snapshot
+        snapshot = next
+        for (ledger in previous.ledgers.values) {
+            ledger.close()
+        }
+    }
+
     override fun <C : StructureComponent> getByInstanceOf(clazz: Class<out C>): Collection<C> {
         val current = snapshot
         val cached = current.instanceOfCache[clazz]
@@ -0,0 +1,157 @@
+package github.kasuminova.prototypemachinery.impl.machine.component.container
+
+import github.kasuminova.prototypemachinery.api.key.PMKey
+import github.kasuminova.prototypemachinery.api.storage.ObservableResourceStorage
+import github.kasuminova.prototypemachinery.api.storage.ResourceChange
+import github.kasuminova.prototypemachinery.api.storage.ResourceStorageListener
+
+/**
+ * # AggregatedInputLedger - Machine-wide available input totals
+ * # AggregatedInputLedger - 机器级可用输入汇总账本
+ *
+ * Maps key -> total extractable amount across all OUTPUT-mode ports of one structure snapshot,
+ * so availability checks are a hash lookup instead of `extract(SIMULATE)` over every port.
+ *
+ * 将 key -> 所有 OUTPUT 模式端口的可提取总量 汇总在一起（按结构快照），
+ * 可用量查询只需一次哈希查找，而不是对每个端口调用 `extract(SIMULATE)`。
+ *
+ * Sources are kept up to date in three ways:
+ * - storage-backed ports: incrementally, via [ResourceStorageListener]
+ * - capability-backed ports: re-collected lazily when the stamp (world time + port execute counters) changes
+ * - any other container: queried directly on each lookup (no caching possible)
+ *
+ * 数据源通过三种方式保持最新：
+ * - 存储型端口：通过 [ResourceStorageListener] 增量更新
+ * - Capability 端口：当戳（世界时间 + 端口执行计数）变化时惰性重新收集
+ * - 其它容器：每次查询时直接询问（无法缓存）
+ *
+ * Instances are owned by [github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl]
+ * and closed when the structure snapshot is replaced.
+ *
+ * 实例由 [github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl] 持有，
+ * 在结构快照被替换时关闭。
+ */
+public class AggregatedInputLedger<T> internal constructor(
+    private val storages: List<ObservableResourceStorage<PMKey<T>>>,
+    private val capBacked: List<CapBackedSource<T>>,
+    private val opaque: List<(PMKey<T>, Long) -> Long>,
+    private val worldStamp: () -> Long,
+) {
+
+    /**
+     * A port without change notifications whose contents can be enumerated.
+     * 没有变更通知、但可以枚举内容的端口。
+     */
+    internal interface CapBackedSource<T> {
+        /** Incremented whenever this port executes IO itself. / 端口自身执行 IO 时递增。 */
+        val executeStamp: Long
+
+        /** Add this port's extractable amounts to [into]. / 将此端口的可提取量累加到 [into]。 */
+        fun collectAvailable(into: MutableMap<PMKey<T>, Long>)
+    }
+
+    private val storageTotals = HashMap<PMKey<T>, Long>()
+    private val capTotals = HashMap<PMKey<T>, Long>()
+
+    private var capWorldStamp: Long = Long.MIN_VALUE
+    private var capExecuteStamp: Long = Long.MIN_VALUE
+
+    private var closed: Boolean = false
+
+    private val listener = ResourceStorageListener<PMKey<T>> { change -> onStorageChanged(change) }
+
+    init {
+        synchronized(this) {
+            val seen = HashSet<PMKey<T>>()
+            for (storage in storages) {
+                // Slotted storages list a key once per occupied slot; getAmount already returns the total.
+                seen.clear()
+                for (key in storage.getAllResources()) {
+                    if (!seen.add(key)) continue
+                    adjust(storageTotals, key, storage.getAmount(key))
+                }
+                storage.addListener(listener)
+            }
+        }
+    }
+
+    /**
+     * Extractable amount of [key], capped at [upTo].
+     * [key]'s count is ignored (key equality is prototype-based).
+     *
+     * [key] 的可提取量，上限为 [upTo]。[key] 的数量会被忽略（key 相等性基于原型）。
+     */
+    public fun available(key: PMKey<T>, upTo: Long): Long {
+        if (upTo <= 0L) return 0L
+
+        var total: Long
+        synchronized(this) {
+            refreshCapBackedIfStale()
+            total = (storageTotals[key] ?: 0L) + (capTotals[key] ?: 0L)
+        }
+        if (total >= upTo) return upTo
+
+        for (source in opaque) {
+            total += source(key, upTo - total)
+            if (total >= upTo) return upTo
+        }
+        return total
+    }
+
+    /** True if at least [required] of [key] can be extracted. / 是否至少可提取 [required] 的 [key]。 */
+    public fun hasAvailable(key: PMKey<T>, required: Long): Boolean = required <= 0L || available(key, required) >= required
+
+    /**
+     * Detach from all observed storages. Further lookups still work but may be stale.
+     * 从所有被观察的存储上解绑。之后的查询仍可用但可能过期。
+     */
+    public fun close() {
+        synchronized(this) {
+            if (closed) return
+            closed = true
+        }
+        for (storage in storages) {
+            storage.removeListener(listener)
+        }
+    }
+
+    private fun onStorageChanged(change: ResourceChange<PMKey<T>>) {
+        val delta = change.delta
+        if (delta == 0L) return
+        synchronized(this) {
+            adjust(storageTotals, change.key, delta)
+        }
+    }
+
+    private fun refreshCapBackedIfStale() {
+        if (capBacked.isEmpty()) return
+
+        val world = worldStamp()
+        var execute = 0L
+        for (source in capBacked) execute += source.executeStamp
+
+        // Long.MIN_VALUE = no world (e.g. detached machine): never trust the cache.
+        if (world != Long.MIN_VALUE && world == capWorldStamp && execute == capExecuteStamp) return
+
+        capTotals.clear()
+        for (source in capBacked) {
+            source.collectAvailable(capTotals)
+        }
+        capWorldStamp = world
+        capExecuteStamp = execute
+    }
+
+    internal companion object {
+        internal fun <T> adjust(totals: MutableMap<PMKey<T>, Long>, key: PMKey<T>, delta: Long) {
+            if (delta == 0L) return
+            val current = totals[key]
+            if (current == null) {
+                // Keys are mutable (count); store a private copy.
+                if (delta > 0L) totals[key.copy()] = delta
+                return
+            }
+            val next = current + delta
+            if (next <= 0L) totals.remove(key) else totals[key] = next
+        }
+    }
+}
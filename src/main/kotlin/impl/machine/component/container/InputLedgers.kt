@@ -0,0 +1,151 @@
+package github.kasuminova.prototypemachinery.impl.machine.component.container
+
+import github.kasuminova.prototypemachinery.api.key.PMKey
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.component.StructureComponent
+import github.kasuminova.prototypemachinery.api.machine.component.container.StructureFluidKeyContainer
+import github.kasuminova.prototypemachinery.api.machine.component.container.StructureItemKeyContainer
+import github.kasuminova.prototypemachinery.api.storage.ObservableResourceStorage
+import github.kasuminova.prototypemachinery.api.util.PortMode
+import github.kasuminova.prototypemachinery.api.util.TransactionMode
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import net.minecraft.item.ItemStack
+import net.minecraftforge.fluids.FluidStack
+import java.util.Collections
+import java.util.IdentityHashMap
+
+/**
+ * Accessors for the per-machine [AggregatedInputLedger]s of item / fluid OUTPUT ports.
+ *
+ * 机器级物品 / 流体 OUTPUT 端口 [AggregatedInputLedger] 的访问入口。
+ *
+ * Returns null when the machine's structure component map is not the default implementation;
+ * callers then fall back to querying ports directly.
+ *
+ * 若机器的结构组件表不是默认实现则返回 null；调用方应回退为直接查询各端口。
+ */
+internal object InputLedgers {
+
+    private val ITEM_LEDGER = Any()
+    private val FLUID_LEDGER = Any()
+
+    fun items(machine: MachineInstance): AggregatedInputLedger<ItemStack>? {
+        val map = machine.structureComponentMap as? StructureComponentMapImpl ?: return null
+        return map.ledger(ITEM_LEDGER) { components -> buildItemLedger(machine, components) }
+    }
+
+    fun fluids(machine: MachineInstance): AggregatedInputLedger<FluidStack>? {
+        val map = machine.structureComponentMap as? StructureComponentMapImpl ?: return null
+        return map.ledger(FLUID_LEDGER) { components -> buildFluidLedger(machine, components) }
+    }
+
+    /**
+     * Extractable amount of [key] across [sources], capped at [upTo].
+     * Answered by the ledger when available, otherwise by simulating each source in order.
+     *
+     * [sources] 中 [key] 的可提取量，上限为 [upTo]。
+     * 有账本时直接由账本回答，否则按顺序对每个源做模拟提取。
+     */
+    fun availableItem(
+        machine: MachineInstance,
+        sources: Collection<StructureItemKeyContainer>,
+        key: PMKey<ItemStack>,
+        upTo: Long,
+    ): Long {
+        if (upTo <= 0L) return 0L
+        items(machine)?.let { return it.available(key, upTo) }
+
+        var total = 0L
+        for (c in sources) {
+            if (total >= upTo) break
+            total += c.extract(key, upTo - total, TransactionMode.SIMULATE)
+        }
+        return total.coerceAtMost(upTo)
+    }
+
+    /**
+     * Fluid variant of [availableItem]. / [availableItem] 的流体版本。
+     */
+    fun availableFluid(
+        machine: MachineInstance,
+        sources: Collection<StructureFluidKeyContainer>,
+        key: PMKey<FluidStack>,
+        upTo: Long,
+    ): Long {
+        if (upTo <= 0L) return 0L
+        fluids(machine)?.let { return it.available(key, upTo) }
+
+        var total = 0L
+        for (c in sources) {
+            if (total >= upTo) break
+            total += c.extract(key, upTo - total, TransactionMode.SIMULATE)
+        }
+        return total.coerceAtMost(upTo)
+    }
+
+    /**
+     * Shortfall when extracting [required] of [key] from [sources] (0 = fully available).
+     * 从 [sources] 提取 [required] 的 [key] 时的缺口（0 表示完全可用）。
+     */
+    fun missingItem(
+        machine: MachineInstance,
+        sources: Collection<StructureItemKeyContainer>,
+        key: PMKey<ItemStack>,
+        required: Long,
+    ): Long = if (required <= 0L) 0L else required - availableItem(machine, sources, key, required)
+
+    /**
+     * Fluid variant of [missingItem]. / [missingItem] 的流体版本。
+     */
+    fun missingFluid(
+        machine: MachineInstance,
+        sources: Collection<StructureFluidKeyContainer>,
+        key: PMKey<FluidStack>,
+        required: Long,
+    ): Long = if (required <= 0L) 0L else required - availableFluid(machine, sources, key, required)
+
+    private fun buildItemLedger(machine: MachineInstance, components: List<StructureComponent>): AggregatedInputLedger<ItemStack> {
+        val storages = ArrayList<ObservableResourceStorage<PMKey<ItemStack>>>()
+        val seenStorages = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
+        val capBacked = ArrayList<AggregatedInputLedger.CapBackedSource<ItemStack>>()
+        val opaque = ArrayList<(PMKey<ItemStack>, Long) -> Long>()
+
+        for (c in components) {
+            if (c !is StructureItemKeyContainer || !c.isAllowedPortMode(PortMode.OUTPUT)) continue
+            when (c) {
+                is StructureItemStorageContainerComponent -> if (seenStorages.add(c.storage)) storages += c.storage
+                is StructureItemContainerComponent -> capBacked += object : AggregatedInputLedger.CapBackedSource<ItemStack> {
+                    override val executeStamp: Long get() = c.executeStamp
+                    override fun collectAvailable(into: MutableMap<PMKey<ItemStack>, Long>) = c.collectAvailable(into)
+                }
+                else -> opaque += { key, amount -> c.extract(key, amount, TransactionMode.SIMULATE) }
+            }
+        }
+        return AggregatedInputLedger(storages, capBacked, opaque, worldStamp(machine))
+    }
+
+    private fun buildFluidLedger(machine: MachineInstance, components: List<StructureComponent>): AggregatedInputLedger<FluidStack> {
+        val storages = ArrayList<ObservableResourceStorage<PMKey<FluidStack>>>()
+        val seenStorages = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
+        val capBacked = ArrayList<AggregatedInputLedger.CapBackedSource<FluidStack>>()
+        val opaque = ArrayList<(PMKey<FluidStack>, Long) -> Long>()
+
+        for (c in components) {
+            if (c !is StructureFluidKeyContainer || !c.isAllowedPortMode(PortMode.OUTPUT)) continue
+            val storage = (c as? StructureFluidStorageContainerComponent)?.storage
+            when {
+                storage is ObservableResourceStorage<PMKey<FluidStack>> -> if (seenStorages.add(storage)) storages += storage
+                c is StructureFluidContainerComponent -> capBacked += object : AggregatedInputLedger.CapBackedSource<FluidStack> {
+                    override val executeStamp: Long get() = c.executeStamp
+                    override fun collectAvailable(into: MutableMap<PMKey<FluidStack>, Long>) = c.collectAvailable(into)
+                }
+                else -> opaque += { key, amount -> c.extract(key, amount, TransactionMode.SIMULATE) }
+            }
+        }
+        return AggregatedInputLedger(storages, capBacked, opaque, worldStamp(machine))
+    }
+
+    private fun worldStamp(machine: MachineInstance): () -> Long = {
+        machine.blockEntity.world?.totalWorldTime ?: Long.MIN_VALUE
+    }
+}
@@ -6,6 +6,7 @@ import github.kasuminova.prototypemachinery.api.machine.component.container.Stru
 import github.kasuminova.prototypemachinery.api.storage.ResourceStorage
 import github.kasuminova.prototypemachinery.api.util.PortMode
 import github.kasuminova.prototypemachinery.api.util.TransactionMode
+import github.kasuminova.prototypemachinery.impl.key.fluid.PMFluidKeyType
 import net.minecraftforge.fluids.FluidStack
 import net.minecraftforge.fluids.capability.IFluidHandler
 
@@ -25,6 +26,14 @@ public class StructureFluidContainerComponent(
         private const val VANILLA_STACK_CAP: Int = Int.MAX_VALUE / 2
     }
 
+    /**
+     * Number of EXECUTE operations performed through this port; lets [AggregatedInputLedger]
+     * notice our own IO within the same tick.
+     */
+    @Volatile
+    internal var executeStamp: Long = 0L
+        private set
+
     override fun isAllowedPortMode(mode: PortMode): Boolean = allowed.contains(mode)
 
     override fun insert(key: PMKey<FluidStack>, amount: Long, mode: TransactionMode): Long {
@@ -37,6 +46,7 @@ public class StructureFluidContainerComponent(
         if (amount <= 0L) return 0L
 
         val doFill = mode == TransactionMode.EXECUTE
+        if (doFill) executeStamp++
         val proto = key.get()
 
         var remaining = amount
@@ -63,6 +73,7 @@ public class StructureFluidContainerComponent(
         if (amount <= 0L) return 0L
 
         val doDrain = mode == TransactionMode.EXECUTE
+        if (doDrain) executeStamp++
         val proto = key.get()
 
         var remaining = amount
@@ -78,6 +89,25 @@ public class StructureFluidContainerComponent(
 
         return drainedTotal
     }
+
+    /**
+     * Add the drainable amount of every distinct fluid in this handler to [into] (for [AggregatedInputLedger]).
+     * 将此 handler 中每种流体的可抽取量累加到 [into]（供 [AggregatedInputLedger] 使用）。
+     */
+    internal fun collectAvailable(into: MutableMap<PMKey<FluidStack>, Long>) {
+        val seen = HashSet<PMKey<FluidStack>>()
+        for (tank in handler.tankProperties) {
+            val contents = tank.contents ?: continue
+            if (contents.amount <= 0) continue
+
+            val key = PMFluidKeyType.create(contents)
+            if (!seen.add(key)) continue
+
+            val drained = handler.drain(FluidStack(contents.fluid, VANILLA_STACK_CAP, contents.tag), false) ?: continue
+            if (drained.amount <= 0) continue
+            AggregatedInputLedger.adjust(into, key, drained.amount.toLong())
+        }
+    }
 }
 
 /**
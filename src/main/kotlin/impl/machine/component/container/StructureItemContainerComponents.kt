@@ -42,6 +42,14 @@ public class StructureItemContainerComponent(
             return max.toLong()
         }
 
+    /**
+     * Number of EXECUTE operations performed through this port; lets [AggregatedInputLedger]
+     * notice our own IO within the same tick.
+     */
+    @Volatile
+    internal var executeStamp: Long = 0L
+        private set
+
     override fun isAllowedPortMode(mode: PortMode): Boolean = allowed.contains(mode)
 
     override fun insert(key: PMKey<ItemStack>, amount: Long, mode: TransactionMode): Long {
@@ -54,6 +62,7 @@ public class StructureItemContainerComponent(
         if (amount <= 0L) return 0L
 
         val simulate = mode == TransactionMode.SIMULATE
+        if (!simulate) executeStamp++
         val proto = (key as? PMItemKey)?.uniqueKey?.getItemStackUnsafe() ?: key.get()
 
         var remaining = amount
@@ -88,6 +97,7 @@ public class StructureItemContainerComponent(
         if (amount <= 0L) return 0L
 
         val simulate = mode == TransactionMode.SIMULATE
+        if (!simulate) executeStamp++
         val wanted = (key as? PMItemKey)?.uniqueKey ?: PMItemKeyType.getUniqueKey(key.get())
 
         var remaining = amount
@@ -124,6 +134,24 @@ public class StructureItemContainerComponent(
         return extractedTotal
     }
 
+    /**
+     * Add the extractable amount of every stack in this handler to [into] (for [AggregatedInputLedger]).
+     * 将此 handler 中每个物品的可提取量累加到 [into]（供 [AggregatedInputLedger] 使用）。
+     */
+    internal fun collectAvailable(into: MutableMap<PMKey<ItemStack>, Long>) {
+        for (i in 0 until handler.slots) {
+            val inSlot = handler.getStackInSlot(i)
+            if (inSlot.isEmpty) continue
+
+            val got = handler.extractItem(i, inSlot.count, true)
+            if (got.isEmpty) continue
+
+            val copy = inSlot.copy()
+            copy.count = 1
+            AggregatedInputLedger.adjust(into, PMItemKeyType.create(copy), got.count.toLong())
+        }
+    }
+
     override fun getAllKeysSnapshot(): Collection<PMKey<ItemStack>> {
         val out = LinkedHashSet<PMKey<ItemStack>>()
         for (i in 0 until handler.slots) {
@@ -11,6 +11,11 @@ import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeP
 import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
 import github.kasuminova.prototypemachinery.api.recipe.requirement.component.system.RecipeRequirementSystem
 import github.kasuminova.prototypemachinery.api.recipe.requirement.component.system.RequirementTransaction
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
+import github.kasuminova.prototypemachinery.impl.machine.component.FactoryRecipeProcessorComponentImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.ProcessCoalescing
+import github.kasuminova.prototypemachinery.impl.recipe.process.RecipeProcessComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.RecipeProcessImpl
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.ProcessUnscaledProgressComponent
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.ProcessUnscaledProgressComponentType
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.RecipeLifecycleStateProcessComponent
@@ -26,9 +31,24 @@ public object FactoryRecipeProcessorSystem : MachineSystem<FactoryRecipeProcesso
     override fun onTick(machine: MachineInstance, component: FactoryRecipeProcessorComponent) {
         component.tickProcesses() // Tick executors
 
+        // Fast-forward: wake due processes (they are then ticked normally below); parked ones are skipped entirely.
+        val fastForward = (component as? FactoryRecipeProcessorComponentImpl)?.fastForward
+        if (fastForward != null) {
+            if (MachineTuning.enableProgressFastForward) {
+                fastForward.advance(machine.attributeMap)
+            } else {
+                fastForward.wakeAll()
+            }
+        }
+        val parkingEnabled = fastForward != null && MachineTuning.enableProgressFastForward
+
+        // Members split out of coalesced processes whose start did not succeed; added after iteration.
+        var restored: MutableList<RecipeProcessImpl>? = null
+
         val iterator = component.activeProcesses.iterator()
         while (iterator.hasNext()) {
             val process = iterator.next()
+            if (parkingEnabled && process is RecipeProcessImpl && process.fastForwardTicket != null) continue
 
             // Tick process component systems (pre/tick/post) once per machine tick.
             tickProcessComponents(process, Phase.PRE)
@@ -39,7 +59,24 @@ public object FactoryRecipeProcessorSystem : MachineSystem<FactoryRecipeProcesso
 
                 // Start stage: ensure all start() have succeeded before progressing.
                 if (!lifecycle.started) {
-                    when (val r = executeStart(process)) {
+                    val r = executeStart(process)
+                    if (r !is ProcessResult.Success && process is RecipeProcessImpl) {
+                        // A merged start that cannot go through as a whole: restore the original processes
+                        // so each of them can start (or fail) on its own from the next tick.
+                        val split = ProcessCoalescing.split(process)
+                        if (split.isNotEmpty()) {
+                            if (restored == null) restored = ArrayList()
+                            restored.addAll(split)
+                            val reason = when (r) {
+                                is ProcessResult.Blocked -> r.reason
+                                is ProcessResult.Failure -> r.reason
+                                else -> process.status.message
+                            }
+                            process.status = process.status.copy(message = reason, isError = false)
+                            continue
+                        }
+                    }
+                    when (r) {
                         is ProcessResult.Success -> lifecycle.started = true
                         is ProcessResult.Blocked -> {
                             process.status = process.status.copy(message = r.reason, isError = false)
@@ -92,6 +129,10 @@ public object FactoryRecipeProcessorSystem : MachineSystem<FactoryRecipeProcesso
                             message = "Processing",
                             isError = false
                         )
+
+                        if (parkingEnabled && process is RecipeProcessImpl && !isComplete(process) && canFastForward(process)) {
+                            fastForward!!.park(process, machine.attributeMap)
+                        }
                     }
 
                     is ProcessResult.Blocked -> {
@@ -131,6 +172,13 @@ public object FactoryRecipeProcessorSystem : MachineSystem<FactoryRecipeProcesso
             }
         }
 
+        (component as? FactoryRecipeProcessorComponentImpl)?.coalescingCandidates?.clear()
+        if (restored != null) {
+            // Every member kept its slot while merged (see FactoryRecipeProcessorComponentImpl.slotsInUse),
+            // so all of them fit back in.
+            component.activeProcesses.addAll(restored)
+        }
+
         if (component.activeProcesses.isEmpty()) {
             // component.status = RecipeProcessorComponent.ProcessorStatus.IDLE // Already handled in stopRecipe/remove
         }
@@ -144,8 +192,29 @@ public object FactoryRecipeProcessorSystem : MachineSystem<FactoryRecipeProcesso
         PRE, TICK, POST
     }
 
-    @Suppress("UNCHECKED_CAST")
     private fun tickProcessComponents(process: RecipeProcess, phase: Phase) {
+        val map = process.components
+        if (map is RecipeProcessComponentMapImpl) {
+            // Fast path: cached parallel arrays, no iterator / lambda / node access.
+            // 快速路径：缓存的并行数组，无迭代器 / lambda / 节点访问。
+            val entries = map.tickEntries()
+            val systems = entries.systems
+            val components = entries.components
+            for (i in systems.indices) {
+                when (phase) {
+                    Phase.PRE -> systems[i].onPreTick(process, components[i])
+                    Phase.TICK -> systems[i].onTick(process, components[i])
+                    Phase.POST -> systems[i].onPostTick(process, components[i])
+                }
+            }
+            return
+        }
+
+        tickProcessComponentsGeneric(process, phase)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun tickProcessComponentsGeneric(process: RecipeProcess, phase: Phase) {
         process.components.orderedComponents.forEach { node ->
             val component = node.component
             val type = node.key as RecipeProcessComponentType<RecipeProcessComponent>
@@ -159,6 +228,30 @@ public object FactoryRecipeProcessorSystem : MachineSystem<FactoryRecipeProcesso
         }
     }
 
+    /**
+     * Whether every remaining tick of [process] would only advance progress: no process component systems
+     * and every tickable requirement reports [RecipeRequirementSystem.Tickable.isTickNoOp].
+     *
+     * [process] 剩余的每个 tick 是否都只会推进进度：没有进程组件系统，
+     * 且所有可 tick 需求都报告 [RecipeRequirementSystem.Tickable.isTickNoOp]。
+     */
+    private fun canFastForward(process: RecipeProcess): Boolean {
+        val map = process.components as? RecipeProcessComponentMapImpl ?: return false
+        if (map.tickEntries().systems.isNotEmpty()) return false
+
+        for ((_, list) in process.recipe.requirements) {
+            for (raw in list) {
+                val component = RecipeRequirementOverlay.resolve(process, raw)
+                val system = systemFor(component)
+                if (system is RecipeRequirementSystem.Tickable<*>) {
+                    @Suppress("UNCHECKED_CAST")
+                    if (!(system as RecipeRequirementSystem.Tickable<RecipeRequirementComponent>).isTickNoOp(process, component)) return false
+                }
+            }
+        }
+        return true
+    }
+
     private fun isComplete(process: RecipeProcess): Boolean {
         val duration = process.recipe.durationTicks.coerceAtLeast(0).toFloat()
         if (duration <= 0.0f) return true
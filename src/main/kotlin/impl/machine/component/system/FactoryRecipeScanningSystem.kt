@@ -9,9 +9,12 @@ import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
 import github.kasuminova.prototypemachinery.api.recipe.RecipeManager
 import github.kasuminova.prototypemachinery.api.recipe.index.IRecipeIndexRegistry
 import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementTypes
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.api.recipe.scanning.RecipeParallelismConstraint
 import github.kasuminova.prototypemachinery.api.recipe.scanning.RecipeParallelismConstraintRegistry
 import github.kasuminova.prototypemachinery.common.util.warnWithBlockEntity
 import github.kasuminova.prototypemachinery.impl.machine.attribute.OverlayMachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.FactoryRecipeProcessorComponentImpl
 import github.kasuminova.prototypemachinery.impl.recipe.process.RecipeProcessImpl
 import github.kasuminova.prototypemachinery.impl.recipe.requirement.component.ParallelismRequirementComponent
 import net.minecraft.util.ResourceLocation
@@ -21,15 +24,40 @@ public class FactoryRecipeScanningSystem(
     private val recipeManager: RecipeManager
 ) : MachineSystem<FactoryRecipeProcessorComponent> {
 
-    private companion object {
+    internal companion object {
         private val warnedTypes: MutableSet<ResourceLocation> = HashSet()
+
+        /**
+         * Highest parallelism a process of [recipe] may run at on [machine]: the machine's PROCESS_PARALLELISM,
+         * capped by the recipe's PARALLELISM requirement. Also bounds merged processes (see ProcessCoalescing).
+         *
+         * [recipe] 的进程在 [machine] 上允许的最高并行数：机器的 PROCESS_PARALLELISM，
+         * 并受配方 PARALLELISM 需求限制。同样约束合并进程（见 ProcessCoalescing）。
+         */
+        internal fun parallelLimit(machine: MachineInstance, recipe: MachineRecipe): Int {
+            val machineLimitRaw = machine.attributeMap.attributes[StandardMachineAttributes.PROCESS_PARALLELISM]?.value ?: 1.0
+            val machineLimit = floor(machineLimitRaw).toInt().coerceAtLeast(1)
+
+            val recipeCap = recipe.requirements[RecipeRequirementTypes.PARALLELISM]
+                ?.filterIsInstance<ParallelismRequirementComponent>()
+                ?.minOfOrNull { it.parallelism.coerceAtLeast(1L) }
+                ?.coerceAtMost(Int.MAX_VALUE.toLong())
+                ?.toInt()
+
+            return if (recipeCap != null) minOf(machineLimit, recipeCap) else machineLimit
+        }
+
+        private fun isFull(component: FactoryRecipeProcessorComponent): Boolean {
+            val used = (component as? FactoryRecipeProcessorComponentImpl)?.slotsInUse() ?: component.activeProcesses.size
+            return used >= component.maxConcurrentProcesses
+        }
     }
 
     override fun onPreTick(machine: MachineInstance, component: FactoryRecipeProcessorComponent) {}
 
     override fun onTick(machine: MachineInstance, component: FactoryRecipeProcessorComponent) {
         if (!machine.isFormed()) return
-        if (component.activeProcesses.size >= component.maxConcurrentProcesses) return
+        if (isFull(component)) return
 
         val alreadyRunningIds: Set<String> = component.activeProcesses
             .asSequence()
@@ -66,7 +94,7 @@ public class FactoryRecipeScanningSystem(
 
         // Iterate through candidate recipes
         for (recipe in candidates) {
-            if (component.activeProcesses.size >= component.maxConcurrentProcesses) break
+            if (isFull(component)) break
 
             // Minimal de-dupe: avoid spamming the same recipe every tick.
             if (alreadyRunningIds.contains(recipe.id)) continue
@@ -101,23 +129,12 @@ public class FactoryRecipeScanningSystem(
 
     override fun onPostTick(machine: MachineInstance, component: FactoryRecipeProcessorComponent) {}
 
-    private fun parallelLimit(machine: MachineInstance, recipe: MachineRecipe): Int {
-        val machineLimitRaw = machine.attributeMap.attributes[StandardMachineAttributes.PROCESS_PARALLELISM]?.value ?: 1.0
-        val machineLimit = floor(machineLimitRaw).toInt().coerceAtLeast(1)
-
-        val recipeCap = recipe.requirements[RecipeRequirementTypes.PARALLELISM]
-            ?.filterIsInstance<ParallelismRequirementComponent>()
-            ?.minOfOrNull { it.parallelism.coerceAtLeast(1L) }
-            ?.coerceAtMost(Int.MAX_VALUE.toLong())
-            ?.toInt()
-
-        return if (recipeCap != null) minOf(machineLimit, recipeCap) else machineLimit
-    }
-
     /**
      * Compute maximum parallels using registered scan-time constraints.
      *
      * - Built-in constraints (ITEM/FLUID/ENERGY) check both inputs and outputs.
+     * - Constraints providing [RecipeParallelismConstraint.maxParallels] are answered in closed form;
+     *   only the remaining ones are binary-searched.
      * - If any requirement type lacks a registered constraint, we conservatively clamp the search limit to 1.
      */
     private fun computeMaxParallelsByConstraints(machine: MachineInstance, recipe: MachineRecipe, limit: Int): Int {
@@ -125,6 +142,7 @@ public class FactoryRecipeScanningSystem(
 
         var hi = limit
         var hasUnknown = false
+        val probed = ArrayList<Pair<RecipeParallelismConstraint, List<RecipeRequirementComponent>>>()
 
         // Optional: allow constraints to provide upper bounds and detect unknown requirement types.
         for ((type, comps) in recipe.requirements) {
@@ -138,6 +156,7 @@ public class FactoryRecipeScanningSystem(
             }
 
             hi = minOf(hi, constraint.upperBound(machine, recipe, comps, hi).coerceAtLeast(0))
+            probed += constraint to comps
         }
 
         if (hasUnknown) {
@@ -145,10 +164,20 @@ public class FactoryRecipeScanningSystem(
             hi = minOf(hi, 1)
         }
 
+        // Closed-form constraints: exact max k, so they never need to be probed again.
+        val iterator = probed.iterator()
+        while (hi > 0 && iterator.hasNext()) {
+            val (constraint, comps) = iterator.next()
+            val exact = constraint.maxParallels(machine, recipe, comps, hi) ?: continue
+            hi = minOf(hi, exact.coerceAtLeast(0))
+            iterator.remove()
+        }
+
         if (hi <= 0) return 0
+        if (probed.isEmpty()) return hi
 
         if (hi == 1) {
-            return if (canSatisfyAllConstraints(machine, recipe, 1)) 1 else 0
+            return if (canSatisfyAll(machine, recipe, probed, 1)) 1 else 0
         }
 
         var lo = 1
@@ -156,7 +185,7 @@ public class FactoryRecipeScanningSystem(
 
         while (lo <= hi) {
             val mid = (lo + hi) ushr 1
-            if (canSatisfyAllConstraints(machine, recipe, mid)) {
+            if (canSatisfyAll(machine, recipe, probed, mid)) {
                 best = mid
                 lo = mid + 1
             } else {
@@ -167,13 +196,14 @@ public class FactoryRecipeScanningSystem(
         return best
     }
 
-    private fun canSatisfyAllConstraints(machine: MachineInstance, recipe: MachineRecipe, parallels: Int): Boolean {
+    private fun canSatisfyAll(
+        machine: MachineInstance,
+        recipe: MachineRecipe,
+        constraints: List<Pair<RecipeParallelismConstraint, List<RecipeRequirementComponent>>>,
+        parallels: Int
+    ): Boolean {
         if (parallels <= 0) return false
-        for ((type, comps) in recipe.requirements) {
-            if (type == RecipeRequirementTypes.PARALLELISM) continue
-            if (comps.isEmpty()) continue
-
-            val constraint = RecipeParallelismConstraintRegistry.get(type.id) ?: continue
+        for ((constraint, comps) in constraints) {
             if (!constraint.canSatisfy(machine, recipe, comps, parallels)) return false
         }
         return true
@@ -9,6 +9,7 @@ import net.minecraft.util.math.BlockPos
  * Collect world-space block positions covered by a matched structure instance.
  *
  * Shared by server (structure-derived components) and client (optional model hiding).
+ * Positions are collected into a compact [StructurePositionSet] rather than a set of boxed [BlockPos].
  */
 internal object StructureBlockPositions {
 
@@ -16,25 +17,36 @@ internal object StructureBlockPositions {
         structure: MachineStructure,
         instance: StructureInstance,
         controllerPos: BlockPos,
-    ): Set<BlockPos> {
-        val out = LinkedHashSet<BlockPos>()
+    ): StructurePositionSet {
+        val out = StructurePositionSet.Builder()
         collectInto(structure, instance, controllerPos, out)
-        return out
+        return out.build()
+    }
+
+    /**
+     * [collect], plus the distinct positions in pattern order (structure-derived components are built in that order).
+     */
+    fun collectWithOrder(
+        structure: MachineStructure,
+        instance: StructureInstance,
+        controllerPos: BlockPos,
+    ): Pair<StructurePositionSet, LongArray> {
+        val out = StructurePositionSet.Builder()
+        collectInto(structure, instance, controllerPos, out)
+        return out.buildWithOrder()
     }
 
     fun collectInto(
         structure: MachineStructure,
         instance: StructureInstance,
         controllerPos: BlockPos,
-        out: MutableSet<BlockPos>,
+        out: StructurePositionSet.Builder,
     ) {
         val offsetOrigin = controllerPos.add(structure.offset)
 
         when (structure) {
             is TemplateStructure -> {
-                for (relativePos in structure.pattern.blocks.keys) {
-                    out.add(offsetOrigin.add(relativePos))
-                }
+                addPattern(structure.pattern.blocks.keys, offsetOrigin, out)
 
                 for (child in structure.children) {
                     val childInstances = instance.children[child].orEmpty()
@@ -50,9 +62,7 @@ internal object StructureBlockPositions {
 
                 var current = offsetOrigin
                 for (i in 0 until count) {
-                    for (relativePos in structure.pattern.blocks.keys) {
-                        out.add(current.add(relativePos))
-                    }
+                    addPattern(structure.pattern.blocks.keys, current, out)
                     current = current.add(structure.sliceOffset)
                 }
 
@@ -78,4 +88,13 @@ internal object StructureBlockPositions {
             }
         }
     }
+
+    private fun addPattern(relativePositions: Collection<BlockPos>, origin: BlockPos, out: StructurePositionSet.Builder) {
+        val ox = origin.x
+        val oy = origin.y
+        val oz = origin.z
+        for (relativePos in relativePositions) {
+            out.add(ox + relativePos.x, oy + relativePos.y, oz + relativePos.z)
+        }
+    }
 }
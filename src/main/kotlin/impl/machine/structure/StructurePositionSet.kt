@@ -0,0 +1,165 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure
+
+import net.minecraft.util.math.BlockPos
+import java.util.Arrays
+
+/**
+ * # StructurePositionSet - Compact set of world block positions
+ * # StructurePositionSet - 紧凑的世界方块坐标集合
+ *
+ * Immutable set backed by a sorted, de-duplicated `long[]` of [BlockPos.toLong] values
+ * (8 bytes per position instead of a boxed [BlockPos] plus a hash-set entry).
+ *
+ * 由排序去重后的 [BlockPos.toLong] `long[]` 支撑的不可变集合
+ * （每个坐标 8 字节，而非一个装箱 [BlockPos] 加一个哈希集合条目）。
+ *
+ * - [contains] is a binary search; [forEach] iterates without allocating.
+ * - Two sets are compared ([contentEquals]) on the packed arrays.
+ * - Bounds are computed once at build time.
+ *
+ * - [contains] 为二分查找；[forEach] 遍历不分配对象。
+ * - 两个集合直接比较打包数组（[contentEquals]）。
+ * - 包围盒在构建时一次性计算。
+ */
+internal class StructurePositionSet private constructor(
+    private val packed: LongArray,
+    val minX: Int,
+    val minY: Int,
+    val minZ: Int,
+    val maxX: Int,
+    val maxY: Int,
+    val maxZ: Int,
+) {
+
+    val size: Int
+        get() = packed.size
+
+    fun isEmpty(): Boolean = packed.isEmpty()
+
+    operator fun contains(pos: BlockPos): Boolean = Arrays.binarySearch(packed, pos.toLong()) >= 0
+
+    fun containsPacked(packedPos: Long): Boolean = Arrays.binarySearch(packed, packedPos) >= 0
+
+    /** Index of [packedPos] in set order, or a negative value if absent. / [packedPos] 在集合顺序中的下标，不存在时为负数。 */
+    fun indexOfPacked(packedPos: Long): Int = Arrays.binarySearch(packed, packedPos)
+
+    /** Iterate positions in set order; [pos] is reused between calls. / 按集合顺序遍历；[pos] 在调用间复用。 */
+    inline fun forEach(pos: BlockPos.MutableBlockPos = BlockPos.MutableBlockPos(), action: (BlockPos.MutableBlockPos) -> Unit) {
+        for (i in 0 until size) {
+            unpack(packedAt(i), pos)
+            action(pos)
+        }
+    }
+
+    fun packedAt(index: Int): Long = packed[index]
+
+    /** Boxed copy, for APIs that need a [List]. / 装箱副本，供需要 [List] 的 API 使用。 */
+    fun toBlockPosList(): MutableList<BlockPos> {
+        val out = ArrayList<BlockPos>(packed.size + 1)
+        for (value in packed) out.add(BlockPos.fromLong(value))
+        return out
+    }
+
+    fun contentEquals(other: StructurePositionSet): Boolean = packed.contentEquals(other.packed)
+
+    override fun equals(other: Any?): Boolean = other is StructurePositionSet && contentEquals(other)
+
+    override fun hashCode(): Int = packed.contentHashCode()
+
+    override fun toString(): String = "StructurePositionSet(size=$size)"
+
+    /** Incremental builder; duplicates are allowed and removed by [build]. / 增量构建器；允许重复，由 [build] 去重。 */
+    class Builder(initialCapacity: Int = 64) {
+        private var values = LongArray(initialCapacity.coerceAtLeast(4))
+        private var count = 0
+
+        fun add(pos: BlockPos): Builder = addPacked(pos.toLong())
+
+        fun add(x: Int, y: Int, z: Int): Builder = addPacked(pack(x, y, z))
+
+        fun addPacked(packedPos: Long): Builder {
+            if (count == values.size) values = values.copyOf(values.size * 2)
+            values[count++] = packedPos
+            return this
+        }
+
+        fun build(): StructurePositionSet {
+            if (count == 0) return EMPTY
+            // Sort a copy so the insertion order stays available to [buildWithOrder].
+            val sorted = values.copyOf(count)
+            Arrays.sort(sorted)
+
+            var unique = 1
+            for (i in 1 until count) {
+                if (sorted[i] != sorted[unique - 1]) sorted[unique++] = sorted[i]
+            }
+            val packed = if (unique == count) sorted else sorted.copyOf(unique)
+
+            var minX = Int.MAX_VALUE
+            var minY = Int.MAX_VALUE
+            var minZ = Int.MAX_VALUE
+            var maxX = Int.MIN_VALUE
+            var maxY = Int.MIN_VALUE
+            var maxZ = Int.MIN_VALUE
+            for (value in packed) {
+                val x = unpackX(value)
+                val y = unpackY(value)
+                val z = unpackZ(value)
+                if (x < minX) minX = x
+                if (y < minY) minY = y
+                if (z < minZ) minZ = z
+                if (x > maxX) maxX = x
+                if (y > maxY) maxY = y
+                if (z > maxZ) maxZ = z
+            }
+            return StructurePositionSet(packed, minX, minY, minZ, maxX, maxY, maxZ)
+        }
+
+        /**
+         * [build], plus the distinct positions in the order they were first added (e.g. structure pattern order).
+         * [build]，并额外返回按首次加入顺序排列的去重坐标（例如结构图案顺序）。
+         */
+        fun buildWithOrder(): Pair<StructurePositionSet, LongArray> {
+            val set = build()
+            val seen = BooleanArray(set.size)
+            val order = LongArray(set.size)
+            var n = 0
+            for (i in 0 until count) {
+                val index = set.indexOfPacked(values[i])
+                if (seen[index]) continue
+                seen[index] = true
+                order[n++] = values[i]
+            }
+            return set to order
+        }
+    }
+
+    companion object {
+        // Same layout as BlockPos.toLong / BlockPos.fromLong.
+        // 与 BlockPos.toLong / BlockPos.fromLong 相同的布局。
+        private const val X_BITS: Int = 26
+        private const val Z_BITS: Int = 26
+        private const val Y_BITS: Int = 64 - X_BITS - Z_BITS
+        private const val Y_SHIFT: Int = Z_BITS
+        private const val X_SHIFT: Int = Y_SHIFT + Y_BITS
+        private const val X_MASK: Long = (1L shl X_BITS) - 1L
+        private const val Y_MASK: Long = (1L shl Y_BITS) - 1L
+        private const val Z_MASK: Long = (1L shl Z_BITS) - 1L
+
+        val EMPTY: StructurePositionSet = StructurePositionSet(
+            LongArray(0), Int.MAX_VALUE, Int.MAX_VALUE, Int.MAX_VALUE, Int.MIN_VALUE, Int.MIN_VALUE, Int.MIN_VALUE
+        )
+
+        fun pack(x: Int, y: Int, z: Int): Long =
+            ((x.toLong() and X_MASK) shl X_SHIFT) or ((y.toLong() and Y_MASK) shl Y_SHIFT) or (z.toLong() and Z_MASK)
+
+        fun unpackX(value: Long): Int = (value shl (64 - X_SHIFT - X_BITS) shr (64 - X_BITS)).toInt()
+
+        fun unpackY(value: Long): Int = (value shl (64 - Y_SHIFT - Y_BITS) shr (64 - Y_BITS)).toInt()
+
+        fun unpackZ(value: Long): Int = (value shl (64 - Z_BITS) shr (64 - Z_BITS)).toInt()
+
+        fun unpack(value: Long, into: BlockPos.MutableBlockPos): BlockPos.MutableBlockPos =
+            into.setPos(unpackX(value), unpackY(value), unpackZ(value))
+    }
+}
@@ -0,0 +1,56 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate
+
+import github.kasuminova.prototypemachinery.api.machine.structure.match.StructureMatchContext
+import github.kasuminova.prototypemachinery.api.machine.structure.pattern.predicate.BlockPredicate
+import github.kasuminova.prototypemachinery.api.machine.structure.pattern.predicate.PreviewableBlockPredicate
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.AnyOfRequirement
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.BlockRequirement
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.ExactBlockStateRequirement
+import net.minecraft.util.EnumFacing
+import net.minecraft.util.math.BlockPos
+
+/**
+ * A multi-choice predicate where each option may carry its own TileEntity NBT constraints.
+ *
+ * Matches if any option with the world block state also passes its NBT check. Options without constraints
+ * are plain state matches. The preview requirement lists the block states only (same as [AnyOfBlockPredicate]).
+ *
+ * 多选一的结构需求，每个候选可带各自的 TileEntity NBT 约束；预览需求只列出方块状态。
+ */
+public class AnyOfBlockNbtPredicate(public val options: List<StatedBlockNbtPredicate>) : PreviewableBlockPredicate {
+
+    init {
+        require(options.isNotEmpty()) { "AnyOfBlockNbtPredicate.options must not be empty" }
+    }
+
+    override fun matches(context: StructureMatchContext, pos: BlockPos): Boolean {
+        val world = context.machine.blockEntity.world
+        val st = world.getBlockState(pos)
+        // Several options may share a state with different NBT, so keep looking after a failed NBT check.
+        // 多个候选可能状态相同而 NBT 不同，因此 NBT 检查失败后继续尝试其余候选。
+        for (option in options) {
+            if (option.state === st && option.matchesTileEntity(world, pos)) return true
+        }
+        return false
+    }
+
+    override fun toRequirement(): BlockRequirement {
+        val opts = options.map { option ->
+            val state = option.state
+            val block = state.block
+            val id = requireNotNull(block.registryName) { "Unregistered block in AnyOfBlockNbtPredicate: $block" }
+            @Suppress("DEPRECATION")
+            val meta = block.getMetaFromState(state)
+            val props = state.propertyKeys.associate { prop ->
+                val v = state.getValue(prop)
+                prop.name to v.toString()
+            }
+            ExactBlockStateRequirement(id, meta, props)
+        }.distinct()
+        return AnyOfRequirement(opts)
+    }
+
+    override fun transform(rotation: (EnumFacing) -> EnumFacing): BlockPredicate {
+        return AnyOfBlockNbtPredicate(options.map { it.transform(rotation) as StatedBlockNbtPredicate })
+    }
+}
@@ -0,0 +1,115 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate
+
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
+import github.kasuminova.prototypemachinery.impl.machine.structure.TileEntityChangeStamp
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.math.BlockPos
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * # NbtMatchCache - Per-predicate cache of TileEntity NBT check results
+ * # NbtMatchCache - 按谓词缓存的 TileEntity NBT 检查结果
+ *
+ * Keyed by block position. An entry is reused only while all of these still hold:
+ *
+ * 以方块坐标为键。仅当以下条件全部成立时复用条目：
+ *
+ * - the TileEntity at the position is the same instance (weakly referenced);
+ * - its [TileEntityChangeStamp] has not moved (no `markDirty()` / NBT read since);
+ * - the entry is younger than [MachineTuning.nbtPredicateCacheTicks] world ticks.
+ *
+ * - 该坐标上的 TileEntity 仍是同一实例（弱引用）；
+ * - 其 [TileEntityChangeStamp] 未变化（此后没有 `markDirty()` / NBT 读取）；
+ * - 条目年龄小于 [MachineTuning.nbtPredicateCacheTicks] 个世界 tick。
+ *
+ * Entries for broken blocks or unloaded chunks are dropped by a sweep every [SWEEP_INTERVAL] puts
+ * (cleared reference, invalidated TileEntity or expired age); the map is cleared outright if it still holds more than
+ * [MAX_ENTRIES] entries.
+ *
+ * 已破坏方块或已卸载区块的条目会在每 [SWEEP_INTERVAL] 次写入后被清扫（引用已回收、TileEntity 已失效或已过期）；
+ * 若清扫后仍超过 [MAX_ENTRIES] 条，则直接清空。
+ *
+ * Client and server worlds may share a predicate in single player; their TileEntities are different instances,
+ * so entries simply overwrite each other instead of leaking results across sides.
+ *
+ * 单人游戏中客户端与服务端世界可能共用同一谓词；双方 TileEntity 为不同实例，条目只会互相覆盖，不会跨端串用结果。
+ */
+internal class NbtMatchCache {
+
+    private class Entry(
+        val tileEntity: WeakReference<TileEntity>,
+        val changeStamp: Long,
+        val checkedAt: Long,
+        val result: Boolean,
+    )
+
+    private val entries = ConcurrentHashMap<Long, Entry>()
+
+    private val putsSinceSweep = AtomicInteger()
+
+    val size: Int
+        get() = entries.size
+
+    /**
+     * Cached result for [te] at [pos], or null when it has to be re-evaluated (then report it via [put]).
+     * 返回 [pos] 处 [te] 的缓存结果；需要重新计算时返回 null（计算后通过 [put] 记录）。
+     */
+    fun get(pos: BlockPos, te: TileEntity, worldTime: Long): Boolean? {
+        val maxAge = MachineTuning.nbtPredicateCacheTicks
+        if (maxAge <= 0) return null
+        val stamp = changeStampOf(te)
+        if (stamp == NO_STAMP) return null
+
+        val cached = entries[pos.toLong()] ?: return null
+        if (cached.tileEntity.get() !== te || cached.changeStamp != stamp) return null
+        val age = worldTime - cached.checkedAt
+        if (age < 0L || age >= maxAge) return null
+        return cached.result
+    }
+
+    fun put(pos: BlockPos, te: TileEntity, worldTime: Long, result: Boolean) {
+        if (MachineTuning.nbtPredicateCacheTicks <= 0) return
+        val stamp = changeStampOf(te)
+        if (stamp == NO_STAMP) return
+        entries[pos.toLong()] = Entry(WeakReference(te), stamp, worldTime, result)
+
+        if (putsSinceSweep.incrementAndGet() >= SWEEP_INTERVAL || entries.size > MAX_ENTRIES) {
+            putsSinceSweep.set(0)
+            sweep(worldTime)
+        }
+    }
+
+    /**
+     * Drop entries that can never hit again at [worldTime]; clear everything if still above [MAX_ENTRIES].
+     * 移除在 [worldTime] 时已不可能命中的条目；若仍超过 [MAX_ENTRIES] 则全部清空。
+     */
+    fun sweep(worldTime: Long) {
+        val maxAge = MachineTuning.nbtPredicateCacheTicks
+        val iterator = entries.values.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            val te = entry.tileEntity.get()
+            val age = worldTime - entry.checkedAt
+            if (te == null || te.isInvalid || age < 0L || age >= maxAge) iterator.remove()
+        }
+        if (entries.size > MAX_ENTRIES) entries.clear()
+    }
+
+    fun clear() {
+        entries.clear()
+    }
+
+    // NO_STAMP when the mixin is not applied (e.g. unit tests): caching would never see changes.
+    // mixin 未生效时（如单元测试）返回 NO_STAMP：此时缓存无法感知变化。
+    private fun changeStampOf(te: TileEntity): Long =
+        if (te is TileEntityChangeStamp) te.`prototypemachinery$getChangeStamp`() else NO_STAMP
+
+    private companion object {
+        private const val NO_STAMP: Long = Long.MIN_VALUE
+
+        private const val SWEEP_INTERVAL: Int = 256
+        private const val MAX_ENTRIES: Int = 8192
+    }
+}
@@ -0,0 +1,129 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate
+
+import net.minecraft.nbt.NBTBase
+import net.minecraft.nbt.NBTPrimitive
+import net.minecraft.nbt.NBTTagByte
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.nbt.NBTTagFloat
+import net.minecraft.nbt.NBTTagInt
+import net.minecraft.nbt.NBTTagList
+import net.minecraft.nbt.NBTTagLong
+import net.minecraft.nbt.NBTTagShort
+import net.minecraft.nbt.NBTTagString
+
+/**
+ * # NbtPathMatcher - Pre-compiled NBT constraint
+ * # NbtPathMatcher - 预编译的 NBT 约束
+ *
+ * Compiled form of one `key -> expected` entry of a structure NBT constraint map.
+ *
+ * 结构 NBT 约束表中单个 `key -> expected` 条目的编译形式。
+ *
+ * - **Path**: `a.b.c` walks nested compounds, `items[0]` indexes a list. A root key that literally equals
+ *   the whole path (e.g. contains a dot) still wins, so old flat constraints keep working.
+ * - **Value**: the expected string is parsed once. Numeric tags are compared as numbers (SNBT suffixes such as
+ *   `1b` / `5.0f` / `10L` are accepted), string tags as plain strings (an optional pair of quotes is ignored),
+ *   anything else falls back to [NBTBase.toString].
+ *
+ * - **路径**：`a.b.c` 逐级进入嵌套 compound，`items[0]` 按下标访问列表。若根标签中存在与整条路径完全相同的键
+ *   （例如键名含点），仍优先使用该键，旧的扁平约束保持可用。
+ * - **值**：期望字符串只解析一次。数值标签按数值比较（接受 `1b` / `5.0f` / `10L` 等 SNBT 后缀），
+ *   字符串标签按纯字符串比较（忽略一对可选引号），其他类型回退到 [NBTBase.toString]。
+ */
+internal class NbtPathMatcher private constructor(
+    val path: String,
+    val expected: String,
+    private val segments: Array<Segment>,
+    private val unquoted: String,
+    private val numeric: Boolean,
+    private val integral: Boolean,
+    private val longValue: Long,
+    private val doubleValue: Double,
+) {
+
+    /** One path step: a compound key followed by zero or more list indices. / 单个路径步骤：compound 键加零个或多个列表下标。 */
+    private class Segment(val key: String, val indices: IntArray)
+
+    fun matches(root: NBTTagCompound): Boolean {
+        val tag = resolve(root) ?: return false
+        return matchesValue(tag)
+    }
+
+    private fun resolve(root: NBTTagCompound): NBTBase? {
+        if (root.hasKey(path)) return root.getTag(path)
+        if (segments.size == 1 && segments[0].indices.isEmpty()) return null
+
+        var current: NBTBase = root
+        for (segment in segments) {
+            val compound = current as? NBTTagCompound ?: return null
+            if (!compound.hasKey(segment.key)) return null
+            current = compound.getTag(segment.key)
+            for (index in segment.indices) {
+                val list = current as? NBTTagList ?: return null
+                if (index >= list.tagCount()) return null
+                current = list.get(index)
+            }
+        }
+        return current
+    }
+
+    private fun matchesValue(tag: NBTBase): Boolean = when (tag) {
+        is NBTTagString -> tag.string == expected || tag.string == unquoted
+        is NBTPrimitive -> if (numeric) matchesNumber(tag) else tag.toString() == expected
+        else -> tag.toString() == expected
+    }
+
+    private fun matchesNumber(tag: NBTPrimitive): Boolean = when (tag) {
+        is NBTTagByte, is NBTTagShort, is NBTTagInt, is NBTTagLong -> if (integral) tag.long == longValue else tag.double == doubleValue
+        // Compare at float precision so "0.1f" matches the stored float.
+        // 以 float 精度比较，使 "0.1f" 能匹配存储的 float。
+        is NBTTagFloat -> tag.float == doubleValue.toFloat()
+        else -> tag.double == doubleValue
+    }
+
+    companion object {
+
+        private val NUMBER = Regex("""[-+]?(\d+\.?\d*|\.\d+)([eE][-+]?\d+)?[bBsSlLfFdD]?""")
+        private val INTEGER = Regex("""[-+]?\d+[bBsSlL]?""")
+
+        /** Compile every entry of [constraints], keeping map order. / 按映射顺序编译 [constraints] 的每个条目。 */
+        fun compileAll(constraints: Map<String, String>): Array<NbtPathMatcher> =
+            constraints.entries.map { (k, v) -> compile(k, v) }.toTypedArray()
+
+        fun compile(path: String, expected: String): NbtPathMatcher {
+            val trimmed = expected.trim()
+            val numeric = NUMBER.matches(trimmed)
+            val integral = numeric && INTEGER.matches(trimmed)
+            val digits = if (numeric && trimmed.last().isLetter()) trimmed.dropLast(1) else trimmed
+
+            val longValue = if (integral) digits.toLongOrNull() ?: 0L else 0L
+            val doubleValue = if (numeric) digits.toDoubleOrNull() ?: Double.NaN else Double.NaN
+            val unquoted = if (expected.length >= 2 && expected.startsWith('"') && expected.endsWith('"')) {
+                expected.substring(1, expected.length - 1)
+            } else {
+                expected
+            }
+
+            return NbtPathMatcher(
+                path = path,
+                expected = expected,
+                segments = parsePath(path),
+                unquoted = unquoted,
+                numeric = numeric && !doubleValue.isNaN(),
+                integral = integral && digits.toLongOrNull() != null,
+                longValue = longValue,
+                doubleValue = doubleValue,
+            )
+        }
+
+        private fun parsePath(path: String): Array<Segment> = path.split('.').map { part ->
+            val open = part.indexOf('[')
+            if (open < 0 || !part.endsWith(']')) return@map Segment(part, IntArray(0))
+
+            val indices = part.substring(open + 1, part.length - 1).split("][").map { it.toIntOrNull() ?: -1 }
+            // An unparsable index can never resolve; keep the literal key so the root-key fallback still applies.
+            // 无法解析的下标永远不会命中；保留字面键名，使根键回退仍然生效。
+            if (indices.any { it < 0 }) Segment(part, intArrayOf(Int.MAX_VALUE)) else Segment(part.substring(0, open), indices.toIntArray())
+        }.toTypedArray()
+    }
+}
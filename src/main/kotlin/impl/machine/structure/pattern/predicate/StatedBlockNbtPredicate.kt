@@ -13,48 +13,64 @@ import net.minecraft.nbt.NBTTagString
 import net.minecraft.tileentity.TileEntity
 import net.minecraft.util.EnumFacing
 import net.minecraft.util.math.BlockPos
+import net.minecraft.world.World
 
 /**
  * Block-state predicate with additional TileEntity NBT constraints.
  *
  * - First matches the exact block state (same semantics as [StatedBlockPredicate]).
- * - Then (if [nbtConstraints] is not empty) requires a TileEntity at [pos], and checks that
- *   each key exists and matches the expected string value.
+ * - Then (if [nbtConstraints] is not empty) requires a TileEntity at [pos], and checks each constraint
+ *   with a pre-compiled [NbtPathMatcher].
+ * - Results are cached per position ([NbtMatchCache]), so an unchanged TileEntity is not re-serialized
+ *   on every structure check.
  *
  * Notes / 限制：
  * - The JSON schema currently stores NBT as a simplified `Map<String, String>`.
- * - Matching is shallow (no nested paths). Keys are looked up on the TE root tag.
- * - Value comparison is best-effort:
- *   - If the tag is a string, compares [NBTTagCompound.getString].
+ * - Keys may be nested paths (`a.b.c`, `list[0]`); a root key equal to the whole path still matches first.
+ * - Value comparison:
+ *   - Numeric tags are compared as numbers (`5`, `1b`, `0.5f` ...).
+ *   - String tags compare [NBTTagString.getString].
  *   - Otherwise compares [NBTBase.toString] (MC's SNBT-like debug form).
+ *
+ * - 先精确匹配方块状态，再用预编译的 [NbtPathMatcher] 逐条检查 TileEntity NBT；
+ *   结果按坐标缓存，未变化的 TileEntity 不会在每次结构检查时重新序列化。
  */
 public class StatedBlockNbtPredicate(
 	public val state: IBlockState,
 	public val nbtConstraints: Map<String, String>
 ) : PreviewableBlockPredicate {
 
+	private val matchers: Array<NbtPathMatcher> = NbtPathMatcher.compileAll(nbtConstraints)
+
+	private val cache = NbtMatchCache()
+
 	override fun matches(context: StructureMatchContext, pos: BlockPos): Boolean {
 		val world = context.machine.blockEntity.world
 		if (world.getBlockState(pos) !== state) return false
 
-		if (nbtConstraints.isEmpty()) return true
+		return matchesTileEntity(world, pos)
+	}
 
-		val te: TileEntity = world.getTileEntity(pos) ?: return false
-		val tag = NBTTagCompound()
-		te.writeToNBT(tag)
+	/**
+	 * NBT half of [matches]; the caller has already checked the block state.
+	 * [matches] 的 NBT 部分；调用方已检查方块状态。
+	 */
+	internal fun matchesTileEntity(world: World, pos: BlockPos): Boolean {
+		if (matchers.isEmpty()) return true
 
-		for ((k, expected) in nbtConstraints) {
-			if (!tag.hasKey(k)) return false
+		val te: TileEntity = world.getTileEntity(pos) ?: return false
+		val now = world.totalWorldTime
+		cache.get(pos, te, now)?.let { return it }
 
-			val base: NBTBase = tag.getTag(k) ?: return false
-			val actual = when (base) {
-				is NBTTagString -> tag.getString(k)
-				else -> base.toString()
-			}
+		val result = matchesTag(te.writeToNBT(NBTTagCompound()))
+		cache.put(pos, te, now, result)
+		return result
+	}
 
-			if (actual != expected) return false
+	internal fun matchesTag(tag: NBTTagCompound): Boolean {
+		for (matcher in matchers) {
+			if (!matcher.matches(tag)) return false
 		}
-
 		return true
 	}
 
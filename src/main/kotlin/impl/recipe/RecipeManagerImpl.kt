@@ -2,8 +2,10 @@ package github.kasuminova.prototypemachinery.impl.recipe
 
 import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
 import github.kasuminova.prototypemachinery.api.recipe.RecipeManager
+import github.kasuminova.prototypemachinery.api.recipe.RecipeManagerListener
 import net.minecraft.util.ResourceLocation
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * In-memory recipe registry implementation.
@@ -16,12 +18,14 @@ public object RecipeManagerImpl : RecipeManager {
 
     override fun get(id: String): MachineRecipe? = recipes[id]
     override fun getAll(): Collection<MachineRecipe> = recipes.values
+    private val listeners: MutableList<RecipeManagerListener> = CopyOnWriteArrayList()
+
     override fun register(recipe: MachineRecipe) {
         val previous = recipes.put(recipe.id, recipe)
 
         // Update group index.
-        // Recipes are expected to be registered once during init. If overwrite happens, we try to remove the
-        // previous recipe from its old groups as a best-effort cleanup.
+        // Recipes are mostly registered once during init; an overwrite (e.g. script reload) removes the
+        // previous recipe from its old groups first.
         if (previous != null && previous !== recipe) {
             for (g in previous.recipeGroups) {
                 recipesByGroup[g]?.remove(previous)
@@ -31,6 +35,25 @@ public object RecipeManagerImpl : RecipeManager {
             val set = recipesByGroup.computeIfAbsent(group) { ConcurrentHashMap.newKeySet() }
             set.add(recipe)
         }
+
+        if (previous === recipe) return
+        if (previous != null) {
+            for (l in listeners) l.onRecipeRemoved(previous)
+        }
+        for (l in listeners) l.onRecipeAdded(recipe)
+    }
+
+    override fun remove(id: String): MachineRecipe? {
+        val previous = recipes.remove(id) ?: return null
+        for (g in previous.recipeGroups) {
+            recipesByGroup[g]?.remove(previous)
+        }
+        for (l in listeners) l.onRecipeRemoved(previous)
+        return previous
+    }
+
+    override fun addListener(listener: RecipeManagerListener) {
+        listeners.add(listener)
     }
 
     override fun getByGroup(groupId: ResourceLocation): Collection<MachineRecipe> {
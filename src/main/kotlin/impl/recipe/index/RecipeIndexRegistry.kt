@@ -1,14 +1,21 @@
 package github.kasuminova.prototypemachinery.impl.recipe.index
 
+import github.kasuminova.prototypemachinery.PrototypeMachinery
 import github.kasuminova.prototypemachinery.api.machine.MachineType
 import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.RecipeManagerListener
 import github.kasuminova.prototypemachinery.api.recipe.index.IRecipeIndexRegistry
+import github.kasuminova.prototypemachinery.api.recipe.index.IncrementalRequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RecipeIndex
+import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndexFactory
 import github.kasuminova.prototypemachinery.impl.recipe.index.type.EnergyRequirementIndex
 import github.kasuminova.prototypemachinery.impl.recipe.index.type.FluidRequirementIndex
 import github.kasuminova.prototypemachinery.impl.recipe.index.type.ItemRequirementIndex
-import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 /**
  * # Recipe Index Registry Implementation
@@ -17,11 +24,60 @@ import java.util.concurrent.ConcurrentHashMap
  * Implementation of [IRecipeIndexRegistry].
  *
  * [IRecipeIndexRegistry] 的实现。
+ *
+ * ## Maintenance / 维护
+ * - [buildIndices] performs the initial build in PostInit.
+ *   [buildIndices] 在 PostInit 阶段执行初始构建。
+ * - Afterwards, recipe add / remove events ([RecipeManagerListener]) are applied incrementally through
+ *   [IncrementalRequirementIndex]; other indices are rebuilt through their factory.
+ *   之后，配方新增 / 移除事件（[RecipeManagerListener]）通过 [IncrementalRequirementIndex] 增量应用；
+ *   其它索引通过其工厂重建。
+ * - Script reloads bracket bulk changes with [beginBulkUpdate] / [rebuildAsync]: events are not applied
+ *   one by one, and a full rebuild runs off-thread before being swapped in.
+ *   脚本重载使用 [beginBulkUpdate] / [rebuildAsync] 包裹批量变更：事件不会逐条应用，
+ *   完整重建在后台线程完成后再整体替换。
+ *
+ * All published state is immutable and replaced copy-on-write, so scanning threads never observe
+ * a partially built index.
+ *
+ * 所有已发布状态都是不可变的，并以写时复制方式替换，扫描线程永远不会看到构建到一半的索引。
  */
-public object RecipeIndexRegistry : IRecipeIndexRegistry {
+public object RecipeIndexRegistry : IRecipeIndexRegistry, RecipeManagerListener {
+
+    private val factories: MutableList<RequirementIndexFactory> = CopyOnWriteArrayList()
+
+    /**
+     * Per-machine-type index, together with the per-factory indices it was assembled from
+     * (aligned with [factories]; null where a factory had nothing to index).
+     */
+    private class TypeIndexState(val perFactory: Array<RequirementIndex?>) {
+        val index: RecipeIndex = RecipeIndex(perFactory.filterNotNull())
+    }
+
+    // Copy-on-write publication: readers only ever dereference this volatile field.
+    // 写时复制发布：读者只读取这个 volatile 字段。
+    @Volatile
+    private var states: Map<MachineType, TypeIndexState> = emptyMap()
+
+    private val lock = Any()
 
-    private val factories = mutableListOf<RequirementIndexFactory>()
-    private val indices = ConcurrentHashMap<MachineType, RecipeIndex>()
+    // ----- guarded by lock -----
+    private var machineTypes: Collection<MachineType> = emptyList()
+    private var recipeLookup: (MachineType) -> List<MachineRecipe> = { emptyList() }
+
+    // True once buildIndices has supplied machine types and a recipe lookup.
+    private var configured: Boolean = false
+
+    // True while the published states reflect every recipe event, so events may be applied incrementally.
+    private var built: Boolean = false
+    private var bulkUpdate: Boolean = false
+    private var modificationCount: Long = 0L
+
+    private val rebuildExecutor: ExecutorService by lazy {
+        Executors.newSingleThreadExecutor { r ->
+            Thread(r, "PrototypeMachinery-RecipeIndex").apply { isDaemon = true }
+        }
+    }
 
     init {
         IRecipeIndexRegistry.INSTANCE = this
@@ -34,7 +90,7 @@ public object RecipeIndexRegistry : IRecipeIndexRegistry {
         factories.add(factory)
     }
 
-    public override fun getIndex(machineType: MachineType): RecipeIndex? = indices[machineType]
+    public override fun getIndex(machineType: MachineType): RecipeIndex? = states[machineType]?.index
 
     /**
      * Called in PostInit to build indices for all machines.
@@ -42,30 +98,96 @@ public object RecipeIndexRegistry : IRecipeIndexRegistry {
      * 在 PostInit 阶段调用，用于为所有机器构建索引。
      */
     public fun buildIndices(machineTypes: Collection<MachineType>, recipeLookup: (MachineType) -> List<MachineRecipe>) {
-        for (type in machineTypes) {
-            // Check if machine is eligible for indexing (no dynamic modifiers)
-            if (!isEligibleForIndexing(type)) {
-                continue
-            }
+        synchronized(lock) {
+            this.machineTypes = machineTypes.toList()
+            this.recipeLookup = recipeLookup
+            states = buildAll(this.machineTypes, recipeLookup)
+            configured = true
+            built = true
+            bulkUpdate = false
+            modificationCount++
+        }
+    }
 
-            val recipes = recipeLookup(type)
-            if (recipes.isEmpty()) continue
+    /**
+     * Stop applying recipe events one by one until the next [rebuildAsync] completes.
+     * Scanning keeps using the last published indices in the meantime.
+     *
+     * 在下一次 [rebuildAsync] 完成前停止逐条应用配方事件。期间扫描继续使用最后发布的索引。
+     */
+    public fun beginBulkUpdate() {
+        synchronized(lock) {
+            bulkUpdate = true
+        }
+    }
+
+    /**
+     * Rebuild all indices on a background thread and swap them in atomically.
+     * If recipes change while building, the build is retried so no event is lost.
+     * If the build fails, all indices are dropped (scanning falls back to full recipe scans) until the next
+     * successful rebuild; the bulk update ends either way.
+     *
+     * 在后台线程重建全部索引并原子替换。若构建期间配方发生变化，会重试构建，确保不丢失事件。
+     * 若构建失败，则丢弃全部索引（扫描回退为全量配方扫描），直到下一次重建成功；无论成败，批量更新都会结束。
+     */
+    public fun rebuildAsync(): CompletableFuture<Void> {
+        return CompletableFuture.runAsync({
+            while (true) {
+                val types: Collection<MachineType>
+                val lookup: (MachineType) -> List<MachineRecipe>
+                val startCount: Long
+                synchronized(lock) {
+                    if (!configured) {
+                        // Nothing to rebuild yet; buildIndices will do the initial build.
+                        bulkUpdate = false
+                        return@runAsync
+                    }
+                    types = machineTypes
+                    lookup = recipeLookup
+                    startCount = modificationCount
+                }
 
-            val typeIndices = mutableListOf<github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndex>()
+                val rebuilt = buildAll(types, lookup)
 
-            for (factory in factories) {
-                val index = factory.create(type, recipes)
-                if (index != null) {
-                    typeIndices.add(index)
+                synchronized(lock) {
+                    if (startCount == modificationCount) {
+                        states = rebuilt
+                        built = true
+                        bulkUpdate = false
+                        return@runAsync
+                    }
                 }
             }
-
-            if (typeIndices.isNotEmpty()) {
-                indices[type] = RecipeIndex(typeIndices)
+        }, rebuildExecutor).whenComplete { _, error ->
+            if (error != null) {
+                PrototypeMachinery.logger.error("Failed to rebuild recipe indices; falling back to unindexed scanning.", error)
+                synchronized(lock) {
+                    // The published states miss the bulk changes: stop serving and patching them.
+                    states = emptyMap()
+                    built = false
+                    bulkUpdate = false
+                    modificationCount++
+                }
             }
         }
     }
 
+    override fun onRecipeAdded(recipe: MachineRecipe) {
+        synchronized(lock) {
+            modificationCount++
+            if (!built || bulkUpdate) return
+            applyIncremental(recipe, added = true)
+        }
+    }
+
+    override fun onRecipeRemoved(recipe: MachineRecipe) {
+        synchronized(lock) {
+            modificationCount++
+            if (!built || bulkUpdate) return
+            applyIncremental(recipe, added = false)
+        }
+    }
+
     /**
      * Initialize the registry for testing purposes.
      * This should be called in test setup before any scanning system tests run.
@@ -77,6 +199,92 @@ public object RecipeIndexRegistry : IRecipeIndexRegistry {
         // No-op for now, as the init block already sets INSTANCE.
     }
 
+    /**
+     * Test-only: remove a factory previously added through [registerFactory].
+     */
+    internal fun unregisterFactoryForTests(factory: RequirementIndexFactory) {
+        factories.remove(factory)
+    }
+
+    /**
+     * Test-only: drop all state so the next [buildIndices] starts fresh.
+     */
+    internal fun resetForTests() {
+        synchronized(lock) {
+            states = emptyMap()
+            machineTypes = emptyList()
+            recipeLookup = { emptyList() }
+            configured = false
+            built = false
+            bulkUpdate = false
+        }
+    }
+
+    private fun applyIncremental(recipe: MachineRecipe, added: Boolean) {
+        var next: MutableMap<MachineType, TypeIndexState>? = null
+        val current = states
+        val factorySnapshot = factories.toList()
+
+        for (type in machineTypes) {
+            if (!isEligibleForIndexing(type)) continue
+            if (recipe.recipeGroups.none(type.recipeGroups::contains)) continue
+
+            val previous = current[type]
+            val perFactory = arrayOfNulls<RequirementIndex>(factorySnapshot.size)
+            var recipes: List<MachineRecipe>? = null
+            for ((i, factory) in factorySnapshot.withIndex()) {
+                val old = previous?.perFactory?.getOrNull(i)
+                perFactory[i] = if (old is IncrementalRequirementIndex) {
+                    if (added) old.withRecipe(recipe) else old.withoutRecipe(recipe)
+                } else {
+                    // No index to patch (the factory declined the previous recipe set, or the type had no state yet):
+                    // rebuild from the full recipe set so earlier recipes stay indexed.
+                    // 没有可修补的索引（工厂拒绝了之前的配方集合，或该类型尚无状态）：基于完整配方集合重建，避免遗漏已有配方。
+                    factory.create(type, recipes ?: recipeLookup(type).also { recipes = it })
+                }
+            }
+
+            if (next == null) next = HashMap(current)
+            if (perFactory.all { it == null }) {
+                next.remove(type)
+            } else {
+                next[type] = TypeIndexState(perFactory)
+            }
+        }
+
+        if (next != null) {
+            states = next
+        }
+    }
+
+    private fun buildAll(
+        machineTypes: Collection<MachineType>,
+        recipeLookup: (MachineType) -> List<MachineRecipe>,
+    ): Map<MachineType, TypeIndexState> {
+        val out = HashMap<MachineType, TypeIndexState>()
+        val factorySnapshot = factories.toList()
+
+        for (type in machineTypes) {
+            // Check if machine is eligible for indexing (no dynamic modifiers)
+            if (!isEligibleForIndexing(type)) {
+                continue
+            }
+
+            val recipes = recipeLookup(type)
+            if (recipes.isEmpty()) continue
+
+            val perFactory = arrayOfNulls<RequirementIndex>(factorySnapshot.size)
+            for ((i, factory) in factorySnapshot.withIndex()) {
+                perFactory[i] = factory.create(type, recipes)
+            }
+
+            if (perFactory.any { it != null }) {
+                out[type] = TypeIndexState(perFactory)
+            }
+        }
+        return out
+    }
+
     private fun isEligibleForIndexing(machineType: MachineType): Boolean {
         // Check if any of the machine's recipes have dynamic modifiers.
         // If a recipe uses dynamic modifiers (e.g., DynamicItemInputGroup),
@@ -99,4 +307,4 @@ public object RecipeIndexRegistry : IRecipeIndexRegistry {
         return true
     }
 
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package github.kasuminova.prototypemachinery.impl.recipe.index.type
 import github.kasuminova.prototypemachinery.api.machine.MachineInstance
 import github.kasuminova.prototypemachinery.api.machine.MachineType
 import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.index.IncrementalRequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndexFactory
 import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
@@ -22,9 +23,9 @@ import java.util.Arrays
  */
 public class EnergyRequirementIndex(
     // Sorted by required energy ascending.
-    private val requiredEnergies: LongArray,
-    private val recipesByRequired: Array<MachineRecipe>
-) : RequirementIndex {
+    internal val requiredEnergies: LongArray,
+    internal val recipesByRequired: Array<MachineRecipe>
+) : IncrementalRequirementIndex {
 
     public override fun lookup(machine: MachineInstance): Set<MachineRecipe>? {
         // 1. Get all EnergyContainerComponents from the machine
@@ -57,6 +58,50 @@ public class EnergyRequirementIndex(
         return out
     }
 
+    public override fun withRecipe(recipe: MachineRecipe): RequirementIndex? {
+        val required = requiredEnergyOf(recipe)
+        if (required <= 0L) return this
+
+        // Insert after any equal entries, matching the stable sort used by the factory.
+        var pos = Arrays.binarySearch(requiredEnergies, required)
+        if (pos < 0) {
+            pos = -pos - 1
+        } else {
+            while (pos < requiredEnergies.size && requiredEnergies[pos] == required) pos++
+        }
+
+        val size = requiredEnergies.size
+        val newRequired = LongArray(size + 1)
+        val newRecipes = arrayOfNulls<MachineRecipe>(size + 1)
+        System.arraycopy(requiredEnergies, 0, newRequired, 0, pos)
+        System.arraycopy(recipesByRequired, 0, newRecipes, 0, pos)
+        newRequired[pos] = required
+        newRecipes[pos] = recipe
+        System.arraycopy(requiredEnergies, pos, newRequired, pos + 1, size - pos)
+        System.arraycopy(recipesByRequired, pos, newRecipes, pos + 1, size - pos)
+
+        @Suppress("UNCHECKED_CAST")
+        return EnergyRequirementIndex(newRequired, newRecipes as Array<MachineRecipe>)
+    }
+
+    public override fun withoutRecipe(recipe: MachineRecipe): RequirementIndex? {
+        val pos = recipesByRequired.indexOfFirst { it === recipe }
+        if (pos < 0) return this
+
+        val size = requiredEnergies.size
+        if (size == 1) return null
+
+        val newRequired = LongArray(size - 1)
+        val newRecipes = arrayOfNulls<MachineRecipe>(size - 1)
+        System.arraycopy(requiredEnergies, 0, newRequired, 0, pos)
+        System.arraycopy(recipesByRequired, 0, newRecipes, 0, pos)
+        System.arraycopy(requiredEnergies, pos + 1, newRequired, pos, size - pos - 1)
+        System.arraycopy(recipesByRequired, pos + 1, newRecipes, pos, size - pos - 1)
+
+        @Suppress("UNCHECKED_CAST")
+        return EnergyRequirementIndex(newRequired, newRecipes as Array<MachineRecipe>)
+    }
+
     public companion object Factory : RequirementIndexFactory {
         override val requirementType: RecipeRequirementType<*> = RecipeRequirementTypes.ENERGY
 
@@ -65,25 +110,7 @@ public class EnergyRequirementIndex(
             val entries = ArrayList<Entry>()
 
             for (recipe in recipes) {
-                // Get all EnergyRequirementComponents from this recipe
-                val energyReqs = recipe.requirements[RecipeRequirementTypes.ENERGY]
-                if (energyReqs.isNullOrEmpty()) continue
-
-                var totalEnergyRequired = 0L
-
-                for (req in energyReqs) {
-                    if (req is github.kasuminova.prototypemachinery.impl.recipe.requirement.EnergyRequirementComponent) {
-                        // Calculate total energy needed for this recipe
-                        // Start cost + (per-tick cost * duration)
-                        val startCost = req.input
-                        val perTickCost = req.inputPerTick
-                        val duration = recipe.durationTicks
-
-                        val totalCost = startCost + (perTickCost * duration)
-                        totalEnergyRequired += totalCost
-                    }
-                }
-
+                val totalEnergyRequired = requiredEnergyOf(recipe)
                 if (totalEnergyRequired > 0) {
                     entries += Entry(totalEnergyRequired, recipe)
                 }
@@ -103,5 +130,27 @@ public class EnergyRequirementIndex(
             @Suppress("UNCHECKED_CAST")
             return EnergyRequirementIndex(required, byRequired as Array<MachineRecipe>)
         }
+
+        private fun requiredEnergyOf(recipe: MachineRecipe): Long {
+            // Get all EnergyRequirementComponents from this recipe
+            val energyReqs = recipe.requirements[RecipeRequirementTypes.ENERGY]
+            if (energyReqs.isNullOrEmpty()) return 0L
+
+            var totalEnergyRequired = 0L
+
+            for (req in energyReqs) {
+                if (req is github.kasuminova.prototypemachinery.impl.recipe.requirement.EnergyRequirementComponent) {
+                    // Calculate total energy needed for this recipe
+                    // Start cost + (per-tick cost * duration)
+                    val startCost = req.input
+                    val perTickCost = req.inputPerTick
+                    val duration = recipe.durationTicks
+
+                    val totalCost = startCost + (perTickCost * duration)
+                    totalEnergyRequired += totalCost
+                }
+            }
+            return totalEnergyRequired
+        }
     }
 }
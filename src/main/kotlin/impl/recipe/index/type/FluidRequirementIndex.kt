@@ -4,6 +4,7 @@ import github.kasuminova.prototypemachinery.api.key.PMKey
 import github.kasuminova.prototypemachinery.api.machine.MachineInstance
 import github.kasuminova.prototypemachinery.api.machine.MachineType
 import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.index.IncrementalRequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndexFactory
 import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
@@ -26,7 +27,7 @@ import net.minecraftforge.fluids.FluidStack
  */
 public class FluidRequirementIndex(
     private val index: Map<PMKey<FluidStack>, Set<MachineRecipe>>
-) : RequirementIndex {
+) : IncrementalRequirementIndex {
 
     public override fun lookup(machine: MachineInstance): Set<MachineRecipe>? {
         val fluidComponents = machine.structureComponentMap.getByInstanceOf(
@@ -71,41 +72,51 @@ public class FluidRequirementIndex(
         return if (potentialRecipes.isEmpty()) emptySet() else potentialRecipes
     }
 
+    public override fun withRecipe(recipe: MachineRecipe): RequirementIndex? {
+        val keys = LinkedHashSet<PMKey<FluidStack>>()
+        collectKeys(recipe, keys)
+        if (keys.isEmpty()) return this
+
+        // Copy-on-write: only the touched key sets are copied, the rest are shared with this index.
+        val map = LinkedHashMap(index)
+        for (key in keys) {
+            val set = LinkedHashSet(map[key] ?: emptySet())
+            set.add(recipe)
+            map[key] = set
+        }
+        return FluidRequirementIndex(map)
+    }
+
+    public override fun withoutRecipe(recipe: MachineRecipe): RequirementIndex? {
+        val keys = LinkedHashSet<PMKey<FluidStack>>()
+        collectKeys(recipe, keys)
+        if (keys.isEmpty()) return this
+
+        val map = LinkedHashMap(index)
+        for (key in keys) {
+            val current = map[key] ?: continue
+            if (recipe !in current) continue
+            val set = LinkedHashSet(current)
+            set.remove(recipe)
+            if (set.isEmpty()) map.remove(key) else map[key] = set
+        }
+
+        if (map.isEmpty()) return null
+        return FluidRequirementIndex(map)
+    }
+
     public companion object Factory : RequirementIndexFactory {
         override val requirementType: RecipeRequirementType<*> = RecipeRequirementTypes.FLUID
 
         public override fun create(machineType: MachineType, recipes: List<MachineRecipe>): RequirementIndex? {
             val map = mutableMapOf<PMKey<FluidStack>, MutableSet<MachineRecipe>>()
+            val keys = LinkedHashSet<PMKey<FluidStack>>()
 
             for (recipe in recipes) {
-                // Get all FluidRequirementComponents from this recipe
-                val fluidReqs = recipe.requirements[RecipeRequirementTypes.FLUID]
-                if (fluidReqs.isNullOrEmpty()) continue
-
-                for (req in fluidReqs) {
-                    if (req is github.kasuminova.prototypemachinery.impl.recipe.requirement.FluidRequirementComponent) {
-                        // Index fuzzy candidates conservatively (they are explicit and thus safe to index).
-                        @Suppress("UNCHECKED_CAST")
-                        val fuzzy = req.properties[RequirementPropertyKeys.FUZZY_INPUTS] as? List<FuzzyInputGroup<FluidStack>>
-                        if (!fuzzy.isNullOrEmpty()) {
-                            for (group in fuzzy) {
-                                for (cand in group.candidates) {
-                                    map.computeIfAbsent(cand) { mutableSetOf() }.add(recipe)
-                                }
-                            }
-                        }
-
-                        // Index each input fluid type
-                        for (inputKey in req.inputs) {
-                            // The key is already a PMKey<FluidStack>
-                            map.computeIfAbsent(inputKey) { mutableSetOf() }.add(recipe)
-                        }
-
-                        // Also index per-tick inputs
-                        for (inputKey in req.inputsPerTick) {
-                            map.computeIfAbsent(inputKey) { mutableSetOf() }.add(recipe)
-                        }
-                    }
+                keys.clear()
+                collectKeys(recipe, keys)
+                for (key in keys) {
+                    map.computeIfAbsent(key) { mutableSetOf() }.add(recipe)
                 }
             }
 
@@ -113,5 +124,34 @@ public class FluidRequirementIndex(
 
             return FluidRequirementIndex(map)
         }
+
+        /**
+         * Collect the indexable fluid keys of [recipe] into [out].
+         */
+        private fun collectKeys(recipe: MachineRecipe, out: MutableSet<PMKey<FluidStack>>) {
+            // Get all FluidRequirementComponents from this recipe
+            val fluidReqs = recipe.requirements[RecipeRequirementTypes.FLUID]
+            if (fluidReqs.isNullOrEmpty()) return
+
+            for (req in fluidReqs) {
+                if (req is github.kasuminova.prototypemachinery.impl.recipe.requirement.FluidRequirementComponent) {
+                    // Index fuzzy candidates conservatively (they are explicit and thus safe to index).
+                    @Suppress("UNCHECKED_CAST")
+                    val fuzzy = req.properties[RequirementPropertyKeys.FUZZY_INPUTS] as? List<FuzzyInputGroup<FluidStack>>
+                    if (!fuzzy.isNullOrEmpty()) {
+                        for (group in fuzzy) {
+                            out.addAll(group.candidates)
+                        }
+                    }
+
+                    // Index each input fluid type
+                    // The key is already a PMKey<FluidStack>
+                    out.addAll(req.inputs)
+
+                    // Also index per-tick inputs
+                    out.addAll(req.inputsPerTick)
+                }
+            }
+        }
     }
 }
@@ -6,6 +6,7 @@ import github.kasuminova.prototypemachinery.api.machine.MachineType
 import github.kasuminova.prototypemachinery.api.machine.component.container.EnumerableItemKeyContainer
 import github.kasuminova.prototypemachinery.api.machine.component.container.StructureItemKeyContainer
 import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.index.IncrementalRequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndex
 import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndexFactory
 import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
@@ -19,7 +20,7 @@ import net.minecraft.item.ItemStack
 public class ItemRequirementIndex(
     private val index: Map<PMKey<ItemStack>, Set<MachineRecipe>>,
     private val dynamicRecipes: Set<MachineRecipe>
-) : RequirementIndex {
+) : IncrementalRequirementIndex {
 
     public override fun lookup(machine: MachineInstance): Set<MachineRecipe>? {
         // Use the key-level API for scanning (see StructureKeyContainers docs).
@@ -61,43 +62,56 @@ public class ItemRequirementIndex(
         return if (potentialRecipes.isEmpty()) emptySet() else potentialRecipes
     }
 
+    public override fun withRecipe(recipe: MachineRecipe): RequirementIndex? {
+        val keys = LinkedHashSet<PMKey<ItemStack>>()
+        val isDynamic = collectKeys(recipe, keys)
+        if (keys.isEmpty() && !isDynamic) return this
+
+        // Copy-on-write: only the touched key sets are copied, the rest are shared with this index.
+        val map = LinkedHashMap(index)
+        for (key in keys) {
+            val set = LinkedHashSet(map[key] ?: emptySet())
+            set.add(recipe)
+            map[key] = set
+        }
+        val dynamic = if (isDynamic) LinkedHashSet(dynamicRecipes).also { it.add(recipe) } else dynamicRecipes
+        return ItemRequirementIndex(map, dynamic)
+    }
+
+    public override fun withoutRecipe(recipe: MachineRecipe): RequirementIndex? {
+        val keys = LinkedHashSet<PMKey<ItemStack>>()
+        val isDynamic = collectKeys(recipe, keys)
+        if (keys.isEmpty() && !isDynamic) return this
+
+        val map = LinkedHashMap(index)
+        for (key in keys) {
+            val current = map[key] ?: continue
+            if (recipe !in current) continue
+            val set = LinkedHashSet(current)
+            set.remove(recipe)
+            if (set.isEmpty()) map.remove(key) else map[key] = set
+        }
+        val dynamic = if (isDynamic && recipe in dynamicRecipes) LinkedHashSet(dynamicRecipes).also { it.remove(recipe) } else dynamicRecipes
+
+        if (map.isEmpty() && dynamic.isEmpty()) return null
+        return ItemRequirementIndex(map, dynamic)
+    }
+
     public companion object Factory : RequirementIndexFactory {
         override val requirementType: RecipeRequirementType<*> = RecipeRequirementTypes.ITEM
 
         public override fun create(machineType: MachineType, recipes: List<MachineRecipe>): RequirementIndex? {
             val map = mutableMapOf<PMKey<ItemStack>, MutableSet<MachineRecipe>>()
             val dynamic = LinkedHashSet<MachineRecipe>()
+            val keys = LinkedHashSet<PMKey<ItemStack>>()
 
             for (recipe in recipes) {
-                // Get all ItemRequirementComponents from this recipe
-                val itemReqs = recipe.requirements[RecipeRequirementTypes.ITEM]
-                if (itemReqs.isNullOrEmpty()) continue
-
-                for (req in itemReqs) {
-                    if (req is github.kasuminova.prototypemachinery.impl.recipe.requirement.ItemRequirementComponent) {
-                        // Index fuzzy candidates conservatively (they are explicit and thus safe to index).
-                        @Suppress("UNCHECKED_CAST")
-                        val fuzzy = req.properties[RequirementPropertyKeys.FUZZY_INPUTS] as? List<FuzzyInputGroup<ItemStack>>
-                        if (!fuzzy.isNullOrEmpty()) {
-                            for (group in fuzzy) {
-                                for (cand in group.candidates) {
-                                    map.computeIfAbsent(cand) { mutableSetOf() }.add(recipe)
-                                }
-                            }
-                        }
-
-                        // Dynamic item inputs cannot be indexed by concrete keys (matcher decides at runtime).
-                        val dyn = req.properties[RequirementPropertyKeys.DYNAMIC_ITEM_INPUTS] as? List<DynamicItemInputGroup>
-                        if (!dyn.isNullOrEmpty()) {
-                            dynamic += recipe
-                        }
-
-                        // Index each input item type
-                        for (inputKey in req.inputs) {
-                            // The key is already a PMKey<ItemStack>
-                            map.computeIfAbsent(inputKey) { mutableSetOf() }.add(recipe)
-                        }
-                    }
+                keys.clear()
+                if (collectKeys(recipe, keys)) {
+                    dynamic += recipe
+                }
+                for (key in keys) {
+                    map.computeIfAbsent(key) { mutableSetOf() }.add(recipe)
                 }
             }
 
@@ -105,5 +119,41 @@ public class ItemRequirementIndex(
 
             return ItemRequirementIndex(map, dynamic)
         }
+
+        /**
+         * Collect the indexable item keys of [recipe] into [out].
+         *
+         * @return true if the recipe has dynamic item inputs (cannot be indexed by concrete keys).
+         */
+        private fun collectKeys(recipe: MachineRecipe, out: MutableSet<PMKey<ItemStack>>): Boolean {
+            // Get all ItemRequirementComponents from this recipe
+            val itemReqs = recipe.requirements[RecipeRequirementTypes.ITEM]
+            if (itemReqs.isNullOrEmpty()) return false
+
+            var isDynamic = false
+            for (req in itemReqs) {
+                if (req is github.kasuminova.prototypemachinery.impl.recipe.requirement.ItemRequirementComponent) {
+                    // Index fuzzy candidates conservatively (they are explicit and thus safe to index).
+                    @Suppress("UNCHECKED_CAST")
+                    val fuzzy = req.properties[RequirementPropertyKeys.FUZZY_INPUTS] as? List<FuzzyInputGroup<ItemStack>>
+                    if (!fuzzy.isNullOrEmpty()) {
+                        for (group in fuzzy) {
+                            out.addAll(group.candidates)
+                        }
+                    }
+
+                    // Dynamic item inputs cannot be indexed by concrete keys (matcher decides at runtime).
+                    val dyn = req.properties[RequirementPropertyKeys.DYNAMIC_ITEM_INPUTS] as? List<DynamicItemInputGroup>
+                    if (!dyn.isNullOrEmpty()) {
+                        isDynamic = true
+                    }
+
+                    // Index each input item type
+                    // The key is already a PMKey<ItemStack>
+                    out.addAll(req.inputs)
+                }
+            }
+            return isDynamic
+        }
     }
 }
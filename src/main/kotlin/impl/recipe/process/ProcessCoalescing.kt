@@ -0,0 +1,189 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process
+
+import github.kasuminova.prototypemachinery.api.machine.attribute.StandardMachineAttributes
+import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
+import github.kasuminova.prototypemachinery.api.util.RecipeParallelism
+import github.kasuminova.prototypemachinery.api.util.probability.ChanceMath
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandom
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandomStream
+import github.kasuminova.prototypemachinery.impl.machine.attribute.OverlayMachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.system.FactoryRecipeScanningSystem
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.CoalescedProcessComponent
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.CoalescedProcessComponentType
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.RecipeLifecycleStateProcessComponentType
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.RequirementResolutionProcessComponentType
+
+/**
+ * # ProcessCoalescing - Merge identical processes into one high-parallel process
+ * # ProcessCoalescing - 将相同进程合并为一个高并行进程
+ *
+ * When several processes of the same recipe are started within the same processor tick and are
+ * indistinguishable (same resolved fuzzy/dynamic locks, no extra process components, no local attribute
+ * changes besides a plain PROCESS_PARALLELISM base), the later ones are folded into the first one by summing
+ * PROCESS_PARALLELISM. The machine then pays the per-process tick cost once instead of N times.
+ * The merged total never exceeds the parallelism the scanner would allow for the recipe, and every member
+ * keeps its concurrency slot until the merged process ends.
+ *
+ * 当同一配方的多个进程在同一处理器 tick 内启动且彼此无差别（模糊/动态锁定一致、无额外进程组件、
+ * 除单纯的 PROCESS_PARALLELISM 基础值外无本地属性变更）时，后启动的进程会通过累加 PROCESS_PARALLELISM
+ * 并入第一个进程。机器只需承担一次而非 N 次的进程 tick 开销。
+ * 合并后的总并行数不会超过扫描器对该配方允许的并行数，且每个成员在合并进程结束前都占用自己的并发槽位。
+ *
+ * Each original process is kept as a member of [CoalescedProcessComponent] (seed + parallelism). Chance rolls
+ * go through [sampleTimes], and rolls followed by random output picks go through [sampleMemberTimes], so outputs
+ * are exactly what the separate processes would roll.
+ * If the merged start stage does not succeed, [split] restores the original processes.
+ *
+ * 每个原始进程都作为 [CoalescedProcessComponent] 的成员保留（种子 + 并行数）。概率抽样经由 [sampleTimes]，
+ * 带随机产出抽取的抽样经由 [sampleMemberTimes]，均按成员进行，因此产出与分别运行时完全一致。
+ * 若合并后的启动阶段未成功，[split] 会还原原始进程。
+ */
+internal object ProcessCoalescing {
+
+    /**
+     * Fold [incoming] into the first compatible process of [candidates]. Returns false if none matches.
+     * 将 [incoming] 并入 [candidates] 中第一个兼容的进程。没有匹配时返回 false。
+     */
+    fun tryMerge(candidates: List<RecipeProcessImpl>, incoming: RecipeProcess): Boolean {
+        if (incoming !is RecipeProcessImpl) return false
+        if (!isPristine(incoming, allowCoalesced = false)) return false
+
+        for (host in candidates) {
+            if (host === incoming || host.recipe !== incoming.recipe || host.owner !== incoming.owner) continue
+            if (!isPristine(host, allowCoalesced = true)) continue
+            if (host[RecipeLifecycleStateProcessComponentType]?.started == true) continue
+            if (locksOf(host) != locksOf(incoming)) continue
+
+            val hostParallels = RecipeParallelism.getParallelism(host)
+            val incomingParallels = RecipeParallelism.getParallelism(incoming)
+            if (hostParallels.toLong() + incomingParallels > FactoryRecipeScanningSystem.parallelLimit(host.owner, host.recipe)) continue
+
+            val members = host[CoalescedProcessComponentType] ?: CoalescedProcessComponentType.createComponent(host).also {
+                it.add(host.seed, hostParallels)
+                host.components.addTail(CoalescedProcessComponentType, it)
+            }
+            members.add(incoming.seed, incomingParallels)
+            setParallelism(host, hostParallels + incomingParallels)
+            return true
+        }
+        return false
+    }
+
+    /**
+     * Undo a merge: [host] keeps its first member, every other member is returned as a fresh process
+     * with the same recipe, seed, parallelism and locks. Returns an empty list if [host] is not coalesced.
+     *
+     * 撤销合并：[host] 保留第一个成员，其余成员以相同配方、种子、并行数与锁定重新创建为新进程并返回。
+     * 若 [host] 未合并则返回空列表。
+     */
+    fun split(host: RecipeProcessImpl): List<RecipeProcessImpl> {
+        val members = host[CoalescedProcessComponentType] ?: return emptyList()
+        host.components.remove(CoalescedProcessComponentType)
+        if (members.size <= 1) return emptyList()
+
+        setParallelism(host, members.parallelsAt(0))
+        val locks = host[RequirementResolutionProcessComponentType]?.snapshotLocks().orEmpty()
+
+        val restored = ArrayList<RecipeProcessImpl>(members.size - 1)
+        for (i in 1 until members.size) {
+            val process = RecipeProcessImpl(host.owner, host.recipe, members.seedAt(i))
+            setParallelism(process, members.parallelsAt(i))
+            if (locks.isNotEmpty()) {
+                val resolution = RequirementResolutionProcessComponentType.createComponent(process)
+                for ((id, key) in locks) resolution.putLock(id, key)
+                process.components.addTail(RequirementResolutionProcessComponentType, resolution)
+            }
+            restored += process
+        }
+        return restored
+    }
+
+    /**
+     * [ChanceMath.sampleTimes] for [process]: per member when it is coalesced, otherwise on its own stream.
+     * 为 [process] 执行 [ChanceMath.sampleTimes]：若已合并则按成员抽样，否则使用进程自身的随机流。
+     */
+    fun sampleTimes(process: RecipeProcess, saltId: Long, tick: Long, parallels: Int, chancePercent: Double): Long {
+        val members = process[CoalescedProcessComponentType]
+        // Fall back if PROCESS_PARALLELISM was changed after merging; members no longer describe the process.
+        if (members == null || members.size <= 1 || members.totalParallels != parallels) {
+            return ChanceMath.sampleTimes(process.randomStream(saltId, tick), parallels, chancePercent)
+        }
+        return members.sampleTimes(saltId, tick, chancePercent)
+    }
+
+    /**
+     * Like [sampleTimes], but keeps each member's executions, so per-execution random picks can be drawn from
+     * the member's own stream with [MemberTimes.forEachDraw].
+     *
+     * 与 [sampleTimes] 相同，但保留每个成员的执行次数，以便通过 [MemberTimes.forEachDraw] 在成员自己的随机流上
+     * 逐次抽取随机产出。
+     */
+    fun sampleMemberTimes(process: RecipeProcess, saltId: Long, tick: Long, parallels: Int, chancePercent: Double): MemberTimes {
+        val members = process[CoalescedProcessComponentType]
+        if (members == null || members.size <= 1 || members.totalParallels != parallels) {
+            val times = ChanceMath.sampleTimes(process.randomStream(saltId, tick), parallels, chancePercent)
+            return MemberTimes(longArrayOf(process.seed), longArrayOf(times))
+        }
+        return MemberTimes(LongArray(members.size, members::seedAt), members.sampleTimesPerMember(saltId, tick, chancePercent))
+    }
+
+    /**
+     * Executions rolled by [sampleMemberTimes], per member seed.
+     * 由 [sampleMemberTimes] 抽出的执行次数，按成员种子保存。
+     */
+    class MemberTimes(private val seeds: LongArray, private val times: LongArray) {
+
+        /** Executions of all members together. / 所有成员的执行次数之和。 */
+        val total: Long = times.fold(0L) { acc, t -> if (Long.MAX_VALUE - acc < t) Long.MAX_VALUE else acc + t }
+
+        /**
+         * Call [draw] once per execution, with the stream the member would use on its own for [randomSaltId]
+         * (tick 0). Draws of one member share the stream, so they are indexed by its counter.
+         *
+         * 每次执行调用一次 [draw]，传入该成员单独运行时针对 [randomSaltId]（tick 0）使用的随机流。
+         * 同一成员的抽取共用一个流，按流计数器编号。
+         */
+        fun forEachDraw(randomSaltId: Long, draw: (CounterRandomStream) -> Unit) {
+            for (i in seeds.indices) {
+                if (times[i] <= 0L) continue
+                val stream = CounterRandom.stream(seeds[i], randomSaltId, 0L)
+                for (n in 0 until times[i]) draw(stream)
+            }
+        }
+    }
+
+    private fun isPristine(process: RecipeProcessImpl, allowCoalesced: Boolean): Boolean {
+        if (process.fastForwardTicket != null) return false
+        if (process.status.progress != 0.0f || process.status.isError) return false
+
+        for (node in process.components.orderedComponents) {
+            val key = node.key
+            val allowed = key === RequirementResolutionProcessComponentType ||
+                key === RecipeLifecycleStateProcessComponentType ||
+                (allowCoalesced && key === CoalescedProcessComponentType)
+            if (!allowed) return false
+        }
+
+        val overlay = process.attributeMap as? OverlayMachineAttributeMapImpl ?: return false
+        for (instance in overlay.localInstances()) {
+            if (instance.attribute == StandardMachineAttributes.PROCESS_PARALLELISM) {
+                // A base override is how parallelism is assigned (scanner, split) and is recorded as the member's
+                // parallelism. Any modifier, local or inherited, would make the summed base differ from the
+                // summed values, so such processes stay separate.
+                if (instance.modifiers.isNotEmpty()) return false
+            } else if (instance.hasLocalChanges()) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private fun locksOf(process: RecipeProcess): Map<String, *> =
+        process[RequirementResolutionProcessComponentType]?.snapshotLocks().orEmpty()
+
+    private fun setParallelism(process: RecipeProcessImpl, parallels: Int) {
+        val overlay = process.attributeMap as? OverlayMachineAttributeMapImpl ?: return
+        overlay.getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM, defaultBase = 1.0).base =
+            parallels.coerceAtLeast(1).toDouble()
+    }
+}
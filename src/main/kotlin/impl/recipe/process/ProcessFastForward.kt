@@ -0,0 +1,220 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process
+
+import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeMap
+import github.kasuminova.prototypemachinery.api.machine.attribute.StandardMachineAttributes
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeVersions
+import github.kasuminova.prototypemachinery.impl.machine.attribute.VersionedAttributeInstance
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.ProcessUnscaledProgressComponentType
+import kotlin.math.ceil
+
+/**
+ * # ProcessFastForward - Timer wheel for processes with a no-op tick stage
+ * # ProcessFastForward - 用于 tick 阶段为空操作的进程的时间轮
+ *
+ * A process whose per-tick requirements and process component systems are all no-ops only needs
+ * `progress += speed` every tick. Such processes are *parked* here instead: their completion tick is
+ * computed from the recipe duration and the current PROCESS_SPEED, and the processor does not touch
+ * them again until that tick (or until the machine's PROCESS_SPEED changes).
+ *
+ * 若进程的每 tick 需求与进程组件系统全部为空操作，那么它每 tick 只需 `progress += speed`。
+ * 这类进程会被*挂起*到这里：按配方时长与当前 PROCESS_SPEED 直接算出完成 tick，
+ * 在此之前（或机器 PROCESS_SPEED 变化之前）处理器不会再触碰它。
+ *
+ * While parked, [RecipeProcessImpl.status] reports the projected progress, so GUI sync and saves
+ * stay accurate without materializing it every tick.
+ *
+ * 挂起期间 [RecipeProcessImpl.status] 返回推算后的进度，GUI 同步与存档无需每 tick 写回也能保持准确。
+ *
+ * Note: process-local PROCESS_SPEED modifiers changed while parked take effect at the next wake-up;
+ * machine-level changes wake all parked processes immediately.
+ *
+ * 注意：挂起期间对进程本地 PROCESS_SPEED 修改器的变更会在下次唤醒时生效；
+ * 机器级别的变更会立即唤醒所有挂起进程。
+ *
+ * Not thread-safe; owned by a single processor component and driven from its tick.
+ * 非线程安全；由单个处理器组件持有并在其 tick 中驱动。
+ */
+internal class ProcessFastForward {
+
+    internal class Ticket(
+        val owner: ProcessFastForward,
+        val process: RecipeProcessImpl,
+        val parkedAt: Long,
+        val baseProgress: Float,
+        val speed: Float,
+        val dueTick: Long,
+    ) {
+        var unscaledFlushedAt: Long = parkedAt
+
+        /** Progress the process would have reached by now if it had been ticked normally. */
+        fun projectedProgress(): Float {
+            val elapsed = minOf(owner.currentTick, dueTick) - parkedAt
+            return baseProgress + elapsed.toFloat() * speed
+        }
+    }
+
+    /** Number of processor ticks driven so far. / 已驱动的处理器 tick 数。 */
+    var currentTick: Long = 0L
+        private set
+
+    var parkedCount: Int = 0
+        private set
+
+    private val slots: Array<ArrayList<Ticket>?> = arrayOfNulls(WHEEL_SIZE)
+
+    private var machineSpeedVersion: Long = MachineAttributeVersions.UNVERSIONED
+
+    /**
+     * Advance one tick and wake every due process (or all of them if the machine's speed changed).
+     * Woken processes are settled and then ticked normally by the caller in the same tick.
+     *
+     * 前进一个 tick，并唤醒所有到期进程（若机器速度变化则唤醒全部）。
+     * 被唤醒的进程会先结算，再由调用方在同一 tick 内按正常流程处理。
+     */
+    fun advance(machineAttributes: MachineAttributeMap) {
+        // Speed changes are applied from this tick on, so settle at the previous tick first.
+        // 速度变化从本 tick 起生效，因此先按上一个 tick 结算。
+        val version = speedVersionOf(machineAttributes)
+        if (version != machineSpeedVersion) {
+            machineSpeedVersion = version
+            wakeAll()
+        }
+
+        currentTick++
+        if (parkedCount == 0) return
+
+        val slot = slots[(currentTick and MASK).toInt()] ?: return
+        var i = 0
+        while (i < slot.size) {
+            val ticket = slot[i]
+            if (ticket.process.fastForwardTicket !== ticket) {
+                swapRemove(slot, i)
+                continue
+            }
+            if (ticket.dueTick <= currentTick) {
+                swapRemove(slot, i)
+                settle(ticket)
+                continue
+            }
+            i++
+        }
+    }
+
+    /**
+     * Park [process] after a successful normal tick. Returns false if it cannot be fast-forwarded
+     * (no positive speed, unversioned machine speed, or already complete).
+     *
+     * 在一次成功的正常 tick 之后挂起 [process]。无法快进时（速度非正、机器速度无版本或已完成）返回 false。
+     */
+    fun park(process: RecipeProcessImpl, machineAttributes: MachineAttributeMap): Boolean {
+        if (process.fastForwardTicket != null) return true
+        if (machineSpeedVersion == MachineAttributeVersions.UNVERSIONED) return false
+        if (speedVersionOf(machineAttributes) != machineSpeedVersion) return false
+
+        val duration = process.recipe.durationTicks.toFloat()
+        val speed = (process.attributeMap.attributes[StandardMachineAttributes.PROCESS_SPEED]?.value ?: 1.0).toFloat()
+        if (duration <= 0.0f || speed <= 0.0f || speed.isNaN() || speed.isInfinite()) return false
+
+        val progress = process.status.progress
+        if (progress >= duration) return false
+
+        var ticks = ceil((duration - progress) / speed).toLong().coerceAtLeast(1L)
+        // Match float accumulation: make sure the projected progress really reaches the duration.
+        while (progress + ticks.toFloat() * speed < duration) ticks++
+
+        val ticket = Ticket(this, process, currentTick, progress, speed, currentTick + ticks)
+        process.fastForwardTicket = ticket
+        val index = (ticket.dueTick and MASK).toInt()
+        val slot = slots[index] ?: ArrayList<Ticket>(4).also { slots[index] = it }
+        slot.add(ticket)
+        parkedCount++
+        return true
+    }
+
+    /**
+     * Wake [process] now (progress and unscaled ticks are materialized). No-op if not parked here.
+     * The ticket leaves its slot right away, so stopped processes are not retained by the wheel.
+     *
+     * 立即唤醒 [process]（写回进度与未缩放 tick）。若未在此挂起则无操作。
+     * 挂起记录会立即移出槽位，时间轮不会继续引用已停止的进程。
+     */
+    fun unpark(process: RecipeProcessImpl) {
+        val ticket = process.fastForwardTicket ?: return
+        if (ticket.owner !== this) return
+        slots[(ticket.dueTick and MASK).toInt()]?.let { slot ->
+            for (i in slot.indices) {
+                if (slot[i] === ticket) {
+                    swapRemove(slot, i)
+                    break
+                }
+            }
+        }
+        settle(ticket)
+    }
+
+    /** Tickets currently held in wheel slots (diagnostics / tests). / 时间轮槽位中当前持有的挂起记录数（诊断 / 测试）。 */
+    internal val slottedCount: Int
+        get() = slots.sumOf { it?.size ?: 0 }
+
+    /** Wake every parked process. / 唤醒所有挂起进程。 */
+    fun wakeAll() {
+        if (parkedCount == 0) return
+        for (i in slots.indices) {
+            val slot = slots[i] ?: continue
+            for (ticket in slot) {
+                if (ticket.process.fastForwardTicket === ticket) settle(ticket)
+            }
+            slot.clear()
+        }
+        parkedCount = 0
+    }
+
+    /** Drop all tickets without settling (processes are being discarded). / 丢弃所有挂起记录且不结算（进程即将被丢弃）。 */
+    fun clear() {
+        for (i in slots.indices) {
+            val slot = slots[i] ?: continue
+            for (ticket in slot) {
+                if (ticket.process.fastForwardTicket === ticket) ticket.process.fastForwardTicket = null
+            }
+            slot.clear()
+        }
+        parkedCount = 0
+    }
+
+    private fun settle(ticket: Ticket) {
+        val process = ticket.process
+        val progress = ticket.projectedProgress()
+        flushUnscaled(ticket)
+        process.fastForwardTicket = null
+        process.status = process.status.copy(progress = progress)
+        parkedCount--
+    }
+
+    private fun swapRemove(list: ArrayList<Ticket>, index: Int) {
+        val last = list.size - 1
+        if (index != last) list[index] = list[last]
+        list.removeAt(last)
+    }
+
+    internal companion object {
+        private const val WHEEL_SIZE: Int = 256
+        private const val MASK: Long = (WHEEL_SIZE - 1).toLong()
+
+        /**
+         * Bring the unscaled tick counter of a parked process up to date (e.g. before saving).
+         * 将挂起进程的未缩放 tick 计数更新到当前（例如保存前）。
+         */
+        fun flushUnscaled(ticket: Ticket) {
+            val now = minOf(ticket.owner.currentTick, ticket.dueTick)
+            val delta = now - ticket.unscaledFlushedAt
+            if (delta <= 0L) return
+            ticket.process[ProcessUnscaledProgressComponentType]?.let { it.ticks += delta.toFloat() }
+            ticket.unscaledFlushedAt = now
+        }
+
+        private fun speedVersionOf(attributes: MachineAttributeMap): Long {
+            val instance = attributes.attributes[StandardMachineAttributes.PROCESS_SPEED] ?: return 0L
+            return (instance as? VersionedAttributeInstance)?.version ?: MachineAttributeVersions.UNVERSIONED
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process
+
+import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponent
+import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponentType
+import github.kasuminova.prototypemachinery.api.recipe.process.component.system.RecipeProcessSystem
+import github.kasuminova.prototypemachinery.impl.ecs.TopologicalComponentMapImpl
+
+/**
+ * Process component map with a cached, array-backed tick order.
+ * 带有缓存数组 tick 顺序的进程组件映射。
+ *
+ * [tickEntries] pairs each component that has a [RecipeProcessSystem] with its system, in topological
+ * order, so the processor can run PRE/TICK/POST passes with plain indexed loops. Entries are rebuilt
+ * only when [modificationCount] changes.
+ *
+ * [tickEntries] 按拓扑顺序把每个拥有 [RecipeProcessSystem] 的组件与其系统配对，
+ * 使处理器可以用普通下标循环执行 PRE/TICK/POST 三个阶段。仅在 [modificationCount] 变化时重建。
+ */
+public class RecipeProcessComponentMapImpl : TopologicalComponentMapImpl<RecipeProcessComponentType<*>, RecipeProcessComponent>() {
+
+    internal class TickEntries(
+        val modificationCount: Int,
+        val systems: Array<RecipeProcessSystem<RecipeProcessComponent>>,
+        val components: Array<RecipeProcessComponent>,
+    )
+
+    @Volatile
+    private var cachedTickEntries: TickEntries = EMPTY_TICK_ENTRIES
+
+    @Suppress("UNCHECKED_CAST")
+    internal fun tickEntries(): TickEntries {
+        val snapshot = snapshot()
+        val cached = cachedTickEntries
+        if (cached.modificationCount == snapshot.modificationCount) return cached
+
+        val systems = ArrayList<RecipeProcessSystem<RecipeProcessComponent>>(snapshot.size)
+        val components = ArrayList<RecipeProcessComponent>(snapshot.size)
+        snapshot.forEach { type, component ->
+            val system = type.system ?: return@forEach
+            systems.add(system as RecipeProcessSystem<RecipeProcessComponent>)
+            components.add(component)
+        }
+
+        val entries = TickEntries(snapshot.modificationCount, systems.toTypedArray(), components.toTypedArray())
+        cachedTickEntries = entries
+        return entries
+    }
+
+    private companion object {
+        val EMPTY_TICK_ENTRIES: TickEntries = TickEntries(-1, emptyArray(), emptyArray())
+    }
+
+}
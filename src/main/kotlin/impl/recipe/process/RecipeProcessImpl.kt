@@ -8,12 +8,13 @@ import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
 import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcessStatus
 import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponent
 import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponentType
-import github.kasuminova.prototypemachinery.impl.ecs.TopologicalComponentMapImpl
 import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeNbt
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeVersions
 import github.kasuminova.prototypemachinery.impl.machine.attribute.OverlayMachineAttributeMapImpl
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.RecipeProcessComponentTypeRegistry
 import net.minecraft.nbt.NBTTagCompound
 import net.minecraft.util.ResourceLocation
+import java.util.IdentityHashMap
 import java.util.concurrent.ThreadLocalRandom
 
 public class RecipeProcessImpl(
@@ -27,13 +28,30 @@ public class RecipeProcessImpl(
         defaultBase = 1.0,
     )
 
-    override var status: RecipeProcessStatus = RecipeProcessStatus(
+    private var storedStatus: RecipeProcessStatus = RecipeProcessStatus(
         progress = 0.0f,
         message = "Processing",
         isError = false
     )
 
-    override val components: TopologicalComponentMap<RecipeProcessComponentType<*>, RecipeProcessComponent> = TopologicalComponentMapImpl()
+    /**
+     * Non-null while this process is parked by a [ProcessFastForward] (progress is projected, not stored).
+     * 被 [ProcessFastForward] 挂起时非空（进度为推算值而非存储值）。
+     */
+    internal var fastForwardTicket: ProcessFastForward.Ticket? = null
+
+    override var status: RecipeProcessStatus
+        get() {
+            val ticket = fastForwardTicket ?: return storedStatus
+            return storedStatus.copy(progress = ticket.projectedProgress())
+        }
+        set(value) {
+            // An external write wins over the projection: wake up first, then overwrite.
+            fastForwardTicket?.let { it.owner.unpark(this) }
+            storedStatus = value
+        }
+
+    override val components: TopologicalComponentMap<RecipeProcessComponentType<*>, RecipeProcessComponent> = RecipeProcessComponentMapImpl()
 
     override fun serializeNBT(): NBTTagCompound {
         val nbt = NBTTagCompound()
@@ -48,6 +66,8 @@ public class RecipeProcessImpl(
             nbt.setTag("Attributes", MachineAttributeNbt.writeOverlayLocal(overlay))
         }
 
+        fastForwardTicket?.let { ProcessFastForward.flushUnscaled(it) }
+
         val componentsTag = NBTTagCompound()
         components.orderedComponents.forEach { node ->
             val component = node.component
@@ -58,7 +78,113 @@ public class RecipeProcessImpl(
         return nbt
     }
 
+    // region Save snapshot
+
+    private class ComponentSnapshot(val version: Long, val tag: NBTTagCompound)
+
+    private var componentSnapshots: IdentityHashMap<RecipeProcessComponent, ComponentSnapshot> = IdentityHashMap()
+    private var snapshotComponentsTag: NBTTagCompound? = null
+    private var snapshotAttributesTag: NBTTagCompound? = null
+    private var snapshotAttributesVersion: Long = MachineAttributeVersions.UNVERSIONED
+    private var snapshotStatus: RecipeProcessStatus? = null
+    private var snapshotSeed: Long = 0L
+    private var snapshot: NBTTagCompound? = null
+
+    /**
+     * Save form of this process: the [serializeNBT] layout plus `RecipeID`.
+     * 本进程的存档形式：[serializeNBT] 的结构外加 `RecipeID`。
+     *
+     * Sub-trees are reused from the previous call while their source is unchanged: components by
+     * [RecipeProcessComponent.Versioned.nbtVersion], local attributes by their version stamps, and the whole tag when
+     * nothing changed at all. A queued process that has not moved therefore costs a few comparisons per save.
+     *
+     * 来源未变化的子树直接复用上一次的结果：组件按 [RecipeProcessComponent.Versioned.nbtVersion]，本地属性按其版本戳，
+     * 完全没有变化时复用整个标签。因此未推进的排队进程每次保存只需几次比较。
+     *
+     * The returned tag (and every child) is shared with later calls and with pending chunk writes,
+     * so it must never be modified.
+     *
+     * 返回的标签（及其所有子标签）会被之后的调用与尚未写盘的区块共享，因此绝不能修改。
+     */
+    internal fun saveSnapshot(): NBTTagCompound {
+        fastForwardTicket?.let { ProcessFastForward.flushUnscaled(it) }
+
+        val status = status
+        val overlay = attributeMap as? OverlayMachineAttributeMapImpl
+        val attributesVersion = if (overlay != null) MachineAttributeNbt.overlayLocalVersion(overlay) else 0L
+        val attributesClean = attributesVersion != MachineAttributeVersions.UNVERSIONED &&
+            attributesVersion == snapshotAttributesVersion
+        val componentsClean = componentSnapshotsValid()
+
+        val previous = snapshot
+        if (previous != null && componentsClean && attributesClean && seed == snapshotSeed && status == snapshotStatus) {
+            return previous
+        }
+
+        val nbt = NBTTagCompound()
+        nbt.setString("RecipeID", recipe.id)
+        nbt.setLong("Seed", seed)
+        nbt.setTag("Status", NBTTagCompound().apply {
+            setFloat("Progress", status.progress)
+            setString("Message", status.message)
+            setBoolean("IsError", status.isError)
+        })
+
+        if (overlay != null) {
+            val attributesTag = snapshotAttributesTag?.takeIf { attributesClean } ?: MachineAttributeNbt.writeOverlayLocal(overlay)
+            nbt.setTag("Attributes", attributesTag)
+            snapshotAttributesTag = attributesTag
+        }
+        snapshotAttributesVersion = attributesVersion
+
+        val componentsTag = snapshotComponentsTag?.takeIf { componentsClean } ?: writeComponentSnapshots()
+        nbt.setTag("Components", componentsTag)
+        snapshotComponentsTag = componentsTag
+
+        snapshotStatus = status
+        snapshotSeed = seed
+        snapshot = nbt
+        return nbt
+    }
+
+    /** True if every component is versioned and unchanged since the last snapshot. */
+    private fun componentSnapshotsValid(): Boolean {
+        val ordered = components.orderedComponents
+        if (ordered.size != componentSnapshots.size) return false
+        for (node in ordered) {
+            val component = node.component as? RecipeProcessComponent.Versioned ?: return false
+            val cached = componentSnapshots[component] ?: return false
+            if (cached.version != component.nbtVersion) return false
+        }
+        return true
+    }
+
+    private fun writeComponentSnapshots(): NBTTagCompound {
+        val previous = componentSnapshots
+        val next = IdentityHashMap<RecipeProcessComponent, ComponentSnapshot>(previous.size)
+        val componentsTag = NBTTagCompound()
+        for (node in components.orderedComponents) {
+            val component = node.component
+            val tag = if (component is RecipeProcessComponent.Versioned) {
+                val version = component.nbtVersion
+                val cached = previous[component]?.takeIf { it.version == version }
+                    ?: ComponentSnapshot(version, component.serializeNBT())
+                next[component] = cached
+                cached.tag
+            } else {
+                component.serializeNBT()
+            }
+            componentsTag.setTag(component.type.id.toString(), tag)
+        }
+        componentSnapshots = next
+        return componentsTag
+    }
+
+    // endregion
+
     override fun deserializeNBT(nbt: NBTTagCompound) {
+        snapshot = null
+        snapshotComponentsTag = null
         if (nbt.hasKey("Seed")) {
             seed = nbt.getLong("Seed")
         }
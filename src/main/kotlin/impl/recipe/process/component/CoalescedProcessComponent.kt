@@ -0,0 +1,108 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process.component
+
+import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
+import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponent
+import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponentType
+import github.kasuminova.prototypemachinery.api.util.probability.ChanceMath
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandom
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.nbt.NBTTagList
+import net.minecraftforge.common.util.Constants
+
+/**
+ * Records the original processes merged into a coalesced process (see
+ * [github.kasuminova.prototypemachinery.impl.recipe.process.ProcessCoalescing]).
+ *
+ * 记录被合并进同一进程的原始进程（见 [github.kasuminova.prototypemachinery.impl.recipe.process.ProcessCoalescing]）。
+ *
+ * Each member keeps its own seed and parallelism, so chance rolls and random output picks are sampled per
+ * member and the merged process rolls exactly what the separate processes would have rolled.
+ *
+ * 每个成员保留自己的种子与并行数，因此概率抽样与随机产出抽取均按成员进行，合并后的结果与分别运行时完全一致。
+ */
+public class CoalescedProcessComponent(
+    override val owner: RecipeProcess,
+) : RecipeProcessComponent.Versioned {
+
+    override val type: RecipeProcessComponentType<*> = CoalescedProcessComponentType
+
+    private var seeds: LongArray = LongArray(0)
+    private var parallels: IntArray = IntArray(0)
+
+    override var nbtVersion: Long = 0L
+        private set
+
+    /** Number of merged members (the host itself is member 0). / 成员数量（宿主自身为第 0 个成员）。 */
+    public var size: Int = 0
+        private set
+
+    /** Sum of all member parallelisms. / 所有成员并行数之和。 */
+    public val totalParallels: Int
+        get() {
+            var sum = 0L
+            for (i in 0 until size) sum += parallels[i]
+            return sum.coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+        }
+
+    public fun seedAt(index: Int): Long = seeds[index]
+
+    public fun parallelsAt(index: Int): Int = parallels[index]
+
+    public fun add(seed: Long, parallels: Int) {
+        if (size == seeds.size) {
+            val capacity = maxOf(4, size * 2)
+            seeds = seeds.copyOf(capacity)
+            this.parallels = this.parallels.copyOf(capacity)
+        }
+        seeds[size] = seed
+        this.parallels[size] = parallels
+        size++
+        nbtVersion++
+    }
+
+    /**
+     * Sum of [ChanceMath.sampleTimes] over every member's own random stream.
+     * 在每个成员各自的随机流上执行 [ChanceMath.sampleTimes] 并求和。
+     */
+    public fun sampleTimes(saltId: Long, tick: Long, chancePercent: Double): Long {
+        var total = 0L
+        for (i in 0 until size) {
+            val times = ChanceMath.sampleTimes(CounterRandom.stream(seeds[i], saltId, tick), parallels[i], chancePercent)
+            total = if (Long.MAX_VALUE - total < times) Long.MAX_VALUE else total + times
+        }
+        return total
+    }
+
+    /**
+     * [ChanceMath.sampleTimes] on every member's own random stream, one entry per member.
+     * 在每个成员各自的随机流上执行 [ChanceMath.sampleTimes]，每个成员一个结果。
+     */
+    public fun sampleTimesPerMember(saltId: Long, tick: Long, chancePercent: Double): LongArray =
+        LongArray(size) { i -> ChanceMath.sampleTimes(CounterRandom.stream(seeds[i], saltId, tick), parallels[i], chancePercent) }
+
+    override fun serializeNBT(): NBTTagCompound {
+        val tag = NBTTagCompound()
+        val list = NBTTagList()
+        for (i in 0 until size) {
+            list.appendTag(NBTTagCompound().apply {
+                setLong("Seed", seeds[i])
+                setInteger("Parallels", parallels[i])
+            })
+        }
+        tag.setTag("Members", list)
+        return tag
+    }
+
+    override fun deserializeNBT(nbt: NBTTagCompound) {
+        seeds = LongArray(0)
+        parallels = IntArray(0)
+        size = 0
+        nbtVersion++
+
+        val list = nbt.getTagList("Members", Constants.NBT.TAG_COMPOUND)
+        for (i in 0 until list.tagCount()) {
+            val member = list.getCompoundTagAt(i)
+            add(member.getLong("Seed"), member.getInteger("Parallels").coerceAtLeast(1))
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process.component
+
+import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
+import github.kasuminova.prototypemachinery.api.recipe.process.component.RecipeProcessComponentType
+import github.kasuminova.prototypemachinery.api.recipe.process.component.system.RecipeProcessSystem
+import net.minecraft.util.ResourceLocation
+
+/**
+ * Process component type for [CoalescedProcessComponent].
+ */
+public object CoalescedProcessComponentType : RecipeProcessComponentType<CoalescedProcessComponent> {
+
+    override val id: ResourceLocation = ResourceLocation("prototypemachinery", "process_coalesced")
+
+    // Maintained by ProcessCoalescing; read by chance sampling in requirement systems.
+    override val system: RecipeProcessSystem<CoalescedProcessComponent>? = null
+
+    override fun createComponent(process: RecipeProcess): CoalescedProcessComponent = CoalescedProcessComponent(process)
+}
@@ -16,12 +16,19 @@ import net.minecraft.nbt.NBTTagCompound
  */
 public class ProcessUnscaledProgressComponent(
     override val owner: RecipeProcess,
-) : RecipeProcessComponent {
+) : RecipeProcessComponent.Versioned {
 
     override val type: RecipeProcessComponentType<*> = ProcessUnscaledProgressComponentType
 
     /** Successful ticks advanced (unscaled). */
     public var ticks: Float = 0.0f
+        set(value) {
+            if (field != value) nbtVersion++
+            field = value
+        }
+
+    override var nbtVersion: Long = 0L
+        private set
 
     override fun serializeNBT(): NBTTagCompound {
         val tag = NBTTagCompound()
@@ -11,11 +11,18 @@ import net.minecraft.nbt.NBTTagCompound
  */
 public class RecipeLifecycleStateProcessComponent(
     override val owner: RecipeProcess,
-) : RecipeProcessComponent {
+) : RecipeProcessComponent.Versioned {
 
     override val type: RecipeProcessComponentType<*> = RecipeLifecycleStateProcessComponentType
 
+    override var nbtVersion: Long = 0L
+        private set
+
     public var started: Boolean = false
+        set(value) {
+            if (field != value) nbtVersion++
+            field = value
+        }
 
     override fun serializeNBT(): NBTTagCompound {
         val tag = NBTTagCompound()
@@ -35,15 +35,19 @@ import org.jetbrains.annotations.ApiStatus
 @ApiStatus.Experimental
 public class RecipeOverlayProcessComponent(
     override val owner: RecipeProcess,
-) : RecipeProcessComponent {
+) : RecipeProcessComponent.Versioned {
 
     override val type: RecipeProcessComponentType<*> = RecipeOverlayProcessComponentType
 
     /** key = "<typeId>|<componentId>"; value = data compound */
     private val overrides: MutableMap<String, NBTTagCompound> = linkedMapOf()
 
+    override var nbtVersion: Long = 0L
+        private set
+
     public fun clear() {
         overrides.clear()
+        nbtVersion++
     }
 
     public fun setIgnoreOutputFull(type: RecipeRequirementType<*>, componentId: String, value: Boolean) {
@@ -103,7 +107,8 @@ public class RecipeOverlayProcessComponent(
             val entry = NBTTagCompound()
             entry.setString(KEY_ENTRY_TYPE, typeId)
             entry.setString(KEY_ENTRY_ID, componentId)
-            entry.setTag(KEY_ENTRY_DATA, data)
+            // Copied: data compounds are edited in place, but a serialized tag may be kept as a save snapshot.
+            entry.setTag(KEY_ENTRY_DATA, data.copy())
             list.appendTag(entry)
         }
 
@@ -113,6 +118,7 @@ public class RecipeOverlayProcessComponent(
 
     override fun deserializeNBT(nbt: NBTTagCompound) {
         overrides.clear()
+        nbtVersion++
 
         if (!nbt.hasKey(KEY_ENTRIES, Constants.NBT.TAG_LIST)) return
         val list = nbt.getTagList(KEY_ENTRIES, Constants.NBT.TAG_COMPOUND)
@@ -132,6 +138,8 @@ public class RecipeOverlayProcessComponent(
     private fun overlayKey(typeId: String, componentId: String): String = "$typeId|$componentId"
 
     private fun getOrCreateData(type: RecipeRequirementType<*>, componentId: String): NBTTagCompound {
+        // Every caller edits the returned compound.
+        nbtVersion++
         val key = overlayKey(type.id.toString(), componentId)
         return overrides.getOrPut(key) { NBTTagCompound() }
     }
@@ -21,6 +21,7 @@ public object RecipeProcessComponentTypeRegistry {
         register(RecipeLifecycleStateProcessComponentType)
         register(RequirementResolutionProcessComponentType)
         register(ProcessUnscaledProgressComponentType)
+        register(CoalescedProcessComponentType)
     }
 
     public fun register(type: RecipeProcessComponentType<*>) {
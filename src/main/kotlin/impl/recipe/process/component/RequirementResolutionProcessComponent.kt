@@ -16,12 +16,15 @@ import net.minecraft.nbt.NBTTagCompound
  */
 public class RequirementResolutionProcessComponent(
     override val owner: RecipeProcess,
-) : RecipeProcessComponent {
+) : RecipeProcessComponent.Versioned {
 
     override val type: RecipeProcessComponentType<*> = RequirementResolutionProcessComponentType
 
     private val locks: MutableMap<String, PMKey<*>> = linkedMapOf()
 
+    override var nbtVersion: Long = 0L
+        private set
+
     public fun getLock(id: String): PMKey<*>? = locks[id]
 
     /**
@@ -29,10 +32,18 @@ public class RequirementResolutionProcessComponent(
      * Stored value is copied to avoid accidental external mutation.
      */
     public fun putLock(id: String, key: PMKey<*>): PMKey<*>? {
+        nbtVersion++
         return locks.put(id, key.copy())
     }
 
-    public fun removeLock(id: String): PMKey<*>? = locks.remove(id)
+    public fun removeLock(id: String): PMKey<*>? {
+        val removed = locks.remove(id)
+        if (removed != null) nbtVersion++
+        return removed
+    }
+
+    /** Copy of all current locks (insertion order). / 当前所有锁定的副本（按插入顺序）。 */
+    public fun snapshotLocks(): Map<String, PMKey<*>> = LinkedHashMap(locks)
 
     override fun serializeNBT(): NBTTagCompound {
         val tag = NBTTagCompound()
@@ -51,6 +62,7 @@ public class RequirementResolutionProcessComponent(
 
     override fun deserializeNBT(nbt: NBTTagCompound) {
         locks.clear()
+        nbtVersion++
 
         if (!nbt.hasKey("Locks")) return
         val locksTag = nbt.getCompoundTag("Locks")
@@ -16,7 +16,7 @@ import org.jetbrains.annotations.ApiStatus
 @ApiStatus.Experimental
 public class SelectiveStateProcessComponent(
     override val owner: RecipeProcess,
-) : RecipeProcessComponent {
+) : RecipeProcessComponent.Versioned {
 
     override val type: RecipeProcessComponentType<*> = SelectiveStateProcessComponentType
 
@@ -26,19 +26,25 @@ public class SelectiveStateProcessComponent(
     /** selectionId -> list of applied attribute modifier refs ("<attrRL>|<modifierId>") */
     private val appliedModifierRefsById: MutableMap<String, MutableList<String>> = linkedMapOf()
 
+    override var nbtVersion: Long = 0L
+        private set
+
     public fun getSelectedIndex(selectionId: String): Int? = selectedIndexById[selectionId]
 
     public fun setSelectedIndex(selectionId: String, index: Int) {
         selectedIndexById[selectionId] = index
+        nbtVersion++
     }
 
     public fun recordAppliedModifier(selectionId: String, attribute: MachineAttributeType, modifierId: String) {
         val key = attribute.id.toString() + "|" + modifierId
         appliedModifierRefsById.computeIfAbsent(selectionId) { mutableListOf() }.add(key)
+        nbtVersion++
     }
 
     public fun consumeAppliedModifiers(selectionId: String): List<Pair<String, String>> {
         val list = appliedModifierRefsById.remove(selectionId) ?: return emptyList()
+        nbtVersion++
         return list.mapNotNull { ref ->
             val idx = ref.indexOf('|')
             if (idx <= 0 || idx >= ref.length - 1) return@mapNotNull null
@@ -69,6 +75,7 @@ public class SelectiveStateProcessComponent(
     override fun deserializeNBT(nbt: NBTTagCompound) {
         selectedIndexById.clear()
         appliedModifierRefsById.clear()
+        nbtVersion++
 
         if (nbt.hasKey("Selected")) {
             val selected = nbt.getCompoundTag("Selected")
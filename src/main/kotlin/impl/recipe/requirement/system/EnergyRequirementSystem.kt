@@ -68,6 +68,10 @@ public object EnergyRequirementSystem : RecipeRequirementSystem.Tickable<EnergyR
         }
     }
 
+    override fun isTickNoOp(process: RecipeProcess, component: EnergyRequirementComponent): Boolean {
+        return component.inputPerTick <= 0L && component.outputPerTick <= 0L
+    }
+
     override fun acquireTickTransaction(
         process: RecipeProcess,
         component: EnergyRequirementComponent
@@ -15,7 +15,10 @@ import github.kasuminova.prototypemachinery.api.util.PortMode
 import github.kasuminova.prototypemachinery.api.util.TransactionMode
 import github.kasuminova.prototypemachinery.api.util.parallelism
 import github.kasuminova.prototypemachinery.api.util.probability.ChanceMath
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandom
 import github.kasuminova.prototypemachinery.api.util.probability.WeightedSampling
+import github.kasuminova.prototypemachinery.impl.machine.component.container.InputLedgers
+import github.kasuminova.prototypemachinery.impl.recipe.process.ProcessCoalescing
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.RequirementResolutionProcessComponent
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.RequirementResolutionProcessComponentType
 import github.kasuminova.prototypemachinery.impl.recipe.requirement.FluidRequirementComponent
@@ -25,6 +28,13 @@ import kotlin.math.floor
 
 public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidRequirementComponent> {
 
+    // Precomputed random salt domains; combined with the component id per call without building strings.
+    // 预计算的随机盐值域；每次调用仅与组件 id 组合，不拼接字符串。
+    private val SALT_START: Long = CounterRandom.salt("fluid:start")
+    private val SALT_END: Long = CounterRandom.salt("fluid:end")
+    private val SALT_END_RANDOM: Long = CounterRandom.salt("fluid:end:random")
+    private val SALT_TICK: Long = CounterRandom.salt("fluid:tick")
+
     private fun fluidNameOf(key: PMKey<FluidStack>): String = key.get().fluid.name
 
     @Suppress("UNCHECKED_CAST")
@@ -78,13 +88,9 @@ public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidReq
         for ((key, requiredCount) in neededCheck) {
             if (requiredCount <= 0L) continue
 
-            val fluidName = fluidNameOf(key as PMKey<FluidStack>)
-            var remaining = requiredCount
-            for (c in sources) {
-                if (remaining <= 0L) break
-                remaining -= c.extract(key, remaining, TransactionMode.SIMULATE)
-            }
+            val remaining = InputLedgers.missingFluid(machine, sources, key, requiredCount)
             if (remaining > 0L) {
+                val fluidName = fluidNameOf(key as PMKey<FluidStack>)
                 return blocked("blocked.fluid.missing_inputs", listOf(component.id, fluidName, remaining.toString()))
             }
         }
@@ -97,7 +103,7 @@ public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidReq
             }
         }
 
-        val execTimes = ChanceMath.sampleTimes(process.getRandom("fluid:${component.id}:start"), parallels, chancePercent)
+        val execTimes = ProcessCoalescing.sampleTimes(process, CounterRandom.salt(SALT_START, component.id), 0L, parallels, chancePercent)
         if (execTimes <= 0L) {
             if (lockRollback.isEmpty()) return noOpSuccess()
             return successWithRollback {
@@ -148,6 +154,10 @@ public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidReq
         }
     }
 
+    override fun isTickNoOp(process: RecipeProcess, component: FluidRequirementComponent): Boolean {
+        return component.inputsPerTick.isEmpty() && component.outputsPerTick.isEmpty()
+    }
+
     override fun acquireTickTransaction(
         process: RecipeProcess,
         component: FluidRequirementComponent
@@ -193,13 +203,9 @@ public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidReq
             val required = safeMul(input.count, checkTimes)
             if (required <= 0L) continue
 
-            val fluidName = fluidNameOf(input)
-            var remaining = required
-            for (c in sources) {
-                if (remaining <= 0L) break
-                remaining -= c.extract(input, remaining, TransactionMode.SIMULATE)
-            }
+            val remaining = InputLedgers.missingFluid(machine, sources, input, required)
             if (remaining > 0L) {
+                val fluidName = fluidNameOf(input)
                 return blocked("blocked.fluid.missing_inputs", listOf(component.id, fluidName, remaining.toString()))
             }
         }
@@ -221,7 +227,7 @@ public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidReq
             }
         }
 
-        val execTimes = ChanceMath.sampleTimes(process.getRandom("fluid:${component.id}:tick:$tickIndex"), parallels, chancePercent)
+        val execTimes = ProcessCoalescing.sampleTimes(process, CounterRandom.salt(SALT_TICK, component.id), tickIndex.toLong(), parallels, chancePercent)
         if (execTimes <= 0L) return noOpSuccess()
 
         val extractedByContainer = LinkedHashMap<StructureFluidKeyContainer, MutableMap<PMKey<FluidStack>, Long>>()
@@ -337,15 +343,19 @@ public object FluidRequirementSystem : RecipeRequirementSystem.Tickable<FluidReq
             }
         }
 
-        val execTimes = ChanceMath.sampleTimes(process.getRandom("fluid:${component.id}:end"), parallels, chancePercent)
+        val memberTimes = ProcessCoalescing.sampleMemberTimes(process, CounterRandom.salt(SALT_END, component.id), 0L, parallels, chancePercent)
+        val execTimes = memberTimes.total
         if (execTimes <= 0L) return noOpSuccess()
 
         val neededExec = aggregateRequiredByTimes(component.outputs, execTimes)
         if (randomOutputs != null) {
             val rand = randomOutputs.asWeightedSampling()
-            for (i in 0 until execTimes) {
+            // One stream per (coalesced member) process: draws are indexed by the stream counter, so results stay
+            // reproducible and match the separate processes.
+            // 每个（合并成员）进程一个流：抽取按流计数器编号，结果可复现，且与分别运行时一致。
+            memberTimes.forEachDraw(CounterRandom.salt(SALT_END_RANDOM, component.id)) { randomStream ->
                 val picks = WeightedSampling.sampleWithoutReplacement(
-                    process.getRandom("fluid:${component.id}:end:random:$i"),
+                    randomStream,
                     rand,
                     randomOutputs.pickCount,
                 )
@@ -18,7 +18,10 @@ import github.kasuminova.prototypemachinery.api.util.PortMode
 import github.kasuminova.prototypemachinery.api.util.TransactionMode
 import github.kasuminova.prototypemachinery.api.util.parallelism
 import github.kasuminova.prototypemachinery.api.util.probability.ChanceMath
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandom
 import github.kasuminova.prototypemachinery.api.util.probability.WeightedSampling
+import github.kasuminova.prototypemachinery.impl.machine.component.container.InputLedgers
+import github.kasuminova.prototypemachinery.impl.recipe.process.ProcessCoalescing
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.RequirementResolutionProcessComponent
 import github.kasuminova.prototypemachinery.impl.recipe.process.component.RequirementResolutionProcessComponentType
 import github.kasuminova.prototypemachinery.impl.recipe.requirement.ItemRequirementComponent
@@ -27,6 +30,12 @@ import net.minecraft.util.ResourceLocation
 
 public object ItemRequirementSystem : RecipeRequirementSystem.Tickable<ItemRequirementComponent> {
 
+    // Precomputed random salt domains; combined with the component id per call without building strings.
+    // 预计算的随机盐值域；每次调用仅与组件 id 组合，不拼接字符串。
+    private val SALT_START: Long = CounterRandom.salt("item:start")
+    private val SALT_END: Long = CounterRandom.salt("item:end")
+    private val SALT_END_RANDOM: Long = CounterRandom.salt("item:end:random")
+
     @Suppress("UNCHECKED_CAST")
     override fun start(process: RecipeProcess, component: ItemRequirementComponent): RequirementTransaction {
         val fuzzyInputs = component.fuzzyInputsOrNull()
@@ -110,11 +119,7 @@ public object ItemRequirementSystem : RecipeRequirementSystem.Tickable<ItemRequi
         }
 
         for ((key, requiredCount) in neededCheck) {
-            var remaining = requiredCount
-            for (c in sources) {
-                if (remaining <= 0L) break
-                remaining -= c.extract(key, remaining, TransactionMode.SIMULATE)
-            }
+            val remaining = InputLedgers.missingItem(machine, sources, key, requiredCount)
             if (remaining > 0L) {
                 return blocked("blocked.item.missing_inputs", listOf(component.id, remaining.toString()))
             }
@@ -129,7 +134,7 @@ public object ItemRequirementSystem : RecipeRequirementSystem.Tickable<ItemRequi
             }
         }
 
-        val execTimes = ChanceMath.sampleTimes(process.getRandom("item:${component.id}:start"), parallels, chancePercent)
+        val execTimes = ProcessCoalescing.sampleTimes(process, CounterRandom.salt(SALT_START, component.id), 0L, parallels, chancePercent)
         if (execTimes <= 0L) {
             // No IO, but may have lock writes that must be rollbackable.
             if (lockRollback.isEmpty()) return noOpSuccess()
@@ -191,6 +196,8 @@ public object ItemRequirementSystem : RecipeRequirementSystem.Tickable<ItemRequi
         return noOpSuccess()
     }
 
+    override fun isTickNoOp(process: RecipeProcess, component: ItemRequirementComponent): Boolean = true
+
     override fun onEnd(process: RecipeProcess, component: ItemRequirementComponent): RequirementTransaction {
         val randomOutputs = component.randomOutputsOrNull()
         if (component.outputs.isEmpty() && randomOutputs == null) {
@@ -239,15 +246,19 @@ public object ItemRequirementSystem : RecipeRequirementSystem.Tickable<ItemRequi
             }
         }
 
-        val execTimes = ChanceMath.sampleTimes(process.getRandom("item:${component.id}:end"), parallels, chancePercent)
+        val memberTimes = ProcessCoalescing.sampleMemberTimes(process, CounterRandom.salt(SALT_END, component.id), 0L, parallels, chancePercent)
+        val execTimes = memberTimes.total
         if (execTimes <= 0L) return noOpSuccess()
 
         val neededExec = aggregateRequiredByTimes(component.outputs, execTimes)
         if (randomOutputs != null) {
             val rand = randomOutputs.asWeightedSampling()
-            for (i in 0 until execTimes) {
+            // One stream per (coalesced member) process: draws are indexed by the stream counter, so results stay
+            // reproducible and match the separate processes.
+            // 每个（合并成员）进程一个流：抽取按流计数器编号，结果可复现，且与分别运行时一致。
+            memberTimes.forEachDraw(CounterRandom.salt(SALT_END_RANDOM, component.id)) { randomStream ->
                 val picks = WeightedSampling.sampleWithoutReplacement(
-                    process.getRandom("item:${component.id}:end:random:$i"),
+                    randomStream,
                     rand,
                     randomOutputs.pickCount,
                 )
@@ -61,6 +61,74 @@ public class EnergyRecipeParallelismConstraint(
         return true
     }
 
+    override fun maxParallels(
+        machine: MachineInstance,
+        recipe: MachineRecipe,
+        components: List<RecipeRequirementComponent>,
+        limit: Int
+    ): Int {
+        val cs = components.filterIsInstance<EnergyRequirementComponent>()
+        if (cs.isEmpty() || limit <= 0) return limit.coerceAtLeast(0)
+
+        val sources = machine.structureComponentMap
+            .getByInstanceOf(StructureEnergyContainer::class.java)
+            .filter { it.isAllowedPortMode(PortMode.OUTPUT) }
+
+        val targets = machine.structureComponentMap
+            .getByInstanceOf(StructureEnergyContainer::class.java)
+            .filter { it.isAllowedPortMode(PortMode.INPUT) }
+
+        var best = limit
+
+        // 1) Inputs: start + perTick
+        for (c in cs) {
+            if (c.input <= 0L && c.inputPerTick <= 0L) continue
+            if (sources.isEmpty()) return 0
+
+            for (perParallel in longArrayOf(c.input, c.inputPerTick)) {
+                if (perParallel <= 0L) continue
+                val query = ParallelismBounds.queryAmount(perParallel, best)
+                best = ParallelismBounds.fit(extractableEnergy(sources, query), perParallel, best)
+                if (best <= 0) return 0
+            }
+        }
+
+        // 2) Outputs: end + perTick, unless ignore_output_full
+        for (c in cs) {
+            val ignoreOutputFull = (c.properties["ignore_output_full"] as? Boolean) == true
+            if (ignoreOutputFull) continue
+            if (c.output <= 0L && c.outputPerTick <= 0L) continue
+            if (targets.isEmpty()) return 0
+
+            for (perParallel in longArrayOf(c.output, c.outputPerTick)) {
+                if (perParallel <= 0L) continue
+                val query = ParallelismBounds.queryAmount(perParallel, best)
+                best = ParallelismBounds.fit(insertableEnergy(targets, query), perParallel, best)
+                if (best <= 0) return 0
+            }
+        }
+
+        return best
+    }
+
+    private fun extractableEnergy(sources: List<StructureEnergyContainer>, upTo: Long): Long {
+        var total = 0L
+        for (c in sources) {
+            if (total >= upTo) break
+            total += c.extractEnergy(upTo - total, TransactionMode.SIMULATE)
+        }
+        return total
+    }
+
+    private fun insertableEnergy(targets: List<StructureEnergyContainer>, upTo: Long): Long {
+        var total = 0L
+        for (c in targets) {
+            if (total >= upTo) break
+            total += c.insertEnergy(upTo - total, TransactionMode.SIMULATE)
+        }
+        return total
+    }
+
     private fun canExtractEnergy(sources: List<StructureEnergyContainer>, required: Long): Boolean {
         var remaining = required
         for (c in sources) {
@@ -9,6 +9,7 @@ import github.kasuminova.prototypemachinery.api.recipe.scanning.RecipeParallelis
 import github.kasuminova.prototypemachinery.api.util.PortMode
 import github.kasuminova.prototypemachinery.api.util.RecipeParallelism
 import github.kasuminova.prototypemachinery.api.util.TransactionMode
+import github.kasuminova.prototypemachinery.impl.machine.component.container.InputLedgers
 import github.kasuminova.prototypemachinery.impl.recipe.requirement.FluidRequirementComponent
 import net.minecraft.util.ResourceLocation
 import net.minecraftforge.fluids.FluidStack
@@ -39,8 +40,8 @@ public class FluidRecipeParallelismConstraint(
             if (c.inputs.isNotEmpty() || c.inputsPerTick.isNotEmpty()) {
                 if (sources.isEmpty()) return false
 
-                if (!canExtractAll(sources, aggregateByKey(c.inputs, parallels))) return false
-                if (!canExtractAll(sources, aggregateByKey(c.inputsPerTick, parallels))) return false
+                if (!canExtractAll(machine, sources, aggregateByKey(c.inputs, parallels))) return false
+                if (!canExtractAll(machine, sources, aggregateByKey(c.inputsPerTick, parallels))) return false
             }
         }
 
@@ -60,6 +61,84 @@ public class FluidRecipeParallelismConstraint(
         return true
     }
 
+    override fun maxParallels(
+        machine: MachineInstance,
+        recipe: MachineRecipe,
+        components: List<RecipeRequirementComponent>,
+        limit: Int
+    ): Int {
+        val cs = components.filterIsInstance<FluidRequirementComponent>()
+        if (cs.isEmpty() || limit <= 0) return limit.coerceAtLeast(0)
+
+        val sources = machine.structureComponentMap
+            .getByInstanceOf(StructureFluidKeyContainer::class.java)
+            .filter { it.isAllowedPortMode(PortMode.OUTPUT) }
+
+        val targets = machine.structureComponentMap
+            .getByInstanceOf(StructureFluidKeyContainer::class.java)
+            .filter { it.isAllowedPortMode(PortMode.INPUT) }
+
+        var best = limit
+
+        // 1) Inputs: start + perTick, each checked on its own (same as canSatisfy)
+        for (c in cs) {
+            if (c.inputs.isEmpty() && c.inputsPerTick.isEmpty()) continue
+            if (sources.isEmpty()) return 0
+
+            best = maxExtractable(machine, sources, aggregateByKey(c.inputs, 1), best)
+            best = maxExtractable(machine, sources, aggregateByKey(c.inputsPerTick, 1), best)
+            if (best <= 0) return 0
+        }
+
+        // 2) Outputs: end + perTick, unless ignore_output_full
+        for (c in cs) {
+            val ignoreOutputFull = (c.properties["ignore_output_full"] as? Boolean) == true
+            if (ignoreOutputFull) continue
+            if (c.outputs.isEmpty() && c.outputsPerTick.isEmpty()) continue
+            if (targets.isEmpty()) return 0
+
+            best = maxInsertable(targets, aggregateByKey(c.outputs, 1), best)
+            best = maxInsertable(targets, aggregateByKey(c.outputsPerTick, 1), best)
+            if (best <= 0) return 0
+        }
+
+        return best
+    }
+
+    private fun maxExtractable(
+        machine: MachineInstance,
+        sources: List<StructureFluidKeyContainer>,
+        perParallelByKey: Map<PMKey<FluidStack>, Long>,
+        limit: Int
+    ): Int {
+        var best = limit
+        for ((key, perParallel) in perParallelByKey) {
+            if (best <= 0) break
+            val available = InputLedgers.availableFluid(machine, sources, key, ParallelismBounds.queryAmount(perParallel, best))
+            best = ParallelismBounds.fit(available, perParallel, best)
+        }
+        return best
+    }
+
+    private fun maxInsertable(
+        targets: List<StructureFluidKeyContainer>,
+        perParallelByKey: Map<PMKey<FluidStack>, Long>,
+        limit: Int
+    ): Int {
+        var best = limit
+        for ((key, perParallel) in perParallelByKey) {
+            if (best <= 0) break
+            val query = ParallelismBounds.queryAmount(perParallel, best)
+            var capacity = 0L
+            for (c in targets) {
+                if (capacity >= query) break
+                capacity += c.insert(key, query - capacity, TransactionMode.SIMULATE)
+            }
+            best = ParallelismBounds.fit(capacity, perParallel, best)
+        }
+        return best
+    }
+
     private fun aggregateByKey(keys: List<PMKey<FluidStack>>, parallels: Int): Map<PMKey<FluidStack>, Long> {
         if (keys.isEmpty()) return emptyMap()
         val map = LinkedHashMap<PMKey<FluidStack>, Long>()
@@ -71,14 +150,13 @@ public class FluidRecipeParallelismConstraint(
         return map
     }
 
-    private fun canExtractAll(sources: List<StructureFluidKeyContainer>, requiredByKey: Map<PMKey<FluidStack>, Long>): Boolean {
+    private fun canExtractAll(
+        machine: MachineInstance,
+        sources: List<StructureFluidKeyContainer>,
+        requiredByKey: Map<PMKey<FluidStack>, Long>
+    ): Boolean {
         for ((key, totalRequired) in requiredByKey) {
-            var remaining = totalRequired
-            for (c in sources) {
-                if (remaining <= 0L) break
-                remaining -= c.extract(key, remaining, TransactionMode.SIMULATE)
-            }
-            if (remaining > 0L) return false
+            if (InputLedgers.missingFluid(machine, sources, key, totalRequired) > 0L) return false
         }
         return true
     }
@@ -9,6 +9,7 @@ import github.kasuminova.prototypemachinery.api.recipe.scanning.RecipeParallelis
 import github.kasuminova.prototypemachinery.api.util.PortMode
 import github.kasuminova.prototypemachinery.api.util.RecipeParallelism
 import github.kasuminova.prototypemachinery.api.util.TransactionMode
+import github.kasuminova.prototypemachinery.impl.machine.component.container.InputLedgers
 import github.kasuminova.prototypemachinery.impl.recipe.requirement.ItemRequirementComponent
 import net.minecraft.item.ItemStack
 import net.minecraft.util.ResourceLocation
@@ -43,15 +44,7 @@ public class ItemRecipeParallelismConstraint(
                 val needed: Map<PMKey<ItemStack>, Long> = aggregate(c.inputs, parallels)
 
                 for ((key, required) in needed) {
-                    if (required <= 0L) continue
-                    var remaining = required
-
-                    for (container in sources) {
-                        if (remaining <= 0L) break
-                        remaining -= container.extract(key, remaining, TransactionMode.SIMULATE)
-                    }
-
-                    if (remaining > 0L) return false
+                    if (InputLedgers.missingItem(machine, sources, key, required) > 0L) return false
                 }
             }
         }
@@ -82,6 +75,62 @@ public class ItemRecipeParallelismConstraint(
         return true
     }
 
+    override fun maxParallels(
+        machine: MachineInstance,
+        recipe: MachineRecipe,
+        components: List<RecipeRequirementComponent>,
+        limit: Int
+    ): Int {
+        val cs = components.filterIsInstance<ItemRequirementComponent>()
+        if (cs.isEmpty() || limit <= 0) return limit.coerceAtLeast(0)
+
+        val sources = machine.structureComponentMap
+            .getByInstanceOf(StructureItemKeyContainer::class.java)
+            .filter { it.isAllowedPortMode(PortMode.OUTPUT) }
+
+        val targets = machine.structureComponentMap
+            .getByInstanceOf(StructureItemKeyContainer::class.java)
+            .filter { it.isAllowedPortMode(PortMode.INPUT) }
+
+        var best = limit
+
+        // 1) Inputs: min over keys of available / needed-per-parallel
+        for (c in cs) {
+            if (c.inputs.isEmpty()) continue
+            if (sources.isEmpty()) return 0
+
+            for ((key, perParallel) in aggregate(c.inputs, 1)) {
+                val available = InputLedgers.availableItem(machine, sources, key, ParallelismBounds.queryAmount(perParallel, best))
+                best = ParallelismBounds.fit(available, perParallel, best)
+                if (best <= 0) return 0
+            }
+        }
+
+        // 2) Outputs: min over outputs of capacity / produced-per-parallel
+        for (c in cs) {
+            if (c.outputs.isEmpty()) continue
+
+            val ignoreOutputFull = (c.properties["ignore_output_full"] as? Boolean) == true
+            if (ignoreOutputFull) continue
+
+            if (targets.isEmpty()) return 0
+
+            for (out in c.outputs) {
+                if (out.count <= 0L) continue
+                val query = ParallelismBounds.queryAmount(out.count, best)
+                var capacity = 0L
+                for (container in targets) {
+                    if (capacity >= query) break
+                    capacity += container.insert(out, query - capacity, TransactionMode.SIMULATE)
+                }
+                best = ParallelismBounds.fit(capacity, out.count, best)
+                if (best <= 0) return 0
+            }
+        }
+
+        return best
+    }
+
     private fun aggregate(keys: List<PMKey<ItemStack>>, parallels: Int): Map<PMKey<ItemStack>, Long> {
         val map = LinkedHashMap<PMKey<ItemStack>, Long>()
         for (k in keys) {
@@ -0,0 +1,27 @@
+package github.kasuminova.prototypemachinery.impl.recipe.scanning.constraint
+
+import github.kasuminova.prototypemachinery.api.util.RecipeParallelism
+
+/**
+ * Arithmetic helpers for closed-form [github.kasuminova.prototypemachinery.api.recipe.scanning.RecipeParallelismConstraint.maxParallels].
+ *
+ * 用于闭式计算 [github.kasuminova.prototypemachinery.api.recipe.scanning.RecipeParallelismConstraint.maxParallels] 的算术辅助。
+ */
+internal object ParallelismBounds {
+
+    /**
+     * Amount worth querying for a per-parallel amount at [limit] (saturating, like [RecipeParallelism.scaleCount]).
+     * 在 [limit] 并行下需要查询的量（饱和计算，与 [RecipeParallelism.scaleCount] 一致）。
+     */
+    fun queryAmount(perParallel: Long, limit: Int): Long = RecipeParallelism.scaleCount(perParallel, limit)
+
+    /**
+     * Largest k in [0..limit] with `k * perParallel <= amount`. Non-positive [perParallel] never constrains.
+     * 满足 `k * perParallel <= amount` 的最大 k（范围 [0..limit]）。[perParallel] 非正时不构成约束。
+     */
+    fun fit(amount: Long, perParallel: Long, limit: Int): Int {
+        if (perParallel <= 0L) return limit
+        if (amount <= 0L) return 0
+        return minOf(amount / perParallel, limit.toLong()).toInt()
+    }
+}
@@ -0,0 +1,137 @@
+package github.kasuminova.prototypemachinery.impl.scheduler
+
+/**
+ * # HierarchicalTimerWheel - Three-level tick timer wheel
+ * # HierarchicalTimerWheel - 三级 tick 时间轮
+ *
+ * Schedules items for an absolute tick and returns them from [advance] when that tick is reached.
+ * Level 0 has one slot per tick; levels 1 and 2 cover `SLOTS` and `SLOTS²` ticks per slot and are
+ * cascaded down as time moves, so scheduling and firing are O(1) regardless of how many items wait.
+ *
+ * 将条目安排到某个绝对 tick，并在到达该 tick 时由 [advance] 返回。
+ * 第 0 级每个槽位对应 1 tick；第 1、2 级每个槽位分别覆盖 `SLOTS` 与 `SLOTS²` 个 tick，
+ * 随时间推进逐级下放，因此无论等待的条目有多少，安排与触发都是 O(1)。
+ *
+ * Due ticks beyond the wheel span are parked on the outermost level and re-placed when cascaded.
+ * Cancellation is up to the caller (e.g. a flag checked when items fire).
+ *
+ * 超出时间轮跨度的到期 tick 会暂存在最外层，下放时重新放置。取消由调用方负责（例如触发时检查标记）。
+ *
+ * Not thread-safe. / 非线程安全。
+ */
+internal class HierarchicalTimerWheel<T : Any> {
+
+    private class Node<T>(val item: T, val dueTick: Long)
+
+    /** Last tick passed to consumers by [advance]. / [advance] 最近一次处理的 tick。 */
+    var currentTick: Long = 0L
+        private set
+
+    var size: Int = 0
+        private set
+
+    private val levels: Array<Array<ArrayList<Node<T>>?>> = Array(LEVELS) { arrayOfNulls<ArrayList<Node<T>>>(SLOTS.toInt()) }
+
+    /** Items whose due tick had already passed when scheduled; fired on the next [advance]. */
+    private val overdue: ArrayList<Node<T>> = ArrayList()
+
+    /**
+     * Schedule [item] for [dueTick]. Ticks not after [currentTick] fire on the next [advance].
+     * 将 [item] 安排到 [dueTick]。不晚于 [currentTick] 的 tick 会在下一次 [advance] 时触发。
+     */
+    fun schedule(item: T, dueTick: Long) {
+        val node = Node(item, dueTick)
+        if (dueTick <= currentTick) overdue.add(node) else place(node)
+        size++
+    }
+
+    /**
+     * Move to the next tick and append every item due at it to [out].
+     * 前进到下一个 tick，并把在该 tick 到期的条目追加到 [out]。
+     */
+    fun advance(out: MutableList<T>) {
+        currentTick++
+
+        if (overdue.isNotEmpty()) {
+            for (node in overdue) out.add(node.item)
+            size -= overdue.size
+            overdue.clear()
+        }
+
+        // Cascade outer levels first so their items can land in this tick's level-0 slot.
+        // 先下放外层，使其条目能落入本 tick 的第 0 级槽位。
+        if ((currentTick and MASK) == 0L) {
+            if (((currentTick shr BITS) and MASK) == 0L) {
+                cascade(2, ((currentTick shr (2 * BITS)) and MASK).toInt())
+            }
+            cascade(1, ((currentTick shr BITS) and MASK).toInt())
+        }
+
+        val slot = levels[0][(currentTick and MASK).toInt()] ?: return
+        if (slot.isEmpty()) return
+        for (node in slot) out.add(node.item)
+        size -= slot.size
+        slot.clear()
+    }
+
+    fun clear() {
+        for (level in levels) {
+            for (slot in level) slot?.clear()
+        }
+        overdue.clear()
+        size = 0
+    }
+
+    private fun cascade(level: Int, index: Int) {
+        val slot = levels[level][index] ?: return
+        if (slot.isEmpty()) return
+        val nodes = ArrayList(slot)
+        slot.clear()
+        for (node in nodes) place(node)
+    }
+
+    /** [node] must not be due before [currentTick]; a cascaded node due now lands in the slot fired next. */
+    private fun place(node: Node<T>) {
+        val due = node.dueTick
+        // Each level's slot is reached again only after the previous visit, so a delta below the level's span
+        // lands in a slot whose next visit (or cascade) is exactly the due tick (or the start of its block).
+        // 各级槽位在上一次访问之后才会再次到达，因此小于该级跨度的 delta 所落入的槽位，
+        // 其下一次访问（或下放）恰好是到期 tick（或其所在块的起点）。
+        val delta = due - currentTick
+        val level: Int
+        val index: Int
+        when {
+            delta < SLOTS -> {
+                level = 0
+                index = (due and MASK).toInt()
+            }
+
+            delta < SLOTS * SLOTS -> {
+                level = 1
+                index = ((due shr BITS) and MASK).toInt()
+            }
+
+            delta < SLOTS * SLOTS * SLOTS -> {
+                level = 2
+                index = ((due shr (2 * BITS)) and MASK).toInt()
+            }
+
+            else -> {
+                // Beyond the span: park in the outermost slot cascaded last in this lap, then re-place.
+                // 超出跨度：暂存到本轮最后才下放的最外层槽位，届时重新放置。
+                level = 2
+                index = (((currentTick shr (2 * BITS)) + MASK) and MASK).toInt()
+            }
+        }
+        val slots = levels[level]
+        val slot = slots[index] ?: ArrayList<Node<T>>(4).also { slots[index] = it }
+        slot.add(node)
+    }
+
+    private companion object {
+        private const val LEVELS: Int = 3
+        private const val BITS: Int = 6
+        private const val SLOTS: Long = 1L shl BITS
+        private const val MASK: Long = SLOTS - 1L
+    }
+}
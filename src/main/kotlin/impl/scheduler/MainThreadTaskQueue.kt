@@ -0,0 +1,160 @@
+package github.kasuminova.prototypemachinery.impl.scheduler
+
+import github.kasuminova.prototypemachinery.PrototypeMachinery
+import github.kasuminova.prototypemachinery.api.scheduler.TaskPriority
+import java.util.ArrayDeque
+import java.util.concurrent.ConcurrentLinkedQueue
+
+/**
+ * # MainThreadTaskQueue - Budgeted queue for custom main-thread tasks
+ * # MainThreadTaskQueue - 带预算的自定义主线程任务队列
+ *
+ * Tasks may be offered from any thread; everything else runs on the server thread. Each tick a backend calls:
+ *
+ * 任务可从任意线程提交；其余操作都在服务器线程进行。每 tick 后端依次调用：
+ *
+ * 1. [beginTick] - take newly offered tasks into per-priority FIFO queues.
+ * 2. [runUrgent] - run all [TaskPriority.CRITICAL] and [TaskPriority.NORMAL] tasks, plus deferrable tasks that
+ *    waited [maxDeferTicks] or longer (promoted).
+ * 3. (main-thread schedulables)
+ * 4. [runWithinBudget] - run [TaskPriority.DEFERRABLE] tasks until the custom-task time of this tick reaches
+ *    [budgetMicros]; the rest stay queued for the next tick.
+ *
+ * 1. [beginTick]：把新提交的任务放入按优先级划分的 FIFO 队列。
+ * 2. [runUrgent]：执行全部 [TaskPriority.CRITICAL] 与 [TaskPriority.NORMAL] 任务，以及等待达到 [maxDeferTicks] 的
+ *    可顺延任务（提升）。
+ * 3. （主线程 schedulable）
+ * 4. [runWithinBudget]：执行 [TaskPriority.DEFERRABLE] 任务，直到本 tick 自定义任务耗时达到 [budgetMicros]；
+ *    其余留到下一 tick。
+ *
+ * Only time spent in custom tasks counts against the budget, so slow machine ticks never starve deferrable work.
+ * Tasks offered while a tick is draining run on the next tick. A [budgetMicros] of 0 disables the budget.
+ *
+ * 只有自定义任务的耗时计入预算，因此机器 tick 再慢也不会饿死可顺延任务。
+ * 在 tick 执行过程中提交的任务会在下一 tick 执行。[budgetMicros] 为 0 时不限制预算。
+ */
+internal class MainThreadTaskQueue(
+    private val nanoTime: () -> Long = System::nanoTime,
+) {
+
+    private class Entry(val task: Runnable, val priority: TaskPriority) {
+        var enqueuedTick: Long = 0L
+    }
+
+    private val incoming = ConcurrentLinkedQueue<Entry>()
+    private val pending: Array<ArrayDeque<Entry>> = Array(PRIORITIES.size) { ArrayDeque<Entry>() }
+
+    private var tick: Long = 0L
+
+    // Custom-task time spent by runUrgent in the current tick. / 本 tick 中 runUrgent 消耗的自定义任务时间。
+    private var urgentNanos: Long = 0L
+
+    /** Main-thread time budget per tick in microseconds; 0 = unlimited. / 每 tick 主线程时间预算（微秒）；0 表示不限。 */
+    @Volatile
+    var budgetMicros: Long = 0L
+
+    /** Ticks a task may be deferred before it is promoted. / 任务被提升前可被顺延的 tick 数。 */
+    @Volatile
+    var maxDeferTicks: Int = 20
+
+    /** Tasks promoted by [runUrgent] in the current tick. / 本 tick 中被 [runUrgent] 提升的任务数。 */
+    var promotedThisTick: Int = 0
+        private set
+
+    fun offer(task: Runnable, priority: TaskPriority) {
+        incoming.offer(Entry(task, priority))
+    }
+
+    /** Tasks waiting for a later tick (excluding not-yet-taken offers). / 等待之后 tick 的任务数（不含尚未取入的提交）。 */
+    val pendingCount: Int
+        get() = pending.sumOf { it.size }
+
+    /** Age in ticks of the oldest waiting task, 0 if none. / 最早等待任务的等待 tick 数，无则为 0。 */
+    fun oldestWaitTicks(): Int {
+        var oldest = tick
+        for (queue in pending) {
+            val head = queue.peekFirst() ?: continue
+            if (head.enqueuedTick < oldest) oldest = head.enqueuedTick
+        }
+        return (tick - oldest).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+    }
+
+    fun beginTick() {
+        tick++
+        promotedThisTick = 0
+        urgentNanos = 0L
+        while (true) {
+            val entry = incoming.poll() ?: break
+            entry.enqueuedTick = tick
+            pending[entry.priority.ordinal].addLast(entry)
+        }
+    }
+
+    /**
+     * Run critical, normal and starved deferrable tasks; returns the number executed.
+     * 执行关键、普通与饥饿的可顺延任务；返回执行数量。
+     */
+    fun runUrgent(): Int {
+        val start = nanoTime()
+        var executed = 0
+
+        for (priority in UNBUDGETED) {
+            val queue = pending[priority.ordinal]
+            while (true) {
+                val entry = queue.pollFirst() ?: break
+                run(entry)
+                executed++
+            }
+        }
+
+        val maxDefer = maxDeferTicks.coerceAtLeast(0).toLong()
+        val deferrable = pending[TaskPriority.DEFERRABLE.ordinal]
+        while (true) {
+            val head = deferrable.peekFirst() ?: break
+            if (tick - head.enqueuedTick < maxDefer) break
+            deferrable.pollFirst()
+            run(head)
+            executed++
+            promotedThisTick++
+        }
+
+        urgentNanos = nanoTime() - start
+        return executed
+    }
+
+    /**
+     * Run deferrable tasks until this tick's custom-task time reaches [budgetMicros]; returns the number executed.
+     * 执行可顺延任务，直到本 tick 自定义任务耗时达到 [budgetMicros]；返回执行数量。
+     */
+    fun runWithinBudget(): Int {
+        val budget = budgetMicros
+        val deadline = if (budget <= 0L) Long.MAX_VALUE else nanoTime() + budget * 1000L - urgentNanos
+        var executed = 0
+        val queue = pending[TaskPriority.DEFERRABLE.ordinal]
+        while (queue.isNotEmpty()) {
+            if (deadline != Long.MAX_VALUE && nanoTime() - deadline >= 0L) return executed
+            run(queue.pollFirst())
+            executed++
+        }
+        return executed
+    }
+
+    fun clear() {
+        incoming.clear()
+        for (queue in pending) queue.clear()
+        promotedThisTick = 0
+    }
+
+    private fun run(entry: Entry) {
+        try {
+            entry.task.run()
+        } catch (e: Throwable) {
+            PrototypeMachinery.logger.error("Error executing custom main thread task", e)
+        }
+    }
+
+    private companion object {
+        private val PRIORITIES: Array<TaskPriority> = TaskPriority.values()
+        private val UNBUDGETED: Array<TaskPriority> = arrayOf(TaskPriority.CRITICAL, TaskPriority.NORMAL)
+    }
+}
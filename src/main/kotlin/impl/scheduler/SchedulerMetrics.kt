@@ -24,9 +24,18 @@ internal class SchedulerMetrics(
     private var customMainTasksCount = IntArray(windowTicks)
     private var customConcurrentTasksCount = IntArray(windowTicks)
     private var affinityGroupsCount = IntArray(windowTicks)
+    private var deferredMainTasksCount = IntArray(windowTicks)
+    private var promotedMainTasksCount = IntArray(windowTicks)
+    private var oldestDeferredTicks = IntArray(windowTicks)
 
     private val ticks = AtomicLong(0)
 
+    /**
+     * Main-thread tasks that ran only because they waited too long (since start).
+     * 因等待过久而被强制执行的主线程任务总数（自启动以来）。
+     */
+    private val starvedTotal = AtomicLong(0)
+
     fun resizeIfNeeded(newWindowTicks: Int) {
         val newSize = newWindowTicks
         if (newSize == windowSize) return
@@ -44,6 +53,9 @@ internal class SchedulerMetrics(
         customMainTasksCount = IntArray(newSize)
         customConcurrentTasksCount = IntArray(newSize)
         affinityGroupsCount = IntArray(newSize)
+        deferredMainTasksCount = IntArray(newSize)
+        promotedMainTasksCount = IntArray(newSize)
+        oldestDeferredTicks = IntArray(newSize)
     }
 
     fun beginTick(backendName: String) {
@@ -60,6 +72,9 @@ internal class SchedulerMetrics(
         customMainTasks: Int,
         customConcurrentTasks: Int,
         affinityGroups: Int,
+        deferredMainTasks: Int,
+        promotedMainTasks: Int,
+        oldestDeferredTicks: Int,
     ) {
         val i = cursor
 
@@ -72,6 +87,10 @@ internal class SchedulerMetrics(
         this.customMainTasksCount[i] = customMainTasks
         this.customConcurrentTasksCount[i] = customConcurrentTasks
         this.affinityGroupsCount[i] = affinityGroups
+        this.deferredMainTasksCount[i] = deferredMainTasks
+        this.promotedMainTasksCount[i] = promotedMainTasks
+        this.oldestDeferredTicks[i] = oldestDeferredTicks
+        if (promotedMainTasks > 0) starvedTotal.addAndGet(promotedMainTasks.toLong())
 
         cursor++
         if (cursor >= windowSize) {
@@ -94,7 +113,7 @@ internal class SchedulerMetrics(
     fun snapshotReport(): SchedulerReport {
         val n = if (filled) windowSize else cursor
         if (n <= 0) {
-            return SchedulerReport(backendName, 0, emptyList())
+            return SchedulerReport(backendName, 0, emptyList(), starvedTotal.get())
         }
 
         val samples = ArrayList<SchedulerTickSample>(n)
@@ -110,10 +129,13 @@ internal class SchedulerMetrics(
                     customMainTasks = customMainTasksCount[idx],
                     customConcurrentTasks = customConcurrentTasksCount[idx],
                     affinityGroups = affinityGroupsCount[idx],
+                    deferredMainTasks = deferredMainTasksCount[idx],
+                    promotedMainTasks = promotedMainTasksCount[idx],
+                    oldestDeferredTicks = oldestDeferredTicks[idx],
                 )
             )
         }
-        return SchedulerReport(backendName, n, samples)
+        return SchedulerReport(backendName, n, samples, starvedTotal.get())
     }
 }
 
@@ -127,12 +149,16 @@ internal data class SchedulerTickSample(
     val customMainTasks: Int,
     val customConcurrentTasks: Int,
     val affinityGroups: Int,
+    val deferredMainTasks: Int,
+    val promotedMainTasks: Int,
+    val oldestDeferredTicks: Int,
 )
 
 internal data class SchedulerReport(
     val backendName: String,
     val sampleCount: Int,
     val samples: List<SchedulerTickSample>,
+    val starvedTotal: Long,
 ) {
     private fun statsOf(selector: (SchedulerTickSample) -> Long): StatLine {
         if (samples.isEmpty()) return StatLine(0, 0, 0)
@@ -165,6 +191,9 @@ internal data class SchedulerReport(
         val cm = statsOfInt { it.customMainTasks }
         val cc = statsOfInt { it.customConcurrentTasks }
         val groups = statsOfInt { it.affinityGroups }
+        val deferred = statsOfInt { it.deferredMainTasks }
+        val promoted = statsOfInt { it.promotedMainTasks }
+        val wait = statsOfInt { it.oldestDeferredTicks }
 
         return buildString {
             append("[PM Scheduler] backend=").append(backendName)
@@ -179,6 +208,10 @@ internal data class SchedulerReport(
             append(cm.formatPlain()).append('/')
             append(cc.formatPlain())
             append(" groups=").append(groups.formatPlain())
+            append(" deferred=").append(deferred.formatPlain())
+            append(" promoted=").append(promoted.formatPlain())
+            append(" oldestWait=").append(wait.formatPlain()).append('t')
+            append(" starvedTotal=").append(starvedTotal)
         }
     }
 }
@@ -7,6 +7,8 @@ internal data class SchedulerRuntimeSettings(
     val metricsEnabled: Boolean,
     val metricsLogIntervalTicks: Int,
     val metricsWindowTicks: Int,
+    val mainThreadBudgetMicros: Int,
+    val maxDeferTicks: Int,
 ) {
     companion object {
         fun sane(
@@ -16,12 +18,16 @@ internal data class SchedulerRuntimeSettings(
             metricsEnabled: Boolean,
             metricsLogIntervalTicks: Int,
             metricsWindowTicks: Int,
+            mainThreadBudgetMicros: Int,
+            maxDeferTicks: Int,
         ): SchedulerRuntimeSettings {
             val cores = Runtime.getRuntime().availableProcessors().coerceAtLeast(1)
             val wt = workerThreads.coerceIn(1, cores.coerceAtLeast(2) * 2)
             val lc = laneCount.coerceIn(1, 32)
             val interval = metricsLogIntervalTicks.coerceIn(1, 20 * 60)
             val window = metricsWindowTicks.coerceIn(20, 20 * 300)
+            val budget = mainThreadBudgetMicros.coerceIn(0, 1_000_000)
+            val maxDefer = maxDeferTicks.coerceIn(0, 20 * 60)
             return SchedulerRuntimeSettings(
                 backendType = backendType,
                 workerThreads = wt,
@@ -29,6 +35,8 @@ internal data class SchedulerRuntimeSettings(
                 metricsEnabled = metricsEnabled,
                 metricsLogIntervalTicks = interval,
                 metricsWindowTicks = window,
+                mainThreadBudgetMicros = budget,
+                maxDeferTicks = maxDefer,
             )
         }
     }
@@ -8,7 +8,7 @@ internal class SchedulerState {
     val mainThreadTasks = ConcurrentHashMap.newKeySet<ISchedulable>()
     val concurrentTasks = ConcurrentHashMap.newKeySet<ISchedulable>()
 
-    val customMainThreadTasks: ConcurrentLinkedQueue<Runnable> = ConcurrentLinkedQueue()
+    val customMainThreadTasks: MainThreadTaskQueue = MainThreadTaskQueue()
     val customConcurrentTasks: ConcurrentLinkedQueue<Runnable> = ConcurrentLinkedQueue()
 
     fun clearAll() {
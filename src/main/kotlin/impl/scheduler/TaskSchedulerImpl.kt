@@ -3,6 +3,7 @@ package github.kasuminova.prototypemachinery.impl.scheduler
 import github.kasuminova.prototypemachinery.PrototypeMachinery
 import github.kasuminova.prototypemachinery.api.scheduler.ExecutionMode
 import github.kasuminova.prototypemachinery.api.scheduler.ISchedulable
+import github.kasuminova.prototypemachinery.api.scheduler.TaskPriority
 import github.kasuminova.prototypemachinery.api.scheduler.TaskScheduler
 import github.kasuminova.prototypemachinery.common.config.PmSchedulerConfig
 import github.kasuminova.prototypemachinery.impl.scheduler.backend.CoroutineTaskSchedulerBackend
@@ -33,6 +34,10 @@ internal object TaskSchedulerImpl : TaskScheduler {
 
     private val metrics: SchedulerMetrics = SchedulerMetrics(settings.metricsWindowTicks)
 
+    init {
+        applyBudget(settings)
+    }
+
     @Volatile
     private var backend: TaskSchedulerBackend = createBackend(settings)
 
@@ -76,9 +81,16 @@ internal object TaskSchedulerImpl : TaskScheduler {
             metricsEnabled = s.metricsEnabled,
             metricsLogIntervalTicks = s.metricsLogIntervalTicks,
             metricsWindowTicks = s.metricsWindowTicks,
+            mainThreadBudgetMicros = s.mainThreadBudgetMicros,
+            maxDeferTicks = s.maxDeferTicks,
         )
     }
 
+    private fun applyBudget(settings: SchedulerRuntimeSettings) {
+        state.customMainThreadTasks.budgetMicros = settings.mainThreadBudgetMicros.toLong()
+        state.customMainThreadTasks.maxDeferTicks = settings.maxDeferTicks
+    }
+
     private fun createBackend(settings: SchedulerRuntimeSettings): TaskSchedulerBackend {
         return when (settings.backendType) {
             SchedulerBackendType.JAVA -> JavaTaskSchedulerBackend(settings)
@@ -93,6 +105,7 @@ internal object TaskSchedulerImpl : TaskScheduler {
         val newSettings = coerceSettingsForAvailability(readSettingsFromConfig())
         settings = newSettings
         metrics.resizeIfNeeded(newSettings.metricsWindowTicks)
+        applyBudget(newSettings)
         backend = createBackend(newSettings)
         isShutdown = false
         PrototypeMachinery.logger.info("Task scheduler restarted (backend=${backend.backendName})")
@@ -112,9 +125,13 @@ internal object TaskSchedulerImpl : TaskScheduler {
     }
 
     override fun submitTask(task: Runnable, executionMode: ExecutionMode) {
+        submitTask(task, executionMode, TaskPriority.NORMAL)
+    }
+
+    override fun submitTask(task: Runnable, executionMode: ExecutionMode, priority: TaskPriority) {
         restartIfNeeded()
         when (executionMode) {
-            ExecutionMode.MAIN_THREAD -> state.customMainThreadTasks.offer(task)
+            ExecutionMode.MAIN_THREAD -> state.customMainThreadTasks.offer(task, priority)
             ExecutionMode.CONCURRENT -> state.customConcurrentTasks.offer(task)
         }
     }
@@ -140,10 +157,42 @@ internal object TaskSchedulerImpl : TaskScheduler {
             metricsEnabled = s.metricsEnabled,
             metricsLogIntervalTicks = s.metricsLogIntervalTicks,
             metricsWindowTicks = s.metricsWindowTicks,
+            mainThreadBudgetMicros = s.mainThreadBudgetMicros,
+            maxDeferTicks = s.maxDeferTicks,
         )
         return true
     }
 
+    /**
+     * Change the main-thread budget immediately (no backend swap); null keeps the current value.
+     * 立即修改主线程预算（不切换后端）；传 null 保持当前值。
+     */
+    @Synchronized
+    internal fun setMainThreadBudget(budgetMicros: Int?, maxDeferTicks: Int?) {
+        val s = PmSchedulerConfig.scheduler
+        if (budgetMicros != null) s.mainThreadBudgetMicros = budgetMicros
+        if (maxDeferTicks != null) s.maxDeferTicks = maxDeferTicks
+        val current = settings
+        val updated = SchedulerRuntimeSettings.sane(
+            backendType = current.backendType,
+            workerThreads = current.workerThreads,
+            laneCount = current.laneCount,
+            metricsEnabled = current.metricsEnabled,
+            metricsLogIntervalTicks = current.metricsLogIntervalTicks,
+            metricsWindowTicks = current.metricsWindowTicks,
+            mainThreadBudgetMicros = s.mainThreadBudgetMicros,
+            maxDeferTicks = s.maxDeferTicks,
+        )
+        settings = updated
+        applyBudget(updated)
+    }
+
+    internal fun currentMainThreadBudgetMicros(): Int = settings.mainThreadBudgetMicros
+
+    internal fun currentMaxDeferTicks(): Int = settings.maxDeferTicks
+
+    internal fun pendingMainThreadTasks(): Int = state.customMainThreadTasks.pendingCount
+
     internal fun currentBackendName(): String = backend.backendName
 
     internal fun isCoroutinesBackendAvailable(): Boolean = isCoroutinesAvailable()
@@ -188,6 +237,7 @@ internal object TaskSchedulerImpl : TaskScheduler {
         val effective = coerceSettingsForAvailability(ps)
         settings = effective
         metrics.resizeIfNeeded(effective.metricsWindowTicks)
+        applyBudget(effective)
 
         // Swap backend at tick boundary. Keep SchedulerState untouched to avoid losing registrations.
         runCatching { backend.shutdown() }
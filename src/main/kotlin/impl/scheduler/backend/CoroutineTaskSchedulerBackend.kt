@@ -147,8 +147,12 @@ internal class CoroutineTaskSchedulerBackend(
         val tickStart = System.nanoTime()
 
         val mainStart = System.nanoTime()
-        val customMainCount = processCustomMainThreadTasks(state)
+        // Critical, normal and starved custom tasks run first; deferrable ones only within the custom-task budget.
+        val customQueue = state.customMainThreadTasks
+        customQueue.beginTick()
+        var customMainCount = customQueue.runUrgent()
         val mainTasksCount = processMainThreadTasks(state)
+        customMainCount += customQueue.runWithinBudget()
         val mainPhaseMicros = (System.nanoTime() - mainStart) / 1000
 
         val concurrentStart = System.nanoTime()
@@ -167,24 +171,12 @@ internal class CoroutineTaskSchedulerBackend(
             customMainTasks = customMainCount,
             customConcurrentTasks = concurrentResult.customConcurrentCount,
             affinityGroups = concurrentResult.affinityGroups,
+            deferredMainTasks = customQueue.pendingCount,
+            promotedMainTasks = customQueue.promotedThisTick,
+            oldestDeferredTicks = customQueue.oldestWaitTicks(),
         )
     }
 
-    private fun processCustomMainThreadTasks(state: SchedulerState): Int {
-        var executed = 0
-        var task = state.customMainThreadTasks.poll()
-        while (task != null) {
-            try {
-                task.run()
-            } catch (e: Throwable) {
-                PrototypeMachinery.logger.error("Error executing custom main thread task", e)
-            }
-            executed++
-            task = state.customMainThreadTasks.poll()
-        }
-        return executed
-    }
-
     private fun processMainThreadTasks(state: SchedulerState): Int {
         var executed = 0
         for (schedulable in state.mainThreadTasks) {
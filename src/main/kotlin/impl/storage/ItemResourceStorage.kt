@@ -421,8 +421,14 @@ public class ItemResourceStorage(
         return nbt
     }
 
-    /** Reads this storage from NBT. / 从 NBT 读取此存储。 */
+    /**
+     * Reads this storage from NBT. Listeners receive one change per key whose total differs from before the load.
+     *
+     * 从 NBT 读取此存储。总量与读取前不同的每个 key 都会通知一次监听器。
+     */
     public fun readNBT(nbt: NBTTagCompound) {
+        val previousTotals: Map<UniquePMItemKey, Long> = if (listeners.isEmpty()) emptyMap() else HashMap(totals)
+
         // reset
         totals.clear()
         keySlots.clear()
@@ -506,6 +512,39 @@ public class ItemResourceStorage(
         }
 
         pendingChanges = true
+
+        if (listeners.isNotEmpty()) notifyTotalsReplaced(previousTotals)
+    }
+
+    /** Notify listeners of every per-key total that differs between [previousTotals] and [totals]. */
+    private fun notifyTotalsReplaced(previousTotals: Map<UniquePMItemKey, Long>) {
+        for ((u, previous) in previousTotals) {
+            val current = totals[u] ?: 0L
+            if (current == previous) continue
+            notifyChange(
+                ResourceChange(
+                    key = PMItemKeyImpl(u, current),
+                    previousAmount = previous,
+                    newAmount = current,
+                    type = when {
+                        current <= 0L -> ChangeType.REMOVED
+                        current > previous -> ChangeType.INSERTED
+                        else -> ChangeType.EXTRACTED
+                    }
+                )
+            )
+        }
+        for ((u, current) in totals) {
+            if (previousTotals.containsKey(u)) continue
+            notifyChange(
+                ResourceChange(
+                    key = PMItemKeyImpl(u, current),
+                    previousAmount = 0L,
+                    newAmount = current,
+                    type = ChangeType.INSERTED
+                )
+            )
+        }
     }
 
     /**
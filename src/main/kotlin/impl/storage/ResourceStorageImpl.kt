@@ -243,6 +243,8 @@ public open class ResourceStorageImpl<K : PMKey<*>>(
      * 子类应提供 keyReader 函数。
      */
     public fun readNBT(nbt: NBTTagCompound, keyReader: (NBTTagCompound) -> K?) {
+        // Old key objects keep their counts; compare against them after loading.
+        val previous: Map<Any, K> = if (listeners.isEmpty()) emptyMap() else LinkedHashMap(storage)
         storage.clear()
         val list = nbt.getTagList("Resources", Constants.NBT.TAG_COMPOUND)
         for (i in 0 until list.tagCount()) {
@@ -260,6 +262,28 @@ public open class ResourceStorageImpl<K : PMKey<*>>(
             }
             storage[uniqueKey] = key
         }
+
+        if (listeners.isEmpty()) return
+        for ((uniqueKey, old) in previous) {
+            val current = storage[uniqueKey]?.count ?: 0L
+            if (current == old.count) continue
+            notifyChange(
+                ResourceChange(
+                    key = storage[uniqueKey] ?: old,
+                    previousAmount = old.count,
+                    newAmount = current,
+                    type = when {
+                        current <= 0L -> ChangeType.REMOVED
+                        current > old.count -> ChangeType.INSERTED
+                        else -> ChangeType.EXTRACTED
+                    }
+                )
+            )
+        }
+        for ((uniqueKey, key) in storage) {
+            if (previous.containsKey(uniqueKey)) continue
+            notifyChange(ResourceChange(key = key, previousAmount = 0L, newAmount = key.count, type = ChangeType.INSERTED))
+        }
     }
 
 }
@@ -7,6 +7,7 @@ import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataCom
 import github.kasuminova.prototypemachinery.api.ui.binding.UIBindingRegistry
 import github.kasuminova.prototypemachinery.common.block.entity.MachineBlockEntity
 import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.integration.crafttweaker.zenclass.data.ZenMachineDataKey
 import net.minecraft.util.ResourceLocation
 import java.util.concurrent.ConcurrentHashMap
 
@@ -140,15 +141,16 @@ public object UIBindingRegistryImpl : UIBindingRegistry {
         if (k.startsWith("data:")) {
             val dataKey = k.removePrefix("data:").trim()
             if (dataKey.isEmpty()) return null
+            val handle = ZenMachineDataKey.of(dataKey)
             return UIBindingRegistry.ResolvedBool(
                 UIBindingRegistry.BindingKey(UIBindingRegistry.ValueType.BOOL, k),
                 getter = { m ->
                     val component = m.componentMap.get(ZSDataComponentType) as? ZSDataComponent
-                    component?.data?.getBool(dataKey, false) ?: false
+                    component?.data?.getBool(handle, false) ?: false
                 },
                 setter = { m, v ->
                     val component = m.componentMap.get(ZSDataComponentType) as? ZSDataComponent
-                    component?.data?.setBool(dataKey, v)
+                    component?.data?.setBool(handle, v)
                 }
             )
         }
@@ -178,15 +180,16 @@ public object UIBindingRegistryImpl : UIBindingRegistry {
         if (k.startsWith("data:")) {
             val dataKey = k.removePrefix("data:").trim()
             if (dataKey.isEmpty()) return null
+            val handle = ZenMachineDataKey.of(dataKey)
             return UIBindingRegistry.ResolvedDouble(
                 UIBindingRegistry.BindingKey(UIBindingRegistry.ValueType.DOUBLE, k),
                 getter = { m ->
                     val component = m.componentMap.get(ZSDataComponentType) as? ZSDataComponent
-                    component?.data?.getDouble(dataKey, 0.0) ?: 0.0
+                    component?.data?.getDouble(handle, 0.0) ?: 0.0
                 },
                 setter = { m, v ->
                     val component = m.componentMap.get(ZSDataComponentType) as? ZSDataComponent
-                    component?.data?.setDouble(dataKey, v)
+                    component?.data?.setDouble(handle, v)
                 }
             )
         }
@@ -245,15 +248,16 @@ public object UIBindingRegistryImpl : UIBindingRegistry {
         if (k.startsWith("data:")) {
             val dataKey = k.removePrefix("data:").trim()
             if (dataKey.isEmpty()) return null
+            val handle = ZenMachineDataKey.of(dataKey)
             return UIBindingRegistry.ResolvedString(
                 UIBindingRegistry.BindingKey(UIBindingRegistry.ValueType.STRING, k),
                 getter = { m ->
                     val component = m.componentMap.get(ZSDataComponentType) as? ZSDataComponent
-                    component?.data?.getString(dataKey, "") ?: ""
+                    component?.data?.getString(handle, "") ?: ""
                 },
                 setter = { m, v ->
                     val component = m.componentMap.get(ZSDataComponentType) as? ZSDataComponent
-                    component?.data?.setString(dataKey, v)
+                    component?.data?.setString(handle, v)
                 }
             )
         }
@@ -0,0 +1,345 @@
+package github.kasuminova.prototypemachinery.integration.crafttweaker.zenclass.data
+
+import crafttweaker.api.data.DataByte
+import crafttweaker.api.data.DataDouble
+import crafttweaker.api.data.DataInt
+import crafttweaker.api.data.DataLong
+import crafttweaker.api.data.DataString
+import crafttweaker.api.data.IData
+import crafttweaker.mc1120.data.NBTConverter
+import net.minecraft.nbt.NBTBase
+import net.minecraft.nbt.NBTPrimitive
+import net.minecraft.nbt.NBTTagByte
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.nbt.NBTTagDouble
+import net.minecraft.nbt.NBTTagInt
+import net.minecraft.nbt.NBTTagLong
+import net.minecraft.nbt.NBTTagString
+import kotlin.math.floor
+
+/**
+ * Slot-indexed typed storage behind [ZenMachineData].
+ *
+ * Each key is mapped to a global slot by [MachineDataKeys]; this store keeps one entry per slot:
+ * - byte / int / long / double live unboxed in [prims] (double as raw bits)
+ * - strings and any other NBT value (lists, compounds, floats, ...) live in [refs]
+ *
+ * NBT is only materialized in [writeNBT] (save / sync) and for opaque values.
+ * Reads follow [NBTTagCompound] conversion semantics so behaviour is unchanged for scripts.
+ *
+ * Slots are global, so the arrays only cover slots below [DENSE_SLOTS]. Entries of later slots (keys allocated
+ * late, or script-built key names) are kept as tags in a small sparse map, so one such key does not size every
+ * machine's arrays to the highest slot in use.
+ *
+ * [ZenMachineData] 背后的按槽位索引的类型化存储。
+ *
+ * 每个键由 [MachineDataKeys] 映射到全局槽位；本存储对每个槽位保存一个条目：
+ * - byte / int / long / double 以非装箱形式存储在 [prims] 中（double 存原始位）
+ * - 字符串以及其它 NBT 值（列表、复合标签、float 等）存储在 [refs] 中
+ *
+ * 仅在 [writeNBT]（保存 / 同步）以及不透明值时才会生成 NBT。
+ * 读取遵循 [NBTTagCompound] 的类型转换语义，脚本行为保持不变。
+ *
+ * 槽位是全局的，因此数组只覆盖 [DENSE_SLOTS] 以下的槽位。更靠后的槽位（较晚分配的键、脚本动态拼接的键名）
+ * 以标签形式保存在小型稀疏表中，避免单个此类键让每台机器的数组都扩容到最高槽位。
+ *
+ * Not thread-safe (same as the previous NBTTagCompound backing).
+ * 非线程安全（与之前的 NBTTagCompound 实现一致）。
+ */
+internal class MachineDataStore {
+
+    private var types: ByteArray = EMPTY_TYPES
+    private var prims: LongArray = EMPTY_PRIMS
+    private var refs: Array<Any?> = EMPTY_REFS
+
+    // Entries of slots >= DENSE_SLOTS, as tags; created on first use.
+    // 槽位 >= DENSE_SLOTS 的条目（以标签保存）；首次使用时创建。
+    private var sparse: HashMap<Int, NBTBase>? = null
+
+    /** Number of present entries. / 已存在条目数量。 */
+    var size: Int = 0
+        private set
+
+    fun has(slot: Int): Boolean = if (slot >= DENSE_SLOTS) sparse?.containsKey(slot) == true else typeAt(slot) != NONE
+
+    // ========== Typed reads ==========
+
+    fun getDouble(slot: Int, defaultValue: Double): Double {
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)?.let { (it as? NBTPrimitive)?.double ?: 0.0 } ?: defaultValue
+        return when (typeAt(slot)) {
+            NONE -> defaultValue
+            BYTE, INT, LONG -> prims[slot].toDouble()
+            DOUBLE -> Double.fromBits(prims[slot])
+            OPAQUE -> (refs[slot] as? NBTPrimitive)?.double ?: 0.0
+            else -> 0.0
+        }
+    }
+
+    fun getLong(slot: Int, defaultValue: Long): Long {
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)?.let { (it as? NBTPrimitive)?.long ?: 0L } ?: defaultValue
+        return when (typeAt(slot)) {
+            NONE -> defaultValue
+            BYTE, INT, LONG -> prims[slot]
+            DOUBLE -> floor(Double.fromBits(prims[slot])).toLong()
+            OPAQUE -> (refs[slot] as? NBTPrimitive)?.long ?: 0L
+            else -> 0L
+        }
+    }
+
+    fun getInt(slot: Int, defaultValue: Int): Int {
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)?.let { (it as? NBTPrimitive)?.int ?: 0 } ?: defaultValue
+        return when (typeAt(slot)) {
+            NONE -> defaultValue
+            BYTE, INT, LONG -> prims[slot].toInt()
+            DOUBLE -> floor(Double.fromBits(prims[slot])).toInt()
+            OPAQUE -> (refs[slot] as? NBTPrimitive)?.int ?: 0
+            else -> 0
+        }
+    }
+
+    fun getBool(slot: Int, defaultValue: Boolean): Boolean {
+        // NBTTagCompound.getBoolean == getByte(key) != 0, i.e. only the low 8 bits count.
+        // NBTTagCompound.getBoolean 等价于 getByte(key) != 0，即只看低 8 位。
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)?.let { ((it as? NBTPrimitive)?.byte?.toInt() ?: 0) != 0 } ?: defaultValue
+        return when (typeAt(slot)) {
+            NONE -> defaultValue
+            OPAQUE -> ((refs[slot] as? NBTPrimitive)?.byte?.toInt() ?: 0) != 0
+            STRING -> false
+            else -> (getInt(slot, 0) and 0xFF) != 0
+        }
+    }
+
+    fun getString(slot: Int, defaultValue: String): String {
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)?.let { (it as? NBTTagString)?.string ?: "" } ?: defaultValue
+        return when (typeAt(slot)) {
+            NONE -> defaultValue
+            STRING -> refs[slot] as String
+            else -> ""
+        }
+    }
+
+    // ========== Typed writes (return true if the stored value changed) ==========
+
+    fun setByte(slot: Int, value: Byte): Boolean = setPrim(slot, BYTE, value.toLong())
+
+    fun setInt(slot: Int, value: Int): Boolean = setPrim(slot, INT, value.toLong())
+
+    fun setLong(slot: Int, value: Long): Boolean = setPrim(slot, LONG, value)
+
+    fun setDouble(slot: Int, value: Double): Boolean = setPrim(slot, DOUBLE, value.toRawBits())
+
+    fun setString(slot: Int, value: String): Boolean {
+        if (slot >= DENSE_SLOTS) return putSparse(slot, NBTTagString(value))
+        ensureCapacity(slot)
+        if (types[slot] == STRING && refs[slot] == value) return false
+        occupy(slot, STRING)
+        prims[slot] = 0L
+        refs[slot] = value
+        return true
+    }
+
+    /**
+     * Store an arbitrary NBT value. Primitive/string tags are unpacked into typed slots;
+     * anything else is kept as an opaque tag owned by this store (callers must not mutate it afterwards).
+     *
+     * 存储任意 NBT 值。基础类型/字符串标签会被拆解为类型化槽位；
+     * 其余值作为本存储持有的不透明标签保存（调用方之后不得再修改它）。
+     */
+    fun setTag(slot: Int, tag: NBTBase) {
+        when (tag) {
+            is NBTTagByte -> setByte(slot, tag.byte)
+            is NBTTagInt -> setInt(slot, tag.int)
+            is NBTTagLong -> setLong(slot, tag.long)
+            is NBTTagDouble -> setDouble(slot, tag.double)
+            is NBTTagString -> setString(slot, tag.string)
+            else -> if (slot >= DENSE_SLOTS) {
+                putSparse(slot, tag)
+            } else {
+                ensureCapacity(slot)
+                occupy(slot, OPAQUE)
+                prims[slot] = 0L
+                refs[slot] = tag
+            }
+        }
+    }
+
+    fun remove(slot: Int): Boolean {
+        if (slot >= DENSE_SLOTS) {
+            if (sparse?.remove(slot) == null) return false
+            size--
+            return true
+        }
+        if (typeAt(slot) == NONE) return false
+        types[slot] = NONE
+        prims[slot] = 0L
+        refs[slot] = null
+        size--
+        return true
+    }
+
+    fun clear(): Boolean {
+        if (size == 0) return false
+        types.fill(NONE)
+        prims.fill(0L)
+        refs.fill(null)
+        sparse = null
+        size = 0
+        return true
+    }
+
+    // ========== Materialization ==========
+
+    /**
+     * Materialize a single entry as a fresh IData, or null if absent.
+     * 将单个条目转换为新的 IData，不存在时返回 null。
+     */
+    fun toIData(slot: Int): IData? {
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)?.let { NBTConverter.from(it, false) }
+        return when (typeAt(slot)) {
+            NONE -> null
+            BYTE -> DataByte(prims[slot].toByte())
+            INT -> DataInt(prims[slot].toInt())
+            LONG -> DataLong(prims[slot])
+            DOUBLE -> DataDouble(Double.fromBits(prims[slot]))
+            STRING -> DataString(refs[slot] as String)
+            else -> NBTConverter.from(refs[slot] as NBTBase, false)
+        }
+    }
+
+    /**
+     * Materialize a single entry as NBT, or null if absent.
+     * Opaque tags are shared (they are never mutated in place by the store).
+     *
+     * 将单个条目转换为 NBT，不存在时返回 null。
+     * 不透明标签是共享的（存储本身从不原地修改它们）。
+     */
+    fun toTag(slot: Int): NBTBase? {
+        if (slot >= DENSE_SLOTS) return sparseTag(slot)
+        return when (typeAt(slot)) {
+            NONE -> null
+            BYTE -> NBTTagByte(prims[slot].toByte())
+            INT -> NBTTagInt(prims[slot].toInt())
+            LONG -> NBTTagLong(prims[slot])
+            DOUBLE -> NBTTagDouble(Double.fromBits(prims[slot]))
+            STRING -> NBTTagString(refs[slot] as String)
+            else -> refs[slot] as NBTBase
+        }
+    }
+
+    /**
+     * Visit present slots in slot order.
+     * 按槽位顺序遍历所有存在的条目。
+     */
+    inline fun forEachSlot(action: (slot: Int) -> Unit) {
+        val overflow = sparseSlots()
+        var remaining = size - overflow.size
+        var slot = 0
+        while (remaining > 0 && slot < capacity) {
+            if (has(slot)) {
+                action(slot)
+                remaining--
+            }
+            slot++
+        }
+        for (s in overflow) action(s)
+    }
+
+    /** Dense array capacity; never exceeds [DENSE_SLOTS]. / 稠密数组容量，不超过 [DENSE_SLOTS]。 */
+    val capacity: Int
+        get() = types.size
+
+    /** Present slots >= [DENSE_SLOTS], sorted. / 已存在的 >= [DENSE_SLOTS] 的槽位（已排序）。 */
+    fun sparseSlots(): IntArray = sparse?.keys?.toIntArray()?.apply { sort() } ?: EMPTY_SLOTS
+
+    fun writeNBT(): NBTTagCompound {
+        val nbt = NBTTagCompound()
+        forEachSlot { slot ->
+            val key = MachineDataKeys.byIndex(slot) ?: return@forEachSlot
+            nbt.setTag(key.name, toTag(slot)!!)
+        }
+        return nbt
+    }
+
+    /**
+     * Replace current contents with the given compound (tags are copied).
+     * 用给定的复合标签替换当前内容（标签会被复制）。
+     */
+    fun readNBT(nbt: NBTTagCompound) {
+        clear()
+        for (key in nbt.keySet) {
+            val tag = nbt.getTag(key) ?: continue
+            val slot = MachineDataKeys.resolve(key).slot
+            setTag(slot, if (tag is NBTPrimitive || tag is NBTTagString) tag else tag.copy())
+        }
+    }
+
+    // ========== Internal ==========
+
+    private fun typeAt(slot: Int): Byte = if (slot >= 0 && slot < types.size) types[slot] else NONE
+
+    private fun sparseTag(slot: Int): NBTBase? = sparse?.get(slot)
+
+    private fun putSparse(slot: Int, tag: NBTBase): Boolean {
+        val map = sparse ?: HashMap<Int, NBTBase>().also { sparse = it }
+        val previous = map.put(slot, tag)
+        if (previous == null) size++
+        return previous != tag
+    }
+
+    private fun setPrim(slot: Int, type: Byte, bits: Long): Boolean {
+        if (slot >= DENSE_SLOTS) {
+            val tag = when (type) {
+                BYTE -> NBTTagByte(bits.toByte())
+                INT -> NBTTagInt(bits.toInt())
+                LONG -> NBTTagLong(bits)
+                else -> NBTTagDouble(Double.fromBits(bits))
+            }
+            return putSparse(slot, tag)
+        }
+        ensureCapacity(slot)
+        if (types[slot] == type && prims[slot] == bits) return false
+        occupy(slot, type)
+        prims[slot] = bits
+        refs[slot] = null
+        return true
+    }
+
+    private fun occupy(slot: Int, type: Byte) {
+        if (types[slot] == NONE) size++
+        types[slot] = type
+    }
+
+    private fun ensureCapacity(slot: Int) {
+        require(slot >= 0) { "Invalid data slot: $slot" }
+        if (slot < types.size) return
+        var newCap = if (types.isEmpty()) 8 else types.size
+        while (newCap <= slot) newCap = newCap shl 1
+        newCap = minOf(newCap, DENSE_SLOTS)
+        types = types.copyOf(newCap)
+        prims = prims.copyOf(newCap)
+        refs = refs.copyOf(newCap)
+    }
+
+    companion object {
+        /**
+         * Slots below this are stored in the per-instance arrays; later slots go to the sparse map.
+         * 低于此值的槽位存储在实例数组中；之后的槽位进入稀疏表。
+         */
+        const val DENSE_SLOTS: Int = 256
+
+        // Type tags reuse NBT type ids where a typed slot exists.
+        // 类型标记在存在对应类型化槽位时复用 NBT 类型 id。
+        private const val NONE: Byte = 0
+        private const val BYTE: Byte = 1
+        private const val INT: Byte = 3
+        private const val LONG: Byte = 4
+        private const val DOUBLE: Byte = 6
+        private const val STRING: Byte = 8
+        private const val OPAQUE: Byte = -1
+
+        private val EMPTY_TYPES = ByteArray(0)
+        private val EMPTY_PRIMS = LongArray(0)
+        private val EMPTY_REFS = arrayOfNulls<Any?>(0)
+        private val EMPTY_SLOTS = IntArray(0)
+    }
+}
@@ -2,6 +2,7 @@ package github.kasuminova.prototypemachinery.integration.crafttweaker.zenclass.d
 
 import crafttweaker.annotations.ZenRegister
 import crafttweaker.api.data.IData
+import crafttweaker.api.data.DataMap
 import crafttweaker.mc1120.data.NBTConverter
 import net.minecraft.nbt.NBTTagCompound
 import stanhebben.zenscript.annotations.OperatorType
@@ -13,7 +14,7 @@ import stanhebben.zenscript.annotations.ZenMethod
 import stanhebben.zenscript.annotations.ZenOperator
 
 /**
- * ZenScript mutable data container backed by an internal Map.
+ * ZenScript mutable data container backed by a slot-indexed typed store.
  *
  * Provides operator-level access:
  *   `data["key"]` => IData (getter)
@@ -22,7 +23,11 @@ import stanhebben.zenscript.annotations.ZenOperator
  *   `data.member = value` (member setter)
  *   `data.length` => Int (size)
  *
- * ZenScript 可变数据容器，底层使用 Map 存储。
+ * Every key is assigned a global slot on first use (see [ZenMachineDataKey]); primitives are kept
+ * unboxed and NBT is only built on save / sync. Typed accessors also accept a pre-resolved
+ * [ZenMachineDataKey] to skip the name lookup on hot paths.
+ *
+ * ZenScript 可变数据容器，底层使用按槽位索引的类型化存储。
  *
  * 提供操作符级别的访问：
  *   `data["key"]`         => IData (getter)
@@ -30,6 +35,9 @@ import stanhebben.zenscript.annotations.ZenOperator
  *   `data.member`         => IData (member getter)
  *   `data.member = value` (member setter)
  *   `data.length`         => Int (size)
+ *
+ * 每个键在首次使用时分配全局槽位（见 [ZenMachineDataKey]）；基础类型以非装箱形式存储，
+ * 仅在保存 / 同步时构建 NBT。类型化访问器同样接受预解析的 [ZenMachineDataKey]，以在热路径上跳过名称查找。
  */
 @ZenClass("mods.prototypemachinery.data.MachineData")
 @ZenRegister
@@ -37,27 +45,25 @@ public class ZenMachineData internal constructor(
     private val onChange: (() -> Unit)? = null
 ) {
 
-    // Internal storage using NBTTagCompound for efficient serialization
-    // 内部使用 NBTTagCompound 存储，便于高效序列化
-    private val storage: NBTTagCompound = NBTTagCompound()
+    // Typed slot storage; NBT is materialized only in writeNBT().
+    // 类型化槽位存储；仅在 writeNBT() 时生成 NBT。
+    private val storage: MachineDataStore = MachineDataStore()
 
     // ========== Index operators (ZenScript operator[]) ==========
 
     @ZenOperator(OperatorType.INDEXGET)
     public fun get(key: String): IData? {
-        if (!storage.hasKey(key)) return null
-        return NBTConverter.from(storage.getTag(key), false)
+        val slot = MachineDataKeys.slotOrNull(key)
+        if (slot < 0) return null
+        return storage.toIData(slot)
     }
 
     @ZenOperator(OperatorType.INDEXSET)
     public fun set(key: String, value: IData?) {
         if (value == null) {
-            if (storage.hasKey(key)) {
-                storage.removeTag(key)
-                onChange?.invoke()
-            }
+            remove(key)
         } else {
-            storage.setTag(key, NBTConverter.from(value))
+            storage.setTag(MachineDataKeys.resolve(key).slot, NBTConverter.from(value))
             onChange?.invoke()
         }
     }
@@ -73,7 +79,7 @@ public class ZenMachineData internal constructor(
     // ========== length ==========
 
     @ZenGetter("length")
-    public fun size(): Int = storage.keySet.size
+    public fun size(): Int = storage.size
 
     // ========== Convenience methods ==========
 
@@ -82,7 +88,10 @@ public class ZenMachineData internal constructor(
      * 检查键是否存在。
      */
     @ZenMethod
-    public fun has(key: String): Boolean = storage.hasKey(key)
+    public fun has(key: String): Boolean {
+        val slot = MachineDataKeys.slotOrNull(key)
+        return slot >= 0 && storage.has(slot)
+    }
 
     /**
      * Remove a key.
@@ -90,8 +99,8 @@ public class ZenMachineData internal constructor(
      */
     @ZenMethod
     public fun remove(key: String) {
-        if (storage.hasKey(key)) {
-            storage.removeTag(key)
+        val slot = MachineDataKeys.slotOrNull(key)
+        if (slot >= 0 && storage.remove(slot)) {
             onChange?.invoke()
         }
     }
@@ -102,12 +111,9 @@ public class ZenMachineData internal constructor(
      */
     @ZenMethod
     public fun clear() {
-        if (storage.keySet.isEmpty()) return
-        val keys = storage.keySet.toList()
-        for (k in keys) {
-            storage.removeTag(k)
+        if (storage.clear()) {
+            onChange?.invoke()
         }
-        onChange?.invoke()
     }
 
     /**
@@ -115,7 +121,14 @@ public class ZenMachineData internal constructor(
      * 转换为 IData（不可变快照）。
      */
     @ZenMethod
-    public fun asIData(): IData = NBTConverter.from(storage.copy(), false)
+    public fun asIData(): IData {
+        val map = LinkedHashMap<String, IData>(storage.size)
+        storage.forEachSlot { slot ->
+            val key = MachineDataKeys.byIndex(slot) ?: return@forEachSlot
+            map[key.name] = storage.toIData(slot)!!
+        }
+        return DataMap(map, true)
+    }
 
     /**
      * Merge another IData map into this data.
@@ -126,7 +139,7 @@ public class ZenMachineData internal constructor(
         val otherNBT = NBTConverter.from(other)
         if (otherNBT is NBTTagCompound) {
             for (key in otherNBT.keySet) {
-                storage.setTag(key, otherNBT.getTag(key).copy())
+                storage.setTag(MachineDataKeys.resolve(key).slot, otherNBT.getTag(key).copy())
             }
             onChange?.invoke()
         }
@@ -140,17 +153,24 @@ public class ZenMachineData internal constructor(
      */
     @ZenMethod
     public fun getDouble(key: String, defaultValue: Double = 0.0): Double {
-        return if (storage.hasKey(key)) storage.getDouble(key) else defaultValue
+        val slot = MachineDataKeys.slotOrNull(key)
+        return if (slot < 0) defaultValue else storage.getDouble(slot, defaultValue)
     }
 
+    @ZenMethod
+    public fun getDouble(key: ZenMachineDataKey, defaultValue: Double = 0.0): Double =
+        storage.getDouble(key.slot, defaultValue)
+
     /**
      * Set a double value.
      * 设置 double 值。
      */
     @ZenMethod
-    public fun setDouble(key: String, value: Double) {
-        storage.setDouble(key, value)
-        onChange?.invoke()
+    public fun setDouble(key: String, value: Double): Unit = setDouble(MachineDataKeys.resolve(key), value)
+
+    @ZenMethod
+    public fun setDouble(key: ZenMachineDataKey, value: Double) {
+        if (storage.setDouble(key.slot, value)) onChange?.invoke()
     }
 
     /**
@@ -159,17 +179,50 @@ public class ZenMachineData internal constructor(
      */
     @ZenMethod
     public fun getInt(key: String, defaultValue: Int = 0): Int {
-        return if (storage.hasKey(key)) storage.getInteger(key) else defaultValue
+        val slot = MachineDataKeys.slotOrNull(key)
+        return if (slot < 0) defaultValue else storage.getInt(slot, defaultValue)
     }
 
+    @ZenMethod
+    public fun getInt(key: ZenMachineDataKey, defaultValue: Int = 0): Int =
+        storage.getInt(key.slot, defaultValue)
+
     /**
      * Set an int value.
      * 设置 int 值。
      */
     @ZenMethod
-    public fun setInt(key: String, value: Int) {
-        storage.setInteger(key, value)
-        onChange?.invoke()
+    public fun setInt(key: String, value: Int): Unit = setInt(MachineDataKeys.resolve(key), value)
+
+    @ZenMethod
+    public fun setInt(key: ZenMachineDataKey, value: Int) {
+        if (storage.setInt(key.slot, value)) onChange?.invoke()
+    }
+
+    /**
+     * Get a long value.
+     * 获取 long 值。
+     */
+    @ZenMethod
+    public fun getLong(key: String, defaultValue: Long = 0L): Long {
+        val slot = MachineDataKeys.slotOrNull(key)
+        return if (slot < 0) defaultValue else storage.getLong(slot, defaultValue)
+    }
+
+    @ZenMethod
+    public fun getLong(key: ZenMachineDataKey, defaultValue: Long = 0L): Long =
+        storage.getLong(key.slot, defaultValue)
+
+    /**
+     * Set a long value.
+     * 设置 long 值。
+     */
+    @ZenMethod
+    public fun setLong(key: String, value: Long): Unit = setLong(MachineDataKeys.resolve(key), value)
+
+    @ZenMethod
+    public fun setLong(key: ZenMachineDataKey, value: Long) {
+        if (storage.setLong(key.slot, value)) onChange?.invoke()
     }
 
     /**
@@ -178,17 +231,26 @@ public class ZenMachineData internal constructor(
      */
     @ZenMethod
     public fun getBool(key: String, defaultValue: Boolean = false): Boolean {
-        return if (storage.hasKey(key)) storage.getBoolean(key) else defaultValue
+        val slot = MachineDataKeys.slotOrNull(key)
+        return if (slot < 0) defaultValue else storage.getBool(slot, defaultValue)
     }
 
+    @ZenMethod
+    public fun getBool(key: ZenMachineDataKey, defaultValue: Boolean = false): Boolean =
+        storage.getBool(key.slot, defaultValue)
+
     /**
      * Set a boolean value.
      * 设置 boolean 值。
      */
     @ZenMethod
-    public fun setBool(key: String, value: Boolean) {
-        storage.setBoolean(key, value)
-        onChange?.invoke()
+    public fun setBool(key: String, value: Boolean): Unit = setBool(MachineDataKeys.resolve(key), value)
+
+    @ZenMethod
+    public fun setBool(key: ZenMachineDataKey, value: Boolean) {
+        // Stored as byte, same as NBTTagCompound.setBoolean.
+        // 与 NBTTagCompound.setBoolean 一致，以 byte 存储。
+        if (storage.setByte(key.slot, if (value) 1 else 0)) onChange?.invoke()
     }
 
     /**
@@ -197,39 +259,40 @@ public class ZenMachineData internal constructor(
      */
     @ZenMethod
     public fun getString(key: String, defaultValue: String = ""): String {
-        return if (storage.hasKey(key)) storage.getString(key) else defaultValue
+        val slot = MachineDataKeys.slotOrNull(key)
+        return if (slot < 0) defaultValue else storage.getString(slot, defaultValue)
     }
 
+    @ZenMethod
+    public fun getString(key: ZenMachineDataKey, defaultValue: String = ""): String =
+        storage.getString(key.slot, defaultValue)
+
     /**
      * Set a string value.
      * 设置 string 值。
      */
     @ZenMethod
-    public fun setString(key: String, value: String) {
-        storage.setString(key, value)
-        onChange?.invoke()
+    public fun setString(key: String, value: String): Unit = setString(MachineDataKeys.resolve(key), value)
+
+    @ZenMethod
+    public fun setString(key: ZenMachineDataKey, value: String) {
+        if (storage.setString(key.slot, value)) onChange?.invoke()
     }
 
     // ========== Serialization (internal) ==========
 
     /**
-     * Write all data to NBT.
-     * 将所有数据写入 NBT。
+     * Write all data to NBT. This is the only place typed slots are turned into tags.
+     * 将所有数据写入 NBT。这是类型化槽位唯一被转换为标签的地方。
      */
-    internal fun writeNBT(): NBTTagCompound = storage.copy() as NBTTagCompound
+    internal fun writeNBT(): NBTTagCompound = storage.writeNBT()
 
     /**
      * Read all data from NBT (replaces current contents).
      * 从 NBT 读取所有数据（替换当前内容）。
      */
     internal fun readNBT(nbt: NBTTagCompound) {
-        val keys = storage.keySet.toList()
-        for (k in keys) {
-            storage.removeTag(k)
-        }
-        for (key in nbt.keySet) {
-            storage.setTag(key, nbt.getTag(key).copy())
-        }
+        storage.readNBT(nbt)
     }
 
     public companion object {
@@ -255,5 +318,13 @@ public class ZenMachineData internal constructor(
             }
             return result
         }
+
+        /**
+         * Resolve a key handle once for repeated typed access.
+         * 解析一次键句柄，用于重复的类型化访问。
+         */
+        @JvmStatic
+        @ZenMethod
+        public fun key(name: String): ZenMachineDataKey = MachineDataKeys.resolve(name)
     }
 }
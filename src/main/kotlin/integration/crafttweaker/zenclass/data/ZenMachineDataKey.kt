@@ -0,0 +1,114 @@
+package github.kasuminova.prototypemachinery.integration.crafttweaker.zenclass.data
+
+import crafttweaker.annotations.ZenRegister
+import stanhebben.zenscript.annotations.ZenClass
+import stanhebben.zenscript.annotations.ZenGetter
+import stanhebben.zenscript.annotations.ZenMethod
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Pre-resolved key handle for [ZenMachineData].
+ *
+ * Scripts that access the same key every tick can resolve the handle once
+ * (e.g. in a static) and pass it to the typed accessors, skipping the
+ * string -> slot lookup entirely.
+ *
+ * [ZenMachineData] 的预解析键句柄。
+ *
+ * 每 tick 访问同一个键的脚本可以只解析一次句柄（例如放在 static 中），
+ * 然后传给带类型的访问器，完全跳过 字符串 -> 槽位 的查找。
+ *
+ * ```zenscript
+ * static HEAT as MachineDataKey = MachineDataKey.of("heat");
+ * data.setDouble(HEAT, data.getDouble(HEAT) + 1.0);
+ * ```
+ */
+@ZenClass("mods.prototypemachinery.data.MachineDataKey")
+@ZenRegister
+public class ZenMachineDataKey internal constructor(
+    @get:ZenGetter("name")
+    public val name: String,
+    /** Global slot index, stable for the lifetime of the JVM. / 全局槽位索引，在 JVM 生命周期内稳定。 */
+    internal val slot: Int
+) {
+
+    override fun toString(): String = "MachineDataKey($name#$slot)"
+
+    public companion object {
+        /**
+         * Resolve (or allocate) the handle for the given key name.
+         * 解析（或分配）给定键名的句柄。
+         */
+        @JvmStatic
+        @ZenMethod
+        public fun of(name: String): ZenMachineDataKey = MachineDataKeys.resolve(name)
+    }
+}
+
+/**
+ * Global key -> slot table shared by all [ZenMachineData] instances.
+ *
+ * Slots are assigned on first use and never recycled, so a handle stays valid
+ * across machines, processes and script reloads. Only slots below
+ * [MachineDataStore.DENSE_SLOTS] get per-machine array storage; keys beyond that
+ * (many distinct or dynamically built names) fall back to a sparse map per machine.
+ *
+ * 所有 [ZenMachineData] 实例共享的全局 键 -> 槽位 表。
+ *
+ * 槽位在首次使用时分配且永不回收，因此句柄在不同机器、进程以及脚本重载之间都保持有效。
+ * 只有 [MachineDataStore.DENSE_SLOTS] 以下的槽位使用每台机器的数组存储；
+ * 更靠后的键（大量不同或动态拼接的键名）在每台机器上回退为稀疏表。
+ */
+internal object MachineDataKeys {
+
+    private val byName: MutableMap<String, ZenMachineDataKey> = ConcurrentHashMap()
+
+    // Copy-on-write slot -> handle table; readers never lock.
+    // 写时复制的 槽位 -> 句柄 表；读者无需加锁。
+    @Volatile
+    private var bySlot: Array<ZenMachineDataKey?> = arrayOfNulls(16)
+
+    @Volatile
+    private var nextSlot: Int = 0
+
+    internal fun resolve(name: String): ZenMachineDataKey {
+        byName[name]?.let { return it }
+        return allocate(name)
+    }
+
+    /**
+     * Look up the slot of an existing key without allocating a new one.
+     * 查找已有键的槽位，不分配新槽位。
+     *
+     * @return slot index, or -1 if the key was never used / 槽位索引，从未使用过则为 -1
+     */
+    internal fun slotOrNull(name: String): Int = byName[name]?.slot ?: -1
+
+    internal fun byIndex(slot: Int): ZenMachineDataKey? {
+        val table = bySlot
+        return if (slot in table.indices) table[slot] else null
+    }
+
+    @Synchronized
+    private fun allocate(name: String): ZenMachineDataKey {
+        byName[name]?.let { return it }
+
+        val slot = nextSlot
+        val handle = ZenMachineDataKey(name, slot)
+
+        var table = bySlot
+        if (slot >= table.size) {
+            table = table.copyOf(table.size * 2)
+        } else {
+            table = table.copyOf()
+        }
+        table[slot] = handle
+        bySlot = table
+        nextSlot = slot + 1
+
+        // Publish by name last so that byIndex() is always resolvable for any handle seen by readers.
+        // 最后按名称发布，确保读者拿到的任何句柄都能通过 byIndex() 解析。
+        byName[name] = handle
+        return handle
+    }
+}
@@ -5,6 +5,7 @@ import github.kasuminova.prototypemachinery.api.PrototypeMachineryAPI
 import github.kasuminova.prototypemachinery.api.machine.MachineInstance
 import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataComponent
 import github.kasuminova.prototypemachinery.api.machine.component.type.ZSDataComponentType
+import github.kasuminova.prototypemachinery.integration.crafttweaker.zenclass.data.ZenMachineDataKey
 import net.minecraft.util.ResourceLocation
 import stanhebben.zenscript.annotations.ZenClass
 import stanhebben.zenscript.annotations.ZenMethod
@@ -41,15 +42,16 @@ public object UIBindings {
         val k = key.trim()
         val dk = dataKey.trim()
         if (k.isEmpty() || dk.isEmpty()) return
+        val handle = ZenMachineDataKey.of(dk)
 
         val setter: ((MachineInstance, Double) -> Unit)? = if (writable) {
-            { m, v -> getDataComponent(m)?.data?.setDouble(dk, v) }
+            { m, v -> getDataComponent(m)?.data?.setDouble(handle, v) }
         } else null
 
         PrototypeMachineryAPI.uiBindingRegistry.registerDouble(
             id,
             k,
-            getter = { m -> getDataComponent(m)?.data?.getDouble(dk, defaultValue) ?: defaultValue },
+            getter = { m -> getDataComponent(m)?.data?.getDouble(handle, defaultValue) ?: defaultValue },
             setter = setter,
             owner = OWNER
         )
@@ -62,12 +64,13 @@ public object UIBindings {
         val k = key.trim()
         val dk = dataKey.trim()
         if (k.isEmpty() || dk.isEmpty()) return
+        val handle = ZenMachineDataKey.of(dk)
 
         PrototypeMachineryAPI.uiBindingRegistry.registerDouble(
             id,
             k,
-            getter = { m -> getDataComponent(m)?.data?.getDouble(dk, defaultValue) ?: defaultValue },
-            setter = { m, v -> getDataComponent(m)?.data?.setDouble(dk, v.coerceIn(min, max)) },
+            getter = { m -> getDataComponent(m)?.data?.getDouble(handle, defaultValue) ?: defaultValue },
+            setter = { m, v -> getDataComponent(m)?.data?.setDouble(handle, v.coerceIn(min, max)) },
             owner = OWNER
         )
     }
@@ -85,15 +88,16 @@ public object UIBindings {
         val k = key.trim()
         val dk = dataKey.trim()
         if (k.isEmpty() || dk.isEmpty()) return
+        val handle = ZenMachineDataKey.of(dk)
 
         val setter: ((MachineInstance, Boolean) -> Unit)? = if (writable) {
-            { m, v -> getDataComponent(m)?.data?.setBool(dk, v) }
+            { m, v -> getDataComponent(m)?.data?.setBool(handle, v) }
         } else null
 
         PrototypeMachineryAPI.uiBindingRegistry.registerBool(
             id,
             k,
-            getter = { m -> getDataComponent(m)?.data?.getBool(dk, defaultValue) ?: defaultValue },
+            getter = { m -> getDataComponent(m)?.data?.getBool(handle, defaultValue) ?: defaultValue },
             setter = setter,
             owner = OWNER
         )
@@ -112,15 +116,16 @@ public object UIBindings {
         val k = key.trim()
         val dk = dataKey.trim()
         if (k.isEmpty() || dk.isEmpty()) return
+        val handle = ZenMachineDataKey.of(dk)
 
         val setter: ((MachineInstance, String) -> Unit)? = if (writable) {
-            { m, v -> getDataComponent(m)?.data?.setString(dk, v) }
+            { m, v -> getDataComponent(m)?.data?.setString(handle, v) }
         } else null
 
         PrototypeMachineryAPI.uiBindingRegistry.registerString(
             id,
             k,
-            getter = { m -> getDataComponent(m)?.data?.getString(dk, defaultValue) ?: defaultValue },
+            getter = { m -> getDataComponent(m)?.data?.getString(handle, defaultValue) ?: defaultValue },
             setter = setter,
             owner = OWNER
         )
@@ -0,0 +1,86 @@
+package github.kasuminova.prototypemachinery.api.util.probability
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+class CounterRandomTest {
+
+    @Test
+    fun `streams are reproducible from seed salt and tick`() {
+        val salt = CounterRandom.salt(CounterRandom.salt("item:start"), "input_0")
+        val a = CounterRandomStream(42L, salt, 7L)
+        val b = CounterRandomStream(42L, salt, 7L)
+        repeat(64) {
+            assertEquals(a.nextLong(), b.nextLong())
+        }
+
+        // Stateless access returns the same sequence by index.
+        val key = CounterRandom.key(42L, salt, 7L)
+        assertEquals(CounterRandom.long(key, 3L), CounterRandomStream(42L, salt, 7L).apply { repeat(3) { nextLong() } }.nextLong())
+    }
+
+    @Test
+    fun `different salts and ticks give different streams`() {
+        val domain = CounterRandom.salt("fluid:tick")
+        val s1 = CounterRandom.salt(domain, "a")
+        val s2 = CounterRandom.salt(domain, "b")
+        assertNotEquals(s1, s2)
+        assertNotEquals(CounterRandom.salt("item:start"), CounterRandom.salt("item:end"))
+
+        assertNotEquals(CounterRandom.key(1L, s1, 0L), CounterRandom.key(1L, s2, 0L))
+        assertNotEquals(CounterRandom.key(1L, s1, 0L), CounterRandom.key(1L, s1, 1L))
+        assertNotEquals(CounterRandom.key(1L, s1, 0L), CounterRandom.key(2L, s1, 0L))
+    }
+
+    @Test
+    fun `thread local stream is reset on each request`() {
+        val first = CounterRandom.stream(5L, 9L, 0L)
+        val v0 = first.nextLong()
+        first.nextLong()
+        val again = CounterRandom.stream(5L, 9L, 0L)
+        assertEquals(0L, again.counter)
+        assertEquals(v0, again.nextLong())
+    }
+
+    @Test
+    fun `doubles are uniform in unit interval`() {
+        val stream = CounterRandomStream(123L, CounterRandom.salt("uniform"), 0L)
+        val n = 200_000
+        var sum = 0.0
+        val buckets = IntArray(10)
+        repeat(n) {
+            val d = stream.nextDouble()
+            assertTrue(d >= 0.0 && d < 1.0)
+            sum += d
+            buckets[(d * 10).toInt()]++
+        }
+        assertEquals(0.5, sum / n, 0.01)
+        for (c in buckets) {
+            assertEquals(n / 10.0, c.toDouble(), n * 0.01)
+        }
+    }
+
+    @Test
+    fun `sampleTimes over counter stream matches expectation`() {
+        val k = 1000
+        val chance = 30.0
+        val trials = 2000
+        var total = 0L
+        for (t in 0 until trials) {
+            val times = ChanceMath.sampleTimes(CounterRandom.stream(99L, 1L, t.toLong()), k, chance)
+            assertTrue(times in 0..ChanceMath.maxTimes(k, chance))
+            total += times
+        }
+        assertEquals(300.0, total.toDouble() / trials, 5.0)
+    }
+
+    @Test
+    fun `java random adapter keeps legacy sequences`() {
+        val legacy = ChanceMath.sampleTimes(Random(77L), 4096, 42.0)
+        val adapted = ChanceMath.sampleTimes(RandomSource.of(Random(77L)), 4096, 42.0)
+        assertEquals(legacy, adapted)
+    }
+}
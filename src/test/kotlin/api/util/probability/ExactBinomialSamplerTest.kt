@@ -0,0 +1,109 @@
+package github.kasuminova.prototypemachinery.api.util.probability
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.Random
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.sqrt
+
+class ExactBinomialSamplerTest {
+
+    @AfterEach
+    fun resetTuning() {
+        ProbabilityTuning.enableExactBinomial = false
+    }
+
+    @Test
+    fun `setup is cached per n and p`() {
+        val a = ExactBinomialSampler.setup(1000, 0.3)
+        val b = ExactBinomialSampler.setup(1000, 0.3)
+        assertSame(a, b)
+    }
+
+    @Test
+    fun `samples stay in bounds across regimes`() {
+        val random = RandomSource.of(Random(7L))
+        for (n in intArrayOf(1, 5, 40, 1000, 1_000_000)) {
+            for (p in doubleArrayOf(0.001, 0.2, 0.5, 0.7, 0.999)) {
+                repeat(200) {
+                    val x = ExactBinomialSampler.sample(random, n, p)
+                    assertTrue(x in 0L..n.toLong(), "n=$n p=$p x=$x")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `mean and variance match for BTPE range`() {
+        checkMoments(n = 2000, p = 0.3, trials = 40_000)
+        checkMoments(n = 2000, p = 0.85, trials = 40_000)
+    }
+
+    @Test
+    fun `mean and variance match for inversion range`() {
+        checkMoments(n = 50, p = 0.2, trials = 40_000)
+        checkMoments(n = 100_000, p = 0.0001, trials = 40_000)
+    }
+
+    @Test
+    fun `distribution matches pmf for moderate n`() {
+        // n * p = 60 -> BTPE; compare histogram with the exact pmf (chi-square).
+        val n = 200
+        val p = 0.3
+        val trials = 100_000
+        val counts = IntArray(n + 1)
+        val random = CounterRandomStream(11L, CounterRandom.salt("btpe"), 0L)
+        repeat(trials) {
+            counts[ExactBinomialSampler.sample(random, n, p).toInt()]++
+        }
+
+        var chi2 = 0.0
+        var bins = 0
+        for (k in 0..n) {
+            val expected = pmf(n, p, k) * trials
+            if (expected < 5.0) continue
+            val d = counts[k] - expected
+            chi2 += d * d / expected
+            bins++
+        }
+        // ~40 bins; the 99.9% quantile of chi-square(40) is ~73.
+        assertTrue(chi2 < 2.0 * bins, "chi2=$chi2 bins=$bins")
+    }
+
+    @Test
+    fun `binomial sampler routes through exact backend when enabled`() {
+        ProbabilityTuning.enableExactBinomial = true
+        val a = BinomialSampler.sample(Random(5L), 5000, 0.4)
+        val b = ExactBinomialSampler.sample(RandomSource.of(Random(5L)), 5000, 0.4)
+        assertEquals(b, a)
+    }
+
+    private fun checkMoments(n: Int, p: Double, trials: Int) {
+        val random = CounterRandomStream(3L, CounterRandom.salt("moments:$n:$p"), 0L)
+        var sum = 0.0
+        var sumSq = 0.0
+        repeat(trials) {
+            val x = ExactBinomialSampler.sample(random, n, p).toDouble()
+            sum += x
+            sumSq += x * x
+        }
+        val mean = sum / trials
+        val variance = sumSq / trials - mean * mean
+        val expectedMean = n * p
+        val expectedVar = n * p * (1.0 - p)
+
+        // 5 standard errors on the mean; 10% relative tolerance on the variance.
+        assertEquals(expectedMean, mean, 5.0 * sqrt(expectedVar / trials), "mean n=$n p=$p")
+        assertEquals(expectedVar, variance, 0.1 * expectedVar, "variance n=$n p=$p")
+    }
+
+    private fun pmf(n: Int, p: Double, k: Int): Double {
+        var logC = 0.0
+        for (i in 1..k) logC += ln((n - k + i).toDouble() / i)
+        return exp(logC + k * ln(p) + (n - k) * ln(1.0 - p))
+    }
+}
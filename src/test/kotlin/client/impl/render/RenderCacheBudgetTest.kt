@@ -0,0 +1,114 @@
+package github.kasuminova.prototypemachinery.client.impl.render
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class RenderCacheBudgetTest {
+
+    private class FakeCache(
+        override val budgetName: String,
+        override val rebuildCost: Double = 1.0,
+    ) : BudgetedRenderCache {
+        // handle -> (lastUsedFrame, bytes)
+        val entries = LinkedHashMap<String, Pair<Int, Long>>()
+        var passesWithEvictions = 0
+
+        fun put(handle: String, lastUsedFrame: Int, bytes: Long): FakeCache {
+            entries[handle] = lastUsedFrame to bytes
+            return this
+        }
+
+        override fun budgetBytes(): Long = entries.values.sumOf { it.second }
+
+        override fun collectEvictionCandidates(idleBefore: Int, out: RenderCacheBudget.Candidates) {
+            for ((handle, e) in entries) {
+                if (e.first < idleBefore) out.add(handle, e.first, e.second)
+            }
+        }
+
+        override fun evict(handle: Any): Long = entries.remove(handle)?.second ?: 0L
+
+        override fun afterEvictions() {
+            passesWithEvictions++
+        }
+    }
+
+    private val now = 1000
+
+    @Test
+    fun `under budget nothing is evicted`() {
+        val cache = FakeCache("a").put("x", 0, 100L).put("y", 0, 100L)
+
+        val result = RenderCacheBudget.enforce(listOf(cache), now, 500L)
+
+        assertEquals(0, result.evictions)
+        assertEquals(200L, result.bytesAfter)
+        assertEquals(2, cache.entries.size)
+    }
+
+    @Test
+    fun `zero budget only measures`() {
+        val cache = FakeCache("a").put("x", 0, 100L)
+
+        val result = RenderCacheBudget.enforce(listOf(cache), now, 0L)
+
+        assertEquals(0, result.evictions)
+        assertEquals(100L, result.bytesBefore)
+        assertEquals(1, cache.entries.size)
+    }
+
+    @Test
+    fun `over budget evicts coldest and largest first until it fits`() {
+        val cache = FakeCache("a")
+            .put("old-big", 100, 400L)
+            .put("old-small", 100, 100L)
+            .put("newer-big", 900, 400L)
+
+        val result = RenderCacheBudget.enforce(listOf(cache), now, 600L)
+
+        assertEquals(1, result.evictions)
+        assertEquals(400L, result.evictedBytes)
+        assertEquals(500L, result.bytesAfter)
+        assertEquals(setOf("old-small", "newer-big"), cache.entries.keys)
+    }
+
+    @Test
+    fun `recently used entries are never evicted`() {
+        val cache = FakeCache("a")
+            .put("hot", now - 1, 1000L)
+            .put("cold", 0, 10L)
+
+        val result = RenderCacheBudget.enforce(listOf(cache), now, 100L)
+
+        assertEquals(1, result.evictions)
+        assertTrue("hot" in cache.entries)
+        assertTrue(result.bytesAfter > 100L)
+    }
+
+    @Test
+    fun `cheaper caches are evicted first`() {
+        val expensive = FakeCache("expensive", rebuildCost = 4.0).put("e", 100, 300L)
+        val cheap = FakeCache("cheap", rebuildCost = 0.5).put("c", 100, 300L)
+
+        val result = RenderCacheBudget.enforce(listOf(expensive, cheap), now, 400L)
+
+        assertEquals(1, result.evictions)
+        assertEquals(mapOf("cheap" to 1), result.evictionsByCache)
+        assertEquals(1, expensive.entries.size)
+        assertEquals(0, cheap.entries.size)
+    }
+
+    @Test
+    fun `post-pass hook runs once per cache that evicted`() {
+        val evicting = FakeCache("evicting", rebuildCost = 0.5)
+        for (i in 0 until 8) evicting.put("e$i", 100, 100L)
+        val untouched = FakeCache("untouched", rebuildCost = 4.0).put("u", now - 1, 100L)
+
+        val result = RenderCacheBudget.enforce(listOf(evicting, untouched), now, 300L)
+
+        assertEquals(6, result.evictions)
+        assertEquals(1, evicting.passesWithEvictions)
+        assertEquals(0, untouched.passesWithEvictions)
+    }
+}
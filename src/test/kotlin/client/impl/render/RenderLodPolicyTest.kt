@@ -0,0 +1,92 @@
+package github.kasuminova.prototypemachinery.client.impl.render
+
+import github.kasuminova.prototypemachinery.api.tuning.RenderTuning
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class RenderLodPolicyTest {
+
+    private var saved: List<Any> = emptyList()
+
+    @BeforeEach
+    fun setUp() {
+        saved = listOf(
+            RenderTuning.lodEnabled,
+            RenderTuning.lodReducedDistance,
+            RenderTuning.lodReducedAnimationIntervalTicks,
+            RenderTuning.lodFrozenDistance,
+            RenderTuning.lodStaticDistance,
+            RenderTuning.lodOffscreenHold,
+        )
+        RenderTuning.lodEnabled = true
+        RenderTuning.lodReducedDistance = 16.0
+        RenderTuning.lodReducedAnimationIntervalTicks = 4
+        RenderTuning.lodFrozenDistance = 32.0
+        RenderTuning.lodStaticDistance = 64.0
+        RenderTuning.lodOffscreenHold = true
+    }
+
+    @AfterEach
+    fun tearDown() {
+        RenderTuning.lodEnabled = saved[0] as Boolean
+        RenderTuning.lodReducedDistance = saved[1] as Double
+        RenderTuning.lodReducedAnimationIntervalTicks = saved[2] as Int
+        RenderTuning.lodFrozenDistance = saved[3] as Double
+        RenderTuning.lodStaticDistance = saved[4] as Double
+        RenderTuning.lodOffscreenHold = saved[5] as Boolean
+    }
+
+    private fun select(distance: Double, inFrustum: Boolean = true) = RenderLodPolicy.select(distance * distance, inFrustum)
+
+    @Test
+    fun `distance bands`() {
+        assertEquals(RenderLod.FULL, select(0.0))
+        assertEquals(RenderLod.FULL, select(16.0))
+        assertEquals(RenderLod.REDUCED, select(16.5))
+        assertEquals(RenderLod.FROZEN, select(40.0))
+        assertEquals(RenderLod.STATIC, select(100.0))
+    }
+
+    @Test
+    fun `disabled bands are skipped`() {
+        RenderTuning.lodFrozenDistance = 0.0
+        RenderTuning.lodStaticDistance = 0.0
+        assertEquals(RenderLod.REDUCED, select(1000.0))
+
+        RenderTuning.lodEnabled = false
+        assertEquals(RenderLod.FULL, select(1000.0, inFrustum = false))
+    }
+
+    @Test
+    fun `offscreen machines hold every part`() {
+        assertEquals(RenderLod.OFFSCREEN, select(4.0, inFrustum = false))
+        assertTrue(RenderLod.OFFSCREEN.holdsStatic)
+        assertTrue(RenderLod.OFFSCREEN.holdsAnimated)
+        assertTrue(RenderLod.OFFSCREEN.drawsAnimated)
+
+        RenderTuning.lodOffscreenHold = false
+        assertEquals(RenderLod.FULL, select(4.0, inFrustum = false))
+    }
+
+    @Test
+    fun `static band drops animated parts`() {
+        assertFalse(RenderLod.STATIC.drawsAnimated)
+        assertTrue(RenderLod.FROZEN.holdsAnimated)
+        assertFalse(RenderLod.FROZEN.holdsStatic)
+        assertFalse(RenderLod.REDUCED.holdsAnimated)
+    }
+
+    @Test
+    fun `reduced band samples animation on its interval`() {
+        assertEquals(100, RenderLodPolicy.animationTick(RenderLod.REDUCED, 103))
+        assertEquals(104, RenderLodPolicy.animationTick(RenderLod.REDUCED, 104))
+        assertEquals(103, RenderLodPolicy.animationTick(RenderLod.FULL, 103))
+
+        assertEquals(0, RenderLodPolicy.animationTimeKey(RenderLod.REDUCED, 1234))
+        assertEquals(1234, RenderLodPolicy.animationTimeKey(RenderLod.FULL, 1234))
+    }
+}
@@ -0,0 +1,71 @@
+package github.kasuminova.prototypemachinery.client.impl.render
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class SoftwareDepthBufferTest {
+
+    private val buffer = SoftwareDepthBuffer()
+
+    // Column-major perspective projection looking down -Z (camera at the origin).
+    private fun perspective(fovDeg: Float, aspect: Float, near: Float, far: Float): FloatArray {
+        val f = (1.0 / Math.tan(Math.toRadians(fovDeg / 2.0))).toFloat()
+        val m = FloatArray(16)
+        m[0] = f / aspect
+        m[5] = f
+        m[10] = (far + near) / (near - far)
+        m[11] = -1.0f
+        m[14] = 2.0f * far * near / (near - far)
+        return m
+    }
+
+    // Wall facing the camera at z = [z], spanning [-half, half] on x and y.
+    private fun wall(z: Float, half: Float): FloatArray = floatArrayOf(
+        -half, -half, z,
+        half, -half, z,
+        half, half, z,
+        -half, half, z,
+    )
+
+    @BeforeEach
+    fun setUp() {
+        buffer.begin(perspective(70.0f, 16.0f / 9.0f, 0.05f, 256.0f))
+    }
+
+    @Test
+    fun `empty buffer never occludes`() {
+        assertFalse(buffer.isOccluded(-0.5f, -0.5f, -20.0f, 0.5f, 0.5f, -19.0f))
+    }
+
+    @Test
+    fun `box behind a wall is occluded`() {
+        assertTrue(buffer.drawQuad(wall(-5.0f, 1.0f)))
+        assertTrue(buffer.isOccluded(-0.5f, -0.5f, -20.0f, 0.5f, 0.5f, -19.0f))
+    }
+
+    @Test
+    fun `box in front of a wall is visible`() {
+        assertTrue(buffer.drawQuad(wall(-5.0f, 1.0f)))
+        assertFalse(buffer.isOccluded(-0.2f, -0.2f, -3.0f, 0.2f, 0.2f, -2.0f))
+    }
+
+    @Test
+    fun `box beside a wall is visible`() {
+        assertTrue(buffer.drawQuad(wall(-5.0f, 1.0f)))
+        assertFalse(buffer.isOccluded(8.0f, -0.5f, -20.0f, 9.0f, 0.5f, -19.0f))
+        // Partially covered: pokes out past the wall's edge.
+        assertFalse(buffer.isOccluded(-0.5f, -0.5f, -20.0f, 6.0f, 0.5f, -19.0f))
+    }
+
+    @Test
+    fun `quads and boxes crossing the near plane are rejected`() {
+        assertFalse(buffer.drawQuad(wall(1.0f, 1.0f)))
+        assertEquals(0, buffer.quads)
+
+        assertTrue(buffer.drawQuad(wall(-5.0f, 1.0f)))
+        assertFalse(buffer.isOccluded(-0.5f, -0.5f, -20.0f, 0.5f, 0.5f, 0.5f))
+    }
+}
@@ -0,0 +1,101 @@
+package github.kasuminova.prototypemachinery.client.impl.render.task
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.Random
+import kotlin.math.abs
+
+class CompactPackedVerticesTest {
+
+    private val normals = intArrayOf(0x00007F00, 0x00008100, 0x007F0000, 0x00810000, 0x0000007F, 0x00000081)
+
+    private fun vertices(
+        count: Int,
+        extent: Float = 3.0f,
+        uv: (Random) -> Float = { it.nextFloat() },
+        color: (Int) -> Int = { if (it % 2 == 0) -1 else 0x80FF00FF.toInt() },
+    ): ByteBuffer {
+        val r = Random(42L)
+        val out = ByteBuffer.allocateDirect(count * CompactPackedVertices.RAW_STRIDE).order(ByteOrder.nativeOrder())
+        for (i in 0 until count) {
+            val o = i * CompactPackedVertices.RAW_STRIDE
+            out.putFloat(o, r.nextFloat() * extent - 1.5f)
+            out.putFloat(o + 4, r.nextFloat() * extent)
+            out.putFloat(o + 8, r.nextFloat() * extent + 10.0f)
+            out.putFloat(o + 12, uv(r))
+            out.putFloat(o + 16, uv(r))
+            out.putInt(o + 20, color(i))
+            out.putInt(o + 24, normals[(i shr 2) % normals.size])
+        }
+        return out
+    }
+
+    private fun encode(src: ByteBuffer, count: Int): Pair<CompactPackedTransform, ByteBuffer> {
+        val transform = CompactPackedVertices.transformOf(src, count, CompactPackedVertices.sharedColor(src, count))!!
+        val out = ByteBuffer.allocateDirect(count * CompactPackedVertices.strideOf(transform)).order(ByteOrder.nativeOrder())
+        assertEquals(out.capacity(), CompactPackedVertices.encodePart(src, count, transform, out))
+        return transform to out
+    }
+
+    @Test
+    fun `positions and uvs stay within quantization error`() {
+        val count = 5000
+        val src = vertices(count)
+        val (t, out) = encode(src, count)
+        assertNull(t.sharedColor)
+        assertEquals(CompactPackedVertices.STRIDE * count, out.capacity())
+
+        val posTolerance = t.positionScale * 0.5f + 1e-5f
+        val uvTolerance = 0.5f / CompactPackedVertices.UV_UNITS + 1e-6f
+        for (i in 0 until count) {
+            val o = i * CompactPackedVertices.RAW_STRIDE
+            val d = i * CompactPackedVertices.STRIDE
+            assertTrue(abs(t.originX + out.getShort(d) * t.positionScale - src.getFloat(o)) <= posTolerance)
+            assertTrue(abs(t.originY + out.getShort(d + 2) * t.positionScale - src.getFloat(o + 4)) <= posTolerance)
+            assertTrue(abs(t.originZ + out.getShort(d + 4) * t.positionScale - src.getFloat(o + 8)) <= posTolerance)
+            assertTrue(abs(out.getShort(d + 8) / CompactPackedVertices.UV_UNITS - src.getFloat(o + 12)) <= uvTolerance)
+            assertTrue(abs(out.getShort(d + 10) / CompactPackedVertices.UV_UNITS - src.getFloat(o + 16)) <= uvTolerance)
+            assertEquals(src.getInt(o + 20), out.getInt(d + 12))
+            assertEquals(src.getInt(o + 24), out.getInt(d + 16))
+        }
+    }
+
+    @Test
+    fun `a shared color is dropped from the vertices`() {
+        val count = 64
+        val src = vertices(count, color = { 0 })
+        src.put(20, 0x11).put(21, 0x22).put(22, 0x33).put(23, 0x44)
+        for (i in 1 until count) src.putInt(i * CompactPackedVertices.RAW_STRIDE + 20, src.getInt(20))
+
+        val (t, out) = encode(src, count)
+        assertEquals(0x11223344, t.sharedColor)
+        assertEquals(CompactPackedVertices.STRIDE_SHARED_COLOR * count, out.capacity())
+        for (i in 0 until count) {
+            assertEquals(src.getInt(i * CompactPackedVertices.RAW_STRIDE + 24), out.getInt(i * CompactPackedVertices.STRIDE_SHARED_COLOR + 12))
+        }
+    }
+
+    @Test
+    fun `flat geometry gets a usable scale`() {
+        val src = vertices(8, extent = 0.0f)
+        val (t, out) = encode(src, 8)
+        assertEquals(1.0f, t.positionScale)
+        assertEquals(0, out.getShort(0).toInt())
+    }
+
+    @Test
+    fun `unsupported data is left alone`() {
+        val wrapped = vertices(16, uv = { it.nextFloat() * 4.0f - 2.0f })
+        assertNull(CompactPackedVertices.transformOf(wrapped, 16, null))
+
+        val huge = vertices(16, extent = 4096.0f)
+        assertNull(CompactPackedVertices.transformOf(huge, 16, null))
+
+        assertNotNull(CompactPackedVertices.transformOf(vertices(16), 16, null))
+    }
+}
@@ -0,0 +1,75 @@
+package github.kasuminova.prototypemachinery.client.impl.render.task
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.Random
+import kotlin.math.abs
+
+class CompactVertexCodecTest {
+
+    private val normals = intArrayOf(0x00007F00, 0x00008100, 0x007F0000, 0x00810000, 0x0000007F, 0x00000081)
+
+    private fun vertices(
+        count: Int,
+        extent: Float = 3.0f,
+        uv: (Random) -> Float = { it.nextFloat() },
+        normal: (Int) -> Int = { normals[(it shr 2) % normals.size] },
+    ): IntArray {
+        val r = Random(42L)
+        val out = IntArray(count * CompactVertexCodec.INTS_PER_VERTEX)
+        for (i in 0 until count) {
+            val o = i * CompactVertexCodec.INTS_PER_VERTEX
+            out[o] = (r.nextFloat() * extent - 1.5f).toRawBits()
+            out[o + 1] = (r.nextFloat() * extent).toRawBits()
+            out[o + 2] = (r.nextFloat() * extent + 10.0f).toRawBits()
+            out[o + 3] = uv(r).toRawBits()
+            out[o + 4] = uv(r).toRawBits()
+            out[o + 5] = if (i % 2 == 0) -1 else 0x80FF00FF.toInt()
+            out[o + 6] = normal(i)
+        }
+        return out
+    }
+
+    @Test
+    fun `round trip stays within quantization error`() {
+        val src = vertices(1024)
+        val compact = CompactVertexCodec.encode(src)!!
+        assertEquals(src.size, compact.intCount)
+
+        val decoded = IntArray(src.size)
+        compact.decode(decoded)
+        for (i in src.indices) {
+            when (i % CompactVertexCodec.INTS_PER_VERTEX) {
+                0, 1, 2 -> assertTrue(abs(Float.fromBits(src[i]) - Float.fromBits(decoded[i])) < 1.0e-4f, "position @$i")
+                3, 4 -> assertTrue(abs(Float.fromBits(src[i]) - Float.fromBits(decoded[i])) < 1.0e-4f, "uv @$i")
+                else -> assertEquals(src[i], decoded[i], "color/normal @$i")
+            }
+        }
+    }
+
+    @Test
+    fun `compact data is smaller than raw ints`() {
+        val src = vertices(4096)
+        val compact = CompactVertexCodec.encode(src)!!
+        assertTrue(compact.bytes * 2 < src.size * 4L, "compact=${compact.bytes} raw=${src.size * 4L}")
+    }
+
+    @Test
+    fun `decode honors the output offset`() {
+        val src = vertices(8)
+        val decoded = IntArray(src.size + 3)
+        CompactVertexCodec.encode(src)!!.decode(decoded, 3)
+        assertEquals(src[5], decoded[3 + 5])
+        assertEquals(src[src.size - 1], decoded[decoded.size - 1])
+    }
+
+    @Test
+    fun `unrepresentable data is rejected`() {
+        assertNull(CompactVertexCodec.encode(vertices(16, uv = { 1.5f })))
+        assertNull(CompactVertexCodec.encode(vertices(16, extent = CompactVertexCodec.MAX_EXTENT * 2)))
+        assertNull(CompactVertexCodec.encode(vertices(512, normal = { it })))
+        assertNull(CompactVertexCodec.encode(IntArray(10)))
+    }
+}
@@ -0,0 +1,46 @@
+package github.kasuminova.prototypemachinery.client.impl.render.task
+
+import github.kasuminova.prototypemachinery.client.api.render.RenderKey
+import net.minecraft.util.ResourceLocation
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class SharedBuildKeyTest {
+
+    private fun key(stateHash: Int = 0, timeKey: Int = 0, variant: Int = 7, orientation: Int = 3) = RenderKey(
+        modelId = ResourceLocation("test", "geo/machine.geo.json"),
+        textureId = ResourceLocation("test", "textures/machine.png"),
+        variant = variant,
+        animationStateHash = stateHash,
+        animationTimeKey = timeKey,
+        orientationHash = orientation,
+    )
+
+    @Test
+    fun `animation time does not split shared entries`() {
+        val a = SharedBuildKey.of(key(stateHash = 100, timeKey = 200), "content")
+        val b = SharedBuildKey.of(key(stateHash = 101, timeKey = 202), "content")
+        assertEquals(a, b)
+        assertEquals(a.hashCode(), b.hashCode())
+        assertEquals(0, a.renderKey.animationStateHash)
+        assertEquals(0, a.renderKey.animationTimeKey)
+    }
+
+    @Test
+    fun `visual differences keep entries apart`() {
+        val base = SharedBuildKey.of(key(), "content")
+        assertNotEquals(base, SharedBuildKey.of(key(variant = 8), "content"))
+        assertNotEquals(base, SharedBuildKey.of(key(orientation = 4), "content"))
+        assertNotEquals(base, SharedBuildKey.of(key(), "other content"))
+    }
+
+    @Test
+    fun `sampling bands keep entries apart`() {
+        val full = SharedBuildKey.of(key(stateHash = 100, timeKey = 200), "content", band = 0)
+        val reduced = SharedBuildKey.of(key(stateHash = 100), "content", band = 1)
+        assertNotEquals(full, reduced)
+        assertTrue(full.sameContent(reduced))
+    }
+}
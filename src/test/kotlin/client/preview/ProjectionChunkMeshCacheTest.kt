@@ -0,0 +1,143 @@
+package github.kasuminova.prototypemachinery.client.preview
+
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.LiteralRequirement
+import net.minecraft.util.math.BlockPos
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ProjectionChunkMeshCacheTest {
+
+    private val casing = LiteralRequirement("casing")
+
+    // Chunk (0,0,0) holds entries 0 and 1, chunk (1,0,0) holds entry 2.
+    private val entries = listOf(
+        WorldProjectionManager.Entry(BlockPos(0, 0, 0), casing),
+        WorldProjectionManager.Entry(BlockPos(1, 0, 0), casing),
+        WorldProjectionManager.Entry(BlockPos(16, 0, 0), casing),
+    )
+
+    private class Build(val indices: List<Int>, val statuses: List<WorldProjectionManager.Status>)
+
+    private class Mesh(val build: Build)
+
+    private class Harness(entries: List<WorldProjectionManager.Entry>, gate: CountDownLatch? = null, started: CountDownLatch? = null) {
+        val builds = AtomicInteger()
+        val released = ArrayList<Mesh>()
+        val discarded = LinkedBlockingQueue<Build>()
+
+        val cache = ProjectionChunkMeshCache<Build, Mesh>(
+            entries = entries,
+            builder = { _, indices, statuses ->
+                builds.incrementAndGet()
+                started?.countDown()
+                gate?.await(10, TimeUnit.SECONDS)
+                Build(indices.toList(), statuses.toList())
+            },
+            uploader = ::Mesh,
+            releaser = { released += it },
+            discarder = { discarded += it },
+        )
+
+        /** Run [ProjectionChunkMeshCache.update] until no build is in flight. */
+        fun settle(statuses: Array<WorldProjectionManager.Status>, epoch: Int) {
+            repeat(1000) {
+                cache.update(statuses, epoch, maxUploads = 16, maxInFlight = 8)
+                if (cache.chunks.all { it.pending == null && !it.dirty }) return
+                cache.chunks.forEach { it.pending?.task?.quietlyJoin() }
+            }
+            error("cache did not settle")
+        }
+
+        fun mesh(key: ProjectionChunkKey): Mesh = cache.chunks.single { it.key == key }.mesh!!
+    }
+
+    private fun statuses(vararg s: WorldProjectionManager.Status) = arrayOf(*s)
+
+    @Test
+    fun `initial update builds every chunk from the status snapshot`() {
+        val h = Harness(entries)
+        val st = statuses(WorldProjectionManager.Status.MATCH, WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.MISMATCH)
+        h.settle(st, epoch = 0)
+
+        assertTrue(h.cache.ready)
+        assertEquals(2, h.builds.get())
+        assertEquals(listOf(0, 1), h.mesh(ProjectionChunkKey(0, 0, 0)).build.indices)
+        assertEquals(listOf(WorldProjectionManager.Status.MISMATCH), h.mesh(ProjectionChunkKey(1, 0, 0)).build.statuses)
+    }
+
+    @Test
+    fun `markDirty rebuilds only the affected chunk and releases its previous mesh`() {
+        val h = Harness(entries)
+        val st = statuses(WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.UNKNOWN)
+        h.settle(st, epoch = 0)
+        val before = h.mesh(ProjectionChunkKey(0, 0, 0))
+        val other = h.mesh(ProjectionChunkKey(1, 0, 0))
+
+        st[1] = WorldProjectionManager.Status.MATCH
+        h.cache.markDirty(ProjectionChunkKey(0, 0, 0))
+        h.settle(st, epoch = 0)
+
+        assertEquals(3, h.builds.get())
+        assertEquals(listOf(before), h.released)
+        assertEquals(WorldProjectionManager.Status.MATCH, h.mesh(ProjectionChunkKey(0, 0, 0)).build.statuses[1])
+        assertTrue(other === h.mesh(ProjectionChunkKey(1, 0, 0)))
+    }
+
+    @Test
+    fun `a new status epoch rebuilds every chunk`() {
+        val h = Harness(entries)
+        val st = statuses(WorldProjectionManager.Status.MATCH, WorldProjectionManager.Status.MATCH, WorldProjectionManager.Status.MATCH)
+        h.settle(st, epoch = 0)
+
+        // Same epoch, nothing marked: no rebuild.
+        h.settle(st, epoch = 0)
+        assertEquals(2, h.builds.get())
+
+        // Statuses reset as a whole (e.g. anchor moved) without any per-entry flip being reported.
+        val reset = statuses(WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.UNKNOWN)
+        h.settle(reset, epoch = 1)
+
+        assertEquals(4, h.builds.get())
+        assertEquals(2, h.released.size)
+        for (c in h.cache.chunks) {
+            assertTrue(c.mesh!!.build.statuses.all { it == WorldProjectionManager.Status.UNKNOWN })
+        }
+    }
+
+    @Test
+    fun `release returns buffers of finished but not uploaded builds`() {
+        val h = Harness(entries)
+        val st = statuses(WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.UNKNOWN, WorldProjectionManager.Status.UNKNOWN)
+        h.cache.update(st, 0, maxUploads = 16, maxInFlight = 8)
+        h.cache.chunks.forEach { it.pending!!.task.quietlyJoin() }
+
+        h.cache.release()
+
+        assertEquals(2, h.discarded.size)
+        assertTrue(h.cache.chunks.all { it.pending == null && it.mesh == null })
+    }
+
+    @Test
+    fun `release returns buffers of running builds once they complete`() {
+        val gate = CountDownLatch(1)
+        val started = CountDownLatch(1)
+        val h = Harness(entries.take(1), gate, started)
+        val st = statuses(WorldProjectionManager.Status.UNKNOWN)
+        h.cache.update(st, 0, maxUploads = 16, maxInFlight = 8)
+        assertTrue(started.await(10, TimeUnit.SECONDS))
+
+        h.cache.release()
+        assertNull(h.discarded.peek())
+
+        gate.countDown()
+        val discarded = h.discarded.poll(10, TimeUnit.SECONDS)
+        assertEquals(listOf(0), discarded?.indices)
+        assertNull(h.cache.chunks.single().mesh)
+    }
+}
@@ -0,0 +1,57 @@
+package github.kasuminova.prototypemachinery.client.preview.ui
+
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.LiteralRequirement
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.PreviewBomEntry
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.PreviewBounds
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.StructurePreviewModel
+import github.kasuminova.prototypemachinery.api.machine.structure.preview.ui.StructurePreviewEntryStatus
+import net.minecraft.util.math.BlockPos
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+
+class StructurePreviewBomIndexTest {
+
+    private val casing = LiteralRequirement("casing")
+    private val glass = LiteralRequirement("glass")
+
+    private fun model(): StructurePreviewModel {
+        val blocks = linkedMapOf(
+            BlockPos(0, 0, 0) to glass,
+            BlockPos(1, 0, 0) to casing,
+            BlockPos(2, 0, 0) to casing,
+            BlockPos(3, 0, 0) to casing,
+        )
+        return StructurePreviewModel(
+            blocks = blocks,
+            bounds = PreviewBounds(BlockPos(0, 0, 0), BlockPos(3, 0, 0)),
+            bom = listOf(PreviewBomEntry(glass, 1), PreviewBomEntry(casing, 3)),
+        )
+    }
+
+    @Test
+    fun `required bom is sorted by count`() {
+        val index = StructurePreviewBomIndex.of(model())
+        assertEquals(listOf(casing to 3, glass to 1), index.required)
+    }
+
+    @Test
+    fun `remaining counts only missing and wrong blocks`() {
+        val index = StructurePreviewBomIndex.of(model())
+        val statuses = mapOf(
+            BlockPos(0, 0, 0) to StructurePreviewEntryStatus.WRONG,
+            BlockPos(1, 0, 0) to StructurePreviewEntryStatus.MATCH,
+            BlockPos(2, 0, 0) to StructurePreviewEntryStatus.MISSING,
+            BlockPos(3, 0, 0) to StructurePreviewEntryStatus.UNLOADED,
+        )
+        assertEquals(listOf(glass to 1, casing to 1), index.remaining(statuses))
+
+        val done = statuses.mapValues { StructurePreviewEntryStatus.MATCH }
+        assertEquals(emptyList<Any>(), index.remaining(done))
+    }
+
+    @Test
+    fun `equal models share one index`() {
+        assertSame(StructurePreviewBomIndex.of(model()), StructurePreviewBomIndex.of(model()))
+    }
+}
@@ -2,7 +2,9 @@ package github.kasuminova.prototypemachinery.impl.ecs
 
 import github.kasuminova.prototypemachinery.api.ecs.TopologicalComponentMap
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
 import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
@@ -163,4 +165,40 @@ class TopologicalComponentMapTest {
         println("Actual order: $order")
         assertEquals(listOf("A", "B", "C", "D", "E"), order)
     }
+
+    @Test
+    fun `snapshot is cached until structural change`() {
+        val impl = map as TopologicalComponentMapImpl<String, String>
+        impl.add("A", "ComponentA")
+        impl.add("B", "ComponentB", setOf("A"))
+
+        val first = impl.snapshot()
+        assertEquals(2, first.size)
+        assertEquals("A", first.keyAt(0))
+        assertEquals("ComponentB", first.componentAt(1))
+        assertSame(first, impl.snapshot())
+
+        impl.addBefore("A", "Z", "ComponentZ")
+        val second = impl.snapshot()
+        assertNotSame(first, second)
+        assertEquals(listOf("Z", "A", "B"), (0 until second.size).map { second.keyAt(it) })
+
+        val visited = ArrayList<String>()
+        impl.forEachOrdered { key, _ -> visited += key }
+        assertEquals(listOf("Z", "A", "B"), visited)
+    }
+
+    @Test
+    fun `addDependency updates node dependencies in place`() {
+        map.add("A", "ComponentA")
+        map.add("B", "ComponentB")
+        map.addDependency("A", "B")
+
+        val nodeA = map.orderedComponents.first { it.key == "A" }
+        assertEquals(setOf("B"), nodeA.dependencies)
+        assertEquals(listOf("B", "A"), map.orderedComponents.map { it.key })
+
+        map.removeDependency("A", "B")
+        assertTrue(map.orderedComponents.first { it.key == "A" }.dependencies.isEmpty())
+    }
 }
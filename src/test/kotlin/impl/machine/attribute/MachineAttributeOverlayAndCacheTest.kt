@@ -3,6 +3,10 @@ package github.kasuminova.prototypemachinery.impl.machine.attribute
 import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeModifier
 import github.kasuminova.prototypemachinery.api.machine.attribute.StandardMachineAttributes
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import java.util.concurrent.atomic.AtomicInteger
 
@@ -96,4 +100,87 @@ class MachineAttributeOverlayAndCacheTest {
         val mod = restoredSpeed.getModifier("x1.5")
         assertEquals(MachineAttributeModifier.Operation.MULTIPLY_TOTAL, mod?.operation)
     }
+
+    @Test
+    fun `overlay value follows parent version without recomputing when unchanged`() {
+        val applyCount = AtomicInteger(0)
+        val machineMap = MachineAttributeMapImpl()
+        val machineSpeed = machineMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0)
+
+        val process = OverlayMachineAttributeMapImpl(parent = machineMap, defaultBase = 1.0)
+        val speed = process.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0)
+        speed.addModifier(object : MachineAttributeModifier {
+            override val id: String = "local+1"
+            override val amount: Double = 1.0
+            override val operation: MachineAttributeModifier.Operation = MachineAttributeModifier.Operation.ADDITION
+
+            override fun apply(base: Double, current: Double): Double {
+                applyCount.incrementAndGet()
+                return current + amount
+            }
+        })
+
+        assertEquals(2.0, speed.value, 1e-9)
+        assertEquals(2.0, speed.value, 1e-9)
+        assertEquals(1, applyCount.get(), "expected overlay value to be cached")
+
+        // Parent change must propagate through the version stamp.
+        machineSpeed.addModifier(MachineAttributeModifierImpl.multiplyTotal("x2", 1.0, adder = "machine"))
+        assertEquals(4.0, speed.value, 1e-9)
+        assertEquals(2, applyCount.get())
+
+        machineSpeed.base = 2.0
+        assertEquals(6.0, speed.value, 1e-9)
+        assertEquals(3, applyCount.get())
+    }
+
+    @Test
+    fun `structure version changes only when getOrCreateAttribute inserts`() {
+        val machineMap = MachineAttributeMapImpl()
+        val v0 = machineMap.structureVersion
+
+        machineMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0)
+        val v1 = machineMap.structureVersion
+        assertNotEquals(v0, v1)
+        machineMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 2.0)
+        assertEquals(v1, machineMap.structureVersion)
+
+        val overlay = OverlayMachineAttributeMapImpl(parent = machineMap, defaultBase = 1.0)
+        val before = overlay.attributes
+        overlay.getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM)
+        val after = overlay.attributes
+        assertNotSame(before, after)
+        assertTrue(StandardMachineAttributes.PROCESS_PARALLELISM in after)
+        overlay.getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM)
+        assertSame(after, overlay.attributes)
+    }
+
+    @Test
+    fun `local modifier shadows parent modifier with the same id`() {
+        val machineMap = MachineAttributeMapImpl()
+        val machineSpeed = machineMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0)
+        machineSpeed.addModifier(MachineAttributeModifierImpl.addition("shared", 1.0))
+
+        val process = OverlayMachineAttributeMapImpl(parent = machineMap, defaultBase = 1.0)
+        val speed = process.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0)
+        assertEquals(2.0, speed.value, 1e-9)
+
+        speed.addModifier(MachineAttributeModifierImpl.addition("shared", 5.0))
+        assertEquals(6.0, speed.value, 1e-9)
+    }
+
+    @Test
+    fun `overlay attributes view is reused until parent structure changes`() {
+        val machineMap = MachineAttributeMapImpl()
+        machineMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0)
+
+        val process = OverlayMachineAttributeMapImpl(parent = machineMap, defaultBase = 1.0)
+        val first = process.attributes
+        assertSame(first, process.attributes)
+
+        machineMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM, defaultBase = 4.0)
+        val second = process.attributes
+        assertNotSame(first, second)
+        assertEquals(4.0, second[StandardMachineAttributes.PROCESS_PARALLELISM]?.value ?: 0.0, 1e-9)
+    }
 }
@@ -0,0 +1,183 @@
+package github.kasuminova.prototypemachinery.impl.machine.component.container
+
+import github.kasuminova.prototypemachinery.api.key.PMKey
+import github.kasuminova.prototypemachinery.api.key.PMKeyType
+import github.kasuminova.prototypemachinery.api.storage.ChangeType
+import github.kasuminova.prototypemachinery.api.storage.ObservableResourceStorage
+import github.kasuminova.prototypemachinery.api.storage.ResourceChange
+import github.kasuminova.prototypemachinery.api.storage.ResourceStorageListener
+import net.minecraft.nbt.NBTTagCompound
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class AggregatedInputLedgerTest {
+
+    @Test
+    fun `storage totals follow listener deltas across storages`() {
+        val a = FakeStorage()
+        val b = FakeStorage()
+        a.insert(key("iron"), 40, false)
+        b.insert(key("iron"), 30, false)
+
+        val ledger = AggregatedInputLedger(listOf(a, b), emptyList(), emptyList()) { 0L }
+        assertEquals(70L, ledger.available(key("iron"), Long.MAX_VALUE))
+        assertEquals(50L, ledger.available(key("iron"), 50L))
+
+        a.extract(key("iron"), 25, false)
+        b.insert(key("gold"), 5, false)
+        assertEquals(45L, ledger.available(key("iron"), Long.MAX_VALUE))
+        assertTrue(ledger.hasAvailable(key("gold"), 5L))
+        assertFalse(ledger.hasAvailable(key("gold"), 6L))
+
+        // Simulated IO must not move the totals.
+        a.extract(key("iron"), 15, true)
+        assertEquals(45L, ledger.available(key("iron"), Long.MAX_VALUE))
+
+        b.extract(key("gold"), 5, false)
+        assertEquals(0L, ledger.available(key("gold"), Long.MAX_VALUE))
+    }
+
+    @Test
+    fun `closed ledger detaches from storages`() {
+        val storage = FakeStorage()
+        val ledger = AggregatedInputLedger(listOf(storage), emptyList(), emptyList()) { 0L }
+        assertEquals(1, storage.listeners.size)
+
+        ledger.close()
+        ledger.close()
+        assertEquals(0, storage.listeners.size)
+    }
+
+    @Test
+    fun `cap-backed sources are re-collected only when a stamp moves`() {
+        var worldTime = 100L
+        val port = FakeCapPort(mapOf("coal" to 8L))
+
+        val ledger = AggregatedInputLedger(emptyList(), listOf(port), emptyList()) { worldTime }
+        assertEquals(8L, ledger.available(key("coal"), Long.MAX_VALUE))
+        assertEquals(8L, ledger.available(key("coal"), Long.MAX_VALUE))
+        assertEquals(1, port.collections)
+
+        // External change within the same tick stays invisible until a stamp moves.
+        port.contents = mapOf("coal" to 3L)
+        assertEquals(8L, ledger.available(key("coal"), Long.MAX_VALUE))
+
+        port.executeStamp++
+        assertEquals(3L, ledger.available(key("coal"), Long.MAX_VALUE))
+        assertEquals(2, port.collections)
+
+        port.contents = mapOf("coal" to 1L)
+        worldTime++
+        assertEquals(1L, ledger.available(key("coal"), Long.MAX_VALUE))
+        assertEquals(3, port.collections)
+    }
+
+    @Test
+    fun `missing world never trusts the cap-backed cache`() {
+        val port = FakeCapPort(mapOf("coal" to 2L))
+        val ledger = AggregatedInputLedger(emptyList(), listOf(port), emptyList()) { Long.MIN_VALUE }
+
+        ledger.available(key("coal"), 1L)
+        ledger.available(key("coal"), 1L)
+        assertEquals(2, port.collections)
+    }
+
+    @Test
+    fun `opaque sources are only queried for the remaining amount`() {
+        val storage = FakeStorage()
+        storage.insert(key("sand"), 4, false)
+        val asked = ArrayList<Long>()
+        val opaque: (PMKey<String>, Long) -> Long = { _, amount -> asked += amount; minOf(amount, 10L) }
+
+        val ledger = AggregatedInputLedger(listOf(storage), emptyList(), listOf(opaque)) { 0L }
+        assertEquals(9L, ledger.available(key("sand"), 9L))
+        assertEquals(listOf(5L), asked)
+
+        asked.clear()
+        assertEquals(3L, ledger.available(key("sand"), 3L))
+        assertTrue(asked.isEmpty())
+    }
+
+    @Test
+    fun `adjust stores key copies and drops depleted entries`() {
+        val totals = HashMap<PMKey<String>, Long>()
+        val k = key("x")
+        AggregatedInputLedger.adjust(totals, k, 5L)
+        k.count = 999L
+        assertEquals(1L, totals.keys.single().count)
+
+        AggregatedInputLedger.adjust(totals, key("x"), -5L)
+        assertTrue(totals.isEmpty())
+
+        AggregatedInputLedger.adjust(totals, key("y"), -1L)
+        assertTrue(totals.isEmpty())
+    }
+
+    private fun key(id: String): PMKey<String> = FakeKey(id, 1L)
+
+    private class FakeKey(val id: String, override var count: Long) : PMKey<String>() {
+        override val type: PMKeyType get() = throw UnsupportedOperationException()
+        override val internalHashCode: Int = id.hashCode()
+        override fun equals(other: Any?): Boolean = other is FakeKey && other.id == id
+        override fun copy(): PMKey<String> = FakeKey(id, count)
+        override fun writeNBT(nbt: NBTTagCompound): NBTTagCompound = nbt
+        override fun get(): String = id
+    }
+
+    private class FakeCapPort(var contents: Map<String, Long>) : AggregatedInputLedger.CapBackedSource<String> {
+        override var executeStamp: Long = 0L
+        var collections = 0
+
+        override fun collectAvailable(into: MutableMap<PMKey<String>, Long>) {
+            collections++
+            for ((id, amount) in contents) {
+                AggregatedInputLedger.adjust(into, FakeKey(id, 1L), amount)
+            }
+        }
+    }
+
+    private class FakeStorage : ObservableResourceStorage<PMKey<String>> {
+        private val amounts = LinkedHashMap<PMKey<String>, Long>()
+        val listeners = ArrayList<ResourceStorageListener<PMKey<String>>>()
+
+        override val maxTypes: Int = Int.MAX_VALUE
+        override val maxCountPerType: Long = Long.MAX_VALUE
+        override val usedTypes: Int get() = amounts.size
+        override val isEmpty: Boolean get() = amounts.isEmpty()
+        override val isFull: Boolean = false
+
+        override fun getAmount(key: PMKey<String>): Long = amounts[key] ?: 0L
+        override fun contains(key: PMKey<String>): Boolean = key in amounts
+
+        override fun insert(key: PMKey<String>, amount: Long, simulate: Boolean): Long {
+            if (!simulate) set(key, getAmount(key) + amount, ChangeType.INSERTED)
+            return amount
+        }
+
+        override fun extract(key: PMKey<String>, amount: Long, simulate: Boolean): Long {
+            val taken = minOf(amount, getAmount(key))
+            if (!simulate && taken > 0L) set(key, getAmount(key) - taken, ChangeType.EXTRACTED)
+            return taken
+        }
+
+        override fun getAllResources(): Collection<PMKey<String>> = amounts.keys.toList()
+        override fun clear() = amounts.keys.toList().forEach { set(it, 0L, ChangeType.EXTRACTED) }
+
+        override fun addListener(listener: ResourceStorageListener<PMKey<String>>) {
+            listeners += listener
+        }
+
+        override fun removeListener(listener: ResourceStorageListener<PMKey<String>>): Boolean = listeners.remove(listener)
+        override fun hasPendingChanges(): Boolean = false
+        override fun clearPendingChanges() {}
+
+        private fun set(key: PMKey<String>, amount: Long, type: ChangeType) {
+            val previous = getAmount(key)
+            if (amount <= 0L) amounts.remove(key) else amounts[key.copy()] = amount
+            val change = ResourceChange(key, previous, amount, type)
+            listeners.forEach { it.onResourceChanged(change) }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package github.kasuminova.prototypemachinery.impl.machine.component.system
+
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeMap
+import github.kasuminova.prototypemachinery.api.machine.attribute.StandardMachineAttributes
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponent
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentMap
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentType
+import github.kasuminova.prototypemachinery.api.machine.component.system.MachineSystem
+import github.kasuminova.prototypemachinery.api.machine.component.type.FactoryRecipeProcessorComponent
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.system.RecipeRequirementSystem
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.system.RequirementTransaction
+import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.FactoryRecipeProcessorComponentImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.RecipeProcessImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.ProcessUnscaledProgressComponentType
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.ResourceLocation
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class FactoryRecipeProcessorFastForwardTest {
+
+    @Test
+    fun `no-op tick processes are parked and complete on the same tick`() {
+        val system = CountingSystem(tickNoOp = true)
+        val (machine, processor, process) = setup(system, durationTicks = 10)
+
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+        assertNotNull(process.fastForwardTicket, "process should be parked after its first successful tick")
+        assertEquals(1, system.tickCount)
+
+        for (tick in 2..9) {
+            FactoryRecipeProcessorSystem.onTick(machine, processor)
+            assertEquals(tick.toFloat(), process.status.progress, "projected progress after tick $tick")
+        }
+        assertEquals(1, system.tickCount, "parked process must not acquire tick transactions")
+        assertEquals(0, system.endCount)
+
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+        assertEquals(1, system.endCount, "completion happens on tick 10, same as normal ticking")
+        assertTrue(processor.activeProcesses.isEmpty())
+        assertEquals(10.0f, process[ProcessUnscaledProgressComponentType]!!.ticks)
+    }
+
+    @Test
+    fun `tickable requirements keep normal ticking`() {
+        val system = CountingSystem(tickNoOp = false)
+        val (machine, processor, process) = setup(system, durationTicks = 5)
+
+        repeat(4) { FactoryRecipeProcessorSystem.onTick(machine, processor) }
+        assertNull(process.fastForwardTicket)
+        assertEquals(4, system.tickCount)
+    }
+
+    @Test
+    fun `machine speed change wakes parked processes`() {
+        val system = CountingSystem(tickNoOp = true)
+        val (machine, processor, process) = setup(system, durationTicks = 100)
+
+        repeat(3) { FactoryRecipeProcessorSystem.onTick(machine, processor) }
+        assertNotNull(process.fastForwardTicket)
+
+        machine.attributeMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_SPEED, defaultBase = 1.0).base = 10.0
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+
+        // Woken at tick 4 with progress 3, then ticked normally at the new speed.
+        assertEquals(13.0f, process.status.progress)
+        assertEquals(2, system.tickCount)
+        assertNotNull(process.fastForwardTicket, "re-parked with the new speed")
+
+        repeat(8) { FactoryRecipeProcessorSystem.onTick(machine, processor) }
+        assertEquals(0, system.endCount)
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+        assertEquals(1, system.endCount)
+    }
+
+    @Test
+    fun `external status writes wake the process`() {
+        val system = CountingSystem(tickNoOp = true)
+        val (machine, processor, process) = setup(system, durationTicks = 50)
+
+        repeat(5) { FactoryRecipeProcessorSystem.onTick(machine, processor) }
+        process.status = process.status.copy(progress = 40.0f)
+        assertNull(process.fastForwardTicket)
+        assertEquals(40.0f, process.status.progress)
+    }
+
+    @Test
+    fun `stopped processes are released from the wheel`() {
+        val system = CountingSystem(tickNoOp = true)
+        val (machine, processor, process) = setup(system, durationTicks = 50)
+
+        repeat(3) { FactoryRecipeProcessorSystem.onTick(machine, processor) }
+        assertNotNull(process.fastForwardTicket)
+        assertEquals(1, processor.fastForward.slottedCount)
+
+        processor.stopProcess(process)
+        assertNull(process.fastForwardTicket)
+        assertEquals(0, processor.fastForward.parkedCount)
+        assertEquals(0, processor.fastForward.slottedCount)
+    }
+
+    private fun setup(system: CountingSystem, durationTicks: Int): Triple<DummyMachine, FactoryRecipeProcessorComponentImpl, RecipeProcessImpl> {
+        val machine = DummyMachine()
+        val processor = FactoryRecipeProcessorComponentImpl(ProcessorType, machine)
+        val type = DummyReqType(system)
+        val recipe = object : MachineRecipe {
+            override val id: String = "ff"
+            override val durationTicks: Int = durationTicks
+            override val recipeGroups: Set<ResourceLocation> = emptySet()
+            override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> =
+                mapOf(type to listOf(DummyReqComponent(type)))
+        }
+        val process = RecipeProcessImpl(machine, recipe, seed = 1L)
+        processor.activeProcesses.add(process)
+        return Triple(machine, processor, process)
+    }
+
+    private object ProcessorType : MachineComponentType<FactoryRecipeProcessorComponent> {
+        override val id: ResourceLocation = ResourceLocation("test", "processor")
+        override val system: MachineSystem<FactoryRecipeProcessorComponent>? = null
+        override fun createComponent(machine: MachineInstance): FactoryRecipeProcessorComponent = error("unused")
+    }
+
+    private data class DummyReqComponent(override val type: RecipeRequirementType<*>) : RecipeRequirementComponent
+
+    private class DummyReqType(override val system: RecipeRequirementSystem<DummyReqComponent>) : RecipeRequirementType<DummyReqComponent> {
+        override val id: ResourceLocation = ResourceLocation("test", "ff")
+    }
+
+    private class CountingSystem(private val tickNoOp: Boolean) : RecipeRequirementSystem.Tickable<DummyReqComponent> {
+        var tickCount = 0
+        var endCount = 0
+
+        override fun start(process: RecipeProcess, component: DummyReqComponent): RequirementTransaction = RequirementTransaction.NoOpSuccess
+
+        override fun acquireTickTransaction(process: RecipeProcess, component: DummyReqComponent): RequirementTransaction {
+            tickCount++
+            return RequirementTransaction.NoOpSuccess
+        }
+
+        override fun isTickNoOp(process: RecipeProcess, component: DummyReqComponent): Boolean = tickNoOp
+
+        override fun onEnd(process: RecipeProcess, component: DummyReqComponent): RequirementTransaction {
+            endCount++
+            return RequirementTransaction.NoOpSuccess
+        }
+    }
+
+    private class DummyMachine : MachineInstance {
+        override val type: MachineType get() = throw UnsupportedOperationException()
+        override val blockEntity: BlockEntity = object : TileEntity() {}
+        override val componentMap: MachineComponentMap get() = throw UnsupportedOperationException()
+        override val structureComponentMap: StructureComponentMapImpl = StructureComponentMapImpl()
+        override val attributeMap: MachineAttributeMapImpl = MachineAttributeMapImpl()
+        override fun isFormed(): Boolean = true
+        override fun syncComponent(component: MachineComponent.Synchronizable) {}
+    }
+}
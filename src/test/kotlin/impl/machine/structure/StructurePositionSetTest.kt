@@ -0,0 +1,85 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure
+
+import net.minecraft.util.math.BlockPos
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class StructurePositionSetTest {
+
+    @Test
+    fun `packing matches BlockPos toLong including negative coordinates`() {
+        val samples = listOf(BlockPos(0, 0, 0), BlockPos(-1, 5, -1), BlockPos(29_999_999, 255, -29_999_999), BlockPos(-123, -64, 456))
+        for (pos in samples) {
+            val packed = StructurePositionSet.pack(pos.x, pos.y, pos.z)
+            assertEquals(pos.toLong(), packed)
+            assertEquals(pos, StructurePositionSet.unpack(packed, BlockPos.MutableBlockPos()).toImmutable())
+        }
+    }
+
+    @Test
+    fun `builder de-duplicates and tracks bounds`() {
+        val set = StructurePositionSet.Builder(initialCapacity = 1)
+            .add(1, 2, 3)
+            .add(BlockPos(-4, 10, 7))
+            .add(1, 2, 3)
+            .add(0, 0, -9)
+            .build()
+
+        assertEquals(3, set.size)
+        assertTrue(BlockPos(1, 2, 3) in set)
+        assertTrue(BlockPos(-4, 10, 7) in set)
+        assertFalse(BlockPos(1, 2, 4) in set)
+
+        assertEquals(-4, set.minX)
+        assertEquals(0, set.minY)
+        assertEquals(-9, set.minZ)
+        assertEquals(1, set.maxX)
+        assertEquals(10, set.maxY)
+        assertEquals(7, set.maxZ)
+
+        val visited = HashSet<BlockPos>()
+        set.forEach { visited += it.toImmutable() }
+        assertEquals(setOf(BlockPos(1, 2, 3), BlockPos(-4, 10, 7), BlockPos(0, 0, -9)), visited)
+        assertEquals(visited, set.toBlockPosList().toSet())
+    }
+
+    @Test
+    fun `content comparison ignores insertion order`() {
+        val old = build((0 until 10).map { BlockPos(it, 64, 0) })
+        val new = build((3 until 13).map { BlockPos(it, 64, 0) })
+
+        assertTrue(old.contentEquals(build((9 downTo 0).map { BlockPos(it, 64, 0) })))
+        assertFalse(old.contentEquals(new))
+    }
+
+    @Test
+    fun `insertion order keeps first occurrences`() {
+        val (set, order) = StructurePositionSet.Builder()
+            .add(5, 0, 0)
+            .add(-1, 0, 0)
+            .add(5, 0, 0)
+            .add(2, 0, 0)
+            .buildWithOrder()
+
+        assertEquals(3, set.size)
+        assertEquals(listOf(BlockPos(5, 0, 0), BlockPos(-1, 0, 0), BlockPos(2, 0, 0)), order.map { BlockPos.fromLong(it) })
+        // Sorted view is unaffected by the order pass.
+        assertEquals(listOf(BlockPos(-1, 0, 0), BlockPos(2, 0, 0), BlockPos(5, 0, 0)).map { it.toLong() }, (0 until 3).map { set.packedAt(it) })
+    }
+
+    @Test
+    fun `empty set`() {
+        val empty = StructurePositionSet.Builder().build()
+        assertTrue(empty.isEmpty())
+        assertTrue(empty.contentEquals(StructurePositionSet.EMPTY))
+        assertFalse(BlockPos.ORIGIN in empty)
+    }
+
+    private fun build(positions: List<BlockPos>): StructurePositionSet {
+        val builder = StructurePositionSet.Builder()
+        positions.forEach { builder.add(it) }
+        return builder.build()
+    }
+}
@@ -0,0 +1,63 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate
+
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
+import github.kasuminova.prototypemachinery.impl.machine.structure.TileEntityChangeStamp
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.math.BlockPos
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class NbtMatchCacheTest {
+
+    private val previousTicks = MachineTuning.nbtPredicateCacheTicks
+
+    @BeforeEach
+    fun setUp() {
+        MachineTuning.nbtPredicateCacheTicks = 200
+    }
+
+    @AfterEach
+    fun tearDown() {
+        MachineTuning.nbtPredicateCacheTicks = previousTicks
+    }
+
+    @Test
+    fun `sweep drops invalidated and expired entries`() {
+        val cache = NbtMatchCache()
+        val live = StampedTileEntity()
+        val broken = StampedTileEntity()
+        val old = StampedTileEntity()
+
+        cache.put(BlockPos(0, 0, 0), live, worldTime = 150L, result = true)
+        cache.put(BlockPos(1, 0, 0), broken, worldTime = 150L, result = true)
+        cache.put(BlockPos(2, 0, 0), old, worldTime = 0L, result = false)
+        broken.invalidate()
+
+        cache.sweep(worldTime = 250L)
+
+        assertEquals(1, cache.size)
+        assertEquals(true, cache.get(BlockPos(0, 0, 0), live, worldTime = 250L))
+        assertNull(cache.get(BlockPos(2, 0, 0), old, worldTime = 250L))
+    }
+
+    @Test
+    fun `puts sweep periodically so broken blocks do not accumulate`() {
+        val cache = NbtMatchCache()
+        repeat(255) { i ->
+            val te = StampedTileEntity()
+            cache.put(BlockPos(i, 0, 0), te, worldTime = 10L, result = true)
+            te.invalidate()
+        }
+        assertEquals(255, cache.size)
+
+        cache.put(BlockPos(0, 1, 0), StampedTileEntity(), worldTime = 10L, result = true)
+        assertEquals(1, cache.size)
+    }
+
+    private class StampedTileEntity : TileEntity(), TileEntityChangeStamp {
+        override fun `prototypemachinery$getChangeStamp`(): Long = 1L
+    }
+}
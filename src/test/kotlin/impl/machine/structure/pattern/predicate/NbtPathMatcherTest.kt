@@ -0,0 +1,76 @@
+package github.kasuminova.prototypemachinery.impl.machine.structure.pattern.predicate
+
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.nbt.NBTTagList
+import net.minecraft.nbt.NBTTagString
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class NbtPathMatcherTest {
+
+    private fun sampleTag(): NBTTagCompound {
+        val inner = NBTTagCompound()
+        inner.setInteger("Level", 3)
+        inner.setString("Mode", "fast")
+
+        val items = NBTTagList()
+        items.appendTag(NBTTagString("first"))
+        items.appendTag(NBTTagString("second"))
+
+        val root = NBTTagCompound()
+        root.setByte("Active", 1)
+        root.setFloat("Speed", 0.1f)
+        root.setDouble("Ratio", 10.0)
+        root.setLong("Energy", 123_456_789_012L)
+        root.setString("Owner", "alice")
+        root.setString("flat.key", "legacy")
+        root.setTag("Config", inner)
+        root.setTag("Items", items)
+        return root
+    }
+
+    @Test
+    fun `numeric tags compare by value with or without SNBT suffixes`() {
+        val tag = sampleTag()
+        assertTrue(NbtPathMatcher.compile("Active", "1b").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Active", "1").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Active", "0b").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Speed", "0.1f").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Ratio", "10").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Energy", "123456789012L").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Energy", "123456789013").matches(tag))
+    }
+
+    @Test
+    fun `string tags compare as strings`() {
+        val tag = sampleTag()
+        assertTrue(NbtPathMatcher.compile("Owner", "alice").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Owner", "\"alice\"").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Owner", "bob").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Missing", "alice").matches(tag))
+    }
+
+    @Test
+    fun `nested compound and list paths resolve`() {
+        val tag = sampleTag()
+        assertTrue(NbtPathMatcher.compile("Config.Level", "3").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Config.Mode", "fast").matches(tag))
+        assertTrue(NbtPathMatcher.compile("Items[1]", "second").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Items[2]", "second").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Config.Level.Deeper", "3").matches(tag))
+        assertFalse(NbtPathMatcher.compile("Items[x]", "first").matches(tag))
+    }
+
+    @Test
+    fun `root key equal to the whole path wins over nested lookup`() {
+        assertTrue(NbtPathMatcher.compile("flat.key", "legacy").matches(sampleTag()))
+    }
+
+    @Test
+    fun `complex tags fall back to toString`() {
+        val tag = sampleTag()
+        val expected = tag.getTag("Config").toString()
+        assertTrue(NbtPathMatcher.compile("Config", expected).matches(tag))
+    }
+}
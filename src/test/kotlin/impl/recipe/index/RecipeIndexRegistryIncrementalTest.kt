@@ -0,0 +1,229 @@
+package github.kasuminova.prototypemachinery.impl.recipe.index
+
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentType
+import github.kasuminova.prototypemachinery.api.machine.structure.MachineStructure
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.index.RecipeIndex
+import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndex
+import github.kasuminova.prototypemachinery.api.recipe.index.RequirementIndexFactory
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementTypes
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.impl.recipe.RecipeManagerImpl
+import github.kasuminova.prototypemachinery.impl.recipe.index.type.EnergyRequirementIndex
+import github.kasuminova.prototypemachinery.impl.recipe.requirement.EnergyRequirementComponent
+import net.minecraft.util.ResourceLocation
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+class RecipeIndexRegistryIncrementalTest {
+
+    private val group = ResourceLocation("test", "index_group")
+    private val type = DummyMachineType(setOf(group))
+
+    private lateinit var snapshot: RecipeManagerImpl.Snapshot
+
+    @BeforeEach
+    fun setUp() {
+        snapshot = RecipeManagerImpl.snapshotForTests()
+        RecipeManagerImpl.clearForTests()
+        RecipeIndexRegistry.resetForTests()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        RecipeIndexRegistry.resetForTests()
+        RecipeManagerImpl.restoreForTests(snapshot)
+    }
+
+    private fun build() {
+        RecipeIndexRegistry.buildIndices(listOf(type)) { t -> RecipeManagerImpl.getByGroups(t.recipeGroups).toList() }
+    }
+
+    @Test
+    fun `recipes added after the initial build are indexed`() {
+        build()
+        assertNull(RecipeIndexRegistry.getIndex(type))
+
+        val r1 = energyRecipe("r1", 500L)
+        RecipeManagerImpl.register(r1)
+        RecipeIndexRegistry.onRecipeAdded(r1)
+
+        val first = RecipeIndexRegistry.getIndex(type)
+        assertNotNull(first)
+
+        val r2 = energyRecipe("r2", 100L)
+        val r3 = energyRecipe("r3", 500L)
+        for (r in listOf(r2, r3)) {
+            RecipeManagerImpl.register(r)
+            RecipeIndexRegistry.onRecipeAdded(r)
+        }
+
+        // Copy-on-write: the previously published index is never mutated.
+        assertNotSame(first, RecipeIndexRegistry.getIndex(type))
+
+        val incremental = energyIndexOf()
+        val rebuilt = EnergyRequirementIndex.create(type, listOf(r1, r2, r3)) as EnergyRequirementIndex
+        assertArrayEquals(rebuilt.requiredEnergies, incremental.requiredEnergies)
+        assertEquals(rebuilt.recipesByRequired.map { it.id }, incremental.recipesByRequired.map { it.id })
+    }
+
+    @Test
+    fun `removing the last recipe drops the index`() {
+        val r1 = energyRecipe("r1", 10L)
+        RecipeManagerImpl.register(r1)
+        build()
+        assertNotNull(RecipeIndexRegistry.getIndex(type))
+
+        RecipeManagerImpl.remove("r1")
+        RecipeIndexRegistry.onRecipeRemoved(r1)
+        assertNull(RecipeIndexRegistry.getIndex(type))
+    }
+
+    @Test
+    fun `unrelated groups do not touch the index`() {
+        val r1 = energyRecipe("r1", 10L)
+        RecipeManagerImpl.register(r1)
+        build()
+        val before = RecipeIndexRegistry.getIndex(type)
+
+        val other = energyRecipe("other", 5L, groups = setOf(ResourceLocation("test", "other_group")))
+        RecipeManagerImpl.register(other)
+        RecipeIndexRegistry.onRecipeAdded(other)
+
+        assertSame(before, RecipeIndexRegistry.getIndex(type))
+    }
+
+    @Test
+    fun `bulk updates are applied by the async rebuild`() {
+        val r1 = energyRecipe("r1", 10L)
+        RecipeManagerImpl.register(r1)
+        build()
+        val before = RecipeIndexRegistry.getIndex(type)
+
+        RecipeIndexRegistry.beginBulkUpdate()
+        val r2 = energyRecipe("r2", 5L)
+        RecipeManagerImpl.register(r2)
+        RecipeIndexRegistry.onRecipeAdded(r2)
+
+        // Still serving the last complete index while the bulk update is pending.
+        assertSame(before, RecipeIndexRegistry.getIndex(type))
+
+        RecipeIndexRegistry.rebuildAsync().get(10, TimeUnit.SECONDS)
+        assertEquals(listOf("r2", "r1"), energyIndexOf().recipesByRequired.map { it.id })
+    }
+
+    @Test
+    fun `a failed bulk rebuild falls back to unindexed scanning and recovers`() {
+        val r1 = energyRecipe("r1", 10L)
+        RecipeManagerImpl.register(r1)
+        var failLookup = false
+        RecipeIndexRegistry.buildIndices(listOf(type)) { t ->
+            check(!failLookup) { "lookup failed" }
+            RecipeManagerImpl.getByGroups(t.recipeGroups).toList()
+        }
+        assertNotNull(RecipeIndexRegistry.getIndex(type))
+
+        RecipeIndexRegistry.beginBulkUpdate()
+        failLookup = true
+        assertThrows(ExecutionException::class.java) {
+            RecipeIndexRegistry.rebuildAsync().get(10, TimeUnit.SECONDS)
+        }
+        // The stale index is no longer served, and later events are not patched onto partial state.
+        assertNull(RecipeIndexRegistry.getIndex(type))
+        val r2 = energyRecipe("r2", 5L)
+        RecipeManagerImpl.register(r2)
+        RecipeIndexRegistry.onRecipeAdded(r2)
+        assertNull(RecipeIndexRegistry.getIndex(type))
+
+        failLookup = false
+        RecipeIndexRegistry.rebuildAsync().get(10, TimeUnit.SECONDS)
+        assertEquals(listOf("r2", "r1"), energyIndexOf().recipesByRequired.map { it.id })
+
+        // Incremental updates resume once a rebuild succeeded.
+        val r3 = energyRecipe("r3", 1L)
+        RecipeManagerImpl.register(r3)
+        RecipeIndexRegistry.onRecipeAdded(r3)
+        assertEquals(listOf("r3", "r2", "r1"), energyIndexOf().recipesByRequired.map { it.id })
+    }
+
+    @Test
+    fun `a factory that declined the previous recipes is rebuilt from all recipes`() {
+        val factory = ThresholdFactory(minRecipes = 2)
+        RecipeIndexRegistry.registerFactory(factory)
+        try {
+            val r1 = energyRecipe("r1", 10L)
+            RecipeManagerImpl.register(r1)
+            build()
+            assertEquals(0, RecipeIndexRegistry.getIndex(type)!!.indicesOf<ThresholdIndex>().size)
+
+            val r2 = energyRecipe("r2", 5L)
+            RecipeManagerImpl.register(r2)
+            RecipeIndexRegistry.onRecipeAdded(r2)
+
+            val index = RecipeIndexRegistry.getIndex(type)!!.indicesOf<ThresholdIndex>().single()
+            assertEquals(setOf("r1", "r2"), index.recipes.map { it.id }.toSet())
+        } finally {
+            RecipeIndexRegistry.unregisterFactoryForTests(factory)
+        }
+    }
+
+    private inline fun <reified T> RecipeIndex.indicesOf(): List<T> {
+        val field = javaClass.getDeclaredField("indices").apply { isAccessible = true }
+        @Suppress("UNCHECKED_CAST")
+        return (field.get(this) as List<Any>).filterIsInstance<T>()
+    }
+
+    private fun energyIndexOf(): EnergyRequirementIndex {
+        val index = RecipeIndexRegistry.getIndex(type)!!
+        val field = index.javaClass.getDeclaredField("indices").apply { isAccessible = true }
+        @Suppress("UNCHECKED_CAST")
+        return (field.get(index) as List<Any>).filterIsInstance<EnergyRequirementIndex>().single()
+    }
+
+    private fun energyRecipe(id: String, input: Long, groups: Set<ResourceLocation> = setOf(group)): MachineRecipe =
+        DummyRecipe(
+            id = id,
+            recipeGroups = groups,
+            requirements = mapOf(RecipeRequirementTypes.ENERGY to listOf(EnergyRequirementComponent(id = "e", input = input))),
+        )
+
+    /** Non-incremental factory that only indexes once a type has at least [minRecipes] recipes. */
+    private class ThresholdFactory(private val minRecipes: Int) : RequirementIndexFactory {
+        override val requirementType: RecipeRequirementType<*> = RecipeRequirementTypes.ENERGY
+
+        override fun create(machineType: MachineType, recipes: List<MachineRecipe>): RequirementIndex? =
+            if (recipes.size < minRecipes) null else ThresholdIndex(recipes.toSet())
+    }
+
+    private class ThresholdIndex(val recipes: Set<MachineRecipe>) : RequirementIndex {
+        override fun lookup(machine: MachineInstance): Set<MachineRecipe> = recipes
+    }
+
+    private class DummyRecipe(
+        override val id: String,
+        override val recipeGroups: Set<ResourceLocation>,
+        override val durationTicks: Int = 10,
+        override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> = emptyMap(),
+    ) : MachineRecipe
+
+    private class DummyMachineType(override val recipeGroups: Set<ResourceLocation>) : MachineType {
+        override val id: ResourceLocation = ResourceLocation("test", "index_machine")
+        override val name: String = "index_machine"
+        override val structure: MachineStructure
+            get() = throw UnsupportedOperationException()
+        override val componentTypes: Set<MachineComponentType<*>> = emptySet()
+    }
+}
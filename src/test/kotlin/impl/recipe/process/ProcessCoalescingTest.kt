@@ -0,0 +1,316 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process
+
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.attribute.StandardMachineAttributes
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponent
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentMap
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentType
+import github.kasuminova.prototypemachinery.api.machine.component.system.MachineSystem
+import github.kasuminova.prototypemachinery.api.machine.component.type.FactoryRecipeProcessorComponent
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.process.ProcessResult
+import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcess
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.system.RecipeRequirementSystem
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.system.RequirementTransaction
+import github.kasuminova.prototypemachinery.api.tuning.MachineTuning
+import github.kasuminova.prototypemachinery.api.util.RecipeParallelism
+import github.kasuminova.prototypemachinery.api.util.probability.ChanceMath
+import github.kasuminova.prototypemachinery.api.util.probability.CounterRandom
+import github.kasuminova.prototypemachinery.api.util.probability.WeightedSampling
+import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeModifierImpl
+import github.kasuminova.prototypemachinery.impl.machine.attribute.OverlayMachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.FactoryRecipeProcessorComponentImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.system.FactoryRecipeProcessorSystem
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.CoalescedProcessComponentType
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.RecipeLifecycleStateProcessComponentType
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.ResourceLocation
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class ProcessCoalescingTest {
+
+    private val previous = MachineTuning.enableProcessCoalescing
+
+    @BeforeEach
+    fun enable() {
+        MachineTuning.enableProcessCoalescing = true
+    }
+
+    @AfterEach
+    fun restore() {
+        MachineTuning.enableProcessCoalescing = previous
+    }
+
+    @Test
+    fun `identical processes started on the same tick are merged`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+        val a = process(machine, recipe, seed = 11L, parallels = 2)
+        val b = process(machine, recipe, seed = 22L, parallels = 3)
+
+        assertTrue(processor.startProcess(a))
+        assertTrue(processor.startProcess(b))
+
+        assertEquals(listOf<RecipeProcess>(a), processor.activeProcesses.toList())
+        assertEquals(5, RecipeParallelism.getParallelism(a))
+        assertEquals(2, a[CoalescedProcessComponentType]!!.size)
+    }
+
+    @Test
+    fun `chance rolls match the separate processes`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+        val a = process(machine, recipe, seed = 101L, parallels = 7)
+        val b = process(machine, recipe, seed = 202L, parallels = 9)
+        processor.startProcess(a)
+        processor.startProcess(b)
+
+        val salt = CounterRandom.salt(CounterRandom.salt("test"), "chance")
+        for (tick in 0L until 32L) {
+            val separate = ChanceMath.sampleTimes(CounterRandom.stream(101L, salt, tick), 7, 37.5) +
+                ChanceMath.sampleTimes(CounterRandom.stream(202L, salt, tick), 9, 37.5)
+            assertEquals(separate, ProcessCoalescing.sampleTimes(a, salt, tick, 16, 37.5), "tick $tick")
+        }
+    }
+
+    @Test
+    fun `random output picks match the separate processes`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+        val a = process(machine, recipe, seed = 303L, parallels = 5)
+        val b = process(machine, recipe, seed = 404L, parallels = 11)
+        processor.startProcess(a)
+        processor.startProcess(b)
+        assertEquals(2, a[CoalescedProcessComponentType]!!.size)
+
+        val pool = listOf(
+            WeightedSampling.Weighted("ingot", 5),
+            WeightedSampling.Weighted("dust", 3),
+            WeightedSampling.Weighted("gem", 1),
+        )
+        val salt = CounterRandom.salt(CounterRandom.salt("test"), "end")
+        val randomSalt = CounterRandom.salt(CounterRandom.salt("test"), "end:random")
+
+        // Mirrors the item / fluid output stage: roll executions, then draw picks once per execution.
+        fun picksOf(process: RecipeProcess, parallels: Int): Map<String, Int> {
+            val counts = HashMap<String, Int>()
+            ProcessCoalescing.sampleMemberTimes(process, salt, 0L, parallels, 62.5).forEachDraw(randomSalt) { stream ->
+                for (k in WeightedSampling.sampleWithoutReplacement(stream, pool, 2)) counts.merge(k, 1, Int::plus)
+            }
+            return counts
+        }
+
+        val separate = HashMap(picksOf(process(machine, recipe, seed = 303L, parallels = 5), 5))
+        picksOf(process(machine, recipe, seed = 404L, parallels = 11), 11).forEach { (k, v) -> separate.merge(k, v, Int::plus) }
+
+        assertEquals(separate, picksOf(a, 16))
+        assertEquals(
+            ProcessCoalescing.sampleTimes(a, salt, 0L, 16, 62.5),
+            ProcessCoalescing.sampleMemberTimes(a, salt, 0L, 16, 62.5).total,
+        )
+    }
+
+    @Test
+    fun `started or diverging processes are not merged`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+
+        val started = process(machine, recipe, seed = 1L, parallels = 1)
+        processor.startProcess(started)
+        started.components.addTail(
+            RecipeLifecycleStateProcessComponentType,
+            RecipeLifecycleStateProcessComponentType.createComponent(started).also { it.started = true }
+        )
+        assertTrue(processor.startProcess(process(machine, recipe, seed = 2L, parallels = 1)))
+        assertEquals(2, processor.activeProcesses.size)
+
+        val other = process(machine, recipeOf(BlockingSystem(blocked = false)), seed = 3L, parallels = 1)
+        processor.startProcess(other)
+        assertEquals(3, processor.activeProcesses.size)
+        assertNull(other[CoalescedProcessComponentType])
+    }
+
+    @Test
+    fun `blocked merged start splits back into the original processes`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        val recipe = recipeOf(BlockingSystem(blocked = true))
+        val a = process(machine, recipe, seed = 5L, parallels = 4)
+        val b = process(machine, recipe, seed = 6L, parallels = 2)
+        processor.startProcess(a)
+        processor.startProcess(b)
+
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+
+        assertEquals(2, processor.activeProcesses.size)
+        assertSame(a, processor.activeProcesses.first())
+        assertEquals(4, RecipeParallelism.getParallelism(a))
+        assertNull(a[CoalescedProcessComponentType])
+
+        val restored = processor.activeProcesses.last()
+        assertEquals(6L, restored.seed)
+        assertEquals(2, RecipeParallelism.getParallelism(restored))
+        assertTrue(processor.coalescingCandidates.isEmpty())
+    }
+
+    @Test
+    fun `merged process runs through the processor tick as one`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        val system = BlockingSystem(blocked = false)
+        val recipe = recipeOf(system, durationTicks = 3)
+        processor.startProcess(process(machine, recipe, seed = 1L, parallels = 2))
+        processor.startProcess(process(machine, recipe, seed = 2L, parallels = 3))
+
+        repeat(3) { FactoryRecipeProcessorSystem.onTick(machine, processor) }
+
+        assertEquals(listOf(5), system.startParallels)
+        assertEquals(listOf(5), system.endParallels)
+        assertTrue(processor.activeProcesses.isEmpty())
+    }
+
+    @Test
+    fun `members keep their slots and a split restores all of them`() {
+        val (machine, processor) = setup(maxConcurrent = 3)
+        val system = BlockingSystem(blocked = true)
+        val recipe = recipeOf(system)
+        for (seed in 5L..7L) assertTrue(processor.startProcess(process(machine, recipe, seed = seed, parallels = 1)))
+
+        assertEquals(1, processor.activeProcesses.size)
+        assertEquals(3, processor.slotsInUse())
+        assertFalse(processor.startProcess(process(machine, recipe, seed = 8L, parallels = 1)))
+        assertFalse(processor.startProcess(process(machine, recipeOf(system), seed = 9L, parallels = 1)))
+
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+        assertEquals(listOf(5L, 6L, 7L), processor.activeProcesses.map { it.seed })
+        assertEquals(3, processor.slotsInUse())
+
+        // Restored members start on their own from the next tick.
+        system.blocked = false
+        FactoryRecipeProcessorSystem.onTick(machine, processor)
+        assertEquals(listOf(1, 1, 1), system.startParallels)
+    }
+
+    @Test
+    fun `merges stay within the machine parallelism limit`() {
+        val (machine, processor) = setup(maxConcurrent = 4, machineParallelism = 4)
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+        val a = process(machine, recipe, seed = 1L, parallels = 3)
+        processor.startProcess(a)
+        processor.startProcess(process(machine, recipe, seed = 2L, parallels = 2))
+
+        assertEquals(2, processor.activeProcesses.size)
+        assertEquals(3, RecipeParallelism.getParallelism(a))
+
+        processor.startProcess(process(machine, recipe, seed = 3L, parallels = 1))
+        assertEquals(2, processor.activeProcesses.size)
+        assertEquals(4, RecipeParallelism.getParallelism(a))
+    }
+
+    @Test
+    fun `parallelism modifiers keep processes separate`() {
+        val (machine, processor) = setup(maxConcurrent = 4)
+        machine.attributeMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM, defaultBase = 1.0)
+            .addModifier(MachineAttributeModifierImpl.addition("bonus", 1.0))
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+
+        processor.startProcess(process(machine, recipe, seed = 1L, parallels = 2))
+        processor.startProcess(process(machine, recipe, seed = 2L, parallels = 3))
+
+        assertEquals(2, processor.activeProcesses.size)
+        assertNull(processor.activeProcesses.first()[CoalescedProcessComponentType])
+    }
+
+    @Test
+    fun `disabled tuning keeps processes separate`() {
+        MachineTuning.enableProcessCoalescing = false
+        val (machine, processor) = setup(maxConcurrent = 1)
+        val recipe = recipeOf(BlockingSystem(blocked = false))
+
+        assertTrue(processor.startProcess(process(machine, recipe, seed = 1L, parallels = 1)))
+        assertFalse(processor.startProcess(process(machine, recipe, seed = 2L, parallels = 1)))
+    }
+
+    private fun setup(maxConcurrent: Int, machineParallelism: Int = 64): Pair<DummyMachine, FactoryRecipeProcessorComponentImpl> {
+        val machine = DummyMachine()
+        machine.attributeMap.getOrCreateAttribute(StandardMachineAttributes.MAX_CONCURRENT_PROCESSES, defaultBase = 1.0).base =
+            maxConcurrent.toDouble()
+        machine.attributeMap.getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM, defaultBase = 1.0).base =
+            machineParallelism.toDouble()
+        return machine to FactoryRecipeProcessorComponentImpl(ProcessorType, machine)
+    }
+
+    private fun process(machine: MachineInstance, recipe: MachineRecipe, seed: Long, parallels: Int): RecipeProcessImpl {
+        val process = RecipeProcessImpl(machine, recipe, seed)
+        (process.attributeMap as OverlayMachineAttributeMapImpl)
+            .getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM, defaultBase = 1.0).base = parallels.toDouble()
+        return process
+    }
+
+    private fun recipeOf(system: BlockingSystem, durationTicks: Int = 20): MachineRecipe {
+        val type = DummyReqType(system)
+        return object : MachineRecipe {
+            override val id: String = "coalesce"
+            override val durationTicks: Int = durationTicks
+            override val recipeGroups: Set<ResourceLocation> = emptySet()
+            override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> =
+                mapOf(type to listOf(DummyReqComponent(type)))
+        }
+    }
+
+    private object ProcessorType : MachineComponentType<FactoryRecipeProcessorComponent> {
+        override val id: ResourceLocation = ResourceLocation("test", "processor")
+        override val system: MachineSystem<FactoryRecipeProcessorComponent>? = null
+        override fun createComponent(machine: MachineInstance): FactoryRecipeProcessorComponent = error("unused")
+    }
+
+    private data class DummyReqComponent(override val type: RecipeRequirementType<*>) : RecipeRequirementComponent
+
+    private class DummyReqType(override val system: RecipeRequirementSystem<DummyReqComponent>) : RecipeRequirementType<DummyReqComponent> {
+        override val id: ResourceLocation = ResourceLocation("test", "coalesce")
+    }
+
+    private class BlockingSystem(var blocked: Boolean) : RecipeRequirementSystem<DummyReqComponent> {
+        // Parallelism of every start / end that went through.
+        val startParallels = ArrayList<Int>()
+        val endParallels = ArrayList<Int>()
+
+        override fun start(process: RecipeProcess, component: DummyReqComponent): RequirementTransaction {
+            if (blocked) {
+                return object : RequirementTransaction {
+                    override val result: ProcessResult = ProcessResult.Blocked("blocked")
+                    override fun commit() {}
+                    override fun rollback() {}
+                }
+            }
+            startParallels += RecipeParallelism.getParallelism(process)
+            return RequirementTransaction.NoOpSuccess
+        }
+
+        override fun onEnd(process: RecipeProcess, component: DummyReqComponent): RequirementTransaction {
+            endParallels += RecipeParallelism.getParallelism(process)
+            return RequirementTransaction.NoOpSuccess
+        }
+    }
+
+    private class DummyMachine : MachineInstance {
+        override val type: MachineType get() = throw UnsupportedOperationException()
+        override val blockEntity: BlockEntity = object : TileEntity() {}
+        override val componentMap: MachineComponentMap get() = throw UnsupportedOperationException()
+        override val structureComponentMap: StructureComponentMapImpl = StructureComponentMapImpl()
+        override val attributeMap: MachineAttributeMapImpl = MachineAttributeMapImpl()
+        override fun isFormed(): Boolean = true
+        override fun syncComponent(component: MachineComponent.Synchronizable) {}
+    }
+}
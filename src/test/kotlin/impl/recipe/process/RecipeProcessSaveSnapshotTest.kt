@@ -0,0 +1,134 @@
+package github.kasuminova.prototypemachinery.impl.recipe.process
+
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.attribute.StandardMachineAttributes
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponent
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentMap
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.process.RecipeProcessStatus
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.attribute.OverlayMachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.RecipeLifecycleStateProcessComponentType
+import github.kasuminova.prototypemachinery.impl.recipe.process.component.RequirementResolutionProcessComponentType
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.ResourceLocation
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+
+class RecipeProcessSaveSnapshotTest {
+
+    @Test
+    fun `unchanged process reuses its snapshot`() {
+        val process = process()
+        val first = process.saveSnapshot()
+        assertSame(first, process.saveSnapshot())
+    }
+
+    @Test
+    fun `snapshot matches serializeNBT plus recipe id`() {
+        val process = process()
+        process.status = RecipeProcessStatus(progress = 7.5f, message = "Working")
+
+        val expected = process.serializeNBT().also { it.setString("RecipeID", RECIPE.id) }
+        assertEquals(expected, process.saveSnapshot())
+    }
+
+    @Test
+    fun `status change rebuilds the header only`() {
+        val process = process()
+        val first = process.saveSnapshot()
+
+        process.status = RecipeProcessStatus(progress = 1.0f)
+        val second = process.saveSnapshot()
+
+        assertNotSame(first, second)
+        assertEquals(1.0f, second.getCompoundTag("Status").getFloat("Progress"))
+        assertSame(first.getTag("Components"), second.getTag("Components"))
+        assertSame(first.getTag("Attributes"), second.getTag("Attributes"))
+    }
+
+    @Test
+    fun `component change rewrites only that component`() {
+        val process = process()
+        val first = process.saveSnapshot()
+        val lifecycleKey = RecipeLifecycleStateProcessComponentType.id.toString()
+        val resolutionKey = RequirementResolutionProcessComponentType.id.toString()
+
+        process[RecipeLifecycleStateProcessComponentType]!!.started = true
+        val second = process.saveSnapshot()
+
+        val firstComponents = first.getCompoundTag("Components")
+        val secondComponents = second.getCompoundTag("Components")
+        assertNotSame(firstComponents, secondComponents)
+        assertEquals(true, secondComponents.getCompoundTag(lifecycleKey).getBoolean("Started"))
+        assertSame(firstComponents.getTag(resolutionKey), secondComponents.getTag(resolutionKey))
+    }
+
+    @Test
+    fun `local attribute change rewrites attributes`() {
+        val process = process()
+        val first = process.saveSnapshot()
+
+        (process.attributeMap as OverlayMachineAttributeMapImpl)
+            .getOrCreateAttribute(StandardMachineAttributes.PROCESS_PARALLELISM, defaultBase = 1.0).base = 4.0
+        val second = process.saveSnapshot()
+
+        assertNotSame(first.getTag("Attributes"), second.getTag("Attributes"))
+        assertSame(first.getTag("Components"), second.getTag("Components"))
+    }
+
+    @Test
+    fun `loading invalidates the snapshot`() {
+        val source = process()
+        source.status = RecipeProcessStatus(progress = 3.0f)
+        val saved: NBTTagCompound = source.saveSnapshot()
+
+        val loaded = process()
+        val before = loaded.saveSnapshot()
+        loaded.deserializeNBT(saved)
+
+        val after = loaded.saveSnapshot()
+        assertNotSame(before, after)
+        assertEquals(saved, after)
+    }
+
+    private fun process(): RecipeProcessImpl {
+        val process = RecipeProcessImpl(DummyMachine(), RECIPE, seed = 42L)
+        process.components.addTail(
+            RecipeLifecycleStateProcessComponentType,
+            RecipeLifecycleStateProcessComponentType.createComponent(process)
+        )
+        process.components.addTail(
+            RequirementResolutionProcessComponentType,
+            RequirementResolutionProcessComponentType.createComponent(process)
+        )
+        return process
+    }
+
+    private class DummyMachine : MachineInstance {
+        override val type: MachineType get() = throw UnsupportedOperationException()
+        override val blockEntity: BlockEntity = object : TileEntity() {}
+        override val componentMap: MachineComponentMap get() = throw UnsupportedOperationException()
+        override val structureComponentMap: StructureComponentMapImpl = StructureComponentMapImpl()
+        override val attributeMap: MachineAttributeMapImpl = MachineAttributeMapImpl()
+        override fun isFormed(): Boolean = true
+        override fun syncComponent(component: MachineComponent.Synchronizable) {}
+    }
+
+    private companion object {
+        val RECIPE: MachineRecipe = object : MachineRecipe {
+            override val id: String = "snapshot"
+            override val durationTicks: Int = 20
+            override val recipeGroups: Set<ResourceLocation> = emptySet()
+            override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> = emptyMap()
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package github.kasuminova.prototypemachinery.impl.recipe.scanning.constraint
+
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeMap
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponent
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentMap
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementTypes
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.api.util.PortMode
+import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.container.StructureEnergyContainerComponent
+import github.kasuminova.prototypemachinery.impl.recipe.requirement.EnergyRequirementComponent
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.ResourceLocation
+import net.minecraftforge.energy.EnergyStorage
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class EnergyRecipeParallelismConstraintTest {
+
+    private val constraint = EnergyRecipeParallelismConstraint(RecipeRequirementTypes.ENERGY.id)
+
+    @Test
+    fun `closed form matches the largest satisfiable k`() {
+        val machine = DummyMachine()
+        machine.addPort(capacity = 10_000, stored = 1_000, PortMode.OUTPUT)
+        machine.addPort(capacity = 10_000, stored = 750, PortMode.OUTPUT)
+        machine.addPort(capacity = 2_000, stored = 500, PortMode.INPUT)
+
+        val cases = listOf(
+            EnergyRequirementComponent("start", input = 100L),
+            EnergyRequirementComponent("tick", input = 10L, inputPerTick = 300L),
+            EnergyRequirementComponent("out", output = 250L),
+            EnergyRequirementComponent("mixed", input = 7L, outputPerTick = 40L),
+            EnergyRequirementComponent("ignored", input = 1L, output = 1_000_000L, properties = mapOf("ignore_output_full" to true)),
+            EnergyRequirementComponent("too_much", input = 5_000L),
+        )
+
+        for (component in cases) {
+            for (limit in listOf(1, 3, 16, 64, 4096)) {
+                val comps = listOf(component)
+                assertEquals(
+                    bruteForce(machine, comps, limit),
+                    constraint.maxParallels(machine, recipeOf(comps), comps, limit),
+                    "${component.id} @ limit=$limit"
+                )
+            }
+        }
+    }
+
+    @Test
+    fun `missing ports yield zero`() {
+        val machine = DummyMachine()
+        machine.addPort(capacity = 1_000, stored = 1_000, PortMode.OUTPUT)
+
+        val comps = listOf(EnergyRequirementComponent("out", output = 1L))
+        assertEquals(0, constraint.maxParallels(machine, recipeOf(comps), comps, 8))
+    }
+
+    private fun bruteForce(machine: MachineInstance, comps: List<RecipeRequirementComponent>, limit: Int): Int {
+        val recipe = recipeOf(comps)
+        var best = 0
+        for (k in 1..limit) {
+            if (!constraint.canSatisfy(machine, recipe, comps, k)) break
+            best = k
+        }
+        return best
+    }
+
+    private fun recipeOf(comps: List<RecipeRequirementComponent>): MachineRecipe = object : MachineRecipe {
+        override val id: String = "test"
+        override val durationTicks: Int = 1
+        override val recipeGroups: Set<ResourceLocation> = emptySet()
+        override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> =
+            mapOf(RecipeRequirementTypes.ENERGY to comps)
+    }
+
+    private class DummyMachine : MachineInstance {
+        override val type: MachineType get() = throw UnsupportedOperationException()
+        override val blockEntity: BlockEntity = object : TileEntity() {}
+        override val componentMap: MachineComponentMap get() = throw UnsupportedOperationException()
+        override val structureComponentMap: StructureComponentMapImpl = StructureComponentMapImpl()
+        override val attributeMap: MachineAttributeMap = MachineAttributeMapImpl()
+        override fun isFormed(): Boolean = true
+        override fun syncComponent(component: MachineComponent.Synchronizable) {}
+
+        fun addPort(capacity: Int, stored: Int, mode: PortMode) {
+            val storage = EnergyStorage(capacity, capacity, capacity, stored)
+            structureComponentMap.add(StructureEnergyContainerComponent(this, null, storage, setOf(mode)))
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package github.kasuminova.prototypemachinery.impl.recipe.scanning.constraint
+
+import github.kasuminova.prototypemachinery.api.key.PMKey
+import github.kasuminova.prototypemachinery.api.key.PMKeyType
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeMap
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponent
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentMap
+import github.kasuminova.prototypemachinery.api.machine.component.container.StructureFluidKeyContainer
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementTypes
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.api.util.PortMode
+import github.kasuminova.prototypemachinery.api.util.TransactionMode
+import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.recipe.requirement.FluidRequirementComponent
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.ResourceLocation
+import net.minecraftforge.fluids.FluidStack
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class FluidRecipeParallelismConstraintTest {
+
+    private val constraint = FluidRecipeParallelismConstraint(RecipeRequirementTypes.FLUID.id)
+
+    @Test
+    fun `closed form matches the largest satisfiable k`() {
+        val machine = DummyMachine()
+        machine.addPort(PortMode.OUTPUT, capacity = Long.MAX_VALUE, "water" to 1_000L)
+        machine.addPort(PortMode.OUTPUT, capacity = Long.MAX_VALUE, "water" to 370L, "lava" to 55L)
+        machine.addPort(PortMode.INPUT, capacity = 1_000L)
+        machine.addPort(PortMode.INPUT, capacity = 500L, "steam" to 100L)
+
+        val cases = listOf(
+            FluidRequirementComponent("start", inputs = listOf(key("water", 40L))),
+            FluidRequirementComponent("per_tick", inputsPerTick = listOf(key("water", 15L))),
+            // Start and per-tick amounts are each checked against the full stock, not summed.
+            FluidRequirementComponent("start_and_tick", inputs = listOf(key("water", 100L)), inputsPerTick = listOf(key("water", 30L))),
+            FluidRequirementComponent("duplicate_inputs", inputs = listOf(key("water", 25L), key("water", 35L))),
+            FluidRequirementComponent("two_keys", inputs = listOf(key("water", 20L), key("lava", 7L))),
+            FluidRequirementComponent("missing_key", inputsPerTick = listOf(key("milk", 1L))),
+            FluidRequirementComponent("out", outputs = listOf(key("steam", 160L))),
+            FluidRequirementComponent("out_per_tick", outputsPerTick = listOf(key("steam", 9L))),
+            FluidRequirementComponent("duplicate_outputs", outputs = listOf(key("steam", 100L), key("steam", 60L))),
+            FluidRequirementComponent("out_over_capacity", outputs = listOf(key("steam", 100_000L))),
+            FluidRequirementComponent(
+                "ignored", inputsPerTick = listOf(key("lava", 1L)), outputs = listOf(key("steam", 1_000_000_000L)),
+                properties = mapOf("ignore_output_full" to true)
+            ),
+        )
+
+        for (component in cases) {
+            for (limit in listOf(1, 3, 16, 64, 4096)) {
+                val comps = listOf(component)
+                assertEquals(
+                    bruteForce(machine, comps, limit),
+                    constraint.maxParallels(machine, recipeOf(comps), comps, limit),
+                    "${component.id} @ limit=$limit"
+                )
+            }
+        }
+
+        // Several components constrain together.
+        val comps = listOf(cases[2], cases[4], cases[7])
+        assertEquals(bruteForce(machine, comps, 64), constraint.maxParallels(machine, recipeOf(comps), comps, 64))
+    }
+
+    @Test
+    fun `missing ports and empty requests short-circuit`() {
+        val sourcesOnly = DummyMachine()
+        sourcesOnly.addPort(PortMode.OUTPUT, capacity = Long.MAX_VALUE, "water" to 8L)
+        val targetsOnly = DummyMachine()
+        targetsOnly.addPort(PortMode.INPUT, capacity = 64L)
+
+        val input = listOf(FluidRequirementComponent("in", inputs = listOf(key("water", 1L))))
+        val output = listOf(FluidRequirementComponent("out", outputs = listOf(key("steam", 1L))))
+        val ignored = listOf(
+            FluidRequirementComponent("out", outputs = listOf(key("steam", 1L)), properties = mapOf("ignore_output_full" to true))
+        )
+
+        assertEquals(0, constraint.maxParallels(targetsOnly, recipeOf(input), input, 8))
+        val perTick = listOf(FluidRequirementComponent("tick", inputsPerTick = listOf(key("water", 1L))))
+        assertEquals(0, constraint.maxParallels(targetsOnly, recipeOf(perTick), perTick, 8))
+        assertEquals(0, constraint.maxParallels(sourcesOnly, recipeOf(output), output, 8))
+        assertEquals(8, constraint.maxParallels(sourcesOnly, recipeOf(ignored), ignored, 8))
+        assertEquals(8, constraint.maxParallels(sourcesOnly, recipeOf(input), input, 8))
+        assertEquals(0, constraint.maxParallels(sourcesOnly, recipeOf(input), input, 0))
+        assertEquals(5, constraint.maxParallels(sourcesOnly, recipeOf(emptyList()), emptyList(), 5))
+    }
+
+    private fun bruteForce(machine: MachineInstance, comps: List<RecipeRequirementComponent>, limit: Int): Int {
+        val recipe = recipeOf(comps)
+        var best = 0
+        for (k in 1..limit) {
+            if (!constraint.canSatisfy(machine, recipe, comps, k)) break
+            best = k
+        }
+        return best
+    }
+
+    private fun recipeOf(comps: List<RecipeRequirementComponent>): MachineRecipe = object : MachineRecipe {
+        override val id: String = "test"
+        override val durationTicks: Int = 1
+        override val recipeGroups: Set<ResourceLocation> = emptySet()
+        override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> =
+            mapOf(RecipeRequirementTypes.FLUID to comps)
+    }
+
+    private fun key(id: String, count: Long): PMKey<FluidStack> = FakeKey(id, count)
+
+    private class FakeKey(val id: String, override var count: Long) : PMKey<FluidStack>() {
+        override val type: PMKeyType get() = throw UnsupportedOperationException()
+        override val internalHashCode: Int = id.hashCode()
+        override fun equals(other: Any?): Boolean = other is FakeKey && other.id == id
+        override fun copy(): PMKey<FluidStack> = FakeKey(id, count)
+        override fun writeNBT(nbt: NBTTagCompound): NBTTagCompound = nbt
+        override fun get(): FluidStack = throw UnsupportedOperationException()
+    }
+
+    /** Key-level port holding at most [capacity] mB in total. */
+    private class FakePort(
+        override val owner: MachineInstance,
+        private val mode: PortMode,
+        private val capacity: Long,
+    ) : StructureFluidKeyContainer {
+        val amounts = LinkedHashMap<String, Long>()
+
+        override val provider: Any? = null
+
+        override fun isAllowedPortMode(mode: PortMode): Boolean = mode == this.mode
+
+        override fun insert(key: PMKey<FluidStack>, amount: Long, mode: TransactionMode): Long =
+            if (this.mode == PortMode.INPUT) insertUnchecked(key, amount, mode) else 0L
+
+        override fun extract(key: PMKey<FluidStack>, amount: Long, mode: TransactionMode): Long =
+            if (this.mode == PortMode.OUTPUT) extractUnchecked(key, amount, mode) else 0L
+
+        override fun insertUnchecked(key: PMKey<FluidStack>, amount: Long, mode: TransactionMode): Long {
+            val free = capacity - amounts.values.sum()
+            val accepted = minOf(amount, free).coerceAtLeast(0L)
+            if (mode == TransactionMode.EXECUTE && accepted > 0L) {
+                val id = (key as FakeKey).id
+                amounts[id] = (amounts[id] ?: 0L) + accepted
+            }
+            return accepted
+        }
+
+        override fun extractUnchecked(key: PMKey<FluidStack>, amount: Long, mode: TransactionMode): Long {
+            val id = (key as FakeKey).id
+            val taken = minOf(amount, amounts[id] ?: 0L)
+            if (mode == TransactionMode.EXECUTE && taken > 0L) amounts[id] = amounts.getValue(id) - taken
+            return taken
+        }
+    }
+
+    private class DummyMachine : MachineInstance {
+        override val type: MachineType get() = throw UnsupportedOperationException()
+        override val blockEntity: BlockEntity = object : TileEntity() {}
+        override val componentMap: MachineComponentMap get() = throw UnsupportedOperationException()
+        override val structureComponentMap: StructureComponentMapImpl = StructureComponentMapImpl()
+        override val attributeMap: MachineAttributeMap = MachineAttributeMapImpl()
+        override fun isFormed(): Boolean = true
+        override fun syncComponent(component: MachineComponent.Synchronizable) {}
+
+        fun addPort(mode: PortMode, capacity: Long, vararg contents: Pair<String, Long>) {
+            val port = FakePort(this, mode, capacity)
+            for ((id, amount) in contents) port.amounts[id] = amount
+            structureComponentMap.add(port)
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package github.kasuminova.prototypemachinery.impl.recipe.scanning.constraint
+
+import github.kasuminova.prototypemachinery.api.key.PMKey
+import github.kasuminova.prototypemachinery.api.key.PMKeyType
+import github.kasuminova.prototypemachinery.api.machine.MachineInstance
+import github.kasuminova.prototypemachinery.api.machine.MachineType
+import github.kasuminova.prototypemachinery.api.machine.attribute.MachineAttributeMap
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponent
+import github.kasuminova.prototypemachinery.api.machine.component.MachineComponentMap
+import github.kasuminova.prototypemachinery.api.machine.component.container.StructureItemKeyContainer
+import github.kasuminova.prototypemachinery.api.recipe.MachineRecipe
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementType
+import github.kasuminova.prototypemachinery.api.recipe.requirement.RecipeRequirementTypes
+import github.kasuminova.prototypemachinery.api.recipe.requirement.component.RecipeRequirementComponent
+import github.kasuminova.prototypemachinery.api.util.PortMode
+import github.kasuminova.prototypemachinery.api.util.TransactionMode
+import github.kasuminova.prototypemachinery.common.block.entity.BlockEntity
+import github.kasuminova.prototypemachinery.impl.machine.attribute.MachineAttributeMapImpl
+import github.kasuminova.prototypemachinery.impl.machine.component.StructureComponentMapImpl
+import github.kasuminova.prototypemachinery.impl.recipe.requirement.ItemRequirementComponent
+import net.minecraft.item.ItemStack
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.tileentity.TileEntity
+import net.minecraft.util.ResourceLocation
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class ItemRecipeParallelismConstraintTest {
+
+    private val constraint = ItemRecipeParallelismConstraint(RecipeRequirementTypes.ITEM.id)
+
+    @Test
+    fun `closed form matches the largest satisfiable k`() {
+        val machine = DummyMachine()
+        machine.addPort(PortMode.OUTPUT, capacity = Long.MAX_VALUE, "iron" to 37L)
+        machine.addPort(PortMode.OUTPUT, capacity = Long.MAX_VALUE, "iron" to 20L, "gold" to 11L)
+        machine.addPort(PortMode.INPUT, capacity = 100L)
+        machine.addPort(PortMode.INPUT, capacity = 50L, "stone" to 10L)
+
+        val cases = listOf(
+            ItemRequirementComponent("start", inputs = listOf(key("iron", 4L))),
+            ItemRequirementComponent("duplicate_inputs", inputs = listOf(key("iron", 3L), key("iron", 2L))),
+            ItemRequirementComponent("two_keys", inputs = listOf(key("iron", 2L), key("gold", 3L))),
+            ItemRequirementComponent("missing_key", inputs = listOf(key("diamond", 1L))),
+            ItemRequirementComponent("out", outputs = listOf(key("stone", 16L))),
+            ItemRequirementComponent("duplicate_outputs", outputs = listOf(key("stone", 10L), key("stone", 10L))),
+            ItemRequirementComponent("out_over_capacity", outputs = listOf(key("stone", 1_000L))),
+            ItemRequirementComponent("mixed", inputs = listOf(key("iron", 1L)), outputs = listOf(key("stone", 7L))),
+            ItemRequirementComponent(
+                "ignored", inputs = listOf(key("gold", 1L)), outputs = listOf(key("stone", 1_000_000L)),
+                properties = mapOf("ignore_output_full" to true)
+            ),
+        )
+
+        for (component in cases) {
+            for (limit in listOf(1, 3, 16, 64, 4096)) {
+                val comps = listOf(component)
+                assertEquals(
+                    bruteForce(machine, comps, limit),
+                    constraint.maxParallels(machine, recipeOf(comps), comps, limit),
+                    "${component.id} @ limit=$limit"
+                )
+            }
+        }
+
+        // Several components constrain together.
+        val comps = listOf(cases[1], cases[2], cases[4])
+        assertEquals(bruteForce(machine, comps, 64), constraint.maxParallels(machine, recipeOf(comps), comps, 64))
+    }
+
+    @Test
+    fun `missing ports and empty requests short-circuit`() {
+        val sourcesOnly = DummyMachine()
+        sourcesOnly.addPort(PortMode.OUTPUT, capacity = Long.MAX_VALUE, "iron" to 8L)
+        val targetsOnly = DummyMachine()
+        targetsOnly.addPort(PortMode.INPUT, capacity = 64L)
+
+        val input = listOf(ItemRequirementComponent("in", inputs = listOf(key("iron", 1L))))
+        val output = listOf(ItemRequirementComponent("out", outputs = listOf(key("stone", 1L))))
+        val ignored = listOf(
+            ItemRequirementComponent("out", outputs = listOf(key("stone", 1L)), properties = mapOf("ignore_output_full" to true))
+        )
+
+        assertEquals(0, constraint.maxParallels(targetsOnly, recipeOf(input), input, 8))
+        assertEquals(0, constraint.maxParallels(sourcesOnly, recipeOf(output), output, 8))
+        assertEquals(8, constraint.maxParallels(sourcesOnly, recipeOf(ignored), ignored, 8))
+        assertEquals(8, constraint.maxParallels(sourcesOnly, recipeOf(input), input, 8))
+        assertEquals(0, constraint.maxParallels(sourcesOnly, recipeOf(input), input, 0))
+        assertEquals(5, constraint.maxParallels(sourcesOnly, recipeOf(emptyList()), emptyList(), 5))
+    }
+
+    private fun bruteForce(machine: MachineInstance, comps: List<RecipeRequirementComponent>, limit: Int): Int {
+        val recipe = recipeOf(comps)
+        var best = 0
+        for (k in 1..limit) {
+            if (!constraint.canSatisfy(machine, recipe, comps, k)) break
+            best = k
+        }
+        return best
+    }
+
+    private fun recipeOf(comps: List<RecipeRequirementComponent>): MachineRecipe = object : MachineRecipe {
+        override val id: String = "test"
+        override val durationTicks: Int = 1
+        override val recipeGroups: Set<ResourceLocation> = emptySet()
+        override val requirements: Map<RecipeRequirementType<*>, List<RecipeRequirementComponent>> =
+            mapOf(RecipeRequirementTypes.ITEM to comps)
+    }
+
+    private fun key(id: String, count: Long): PMKey<ItemStack> = FakeKey(id, count)
+
+    private class FakeKey(val id: String, override var count: Long) : PMKey<ItemStack>() {
+        override val type: PMKeyType get() = throw UnsupportedOperationException()
+        override val internalHashCode: Int = id.hashCode()
+        override fun equals(other: Any?): Boolean = other is FakeKey && other.id == id
+        override fun copy(): PMKey<ItemStack> = FakeKey(id, count)
+        override fun writeNBT(nbt: NBTTagCompound): NBTTagCompound = nbt
+        override fun get(): ItemStack = throw UnsupportedOperationException()
+    }
+
+    /** Key-level port holding at most [capacity] items in total. */
+    private class FakePort(
+        override val owner: MachineInstance,
+        private val mode: PortMode,
+        private val capacity: Long,
+    ) : StructureItemKeyContainer {
+        val amounts = LinkedHashMap<String, Long>()
+
+        override val provider: Any? = null
+
+        override fun isAllowedPortMode(mode: PortMode): Boolean = mode == this.mode
+
+        override fun insert(key: PMKey<ItemStack>, amount: Long, mode: TransactionMode): Long =
+            if (this.mode == PortMode.INPUT) insertUnchecked(key, amount, mode) else 0L
+
+        override fun extract(key: PMKey<ItemStack>, amount: Long, mode: TransactionMode): Long =
+            if (this.mode == PortMode.OUTPUT) extractUnchecked(key, amount, mode) else 0L
+
+        override fun insertUnchecked(key: PMKey<ItemStack>, amount: Long, mode: TransactionMode): Long {
+            val free = capacity - amounts.values.sum()
+            val accepted = minOf(amount, free).coerceAtLeast(0L)
+            if (mode == TransactionMode.EXECUTE && accepted > 0L) {
+                val id = (key as FakeKey).id
+                amounts[id] = (amounts[id] ?: 0L) + accepted
+            }
+            return accepted
+        }
+
+        override fun extractUnchecked(key: PMKey<ItemStack>, amount: Long, mode: TransactionMode): Long {
+            val id = (key as FakeKey).id
+            val taken = minOf(amount, amounts[id] ?: 0L)
+            if (mode == TransactionMode.EXECUTE && taken > 0L) amounts[id] = amounts.getValue(id) - taken
+            return taken
+        }
+    }
+
+    private class DummyMachine : MachineInstance {
+        override val type: MachineType get() = throw UnsupportedOperationException()
+        override val blockEntity: BlockEntity = object : TileEntity() {}
+        override val componentMap: MachineComponentMap get() = throw UnsupportedOperationException()
+        override val structureComponentMap: StructureComponentMapImpl = StructureComponentMapImpl()
+        override val attributeMap: MachineAttributeMap = MachineAttributeMapImpl()
+        override fun isFormed(): Boolean = true
+        override fun syncComponent(component: MachineComponent.Synchronizable) {}
+
+        fun addPort(mode: PortMode, capacity: Long, vararg contents: Pair<String, Long>) {
+            val port = FakePort(this, mode, capacity)
+            for ((id, amount) in contents) port.amounts[id] = amount
+            structureComponentMap.add(port)
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package github.kasuminova.prototypemachinery.impl.scheduler
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class HierarchicalTimerWheelTest {
+
+    @Test
+    fun `items fire exactly on their due tick across all levels`() {
+        val wheel = HierarchicalTimerWheel<Long>()
+        val dues = listOf(1L, 2L, 63L, 64L, 65L, 127L, 128L, 4095L, 4096L, 4097L, 10_000L, 262_143L, 262_144L, 300_000L)
+        for (due in dues) wheel.schedule(due, due)
+        assertEquals(dues.size, wheel.size)
+
+        val fired = HashMap<Long, Long>()
+        val out = ArrayList<Long>()
+        while (wheel.currentTick < 300_000L) {
+            wheel.advance(out)
+            for (item in out) fired[item] = wheel.currentTick
+            out.clear()
+        }
+
+        for (due in dues) assertEquals(due, fired[due], "item due at $due")
+        assertEquals(0, wheel.size)
+    }
+
+    @Test
+    fun `rescheduling from a fired tick keeps the period`() {
+        val wheel = HierarchicalTimerWheel<String>()
+        wheel.schedule("a", 3L)
+
+        val fireTicks = ArrayList<Long>()
+        val out = ArrayList<String>()
+        repeat(200) {
+            wheel.advance(out)
+            for (item in out) {
+                fireTicks += wheel.currentTick
+                wheel.schedule(item, wheel.currentTick + 20L)
+            }
+            out.clear()
+        }
+
+        assertEquals((0 until 10).map { 3L + 20L * it }, fireTicks)
+    }
+
+    @Test
+    fun `past due items fire on the next advance`() {
+        val wheel = HierarchicalTimerWheel<Int>()
+        val out = ArrayList<Int>()
+        repeat(10) { wheel.advance(out) }
+        assertTrue(out.isEmpty())
+
+        wheel.schedule(1, 5L)
+        wheel.schedule(2, 10L)
+        wheel.advance(out)
+        assertEquals(listOf(1, 2), out)
+    }
+
+    @Test
+    fun `beyond the span items are re-placed until due`() {
+        val wheel = HierarchicalTimerWheel<Int>()
+        val due = 64L * 64L * 64L * 2L + 17L
+        wheel.schedule(7, due)
+
+        val out = ArrayList<Int>()
+        while (out.isEmpty()) wheel.advance(out)
+        assertEquals(due, wheel.currentTick)
+    }
+}
@@ -0,0 +1,114 @@
+package github.kasuminova.prototypemachinery.impl.scheduler
+
+import github.kasuminova.prototypemachinery.api.scheduler.TaskPriority
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class MainThreadTaskQueueTest {
+
+    private var now = 0L
+    private val queue = MainThreadTaskQueue { now }
+
+    /** Each task "takes" [costMicros] of fake time. */
+    private fun task(log: MutableList<String>, name: String, costMicros: Long = 1000L) = Runnable {
+        log += name
+        now += costMicros * 1000L
+    }
+
+    /** One tick; [schedulableMicros] of fake machine-tick time passes between the two phases. */
+    private fun tick(schedulableMicros: Long = 0L): Int {
+        queue.beginTick()
+        val urgent = queue.runUrgent()
+        now += schedulableMicros * 1000L
+        return urgent + queue.runWithinBudget()
+    }
+
+    @Test
+    fun `deferrable work beyond the budget is deferred to the next tick`() {
+        queue.budgetMicros = 2500L
+        val log = ArrayList<String>()
+        queue.offer(task(log, "d1"), TaskPriority.DEFERRABLE)
+        queue.offer(task(log, "d2"), TaskPriority.DEFERRABLE)
+        queue.offer(task(log, "d3"), TaskPriority.DEFERRABLE)
+        queue.offer(task(log, "n1"), TaskPriority.NORMAL)
+
+        // n1 uses 1000us of the budget, leaving room for two deferrable tasks.
+        assertEquals(3, tick())
+        assertEquals(listOf("n1", "d1", "d2"), log)
+        assertEquals(1, queue.pendingCount)
+
+        assertEquals(1, tick())
+        assertEquals(listOf("n1", "d1", "d2", "d3"), log)
+        assertEquals(0, queue.pendingCount)
+    }
+
+    @Test
+    fun `critical and normal tasks ignore the budget`() {
+        queue.budgetMicros = 1L
+        val log = ArrayList<String>()
+        repeat(3) { queue.offer(task(log, "n$it"), TaskPriority.NORMAL) }
+        repeat(3) { queue.offer(task(log, "c$it"), TaskPriority.CRITICAL) }
+        queue.offer(task(log, "d"), TaskPriority.DEFERRABLE)
+
+        tick()
+        assertEquals(listOf("c0", "c1", "c2", "n0", "n1", "n2"), log)
+        assertEquals(1, queue.pendingCount)
+    }
+
+    @Test
+    fun `slow machine ticks do not count against the budget`() {
+        queue.budgetMicros = 2500L
+        val log = ArrayList<String>()
+        queue.offer(task(log, "d1"), TaskPriority.DEFERRABLE)
+        queue.offer(task(log, "d2"), TaskPriority.DEFERRABLE)
+
+        assertEquals(2, tick(schedulableMicros = 50_000L))
+        assertEquals(listOf("d1", "d2"), log)
+    }
+
+    @Test
+    fun `starved tasks are promoted after maxDeferTicks`() {
+        queue.budgetMicros = 1L
+        queue.maxDeferTicks = 3
+        val log = ArrayList<String>()
+        queue.offer(task(log, "late"), TaskPriority.DEFERRABLE)
+
+        // Normal work exhausts the budget every tick, so nothing deferrable can run.
+        repeat(3) {
+            queue.offer(task(ArrayList(), "busy", costMicros = 10L), TaskPriority.NORMAL)
+            tick()
+        }
+        assertEquals(emptyList<String>(), log)
+        assertEquals(2, queue.oldestWaitTicks())
+
+        queue.beginTick()
+        assertEquals(1, queue.runUrgent())
+        assertEquals(1, queue.promotedThisTick)
+        assertEquals(listOf("late"), log)
+    }
+
+    @Test
+    fun `zero budget means unlimited`() {
+        queue.budgetMicros = 0L
+        val log = ArrayList<String>()
+        repeat(100) { queue.offer(task(log, "t$it", costMicros = 100_000L), TaskPriority.DEFERRABLE) }
+
+        assertEquals(100, tick())
+        assertEquals(0, queue.pendingCount)
+    }
+
+    @Test
+    fun `tasks offered while draining run on the next tick`() {
+        val log = ArrayList<String>()
+        queue.offer(Runnable {
+            log += "outer"
+            queue.offer(task(log, "inner"), TaskPriority.CRITICAL)
+        }, TaskPriority.NORMAL)
+
+        assertEquals(1, tick())
+        assertEquals(listOf("outer"), log)
+
+        assertEquals(1, tick())
+        assertEquals(listOf("outer", "inner"), log)
+    }
+}
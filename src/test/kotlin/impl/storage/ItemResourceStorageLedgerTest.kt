@@ -0,0 +1,58 @@
+package github.kasuminova.prototypemachinery.impl.storage
+
+import github.kasuminova.prototypemachinery.impl.key.item.PMItemKeyImpl
+import github.kasuminova.prototypemachinery.impl.key.item.PMItemKeyType
+import github.kasuminova.prototypemachinery.impl.machine.component.container.AggregatedInputLedger
+import net.minecraft.init.Bootstrap
+import net.minecraft.init.Items
+import net.minecraft.item.Item
+import net.minecraft.item.ItemStack
+import net.minecraft.nbt.NBTTagCompound
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+
+class ItemResourceStorageLedgerTest {
+
+    companion object {
+        @JvmStatic
+        @BeforeAll
+        fun bootstrap() {
+            Bootstrap.register()
+        }
+    }
+
+    private fun key(item: Item): PMItemKeyImpl = PMItemKeyImpl(PMItemKeyType.getUniqueKey(ItemStack(item)), 1L)
+
+    @Test
+    fun `readNBT moves ledger totals to the loaded contents`() {
+        val storage = ItemResourceStorage(8, 64L)
+        storage.insert(key(Items.IRON_INGOT), 100L, false)
+        val saved = storage.writeNBT(NBTTagCompound())
+
+        storage.extract(key(Items.IRON_INGOT), 70L, false)
+        storage.insert(key(Items.GOLD_INGOT), 5L, false)
+
+        val ledger = AggregatedInputLedger(listOf(storage), emptyList(), emptyList()) { 0L }
+        assertEquals(30L, ledger.available(key(Items.IRON_INGOT), Long.MAX_VALUE))
+        assertEquals(5L, ledger.available(key(Items.GOLD_INGOT), Long.MAX_VALUE))
+
+        storage.readNBT(saved)
+        assertEquals(100L, storage.getAmount(key(Items.IRON_INGOT)))
+        assertEquals(100L, ledger.available(key(Items.IRON_INGOT), Long.MAX_VALUE))
+        assertEquals(0L, ledger.available(key(Items.GOLD_INGOT), Long.MAX_VALUE))
+    }
+
+    @Test
+    fun `clear empties ledger totals`() {
+        val storage = ItemResourceStorage(8, 64L)
+        storage.insert(key(Items.IRON_INGOT), 100L, false)
+        storage.insert(key(Items.GOLD_INGOT), 3L, false)
+
+        val ledger = AggregatedInputLedger(listOf(storage), emptyList(), emptyList()) { 0L }
+        storage.clear()
+
+        assertEquals(0L, ledger.available(key(Items.IRON_INGOT), Long.MAX_VALUE))
+        assertEquals(0L, ledger.available(key(Items.GOLD_INGOT), Long.MAX_VALUE))
+    }
+}
@@ -0,0 +1,142 @@
+package github.kasuminova.prototypemachinery.integration.crafttweaker.zenclass.data
+
+import net.minecraft.nbt.NBTTagCompound
+import net.minecraft.nbt.NBTTagList
+import net.minecraft.nbt.NBTTagString
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class ZenMachineDataTest {
+
+    @Test
+    fun `typed values roundtrip through NBT with the same tag types`() {
+        val data = ZenMachineData()
+        data.setInt("count", 42)
+        data.setDouble("heat", 12.5)
+        data.setBool("running", true)
+        data.setString("mode", "fast")
+        data.setLong("energy", 1L shl 40)
+
+        val nbt = data.writeNBT()
+        assertEquals(3, nbt.getTagId("count").toInt())
+        assertEquals(6, nbt.getTagId("heat").toInt())
+        assertEquals(1, nbt.getTagId("running").toInt())
+        assertEquals(8, nbt.getTagId("mode").toInt())
+        assertEquals(4, nbt.getTagId("energy").toInt())
+
+        val restored = ZenMachineData()
+        restored.readNBT(nbt)
+        assertEquals(5, restored.size())
+        assertEquals(42, restored.getInt("count"))
+        assertEquals(12.5, restored.getDouble("heat"), 0.0)
+        assertTrue(restored.getBool("running"))
+        assertEquals("fast", restored.getString("mode"))
+        assertEquals(1L shl 40, restored.getLong("energy"))
+    }
+
+    @Test
+    fun `reads follow NBTTagCompound conversion semantics`() {
+        val data = ZenMachineData()
+        data.setDouble("d", 3.9)
+        data.setInt("i", 256)
+        data.setString("s", "x")
+
+        assertEquals(3, data.getInt("d"))
+        assertEquals(256.0, data.getDouble("i"), 0.0)
+        // Only the low byte counts for booleans.
+        assertFalse(data.getBool("i"))
+        // Present but non-string -> "" (not the default), absent -> default.
+        assertEquals("", data.getString("i", "def"))
+        assertEquals("def", data.getString("missing", "def"))
+        assertEquals(0.0, data.getDouble("s", 7.0), 0.0)
+        assertEquals(7.0, data.getDouble("missing", 7.0), 0.0)
+    }
+
+    @Test
+    fun `key handles address the same slot as names`() {
+        val data = ZenMachineData()
+        val key = ZenMachineData.key("progress_counter")
+        assertSame(key, ZenMachineDataKey.of("progress_counter"))
+
+        data.setInt(key, 7)
+        assertEquals(7, data.getInt("progress_counter"))
+        data.setInt("progress_counter", 9)
+        assertEquals(9, data.getInt(key))
+        assertTrue(data.has("progress_counter"))
+
+        data.remove("progress_counter")
+        assertFalse(data.has("progress_counter"))
+        assertEquals(-1, data.getInt(key, -1))
+    }
+
+    @Test
+    fun `unchanged typed writes do not notify`() {
+        var changes = 0
+        val data = ZenMachineData { changes++ }
+
+        data.setDouble("v", 1.0)
+        data.setDouble("v", 1.0)
+        assertEquals(1, changes)
+
+        data.setDouble("v", 2.0)
+        assertEquals(2, changes)
+
+        data.remove("missing")
+        assertEquals(2, changes)
+
+        data.clear()
+        data.clear()
+        assertEquals(3, changes)
+        assertEquals(0, data.size())
+    }
+
+    @Test
+    fun `keys beyond the dense slot range use sparse storage`() {
+        var i = 0
+        var late = MachineDataKeys.resolve("sparse_pad_${i++}")
+        while (late.slot < MachineDataStore.DENSE_SLOTS) late = MachineDataKeys.resolve("sparse_pad_${i++}")
+
+        val store = MachineDataStore()
+        assertTrue(store.setInt(late.slot, 42))
+        assertFalse(store.setInt(late.slot, 42))
+        store.setTag(late.slot, NBTTagList().apply { appendTag(NBTTagString("x")) })
+        store.setDouble(late.slot, 2.75)
+        assertEquals(0, store.capacity)
+        assertEquals(1, store.size)
+        assertEquals(2, store.getInt(late.slot, -1))
+        assertEquals(2.75, store.getDouble(late.slot, 0.0), 0.0)
+        assertEquals("", store.getString(late.slot, "d"))
+
+        val nbt = store.writeNBT()
+        assertEquals(6, nbt.getTagId(late.name).toInt())
+
+        val data = ZenMachineData()
+        data.readNBT(nbt)
+        assertEquals(2.75, data.getDouble(late.name), 0.0)
+        data.setString(late.name, "v")
+        assertEquals("v", data.getString(ZenMachineDataKey.of(late.name)))
+        data.remove(late.name)
+        assertFalse(data.has(late.name))
+        assertEquals(0, data.size())
+    }
+
+    @Test
+    fun `opaque tags are preserved and isolated from the source compound`() {
+        val list = NBTTagList()
+        list.appendTag(NBTTagString("a"))
+        val source = NBTTagCompound()
+        source.setTag("list", list)
+
+        val data = ZenMachineData()
+        data.readNBT(source)
+        list.appendTag(NBTTagString("b"))
+
+        val out = data.writeNBT()
+        assertEquals(1, out.getTagList("list", 8).tagCount())
+        assertNull(data.get("missing_key_never_used"))
+    }
+}